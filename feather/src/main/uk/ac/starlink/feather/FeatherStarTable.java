@@ -34,6 +34,8 @@ public class FeatherStarTable extends AbstractStarTable {
     private final String name_;
     private final FeatherColumn[] fcols_;
     private final ColumnInfo[] colInfos_;
+    private final boolean[] isNumeric_;
+    private final MappedColumn[] mcols_;
     private final RowReader randomReader_;
 
     /** JSON key used to store UCDs in column user metadata. */
@@ -65,28 +67,52 @@ public class FeatherStarTable extends AbstractStarTable {
      * @param   ftable   feather table object
      */
     public FeatherStarTable( FeatherTable ftable ) {
+        this( ftable, new MappedColumn[ ftable.getColumnCount() ] );
+    }
+
+    /**
+     * Constructs a FeatherStarTable from a File.
+     * Fixed-width numeric columns are read directly from
+     * memory-mapped buffers.
+     *
+     * @param  file  file
+     */
+    public FeatherStarTable( File file ) throws IOException {
+        this( FeatherTable.fromFile( file ), MappedColumn.mapColumns( file ) );
+    }
+
+    /**
+     * Constructs a FeatherStarTable from a FeatherTable with
+     * optional direct access to column data.
+     *
+     * @param   ftable   feather table object
+     * @param   mcols   per-column mapped data access objects;
+     *                  null elements indicate columns that must be
+     *                  read using the feather library Reader
+     */
+    private FeatherStarTable( FeatherTable ftable, MappedColumn[] mcols ) {
         ftable_ = ftable;
         ncol_ = ftable.getColumnCount();
         nrow_ = ftable.getRowCount();
         name_ = ftable.getDescription();
         fcols_ = new FeatherColumn[ ncol_ ];
         colInfos_ = new ColumnInfo[ ncol_ ];
+        isNumeric_ = new boolean[ ncol_ ];
         for ( int icol = 0; icol < ncol_; icol++ ) {
             fcols_[ icol ] = ftable.getColumn( icol );
             colInfos_[ icol ] = createColumnInfo( fcols_[ icol ] );
+            Class<?> clazz = colInfos_[ icol ].getContentClass();
+            isNumeric_[ icol ] = clazz == Byte.class
+                              || clazz == Short.class
+                              || clazz == Integer.class
+                              || clazz == Long.class
+                              || clazz == Float.class
+                              || clazz == Double.class;
         }
+        mcols_ = mcols.length == ncol_ ? mcols : new MappedColumn[ ncol_ ];
         randomReader_ = new RowReader();
     }
 
-    /**
-     * Constructs a FeatherStarTable from a File.
-     *
-     * @param  file  file
-     */
-    public FeatherStarTable( File file ) throws IOException {
-        this( FeatherTable.fromFile( file ) );
-    }
-
     public int getColumnCount() {
         return ncol_;
     }
@@ -146,6 +172,21 @@ public class FeatherStarTable extends AbstractStarTable {
                     throw new IllegalStateException();
                 }
             }
+            public double getDouble( int icol ) throws IOException {
+                return isNumeric_[ icol ]
+                     ? rowReader.getDouble( irow_, icol )
+                     : RowSequence.super.getDouble( icol );
+            }
+            public long getLong( int icol ) throws IOException {
+                return isNumeric_[ icol ]
+                     ? rowReader.getLong( irow_, icol )
+                     : RowSequence.super.getLong( icol );
+            }
+            public boolean isNull( int icol ) throws IOException {
+                return isNumeric_[ icol ]
+                     ? rowReader.isNull( irow_, icol )
+                     : RowSequence.super.isNull( icol );
+            }
             public void close() {
             }
         };
@@ -164,6 +205,21 @@ public class FeatherStarTable extends AbstractStarTable {
             public Object[] getRow() throws IOException {
                 return rowReader.getRow( irow_ );
             }
+            public double getDouble( int icol ) throws IOException {
+                return isNumeric_[ icol ]
+                     ? rowReader.getDouble( irow_, icol )
+                     : RowAccess.super.getDouble( icol );
+            }
+            public long getLong( int icol ) throws IOException {
+                return isNumeric_[ icol ]
+                     ? rowReader.getLong( irow_, icol )
+                     : RowAccess.super.getLong( icol );
+            }
+            public boolean isNull( int icol ) throws IOException {
+                return isNumeric_[ icol ]
+                     ? rowReader.isNull( irow_, icol )
+                     : RowAccess.super.isNull( icol );
+            }
             public void close() {
             }
         };
@@ -250,6 +306,8 @@ public class FeatherStarTable extends AbstractStarTable {
 
     /**
      * Row/column access object that can acquire data values from table.
+     * Mapped columns are used where available,
+     * otherwise per-column feather library Readers are created on demand.
      */
     private class RowReader {
 
@@ -280,7 +338,57 @@ public class FeatherStarTable extends AbstractStarTable {
          * @return  cell value
          */
         Object getCell( long irow, int icol ) throws IOException {
-            return getReader( icol ).getObject( irow );
+            MappedColumn mcol = mcols_[ icol ];
+            return mcol != null ? mcol.getObject( irow )
+                                : getReader( icol ).getObject( irow );
+        }
+
+        /**
+         * Returns a numeric cell value as a double without object creation.
+         * Must only be used for numeric columns.
+         *
+         * @param  irow  row index
+         * @param  icol  column index
+         * @return  cell value, or NaN for blank values
+         */
+        double getDouble( long irow, int icol ) throws IOException {
+            MappedColumn mcol = mcols_[ icol ];
+            if ( mcol != null ) {
+                return mcol.getDouble( irow );
+            }
+            Reader<?> rdr = getReader( icol );
+            return rdr.isNull( irow ) ? Double.NaN : rdr.getDouble( irow );
+        }
+
+        /**
+         * Returns a numeric cell value as a long without object creation.
+         * Must only be used for numeric columns.
+         *
+         * @param  irow  row index
+         * @param  icol  column index
+         * @return  cell value, undefined for blank values
+         */
+        long getLong( long irow, int icol ) throws IOException {
+            MappedColumn mcol = mcols_[ icol ];
+            return mcol != null ? mcol.getLong( irow )
+                                : getReader( icol ).getLong( irow );
+        }
+
+        /**
+         * Indicates whether a numeric cell is blank without object creation.
+         * Must only be used for numeric columns.
+         *
+         * @param  irow  row index
+         * @param  icol  column index
+         * @return  true iff the cell is null or NaN
+         */
+        boolean isNull( long irow, int icol ) throws IOException {
+            MappedColumn mcol = mcols_[ icol ];
+            if ( mcol != null ) {
+                return mcol.isNull( irow );
+            }
+            Reader<?> rdr = getReader( icol );
+            return rdr.isNull( irow ) || Double.isNaN( rdr.getDouble( irow ) );
         }
 
         /**
@@ -292,7 +400,7 @@ public class FeatherStarTable extends AbstractStarTable {
         Object[] getRow( long irow ) throws IOException {
             Object[] row = new Object[ ncol_ ];
             for ( int ic = 0; ic < ncol_; ic++ ) {
-                row[ ic ] = getReader( ic ).getObject( irow );
+                row[ ic ] = getCell( irow, ic );
             }
             return row;
         }
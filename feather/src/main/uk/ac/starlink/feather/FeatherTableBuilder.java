@@ -41,7 +41,7 @@ public class FeatherTableBuilder extends DocumentedTableBuilder {
         }
         File ffile = getFile( datsrc );
         if ( ffile != null && datsrc.getCompression() == Compression.NONE ) {
-            return new FeatherStarTable( FeatherTable.fromFile( ffile ) );
+            return new FeatherStarTable( ffile );
         }
         else {
             throw new TableFormatException( "Only uncompressed files supported"
@@ -0,0 +1,413 @@
+package uk.ac.starlink.feather;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import uk.ac.bristol.star.fbs.feather.CTable;
+import uk.ac.bristol.star.fbs.feather.Encoding;
+import uk.ac.bristol.star.fbs.feather.PrimitiveArray;
+import uk.ac.bristol.star.feather.FeatherTable;
+import uk.ac.bristol.star.feather.FeatherType;
+
+/**
+ * Provides direct access to the data of a fixed-width numeric column
+ * in a memory-mapped Feather file.
+ *
+ * <p>Values are read from little-endian views of the mapped file
+ * using absolute indexing, and the validity bitmap, if present,
+ * is read from the mapped file a 64-bit word at a time.
+ * No data is copied and no per-reader state is required,
+ * so a single instance may be used concurrently from multiple threads.
+ * The data is mapped in chunks, so columns larger than 2Gbyte
+ * are supported.
+ *
+ * @author   Mark Taylor
+ * @since    17 Oct 2026
+ */
+abstract class MappedColumn {
+
+    private final ByteBuffer[] dataBufs_;
+    private final ByteBuffer[] maskBufs_;
+    private final int shift_;
+
+    /** Log2 of the maximum number of bytes in a mapped chunk. */
+    private static final int CHUNK_BITS = 30;
+
+    private static final long CHUNK_MASK = ( 1L << CHUNK_BITS ) - 1;
+
+    /**
+     * Constructor.
+     *
+     * @param  chan  channel for the Feather file
+     * @param  parray  column data description
+     * @param  nrow  number of rows in column
+     * @param  shift  log2 of the number of bytes per value
+     */
+    private MappedColumn( FileChannel chan, PrimitiveArray parray, long nrow,
+                          int shift ) throws IOException {
+        shift_ = shift;
+        long offset = parray.offset();
+        long maskLeng = parray.nullCount() > 0 ? ( ( nrow + 63 ) / 64 ) * 8
+                                                : 0;
+        long dataLeng = nrow << shift;
+        if ( maskLeng + dataLeng > parray.totalBytes() ||
+             offset + parray.totalBytes() > chan.size() ) {
+            throw new IOException( "Feather column data out of bounds" );
+        }
+        maskBufs_ = maskLeng > 0 ? mapChunks( chan, offset, maskLeng )
+                                 : null;
+        dataBufs_ = mapChunks( chan, offset + maskLeng, dataLeng );
+    }
+
+    /**
+     * Returns the value at a given row as an object of the type
+     * used by the feather library's Reader for this column type.
+     *
+     * @param  irow  row index
+     * @return  cell value, or null for blank values
+     */
+    public abstract Object getObject( long irow );
+
+    /**
+     * Returns the value at a given row as a double.
+     *
+     * @param  irow  row index
+     * @return  cell value, or NaN for blank values
+     */
+    public abstract double getDouble( long irow );
+
+    /**
+     * Returns the value at a given row as a long.
+     *
+     * @param  irow  row index
+     * @return  cell value, undefined for blank values
+     */
+    public abstract long getLong( long irow );
+
+    /**
+     * Indicates whether the value at a given row is blank,
+     * either because it is marked invalid in the validity bitmap
+     * or because it is a floating point NaN.
+     *
+     * @param  irow  row index
+     * @return  true iff the cell is null or NaN
+     */
+    public boolean isNull( long irow ) {
+        return ! isValid( irow );
+    }
+
+    /**
+     * Indicates whether the validity bitmap marks a given row as present.
+     *
+     * @param  irow  row index
+     * @return  false iff the cell is marked null
+     */
+    public boolean isValid( long irow ) {
+        if ( maskBufs_ == null ) {
+            return true;
+        }
+        else {
+            long ioff = ( irow >>> 6 ) << 3;
+            long word = maskBufs_[ (int) ( ioff >>> CHUNK_BITS ) ]
+                       .getLong( (int) ( ioff & CHUNK_MASK ) );
+            return ( ( word >>> ( irow & 63 ) ) & 1L ) != 0;
+        }
+    }
+
+    /**
+     * Returns the buffer containing the value for a given row.
+     *
+     * @param  irow  row index
+     * @return  buffer to be read at {@link #index}
+     */
+    ByteBuffer buffer( long irow ) {
+        return dataBufs_[ (int) ( ( irow << shift_ ) >>> CHUNK_BITS ) ];
+    }
+
+    /**
+     * Returns the offset into the buffer containing the value for a given row.
+     *
+     * @param  irow  row index
+     * @return  byte offset into {@link #buffer}
+     */
+    int index( long irow ) {
+        return (int) ( ( irow << shift_ ) & CHUNK_MASK );
+    }
+
+    /**
+     * Maps all the fixed-width numeric columns in a Feather file.
+     * The returned array has one element for each column of the table;
+     * elements for columns that cannot be mapped are null.
+     *
+     * @param  file  uncompressed Feather file
+     * @return  array of mapped columns, some elements may be null
+     */
+    public static MappedColumn[] mapColumns( File file ) throws IOException {
+        try ( FileChannel chan =
+                  FileChannel.open( file.toPath(), StandardOpenOption.READ ) ) {
+            CTable ctable = readMetadata( chan );
+            long nrow = ctable.numRows();
+            int ncol = ctable.columnsLength();
+            MappedColumn[] mcols = new MappedColumn[ ncol ];
+            for ( int ic = 0; ic < ncol; ic++ ) {
+                PrimitiveArray parray = ctable.columns( ic ).values();
+                if ( parray.encoding() == Encoding.PLAIN &&
+                     parray.length() == nrow ) {
+                    mcols[ ic ] = createColumn( chan, parray, nrow );
+                }
+            }
+
+            /* The mapped buffers remain valid after the channel is closed. */
+            return mcols;
+        }
+    }
+
+    /**
+     * Reads the table metadata from the end of a Feather file.
+     *
+     * @param  chan  channel for the file
+     * @return  table metadata
+     */
+    private static CTable readMetadata( FileChannel chan ) throws IOException {
+        long leng = chan.size();
+        ByteBuffer tail = readBytes( chan, leng - 8, 8 );
+        int metaLeng = tail.getInt( 0 );
+        if ( tail.getInt( 4 ) != FeatherTable.MAGIC ||
+             metaLeng <= 0 || metaLeng > leng - 12 ) {
+            throw new IOException( "Bad Feather file trailer" );
+        }
+        return CTable
+              .getRootAsCTable( readBytes( chan, leng - 8 - metaLeng,
+                                           metaLeng ) );
+    }
+
+    /**
+     * Reads a block of bytes from a channel.
+     *
+     * @param  chan  channel
+     * @param  pos   file position
+     * @param  leng  number of bytes
+     * @return   little-endian buffer with position zero containing
+     *           the bytes read
+     */
+    private static ByteBuffer readBytes( FileChannel chan, long pos, int leng )
+            throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate( leng )
+                                   .order( ByteOrder.LITTLE_ENDIAN );
+        while ( buf.hasRemaining() ) {
+            if ( chan.read( buf, pos + buf.position() ) < 0 ) {
+                throw new IOException( "Feather file truncated" );
+            }
+        }
+        buf.flip();
+        return buf;
+    }
+
+    /**
+     * Maps a region of a file as a sequence of little-endian buffers,
+     * each of which except the last has the maximum chunk size.
+     *
+     * @param  chan  file channel
+     * @param  start  offset of region in file
+     * @param  leng   length of region in bytes
+     * @return  mapped buffers
+     */
+    private static ByteBuffer[] mapChunks( FileChannel chan, long start,
+                                           long leng )
+            throws IOException {
+        int nchunk = (int) ( ( leng + CHUNK_MASK ) >>> CHUNK_BITS );
+        ByteBuffer[] bufs = new ByteBuffer[ nchunk ];
+        for ( int ic = 0; ic < nchunk; ic++ ) {
+            long off = ( (long) ic ) << CHUNK_BITS;
+            long size = Math.min( leng - off, CHUNK_MASK + 1 );
+            bufs[ ic ] = chan.map( FileChannel.MapMode.READ_ONLY,
+                                   start + off, size )
+                             .order( ByteOrder.LITTLE_ENDIAN );
+        }
+        return bufs;
+    }
+
+    /**
+     * Returns a mapped column for a given column array,
+     * if its data type is suitable.
+     *
+     * @param  chan  file channel
+     * @param  parray  column data description
+     * @param  nrow   row count
+     * @return  mapped column, or null if data type is not supported
+     */
+    private static MappedColumn createColumn( FileChannel chan,
+                                              PrimitiveArray parray,
+                                              long nrow )
+            throws IOException {
+        FeatherType ftype = FeatherType.fromByte( parray.type() );
+        if ( ftype == FeatherType.INT8 ) {
+            return new MappedColumn( chan, parray, nrow, 0 ) {
+                byte get( long irow ) {
+                    return buffer( irow ).get( index( irow ) );
+                }
+                public Object getObject( long irow ) {
+                    return isValid( irow ) ? Byte.valueOf( get( irow ) ) : null;
+                }
+                public double getDouble( long irow ) {
+                    return isValid( irow ) ? get( irow ) : Double.NaN;
+                }
+                public long getLong( long irow ) {
+                    return get( irow );
+                }
+            };
+        }
+        else if ( ftype == FeatherType.INT16 ) {
+            return new MappedColumn( chan, parray, nrow, 1 ) {
+                short get( long irow ) {
+                    return buffer( irow ).getShort( index( irow ) );
+                }
+                public Object getObject( long irow ) {
+                    return isValid( irow ) ? Short.valueOf( get( irow ) )
+                                           : null;
+                }
+                public double getDouble( long irow ) {
+                    return isValid( irow ) ? get( irow ) : Double.NaN;
+                }
+                public long getLong( long irow ) {
+                    return get( irow );
+                }
+            };
+        }
+        else if ( ftype == FeatherType.INT32 ) {
+            return new MappedColumn( chan, parray, nrow, 2 ) {
+                int get( long irow ) {
+                    return buffer( irow ).getInt( index( irow ) );
+                }
+                public Object getObject( long irow ) {
+                    return isValid( irow ) ? Integer.valueOf( get( irow ) )
+                                           : null;
+                }
+                public double getDouble( long irow ) {
+                    return isValid( irow ) ? get( irow ) : Double.NaN;
+                }
+                public long getLong( long irow ) {
+                    return get( irow );
+                }
+            };
+        }
+        else if ( ftype == FeatherType.INT64 ) {
+            return new MappedColumn( chan, parray, nrow, 3 ) {
+                long get( long irow ) {
+                    return buffer( irow ).getLong( index( irow ) );
+                }
+                public Object getObject( long irow ) {
+                    return isValid( irow ) ? Long.valueOf( get( irow ) )
+                                           : null;
+                }
+                public double getDouble( long irow ) {
+                    return isValid( irow ) ? get( irow ) : Double.NaN;
+                }
+                public long getLong( long irow ) {
+                    return get( irow );
+                }
+            };
+        }
+        else if ( ftype == FeatherType.UINT8 ) {
+            return new MappedColumn( chan, parray, nrow, 0 ) {
+                short get( long irow ) {
+                    return (short) ( buffer( irow ).get( index( irow ) )
+                                     & 0xff );
+                }
+                public Object getObject( long irow ) {
+                    return isValid( irow ) ? Short.valueOf( get( irow ) )
+                                           : null;
+                }
+                public double getDouble( long irow ) {
+                    return isValid( irow ) ? get( irow ) : Double.NaN;
+                }
+                public long getLong( long irow ) {
+                    return get( irow );
+                }
+            };
+        }
+        else if ( ftype == FeatherType.UINT16 ) {
+            return new MappedColumn( chan, parray, nrow, 1 ) {
+                int get( long irow ) {
+                    return buffer( irow ).getShort( index( irow ) ) & 0xffff;
+                }
+                public Object getObject( long irow ) {
+                    return isValid( irow ) ? Integer.valueOf( get( irow ) )
+                                           : null;
+                }
+                public double getDouble( long irow ) {
+                    return isValid( irow ) ? get( irow ) : Double.NaN;
+                }
+                public long getLong( long irow ) {
+                    return get( irow );
+                }
+            };
+        }
+        else if ( ftype == FeatherType.UINT32 ) {
+            return new MappedColumn( chan, parray, nrow, 2 ) {
+                long get( long irow ) {
+                    return buffer( irow ).getInt( index( irow ) )
+                         & 0xffffffffL;
+                }
+                public Object getObject( long irow ) {
+                    return isValid( irow ) ? Long.valueOf( get( irow ) )
+                                           : null;
+                }
+                public double getDouble( long irow ) {
+                    return isValid( irow ) ? get( irow ) : Double.NaN;
+                }
+                public long getLong( long irow ) {
+                    return get( irow );
+                }
+            };
+        }
+        else if ( ftype == FeatherType.FLOAT ) {
+            return new MappedColumn( chan, parray, nrow, 2 ) {
+                float get( long irow ) {
+                    return buffer( irow ).getFloat( index( irow ) );
+                }
+                public Object getObject( long irow ) {
+                    return isValid( irow ) ? Float.valueOf( get( irow ) )
+                                           : null;
+                }
+                public double getDouble( long irow ) {
+                    return isValid( irow ) ? get( irow ) : Double.NaN;
+                }
+                public long getLong( long irow ) {
+                    return (long) get( irow );
+                }
+                @Override
+                public boolean isNull( long irow ) {
+                    return ! isValid( irow ) || Float.isNaN( get( irow ) );
+                }
+            };
+        }
+        else if ( ftype == FeatherType.DOUBLE ) {
+            return new MappedColumn( chan, parray, nrow, 3 ) {
+                double get( long irow ) {
+                    return buffer( irow ).getDouble( index( irow ) );
+                }
+                public Object getObject( long irow ) {
+                    return isValid( irow ) ? Double.valueOf( get( irow ) )
+                                           : null;
+                }
+                public double getDouble( long irow ) {
+                    return isValid( irow ) ? get( irow ) : Double.NaN;
+                }
+                public long getLong( long irow ) {
+                    return (long) get( irow );
+                }
+                @Override
+                public boolean isNull( long irow ) {
+                    return ! isValid( irow ) || Double.isNaN( get( irow ) );
+                }
+            };
+        }
+        else {
+            return null;
+        }
+    }
+}
@@ -1,7 +1,17 @@
 package uk.ac.starlink.feather;
 
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.net.URL;
+import uk.ac.bristol.star.feather.FeatherTable;
+import uk.ac.starlink.table.ArrayColumn;
+import uk.ac.starlink.table.ColumnStarTable;
+import uk.ac.starlink.table.RowAccess;
+import uk.ac.starlink.table.RowSequence;
+import uk.ac.starlink.table.RowSplittable;
 import uk.ac.starlink.table.StarTable;
 import uk.ac.starlink.table.StoragePolicy;
 import uk.ac.starlink.table.Tables;
@@ -24,6 +34,97 @@ public class FeatherTest extends TestCase {
         assertNull( dataTable.getCell( 1, 4 ) );
     }
 
+    public void testMapped() throws IOException {
+        int nrow = 1001;
+        Byte[] bvals = new Byte[ nrow ];
+        Short[] svals = new Short[ nrow ];
+        Integer[] ivals = new Integer[ nrow ];
+        Long[] lvals = new Long[ nrow ];
+        Float[] fvals = new Float[ nrow ];
+        Double[] dvals = new Double[ nrow ];
+        String[] strs = new String[ nrow ];
+        for ( int i = 0; i < nrow; i++ ) {
+            boolean isBlank = i % 13 == 5;
+            bvals[ i ] = isBlank ? null : Byte.valueOf( (byte) i );
+            svals[ i ] = isBlank ? null : Short.valueOf( (short) ( -3 * i ) );
+            ivals[ i ] = isBlank ? null : Integer.valueOf( i * 100001 );
+            lvals[ i ] = isBlank ? null : Long.valueOf( i * 10000000001L );
+            fvals[ i ] = i % 7 == 1 ? Float.NaN : Float.valueOf( i * 0.25f );
+            dvals[ i ] = isBlank ? null : Double.valueOf( Math.sqrt( i ) );
+            strs[ i ] = isBlank ? null : "s" + i;
+        }
+        ColumnStarTable t0 = ColumnStarTable.makeTableWithRows( nrow );
+        t0.addColumn( ArrayColumn.makeColumn( "b", bvals ) );
+        t0.addColumn( ArrayColumn.makeColumn( "s", svals ) );
+        t0.addColumn( ArrayColumn.makeColumn( "i", ivals ) );
+        t0.addColumn( ArrayColumn.makeColumn( "l", lvals ) );
+        t0.addColumn( ArrayColumn.makeColumn( "f", fvals ) );
+        t0.addColumn( ArrayColumn.makeColumn( "d", dvals ) );
+        t0.addColumn( ArrayColumn.makeColumn( "str", strs ) );
+        int ncol = t0.getColumnCount();
+
+        File file = File.createTempFile( "mapped", ".fea" );
+        file.deleteOnExit();
+        try ( OutputStream out =
+                  new BufferedOutputStream( new FileOutputStream( file ) ) ) {
+            new FeatherTableWriter().writeStarTable( t0, out );
+        }
+
+        MappedColumn[] mcols = MappedColumn.mapColumns( file );
+        for ( int icol = 0; icol < ncol - 1; icol++ ) {
+            assertNotNull( mcols[ icol ] );
+        }
+        assertNull( mcols[ ncol - 1 ] );
+
+        /* Compare direct mapped access with access through the
+         * feather library column readers. */
+        FeatherStarTable tMapped = new FeatherStarTable( file );
+        FeatherStarTable tReader =
+            new FeatherStarTable( FeatherTable.fromFile( file ) );
+        Tables.checkTable( tMapped );
+        assertEquals( nrow, tMapped.getRowCount() );
+        try ( RowSequence rseq = tMapped.getRowSequence();
+              RowAccess racc = tReader.getRowAccess() ) {
+            for ( long irow = 0; rseq.next(); irow++ ) {
+                racc.setRowIndex( irow );
+                assertArrayEquals( racc.getRow(), rseq.getRow() );
+                for ( int icol = 0; icol < ncol - 1; icol++ ) {
+                    assertEquals( racc.isNull( icol ), rseq.isNull( icol ) );
+                    assertEquals( racc.getDouble( icol ),
+                                  rseq.getDouble( icol ) );
+                    if ( ! racc.isNull( icol ) ) {
+                        assertEquals( racc.getLong( icol ),
+                                      rseq.getLong( icol ) );
+                    }
+                }
+            }
+        }
+        assertNull( tMapped.getCell( 5, 0 ) );
+        assertTrue( ((Float) tMapped.getCell( 8, 4 )).isNaN() );
+        assertEquals( Double.valueOf( 10.0 ), tMapped.getCell( 100, 5 ) );
+
+        /* Row range splitting covers all rows. */
+        RowSplittable split1 = tMapped.getRowSplittable();
+        RowSplittable split2 = split1.split();
+        assertNotNull( split2 );
+        double sum = 0;
+        for ( RowSplittable split : new RowSplittable[] { split1, split2 } ) {
+            while ( split.next() ) {
+                if ( ! split.isNull( 2 ) ) {
+                    sum += split.getDouble( 2 );
+                }
+            }
+            split.close();
+        }
+        double sum0 = 0;
+        for ( int i = 0; i < nrow; i++ ) {
+            if ( ivals[ i ] != null ) {
+                sum0 += ivals[ i ].doubleValue();
+            }
+        }
+        assertEquals( sum0, sum );
+    }
+
     private FeatherStarTable readTable( String name ) throws IOException {
         URL url = getClass().getResource( name );
         StarTable table = new FeatherTableBuilder()
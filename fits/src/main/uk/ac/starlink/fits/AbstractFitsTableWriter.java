@@ -1,8 +1,11 @@
 package uk.ac.starlink.fits;
 
 import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.Date;
 import java.text.DateFormat;
@@ -59,6 +62,8 @@ public abstract class AbstractFitsTableWriter extends StreamStarTableWriter
     private boolean allowZeroLengthString_;
     private WideFits wide_;
     private byte padChar_;
+    private int nThread_;
+    private boolean checksum_;
     private static final Logger logger_ =
         Logger.getLogger( "uk.ac.starlink.fits" );
 
@@ -73,6 +78,7 @@ public abstract class AbstractFitsTableWriter extends StreamStarTableWriter
         allowZeroLengthString_ = true;
         wide_ = WideFits.DEFAULT;
         padChar_ = (byte) '\0';
+        nThread_ = 1;
         writeDate_ = true;
     }
 
@@ -131,7 +137,9 @@ public abstract class AbstractFitsTableWriter extends StreamStarTableWriter
                                  StarTableOutput sto ) throws IOException {
         OutputStream out = sto.getOutputStream( location );
         try {
-            out = new BufferedOutputStream( out );
+            out = out instanceof FileOutputStream
+                ? new SeekableOutputStream( (FileOutputStream) out )
+                : new BufferedOutputStream( out );
             writeStarTables( tableSeq, out );
             out.flush();
         }
@@ -155,6 +163,14 @@ public abstract class AbstractFitsTableWriter extends StreamStarTableWriter
     /**
      * Writes a data HDU.
      *
+     * <p>If checksums are configured, CHECKSUM and DATASUM headers
+     * are included.  The data sum is accumulated as the data is written,
+     * and if the output stream is one set up by this writer for
+     * a local file, the header is then overwritten in place.
+     * Otherwise the serializer has to calculate the data checksum
+     * before the header is written, which typically means encoding
+     * the data twice.
+     *
      * @param   table  the table to be written into the HDU
      * @param   fitser  fits serializer initalised from <code>table</code>
      * @param   out  destination stream
@@ -164,11 +180,30 @@ public abstract class AbstractFitsTableWriter extends StreamStarTableWriter
         List<CardImage> cards =
             new ArrayList<CardImage>( Arrays.asList( fitser.getHeader() ) );
         cards.addAll( getMetadataCards() );
-        cards.add( CardFactory.END_CARD );
-        FitsUtil.writeHeader( cards.toArray( new CardImage[ 0 ] ), out );
-        DataBufferedOutputStream dout = new DataBufferedOutputStream( out );
-        fitser.writeData( dout );
-        dout.flush();
+        if ( ! checksum_ ) {
+            cards.add( CardFactory.END_CARD );
+            FitsUtil.writeHeader( cards.toArray( new CardImage[ 0 ] ), out );
+            DataBufferedOutputStream dout = new DataBufferedOutputStream( out );
+            fitser.writeData( dout );
+            dout.flush();
+        }
+        else if ( out instanceof SeekableOutputStream ) {
+            SeekableOutputStream sout = (SeekableOutputStream) out;
+            long hdrPos = sout.getPosition();
+            out.write( createChecksumHeader( cards, 0L ) );
+            long datasum = writeChecksummedData( fitser, out );
+            sout.overwrite( createChecksumHeader( cards, datasum ), hdrPos );
+        }
+        else {
+            logger_.info( "Calculating DATASUM before writing data "
+                        + "for non-seekable output" );
+            long datasum = fitser.getDataChecksum();
+            out.write( createChecksumHeader( cards, datasum ) );
+            if ( writeChecksummedData( fitser, out ) != datasum ) {
+                throw new IOException( "Table data changed during write - "
+                                     + "DATASUM/CHECKSUM invalid" );
+            }
+        }
     }
 
     /**
@@ -191,6 +226,7 @@ public abstract class AbstractFitsTableWriter extends StreamStarTableWriter
         final boolean allowZeroLengthString = allowZeroLengthString_;
         final WideFits wide = wide_;
         final byte padChar = padChar_;
+        final int nThread = nThread_;
         return new FitsTableSerializerConfig() {
             public boolean allowSignedByte() {
                 return allowSignedByte;
@@ -204,6 +240,9 @@ public abstract class AbstractFitsTableWriter extends StreamStarTableWriter
             public byte getPadCharacter() {
                 return padChar;
             }
+            public int getWriteThreadCount() {
+                return nThread;
+            }
         };
     }
 
@@ -360,6 +399,74 @@ public abstract class AbstractFitsTableWriter extends StreamStarTableWriter
         return padChar_;
     }
 
+    /**
+     * Sets the number of threads used for encoding row data.
+     * The output is the same regardless of this setting.
+     *
+     * @param  nThread  encoding thread count; 1 for sequential encoding,
+     *                  &lt;=0 to use the number of available processors
+     */
+    @ConfigMethod(
+        property = "nThread",
+        usage = "<int>",
+        example = "4",
+        doc = "<p>Sets the number of threads used for concurrently\n"
+            + "encoding row data.\n"
+            + "If the value is 1 (the default), rows are encoded\n"
+            + "sequentially by the writing thread.\n"
+            + "If it is &lt;=0, a value is chosen\n"
+            + "based on the number of apparently available processors.\n"
+            + "The output is the same in any case,\n"
+            + "but for large tables encoding in parallel may be faster.\n"
+            + "For column-oriented output written directly to a file,\n"
+            + "this controls how many columns are written concurrently.\n"
+            + "</p>"
+    )
+    public void setWriteThreadCount( int nThread ) {
+        nThread_ = nThread;
+    }
+
+    /**
+     * Returns the number of threads used for encoding row data.
+     *
+     * @return  encoding thread count; 1 for sequential encoding,
+     *          &lt;=0 for the number of available processors
+     */
+    public int getWriteThreadCount() {
+        return nThread_;
+    }
+
+    /**
+     * Configures whether CHECKSUM and DATASUM headers are written
+     * for table HDUs.
+     *
+     * @param  checksum  true to write checksum headers
+     */
+    @ConfigMethod(
+        property = "checksum",
+        doc = "<p>If true, the CHECKSUM and DATASUM headers are filled in\n"
+            + "for each table HDU, according to the FITS Checksum Convention.\n"
+            + "When writing to a local file, the checksums are calculated\n"
+            + "while the data is written and the header is updated\n"
+            + "afterwards;\n"
+            + "when writing to a stream, the table data has to be\n"
+            + "encoded twice.\n"
+            + "</p>"
+    )
+    public void setChecksum( boolean checksum ) {
+        checksum_ = checksum;
+    }
+
+    /**
+     * Indicates whether CHECKSUM and DATASUM headers are written
+     * for table HDUs.
+     *
+     * @return  true iff checksum headers are written
+     */
+    public boolean getChecksum() {
+        return checksum_;
+    }
+
     /**
      * Returns an ISO-8601 data string representing the time at which this
      * method is called.
@@ -373,4 +480,71 @@ public abstract class AbstractFitsTableWriter extends StreamStarTableWriter
         fmt.setCalendar( new GregorianCalendar( utc, Locale.UK ) );
         return fmt.format( new Date() );
     }
+
+    /**
+     * Writes the data part of an HDU, returning its checksum.
+     *
+     * @param  fitser  serializer
+     * @param  out   destination stream, or null to discard the data
+     * @return   ones'-complement sum of the bytes written
+     */
+    private static long writeChecksummedData( FitsTableSerializer fitser,
+                                              OutputStream out )
+            throws IOException {
+        ChecksumOutputStream cout = new ChecksumOutputStream( out );
+        DataBufferedOutputStream dout = new DataBufferedOutputStream( cout );
+        fitser.writeData( dout );
+        dout.flush();
+        return cout.getChecksum();
+    }
+
+    /**
+     * Returns the bytes of an HDU header including correct
+     * CHECKSUM and DATASUM cards for a data part with a given checksum.
+     *
+     * @param  cards  header cards, excluding checksum cards and END
+     * @param  datasum  ones'-complement sum of the data part
+     * @return   header bytes, padded to a whole number of blocks
+     */
+    static byte[] createChecksumHeader( List<CardImage> cards,
+                                                long datasum )
+            throws IOException {
+        CardFactory cfact = CardFactory.DEFAULT;
+        CardImage dataCard =
+            cfact.createStringCard( "DATASUM", Long.toString( datasum ),
+                                    "Data unit checksum" );
+        byte[] hdr0 = toHeaderBytes( cards, cfact.createStringCard(
+                                                "CHECKSUM", "0000000000000000",
+                                                "HDU checksum" ),
+                                     dataCard );
+        long hdrsum = FitsUtil.checksum( ByteBuffer.wrap( hdr0 ) );
+        long complement = FitsUtil.CHECKSUM_OK
+                        - FitsUtil.addChecksums( hdrsum, datasum );
+        return toHeaderBytes( cards, cfact.createStringCard(
+                                         "CHECKSUM",
+                                         FitsUtil.encodeChecksum( complement ),
+                                         "HDU checksum" ),
+                              dataCard );
+    }
+
+    /**
+     * Serializes header cards followed by checksum cards and END.
+     *
+     * @param  cards  header cards
+     * @param  checksumCard  CHECKSUM card
+     * @param  datasumCard   DATASUM card
+     * @return  header bytes, padded to a whole number of blocks
+     */
+    private static byte[] toHeaderBytes( List<CardImage> cards,
+                                         CardImage checksumCard,
+                                         CardImage datasumCard )
+            throws IOException {
+        List<CardImage> hcards = new ArrayList<>( cards );
+        hcards.add( checksumCard );
+        hcards.add( datasumCard );
+        hcards.add( CardFactory.END_CARD );
+        ByteArrayOutputStream bout = new ByteArrayOutputStream();
+        FitsUtil.writeHeader( hcards.toArray( new CardImage[ 0 ] ), bout );
+        return bout.toByteArray();
+    }
 }
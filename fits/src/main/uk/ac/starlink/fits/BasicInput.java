@@ -1,6 +1,7 @@
 package uk.ac.starlink.fits;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 /**
  * Interface defining the basic data input operations required for
@@ -127,4 +128,24 @@ public interface BasicInput {
      * @throws  UnsupportedOperationException  if not random-access
      */
     long getOffset(); // optional
+
+    /**
+     * Returns a buffer giving direct access to the bytes of this stream
+     * from the current position onwards, if that is possible without
+     * copying (optional operation).
+     * The returned buffer's position corresponds to the current position
+     * of this stream, and its remaining bytes are a contiguous run of
+     * this stream's content, though not necessarily all of it.
+     * Moving the position of the returned buffer does not affect the
+     * position of this stream.
+     *
+     * <p>The returned buffer is only guaranteed to be valid until the
+     * next operation on this stream.
+     * The default implementation returns null.
+     *
+     * @return   buffer view of data at current position, or null
+     */
+    default ByteBuffer getCurrentBuffer() throws IOException {
+        return null;
+    }
 }
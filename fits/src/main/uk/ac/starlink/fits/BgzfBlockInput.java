@@ -0,0 +1,72 @@
+package uk.ac.starlink.fits;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import uk.ac.starlink.util.BgzfIndex;
+
+/**
+ * Random-access BasicInput implementation that reads from
+ * a BGZF-compressed file.
+ * Each BGZF block is decompressed on demand when it is first needed.
+ *
+ * @author   Mark Taylor
+ * @since    17 Oct 2026
+ */
+public class BgzfBlockInput extends BlockInput {
+
+    private final FileChannel chan_;
+    private final BgzfIndex index_;
+    private final long offset_;
+    private final int iblock0_;
+    private final int ioff0_;
+
+    /**
+     * Constructor.
+     *
+     * @param  chan  channel for reading the BGZF file
+     * @param  index  block index for the file
+     * @param  offset  offset into the uncompressed data at which
+     *                 this input's stream starts
+     */
+    public BgzfBlockInput( FileChannel chan, BgzfIndex index, long offset ) {
+        super( index.getBlockCount() - index.getBlockIndex( offset ) );
+        chan_ = chan;
+        index_ = index;
+        offset_ = offset;
+        iblock0_ = index.getBlockIndex( offset );
+        ioff0_ = iblock0_ < index.getBlockCount()
+               ? (int) ( offset - index.getUncompressedOffset( iblock0_ ) )
+               : 0;
+    }
+
+    public int[] getBlockPos( long pos ) {
+        long upos = offset_ + pos;
+        int ib = index_.getBlockIndex( upos );
+
+        /* Positions beyond the end of the data map to a non-zero offset
+         * in the (non-existent) block following the last one. */
+        int ioff = ib < index_.getBlockCount()
+                 ? (int) ( upos - index_.getUncompressedOffset( ib ) )
+                 : (int) Math.min( upos - index_.getUncompressedLength(),
+                                   Integer.MAX_VALUE );
+        ib -= iblock0_;
+        if ( ib == 0 ) {
+            ioff -= ioff0_;
+        }
+        return new int[] { ib, ioff };
+    }
+
+    public long getBlockOffset( int iblock, int offsetInBlock ) {
+        return iblock == 0
+             ? offsetInBlock
+             : index_.getUncompressedOffset( iblock0_ + iblock ) - offset_
+               + offsetInBlock;
+    }
+
+    protected ByteBuffer acquireBlock( int iblock ) throws IOException {
+        byte[] data = index_.readBlock( chan_, iblock0_ + iblock );
+        int ioff = iblock == 0 ? ioff0_ : 0;
+        return ByteBuffer.wrap( data, ioff, data.length - ioff ).slice();
+    }
+}
@@ -1,22 +1,28 @@
 package uk.ac.starlink.fits;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.lang.reflect.Array;
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.regex.Pattern;
 import uk.ac.starlink.table.AbstractStarTable;
+import uk.ac.starlink.table.ByteStore;
 import uk.ac.starlink.table.ColumnInfo;
 import uk.ac.starlink.table.DefaultValueInfo;
 import uk.ac.starlink.table.DescribedValue;
 import uk.ac.starlink.table.HealpixTableInfo;
 import uk.ac.starlink.table.RowAccess;
 import uk.ac.starlink.table.RowSequence;
+import uk.ac.starlink.table.StarTable;
+import uk.ac.starlink.table.StoragePolicy;
 import uk.ac.starlink.table.TableFormatException;
 import uk.ac.starlink.table.TableSink;
 import uk.ac.starlink.table.Tables;
@@ -52,6 +58,8 @@ public abstract class BintableStarTable extends AbstractStarTable {
     private final long nrow_;
     private final ColumnInfo[] colInfos_;
     private final ColumnReader[] colReaders_;
+    private final VectorDecoder[] colDecoders_;
+    private final boolean[] isHeapCol_;
     private final long rowLength_;
     private final long[] colOffsets_;
 
@@ -107,6 +115,10 @@ public abstract class BintableStarTable extends AbstractStarTable {
     /** BigInteger equal to 2^63 (== Long.MAX_VALUE + 1). */
     static final BigInteger TWO63 = BigInteger.ONE.shiftLeft( 63 );
 
+    /** Matches TFORM values for variable-length array columns. */
+    private static final Pattern HEAP_TFORM_REGEX =
+        Pattern.compile( "\\s*[0-9]*[PQ]" );
+
     private static final Logger logger_ =
         Logger.getLogger( "uk.ac.starlink.fits" );
 
@@ -155,6 +167,8 @@ public abstract class BintableStarTable extends AbstractStarTable {
         /* Get column characteristics. */
         colInfos_ = new ColumnInfo[ ncol_ ];
         colReaders_ = new ColumnReader[ ncol_ ];
+        colDecoders_ = new VectorDecoder[ ncol_ ];
+        isHeapCol_ = new boolean[ ncol_ ];
         for ( int icol = 0; icol < ncol_; icol++ ) {
             int jcol = icol + 1;
             BintableColumnHeader colhead =
@@ -347,6 +361,12 @@ public abstract class BintableStarTable extends AbstractStarTable {
                                                        longOff.toString() ) );
             }
             colReaders_[ icol ] = reader;
+            colDecoders_[ icol ] =
+                VectorDecoder.createDecoder( tform, scale, zero,
+                                             hasBlank, blank );
+            isHeapCol_[ icol ] =
+                heapOffset >= 0 && HEAP_TFORM_REGEX.matcher( tform )
+                                                   .lookingAt();
         }
 
         /* Calculate offsets so we know where to look for each cell. */
@@ -372,6 +392,12 @@ public abstract class BintableStarTable extends AbstractStarTable {
             }
         }
 
+        /* Bulk decoding works with int buffer offsets, so is not
+         * available for very wide rows. */
+        if ( rowLength_ > Integer.MAX_VALUE ) {
+            Arrays.fill( colDecoders_, null );
+        }
+
         /* Get table name. */
         String extname = hdr.getStringValue( "EXTNAME" );
         if ( extname != null ) {
@@ -441,6 +467,72 @@ public abstract class BintableStarTable extends AbstractStarTable {
         return colReaders_[ icol ].readValue( stream );
     }
 
+    /**
+     * Reads a cell from a given column from the current position in
+     * a stream as a floating point value, without object creation
+     * if possible.
+     *
+     * @param  icol  the column index corresponding to the cell to be read
+     * @param  stream  a stream containing the byte data, positioned to
+     *                 the right place
+     * @return  numeric value, or NaN for blank or non-numeric values
+     * @see   uk.ac.starlink.table.RowData#getDouble
+     */
+    protected double readDoubleCell( BasicInput stream, int icol )
+            throws IOException {
+        return colReaders_[ icol ].readDouble( stream );
+    }
+
+    /**
+     * Reads a cell from a given column from the current position in
+     * a stream as an integer value, without object creation if possible.
+     *
+     * @param  icol  the column index corresponding to the cell to be read
+     * @param  stream  a stream containing the byte data, positioned to
+     *                 the right place
+     * @return  integer value, undefined for blank or non-numeric values
+     * @see   uk.ac.starlink.table.RowData#getLong
+     */
+    protected long readLongCell( BasicInput stream, int icol )
+            throws IOException {
+        return colReaders_[ icol ].readLong( stream );
+    }
+
+    /**
+     * Reads a cell from a given column from the current position in
+     * a stream as an array of double precision values.
+     * Elements of numeric array columns are decoded directly into
+     * the result array.
+     *
+     * @param  stream  a stream containing the byte data, positioned to
+     *                 the right place
+     * @param  icol  the column index corresponding to the cell to be read
+     * @param  buf   buffer for result, or null
+     * @return  array of numeric values, or null for blank or
+     *          non-numeric-array values
+     * @see   uk.ac.starlink.table.RowData#getDoubleArray
+     */
+    protected double[] readDoubleArrayCell( BasicInput stream, int icol,
+                                            double[] buf )
+            throws IOException {
+        return colReaders_[ icol ].readDoubleArray( stream, buf );
+    }
+
+    /**
+     * Determines whether the cell in a given column at the current
+     * position in a stream is blank, without object creation if possible.
+     *
+     * @param  icol  the column index corresponding to the cell to be read
+     * @param  stream  a stream containing the byte data, positioned to
+     *                 the right place
+     * @return  true iff the cell is blank
+     * @see   uk.ac.starlink.table.RowData#isNull
+     */
+    protected boolean readNullCell( BasicInput stream, int icol )
+            throws IOException {
+        return colReaders_[ icol ].readNull( stream );
+    }
+
     /**
      * Reads a whole row of the table from the current position in a stream,
      * returning a new Object[] array.
@@ -457,6 +549,111 @@ public abstract class BintableStarTable extends AbstractStarTable {
         return row;
     }
 
+    /**
+     * Reads floating point values from the cells of a given column
+     * for a contiguous range of rows.
+     * The values are as for {@link #readDoubleCell readDoubleCell}.
+     * For scalar numeric columns, where the stream can provide
+     * buffer access to its data, values are decoded in bulk directly
+     * from the buffer; otherwise they are read cell by cell.
+     *
+     * @param  stream  random-access input stream for the data part
+     * @param  icol   column index
+     * @param  irow   index of first row
+     * @param  buf   destination array
+     * @param  off   offset into destination array of first value
+     * @param  nrow  number of rows to read
+     */
+    protected void readDoubleCells( BasicInput stream, int icol, long irow,
+                                    double[] buf, int off, int nrow )
+            throws IOException {
+        ColumnReader reader = colReaders_[ icol ];
+        VectorDecoder decoder = colDecoders_[ icol ];
+        long pos = irow * rowLength_ + colOffsets_[ icol ];
+        for ( int i = 0; i < nrow; ) {
+            stream.seek( pos );
+            int nr = Math.min( nrow - i, getBufferedCellCount( stream,
+                                                               decoder ) );
+            if ( nr > 0 ) {
+                ByteBuffer bbuf = stream.getCurrentBuffer();
+                decoder.decodeDoubles( bbuf, bbuf.position(), (int) rowLength_,
+                                       buf, off + i, nr );
+            }
+            else {
+                buf[ off + i ] = reader.readDouble( stream );
+                nr = 1;
+            }
+            i += nr;
+            pos += nr * rowLength_;
+        }
+    }
+
+    /**
+     * Reads integer values from the cells of a given column
+     * for a contiguous range of rows.
+     * The values are as for {@link #readLongCell readLongCell}.
+     * For scalar integer columns, where the stream can provide
+     * buffer access to its data, values are decoded in bulk directly
+     * from the buffer; otherwise they are read cell by cell.
+     *
+     * @param  stream  random-access input stream for the data part
+     * @param  icol   column index
+     * @param  irow   index of first row
+     * @param  buf   destination array
+     * @param  off   offset into destination array of first value
+     * @param  nrow  number of rows to read
+     */
+    protected void readLongCells( BasicInput stream, int icol, long irow,
+                                  long[] buf, int off, int nrow )
+            throws IOException {
+        ColumnReader reader = colReaders_[ icol ];
+        VectorDecoder decoder = colDecoders_[ icol ];
+        if ( decoder != null && ! decoder.isInteger() ) {
+            decoder = null;
+        }
+        long pos = irow * rowLength_ + colOffsets_[ icol ];
+        for ( int i = 0; i < nrow; ) {
+            stream.seek( pos );
+            int nr = Math.min( nrow - i, getBufferedCellCount( stream,
+                                                               decoder ) );
+            if ( nr > 0 ) {
+                ByteBuffer bbuf = stream.getCurrentBuffer();
+                decoder.decodeLongs( bbuf, bbuf.position(), (int) rowLength_,
+                                     buf, off + i, nr );
+            }
+            else {
+                buf[ off + i ] = reader.readLong( stream );
+                nr = 1;
+            }
+            i += nr;
+            pos += nr * rowLength_;
+        }
+    }
+
+    /**
+     * Advises that the cells in a given range of rows are likely to be
+     * accessed in the near future.
+     * Implementations may use this to load and cache data in advance,
+     * in particular variable-length array values stored in the heap.
+     * The default implementation does nothing.
+     *
+     * @param  irow  index of first row
+     * @param  nrow  number of rows
+     */
+    public void prefetchRows( long irow, long nrow ) throws IOException {
+    }
+
+    /**
+     * Indicates whether a given column contains variable-length arrays
+     * that can be read from the heap.
+     *
+     * @param  icol  column index
+     * @return  true iff column values are read using heap descriptors
+     */
+    protected boolean isHeapColumn( int icol ) {
+        return isHeapCol_[ icol ];
+    }
+
     /**
      * Returns the number of bytes occupied in the data stream by a single
      * row of the table.  This is equal to the sum of the column offsets array.
@@ -492,6 +689,25 @@ public abstract class BintableStarTable extends AbstractStarTable {
                                                  InputFactory inputFact,
                                                  WideFits wide )
             throws IOException {
+
+        /* If the HDU contains a tile-compressed table, try to present
+         * the uncompressed form.  The header is copied for this test
+         * so that cards are not marked as used if it fails. */
+        FitsHeader thdr = new FitsHeader( hdr.getCards() );
+        if ( TiledInputFactory.isTiled( thdr ) ) {
+            try {
+                TiledInputFactory tileFact =
+                    new TiledInputFactory( thdr, inputFact );
+                return new RandomBintableStarTable( tileFact
+                                                   .getUncompressedHeader(),
+                                                    tileFact, wide );
+            }
+            catch ( TableFormatException e ) {
+                logger_.warning( "Can't decompress tiled table ("
+                               + e.getMessage() + ")"
+                               + " - reading compressed form" );
+            }
+        }
         return inputFact.isRandom()
              ? new RandomBintableStarTable( hdr, inputFact, wide )
              : new SequentialBintableStarTable( hdr, inputFact, wide );
@@ -511,6 +727,13 @@ public abstract class BintableStarTable extends AbstractStarTable {
     public static void streamStarTable( FitsHeader hdr, BasicInput input,
                                         WideFits wide, TableSink sink )
             throws IOException {
+
+        /* Tile-compressed tables can't be decoded from a stream,
+         * so cache the data part and read it from there. */
+        if ( TiledInputFactory.isTiled( new FitsHeader( hdr.getCards() ) ) ) {
+            streamTiledTable( hdr, input, wide, sink );
+            return;
+        }
         InputFactory dummyFact = new InputFactory() {
             public boolean isRandom() {
                 return false;
@@ -532,6 +755,60 @@ public abstract class BintableStarTable extends AbstractStarTable {
         sink.endRows();
     }
 
+    /**
+     * Reads a tile-compressed BINTABLE extension from a stream and writes
+     * the uncompressed result to a table sink.
+     * The compressed data is cached using the default storage policy.
+     *
+     * @param   hdr  FITS header object describing the BINTABLE extension
+     * @param   input   input stream positioned at the start of the
+     *                  data part of the BINTABLE extension
+     * @param   wide  convention for representing extended columns;
+     *                use null to avoid use of extended columns
+     * @param   sink   destination for the table
+     */
+    private static void streamTiledTable( FitsHeader hdr, BasicInput input,
+                                          WideFits wide, TableSink sink )
+            throws IOException {
+        FitsHeader chdr = new FitsHeader( hdr.getCards() );
+        long leng = chdr.getRequiredLongValue( "NAXIS1" )
+                  * chdr.getRequiredLongValue( "NAXIS2" );
+        Long pcount = chdr.getLongValue( "PCOUNT" );
+        if ( pcount != null ) {
+            leng += pcount.longValue();
+        }
+        ByteStore byteStore = StoragePolicy.getDefaultPolicy().makeByteStore();
+        try ( OutputStream out = byteStore.getOutputStream() ) {
+            byte[] buf = new byte[ 64 * 1024 ];
+            while ( leng > 0 ) {
+                int nb = (int) Math.min( leng, buf.length );
+                byte[] b = nb == buf.length ? buf : new byte[ nb ];
+                input.readBytes( b );
+                out.write( b );
+                leng -= nb;
+            }
+        }
+        StarTable table =
+            createTable( hdr, InputFactory.createByteStoreFactory( byteStore ),
+                         wide );
+        try {
+            sink.acceptMetadata( table );
+            RowSequence rseq = table.getRowSequence();
+            try {
+                while ( rseq.next() ) {
+                    sink.acceptRow( rseq.getRow() );
+                }
+            }
+            finally {
+                rseq.close();
+            }
+            sink.endRows();
+        }
+        finally {
+            table.close();
+        }
+    }
+
     /**
      * Investigates headers for cards specific to the HEALPix-FITS convention.
      * If it looks like the headers describe a HEALPix map,
@@ -546,6 +823,30 @@ public abstract class BintableStarTable extends AbstractStarTable {
      href="https://healpix.sourceforge.io/data/examples/healpix_fits_specs.pdf"
      *         >HEALPix-FITS convention</a>
      */
+    /**
+     * Returns the number of complete cells that can be decoded directly
+     * from the current buffer of a stream positioned at the start of a cell.
+     *
+     * @param  stream  input stream
+     * @param  decoder  column decoder, or null
+     * @return  number of cells available from the stream's current buffer,
+     *          or zero if bulk decoding is not possible
+     */
+    private int getBufferedCellCount( BasicInput stream, VectorDecoder decoder )
+            throws IOException {
+        if ( decoder == null ) {
+            return 0;
+        }
+        ByteBuffer bbuf = stream.getCurrentBuffer();
+        if ( bbuf == null ) {
+            return 0;
+        }
+        int nbyte = bbuf.remaining() - decoder.getCellSize();
+        return nbyte >= 0
+             ? (int) Math.min( 1 + nbyte / rowLength_, Integer.MAX_VALUE )
+             : 0;
+    }
+
     private static HealpixTableInfo extractHealpixInfo( FitsHeader hdr,
                                                         ColumnInfo[] infos ) {
 
@@ -787,6 +1088,10 @@ public abstract class BintableStarTable extends AbstractStarTable {
         private final BasicInputThreadLocal randomInputThreadLocal_;
         private final long rowLength_;
         private final long[] colOffsets_;
+        private final HeapCache heapCache_;
+
+        /** Memory budget for cached variable-length array values. */
+        private static final long HEAP_CACHE_BYTES = 64 * 1024 * 1024;
 
         /**
          * Constructor.
@@ -810,6 +1115,17 @@ public abstract class BintableStarTable extends AbstractStarTable {
             colOffsets_ = getColumnOffsets();
             randomInputThreadLocal_ =
                 new BasicInputThreadLocal( inputFact, false );
+
+            /* If there are variable-length array columns, cache their
+             * values, since reading them requires a seek to the heap
+             * and the same cells tend to be requested repeatedly. */
+            boolean hasHeap = false;
+            for ( int icol = 0; icol < getColumnCount(); icol++ ) {
+                hasHeap = hasHeap || isHeapColumn( icol );
+            }
+            heapCache_ = hasHeap
+                       ? new HeapCache( getColumnCount(), HEAP_CACHE_BYTES )
+                       : null;
         }
 
         public boolean isRandom() {
@@ -817,21 +1133,41 @@ public abstract class BintableStarTable extends AbstractStarTable {
         }
 
         public Object getCell( long lrow, int icol ) throws IOException {
-            BasicInput randomInput = randomInputThreadLocal_.get();
-            randomInput.seek( lrow * rowLength_ + colOffsets_[ icol ] );
-            return readCell( randomInput, icol );
+            return readRandomCell( randomInputThreadLocal_.get(), lrow, icol );
         }
 
         public Object[] getRow( long lrow ) throws IOException {
-            BasicInput randomInput = randomInputThreadLocal_.get();
-            randomInput.seek( lrow * rowLength_ );
-            return readRow( randomInput );
+            return readRandomRow( randomInputThreadLocal_.get(), lrow );
+        }
+
+        @Override
+        public void prefetchRows( long irow, long nrow ) throws IOException {
+            if ( heapCache_ == null ) {
+                return;
+            }
+            BasicInput input = randomInputThreadLocal_.get();
+            int ncol = getColumnCount();
+            long maxBytes = heapCache_.getMaxBytes();
+            long nbyte = 0;
+            long irowEnd = Math.min( irow + nrow, getRowCount() );
+            for ( long ir = irow; ir < irowEnd && nbyte < maxBytes; ir++ ) {
+                for ( int icol = 0; icol < ncol; icol++ ) {
+                    if ( isHeapColumn( icol ) &&
+                         ! heapCache_.contains( icol, ir ) ) {
+                        input.seek( ir * rowLength_ + colOffsets_[ icol ] );
+                        nbyte += heapCache_.put( icol, ir,
+                                                 readCell( input, icol ) );
+                    }
+                }
+            }
         }
 
         public RowSequence getRowSequence() throws IOException {
             final BasicInput input = inputFact_.createInput( true );
             assert input.isRandom();
             final long endPos = getRowCount() * rowLength_;
+            final ColumnBlockBuffer blockBuf =
+                new ColumnBlockBuffer( this, input );
             return new RowSequence() {
                 long pos = -rowLength_;
                 public boolean next() {
@@ -856,6 +1192,45 @@ public abstract class BintableStarTable extends AbstractStarTable {
                         throw new IllegalStateException();
                     }
                 }
+                public double getDouble( int icol ) throws IOException {
+                    if ( blockBuf.hasDoubleBlocks( icol ) ) {
+                        return blockBuf.getDouble( icol, currentRow() );
+                    }
+                    seekCell( icol );
+                    return readDoubleCell( input, icol );
+                }
+                public long getLong( int icol ) throws IOException {
+                    if ( blockBuf.hasLongBlocks( icol ) ) {
+                        return blockBuf.getLong( icol, currentRow() );
+                    }
+                    seekCell( icol );
+                    return readLongCell( input, icol );
+                }
+                public boolean isNull( int icol ) throws IOException {
+                    seekCell( icol );
+                    return readNullCell( input, icol );
+                }
+                public double[] getDoubleArray( int icol, double[] buf )
+                        throws IOException {
+                    seekCell( icol );
+                    return readDoubleArrayCell( input, icol, buf );
+                }
+                private void seekCell( int icol ) throws IOException {
+                    if ( pos >= 0 && pos < endPos ) {
+                        input.seek( pos + colOffsets_[ icol ] );
+                    }
+                    else {
+                        throw new IllegalStateException();
+                    }
+                }
+                private long currentRow() {
+                    if ( pos >= 0 && pos < endPos ) {
+                        return pos / rowLength_;
+                    }
+                    else {
+                        throw new IllegalStateException();
+                    }
+                }
                 public void close() throws IOException {
                     input.close();
                 }
@@ -871,12 +1246,33 @@ public abstract class BintableStarTable extends AbstractStarTable {
                     irow_ = irow;
                 }
                 public Object getCell( int icol ) throws IOException {
-                    input.seek( irow_ * rowLength_ + colOffsets_[ icol ] );
-                    return readCell( input, icol );
+                    return readRandomCell( input, irow_, icol );
                 }
                 public Object[] getRow() throws IOException {
-                    input.seek( irow_ * rowLength_ );
-                    return readRow( input );
+                    return readRandomRow( input, irow_ );
+                }
+                public double getDouble( int icol ) throws IOException {
+                    input.seek( irow_ * rowLength_ + colOffsets_[ icol ] );
+                    return readDoubleCell( input, icol );
+                }
+                public long getLong( int icol ) throws IOException {
+                    input.seek( irow_ * rowLength_ + colOffsets_[ icol ] );
+                    return readLongCell( input, icol );
+                }
+                public boolean isNull( int icol ) throws IOException {
+                    input.seek( irow_ * rowLength_ + colOffsets_[ icol ] );
+                    return readNullCell( input, icol );
+                }
+                public double[] getDoubleArray( int icol, double[] buf )
+                        throws IOException {
+                    if ( heapCache_ != null && isHeapColumn( icol ) ) {
+                        return Tables
+                              .toDoubleArray( readRandomCell( input, irow_,
+                                                              icol ),
+                                              buf );
+                    }
+                    input.seek( irow_ * rowLength_ + colOffsets_[ icol ] );
+                    return readDoubleArrayCell( input, icol, buf );
                 }
                 public void close() throws IOException {
                     input.close();
@@ -887,6 +1283,194 @@ public abstract class BintableStarTable extends AbstractStarTable {
         public void close() throws IOException {
             randomInputThreadLocal_.close();
             inputFact_.close();
+            if ( heapCache_ != null ) {
+                heapCache_.clear();
+            }
+        }
+
+        /**
+         * Reads a cell value at random, making use of the heap cache
+         * where applicable.
+         *
+         * @param  input  random-access input
+         * @param  irow   row index
+         * @param  icol   column index
+         * @return  cell value
+         */
+        private Object readRandomCell( BasicInput input, long irow, int icol )
+                throws IOException {
+            if ( heapCache_ != null && isHeapColumn( icol ) ) {
+                Object value = heapCache_.get( icol, irow );
+                if ( value == HeapCache.NOT_CACHED ) {
+                    input.seek( irow * rowLength_ + colOffsets_[ icol ] );
+                    value = readCell( input, icol );
+                    heapCache_.put( icol, irow, value );
+                }
+                return value;
+            }
+            else {
+                input.seek( irow * rowLength_ + colOffsets_[ icol ] );
+                return readCell( input, icol );
+            }
+        }
+
+        /**
+         * Reads a row at random, making use of the heap cache
+         * where applicable.
+         *
+         * @param  input  random-access input
+         * @param  irow   row index
+         * @return  row values
+         */
+        private Object[] readRandomRow( BasicInput input, long irow )
+                throws IOException {
+            if ( heapCache_ == null ) {
+                input.seek( irow * rowLength_ );
+                return readRow( input );
+            }
+
+            /* Read the cells in order, leaving out heap values that
+             * are already cached.  Heap value reads restore the stream
+             * position, so a seek is only required after a cell has
+             * been skipped. */
+            else {
+                int ncol = getColumnCount();
+                Object[] row = new Object[ ncol ];
+                boolean positioned = false;
+                for ( int icol = 0; icol < ncol; icol++ ) {
+                    Object value = isHeapColumn( icol )
+                                 ? heapCache_.get( icol, irow )
+                                 : HeapCache.NOT_CACHED;
+                    if ( value == HeapCache.NOT_CACHED ) {
+                        if ( ! positioned ) {
+                            input.seek( irow * rowLength_
+                                      + colOffsets_[ icol ] );
+                            positioned = true;
+                        }
+                        value = readCell( input, icol );
+                        if ( isHeapColumn( icol ) ) {
+                            heapCache_.put( icol, irow, value );
+                        }
+                    }
+                    else {
+                        positioned = false;
+                    }
+                    row[ icol ] = value;
+                }
+                return row;
+            }
+        }
+    }
+
+    /**
+     * Holds blocks of values decoded in bulk from scalar numeric columns,
+     * for use by a row sequence that reads its rows in order.
+     * Each block is filled using {@link #readDoubleCells readDoubleCells}
+     * or {@link #readLongCells readLongCells}, so that columns in
+     * buffer-accessible data can be decoded directly from the buffer.
+     */
+    private static class ColumnBlockBuffer {
+
+        private final BintableStarTable table_;
+        private final BasicInput input_;
+        private final long nrow_;
+        private final double[][] dblocks_;
+        private final long[] dstarts_;
+        private final long[][] lblocks_;
+        private final long[] lstarts_;
+
+        /** Number of rows decoded at a time. */
+        private static final int BLOCK_NROW = 1024;
+
+        /**
+         * Constructor.
+         *
+         * @param  table  table whose data is read
+         * @param  input  random-access input stream for the data part
+         */
+        ColumnBlockBuffer( BintableStarTable table, BasicInput input ) {
+            table_ = table;
+            input_ = input;
+            nrow_ = table.getRowCount();
+            int ncol = table.getColumnCount();
+            dblocks_ = new double[ ncol ][];
+            dstarts_ = new long[ ncol ];
+            lblocks_ = new long[ ncol ][];
+            lstarts_ = new long[ ncol ];
+            int nr = (int) Math.min( BLOCK_NROW, nrow_ );
+            for ( int icol = 0; icol < ncol; icol++ ) {
+                VectorDecoder decoder = table.colDecoders_[ icol ];
+                if ( decoder != null ) {
+                    dblocks_[ icol ] = new double[ nr ];
+                    dstarts_[ icol ] = -1;
+                    if ( decoder.isInteger() ) {
+                        lblocks_[ icol ] = new long[ nr ];
+                        lstarts_[ icol ] = -1;
+                    }
+                }
+            }
+        }
+
+        /**
+         * Indicates whether floating point values for a given column
+         * are read in blocks.
+         *
+         * @param  icol  column index
+         * @return  true iff {@link #getDouble} may be used
+         */
+        boolean hasDoubleBlocks( int icol ) {
+            return dblocks_[ icol ] != null;
+        }
+
+        /**
+         * Indicates whether integer values for a given column
+         * are read in blocks.
+         *
+         * @param  icol  column index
+         * @return  true iff {@link #getLong} may be used
+         */
+        boolean hasLongBlocks( int icol ) {
+            return lblocks_[ icol ] != null;
+        }
+
+        /**
+         * Returns a floating point value as for
+         * {@link uk.ac.starlink.table.RowData#getDouble}.
+         *
+         * @param  icol  column index, for which hasDoubleBlocks is true
+         * @param  irow  row index
+         * @return  cell value
+         */
+        double getDouble( int icol, long irow ) throws IOException {
+            double[] block = dblocks_[ icol ];
+            long start = dstarts_[ icol ];
+            if ( start < 0 || irow < start || irow >= start + block.length ) {
+                start = irow;
+                int nr = (int) Math.min( block.length, nrow_ - irow );
+                table_.readDoubleCells( input_, icol, irow, block, 0, nr );
+                dstarts_[ icol ] = start;
+            }
+            return block[ (int) ( irow - start ) ];
+        }
+
+        /**
+         * Returns an integer value as for
+         * {@link uk.ac.starlink.table.RowData#getLong}.
+         *
+         * @param  icol  column index, for which hasLongBlocks is true
+         * @param  irow  row index
+         * @return  cell value
+         */
+        long getLong( int icol, long irow ) throws IOException {
+            long[] block = lblocks_[ icol ];
+            long start = lstarts_[ icol ];
+            if ( start < 0 || irow < start || irow >= start + block.length ) {
+                start = irow;
+                int nr = (int) Math.min( block.length, nrow_ - irow );
+                table_.readLongCells( input_, icol, irow, block, 0, nr );
+                lstarts_[ icol ] = start;
+            }
+            return block[ (int) ( irow - start ) ];
         }
     }
 }
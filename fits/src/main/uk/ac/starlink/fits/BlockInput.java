@@ -97,6 +97,19 @@ public abstract class BlockInput implements BasicInput {
         }
     }
 
+    /**
+     * Returns a view of the remainder of the current block.
+     * If the current position is at the end of a block,
+     * the next block is used.
+     */
+    @Override
+    public ByteBuffer getCurrentBuffer() throws IOException {
+        if ( ! buffer_.hasRemaining() && iblock_ + 1 < nblock_ ) {
+            setCurrentBlock( iblock_ + 1 );
+        }
+        return buffer_.duplicate();
+    }
+
     public void close() {
         iblock_ = -1;
         buffer_ = null;
@@ -0,0 +1,155 @@
+package uk.ac.starlink.fits;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * DataOutput implementation that writes into a ByteBuffer.
+ * Multi-byte values are written in the buffer's byte order,
+ * which for FITS purposes should be big-endian (the default).
+ * Attempts to write beyond the buffer's limit result in an IOException.
+ *
+ * @author   Mark Taylor
+ * @since    17 Oct 2026
+ */
+class ByteBufferDataOutput implements DataOutput {
+
+    private final ByteBuffer buf_;
+
+    /**
+     * Constructor.
+     *
+     * @param  buf  destination buffer
+     */
+    public ByteBufferDataOutput( ByteBuffer buf ) {
+        buf_ = buf;
+    }
+
+    /**
+     * Returns the buffer into which this object writes.
+     *
+     * @return  buffer
+     */
+    public ByteBuffer getBuffer() {
+        return buf_;
+    }
+
+    public void write( int b ) throws IOException {
+        try {
+            buf_.put( (byte) b );
+        }
+        catch ( BufferOverflowException e ) {
+            throw overflow( e );
+        }
+    }
+
+    public void write( byte[] b ) throws IOException {
+        write( b, 0, b.length );
+    }
+
+    public void write( byte[] b, int off, int len ) throws IOException {
+        try {
+            buf_.put( b, off, len );
+        }
+        catch ( BufferOverflowException e ) {
+            throw overflow( e );
+        }
+    }
+
+    public void writeBoolean( boolean v ) throws IOException {
+        write( v ? 1 : 0 );
+    }
+
+    public void writeByte( int v ) throws IOException {
+        write( v );
+    }
+
+    public void writeShort( int v ) throws IOException {
+        try {
+            buf_.putShort( (short) v );
+        }
+        catch ( BufferOverflowException e ) {
+            throw overflow( e );
+        }
+    }
+
+    public void writeChar( int v ) throws IOException {
+        try {
+            buf_.putChar( (char) v );
+        }
+        catch ( BufferOverflowException e ) {
+            throw overflow( e );
+        }
+    }
+
+    public void writeInt( int v ) throws IOException {
+        try {
+            buf_.putInt( v );
+        }
+        catch ( BufferOverflowException e ) {
+            throw overflow( e );
+        }
+    }
+
+    public void writeLong( long v ) throws IOException {
+        try {
+            buf_.putLong( v );
+        }
+        catch ( BufferOverflowException e ) {
+            throw overflow( e );
+        }
+    }
+
+    public void writeFloat( float v ) throws IOException {
+        try {
+            buf_.putFloat( v );
+        }
+        catch ( BufferOverflowException e ) {
+            throw overflow( e );
+        }
+    }
+
+    public void writeDouble( double v ) throws IOException {
+        try {
+            buf_.putDouble( v );
+        }
+        catch ( BufferOverflowException e ) {
+            throw overflow( e );
+        }
+    }
+
+    public void writeBytes( String s ) throws IOException {
+        int leng = s.length();
+        for ( int i = 0; i < leng; i++ ) {
+            write( s.charAt( i ) );
+        }
+    }
+
+    public void writeChars( String s ) throws IOException {
+        int leng = s.length();
+        for ( int i = 0; i < leng; i++ ) {
+            writeChar( s.charAt( i ) );
+        }
+    }
+
+    public void writeUTF( String s ) throws IOException {
+        ByteArrayOutputStream bout = new ByteArrayOutputStream();
+        new DataOutputStream( bout ).writeUTF( s );
+        write( bout.toByteArray() );
+    }
+
+    /**
+     * Returns an exception reporting buffer overflow.
+     *
+     * @param  e  underlying exception
+     * @return  new exception
+     */
+    private IOException overflow( BufferOverflowException e ) {
+        return new IOException( "Write beyond end of buffer (capacity "
+                              + buf_.capacity() + ")", e );
+    }
+}
@@ -119,6 +119,11 @@ public class ByteBufferInput implements BasicInput {
         }
     }
 
+    @Override
+    public ByteBuffer getCurrentBuffer() {
+        return niobuf_.duplicate();
+    }
+
     public void close() {
     }
 }
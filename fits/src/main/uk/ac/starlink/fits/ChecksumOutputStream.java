@@ -0,0 +1,98 @@
+package uk.ac.starlink.fits;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Output stream that accumulates the FITS ones'-complement checksum
+ * of the bytes written through it.
+ * The checksum is calculated incrementally, so it is available
+ * as soon as the bytes have been written, without re-reading them.
+ *
+ * @author   Mark Taylor
+ * @since    17 Oct 2026
+ */
+class ChecksumOutputStream extends FilterOutputStream {
+
+    private long sum_;
+    private long count_;
+
+    /**
+     * Constructor.
+     *
+     * @param  out  destination stream, or null to discard bytes
+     */
+    ChecksumOutputStream( OutputStream out ) {
+        super( out );
+    }
+
+    @Override
+    public void write( int b ) throws IOException {
+        if ( out != null ) {
+            out.write( b );
+        }
+        sum_ += ( b & 0xffL ) << ( 24 - 8 * (int) ( count_ & 3 ) );
+        count_++;
+        sum_ = FitsUtil.foldChecksum( sum_ );
+    }
+
+    @Override
+    public void write( byte[] b, int off, int len ) throws IOException {
+        if ( out != null ) {
+            out.write( b, off, len );
+        }
+        int end = off + len;
+        int ib = off;
+        long sum = sum_;
+        long count = count_;
+        for ( ; ib < end && ( count & 3 ) != 0; ib++ ) {
+            sum += ( b[ ib ] & 0xffL ) << ( 24 - 8 * (int) ( count++ & 3 ) );
+        }
+        int wordEnd = ib + ( ( end - ib ) & ~3 );
+        count += wordEnd - ib;
+        for ( ; ib < wordEnd; ib += 4 ) {
+            sum += ( ( b[ ib ] & 0xffL ) << 24 )
+                 | ( ( b[ ib + 1 ] & 0xff ) << 16 )
+                 | ( ( b[ ib + 2 ] & 0xff ) << 8 )
+                 | ( b[ ib + 3 ] & 0xff );
+        }
+        for ( ; ib < end; ib++ ) {
+            sum += ( b[ ib ] & 0xffL ) << ( 24 - 8 * (int) ( count++ & 3 ) );
+        }
+        sum_ = FitsUtil.foldChecksum( sum );
+        count_ = count;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if ( out != null ) {
+            out.flush();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if ( out != null ) {
+            out.close();
+        }
+    }
+
+    /**
+     * Returns the checksum of all the bytes written so far.
+     *
+     * @return  ones'-complement sum in the range 0..0xffffffff
+     */
+    public long getChecksum() {
+        return sum_;
+    }
+
+    /**
+     * Returns the number of bytes written so far.
+     *
+     * @return  byte count
+     */
+    public long getCount() {
+        return count_;
+    }
+}
@@ -0,0 +1,425 @@
+package uk.ac.starlink.fits;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.logging.Logger;
+import uk.ac.starlink.table.ColumnInfo;
+import uk.ac.starlink.table.CountCheckRowSequence;
+import uk.ac.starlink.table.RowSequence;
+import uk.ac.starlink.table.StarTable;
+import uk.ac.starlink.util.SplitPolicy;
+
+/**
+ * Writes a table in column-oriented FITS format directly to a local file.
+ *
+ * <p>The {@link ColFitsTableSerializer} has to store each column in
+ * a temporary file before the output can be written, since the
+ * FITS header and the offsets of all but the first column
+ * depend on the data.  If the row count is known in advance and
+ * all the columns have fixed-size cells, that is not necessary:
+ * the output file can be sized up front, and the bytes for each column
+ * written straight to their final position in the file
+ * as the rows are read.  Blocks of rows are read sequentially,
+ * and the columns of each block may be encoded and written concurrently.
+ * The header is written last, once any data-dependent values
+ * like blank values and checksums are known;
+ * space for it is reserved so that the data does not need to move.
+ *
+ * @author   Mark Taylor
+ * @since    17 Oct 2026
+ */
+class ColFitsDirectWriter {
+
+    private final StarTable table_;
+    private final FitsTableSerializerConfig config_;
+    private final FileColumnStore[] colStores_;
+    private final String[] colids_;
+    private final int[] rowBytes_;
+    private final long nrow_;
+
+    /** Approximate number of bytes of row data read in each block. */
+    private static final int BLOCK_BYTES = 4 * 1024 * 1024;
+
+    private static final CardImage BLANK_CARD;
+    static {
+        char[] blanks = new char[ FitsUtil.CARD_LENG ];
+        Arrays.fill( blanks, ' ' );
+        BLANK_CARD = new CardImage( new String( blanks ) );
+    }
+
+    private static final Logger logger_ =
+        Logger.getLogger( "uk.ac.starlink.fits" );
+
+    /**
+     * Constructor.
+     *
+     * @param  table  table to write
+     * @param  config  configuration
+     * @param  colStores  per-column stores capable of direct writing,
+     *                    with null elements for columns not written
+     */
+    private ColFitsDirectWriter( StarTable table,
+                                 FitsTableSerializerConfig config,
+                                 FileColumnStore[] colStores ) {
+        table_ = table;
+        config_ = config;
+        colStores_ = colStores;
+        nrow_ = table.getRowCount();
+        int ncol = colStores.length;
+        colids_ = new String[ ncol ];
+        rowBytes_ = new int[ ncol ];
+        for ( int icol = 0; icol < ncol; icol++ ) {
+            colids_[ icol ] = table.getColumnInfo( icol ).toString();
+            if ( colStores[ icol ] != null ) {
+                rowBytes_[ icol ] = colStores[ icol ].getDirectRowBytes();
+            }
+        }
+    }
+
+    /**
+     * Returns a writer that can write a given table directly,
+     * if possible.
+     * This requires a known row count and fixed-width cells
+     * for all the columns.
+     *
+     * @param  table  table to write
+     * @param  config  configuration
+     * @return   direct writer, or null if the table can't be written
+     *           this way
+     * @throws IOException if it won't be possible to write the given table
+     */
+    public static ColFitsDirectWriter
+            createWriter( StarTable table, FitsTableSerializerConfig config )
+            throws IOException {
+        if ( table.getRowCount() < 0 ) {
+            return null;
+        }
+        int ncol = table.getColumnCount();
+        FileColumnStore[] stores = new FileColumnStore[ ncol ];
+        int nUseCol = 0;
+        for ( int icol = 0; icol < ncol; icol++ ) {
+            ColumnInfo info = table.getColumnInfo( icol );
+            FileColumnStore store =
+                FileColumnStore.createColumnStore( info, config );
+            if ( store == null ) {
+                logger_.warning( "Can't serialize column " + info );
+            }
+            else if ( store.getDirectRowBytes() < 0 ) {
+                logger_.config( "Column " + info + " has variable width"
+                              + " - can't write directly" );
+                return null;
+            }
+            else {
+                stores[ icol ] = store;
+                nUseCol++;
+            }
+        }
+        FitsUtil.checkColumnCount( config.getWide(), nUseCol );
+        return new ColFitsDirectWriter( table, config, stores );
+    }
+
+    /**
+     * Writes the table as a complete HDU.
+     * On exit the output stream is positioned at the end of the HDU.
+     *
+     * @param  out   destination stream, positioned at the start of the HDU
+     * @param  metaCards  additional header cards to include
+     * @param  checksum   true to write CHECKSUM and DATASUM headers
+     */
+    public void writeHDU( SeekableOutputStream out, List<CardImage> metaCards,
+                          boolean checksum )
+            throws IOException {
+        int ncol = colStores_.length;
+        for ( FileColumnStore store : colStores_ ) {
+            if ( store != null ) {
+                store.prepareDirect( nrow_ );
+            }
+        }
+
+        /* Work out the layout of the HDU.  Header space is reserved
+         * for one extra card per column, in case blank values turn out
+         * to be needed, as well as for the checksum cards. */
+        int nUseCol = 0;
+        long[] colPos = new long[ ncol ];
+        long dataLeng = 0;
+        for ( int icol = 0; icol < ncol; icol++ ) {
+            if ( colStores_[ icol ] != null ) {
+                nUseCol++;
+                colPos[ icol ] = dataLeng;
+                dataLeng += colStores_[ icol ].getDataLength();
+            }
+        }
+        int nReserve = getHeaderCards( metaCards ).size() + nUseCol
+                     + ( checksum ? 2 : 0 ) + 1;
+        long hdrLeng = FitsUtil.roundUp( nReserve * (long) FitsUtil.CARD_LENG,
+                                         FitsUtil.BLOCK_LENG );
+        long hdrPos = out.getPosition();
+        long dataPos = hdrPos + hdrLeng;
+        long endPos = dataPos + FitsUtil.roundUp( dataLeng,
+                                                  FitsUtil.BLOCK_LENG );
+        for ( int icol = 0; icol < ncol; icol++ ) {
+            colPos[ icol ] += dataPos;
+        }
+
+        /* Size the file, so that the data region is filled with zeros,
+         * which also provides the trailing padding. */
+        FileChannel chan = out.getChannel();
+        if ( endPos > hdrPos && chan.size() < endPos ) {
+            chan.write( ByteBuffer.allocate( 1 ), endPos - 1 );
+        }
+
+        /* Write the column data. */
+        try {
+            long datasum = writeColumns( chan, colPos, checksum );
+            for ( int icol = 0; icol < ncol; icol++ ) {
+                FileColumnStore store = colStores_[ icol ];
+                if ( store != null ) {
+                    store.endStores();
+                    long patchsum =
+                        store.patchDirectValues( chan, colPos[ icol ] );
+                    datasum = FitsUtil.addChecksums( datasum, patchsum );
+                }
+            }
+
+            /* Now the data is known, write the header into the
+             * reserved space.  If it's shorter than reserved, blank cards
+             * are inserted as required so that the END card falls in
+             * the last reserved block. */
+            List<CardImage> cards = getHeaderCards( metaCards );
+            int nExtra = ( checksum ? 2 : 0 ) + 1;
+            int minCards = (int) ( hdrLeng / FitsUtil.BLOCK_LENG - 1 )
+                         * FitsUtil.CARDS_PER_BLOCK + 1;
+            while ( cards.size() + nExtra < minCards ) {
+                cards.add( BLANK_CARD );
+            }
+            final byte[] hdrBuf;
+            if ( checksum ) {
+                hdrBuf = AbstractFitsTableWriter
+                        .createChecksumHeader( cards, datasum );
+            }
+            else {
+                cards.add( CardFactory.END_CARD );
+                ByteArrayOutputStream bout = new ByteArrayOutputStream();
+                FitsUtil.writeHeader( cards.toArray( new CardImage[ 0 ] ),
+                                      bout );
+                hdrBuf = bout.toByteArray();
+            }
+            assert hdrBuf.length == hdrLeng;
+            out.overwrite( hdrBuf, hdrPos );
+            out.setPosition( endPos );
+        }
+        finally {
+            for ( FileColumnStore store : colStores_ ) {
+                if ( store != null ) {
+                    store.dispose();
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the header cards for the HDU in its current state,
+     * excluding the END card.
+     *
+     * @param  metaCards  additional cards
+     * @return   new modifiable list of header cards
+     */
+    private List<CardImage> getHeaderCards( List<CardImage> metaCards ) {
+        List<CardImage> cards = new ArrayList<>( Arrays.asList(
+            new ColFitsTableSerializer( config_, table_.getName(), colStores_,
+                                        colids_, nrow_ )
+           .getHeader() ) );
+        cards.addAll( metaCards );
+        return cards;
+    }
+
+    /**
+     * Reads all the table rows and writes the column data into the file.
+     * Rows are read in blocks by the calling thread, and the columns of
+     * each block are encoded and written by tasks that may run
+     * concurrently with each other and with the reading of the next block.
+     *
+     * @param  chan  output file channel
+     * @param  colPos  file offset of the start of each column
+     * @param  checksum  whether the checksum is required
+     * @return   checksum of the data written, or 0 if not required
+     */
+    private long writeColumns( FileChannel chan, long[] colPos,
+                               boolean checksum )
+            throws IOException {
+        int ncol = colStores_.length;
+        int rowBytes = 0;
+        for ( int icol = 0; icol < ncol; icol++ ) {
+            rowBytes += rowBytes_[ icol ];
+        }
+        int blockRows = (int) Math.max( 1, Math.min( nrow_, BLOCK_BYTES
+                                                 / Math.max( 1, rowBytes ) ) );
+        ByteBuffer[] bufs = new ByteBuffer[ ncol ];
+        for ( int icol = 0; icol < ncol; icol++ ) {
+            if ( colStores_[ icol ] != null ) {
+                bufs[ icol ] =
+                    ByteBuffer.allocate( blockRows * rowBytes_[ icol ] );
+            }
+        }
+        long[] colsums = new long[ ncol ];
+        int nthread = config_.getWriteThreadCount();
+        ForkJoinPool pool = nthread == 1
+                          ? null
+                          : nthread > 1
+                          ? new ForkJoinPool( nthread )
+                          : SplitPolicy.DFLT_POLICY.getForkJoinPool();
+        List<Future<?>> pending = new ArrayList<>();
+        RowSequence rseq = CountCheckRowSequence
+                          .getSafeRowSequence( table_.getRowSequence(), ncol,
+                                               nrow_ );
+        try {
+            for ( long irow0 = 0; irow0 < nrow_; irow0 += blockRows ) {
+                int nr = (int) Math.min( blockRows, nrow_ - irow0 );
+                Object[][] rows = new Object[ nr ][];
+                for ( int ir = 0; ir < nr; ir++ ) {
+                    rseq.next();
+                    rows[ ir ] = rseq.getRow().clone();
+                }
+
+                /* Tasks for a given column must not overlap, so wait
+                 * for the previous block to complete before submitting
+                 * tasks for this one. */
+                waitFor( pending );
+                long irow = irow0;
+                for ( int icol = 0; icol < ncol; icol++ ) {
+                    if ( colStores_[ icol ] != null ) {
+                        int ic = icol;
+                        Callable<Void> task = () -> {
+                            long sum = writeColumnBlock( chan, ic, rows, irow,
+                                                         bufs[ ic ],
+                                                         colPos[ ic ],
+                                                         checksum );
+                            colsums[ ic ] =
+                                FitsUtil.addChecksums( colsums[ ic ], sum );
+                            return null;
+                        };
+                        if ( pool == null ) {
+                            call( task );
+                        }
+                        else {
+                            pending.add( pool.submit( task ) );
+                        }
+                    }
+                }
+            }
+            waitFor( pending );
+        }
+        finally {
+            rseq.close();
+            if ( nthread > 1 ) {
+                pool.shutdown();
+            }
+        }
+        long datasum = 0L;
+        for ( long colsum : colsums ) {
+            datasum = FitsUtil.addChecksums( datasum, colsum );
+        }
+        return datasum;
+    }
+
+    /**
+     * Encodes one column of a block of rows and writes it to the file.
+     *
+     * @param  chan  output file channel
+     * @param  icol  column index
+     * @param  rows  row data for block
+     * @param  irow0  index of first row in block
+     * @param  buf   workspace buffer, large enough for the column data
+     * @param  colPos   file offset of the start of the column
+     * @param  checksum  whether the checksum is required
+     * @return  checksum contribution of the written bytes,
+     *          or 0 if not required
+     */
+    private long writeColumnBlock( FileChannel chan, int icol,
+                                   Object[][] rows, long irow0,
+                                   ByteBuffer buf, long colPos,
+                                   boolean checksum )
+            throws IOException {
+        FileColumnStore store = colStores_[ icol ];
+        buf.clear();
+        ByteBufferDataOutput dout = new ByteBufferDataOutput( buf );
+        int nr = rows.length;
+        for ( int ir = 0; ir < nr; ir++ ) {
+            store.writeDirectValue( rows[ ir ][ icol ], dout, irow0 + ir );
+        }
+        buf.flip();
+        long pos = colPos + irow0 * rowBytes_[ icol ];
+        long sum = checksum
+                 ? FitsUtil.alignChecksum( FitsUtil.checksum( buf ), pos )
+                 : 0L;
+        while ( buf.hasRemaining() ) {
+            pos += chan.write( buf, pos );
+        }
+        return sum;
+    }
+
+    /**
+     * Executes a task in the current thread.
+     *
+     * @param  task  task
+     */
+    private static void call( Callable<Void> task ) throws IOException {
+        try {
+            task.call();
+        }
+        catch ( IOException | RuntimeException e ) {
+            throw e;
+        }
+        catch ( Exception e ) {
+            throw new IOException( e );
+        }
+    }
+
+    /**
+     * Waits for completion of a list of submitted tasks,
+     * and clears the list.
+     *
+     * @param  futures  list of futures, cleared on exit
+     */
+    private static void waitFor( List<Future<?>> futures )
+            throws IOException {
+        try {
+            for ( Future<?> future : futures ) {
+                future.get();
+            }
+        }
+        catch ( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            throw (IOException)
+                  new InterruptedIOException( "Interrupted" ).initCause( e );
+        }
+        catch ( ExecutionException e ) {
+            Throwable err = e.getCause();
+            if ( err instanceof IOException ) {
+                throw (IOException) err;
+            }
+            else if ( err instanceof RuntimeException ) {
+                throw (RuntimeException) err;
+            }
+            else if ( err instanceof Error ) {
+                throw (Error) err;
+            }
+            else {
+                throw new IOException( err );
+            }
+        }
+        finally {
+            futures.clear();
+        }
+    }
+}
@@ -476,6 +476,14 @@ public class ColFitsStarTable extends AbstractStarTable {
                              ? null
                              : Short.valueOf( (short) ( val & 0xff ) );
                     }
+                    double readDouble( BasicInput in ) throws IOException {
+                        byte val = in.readByte();
+                        return ( hasBad && val == badval ) ? Double.NaN
+                                                           : ( val & 0xff );
+                    }
+                    long readLong( BasicInput in ) throws IOException {
+                        return in.readByte() & 0xff;
+                    }
                 };
             }
 
@@ -491,6 +499,13 @@ public class ColFitsStarTable extends AbstractStarTable {
                              ? null
                              : Short.valueOf( (short) val );
                     }
+                    double readDouble( BasicInput in ) throws IOException {
+                        byte val = in.readByte();
+                        return ( hasBad && val == badval ) ? Double.NaN : val;
+                    }
+                    long readLong( BasicInput in ) throws IOException {
+                        return in.readByte();
+                    }
                 };
             }
 
@@ -506,6 +521,13 @@ public class ColFitsStarTable extends AbstractStarTable {
                              ? null
                              : Short.valueOf( val );
                     }
+                    double readDouble( BasicInput in ) throws IOException {
+                        short val = in.readShort();
+                        return ( hasBad && val == badval ) ? Double.NaN : val;
+                    }
+                    long readLong( BasicInput in ) throws IOException {
+                        return in.readShort();
+                    }
                 };
             }
 
@@ -521,6 +543,13 @@ public class ColFitsStarTable extends AbstractStarTable {
                              ? null
                              : Integer.valueOf( val );
                     }
+                    double readDouble( BasicInput in ) throws IOException {
+                        int val = in.readInt();
+                        return ( hasBad && val == badval ) ? Double.NaN : val;
+                    }
+                    long readLong( BasicInput in ) throws IOException {
+                        return in.readInt();
+                    }
                 };
             }
 
@@ -536,6 +565,14 @@ public class ColFitsStarTable extends AbstractStarTable {
                              ? null
                              : Long.valueOf( val );
                     }
+                    double readDouble( BasicInput in ) throws IOException {
+                        long val = in.readLong();
+                        return ( hasBad && val == badval ) ? Double.NaN
+                                                           : (double) val;
+                    }
+                    long readLong( BasicInput in ) throws IOException {
+                        return in.readLong();
+                    }
                 };
             }
 
@@ -545,6 +582,9 @@ public class ColFitsStarTable extends AbstractStarTable {
                     Object readValue( BasicInput in ) throws IOException {
                         return new Float( in.readFloat() );
                     }
+                    double readDouble( BasicInput in ) throws IOException {
+                        return in.readFloat();
+                    }
                 };
             }
 
@@ -554,6 +594,9 @@ public class ColFitsStarTable extends AbstractStarTable {
                     Object readValue( BasicInput in ) throws IOException {
                         return new Double( in.readDouble() );
                     }
+                    double readDouble( BasicInput in ) throws IOException {
+                        return in.readDouble();
+                    }
                 };
             }
         }
@@ -792,6 +835,7 @@ public class ColFitsStarTable extends AbstractStarTable {
         private final ColumnReader[] seqColReaders_;
         private final long[] cursors_;
         private final Object[] lastValues_;
+        private final byte[] randomCols_;
         private long irow_;
 
         /**
@@ -820,6 +864,7 @@ public class ColFitsStarTable extends AbstractStarTable {
                 cursors_[ icol ] = -1;
             }
             lastValues_ = new Object[ ncol_ ];
+            randomCols_ = new byte[ ncol_ ];
             irow_ = -1;
         }
 
@@ -830,7 +875,11 @@ public class ColFitsStarTable extends AbstractStarTable {
         public Object getCell( int icol ) throws IOException {
             ColumnReader colReader = seqColReaders_[ icol ];
             long nskip = irow_ - cursors_[ icol ];
-            if ( nskip > 0 ) {
+            if ( nskip > 0 && isRandomCol( icol ) ) {
+                lastValues_[ icol ] = colReader.readIndexedCell( irow_ );
+                cursors_[ icol ] = irow_;
+            }
+            else if ( nskip > 0 ) {
                 if ( nskip > 1 ) {
                     colReader.skipCells( nskip - 1 );
                 }
@@ -851,6 +900,41 @@ public class ColFitsStarTable extends AbstractStarTable {
             return row;
         }
 
+        public double getDouble( int icol ) throws IOException {
+            return irow_ >= 0 && isRandomCol( icol )
+                 ? seqColReaders_[ icol ].readIndexedDouble( irow_ )
+                 : RowSequence.super.getDouble( icol );
+        }
+
+        public long getLong( int icol ) throws IOException {
+            return irow_ >= 0 && isRandomCol( icol )
+                 ? seqColReaders_[ icol ].readIndexedLong( irow_ )
+                 : RowSequence.super.getLong( icol );
+        }
+
+        public boolean isNull( int icol ) throws IOException {
+            return irow_ >= 0 && isRandomCol( icol )
+                 ? seqColReaders_[ icol ].readIndexedNull( irow_ )
+                 : RowSequence.super.isNull( icol );
+        }
+
+        /**
+         * Indicates whether the input for a given column is random-access.
+         * If so, the typed accessors can read values directly by
+         * seeking to the right position, and the object accessors
+         * do the same, so that the two do not interfere with each other.
+         *
+         * @param  icol  column index
+         * @return  true iff column input can seek
+         */
+        private boolean isRandomCol( int icol ) throws IOException {
+            if ( randomCols_[ icol ] == 0 ) {
+                randomCols_[ icol ] =
+                    seqColReaders_[ icol ].isRandom() ? (byte) 1 : (byte) -1;
+            }
+            return randomCols_[ icol ] > 0;
+        }
+
         public void close() throws IOException {
             for ( ColumnReader colReader : seqColReaders_ ) {
                 colReader.close();
@@ -903,6 +987,18 @@ public class ColFitsStarTable extends AbstractStarTable {
             return row_;
         }
 
+        public double getDouble( int icol ) throws IOException {
+            return colReaders_[ icol ].readIndexedDouble( irow_ );
+        }
+
+        public long getLong( int icol ) throws IOException {
+            return colReaders_[ icol ].readIndexedLong( irow_ );
+        }
+
+        public boolean isNull( int icol ) throws IOException {
+            return colReaders_[ icol ].readIndexedNull( irow_ );
+        }
+
         public void close() throws IOException {
             for ( ColumnReader colReader : colReaders_ ) {
                 colReader.close();
@@ -920,9 +1016,11 @@ public class ColFitsStarTable extends AbstractStarTable {
         private final int typeBytes_;
         private final int[] itemShape_;
         private final int itemBytes_;
+        private final boolean isNumericScalar_;
 
         /**
          * Constructor.
+         * The content class of the supplied info must already be set.
          *
          * @param   info  column metadata
          * @param   typeBytes  number of bytes per scalar element
@@ -934,6 +1032,13 @@ public class ColFitsStarTable extends AbstractStarTable {
             itemShape_ = itemShape;
             itemBytes_ = Tables.checkedLongToInt( multiply( itemShape ) )
                        * typeBytes;
+            Class<?> clazz = info.getContentClass();
+            isNumericScalar_ = itemShape.length == 0
+                            && ( clazz == Short.class ||
+                                 clazz == Integer.class ||
+                                 clazz == Long.class ||
+                                 clazz == Float.class ||
+                                 clazz == Double.class );
         }
 
         /**
@@ -944,6 +1049,46 @@ public class ColFitsStarTable extends AbstractStarTable {
          */
         abstract Object readValue( BasicInput in ) throws IOException;
 
+        /**
+         * Reads a floating point value from a byte buffer.
+         * Blank or non-numeric values give NaN.
+         * The default implementation uses {@link #readValue},
+         * but numeric scalar readers override it to avoid object creation.
+         *
+         * @param    in   input stream, positioned at read point
+         * @return   numeric value or NaN
+         */
+        double readDouble( BasicInput in ) throws IOException {
+            Object value = readValue( in );
+            return value instanceof Number ? ((Number) value).doubleValue()
+                                           : Double.NaN;
+        }
+
+        /**
+         * Reads an integer value from a byte buffer.
+         * The result for blank or non-numeric values is undefined.
+         * The default implementation uses {@link #readValue},
+         * but integer scalar readers override it to avoid object creation.
+         *
+         * @param    in   input stream, positioned at read point
+         * @return   integer value
+         */
+        long readLong( BasicInput in ) throws IOException {
+            Object value = readValue( in );
+            return value instanceof Number ? ((Number) value).longValue() : 0L;
+        }
+
+        /**
+         * Reads a value from a byte buffer and reports whether it is blank.
+         *
+         * @param    in   input stream, positioned at read point
+         * @return   true iff value is blank
+         */
+        boolean readNull( BasicInput in ) throws IOException {
+            return isNumericScalar_ ? Double.isNaN( readDouble( in ) )
+                                    : Tables.isBlank( readValue( in ) );
+        }
+
         /**
          * Returns the number of bytes for a single cell of this type.
          *
@@ -999,6 +1144,52 @@ public class ColFitsStarTable extends AbstractStarTable {
             return valReader_.readValue( input );
         }
 
+        /**
+         * Reads the value for a given row as a floating point value.
+         *
+         * @param  irow  row index
+         * @return  numeric value or NaN
+         */
+        double readIndexedDouble( long irow ) throws IOException {
+            BasicInput input = getInput();
+            input.seek( irow * itemBytes_ );
+            return valReader_.readDouble( input );
+        }
+
+        /**
+         * Reads the value for a given row as an integer value.
+         *
+         * @param  irow  row index
+         * @return  integer value
+         */
+        long readIndexedLong( long irow ) throws IOException {
+            BasicInput input = getInput();
+            input.seek( irow * itemBytes_ );
+            return valReader_.readLong( input );
+        }
+
+        /**
+         * Indicates whether the value for a given row is blank.
+         *
+         * @param  irow  row index
+         * @return  true iff value is blank
+         */
+        boolean readIndexedNull( long irow ) throws IOException {
+            BasicInput input = getInput();
+            input.seek( irow * itemBytes_ );
+            return valReader_.readNull( input );
+        }
+
+        /**
+         * Indicates whether this reader's input supports random access,
+         * so that the <code>readIndexed*</code> methods can be used.
+         *
+         * @return  true iff input is random-access
+         */
+        boolean isRandom() throws IOException {
+            return getInput().isRandom();
+        }
+
         /**
          * Reads the next cell value.
          *
@@ -12,6 +12,7 @@ import uk.ac.starlink.table.DescribedValue;
 import uk.ac.starlink.table.RowSequence;
 import uk.ac.starlink.table.StarTable;
 import uk.ac.starlink.table.Tables;
+import uk.ac.starlink.util.DataBufferedOutputStream;
 
 /**
  * Object which can serialize a StarTable to a data stream as a one-row FITS
@@ -108,6 +109,29 @@ public class ColFitsTableSerializer implements FitsTableSerializer {
         }
     }
 
+    /**
+     * Constructs a serializer from column stores which have already
+     * been populated, or prepared for direct writing.
+     * The stores are not disposed by this object.
+     *
+     * @param  config  configuration
+     * @param  tname   table name, may be null
+     * @param  colStores  column stores, with null elements for
+     *                    columns that are not written
+     * @param  colids   column identifiers for logging
+     * @param  nrow    number of rows
+     */
+    ColFitsTableSerializer( FitsTableSerializerConfig config, String tname,
+                            ColumnStore[] colStores, String[] colids,
+                            long nrow ) {
+        config_ = config;
+        tname_ = tname;
+        colStores_ = colStores;
+        colids_ = colids;
+        ncol_ = colStores.length;
+        nrow_ = nrow;
+    }
+
     public CardImage[] getHeader() {
         WideFits wide = config_.getWide();
 
@@ -213,6 +237,24 @@ public class ColFitsTableSerializer implements FitsTableSerializer {
         }
     }
 
+    /**
+     * Calculates the checksum by streaming the stored column data,
+     * which is retained for a subsequent call to {@link #writeData}.
+     * Padding bytes are zero, so don't affect the result.
+     */
+    @Override
+    public long getDataChecksum() throws IOException {
+        ChecksumOutputStream cout = new ChecksumOutputStream( null );
+        DataBufferedOutputStream dout = new DataBufferedOutputStream( cout );
+        for ( ColumnStore colStore : colStores_ ) {
+            if ( colStore != null ) {
+                colStore.streamData( dout );
+            }
+        }
+        dout.flush();
+        return cout.getChecksum();
+    }
+
     public long getRowCount() {
         return nrow_;
     }
@@ -1,7 +1,9 @@
 package uk.ac.starlink.fits;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import uk.ac.starlink.table.StarTable;
+import uk.ac.starlink.table.TableSequence;
 
 /**
  * Handles writing of a <code>StarTable</code> in a column-oriented 
@@ -16,6 +18,12 @@ import uk.ac.starlink.table.StarTable;
  * interchange, in practice most non-STIL processors are unlikely to
  * be able to do much useful with it.
  *
+ * <p>When writing to a local file, tables with a known row count and
+ * only fixed-width columns are written directly into the output file
+ * without intermediate storage.
+ * Otherwise, each column is first written to a temporary file,
+ * so that scratch disk space comparable to the output size is required.
+ *
  * @author   Mark Taylor
  * @since    21 Jun 2006
  */
@@ -45,6 +53,32 @@ public class ColFitsTableWriter extends AbstractFitsTableWriter {
         return location.endsWith( ".colfits" );
     }
 
+    /**
+     * Writes tables.  If the output stream is a local file set up by
+     * this writer, tables are written directly where possible.
+     */
+    @Override
+    public void writeStarTables( TableSequence tableSeq, OutputStream out )
+            throws IOException {
+        if ( ! ( out instanceof SeekableOutputStream ) ) {
+            super.writeStarTables( tableSeq, out );
+            return;
+        }
+        writePrimaryHDU( out );
+        for ( StarTable table; ( table = tableSeq.nextTable() ) != null; ) {
+            ColFitsDirectWriter direct =
+                ColFitsDirectWriter.createWriter( table, getConfig() );
+            if ( direct != null ) {
+                direct.writeHDU( (SeekableOutputStream) out,
+                                 getMetadataCards(), getChecksum() );
+            }
+            else {
+                writeTableHDU( table, createSerializer( table ), out );
+            }
+        }
+        out.flush();
+    }
+
     protected FitsTableSerializer createSerializer( StarTable table )
             throws IOException {
         return new ColFitsTableSerializer( getConfig(), table );
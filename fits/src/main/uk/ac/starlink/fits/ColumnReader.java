@@ -24,6 +24,7 @@ abstract class ColumnReader {
     private final int[] shape_;
     private final int length_;
     private final ColFlags flags_;
+    private final boolean isNumericScalar_;
     private static final Logger logger_ =
         Logger.getLogger( "uk.ac.starlink.fits" );
     private static final Charset US_ASCII = Charset.forName( "US-ASCII" );
@@ -47,6 +48,10 @@ abstract class ColumnReader {
         shape_ = shape;
         length_ = length;
         flags_ = flags;
+        isNumericScalar_ = shape == null
+                        && ( clazz == Byte.class || clazz == Short.class ||
+                             clazz == Integer.class || clazz == Long.class ||
+                             clazz == Float.class || clazz == Double.class );
     }
 
     /**
@@ -71,6 +76,69 @@ abstract class ColumnReader {
      */
     abstract Object readValue( BasicInput stream ) throws IOException;
 
+    /**
+     * Reads bytes from a stream to return a floating point value.
+     * Blank values, and values which are not scalar numbers, give NaN.
+     * The default implementation calls {@link #readValue},
+     * but subclasses for numeric scalar columns override it to
+     * avoid object creation.
+     *
+     * @param  stream containing bytes to turn into a value
+     * @return  numeric value, or NaN
+     */
+    double readDouble( BasicInput stream ) throws IOException {
+        Object value = readValue( stream );
+        return value instanceof Number ? ((Number) value).doubleValue()
+                                       : Double.NaN;
+    }
+
+    /**
+     * Reads bytes from a stream to return an integer value.
+     * The result for blank values, or values which are not
+     * scalar numbers, is undefined.
+     * The default implementation calls {@link #readValue},
+     * but subclasses for integer scalar columns override it to
+     * avoid object creation.
+     *
+     * @param  stream containing bytes to turn into a value
+     * @return  integer value
+     */
+    long readLong( BasicInput stream ) throws IOException {
+        Object value = readValue( stream );
+        return value instanceof Number ? ((Number) value).longValue() : 0L;
+    }
+
+    /**
+     * Reads bytes from a stream to determine whether a value is blank
+     * in the sense of {@link uk.ac.starlink.table.Tables#isBlank}.
+     * For numeric scalar columns this uses {@link #readDouble},
+     * which avoids object creation.
+     *
+     * @param  stream containing bytes to turn into a value
+     * @return  true iff the value is blank
+     */
+    boolean readNull( BasicInput stream ) throws IOException {
+        return isNumericScalar_
+             ? Double.isNaN( readDouble( stream ) )
+             : Tables.isBlank( readValue( stream ) );
+    }
+
+    /**
+     * Reads bytes from a stream to return an array of double precision
+     * values, as for {@link uk.ac.starlink.table.RowData#getDoubleArray}.
+     * The default implementation calls {@link #readValue},
+     * but subclasses for numeric array columns override it to
+     * decode elements directly into the result array.
+     *
+     * @param  stream containing bytes to turn into a value
+     * @param  buf  buffer for result, or null
+     * @return  array of numeric values, or null
+     */
+    double[] readDoubleArray( BasicInput stream, double[] buf )
+            throws IOException {
+        return Tables.toDoubleArray( readValue( stream ), buf );
+    }
+
     /**
      * Returns the class which objects returned by <tt>readValue</tt>
      * will belong to.
@@ -237,6 +305,23 @@ abstract class ColumnReader {
                             return aReader.readArray( stream, 0 );
                         }
                     }
+                    double[] readDoubleArray( BasicInput stream,
+                                              double[] buf )
+                            throws IOException {
+                        int nel = stream.readInt();
+                        int heapOffset = stream.readInt();
+                        if ( nel > 0 ) {
+                            long point = stream.getOffset();
+                            stream.seek( heapStart + heapOffset );
+                            double[] array =
+                                aReader.readDoubleArray( stream, nel, buf );
+                            stream.seek( point );
+                            return array;
+                        }
+                        else {
+                            return aReader.readDoubleArray( stream, 0, buf );
+                        }
+                    }
                     int getElementSize() {
                         return aReader.getElementSize();
                     }
@@ -286,6 +371,24 @@ abstract class ColumnReader {
                             return aReader.readArray( stream, 0 );
                         }
                     }
+                    double[] readDoubleArray( BasicInput stream,
+                                              double[] buf )
+                            throws IOException {
+                        long lnel = stream.readLong();
+                        long heapOffset = stream.readLong();
+                        int nel = Tables.checkedLongToInt( lnel );
+                        if ( nel > 0 ) {
+                            long point = stream.getOffset();
+                            stream.seek( heapStart + heapOffset );
+                            double[] array =
+                                aReader.readDoubleArray( stream, nel, buf );
+                            stream.seek( point );
+                            return array;
+                        }
+                        else {
+                            return aReader.readDoubleArray( stream, 0, buf );
+                        }
+                    }
                     int getElementSize() {
                         return aReader.getElementSize();
                     }
@@ -342,6 +445,10 @@ abstract class ColumnReader {
                 Object readValue( BasicInput stream ) throws IOException {
                     return aReader.readArray( stream, primCount );
                 }
+                double[] readDoubleArray( BasicInput stream, double[] buf )
+                        throws IOException {
+                    return aReader.readDoubleArray( stream, primCount, buf );
+                }
                 int getElementSize() {
                     return aReader.getElementSize();
                 }
@@ -419,6 +526,17 @@ abstract class ColumnReader {
                                  ? null
                                  : Byte.valueOf( (byte) ( val ^ (byte) 0x80 ) );
                         }
+                        double readDouble( BasicInput stream )
+                                throws IOException {
+                            byte val = stream.readByte();
+                            return ( hasBlank && val == (byte) blank )
+                                 ? Double.NaN
+                                 : (byte) ( val ^ (byte) 0x80 );
+                        }
+                        long readLong( BasicInput stream )
+                                throws IOException {
+                            return (byte) ( stream.readByte() ^ (byte) 0x80 );
+                        }
                     };
                 }
                 else if ( shortable ) {
@@ -432,6 +550,18 @@ abstract class ColumnReader {
                                  : Short.valueOf( (short)
                                                   ( ( val & mask ) + sZero ) );
                         }
+                        double readDouble( BasicInput stream )
+                                throws IOException {
+                            byte val = stream.readByte();
+                            return ( hasBlank && val == (byte) blank )
+                                 ? Double.NaN
+                                 : (short) ( ( val & mask ) + sZero );
+                        }
+                        long readLong( BasicInput stream )
+                                throws IOException {
+                            return (short) ( ( stream.readByte() & mask )
+                                             + sZero );
+                        }
                     };
                 }
                 else if ( isScaled ) {
@@ -444,6 +574,13 @@ abstract class ColumnReader {
                                         : new Float( ( val & mask )
                                                      * scale + dZero );
                         }
+                        double readDouble( BasicInput stream )
+                                throws IOException {
+                            byte val = stream.readByte();
+                            return ( hasBlank && val == (byte) blank )
+                                 ? Double.NaN
+                                 : (float) ( ( val & mask ) * scale + dZero );
+                        }
                     };
                 }
                 else {
@@ -456,6 +593,17 @@ abstract class ColumnReader {
                                    ? null
                                    : Short.valueOf( (short) ( val & mask ) );
                         }
+                        double readDouble( BasicInput stream )
+                                throws IOException {
+                            byte val = stream.readByte();
+                            return ( hasBlank && val == (byte) blank )
+                                 ? Double.NaN
+                                 : ( val & mask );
+                        }
+                        long readLong( BasicInput stream )
+                                throws IOException {
+                            return stream.readByte() & mask;
+                        }
                     };
                 }
                 return reader;
@@ -476,6 +624,17 @@ abstract class ColumnReader {
                                  ? null
                                  : Integer.valueOf( (int) ( val + iZero ) );
                         }
+                        double readDouble( BasicInput stream )
+                                throws IOException {
+                            short val = stream.readShort();
+                            return ( hasBlank && val == (short) blank )
+                                 ? Double.NaN
+                                 : (int) ( val + iZero );
+                        }
+                        long readLong( BasicInput stream )
+                                throws IOException {
+                            return (int) ( stream.readShort() + iZero );
+                        }
                     };
                 }
                 else if ( isScaled ) {
@@ -488,6 +647,13 @@ abstract class ColumnReader {
                                         : new Float( (float)
                                                    ( val * scale + dZero ) );
                         }
+                        double readDouble( BasicInput stream )
+                                throws IOException {
+                            short val = stream.readShort();
+                            return ( hasBlank && val == (short) blank )
+                                 ? Double.NaN
+                                 : (float) ( val * scale + dZero );
+                        }
                     };
                 }
                 else {
@@ -499,6 +665,17 @@ abstract class ColumnReader {
                                         ? null
                                         : Short.valueOf( val );
                         }
+                        double readDouble( BasicInput stream )
+                                throws IOException {
+                            short val = stream.readShort();
+                            return ( hasBlank && val == (short) blank )
+                                 ? Double.NaN
+                                 : val;
+                        }
+                        long readLong( BasicInput stream )
+                                throws IOException {
+                            return stream.readShort();
+                        }
                     };
                 }
                 return reader;
@@ -517,6 +694,17 @@ abstract class ColumnReader {
                                  ? null
                                  : Long.valueOf( (long) ( val + lZero ) );
                         }
+                        double readDouble( BasicInput stream )
+                                throws IOException {
+                            long val = stream.readInt();
+                            return ( hasBlank && val == (int) blank )
+                                 ? Double.NaN
+                                 : (double) ( val + lZero );
+                        }
+                        long readLong( BasicInput stream )
+                                throws IOException {
+                            return stream.readInt() + lZero;
+                        }
                     };
                 }
                 else if ( isScaled ) {
@@ -529,6 +717,13 @@ abstract class ColumnReader {
                                         ? null
                                         : new Double( val * scale + dZero );
                         }
+                        double readDouble( BasicInput stream )
+                                throws IOException {
+                            int val = stream.readInt();
+                            return ( hasBlank && val == (int) blank )
+                                 ? Double.NaN
+                                 : val * scale + dZero;
+                        }
                     };
                 }
                 else {
@@ -541,6 +736,17 @@ abstract class ColumnReader {
                                         ? null
                                         : Integer.valueOf( val );
                         }
+                        double readDouble( BasicInput stream )
+                                throws IOException {
+                            int val = stream.readInt();
+                            return ( hasBlank && val == (int) blank )
+                                 ? Double.NaN
+                                 : val;
+                        }
+                        long readLong( BasicInput stream )
+                                throws IOException {
+                            return stream.readInt();
+                        }
                     };
                 }
                 return reader;
@@ -590,6 +796,18 @@ abstract class ColumnReader {
                                          : null;
                                 }
                             }
+                            double readDouble( BasicInput stream )
+                                    throws IOException {
+                                long val = stream.readLong();
+                                return ( hasBlank && val == (long) blank ) ||
+                                       ! ranger.inRange( val )
+                                     ? Double.NaN
+                                     : (double) ( val + Long.MAX_VALUE + 1L );
+                            }
+                            long readLong( BasicInput stream )
+                                    throws IOException {
+                                return stream.readLong() + Long.MAX_VALUE + 1L;
+                            }
                         };
                     }
                     else {
@@ -613,6 +831,18 @@ abstract class ColumnReader {
                                          : null;
                                 }
                             }
+                            double readDouble( BasicInput stream )
+                                    throws IOException {
+                                long val = stream.readLong();
+                                return ( hasBlank && val == (long) blank ) ||
+                                       ! ranger.inRange( val )
+                                     ? Double.NaN
+                                     : (double) ( val + lZero );
+                            }
+                            long readLong( BasicInput stream )
+                                    throws IOException {
+                                return stream.readLong() + lZero;
+                            }
                         };
                     }
                 }
@@ -626,6 +856,13 @@ abstract class ColumnReader {
                                         ? null
                                         : new Double( val * scale + dZero );
                         }
+                        double readDouble( BasicInput stream )
+                                throws IOException {
+                            long val = stream.readLong();
+                            return ( hasBlank && val == (long) blank )
+                                 ? Double.NaN
+                                 : val * scale + dZero;
+                        }
                     };
                 }
                 else {
@@ -637,6 +874,17 @@ abstract class ColumnReader {
                                         ? null
                                         : Long.valueOf( val );
                         }
+                        double readDouble( BasicInput stream )
+                                throws IOException {
+                            long val = stream.readLong();
+                            return ( hasBlank && val == (long) blank )
+                                 ? Double.NaN
+                                 : (double) val;
+                        }
+                        long readLong( BasicInput stream )
+                                throws IOException {
+                            return stream.readLong();
+                        }
                     };
                 }
                 return reader;
@@ -663,6 +911,11 @@ abstract class ColumnReader {
                             float val = stream.readFloat();
                             return new Float( val * scale + dZero );
                         }
+                        double readDouble( BasicInput stream )
+                                throws IOException {
+                            return (float) ( stream.readFloat() * scale
+                                             + dZero );
+                        }
                     };
                 }
                 else {
@@ -672,6 +925,10 @@ abstract class ColumnReader {
                             float val = stream.readFloat();
                             return new Float( val );
                         }
+                        double readDouble( BasicInput stream )
+                                throws IOException {
+                            return stream.readFloat();
+                        }
                     };
                 }
                 return reader;    
@@ -686,6 +943,10 @@ abstract class ColumnReader {
                             double val = stream.readDouble();
                             return new Double( val * scale + dZero );
                         }
+                        double readDouble( BasicInput stream )
+                                throws IOException {
+                            return stream.readDouble() * scale + dZero;
+                        }
                     };
                 }
                 else {
@@ -696,6 +957,10 @@ abstract class ColumnReader {
                             double val = stream.readDouble();
                             return new Double( val );
                         }
+                        double readDouble( BasicInput stream )
+                                throws IOException {
+                            return stream.readDouble();
+                        }
                     };
                 }
                 return reader;
@@ -884,6 +1149,16 @@ abstract class ColumnReader {
                             }
                             return value;
                         }
+                        double[] readDoubleArray( BasicInput stream,
+                                                  int count, double[] buf )
+                                throws IOException {
+                            double[] value = doubleBuffer( buf, count );
+                            for ( int i = 0; i < count; i++ ) {
+                                short val = stream.readShort();
+                                value[ i ] = (int) ( val + iZero );
+                            }
+                            return value;
+                        }
                     };
                 }
                 else if ( isScaled ) {
@@ -901,6 +1176,19 @@ abstract class ColumnReader {
                             }
                             return value;
                         }
+                        double[] readDoubleArray( BasicInput stream,
+                                                  int count, double[] buf )
+                                throws IOException {
+                            double[] value = doubleBuffer( buf, count );
+                            for ( int i = 0; i < count; i++ ) {
+                                short val = stream.readShort();
+                                value[ i ] =
+                                    ( hasBlank && val == (short) blank )
+                                         ? Float.NaN
+                                         : (float) ( val * scale + dZero );
+                            }
+                            return value;
+                        }
                     };
                 }
                 else {
@@ -915,6 +1203,15 @@ abstract class ColumnReader {
                             }
                             return value;
                         }
+                        double[] readDoubleArray( BasicInput stream,
+                                                  int count, double[] buf )
+                                throws IOException {
+                            double[] value = doubleBuffer( buf, count );
+                            for ( int i = 0; i < count; i++ ) {
+                                value[ i ] = stream.readShort();
+                            }
+                            return value;
+                        }
                     };
                 }
                 return reader;
@@ -936,6 +1233,16 @@ abstract class ColumnReader {
                             }
                             return value;
                         }
+                        double[] readDoubleArray( BasicInput stream,
+                                                  int count, double[] buf )
+                                throws IOException {
+                            double[] value = doubleBuffer( buf, count );
+                            for ( int i = 0; i < count; i++ ) {
+                                int val = stream.readInt();
+                                value[ i ] = (long) ( val + lZero );
+                            }
+                            return value;
+                        }
                     };
                 }
                 else if ( isScaled ) {
@@ -953,6 +1260,19 @@ abstract class ColumnReader {
                             }
                             return value;
                         }
+                        double[] readDoubleArray( BasicInput stream,
+                                                  int count, double[] buf )
+                                throws IOException {
+                            double[] value = doubleBuffer( buf, count );
+                            for ( int i = 0; i < count; i++ ) {
+                                int val = stream.readInt();
+                                value[ i ] =
+                                    ( hasBlank && val == (int) blank )
+                                         ? Double.NaN
+                                         : val * scale + dZero;
+                            }
+                            return value;
+                        }
                     };
                 }
                 else {
@@ -968,6 +1288,15 @@ abstract class ColumnReader {
                             }
                             return value;
                         }
+                        double[] readDoubleArray( BasicInput stream,
+                                                  int count, double[] buf )
+                                throws IOException {
+                            double[] value = doubleBuffer( buf, count );
+                            for ( int i = 0; i < count; i++ ) {
+                                value[ i ] = stream.readInt();
+                            }
+                            return value;
+                        }
                     };
                 }
                 return reader;
@@ -1172,6 +1501,16 @@ abstract class ColumnReader {
                     }
                     return value;
                 }
+                double[] readDoubleArray( BasicInput stream, int count,
+                                          double[] buf )
+                        throws IOException {
+                    double[] value = doubleBuffer( buf, count );
+                    for ( int i = 0; i < count; i++ ) {
+                        float val = stream.readFloat();
+                        value[ i ] = (float) ( val * scale + zero );
+                    }
+                    return value;
+                }
             };
         }
         else {
@@ -1184,6 +1523,15 @@ abstract class ColumnReader {
                     }
                     return value;
                 }
+                double[] readDoubleArray( BasicInput stream, int count,
+                                          double[] buf )
+                        throws IOException {
+                    double[] value = doubleBuffer( buf, count );
+                    for ( int i = 0; i < count; i++ ) {
+                        value[ i ] = stream.readFloat();
+                    }
+                    return value;
+                }
             };
         }
     }
@@ -1212,6 +1560,16 @@ abstract class ColumnReader {
                     }
                     return value;
                 }
+                double[] readDoubleArray( BasicInput stream, int count,
+                                          double[] buf )
+                        throws IOException {
+                    double[] value = doubleBuffer( buf, count );
+                    for ( int i = 0; i < count; i++ ) {
+                        double val = stream.readDouble();
+                        value[ i ] = val * scale + zero;
+                    }
+                    return value;
+                }
             };
         }
         else {
@@ -1224,10 +1582,31 @@ abstract class ColumnReader {
                     }
                     return value;
                 }
+                double[] readDoubleArray( BasicInput stream, int count,
+                                          double[] buf )
+                        throws IOException {
+                    double[] value = doubleBuffer( buf, count );
+                    for ( int i = 0; i < count; i++ ) {
+                        value[ i ] = stream.readDouble();
+                    }
+                    return value;
+                }
             };
         }
     }
 
+    /**
+     * Returns a double array of a given length, using a supplied buffer
+     * if it is suitable.
+     *
+     * @param  buf  candidate buffer, or null
+     * @param  count  required length
+     * @return  array of length count
+     */
+    private static double[] doubleBuffer( double[] buf, int count ) {
+        return buf != null && buf.length == count ? buf : new double[ count ];
+    }
+
     /**
      * Reads a string from a data stream.
      * A fixed number of bytes are read from the stream, but the returned
@@ -1287,7 +1666,7 @@ abstract class ColumnReader {
      * @param  num   value
      * @return   true  iff num is an integer type
      */
-    private static boolean isInteger( Number num ) {
+    static boolean isInteger( Number num ) {
         if ( num instanceof Byte ||
              num instanceof Short ||
              num instanceof Integer ||
@@ -1396,6 +1775,25 @@ abstract class ColumnReader {
         abstract Object readArray( BasicInput stream, int count )
                 throws IOException;
 
+        /**
+         * Reads an array from the current position in a stream as
+         * double precision values.
+         * The default implementation calls {@link #readArray},
+         * but readers of numeric arrays override it to decode
+         * elements directly into the result array.
+         *
+         * @param  stream   stream to read from
+         * @param  count   number of items to read
+         * @param  buf   buffer for result, used if it has
+         *               <code>count</code> elements
+         * @return  array of numeric values, or null if not numeric
+         */
+        double[] readDoubleArray( BasicInput stream, int count,
+                                  double[] buf )
+                throws IOException {
+            return Tables.toDoubleArray( readArray( stream, count ), buf );
+        }
+
         /** 
          * Returns the class of objects returned from readArray.
          *
@@ -12,6 +12,8 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.lang.reflect.Array;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -26,14 +28,18 @@ import uk.ac.starlink.util.DataBufferedOutputStream;
  * This class is an abstract superclass; it provides a factory method for
  * obtaining concrete instances for various data types.
  *
+ * <p>Instances for which {@link #getDirectRowBytes} returns a non-negative
+ * value may alternatively be used to encode values directly in their
+ * final serialized form, in which case no temporary file is used.
+ *
  * @author   Mark Taylor
  * @since    26 Jun 2006
  */
 abstract class FileColumnStore implements ColumnStore {
 
     private final ValueInfo info_;
-    private final File file_;
-    private final DataOutput out_;
+    private File file_;
+    private DataOutput out_;
     private final char formatChar_;
     private final int typeBytes_;
     private final boolean dumpCopy_;
@@ -64,15 +70,6 @@ abstract class FileColumnStore implements ColumnStore {
         typeBytes_ = typeBytes;
         dumpCopy_ = dumpCopy;
         setItemShape( new int[] { 1 } );
-        file_ = File.createTempFile( "col-"
-                                   + info.getName().replaceAll( "\\W+", "" ),
-                                     ".bin" );
-        file_.deleteOnExit();
-        // Note: a DataOutputStream on a BufferedOutputStream is slow.
-        // out_ = new DataOutputStream(
-        //            new BufferedOutputStream(
-        //                new FileOutputStream( file_ ) ) );
-        out_ = new DataBufferedOutputStream( new FileOutputStream( file_ ) );
     }
 
     /**
@@ -90,12 +87,28 @@ abstract class FileColumnStore implements ColumnStore {
     }
 
     public void storeValue( Object value ) throws IOException {
+        if ( out_ == null ) {
+            file_ = File.createTempFile( "col-"
+                                       + info_.getName()
+                                              .replaceAll( "\\W+", "" ),
+                                         ".bin" );
+            file_.deleteOnExit();
+            // Note: a DataOutputStream on a BufferedOutputStream is slow.
+            // out_ = new DataOutputStream(
+            //            new BufferedOutputStream(
+            //                new FileOutputStream( file_ ) ) );
+            out_ = new DataBufferedOutputStream(
+                       new FileOutputStream( file_ ) );
+        }
         storeValue( value, out_ );
         nrow_++;
     }
 
     public void streamData( DataOutput out ) throws IOException {
-        if ( dumpCopy_ ) {
+        if ( file_ == null ) {
+            assert nrow_ == 0;
+        }
+        else if ( dumpCopy_ ) {
             FileInputStream in = new FileInputStream( file_ );
             int bufsiz = 64 * 1024;
             byte[] buf = new byte[ bufsiz ];
@@ -212,11 +225,68 @@ abstract class FileColumnStore implements ColumnStore {
     }
 
     public void dispose() throws IOException {
-        if ( file_.exists() ) {
+        if ( file_ != null && file_.exists() ) {
             file_.delete();
         }
     }
 
+    /**
+     * Returns the number of bytes per row written by
+     * {@link #writeDirectValue}, if it can be known before any
+     * values have been seen.
+     * The default implementation returns the item size if the
+     * intermediate storage format is the same as the output format.
+     *
+     * @return  fixed row size in bytes,
+     *          or -1 if direct writing is not supported
+     */
+    int getDirectRowBytes() {
+        return dumpCopy_ ? multiply( itemShape_ ) * typeBytes_ : -1;
+    }
+
+    /**
+     * Prepares this object for direct writing.
+     * In that case this method must be called instead of any calls to
+     * {@link #storeValue(java.lang.Object)}, and
+     * {@link #endStores} must be called after all the values
+     * have been written.
+     *
+     * @param  nrow  number of values that will be written
+     */
+    void prepareDirect( long nrow ) {
+        nrow_ = nrow;
+    }
+
+    /**
+     * Writes a value in its final serialized form.
+     * Exactly {@link #getDirectRowBytes} bytes are written.
+     * The default implementation invokes
+     * {@link #storeValue(java.lang.Object,java.io.DataOutput)}.
+     *
+     * @param  value  value to write
+     * @param  out   destination
+     * @param  irow  row index of value
+     */
+    void writeDirectValue( Object value, DataOutput out, long irow )
+            throws IOException {
+        storeValue( value, out );
+    }
+
+    /**
+     * Overwrites any directly written values that could not be
+     * determined at write time.  Called after {@link #endStores}.
+     * The default implementation does nothing.
+     *
+     * @param  chan  output file channel
+     * @param  colPos   file offset at which this column's data starts
+     * @return  checksum of the difference between the patched bytes
+     *          and the bytes they replaced, for adjusting the HDU DATASUM
+     */
+    long patchDirectValues( FileChannel chan, long colPos )
+            throws IOException {
+        return 0L;
+    }
+
     protected void finalize() throws Throwable {
         try {
             dispose();
@@ -285,7 +355,7 @@ abstract class FileColumnStore implements ColumnStore {
      * @param   config   output configuration details
      * @return  suitable column store for column described by <code>info</code>
      */
-    public static ColumnStore
+    public static FileColumnStore
             createColumnStore( ValueInfo info,
                                final FitsTableSerializerConfig config )
             throws IOException {
@@ -687,8 +757,11 @@ abstract class FileColumnStore implements ColumnStore {
 
         private final IntegerStorage handler_;
         private final byte[] copyBuffer_;
+        private final byte[] placeholder_;
         private boolean hasNulls_;
         private byte[] badBuffer_;
+        private long[] nullRows_;
+        private int nNull_;
         private final byte GOOD = (byte) 1;
         private final byte BAD = (byte) 2;
 
@@ -704,6 +777,7 @@ abstract class FileColumnStore implements ColumnStore {
             super( info, handler.getFormatChar(), handler.getTypeBytes() );
             handler_ = handler;
             copyBuffer_ = new byte[ handler.getTypeBytes() ];
+            placeholder_ = handler.getBadBytes();
         }
 
         protected void storeValue( Object value, DataOutput out )
@@ -732,6 +806,100 @@ abstract class FileColumnStore implements ColumnStore {
             }
         }
 
+        @Override
+        int getDirectRowBytes() {
+            return handler_.getTypeBytes();
+        }
+
+        /**
+         * Blank values are written using the blank value that would be
+         * chosen if no non-blank values were present, and their rows
+         * are recorded in case a different one is required in the end.
+         */
+        @Override
+        void writeDirectValue( Object value, DataOutput out, long irow )
+                throws IOException {
+            if ( value instanceof Number ) {
+                handler_.writeValue( ((Number) value).longValue(), out );
+            }
+            else {
+                hasNulls_ = true;
+                if ( nullRows_ == null ) {
+                    nullRows_ = new long[ 64 ];
+                }
+                else if ( nNull_ == nullRows_.length ) {
+                    nullRows_ = Arrays.copyOf( nullRows_, nNull_ * 2 );
+                }
+                nullRows_[ nNull_++ ] = irow;
+                out.write( placeholder_ );
+            }
+        }
+
+        @Override
+        long patchDirectValues( FileChannel chan, long colPos )
+                throws IOException {
+            if ( nNull_ == 0 || Arrays.equals( badBuffer_, placeholder_ ) ) {
+                return 0L;
+            }
+            logger_.info( "Patching " + nNull_ + " blank values for column "
+                        + getValueInfo() );
+            int nb = badBuffer_.length;
+
+            /* The checksum difference is the same for each replacement
+             * at a given word alignment, so the adjustment just needs
+             * to count occurrences of each alignment. */
+            long[] alignCounts = new long[ 4 ];
+            ByteBuffer runBuf = ByteBuffer.allocate( 64 * 1024 );
+            int maxRun = runBuf.capacity() / nb;
+            for ( int i0 = 0; i0 < nNull_; ) {
+                int i1 = i0 + 1;
+                while ( i1 < nNull_ && i1 - i0 < maxRun &&
+                        nullRows_[ i1 ] == nullRows_[ i1 - 1 ] + 1 ) {
+                    i1++;
+                }
+                runBuf.clear();
+                for ( int i = i0; i < i1; i++ ) {
+                    runBuf.put( badBuffer_ );
+                    alignCounts[ (int) ( ( colPos + nullRows_[ i ] * nb )
+                                         & 3 ) ]++;
+                }
+                runBuf.flip();
+                long pos = colPos + nullRows_[ i0 ] * nb;
+                while ( runBuf.hasRemaining() ) {
+                    pos += chan.write( runBuf, pos );
+                }
+                i0 = i1;
+            }
+            return getDifferenceChecksum( alignCounts );
+        }
+
+        /**
+         * Returns the checksum adjustment for replacing placeholder
+         * values by blank values a given number of times at each
+         * word alignment.
+         *
+         * @param  alignCounts  4-element array giving the number of
+         *                      replacements at each file offset modulo 4
+         * @return   checksum difference
+         */
+        private long getDifferenceChecksum( long[] alignCounts ) {
+            long bad = FitsUtil.checksum( ByteBuffer.wrap( badBuffer_ ) );
+            long place = FitsUtil.checksum( ByteBuffer.wrap( placeholder_ ) );
+            long diff = FitsUtil.addChecksums( bad,
+                                               FitsUtil.CHECKSUM_OK - place );
+            long sum = 0L;
+            for ( int ia = 0; ia < 4; ia++ ) {
+                long s = FitsUtil.alignChecksum( diff, ia );
+                for ( long n = alignCounts[ ia ]; n > 0; n >>= 1 ) {
+                    if ( ( n & 1 ) != 0 ) {
+                        sum = FitsUtil.addChecksums( sum, s );
+                    }
+                    s = FitsUtil.addChecksums( s, s );
+                }
+            }
+            return sum;
+        }
+
         protected void copyValue( DataInput in, DataOutput out )
                 throws IOException {
             byte[] buf;
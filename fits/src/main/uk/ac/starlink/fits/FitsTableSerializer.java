@@ -3,6 +3,7 @@ package uk.ac.starlink.fits;
 import java.io.DataOutput;
 import java.io.IOException;
 import uk.ac.starlink.table.StarTable;
+import uk.ac.starlink.util.DataBufferedOutputStream;
 
 /**
  * Defines an object which can serialize a table to a FITS HDU.
@@ -28,6 +29,27 @@ public interface FitsTableSerializer {
      */
     void writeData( DataOutput out ) throws IOException;
 
+    /**
+     * Returns the FITS ones'-complement checksum of the bytes that
+     * will be written by {@link #writeData}.
+     * This can be used to fill in the DATASUM header before
+     * the data is written.
+     *
+     * <p>The default implementation invokes <code>writeData</code>
+     * on a stream that discards the output, which is only correct
+     * if <code>writeData</code> can be called more than once.
+     * Implementations for which that is not the case must override it.
+     *
+     * @return  checksum in the range 0..0xffffffff
+     */
+    default long getDataChecksum() throws IOException {
+        ChecksumOutputStream cout = new ChecksumOutputStream( null );
+        DataBufferedOutputStream dout = new DataBufferedOutputStream( cout );
+        writeData( dout );
+        dout.flush();
+        return cout.getChecksum();
+    }
+
     /**
      * Returns the number of rows which will be output.
      *
@@ -44,4 +44,19 @@ public interface FitsTableSerializerConfig {
      * @return  padding value for character array data
      */
     byte getPadCharacter();
+
+    /**
+     * Returns the number of threads to use for encoding row data.
+     * A value of 1 means rows are encoded sequentially in the writing
+     * thread; a value &lt;=0 means a value is chosen based on the
+     * number of available processors.
+     * The output is the same in any case.
+     *
+     * <p>The default implementation returns 1.
+     *
+     * @return  encoding thread count
+     */
+    default int getWriteThreadCount() {
+        return 1;
+    }
 }
@@ -2,6 +2,8 @@ package uk.ac.starlink.fits;
 
 import java.io.IOException;
 import uk.ac.starlink.table.StarTable;
+import uk.ac.starlink.table.StoragePolicy;
+import uk.ac.starlink.util.ConfigMethod;
 
 /**
  * Handles writing of a StarTable in FITS binary format.
@@ -42,11 +44,15 @@ import uk.ac.starlink.table.StarTable;
  */
 public class FitsTableWriter extends AbstractFitsTableWriter {
 
+    private int tileLength_;
+    private StoragePolicy storagePolicy_;
+
     /**
      * Default constructor.
      */
     public FitsTableWriter() {
         super( "fits-basic" );
+        storagePolicy_ = StoragePolicy.getDefaultPolicy();
     }
 
     /**
@@ -64,6 +70,54 @@ public class FitsTableWriter extends AbstractFitsTableWriter {
         setWide( wide );
     }
 
+    /**
+     * Sets the number of rows per tile for writing tables using the
+     * FITS Tiled Table Compression convention.
+     * If zero, the output is not compressed.
+     *
+     * @param  tileLength  rows per tile, or 0 for uncompressed output
+     */
+    @ConfigMethod(
+        property = "ztilelen",
+        usage = "<int>",
+        example = "10000",
+        doc = "<p>If set to a positive value, the table is written\n"
+            + "using the FITS Tiled Table Compression convention\n"
+            + "(ZTABLE), with this number of rows per tile.\n"
+            + "Each column of each tile is compressed separately\n"
+            + "(RICE_1 for 8-, 16- and 32-bit integers,\n"
+            + "GZIP_2 or GZIP_1 otherwise),\n"
+            + "which can considerably reduce the file size.\n"
+            + "Readers that do not understand the convention\n"
+            + "will see the compressed data as byte arrays.\n"
+            + "If zero (the default), the output is not compressed.\n"
+            + "</p>"
+    )
+    public void setTileLength( int tileLength ) {
+        tileLength_ = tileLength;
+    }
+
+    /**
+     * Returns the number of rows per tile for tile-compressed output.
+     *
+     * @return  rows per tile, or 0 for uncompressed output
+     */
+    public int getTileLength() {
+        return tileLength_;
+    }
+
+    /**
+     * Sets the storage policy which will be used for temporary storage
+     * during writing.  Temporary storage is only required for
+     * tile-compressed output.
+     * By default the system default storage policy is used.
+     *
+     * @param  storagePolicy   policy to use
+     */
+    public void setStoragePolicy( StoragePolicy storagePolicy ) {
+        storagePolicy_ = storagePolicy;
+    }
+
     /**
      * Returns true if <tt>location</tt> ends with something like ".fit"
      * or ".fits" or ".fts".
@@ -86,6 +140,11 @@ public class FitsTableWriter extends AbstractFitsTableWriter {
 
     protected FitsTableSerializer createSerializer( StarTable table )
             throws IOException {
-        return new StandardFitsTableSerializer( getConfig(), table );
+        StandardFitsTableSerializer fitser =
+            new StandardFitsTableSerializer( getConfig(), table );
+        return tileLength_ > 0
+             ? new TiledFitsTableSerializer( fitser, tileLength_,
+                                             storagePolicy_ )
+             : fitser;
     }
 }
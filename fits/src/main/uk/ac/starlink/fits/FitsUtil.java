@@ -4,13 +4,20 @@ import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 import java.util.logging.Logger;
 import java.util.regex.Pattern;
 import uk.ac.starlink.util.IOUtils;
+import uk.ac.starlink.util.SplitPolicy;
 import uk.ac.starlink.table.Tables;
 
 /**
@@ -44,6 +51,16 @@ public class FitsUtil {
                        + "(\\s*[,]\\s*" + FLOAT_REGEX + ")*+"
                        + "\\s*[)]\\s*" );
 
+    /** Ones'-complement sum value indicating a correct HDU CHECKSUM. */
+    public static final long CHECKSUM_OK = 0xffffffffL;
+
+    /** Number of bytes in each independently summed checksum chunk. */
+    private static final int CHECKSUM_CHUNK = BLOCK_LENG * 4096;
+
+    /** Characters excluded from the ASCII encoding of checksums. */
+    private static final byte[] CHECKSUM_EXCLUDE =
+        ":;<=>?@[\\]^_`".getBytes( StandardCharsets.US_ASCII );
+
     private static final Logger logger_ =
         Logger.getLogger( "uk.ac.starlink.fits" );
 
@@ -314,4 +331,264 @@ public class FitsUtil {
             return null;
         }
     }
+
+    /**
+     * Calculates the 32-bit ones'-complement sum of the remaining bytes
+     * in a buffer, as used by the FITS CHECKSUM and DATASUM keywords.
+     * The bytes are treated as big-endian 4-byte words starting at the
+     * buffer's position; a trailing partial word is padded with zeros.
+     * The buffer's position is not affected.
+     *
+     * @param  buf  buffer
+     * @return  checksum value in the range 0..0xffffffff
+     */
+    public static long checksum( ByteBuffer buf ) {
+        ByteBuffer bbuf = buf.duplicate();
+        int pos = bbuf.position();
+        int limit = bbuf.limit();
+        int nword = ( limit - pos ) / 4;
+        long sum = 0;
+        for ( int iw = 0; iw < nword; iw++ ) {
+            sum += bbuf.getInt( pos ) & 0xffffffffL;
+            pos += 4;
+        }
+        for ( int shift = 24; pos < limit; shift -= 8 ) {
+            sum += ( bbuf.get( pos++ ) & 0xffL ) << shift;
+        }
+        return foldChecksum( sum );
+    }
+
+    /**
+     * Calculates the 32-bit ones'-complement sum of a region of a file,
+     * as used by the FITS CHECKSUM and DATASUM keywords.
+     * The region is mapped in chunks, and if so configured
+     * the chunks are summed concurrently.
+     * For a meaningful result the offset should be aligned with
+     * the start of a FITS HDU or block.
+     *
+     * @param  chan  file channel, readable
+     * @param  offset  offset into file of region start
+     * @param  leng   length of region in bytes
+     * @param  nThread  thread count; 1 for sequential calculation,
+     *                  &lt;=0 to use the number of available processors
+     * @return  checksum value in the range 0..0xffffffff
+     */
+    public static long checksum( FileChannel chan, long offset, long leng,
+                                 int nThread )
+            throws IOException {
+        if ( nThread == 1 || leng <= CHECKSUM_CHUNK ) {
+            long sum = 0;
+            for ( long off = 0; off < leng; off += CHECKSUM_CHUNK ) {
+                sum = addChecksums( sum,
+                                    checksumChunk( chan, offset + off,
+                                                   leng - off ) );
+            }
+            return sum;
+        }
+        ForkJoinPool pool = nThread > 1
+                          ? new ForkJoinPool( nThread )
+                          : SplitPolicy.DFLT_POLICY.getForkJoinPool();
+        try {
+            List<Future<Long>> futures = new ArrayList<>();
+            for ( long off = 0; off < leng; off += CHECKSUM_CHUNK ) {
+                long pos = offset + off;
+                long remaining = leng - off;
+                futures.add( pool.submit( () ->
+                                          checksumChunk( chan, pos,
+                                                         remaining ) ) );
+            }
+            long sum = 0;
+            for ( Future<Long> future : futures ) {
+                try {
+                    sum = addChecksums( sum, future.get().longValue() );
+                }
+                catch ( InterruptedException e ) {
+                    Thread.currentThread().interrupt();
+                    throw (IOException)
+                          new IOException( "Interrupted" ).initCause( e );
+                }
+                catch ( ExecutionException e ) {
+                    Throwable cause = e.getCause();
+                    if ( cause instanceof IOException ) {
+                        throw (IOException) cause;
+                    }
+                    else if ( cause instanceof RuntimeException ) {
+                        throw (RuntimeException) cause;
+                    }
+                    else {
+                        throw (IOException)
+                              new IOException( cause.getMessage() )
+                             .initCause( cause );
+                    }
+                }
+            }
+            return sum;
+        }
+        finally {
+            if ( nThread > 1 ) {
+                pool.shutdown();
+            }
+        }
+    }
+
+    /**
+     * Combines two ones'-complement checksums.
+     * The result is the checksum of the concatenation of the
+     * byte sequences that yielded the inputs,
+     * as long as the first one has a length that is a multiple of 4.
+     *
+     * @param  sum1  first checksum
+     * @param  sum2  second checksum
+     * @return  combined checksum
+     */
+    public static long addChecksums( long sum1, long sum2 ) {
+        return foldChecksum( sum1 + sum2 );
+    }
+
+    /**
+     * Encodes a 32-bit checksum value as a 16-character ASCII string
+     * in the form used for the value of the FITS CHECKSUM keyword.
+     * To generate a CHECKSUM value, the input should be the complement
+     * of the HDU sum calculated with a CHECKSUM value of
+     * "<code>0000000000000000</code>".
+     *
+     * @param  value  value in the range 0..0xffffffff
+     * @return  16-character encoded string
+     */
+    public static String encodeChecksum( long value ) {
+        byte[] asc = new byte[ 16 ];
+        byte[] ch = new byte[ 4 ];
+        for ( int ib = 0; ib < 4; ib++ ) {
+            int b = (int) ( value >>> ( 24 - 8 * ib ) ) & 0xff;
+            Arrays.fill( ch, (byte) ( b / 4 + '0' ) );
+            ch[ 0 ] += b % 4;
+            for ( boolean changed = true; changed; ) {
+                changed = false;
+                for ( byte ex : CHECKSUM_EXCLUDE ) {
+                    for ( int j = 0; j < 4; j += 2 ) {
+                        if ( ch[ j ] == ex || ch[ j + 1 ] == ex ) {
+                            ch[ j ]++;
+                            ch[ j + 1 ]--;
+                            changed = true;
+                        }
+                    }
+                }
+            }
+            for ( int j = 0; j < 4; j++ ) {
+                asc[ 4 * j + ib ] = ch[ j ];
+            }
+        }
+
+        /* Rotate by one character, so that the string is aligned with
+         * the words of a card value starting at column 12. */
+        byte[] rot = new byte[ 16 ];
+        for ( int i = 0; i < 16; i++ ) {
+            rot[ i ] = asc[ ( i + 15 ) % 16 ];
+        }
+        return new String( rot, StandardCharsets.US_ASCII );
+    }
+
+    /**
+     * Checks the CHECKSUM and DATASUM keywords of all the HDUs in a
+     * FITS file.  HDUs lacking these keywords are not considered in error.
+     *
+     * @param  chan  file channel, readable
+     * @param  nThread  thread count; 1 for sequential calculation,
+     *                  &lt;=0 to use the number of available processors
+     * @return   list of messages describing any checksum mismatches;
+     *           empty if all declared checksums are correct
+     */
+    public static List<String> verifyChecksums( FileChannel chan,
+                                                int nThread )
+            throws IOException {
+        List<String> errors = new ArrayList<>();
+        long size = chan.size();
+        long pos = 0;
+        for ( int ihdu = 0; pos < size; ihdu++ ) {
+            chan.position( pos );
+            FitsHeader hdr = readHeader( Channels.newInputStream( chan ) );
+            long hleng = hdr.getHeaderByteCount();
+            long dleng = hdr.getDataByteCount();
+            if ( pos + hleng + dleng > size ) {
+                throw new EOFException( "FITS file truncated in HDU " + ihdu );
+            }
+            String checksumTxt = hdr.getStringValue( "CHECKSUM" );
+            String datasumTxt = hdr.getStringValue( "DATASUM" );
+            if ( checksumTxt != null || datasumTxt != null ) {
+                long datasum = checksum( chan, pos + hleng, dleng, nThread );
+                if ( datasumTxt != null ) {
+                    long declared;
+                    try {
+                        declared = Long.parseLong( datasumTxt.trim() );
+                    }
+                    catch ( NumberFormatException e ) {
+                        declared = -1;
+                    }
+                    if ( declared != datasum ) {
+                        errors.add( "HDU " + ihdu + ": DATASUM mismatch ("
+                                  + datasumTxt.trim() + " != " + datasum
+                                  + ")" );
+                    }
+                }
+                if ( checksumTxt != null ) {
+                    long hdrsum = checksum( chan, pos, hleng, 1 );
+                    if ( addChecksums( hdrsum, datasum ) != CHECKSUM_OK ) {
+                        errors.add( "HDU " + ihdu + ": CHECKSUM mismatch" );
+                    }
+                }
+            }
+            pos += hleng + dleng;
+        }
+        return errors;
+    }
+
+    /**
+     * Calculates the checksum of a single chunk of a file.
+     *
+     * @param  chan  file channel
+     * @param  pos   offset of chunk start
+     * @param  remaining  number of bytes remaining in region;
+     *                    the chunk length is the smaller of this and
+     *                    {@link #CHECKSUM_CHUNK}
+     * @return  chunk checksum
+     */
+    private static long checksumChunk( FileChannel chan, long pos,
+                                       long remaining )
+            throws IOException {
+        int leng = (int) Math.min( remaining, CHECKSUM_CHUNK );
+        return checksum( chan.map( FileChannel.MapMode.READ_ONLY,
+                                   pos, leng ) );
+    }
+
+    /**
+     * Adjusts the checksum of a byte sequence calculated as if it started
+     * on a word boundary, to give its contribution when it is located
+     * at a given offset in the file.
+     * Since ones'-complement addition is invariant under rotation,
+     * this is just a rotation of the bits.
+     *
+     * @param  sum  checksum calculated from aligned start
+     * @param  offset  file offset of first byte
+     * @return  checksum contribution at the given offset
+     */
+    static long alignChecksum( long sum, long offset ) {
+        int shift = 8 * (int) ( offset & 3 );
+        return shift == 0
+             ? sum
+             : ( ( sum >>> shift ) | ( sum << ( 32 - shift ) ) ) & 0xffffffffL;
+    }
+
+    /**
+     * Reduces an accumulated sum of 32-bit words to a 32-bit
+     * ones'-complement sum by repeatedly adding in the carry bits.
+     *
+     * @param  sum  accumulated non-negative sum
+     * @return   value in range 0..0xffffffff
+     */
+    static long foldChecksum( long sum ) {
+        while ( ( sum >>> 32 ) != 0 ) {
+            sum = ( sum & 0xffffffffL ) + ( sum >>> 32 );
+        }
+        return sum;
+    }
 }
@@ -0,0 +1,165 @@
+package uk.ac.starlink.fits;
+
+import java.lang.reflect.Array;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Size-bounded least-recently-used cache of decoded cell values
+ * for variable-length array columns of a BINTABLE.
+ * Values are keyed by column and row index.
+ *
+ * <p>Values are stored and returned without copying, so as for
+ * other table cell values, array values obtained from this cache
+ * must not be modified by clients.
+ * Null values are cached like any other; since a null return
+ * therefore does not indicate absence, {@link #get} returns the
+ * special value {@link #NOT_CACHED} for cells not present.
+ * Methods are thread-safe.
+ *
+ * @author   Mark Taylor
+ * @since    17 Oct 2026
+ */
+class HeapCache {
+
+    private final int ncol_;
+    private final long maxBytes_;
+    private final LinkedHashMap<Long,Object> map_;
+    private long nbytes_;
+
+    /** Value returned by {@link #get} for cells not in the cache. */
+    public static final Object NOT_CACHED = new Object();
+
+    /** Placeholder for null values in the map. */
+    private static final Object NULL_VALUE = new Object();
+
+    /** Approximate per-entry overhead in bytes. */
+    private static final int ENTRY_OVERHEAD = 64;
+
+    /**
+     * Constructor.
+     *
+     * @param  ncol  number of columns in table
+     * @param  maxBytes  approximate maximum memory footprint of cache
+     */
+    HeapCache( int ncol, long maxBytes ) {
+        ncol_ = ncol;
+        maxBytes_ = maxBytes;
+        map_ = new LinkedHashMap<Long,Object>( 16, 0.75f, true );
+    }
+
+    /**
+     * Returns a cached value.
+     *
+     * @param  icol  column index
+     * @param  irow  row index
+     * @return  cached value, which may be null,
+     *          or {@link #NOT_CACHED} if not present
+     */
+    public synchronized Object get( int icol, long irow ) {
+        Object value = map_.get( getKey( icol, irow ) );
+        return value == null ? NOT_CACHED
+             : value == NULL_VALUE ? null
+             : value;
+    }
+
+    /**
+     * Indicates whether a value is present in this cache.
+     * The entry's position in the LRU order is not affected.
+     *
+     * @param  icol  column index
+     * @param  irow  row index
+     * @return  true iff a value is cached
+     */
+    public synchronized boolean contains( int icol, long irow ) {
+        return map_.containsKey( getKey( icol, irow ) );
+    }
+
+    /**
+     * Stores a value in this cache.
+     * Less recently used entries may be discarded to make room.
+     *
+     * @param  icol  column index
+     * @param  irow  row index
+     * @param  value  value to store, may be null
+     * @return   approximate size in bytes of the stored entry,
+     *           or zero if it was not stored
+     */
+    public long put( int icol, long irow, Object value ) {
+        long size = getByteSize( value );
+        if ( size > maxBytes_ / 2 ) {
+            return 0;
+        }
+        Object entry = value == null ? NULL_VALUE : value;
+        synchronized ( this ) {
+            Object old = map_.put( getKey( icol, irow ), entry );
+            if ( old != null ) {
+                nbytes_ -= getByteSize( old );
+            }
+            nbytes_ += size;
+            for ( Iterator<Map.Entry<Long,Object>> it =
+                      map_.entrySet().iterator();
+                  nbytes_ > maxBytes_ && it.hasNext(); ) {
+                nbytes_ -= getByteSize( it.next().getValue() );
+                it.remove();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Returns the approximate maximum memory footprint of this cache.
+     *
+     * @return  maximum size in bytes
+     */
+    public long getMaxBytes() {
+        return maxBytes_;
+    }
+
+    /**
+     * Discards all entries.
+     */
+    public synchronized void clear() {
+        map_.clear();
+        nbytes_ = 0;
+    }
+
+    /**
+     * Returns the map key for a given cell.
+     *
+     * @param  icol  column index
+     * @param  irow  row index
+     * @return  key
+     */
+    private Long getKey( int icol, long irow ) {
+        return Long.valueOf( irow * ncol_ + icol );
+    }
+
+    /**
+     * Returns the approximate memory footprint of a cell value.
+     *
+     * @param  value  value
+     * @return  size in bytes
+     */
+    private static long getByteSize( Object value ) {
+        long size = ENTRY_OVERHEAD;
+        if ( value instanceof String ) {
+            size += 2 * ((String) value).length();
+        }
+        else if ( value instanceof String[] ) {
+            for ( String s : (String[]) value ) {
+                size += ENTRY_OVERHEAD / 2 + ( s == null ? 0 : 2 * s.length() );
+            }
+        }
+        else if ( value != null && value.getClass().isArray() ) {
+            Class<?> clazz = value.getClass().getComponentType();
+            int elSize = clazz == byte.class || clazz == boolean.class ? 1
+                       : clazz == short.class || clazz == char.class ? 2
+                       : clazz == int.class || clazz == float.class ? 4
+                       : 8;
+            size += (long) elSize * Array.getLength( value );
+        }
+        return size;
+    }
+}
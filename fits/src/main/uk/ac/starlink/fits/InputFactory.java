@@ -12,6 +12,8 @@ import java.nio.channels.FileChannel;
 import java.util.logging.Logger;
 import uk.ac.starlink.table.ByteStore;
 import uk.ac.starlink.table.StoragePolicy;
+import uk.ac.starlink.util.Bgzf;
+import uk.ac.starlink.util.BgzfIndex;
 import uk.ac.starlink.util.Compression;
 import uk.ac.starlink.util.DataBufferedInputStream;
 import uk.ac.starlink.util.DataSource;
@@ -67,6 +69,10 @@ public abstract class InputFactory implements Closeable {
             File uncompressedFile = ((FileDataSource) datsrc).getFile();
             return createFileFactory( uncompressedFile, offset, leng );
         }
+        else if ( isBgzfFile( datsrc ) ) {
+            return createBgzfFactory( ((FileDataSource) datsrc).getFile(),
+                                      offset );
+        }
         else {
             if ( isFile ) {
                 logger_.warning( "Can't map compressed file " + datsrc.getName()
@@ -175,6 +181,39 @@ public abstract class InputFactory implements Closeable {
         }
     }
 
+    /**
+     * Constructs an instance of this class to read a BGZF-compressed file.
+     * BGZF is a variant of gzip that permits random access.
+     *
+     * @param  bgzfFile  file in BGZF format
+     * @param   offset   offset into uncompressed data of stream start
+     * @return  new instance
+     */
+    public static InputFactory createBgzfFactory( File bgzfFile,
+                                                  final long offset )
+            throws IOException {
+        RandomAccessFile raf = new RandomAccessFile( bgzfFile, "r" );
+        final FileChannel chan = raf.getChannel();
+        final BgzfIndex index;
+        try {
+            index = BgzfIndex.createIndex( chan );
+        }
+        catch ( IOException e ) {
+            chan.close();
+            throw e;
+        }
+        logger_.info( "Will read BGZF blocks (" + index.getBlockCount()
+                    + "): " + bgzfFile.getName() );
+        return new AbstractInputFactory( true ) {
+            public BasicInput createInput( boolean isSeq ) {
+                return new BgzfBlockInput( chan, index, offset );
+            }
+            public void close() throws IOException {
+                chan.close();
+            }
+        };
+    }
+
     /**
      * Returns an InputFactory for which random access is guaranteed.
      * If necessary, the bytes from the data source will be cached
@@ -196,6 +235,10 @@ public abstract class InputFactory implements Closeable {
             File uncompressedFile = ((FileDataSource) datsrc).getFile();
             return createFileFactory( uncompressedFile, offset, leng );
         }
+        else if ( isBgzfFile( datsrc ) ) {
+            return createBgzfFactory( ((FileDataSource) datsrc).getFile(),
+                                      offset );
+        }
         else {
             logger_.warning( "Caching non-random FITS data" );
             ByteStore byteStore =
@@ -259,6 +302,18 @@ public abstract class InputFactory implements Closeable {
         }
     }
 
+    /**
+     * Indicates whether a data source represents a BGZF-compressed file.
+     *
+     * @param  datsrc  data source
+     * @return  true iff datsrc is a gzipped file in BGZF format
+     */
+    private static boolean isBgzfFile( DataSource datsrc ) throws IOException {
+        return datsrc instanceof FileDataSource
+            && datsrc.getCompression() == Compression.GZIP
+            && Bgzf.isBgzf( ((FileDataSource) datsrc).getFile() );
+    }
+
     /**
      * Returns a non-random-access BasicInput based on a supplied input stream.
      *
@@ -42,7 +42,12 @@ public class MultiByteBufferInput extends BlockInput {
     }
 
     protected ByteBuffer acquireBlock( int iblock ) {
-        return bufs_[ iblock ];
+
+        /* Blocks may be reacquired after previous use,
+         * so make sure the position is reset as required. */
+        ByteBuffer buf = bufs_[ iblock ];
+        buf.position( 0 );
+        return buf;
     }
 
     public void close() {
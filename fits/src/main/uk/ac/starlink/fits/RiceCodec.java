@@ -0,0 +1,367 @@
+package uk.ac.starlink.fits;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+
+/**
+ * Implements the Rice compression algorithm as used by the FITS
+ * tiled compression conventions (RICE_1).
+ * The bit stream is compatible with that produced and consumed by the
+ * <code>fits_rcomp</code>/<code>fits_rdecomp</code> functions of CFITSIO,
+ * using the standard block size of 32 values.
+ *
+ * <p>Uncompressed data is represented as a byte array containing
+ * big-endian integers of 1, 2 or 4 bytes each.
+ *
+ * @author   Mark Taylor
+ * @since    17 Oct 2026
+ */
+final class RiceCodec {
+
+    private final int bytepix_;
+    private final int fsbits_;
+    private final int fsmax_;
+    private final int bbits_;
+
+    /** Number of values in each Rice-coded block. */
+    private static final int NBLOCK = 32;
+
+    /**
+     * Constructor.
+     *
+     * @param  bytepix  number of bytes per value; must be 1, 2 or 4
+     */
+    RiceCodec( int bytepix ) {
+        bytepix_ = bytepix;
+        switch ( bytepix ) {
+            case 1:
+                fsbits_ = 3;
+                fsmax_ = 6;
+                break;
+            case 2:
+                fsbits_ = 4;
+                fsmax_ = 14;
+                break;
+            case 4:
+                fsbits_ = 5;
+                fsmax_ = 25;
+                break;
+            default:
+                throw new IllegalArgumentException( "Bad bytepix " + bytepix );
+        }
+        bbits_ = 8 * bytepix;
+    }
+
+    /**
+     * Compresses an array of values.
+     *
+     * @param  data  big-endian value data
+     * @return  compressed bytes
+     */
+    public byte[] compress( byte[] data ) {
+        int nval = data.length / bytepix_;
+        BitWriter out = new BitWriter( data.length / 2 + 16 );
+        if ( nval == 0 ) {
+            return new byte[ 0 ];
+        }
+        int lastpix = getValue( data, 0 );
+        out.writeBits( lastpix, bbits_ );
+        int[] diffs = new int[ NBLOCK ];
+        for ( int i = 0; i < nval; i += NBLOCK ) {
+            int nb = Math.min( NBLOCK, nval - i );
+
+            /* Map differences from the previous value to non-negative
+             * integers, wrapping at the word size. */
+            double pixelsum = 0;
+            for ( int j = 0; j < nb; j++ ) {
+                int nextpix = getValue( data, i + j );
+                int pdiff = wrap( nextpix - lastpix );
+                int diff = pdiff < 0 ? ~( pdiff << 1 ) : ( pdiff << 1 );
+                diffs[ j ] = diff;
+                pixelsum += diff & 0xffffffffL;
+                lastpix = nextpix;
+            }
+
+            /* Choose the number of bits to split off from each value. */
+            double dpsum = ( pixelsum - ( nb / 2 ) - 1 ) / nb;
+            long psum = dpsum < 0 ? 0 : ( ( (long) dpsum ) & 0xffffffffL ) >> 1;
+            int fs = 0;
+            for ( ; psum > 0; fs++ ) {
+                psum >>= 1;
+            }
+
+            /* High entropy: write differences verbatim. */
+            if ( fs >= fsmax_ ) {
+                out.writeBits( fsmax_ + 1, fsbits_ );
+                for ( int j = 0; j < nb; j++ ) {
+                    out.writeBits( diffs[ j ], bbits_ );
+                }
+            }
+
+            /* Low entropy: all differences are zero. */
+            else if ( fs == 0 && pixelsum == 0 ) {
+                out.writeBits( 0, fsbits_ );
+            }
+
+            /* Normal case: Rice coding. */
+            else {
+                out.writeBits( fs + 1, fsbits_ );
+                int fsmask = ( 1 << fs ) - 1;
+                for ( int j = 0; j < nb; j++ ) {
+                    int v = diffs[ j ];
+                    long top = ( v & 0xffffffffL ) >>> fs;
+                    out.writeZeros( top );
+                    out.writeBits( 1, 1 );
+                    if ( fs > 0 ) {
+                        out.writeBits( v & fsmask, fs );
+                    }
+                }
+            }
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Decompresses a compressed array of values.
+     *
+     * @param  comp  compressed bytes
+     * @param  data  destination array for big-endian value data;
+     *               the number of values decoded is determined by
+     *               its length
+     */
+    public void decompress( byte[] comp, byte[] data ) throws IOException {
+        int nval = data.length / bytepix_;
+        if ( nval == 0 ) {
+            return;
+        }
+        BitReader in = new BitReader( comp );
+        int lastpix = wrap( in.readBits( bbits_ ) );
+        for ( int i = 0; i < nval; ) {
+            int fs = in.readBits( fsbits_ ) - 1;
+            int imax = Math.min( i + NBLOCK, nval );
+
+            /* Low entropy: all values the same as the last one. */
+            if ( fs < 0 ) {
+                for ( ; i < imax; i++ ) {
+                    putValue( data, i, lastpix );
+                }
+            }
+
+            /* High entropy: differences written verbatim. */
+            else if ( fs == fsmax_ ) {
+                for ( ; i < imax; i++ ) {
+                    int diff = in.readBits( bbits_ );
+                    lastpix = wrap( lastpix + unmap( diff ) );
+                    putValue( data, i, lastpix );
+                }
+            }
+
+            /* Normal case: Rice decoding. */
+            else {
+                for ( ; i < imax; i++ ) {
+                    int nzero = in.readZeros();
+                    int bottom = fs > 0 ? in.readBits( fs ) : 0;
+                    int diff = ( nzero << fs ) | bottom;
+                    lastpix = wrap( lastpix + unmap( diff ) );
+                    putValue( data, i, lastpix );
+                }
+            }
+        }
+    }
+
+    /**
+     * Reverses the mapping of signed differences to unsigned integers.
+     *
+     * @param  diff  mapped value
+     * @return  signed difference
+     */
+    private static int unmap( int diff ) {
+        return ( diff & 1 ) == 0 ? diff >>> 1 : ~( diff >>> 1 );
+    }
+
+    /**
+     * Truncates an integer to the word size of this codec,
+     * with sign extension.
+     *
+     * @param  value  value
+     * @return  value as it would be stored in a word
+     */
+    private int wrap( int value ) {
+        switch ( bytepix_ ) {
+            case 1:
+                return (byte) value;
+            case 2:
+                return (short) value;
+            default:
+                return value;
+        }
+    }
+
+    /**
+     * Reads a value from a big-endian byte array.
+     *
+     * @param  data  data array
+     * @param  i   value index
+     * @return   sign-extended value
+     */
+    private int getValue( byte[] data, int i ) {
+        int off = i * bytepix_;
+        switch ( bytepix_ ) {
+            case 1:
+                return data[ off ];
+            case 2:
+                return (short) ( ( data[ off ] << 8 )
+                               | ( data[ off + 1 ] & 0xff ) );
+            default:
+                return ( data[ off ] << 24 )
+                     | ( ( data[ off + 1 ] & 0xff ) << 16 )
+                     | ( ( data[ off + 2 ] & 0xff ) << 8 )
+                     | ( data[ off + 3 ] & 0xff );
+        }
+    }
+
+    /**
+     * Writes a value to a big-endian byte array.
+     *
+     * @param  data  data array
+     * @param  i   value index
+     * @param  value  value to write
+     */
+    private void putValue( byte[] data, int i, int value ) {
+        int off = i * bytepix_;
+        for ( int k = bytepix_ - 1; k >= 0; k-- ) {
+            data[ off + k ] = (byte) value;
+            value >>= 8;
+        }
+    }
+
+    /**
+     * Writes a bit stream to a byte array.
+     */
+    private static class BitWriter {
+        private final ByteArrayOutputStream out_;
+        private long bits_;
+        private int nbits_;
+
+        /**
+         * Constructor.
+         *
+         * @param  size  initial buffer size
+         */
+        BitWriter( int size ) {
+            out_ = new ByteArrayOutputStream( size );
+        }
+
+        /**
+         * Writes the low-order bits of an integer.
+         *
+         * @param  value  value
+         * @param  n   number of bits to write, &lt;=32
+         */
+        void writeBits( int value, int n ) {
+            bits_ = ( bits_ << n ) | ( value & ( ( 1L << n ) - 1 ) );
+            nbits_ += n;
+            while ( nbits_ >= 8 ) {
+                nbits_ -= 8;
+                out_.write( (int) ( bits_ >>> nbits_ ) );
+            }
+            bits_ &= ( 1L << nbits_ ) - 1;
+        }
+
+        /**
+         * Writes a run of zero bits.
+         *
+         * @param  n  number of zero bits
+         */
+        void writeZeros( long n ) {
+            while ( n > 0 ) {
+                int k = (int) Math.min( n, 32 );
+                writeBits( 0, k );
+                n -= k;
+            }
+        }
+
+        /**
+         * Returns the bytes written so far, with any partial final byte
+         * padded with zero bits.
+         *
+         * @return  byte array
+         */
+        byte[] toByteArray() {
+            if ( nbits_ > 0 ) {
+                writeBits( 0, 8 - nbits_ );
+            }
+            return out_.toByteArray();
+        }
+    }
+
+    /**
+     * Reads a bit stream from a byte array.
+     */
+    private static class BitReader {
+        private final byte[] buf_;
+        private int ipos_;
+        private long bits_;
+        private int nbits_;
+
+        /**
+         * Constructor.
+         *
+         * @param  buf  input bytes
+         */
+        BitReader( byte[] buf ) {
+            buf_ = buf;
+        }
+
+        /**
+         * Reads an unsigned integer from the stream.
+         *
+         * @param  n   number of bits, &lt;=32
+         * @return   value
+         */
+        int readBits( int n ) throws EOFException {
+            while ( nbits_ < n ) {
+                fill();
+            }
+            nbits_ -= n;
+            int value = (int) ( bits_ >>> nbits_ );
+            bits_ &= ( 1L << nbits_ ) - 1;
+            return value;
+        }
+
+        /**
+         * Reads a run of zero bits terminated by a one bit.
+         *
+         * @return  number of zero bits preceding the one bit
+         */
+        int readZeros() throws EOFException {
+            int nzero = 0;
+            while ( true ) {
+                if ( bits_ == 0 ) {
+                    nzero += nbits_;
+                    nbits_ = 0;
+                    fill();
+                }
+                else {
+                    int ihi = 63 - Long.numberOfLeadingZeros( bits_ );
+                    nzero += nbits_ - 1 - ihi;
+                    nbits_ = ihi;
+                    bits_ &= ( 1L << ihi ) - 1;
+                    return nzero;
+                }
+            }
+        }
+
+        /**
+         * Adds the next byte of input to the bit buffer.
+         */
+        private void fill() throws EOFException {
+            if ( ipos_ >= buf_.length ) {
+                throw new EOFException( "Rice-coded data truncated" );
+            }
+            bits_ = ( bits_ << 8 ) | ( buf_[ ipos_++ ] & 0xff );
+            nbits_ += 8;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package uk.ac.starlink.fits;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Buffered output stream writing to a local file,
+ * which allows random access to the file as well as sequential output.
+ * Writers can use this to overwrite previously written bytes,
+ * or to write regions of the file out of sequence.
+ *
+ * @author   Mark Taylor
+ * @since    17 Oct 2026
+ */
+class SeekableOutputStream extends BufferedOutputStream {
+
+    private final FileChannel chan_;
+
+    /**
+     * Constructor.
+     *
+     * @param  out  file output stream
+     */
+    SeekableOutputStream( FileOutputStream out ) {
+        super( out );
+        chan_ = out.getChannel();
+    }
+
+    /**
+     * Returns the file channel underlying this stream.
+     * Positional writes to the channel may be used to write parts of
+     * the file other than the current output position.
+     *
+     * @return  file channel
+     */
+    FileChannel getChannel() {
+        return chan_;
+    }
+
+    /**
+     * Returns the file offset at which the next byte will be written.
+     *
+     * @return  current output position
+     */
+    long getPosition() throws IOException {
+        flush();
+        return chan_.position();
+    }
+
+    /**
+     * Sets the file offset at which the next byte will be written.
+     *
+     * @param  pos  new output position
+     */
+    void setPosition( long pos ) throws IOException {
+        flush();
+        chan_.position( pos );
+    }
+
+    /**
+     * Overwrites bytes previously written to the file.
+     * The current output position is not affected.
+     *
+     * @param  buf  bytes to write
+     * @param  pos  file offset at which to write them
+     */
+    void overwrite( byte[] buf, long pos ) throws IOException {
+        flush();
+        ByteBuffer bbuf = ByteBuffer.wrap( buf );
+        while ( bbuf.hasRemaining() ) {
+            pos += chan_.write( bbuf, pos );
+        }
+    }
+}
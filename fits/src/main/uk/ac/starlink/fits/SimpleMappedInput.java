@@ -127,6 +127,11 @@ public class SimpleMappedInput implements BasicInput {
     /**
      * This does not close the BufManager.
      */
+    @Override
+    public ByteBuffer getCurrentBuffer() {
+        return niobuf_.duplicate();
+    }
+
     public void close() {
         if ( niobuf_ != null ) {
             bufManager_.disposeBuffer( niobuf_ );
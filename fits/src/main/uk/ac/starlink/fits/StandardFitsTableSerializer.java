@@ -2,22 +2,35 @@ package uk.ac.starlink.fits;
 
 import java.io.DataOutput;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.lang.reflect.Array;
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import uk.ac.starlink.table.ColumnInfo;
 import uk.ac.starlink.table.CountCheckRowSequence;
 import uk.ac.starlink.table.DescribedValue;
 import uk.ac.starlink.table.HealpixTableInfo;
+import uk.ac.starlink.table.RowAccess;
 import uk.ac.starlink.table.RowSequence;
 import uk.ac.starlink.table.StarTable;
 import uk.ac.starlink.table.TableFormatException;
 import uk.ac.starlink.table.Tables;
+import uk.ac.starlink.util.SplitPolicy;
 
 /**
  * Class which knows how to do the various bits of serializing a StarTable
@@ -45,6 +58,10 @@ public class StandardFitsTableSerializer implements FitsTableSerializer {
     private ColumnWriter[] colWriters_;
     private ColumnInfo[] colInfos_;
     private long rowCount_;
+    private Supplier<ColumnWriter[]> writerFactory_;
+
+    /** Approximate number of bytes of row data encoded by each task. */
+    private static final int BLOCK_BYTES = 1024 * 1024;
 
     /**
      * Package-private constructor intended for use by subclasses.
@@ -301,27 +318,33 @@ public class StandardFitsTableSerializer implements FitsTableSerializer {
          * write values to the stream.  For columns which can't be 
          * written in FITS format store a null in the writers array
          * and log a message. */
-        colWriters_ = new ColumnWriter[ ncol ];
-        int rbytes = 0;
+        writerFactory_ = () -> {
+            ColumnWriter[] writers = new ColumnWriter[ ncol ];
+            for ( int icol = 0; icol < ncol; icol++ ) {
+                if ( useCols[ icol ] ) {
+                    writers[ icol ] =
+                        createColumnWriter( colInfos_[ icol ], shapes[ icol ],
+                                            varShapes[ icol ], maxChars[ icol ],
+                                            maxElements[ icol ],
+                                            totalElements[ icol ],
+                                            mayHaveNullableInts[ icol ]
+                                            && hasNulls[ icol ] );
+                }
+            }
+            return writers;
+        };
+        colWriters_ = writerFactory_.get();
         int nUseCol = 0;
         for ( int icol = 0; icol < ncol; icol++ ) {
             if ( useCols[ icol ] ) {
-                ColumnInfo cinfo = colInfos_[ icol ];
-                ColumnWriter writer =
-                    createColumnWriter( cinfo, shapes[ icol ],
-                                        varShapes[ icol ], maxChars[ icol ],
-                                        maxElements[ icol ],
-                                        totalElements[ icol ],
-                                        mayHaveNullableInts[ icol ] 
-                                        && hasNulls[ icol ] );
-                if ( writer == null ) {
-                    logger.warning( "Ignoring column " + cinfo.getName() +
-                                    " - don't know how to write to FITS" );
+                if ( colWriters_[ icol ] == null ) {
+                    logger.warning( "Ignoring column "
+                                  + colInfos_[ icol ].getName()
+                                  + " - don't know how to write to FITS" );
                 }
                 else {
                     nUseCol++;
                 }
-                colWriters_[ icol ] = writer;
             }
         }
 
@@ -340,6 +363,18 @@ public class StandardFitsTableSerializer implements FitsTableSerializer {
         return colWriters_;
     }
 
+    /**
+     * Returns a new array of column writers equivalent to those
+     * returned by {@link #getColumnWriters}.
+     * Column writers are not in general thread-safe, so this may be
+     * used to acquire writers for use in a different thread.
+     *
+     * @return  new column writer array
+     */
+    ColumnWriter[] createColumnWriters() {
+        return writerFactory_.get();
+    }
+
     public CardImage[] getHeader() {
 
         /* Work out the dimensions in columns and bytes of the table. */
@@ -564,6 +599,23 @@ public class StandardFitsTableSerializer implements FitsTableSerializer {
             }
         }
 
+        /* If configured to do so, encode the rows in parallel.
+         * Block size takes account of the largest amount of data
+         * that each row may add to any per-block heap, so that the
+         * memory held by blocks in progress is bounded. */
+        int nthread = config_.getWriteThreadCount();
+        long blockRows =
+            Math.max( 1, BLOCK_BYTES / Math.max( 1, rowBytes
+                                                  + getMaxRowHeapBytes() ) );
+        if ( nthread != 1 && rowCount_ > blockRows ) {
+            ForkJoinPool pool = SplitPolicy.DFLT_POLICY.getForkJoinPool();
+            int npar = nthread > 1 ? nthread : pool.getParallelism();
+            if ( npar > 1 ) {
+                return writeDataParallel( strm, rowBytes, (int) blockRows,
+                                          pool, 2 * npar );
+            }
+        }
+
         /* Write the data cells, delegating the item in each column to
          * the writer that knows how to handle it. */
         long nWritten = 0L;
@@ -589,6 +641,197 @@ public class StandardFitsTableSerializer implements FitsTableSerializer {
         return nWritten;
     }
 
+    /**
+     * Writes the table data content without trailing padding,
+     * encoding blocks of rows concurrently.
+     * Blocks are encoded into buffers by tasks running in the
+     * supplied pool, and written in sequence by the calling thread,
+     * so the output is identical to that written by the sequential
+     * implementation.
+     * If the table is random access, the encoding tasks read their
+     * own rows; otherwise rows are read sequentially by the calling
+     * thread and handed to the tasks.
+     *
+     * @param  strm  destination stream
+     * @param  rowBytes  number of bytes per row
+     * @param  blockRows  maximum number of rows per encoded block
+     * @param  pool   thread pool for encoding tasks
+     * @param  nahead  maximum number of blocks submitted but not yet
+     *                 written at any one time
+     * @return   number of bytes written
+     */
+    private long writeDataParallel( DataOutput strm, int rowBytes,
+                                    int blockRows, ForkJoinPool pool,
+                                    int nahead )
+            throws IOException {
+        int ncol = table_.getColumnCount();
+        boolean isRandom = table_.isRandom()
+                        && table_.getRowCount() == rowCount_;
+        Queue<BlockEncoder> encoders = new ConcurrentLinkedQueue<>();
+        Queue<EncodedBlock> freeBlocks = new ConcurrentLinkedQueue<>();
+        List<BlockEncoder> allEncoders =
+            Collections.synchronizedList( new ArrayList<BlockEncoder>() );
+        Deque<Future<EncodedBlock>> queue = new ArrayDeque<>( nahead );
+        RowSequence rseq = isRandom
+                         ? null
+                         : CountCheckRowSequence
+                          .getSafeRowSequence( table_.getRowSequence(), ncol,
+                                               rowCount_ );
+        long nWritten = 0L;
+        try {
+            for ( long irow0 = 0; irow0 < rowCount_; irow0 += blockRows ) {
+
+                /* Acquire the input rows for the next block, if they have
+                 * to be read sequentially. */
+                int nr = (int) Math.min( blockRows, rowCount_ - irow0 );
+                final Object[][] rows;
+                if ( isRandom ) {
+                    rows = null;
+                }
+                else {
+                    rows = new Object[ nr ][];
+                    for ( int ir = 0; ir < nr; ir++ ) {
+                        rseq.next();
+                        rows[ ir ] = rseq.getRow().clone();
+                    }
+                }
+
+                /* Submit a task to encode the block. */
+                long irow = irow0;
+                queue.add( pool.submit( () -> {
+                    BlockEncoder encoder = encoders.poll();
+                    if ( encoder == null ) {
+                        encoder = createBlockEncoder();
+                        allEncoders.add( encoder );
+                    }
+                    EncodedBlock block = freeBlocks.poll();
+                    if ( block == null ) {
+                        block = new EncodedBlock( rowBytes * blockRows );
+                    }
+                    try {
+                        if ( rows == null ) {
+                            encoder.encodeRows( block, irow, nr );
+                        }
+                        else {
+                            encoder.encodeRows( block, rows );
+                        }
+                    }
+                    finally {
+                        encoders.add( encoder );
+                    }
+                    return block;
+                } ) );
+
+                /* Write any blocks that have to be waited for. */
+                while ( queue.size() >= nahead ) {
+                    EncodedBlock block = getBlock( queue.removeFirst() );
+                    nWritten += writeBlock( strm, block );
+                    freeBlocks.add( block );
+                }
+            }
+
+            /* Write remaining blocks. */
+            while ( ! queue.isEmpty() ) {
+                EncodedBlock block = getBlock( queue.removeFirst() );
+                nWritten += writeBlock( strm, block );
+                freeBlocks.add( block );
+            }
+        }
+        finally {
+
+            /* Make sure no tasks are still using the encoders
+             * before closing them. */
+            for ( Future<EncodedBlock> future : queue ) {
+                try {
+                    future.get();
+                }
+                catch ( Exception e ) {
+                    // failure already reported or irrelevant
+                }
+            }
+            if ( rseq != null ) {
+                rseq.close();
+            }
+            for ( BlockEncoder encoder : allEncoders ) {
+                encoder.close();
+            }
+        }
+        return nWritten;
+    }
+
+    /**
+     * Writes an encoded block of row data to the output stream.
+     * This is called from the output thread, in row sequence.
+     * Subclasses may override this to adjust the block content
+     * before it is written.
+     *
+     * @param  strm  destination stream
+     * @param  block  encoded row data
+     * @return  number of bytes written
+     */
+    long writeBlock( DataOutput strm, EncodedBlock block ) throws IOException {
+        ByteBuffer buf = block.getBuffer();
+        strm.write( buf.array(), 0, buf.position() );
+        return buf.position();
+    }
+
+    /**
+     * Returns the maximum number of bytes that encoding a single row
+     * may write to storage outside of the fixed-length row data,
+     * for instance to a heap.
+     * This is used to limit the size of blocks encoded in parallel.
+     * The default implementation returns zero.
+     *
+     * @return  maximum additional bytes per row
+     */
+    long getMaxRowHeapBytes() {
+        return 0;
+    }
+
+    /**
+     * Returns a new object that can encode blocks of rows
+     * from this serializer's table.
+     * This may be called from any thread.
+     *
+     * @return   new encoder
+     */
+    BlockEncoder createBlockEncoder() {
+        return new BlockEncoder( createColumnWriters() );
+    }
+
+    /**
+     * Waits for the result of a block encoding task.
+     *
+     * @param  future  future result
+     * @return  encoded block
+     */
+    private static EncodedBlock getBlock( Future<EncodedBlock> future )
+            throws IOException {
+        try {
+            return future.get();
+        }
+        catch ( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            throw (IOException)
+                  new InterruptedIOException( "Interrupted" ).initCause( e );
+        }
+        catch ( ExecutionException e ) {
+            Throwable err = e.getCause();
+            if ( err instanceof IOException ) {
+                throw (IOException) err;
+            }
+            else if ( err instanceof RuntimeException ) {
+                throw (RuntimeException) err;
+            }
+            else if ( err instanceof Error ) {
+                throw (Error) err;
+            }
+            else {
+                throw new IOException( err );
+            }
+        }
+    }
+
     public char getFormatChar( int icol ) {
         if ( colWriters_[ icol ] == null ) {
             return (char) 0;
@@ -943,4 +1186,163 @@ public class StandardFitsTableSerializer implements FitsTableSerializer {
             return null;
         }
     }
+
+    /**
+     * Holds the serialized form of a contiguous block of table rows.
+     */
+    static class EncodedBlock {
+
+        private final ByteBuffer buf_;
+        private final DataOutput out_;
+        private byte[] heap_;
+
+        /**
+         * Constructor.
+         *
+         * @param  size   buffer capacity in bytes
+         */
+        EncodedBlock( int size ) {
+            buf_ = ByteBuffer.allocate( size );
+            out_ = new ByteBufferDataOutput( buf_ );
+        }
+
+        /**
+         * Returns the buffer containing encoded row data.
+         * The encoded bytes run from the start of the buffer to its
+         * current position.
+         *
+         * @return  row data buffer
+         */
+        ByteBuffer getBuffer() {
+            return buf_;
+        }
+
+        /**
+         * Sets the auxiliary data associated with this block.
+         *
+         * @param  heap  heap data, or null
+         */
+        void setHeap( byte[] heap ) {
+            heap_ = heap;
+        }
+
+        /**
+         * Returns the auxiliary data associated with this block.
+         *
+         * @return  heap data, or null
+         */
+        byte[] getHeap() {
+            return heap_;
+        }
+    }
+
+    /**
+     * Encodes blocks of rows using a private set of column writers.
+     * Instances are not thread-safe, but may be used by different
+     * threads in turn.
+     */
+    class BlockEncoder {
+
+        private final ColumnWriter[] writers_;
+        private RowAccess racc_;
+
+        /**
+         * Constructor.
+         *
+         * @param  writers  column writers for exclusive use of this encoder
+         */
+        BlockEncoder( ColumnWriter[] writers ) {
+            writers_ = writers;
+        }
+
+        /**
+         * Returns the column writers used by this encoder.
+         *
+         * @return  column writer array
+         */
+        ColumnWriter[] getColumnWriters() {
+            return writers_;
+        }
+
+        /**
+         * Encodes a block of rows read from the table by random access.
+         *
+         * @param  block  destination block
+         * @param  irow0  index of first row
+         * @param  nrow   number of rows
+         */
+        void encodeRows( EncodedBlock block, long irow0, int nrow )
+                throws IOException {
+            if ( racc_ == null ) {
+                racc_ = table_.getRowAccess();
+            }
+            startBlock( block );
+            for ( int ir = 0; ir < nrow; ir++ ) {
+                racc_.setRowIndex( irow0 + ir );
+                encodeRow( block.out_, racc_.getRow() );
+            }
+            endBlock( block );
+        }
+
+        /**
+         * Encodes a block of rows that have already been read.
+         *
+         * @param  block  destination block
+         * @param  rows   row data
+         */
+        void encodeRows( EncodedBlock block, Object[][] rows )
+                throws IOException {
+            startBlock( block );
+            for ( Object[] row : rows ) {
+                encodeRow( block.out_, row );
+            }
+            endBlock( block );
+        }
+
+        /**
+         * Called before any rows are encoded to a block.
+         * The default implementation clears the block.
+         *
+         * @param  block  block about to be written
+         */
+        void startBlock( EncodedBlock block ) {
+            block.buf_.clear();
+            block.heap_ = null;
+        }
+
+        /**
+         * Called after all rows have been encoded to a block.
+         * The default implementation does nothing.
+         *
+         * @param  block  block just written
+         */
+        void endBlock( EncodedBlock block ) throws IOException {
+        }
+
+        /**
+         * Releases resources held by this encoder.
+         */
+        void close() throws IOException {
+            if ( racc_ != null ) {
+                racc_.close();
+                racc_ = null;
+            }
+        }
+
+        /**
+         * Writes a single row.
+         *
+         * @param  out  destination
+         * @param  row  row data
+         */
+        private void encodeRow( DataOutput out, Object[] row )
+                throws IOException {
+            for ( int icol = 0; icol < writers_.length; icol++ ) {
+                ColumnWriter writer = writers_[ icol ];
+                if ( writer != null ) {
+                    writer.writeValue( out, row[ icol ] );
+                }
+            }
+        }
+    }
 }
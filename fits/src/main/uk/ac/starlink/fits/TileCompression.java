@@ -0,0 +1,272 @@
+package uk.ac.starlink.fits;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Compression algorithm for a column of a tile-compressed FITS binary table,
+ * as identified by the ZCTYPn header.
+ *
+ * <p>The data for a column within a tile is the concatenation of the
+ * cell values for all the rows in the tile.
+ * Implementations may make use of the size of the primitive elements
+ * from which the cells are composed.
+ *
+ * @author   Mark Taylor
+ * @since    17 Oct 2026
+ * @see  <a href="https://fits.gsfc.nasa.gov/registry/tiletablecompression.html"
+ *          >Tiled Table Compression Convention</a>
+ */
+abstract class TileCompression {
+
+    private final String name_;
+
+    /** Gzip compression of the raw bytes. */
+    public static final TileCompression GZIP_1 =
+            new TileCompression( "GZIP_1" ) {
+        public byte[] compress( byte[] data, int elSize ) throws IOException {
+            return gzip( data );
+        }
+        public void decompress( byte[] comp, int elSize, byte[] data )
+                throws IOException {
+            gunzip( comp, data );
+        }
+    };
+
+    /** Gzip compression of the bytes shuffled by significance. */
+    public static final TileCompression GZIP_2 =
+            new TileCompression( "GZIP_2" ) {
+        public byte[] compress( byte[] data, int elSize ) throws IOException {
+            return gzip( elSize > 1 ? shuffle( data, elSize ) : data );
+        }
+        public void decompress( byte[] comp, int elSize, byte[] data )
+                throws IOException {
+            if ( elSize > 1 ) {
+                byte[] shuffled = new byte[ data.length ];
+                gunzip( comp, shuffled );
+                unshuffle( shuffled, elSize, data );
+            }
+            else {
+                gunzip( comp, data );
+            }
+        }
+    };
+
+    /** Rice compression of 1-, 2- or 4-byte integers. */
+    public static final TileCompression RICE_1 =
+            new TileCompression( "RICE_1" ) {
+        public byte[] compress( byte[] data, int elSize ) {
+            return new RiceCodec( elSize ).compress( data );
+        }
+        public void decompress( byte[] comp, int elSize, byte[] data )
+                throws IOException {
+            new RiceCodec( elSize ).decompress( comp, data );
+        }
+    };
+
+    /** No compression. */
+    public static final TileCompression NOCOMPRESS =
+            new TileCompression( "NOCOMPRESS" ) {
+        public byte[] compress( byte[] data, int elSize ) {
+            return data.clone();
+        }
+        public void decompress( byte[] comp, int elSize, byte[] data )
+                throws EOFException {
+            if ( comp.length < data.length ) {
+                throw new EOFException( "Tile data truncated" );
+            }
+            System.arraycopy( comp, 0, data, 0, data.length );
+        }
+    };
+
+    private static final TileCompression[] KNOWN_COMPRESSIONS = {
+        GZIP_1, GZIP_2, RICE_1, NOCOMPRESS,
+    };
+
+    /**
+     * Constructor.
+     *
+     * @param  name  ZCTYPn value
+     */
+    private TileCompression( String name ) {
+        name_ = name;
+    }
+
+    /**
+     * Returns the name of this algorithm, as used for the ZCTYPn value.
+     *
+     * @return  name
+     */
+    public String getName() {
+        return name_;
+    }
+
+    /**
+     * Compresses a column of tile data.
+     *
+     * @param  data  uncompressed data
+     * @param  elSize  size in bytes of the primitive elements in the data
+     * @return   compressed data
+     */
+    public abstract byte[] compress( byte[] data, int elSize )
+            throws IOException;
+
+    /**
+     * Decompresses a column of tile data.
+     *
+     * @param  comp  compressed data
+     * @param  elSize  size in bytes of the primitive elements in the data
+     * @param  data  destination array, filled on exit
+     */
+    public abstract void decompress( byte[] comp, int elSize, byte[] data )
+            throws IOException;
+
+    @Override
+    public String toString() {
+        return name_;
+    }
+
+    /**
+     * Returns the algorithm with a given name.
+     *
+     * @param  name  ZCTYPn value
+     * @return  compression algorithm, or null if not known
+     */
+    public static TileCompression getCompression( String name ) {
+        for ( TileCompression comp : KNOWN_COMPRESSIONS ) {
+            if ( comp.name_.equalsIgnoreCase( name.trim() ) ) {
+                return comp;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the default compression algorithm for a column with a given
+     * TFORM data type.  Rice is used for short integer types,
+     * plain gzip for single-byte types, and byte-shuffled gzip otherwise.
+     *
+     * @param  formatChar  TFORM data type character
+     * @return   compression algorithm
+     */
+    public static TileCompression getDefaultCompression( char formatChar ) {
+        switch ( formatChar ) {
+            case 'B':
+            case 'I':
+            case 'J':
+                return RICE_1;
+            case 'L':
+            case 'X':
+            case 'A':
+                return GZIP_1;
+            default:
+                return GZIP_2;
+        }
+    }
+
+    /**
+     * Returns the size of the primitive elements for a given TFORM
+     * data type.  This is the unit by which bytes are shuffled or
+     * integers are Rice-coded.
+     *
+     * @param  formatChar  TFORM data type character
+     * @return   element size in bytes
+     */
+    public static int getElementSize( char formatChar ) {
+        switch ( formatChar ) {
+            case 'I':
+                return 2;
+            case 'J':
+            case 'E':
+            case 'C':
+                return 4;
+            case 'K':
+            case 'D':
+            case 'M':
+                return 8;
+            default:
+                return 1;
+        }
+    }
+
+    /**
+     * Gzips a byte array.
+     *
+     * @param  data  input
+     * @return  compressed output
+     */
+    private static byte[] gzip( byte[] data ) throws IOException {
+        ByteArrayOutputStream bout =
+            new ByteArrayOutputStream( data.length / 4 + 64 );
+        try ( GZIPOutputStream zout = new GZIPOutputStream( bout ) ) {
+            zout.write( data );
+        }
+        return bout.toByteArray();
+    }
+
+    /**
+     * Decompresses gzipped (or zlib) data into a given array.
+     *
+     * @param  comp  compressed data
+     * @param  data  destination array, filled on exit
+     */
+    private static void gunzip( byte[] comp, byte[] data ) throws IOException {
+        InputStream bin = new ByteArrayInputStream( comp );
+        boolean isGzip = comp.length > 1
+                      && ( comp[ 0 ] & 0xff ) == 0x1f
+                      && ( comp[ 1 ] & 0xff ) == 0x8b;
+        try ( InputStream zin = isGzip ? new GZIPInputStream( bin )
+                                       : new InflaterInputStream( bin ) ) {
+            for ( int off = 0; off < data.length; ) {
+                int n = zin.read( data, off, data.length - off );
+                if ( n < 0 ) {
+                    throw new EOFException( "Tile data truncated" );
+                }
+                off += n;
+            }
+        }
+    }
+
+    /**
+     * Rearranges bytes so that all the most significant bytes of the
+     * elements come first, followed by all the next most significant, etc.
+     *
+     * @param  data  input data
+     * @param  elSize  element size in bytes
+     * @return  shuffled data
+     */
+    private static byte[] shuffle( byte[] data, int elSize ) {
+        int nel = data.length / elSize;
+        byte[] out = new byte[ data.length ];
+        for ( int k = 0; k < elSize; k++ ) {
+            int koff = k * nel;
+            for ( int j = 0; j < nel; j++ ) {
+                out[ koff + j ] = data[ j * elSize + k ];
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Reverses the effect of {@link #shuffle}.
+     *
+     * @param  shuffled  shuffled data
+     * @param  elSize  element size in bytes
+     * @param  data   destination array, filled on exit
+     */
+    private static void unshuffle( byte[] shuffled, int elSize, byte[] data ) {
+        int nel = data.length / elSize;
+        for ( int k = 0; k < elSize; k++ ) {
+            int koff = k * nel;
+            for ( int j = 0; j < nel; j++ ) {
+                data[ j * elSize + k ] = shuffled[ koff + j ];
+            }
+        }
+    }
+}
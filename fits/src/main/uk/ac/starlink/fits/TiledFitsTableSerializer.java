@@ -0,0 +1,369 @@
+package uk.ac.starlink.fits;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+import uk.ac.starlink.table.ByteStore;
+import uk.ac.starlink.table.StoragePolicy;
+import uk.ac.starlink.util.DataBufferedOutputStream;
+
+/**
+ * FitsTableSerializer which writes a table using the FITS
+ * Tiled Table Compression convention (ZTABLE).
+ * The table is divided into tiles of a fixed number of rows,
+ * and the data for each column within each tile is compressed
+ * separately and stored in the heap of a binary table with one row
+ * per tile.
+ *
+ * <p>The row data is encoded by a {@link StandardFitsTableSerializer},
+ * and compressed into temporary storage at construction time,
+ * since the compressed size must be known before the header is written.
+ * Column compression algorithms are chosen according to data type:
+ * RICE_1 for B, I and J columns, GZIP_1 for other single-byte types,
+ * and GZIP_2 for the rest.
+ *
+ * @author   Mark Taylor
+ * @since    17 Oct 2026
+ * @see  <a href="https://fits.gsfc.nasa.gov/registry/tiletablecompression.html"
+ *          >Tiled Table Compression Convention</a>
+ */
+public class TiledFitsTableSerializer implements FitsTableSerializer {
+
+    private final StandardFitsTableSerializer base_;
+    private final int tileLeng_;
+    private final StoragePolicy storagePolicy_;
+    private final ColumnWriter[] colWriters_;
+    private final int rowLeng_;
+    private final TileCompression[] comps_;
+    private final int[] elSizes_;
+    private ByteStore heapStore_;
+    private long[] cellLengs_;
+    private long[] cellOffsets_;
+    private long heapSize_;
+    private long maxCellLeng_;
+
+    private static final Logger logger_ =
+        Logger.getLogger( "uk.ac.starlink.fits" );
+
+    /**
+     * Constructor.
+     *
+     * @param  base   serializer for the uncompressed table
+     * @param  tileLeng  number of rows per tile
+     * @param  storagePolicy  policy for temporary storage of
+     *                        compressed data
+     * @throws IOException if it won't be possible to write the given table
+     */
+    public TiledFitsTableSerializer( StandardFitsTableSerializer base,
+                                     int tileLeng,
+                                     StoragePolicy storagePolicy )
+            throws IOException {
+        if ( tileLeng <= 0 ) {
+            throw new IllegalArgumentException( "Bad tile length "
+                                              + tileLeng );
+        }
+        base_ = base;
+        tileLeng_ = tileLeng;
+        storagePolicy_ = storagePolicy;
+        List<ColumnWriter> writers = new ArrayList<>();
+        for ( ColumnWriter writer : base.getColumnWriters() ) {
+            if ( writer != null ) {
+                writers.add( writer );
+            }
+        }
+        colWriters_ = writers.toArray( new ColumnWriter[ 0 ] );
+        int ncol = colWriters_.length;
+        if ( ncol > FitsUtil.MAX_NCOLSTD ) {
+            throw new IOException( "Too many columns for tile compression ("
+                                 + ncol + " > " + FitsUtil.MAX_NCOLSTD + ")" );
+        }
+        comps_ = new TileCompression[ ncol ];
+        elSizes_ = new int[ ncol ];
+        long rowLeng = 0;
+        for ( int ic = 0; ic < ncol; ic++ ) {
+            char formatChar = getTformChar( colWriters_[ ic ] );
+            comps_[ ic ] = TileCompression.getDefaultCompression( formatChar );
+            elSizes_[ ic ] = TileCompression.getElementSize( formatChar );
+            rowLeng += colWriters_[ ic ].getLength();
+        }
+        if ( rowLeng * tileLeng > Integer.MAX_VALUE ) {
+            throw new IOException( "Tile too large (" + tileLeng + " * "
+                                 + rowLeng + " bytes)" );
+        }
+        rowLeng_ = (int) rowLeng;
+        compress();
+    }
+
+    public CardImage[] getHeader() {
+        boolean useQ = useQ();
+        long ntile = getTileCount();
+        CardFactory cfact = CardFactory.DEFAULT;
+        List<CardImage> cards = new ArrayList<>();
+        for ( CardImage card : base_.getHeader() ) {
+            ParsedCard<?> pcard = FitsUtil.parseCard( card.getBytes() );
+            String key = pcard == null ? null : pcard.getKey();
+            if ( "NAXIS1".equals( key ) ) {
+                cards.add( cfact.createIntegerCard( "NAXIS1",
+                                                    colWriters_.length
+                                                    * ( useQ ? 16 : 8 ),
+                                                    "width of table in bytes"));
+            }
+            else if ( "NAXIS2".equals( key ) ) {
+                cards.add( cfact.createIntegerCard( "NAXIS2", ntile,
+                                                    "number of tiles" ) );
+            }
+            else if ( "PCOUNT".equals( key ) ) {
+                cards.add( cfact.createIntegerCard( "PCOUNT", heapSize_,
+                                                    "heap size (no gap)" ) );
+            }
+            else if ( "TFIELDS".equals( key ) ) {
+                cards.add( card );
+                cards.add( cfact.createLogicalCard( "ZTABLE", true,
+                                                    "tile-compressed table" ) );
+                cards.add( cfact.createIntegerCard( "ZTILELEN", tileLeng_,
+                                                    "rows per tile" ) );
+                cards.add( cfact.createIntegerCard( "ZNAXIS1", rowLeng_,
+                                                    "uncompressed row width" ));
+                cards.add( cfact.createIntegerCard( "ZNAXIS2",
+                                                    base_.getRowCount(),
+                                                    "uncompressed row count" ));
+                cards.add( cfact.createIntegerCard( "ZPCOUNT", 0,
+                                                    "uncompressed heap size" ));
+            }
+            else if ( key != null && key.startsWith( "TFORM" ) &&
+                      pcard.getValue() instanceof String ) {
+                String jcol = key.substring( 5 );
+                int icol = Integer.parseInt( jcol ) - 1;
+                String tform = ( useQ ? "1QB(" : "1PB(" ) + maxCellLeng_ + ")";
+                cards.add( cfact.createStringCard( key, tform,
+                                                   "compressed data" ) );
+                cards.add( cfact.createStringCard( "ZFORM" + jcol,
+                                                   (String) pcard.getValue(),
+                                                   pcard.getComment() ) );
+                cards.add( cfact.createStringCard( "ZCTYP" + jcol,
+                                                   comps_[ icol ].getName(),
+                                                   "compression algorithm" ) );
+            }
+            else {
+                cards.add( card );
+            }
+        }
+        return cards.toArray( new CardImage[ 0 ] );
+    }
+
+    public void writeData( DataOutput out ) throws IOException {
+        long nWritten;
+        try {
+            nWritten = writeContent( out );
+        }
+        finally {
+            heapStore_.close();
+            heapStore_ = null;
+        }
+
+        /* Pad to the end of the block. */
+        int over = (int) ( nWritten % 2880 );
+        if ( over > 0 ) {
+            out.write( new byte[ 2880 - over ] );
+        }
+    }
+
+    /**
+     * Calculates the checksum from the stored heap,
+     * which is retained for a subsequent call to {@link #writeData}.
+     */
+    @Override
+    public long getDataChecksum() throws IOException {
+        ChecksumOutputStream cout = new ChecksumOutputStream( null );
+        DataBufferedOutputStream dout = new DataBufferedOutputStream( cout );
+        writeContent( dout );
+        dout.flush();
+        return cout.getChecksum();
+    }
+
+    /**
+     * Writes the descriptor table and heap without trailing padding.
+     *
+     * @param  out  destination stream
+     * @return  number of bytes written
+     */
+    private long writeContent( DataOutput out ) throws IOException {
+        boolean useQ = useQ();
+        long nWritten = 0;
+
+        /* Write the table of heap descriptors, one row per tile. */
+        for ( int ic = 0; ic < cellLengs_.length; ic++ ) {
+            if ( useQ ) {
+                out.writeLong( cellLengs_[ ic ] );
+                out.writeLong( cellOffsets_[ ic ] );
+                nWritten += 16;
+            }
+            else {
+                out.writeInt( (int) cellLengs_[ ic ] );
+                out.writeInt( (int) cellOffsets_[ ic ] );
+                nWritten += 8;
+            }
+        }
+
+        /* Write the heap. */
+        heapStore_.copy( VariableFitsTableSerializer.toStream( out ) );
+        nWritten += heapSize_;
+        return nWritten;
+    }
+
+    public long getRowCount() {
+        return base_.getRowCount();
+    }
+
+    public int[] getDimensions( int icol ) {
+        return base_.getDimensions( icol );
+    }
+
+    public char getFormatChar( int icol ) {
+        return base_.getFormatChar( icol );
+    }
+
+    public String getBadValue( int icol ) {
+        return base_.getBadValue( icol );
+    }
+
+    /**
+     * Returns the number of tiles.
+     *
+     * @return  tile count
+     */
+    private long getTileCount() {
+        return ( base_.getRowCount() + tileLeng_ - 1 ) / tileLeng_;
+    }
+
+    /**
+     * Indicates whether 64-bit heap descriptors are required.
+     *
+     * @return  true for Q descriptors, false for P
+     */
+    private boolean useQ() {
+        return heapSize_ > Integer.MAX_VALUE
+            || maxCellLeng_ > Integer.MAX_VALUE;
+    }
+
+    /**
+     * Encodes and compresses the table data into temporary storage.
+     */
+    private void compress() throws IOException {
+        long ntile = getTileCount();
+        int ncol = colWriters_.length;
+        if ( ntile * ncol > Integer.MAX_VALUE ) {
+            throw new IOException( "Too many tiles" );
+        }
+        cellLengs_ = new long[ (int) ntile * ncol ];
+        cellOffsets_ = new long[ (int) ntile * ncol ];
+        heapStore_ = storagePolicy_.makeByteStore();
+        TileOutputStream tileOut =
+            new TileOutputStream( heapStore_.getOutputStream() );
+        DataBufferedOutputStream dout = new DataBufferedOutputStream( tileOut );
+        base_.writeDataOnly( dout );
+        dout.flush();
+        tileOut.close();
+        logger_.info( "Compressed " + ntile + " tiles to "
+                    + heapSize_ + " bytes" );
+    }
+
+    /**
+     * Returns the TFORM data type character for the data written by a
+     * column writer.
+     *
+     * @param  writer  column writer
+     * @return  TFORM character
+     */
+    private static char getTformChar( ColumnWriter writer ) {
+        String format = writer.getFormat();
+        for ( int i = 0; i < format.length(); i++ ) {
+            char c = format.charAt( i );
+            if ( ! Character.isDigit( c ) ) {
+                return c;
+            }
+        }
+        return writer.getFormatChar();
+    }
+
+    /**
+     * OutputStream which accepts uncompressed row data,
+     * and writes compressed column data for each tile to the heap.
+     */
+    private class TileOutputStream extends OutputStream {
+
+        private final OutputStream heapOut_;
+        private final byte[] tileBuf_;
+        private int ipos_;
+        private int itile_;
+
+        /**
+         * Constructor.
+         *
+         * @param  heapOut  destination stream for compressed heap data
+         */
+        TileOutputStream( OutputStream heapOut ) {
+            heapOut_ = heapOut;
+            tileBuf_ = new byte[ tileLeng_ * rowLeng_ ];
+        }
+
+        public void write( int b ) throws IOException {
+            tileBuf_[ ipos_++ ] = (byte) b;
+            if ( ipos_ == tileBuf_.length ) {
+                writeTile();
+            }
+        }
+
+        @Override
+        public void write( byte[] b, int off, int len ) throws IOException {
+            while ( len > 0 ) {
+                int n = Math.min( len, tileBuf_.length - ipos_ );
+                System.arraycopy( b, off, tileBuf_, ipos_, n );
+                ipos_ += n;
+                off += n;
+                len -= n;
+                if ( ipos_ == tileBuf_.length ) {
+                    writeTile();
+                }
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if ( ipos_ > 0 ) {
+                writeTile();
+            }
+            heapOut_.close();
+        }
+
+        /**
+         * Compresses the currently buffered rows as a tile.
+         */
+        private void writeTile() throws IOException {
+            int nr = rowLeng_ == 0 ? 0 : ipos_ / rowLeng_;
+            int ncol = colWriters_.length;
+            int coff = 0;
+            for ( int ic = 0; ic < ncol; ic++ ) {
+                int colLeng = colWriters_[ ic ].getLength();
+                byte[] coldata = new byte[ nr * colLeng ];
+                for ( int ir = 0; ir < nr; ir++ ) {
+                    System.arraycopy( tileBuf_, ir * rowLeng_ + coff,
+                                      coldata, ir * colLeng, colLeng );
+                }
+                byte[] comp = comps_[ ic ].compress( coldata, elSizes_[ ic ] );
+                heapOut_.write( comp );
+                int icell = itile_ * ncol + ic;
+                cellLengs_[ icell ] = comp.length;
+                cellOffsets_[ icell ] = heapSize_;
+                heapSize_ += comp.length;
+                maxCellLeng_ = Math.max( maxCellLeng_, comp.length );
+                coff += colLeng;
+            }
+            itile_++;
+            ipos_ = 0;
+        }
+    }
+}
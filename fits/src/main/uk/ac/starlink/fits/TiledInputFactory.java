@@ -0,0 +1,431 @@
+package uk.ac.starlink.fits;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.logging.Logger;
+import uk.ac.starlink.table.TableFormatException;
+
+/**
+ * InputFactory that provides the uncompressed data stream of a
+ * FITS binary table compressed using the Tiled Table Compression
+ * convention (ZTABLE).
+ * The BasicInputs it creates present the byte stream that the
+ * data part of the original, uncompressed BINTABLE would have had,
+ * decompressing tiles on demand.
+ * Decompressed tiles are held in a size-limited cache shared between
+ * all the inputs created by this factory, so that random access
+ * is reasonably efficient.
+ *
+ * <p>Only fixed-length columns are supported; the table may not
+ * have had a heap before compression.
+ *
+ * @author   Mark Taylor
+ * @since    17 Oct 2026
+ * @see  <a href="https://fits.gsfc.nasa.gov/registry/tiletablecompression.html"
+ *          >Tiled Table Compression Convention</a>
+ */
+class TiledInputFactory extends InputFactory {
+
+    private final InputFactory compFact_;
+    private final FitsHeader uhdr_;
+    private final long nrow_;
+    private final int rowLeng_;
+    private final int tileLeng_;
+    private final int ntile_;
+    private final long crowLeng_;
+    private final long heapStart_;
+    private final int[] colLengs_;
+    private final int[] colOffsets_;
+    private final int[] elSizes_;
+    private final int[] descOffsets_;
+    private final boolean[] isQ_;
+    private final TileCompression[] comps_;
+    private final TileCache cache_;
+
+    /** Approximate maximum number of bytes of decoded tile data cached. */
+    private static final long CACHE_BYTES = 64 * 1024 * 1024;
+
+    private static final Pattern TFORM_REGEX =
+        Pattern.compile( "([0-9]*)([LXBIJKAEDCMPQ])(.*)" );
+    private static final Pattern ZKEY_REGEX =
+        Pattern.compile( "Z(FORM|CTYP)[0-9]+|ZTABLE|ZTILELEN|ZNAXIS[12]"
+                       + "|ZPCOUNT|ZTHEAP" );
+    private static final Logger logger_ =
+        Logger.getLogger( "uk.ac.starlink.fits" );
+
+    /**
+     * Constructor.
+     *
+     * @param  hdr  header of the compressed BINTABLE HDU
+     * @param  compFact  random-access input factory for the data part
+     *                   of the compressed HDU
+     * @throws  TableFormatException  if the header does not describe
+     *                                a tile-compressed table that
+     *                                can be decompressed by this class
+     */
+    public TiledInputFactory( FitsHeader hdr, InputFactory compFact )
+            throws IOException {
+        compFact_ = compFact;
+        if ( ! compFact.isRandom() ) {
+            throw new TableFormatException( "Tiled table decompression "
+                                          + "requires random access" );
+        }
+
+        /* Dimensions of compressed and uncompressed tables. */
+        long crowLeng = hdr.getRequiredLongValue( "NAXIS1" );
+        long ntile = hdr.getRequiredLongValue( "NAXIS2" );
+        int ncol = hdr.getRequiredIntValue( "TFIELDS" );
+        long rowLeng = hdr.getRequiredLongValue( "ZNAXIS1" );
+        nrow_ = hdr.getRequiredLongValue( "ZNAXIS2" );
+        Long zpcount = hdr.getLongValue( "ZPCOUNT" );
+        if ( zpcount != null && zpcount.longValue() != 0 ) {
+            throw new TableFormatException( "Tiled table has heap "
+                                          + "- not supported" );
+        }
+        Long ztilelen = hdr.getLongValue( "ZTILELEN" );
+        long tileLeng = ztilelen == null ? nrow_ : ztilelen.longValue();
+        if ( tileLeng <= 0 && nrow_ > 0 ) {
+            throw new TableFormatException( "Bad ZTILELEN " + tileLeng );
+        }
+        if ( tileLeng * rowLeng > Integer.MAX_VALUE ) {
+            throw new TableFormatException( "Tiles too large ("
+                                          + tileLeng + " * " + rowLeng
+                                          + " bytes)" );
+        }
+        rowLeng_ = (int) rowLeng;
+        tileLeng_ = (int) Math.max( 1, tileLeng );
+        long ntileExpected = ( nrow_ + tileLeng_ - 1 ) / tileLeng_;
+        if ( ntile != ntileExpected ) {
+            throw new TableFormatException( "Tile count mismatch: "
+                                          + ntile + " != " + ntileExpected );
+        }
+        ntile_ = (int) ntile;
+        crowLeng_ = crowLeng;
+        Long theap = hdr.getLongValue( "THEAP" );
+        heapStart_ = theap != null ? theap.longValue() : crowLeng * ntile;
+
+        /* Per-column characteristics. */
+        colLengs_ = new int[ ncol ];
+        colOffsets_ = new int[ ncol ];
+        elSizes_ = new int[ ncol ];
+        descOffsets_ = new int[ ncol ];
+        isQ_ = new boolean[ ncol ];
+        comps_ = new TileCompression[ ncol ];
+        int uoff = 0;
+        int coff = 0;
+        for ( int icol = 0; icol < ncol; icol++ ) {
+            int jcol = icol + 1;
+            String zform = hdr.getRequiredStringValue( "ZFORM" + jcol ).trim();
+            Matcher zmatcher = TFORM_REGEX.matcher( zform );
+            if ( ! zmatcher.matches() ) {
+                throw new TableFormatException( "Bad ZFORM" + jcol + " = "
+                                              + zform );
+            }
+            char zchr = zmatcher.group( 2 ).charAt( 0 );
+            if ( zchr == 'P' || zchr == 'Q' ) {
+                throw new TableFormatException( "Variable-length column "
+                                              + "in tiled table "
+                                              + "- not supported" );
+            }
+            String srep = zmatcher.group( 1 );
+            int nrep = srep.length() == 0 ? 1 : Integer.parseInt( srep );
+            colLengs_[ icol ] = getByteCount( zchr, nrep );
+            colOffsets_[ icol ] = uoff;
+            uoff += colLengs_[ icol ];
+            elSizes_[ icol ] = TileCompression.getElementSize( zchr );
+            String zctyp = hdr.getRequiredStringValue( "ZCTYP" + jcol );
+            comps_[ icol ] = TileCompression.getCompression( zctyp );
+            if ( comps_[ icol ] == null ) {
+                throw new TableFormatException( "Unknown compression ZCTYP"
+                                              + jcol + " = " + zctyp );
+            }
+            if ( comps_[ icol ] == TileCompression.RICE_1 &&
+                 ! ( zchr == 'B' || zchr == 'I' || zchr == 'J' ) ) {
+                throw new TableFormatException( "RICE_1 compression not "
+                                              + "applicable for ZFORM"
+                                              + jcol + " = " + zform );
+            }
+            String tform = hdr.getRequiredStringValue( "TFORM" + jcol ).trim();
+            Matcher tmatcher = TFORM_REGEX.matcher( tform );
+            char tchr = tmatcher.matches() ? tmatcher.group( 2 ).charAt( 0 )
+                                           : ' ';
+            if ( tchr != 'P' && tchr != 'Q' ) {
+                throw new TableFormatException( "Compressed column TFORM"
+                                              + jcol + " = " + tform
+                                              + " not P or Q" );
+            }
+            isQ_[ icol ] = tchr == 'Q';
+            descOffsets_[ icol ] = coff;
+            coff += isQ_[ icol ] ? 16 : 8;
+        }
+        if ( uoff != rowLeng ) {
+            throw new TableFormatException( "ZNAXIS1 mismatch: "
+                                          + rowLeng + " != " + uoff );
+        }
+        if ( coff != crowLeng ) {
+            throw new TableFormatException( "NAXIS1 mismatch: "
+                                          + crowLeng + " != " + coff );
+        }
+        long tileBytes = (long) tileLeng_ * rowLeng_;
+        int maxTiles =
+            (int) Math.max( 2, CACHE_BYTES / Math.max( 1, tileBytes ) );
+        cache_ = new TileCache( maxTiles );
+        uhdr_ = createUncompressedHeader( hdr );
+        logger_.info( "Tile-compressed table: " + ntile_ + " tiles of "
+                    + tileLeng_ + " rows" );
+    }
+
+    /**
+     * Returns a header describing the table before compression.
+     * This is the header that should be used to interpret the
+     * data streams provided by this factory.
+     *
+     * @return  uncompressed header
+     */
+    public FitsHeader getUncompressedHeader() {
+        return uhdr_;
+    }
+
+    public boolean isRandom() {
+        return true;
+    }
+
+    public BasicInput createInput( boolean isSeq ) {
+        return new TileInput();
+    }
+
+    public void close() throws IOException {
+        cache_.clear();
+        compFact_.close();
+    }
+
+    /**
+     * Indicates whether a header describes a tile-compressed table.
+     *
+     * @param  hdr  HDU header
+     * @return  true iff the ZTABLE header is present and true
+     */
+    public static boolean isTiled( FitsHeader hdr ) {
+        return "BINTABLE".equals( hdr.getStringValue( "XTENSION" ) )
+            && Boolean.TRUE.equals( hdr.getBooleanValue( "ZTABLE" ) );
+    }
+
+    /**
+     * Returns a decompressed tile, using the cache if possible.
+     *
+     * @param  cin  input from which compressed data can be read
+     * @param  itile  tile index
+     * @return  uncompressed row data for tile
+     */
+    private byte[] getTile( BasicInput cin, int itile ) throws IOException {
+        byte[] tile = cache_.get( itile );
+        if ( tile == null ) {
+            tile = readTile( cin, itile );
+            cache_.put( itile, tile );
+        }
+        return tile;
+    }
+
+    /**
+     * Reads and decompresses a tile.
+     *
+     * @param  cin  input from which compressed data can be read
+     * @param  itile  tile index
+     * @return  uncompressed row data for tile
+     */
+    private byte[] readTile( BasicInput cin, int itile ) throws IOException {
+        int nr = (int) Math.min( tileLeng_, nrow_ - (long) itile * tileLeng_ );
+        byte[] tile = new byte[ nr * rowLeng_ ];
+        int ncol = colLengs_.length;
+        for ( int icol = 0; icol < ncol; icol++ ) {
+            int colLeng = colLengs_[ icol ];
+            byte[] coldata = new byte[ nr * colLeng ];
+            if ( coldata.length == 0 ) {
+                continue;
+            }
+
+            /* Read the compressed cell for this tile and column. */
+            cin.seek( itile * crowLeng_ + descOffsets_[ icol ] );
+            final long nbyte;
+            final long offset;
+            if ( isQ_[ icol ] ) {
+                nbyte = cin.readLong();
+                offset = cin.readLong();
+            }
+            else {
+                nbyte = cin.readInt() & 0xffffffffL;
+                offset = cin.readInt() & 0xffffffffL;
+            }
+            if ( nbyte > Integer.MAX_VALUE ) {
+                throw new TableFormatException( "Compressed tile too large" );
+            }
+            byte[] comp = new byte[ (int) nbyte ];
+            cin.seek( heapStart_ + offset );
+            cin.readBytes( comp );
+
+            /* Decompress it and scatter the column data into the rows. */
+            comps_[ icol ].decompress( comp, elSizes_[ icol ], coldata );
+            int uoff = colOffsets_[ icol ];
+            for ( int ir = 0; ir < nr; ir++ ) {
+                System.arraycopy( coldata, ir * colLeng,
+                                  tile, ir * rowLeng_ + uoff, colLeng );
+            }
+        }
+        return tile;
+    }
+
+    /**
+     * Returns the number of bytes occupied by a fixed-length BINTABLE
+     * column.
+     *
+     * @param  formatChar  TFORM data type character
+     * @param  nrep   repeat count
+     * @return  byte count per cell
+     */
+    private static int getByteCount( char formatChar, int nrep ) {
+        return formatChar == 'X'
+             ? ( nrep + 7 ) / 8
+             : nrep * TileCompression.getElementSize( formatChar )
+                    * ( formatChar == 'C' || formatChar == 'M' ? 2 : 1 );
+    }
+
+    /**
+     * Constructs the header of the table before compression from
+     * the header of the compressed table.
+     * Structural keywords are restored from their ZTABLE equivalents,
+     * and the compression-specific keywords are removed.
+     *
+     * @param  hdr  compressed table header
+     * @return   uncompressed table header
+     */
+    private static FitsHeader createUncompressedHeader( FitsHeader hdr ) {
+        List<ParsedCard<?>> cards = new ArrayList<>();
+        for ( ParsedCard<?> card : hdr.getCards() ) {
+            String key = card.getKey();
+            if ( key == null ) {
+                cards.add( card );
+            }
+            else if ( key.equals( "NAXIS1" ) || key.equals( "NAXIS2" ) ||
+                      key.equals( "PCOUNT" ) ) {
+                String zkey = key.equals( "PCOUNT" ) ? "ZPCOUNT" : "Z" + key;
+                Long value = hdr.getLongValue( zkey );
+                cards.add( new ParsedCard<BigInteger>(
+                               key, CardType.INTEGER,
+                               BigInteger.valueOf( value == null
+                                                 ? 0 : value.longValue() ),
+                               card.getComment() ) );
+            }
+            else if ( key.equals( "THEAP" ) ) {
+                Long ztheap = hdr.getLongValue( "ZTHEAP" );
+                if ( ztheap != null ) {
+                    cards.add( new ParsedCard<BigInteger>(
+                                   key, CardType.INTEGER,
+                                   BigInteger.valueOf( ztheap.longValue() ),
+                                   card.getComment() ) );
+                }
+            }
+            else if ( key.startsWith( "TFORM" ) ) {
+                String zform = hdr.getStringValue( "Z" + key.substring( 1 ) );
+                cards.add( zform == null
+                         ? card
+                         : new ParsedCard<String>( key, CardType.STRING,
+                                                   zform, card.getComment() ) );
+            }
+            else if ( ! ZKEY_REGEX.matcher( key ).matches() ) {
+                cards.add( card );
+            }
+        }
+        return new FitsHeader( cards.toArray( new ParsedCard<?>[ 0 ] ) );
+    }
+
+    /**
+     * BasicInput implementation that reads decompressed tiles.
+     */
+    private class TileInput extends BlockInput {
+
+        private final long tileBytes_;
+        private BasicInput cin_;
+
+        TileInput() {
+            super( ntile_ );
+            tileBytes_ = (long) tileLeng_ * rowLeng_;
+        }
+
+        public int[] getBlockPos( long offset ) {
+            if ( tileBytes_ == 0 ) {
+                return new int[] { 0, (int) Math.min( offset,
+                                                      Integer.MAX_VALUE ) };
+            }
+            long ib = offset / tileBytes_;
+            long ioff = offset % tileBytes_;
+            return new int[] { (int) Math.min( ib, Integer.MAX_VALUE ),
+                               (int) ioff };
+        }
+
+        public long getBlockOffset( int iblock, int offsetInBlock ) {
+            return iblock * tileBytes_ + offsetInBlock;
+        }
+
+        protected ByteBuffer acquireBlock( int iblock ) throws IOException {
+            if ( cin_ == null ) {
+                cin_ = compFact_.createInput( false );
+            }
+            return ByteBuffer.wrap( getTile( cin_, iblock ) );
+        }
+
+        @Override
+        public void close() {
+            super.close();
+            if ( cin_ != null ) {
+                try {
+                    cin_.close();
+                }
+                catch ( IOException e ) {
+                    // never mind
+                }
+                cin_ = null;
+            }
+        }
+    }
+
+    /**
+     * Thread-safe LRU cache of decompressed tiles.
+     */
+    private static class TileCache {
+        private final Map<Integer,byte[]> map_;
+
+        /**
+         * Constructor.
+         *
+         * @param  maxTiles  maximum number of tiles retained
+         */
+        TileCache( final int maxTiles ) {
+            map_ = new LinkedHashMap<Integer,byte[]>( 16, 0.75f, true ) {
+                @Override
+                protected boolean
+                        removeEldestEntry( Map.Entry<Integer,byte[]> entry ) {
+                    return size() > maxTiles;
+                }
+            };
+        }
+
+        synchronized byte[] get( int itile ) {
+            return map_.get( Integer.valueOf( itile ) );
+        }
+
+        synchronized void put( int itile, byte[] tile ) {
+            map_.put( Integer.valueOf( itile ), tile );
+        }
+
+        synchronized void clear() {
+            map_.clear();
+        }
+    }
+}
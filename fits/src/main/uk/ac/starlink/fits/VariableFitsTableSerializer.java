@@ -1,10 +1,13 @@
 package uk.ac.starlink.fits;
 
+import java.io.ByteArrayOutputStream;
 import java.io.DataOutput;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.lang.reflect.Array;
 import java.math.BigDecimal;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
 import uk.ac.starlink.table.ByteStore;
@@ -24,6 +27,11 @@ import uk.ac.starlink.util.DataBufferedOutputStream;
 public class VariableFitsTableSerializer extends StandardFitsTableSerializer {
 
     private final StoragePolicy storagePolicy_;
+    private PQMode pqMode_;
+    private DataOutput heapOut_;
+    private long[] heapCounter_;
+    private int rowBytes_;
+    private int[] varOffsets_;
 
     /** 
      * Constructor.
@@ -53,11 +61,11 @@ public class VariableFitsTableSerializer extends StandardFitsTableSerializer {
      * @param  useQ  true for Q, false for P
      */
     public void set64BitMode( boolean useQ ) {
-        PQMode pqMode = useQ ? PQMode.Q
-                             : PQMode.P;
+        pqMode_ = useQ ? PQMode.Q
+                       : PQMode.P;
         VariableArrayColumnWriter[] vcws = getVariableArrayColumnWriters();
         for ( int iv = 0; iv < vcws.length; iv++ ) {
-            vcws[ iv ].setPQMode( pqMode );
+            vcws[ iv ].setPQMode( pqMode_ );
         }
     }
 
@@ -120,6 +128,23 @@ public class VariableFitsTableSerializer extends StandardFitsTableSerializer {
         for ( int iv = 0; iv < vcws.length; iv++ ) {
             vcws[ iv ].setDataOutput( dataOut, counter );
         }
+        heapOut_ = dataOut;
+        heapCounter_ = counter;
+        ColumnWriter[] colWriters = getColumnWriters();
+        List<Integer> varOffsets = new ArrayList<Integer>();
+        rowBytes_ = 0;
+        for ( ColumnWriter writer : colWriters ) {
+            if ( writer instanceof VariableArrayColumnWriter ) {
+                varOffsets.add( Integer.valueOf( rowBytes_ ) );
+            }
+            if ( writer != null ) {
+                rowBytes_ += writer.getLength();
+            }
+        }
+        varOffsets_ = new int[ varOffsets.size() ];
+        for ( int iv = 0; iv < varOffsets_.length; iv++ ) {
+            varOffsets_[ iv ] = varOffsets.get( iv ).intValue();
+        }
         long nWritten = 0;
         try {
 
@@ -146,6 +171,57 @@ public class VariableFitsTableSerializer extends StandardFitsTableSerializer {
         for ( int iv = 0; iv < vcws.length; iv++ ) {
             vcws[ iv ].setDataOutput( (DataOutput) null, (long[]) null );
         }
+        heapOut_ = null;
+        heapCounter_ = null;
+    }
+
+    /**
+     * Blocks encoded in parallel contain heap descriptors relative to
+     * the start of the block's own heap data.  This implementation
+     * rebases those descriptors to the start of the full heap,
+     * and appends the block's heap data to the full heap.
+     */
+    @Override
+    long writeBlock( DataOutput strm, EncodedBlock block )
+            throws IOException {
+        byte[] heap = block.getHeap();
+        long base = heapCounter_[ 0 ];
+        if ( base > 0 && heap.length > 0 ) {
+            ByteBuffer buf = block.getBuffer();
+            int nrow = buf.position() / rowBytes_;
+            int leng = pqMode_.getIntegerLength();
+            for ( int ir = 0; ir < nrow; ir++ ) {
+                for ( int off : varOffsets_ ) {
+                    int ioff = ir * rowBytes_ + off;
+                    if ( pqMode_.readInteger( buf, ioff ) != 0 ) {
+                        pqMode_.writeInteger( buf, ioff + leng,
+                                              pqMode_.readInteger( buf, ioff
+                                                                 + leng )
+                                              + base );
+                    }
+                }
+            }
+        }
+        long nWritten = super.writeBlock( strm, block );
+        heapOut_.write( heap );
+        heapCounter_[ 0 ] += heap.length;
+        return nWritten;
+    }
+
+    @Override
+    long getMaxRowHeapBytes() {
+        long count = 0L;
+        VariableArrayColumnWriter[] vcws = getVariableArrayColumnWriters();
+        for ( int iv = 0; iv < vcws.length; iv++ ) {
+            VariableArrayColumnWriter vcw = vcws[ iv ];
+            count += (long) vcw.maxElements_ * vcw.elSize_;
+        }
+        return count;
+    }
+
+    @Override
+    BlockEncoder createBlockEncoder() {
+        return new VariableBlockEncoder();
     }
 
     ColumnWriter createColumnWriter( ColumnInfo cinfo, int[] shape,
@@ -172,7 +248,7 @@ public class VariableFitsTableSerializer extends StandardFitsTableSerializer {
      * @param   dataOut  data output object
      * @return   stream which writes to the same place as <code>dataOut</code>
      */
-    private static OutputStream toStream( final DataOutput dataOut ) {
+    static OutputStream toStream( final DataOutput dataOut ) {
         if ( dataOut instanceof OutputStream ) {
             return (OutputStream) dataOut;
         }
@@ -192,6 +268,43 @@ public class VariableFitsTableSerializer extends StandardFitsTableSerializer {
         }
     }
 
+    /**
+     * BlockEncoder which writes variable-length array data to a
+     * per-block heap.
+     */
+    private class VariableBlockEncoder extends BlockEncoder {
+
+        private final ByteArrayOutputStream heapBuf_;
+        private final long[] counter_;
+
+        VariableBlockEncoder() {
+            super( createColumnWriters() );
+            heapBuf_ = new ByteArrayOutputStream();
+            counter_ = new long[ 1 ];
+            DataOutput heapOut = new DataOutputStream( heapBuf_ );
+            for ( ColumnWriter writer : getColumnWriters() ) {
+                if ( writer instanceof VariableArrayColumnWriter ) {
+                    VariableArrayColumnWriter vcw =
+                        (VariableArrayColumnWriter) writer;
+                    vcw.setPQMode( pqMode_ );
+                    vcw.setDataOutput( heapOut, counter_ );
+                }
+            }
+        }
+
+        @Override
+        void startBlock( EncodedBlock block ) {
+            super.startBlock( block );
+            heapBuf_.reset();
+            counter_[ 0 ] = 0;
+        }
+
+        @Override
+        void endBlock( EncodedBlock block ) {
+            block.setHeap( heapBuf_.toByteArray() );
+        }
+    }
+
     /**
      * ColumnWriter which writes array-valued elements using the
      * BINTABLE conventions for variable-sized arrays.
@@ -305,6 +418,12 @@ public class VariableFitsTableSerializer extends StandardFitsTableSerializer {
                     throws IOException {
                 out.writeInt( Tables.checkedLongToInt( value ) );
             }
+            public long readInteger( ByteBuffer buf, int off ) {
+                return buf.getInt( off );
+            }
+            public void writeInteger( ByteBuffer buf, int off, long value ) {
+                buf.putInt( off, Tables.checkedLongToInt( value ) );
+            }
         };
 
         /** 64-bit mode. */
@@ -313,6 +432,12 @@ public class VariableFitsTableSerializer extends StandardFitsTableSerializer {
                     throws IOException {
                 out.writeLong( value );
             }
+            public long readInteger( ByteBuffer buf, int off ) {
+                return buf.getLong( off );
+            }
+            public void writeInteger( ByteBuffer buf, int off, long value ) {
+                buf.putLong( off, value );
+            }
         };
 
         /**
@@ -335,6 +460,25 @@ public class VariableFitsTableSerializer extends StandardFitsTableSerializer {
         public abstract void writeInteger( DataOutput out, long value )
                 throws IOException;
 
+        /**
+         * Reads an integer from an absolute position in a buffer.
+         *
+         * @param  buf  buffer
+         * @param  off  byte offset
+         * @return  integer value
+         */
+        public abstract long readInteger( ByteBuffer buf, int off );
+
+        /**
+         * Writes an integer to an absolute position in a buffer.
+         *
+         * @param  buf  buffer
+         * @param  off  byte offset
+         * @param  value  integer value to write
+         */
+        public abstract void writeInteger( ByteBuffer buf, int off,
+                                           long value );
+
         /**
          * Returns the TFORM character for this object.
          *
@@ -1,5 +1,6 @@
 package uk.ac.starlink.fits;
 
+import java.io.ByteArrayOutputStream;
 import java.io.EOFException;
 import java.io.File;
 import java.io.FileInputStream;
@@ -14,6 +15,9 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Random;
 import java.util.logging.Level;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import uk.ac.starlink.util.BgzfIndex;
 import uk.ac.starlink.util.DataBufferedInputStream;
 import uk.ac.starlink.util.DataBufferedOutputStream;
 import uk.ac.starlink.util.LogUtils;
@@ -67,6 +71,25 @@ public class BasicInputTest extends TestCase {
         exerciseBlockInput( chan, off1, leng1, leng1/2, 100 );
         exerciseBlockInput( chan, off1, leng1, leng1, 0 );
         exerciseBlockInput( chan, off1, leng1, leng1*2, 0 );
+        chan.close();
+
+        byte[] data = new byte[ leng ];
+        try ( InputStream in = new FileInputStream( file ) ) {
+            assertEquals( leng, in.read( data ) );
+        }
+        for ( int bsize : new int[] { 37, isiz, 1000, 10000 } ) {
+            File zfile = File.createTempFile( "tmp", ".dat.gz" );
+            try ( FileOutputStream zout = new FileOutputStream( zfile ) ) {
+                zout.write( toBgzf( data, bsize ) );
+            }
+            FileChannel zchan =
+                new RandomAccessFile( zfile, "r" ).getChannel();
+            BgzfIndex index = BgzfIndex.createIndex( zchan );
+            exerciseInput( new BgzfBlockInput( zchan, index, off1 ) );
+            zchan.close();
+            zfile.delete();
+        }
+        file.delete();
 
         // Note this one fails: the EOFException is not thrown at the
         // right place.  Hmm.
@@ -134,6 +157,37 @@ public class BasicInputTest extends TestCase {
         in.close();
     }
 
+    private static byte[] toBgzf( byte[] data, int blockSize ) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for ( int off = 0; off <= data.length; off += blockSize ) {
+            int len = Math.min( blockSize, data.length - off );
+            Deflater deflater = new Deflater( Deflater.BEST_SPEED, true );
+            deflater.setInput( data, off, len );
+            deflater.finish();
+            byte[] cbuf = new byte[ len + 1024 ];
+            int nc = 0;
+            while ( ! deflater.finished() ) {
+                nc += deflater.deflate( cbuf, nc, cbuf.length - nc );
+            }
+            deflater.end();
+            CRC32 crc = new CRC32();
+            crc.update( data, off, len );
+            int bsize1 = 18 + nc + 8 - 1;
+            int[] hdr = { 0x1f, 0x8b, 8, 4, 0, 0, 0, 0, 0, 0xff, 6, 0,
+                          'B', 'C', 2, 0, bsize1 & 0xff, bsize1 >> 8 };
+            for ( int b : hdr ) {
+                out.write( b );
+            }
+            out.write( cbuf, 0, nc );
+            for ( long v : new long[] { crc.getValue(), len } ) {
+                for ( int i = 0; i < 4; i++ ) {
+                    out.write( (int) ( v >>> ( 8 * i ) ) & 0xff );
+                }
+            }
+        }
+        return out.toByteArray();
+    }
+
     private static BasicInput seqOffInput( int offset, InputStream in )
             throws IOException {
         BasicInput input = InputFactory.createSequentialInput( in );
@@ -0,0 +1,225 @@
+package uk.ac.starlink.fits;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.logging.Level;
+import junit.framework.TestCase;
+import uk.ac.starlink.table.ArrayColumn;
+import uk.ac.starlink.table.ColumnStarTable;
+import uk.ac.starlink.table.StarTable;
+import uk.ac.starlink.table.StarTableOutput;
+import uk.ac.starlink.table.StoragePolicy;
+import uk.ac.starlink.table.Tables;
+import uk.ac.starlink.util.FileDataSource;
+import uk.ac.starlink.util.LogUtils;
+
+public class ChecksumTest extends TestCase {
+
+    public ChecksumTest() {
+        LogUtils.getLogger( "uk.ac.starlink.fits" ).setLevel( Level.WARNING );
+    }
+
+    public void testEncode() {
+
+        /* Example from the FITS Checksum Convention document,
+         * which encodes the complement of the given sum. */
+        assertEquals( "hcHjjc9ghcEghc9g",
+                      FitsUtil.encodeChecksum( FitsUtil.CHECKSUM_OK
+                                             - 868229149L ) );
+
+        Random rnd = new Random( 1001 );
+        for ( int i = 0; i < 1000; i++ ) {
+            long value = rnd.nextInt() & 0xffffffffL;
+            String txt = FitsUtil.encodeChecksum( value );
+            assertEquals( 16, txt.length() );
+            for ( int j = 0; j < 16; j++ ) {
+                char c = txt.charAt( j );
+                assertTrue( Character.isLetterOrDigit( c ) );
+            }
+
+            /* The encoded string, less the zero-character offset,
+             * must sum to the encoded value. */
+            byte[] buf = new byte[ 16 ];
+            byte[] zbuf = new byte[ 16 ];
+            for ( int j = 0; j < 16; j++ ) {
+                buf[ ( j + 3 ) % 16 ] = (byte) txt.charAt( j );
+                zbuf[ j ] = (byte) '0';
+            }
+            assertEquals( FitsUtil.CHECKSUM_OK,
+                          FitsUtil.addChecksums(
+                              FitsUtil.checksum( ByteBuffer.wrap( buf ) ),
+                              FitsUtil.CHECKSUM_OK - FitsUtil.addChecksums(
+                                  FitsUtil.checksum( ByteBuffer.wrap( zbuf ) ),
+                                  value ) ) );
+        }
+    }
+
+    public void testSums() throws IOException {
+        Random rnd = new Random( 23 );
+        for ( int leng : new int[] { 0, 1, 3, 4, 5, 2880, 10001 } ) {
+            byte[] buf = new byte[ leng ];
+            rnd.nextBytes( buf );
+            long sum = FitsUtil.checksum( ByteBuffer.wrap( buf ) );
+            assertEquals( sum, streamSum( buf, rnd ) );
+            if ( leng > 8 ) {
+                int split = 4 * rnd.nextInt( leng / 4 );
+                assertEquals( sum, FitsUtil.addChecksums(
+                    FitsUtil.checksum( ByteBuffer.wrap( buf, 0, split ) ),
+                    FitsUtil.checksum( ByteBuffer.wrap( buf, split,
+                                                        leng - split ) ) ) );
+            }
+        }
+        assertEquals( 0L, FitsUtil.checksum( ByteBuffer.wrap( new byte[ 8 ] )));
+        byte[] ones = new byte[ 8 ];
+        Arrays.fill( ones, (byte) 0xff );
+        assertEquals( FitsUtil.CHECKSUM_OK,
+                      FitsUtil.checksum( ByteBuffer.wrap( ones ) ) );
+
+        /* Mapped file, spanning several chunks. */
+        byte[] big = new byte[ 2880 * 4096 * 2 + 2880 * 7 ];
+        rnd.nextBytes( big );
+        File file = File.createTempFile( "chk", ".dat" );
+        file.deleteOnExit();
+        Files.write( file.toPath(), big );
+        long bigSum = FitsUtil.checksum( ByteBuffer.wrap( big ) );
+        try ( FileChannel chan =
+                  FileChannel.open( file.toPath(), StandardOpenOption.READ ) ) {
+            for ( int nthread : new int[] { 1, 3, 0 } ) {
+                assertEquals( bigSum,
+                              FitsUtil.checksum( chan, 0, big.length,
+                                                 nthread ) );
+            }
+            assertEquals( FitsUtil.checksum( ByteBuffer.wrap( big, 2880, 999 )),
+                          FitsUtil.checksum( chan, 2880, 999, 2 ) );
+        }
+        file.delete();
+    }
+
+    public void testWriteChecksums() throws IOException {
+        StarTable table = createTestTable( 3456 );
+        FitsTableWriter writer = new FitsTableWriter();
+        writer.setWriteDate( false );
+        assertFalse( writer.getChecksum() );
+        writer.setChecksum( true );
+        assertTrue( writer.getChecksum() );
+
+        /* Stream output. */
+        ByteArrayOutputStream bout = new ByteArrayOutputStream();
+        writer.writeStarTable( table, bout );
+        byte[] streamBuf = bout.toByteArray();
+
+        /* File output, and multithreaded encoding. */
+        File file = File.createTempFile( "chk", ".fits" );
+        file.deleteOnExit();
+        writer.setWriteThreadCount( 3 );
+        writer.writeStarTables( Tables.arrayTableSequence(
+                                    new StarTable[] { table, table } ),
+                                file.toString(), new StarTableOutput() );
+        byte[] fileBuf = Files.readAllBytes( file.toPath() );
+        assertEquals( 2880 + 2 * ( streamBuf.length - 2880 ), fileBuf.length );
+        assertTrue( Arrays.equals( streamBuf,
+                                   Arrays.copyOf( fileBuf,
+                                                  streamBuf.length ) ) );
+        String hdr = new String( streamBuf, 2880, 2880, "US-ASCII" );
+        assertTrue( hdr.contains( "CHECKSUM= '" ) );
+        assertTrue( hdr.contains( "DATASUM = '" ) );
+        assertTrue( hdr.indexOf( "DATASUM" ) < hdr.indexOf( "END     " ) );
+
+        try ( RandomAccessFile raf = new RandomAccessFile( file, "rw" ) ) {
+            FileChannel chan = raf.getChannel();
+            for ( int nthread : new int[] { 1, 4 } ) {
+                assertEquals( 0, FitsUtil.verifyChecksums( chan, nthread )
+                                         .size() );
+            }
+
+            /* Checksum headers read back as ordinary table parameters. */
+            StarTable rtable =
+                new FitsTableBuilder()
+               .makeStarTable( new FileDataSource( file ), true,
+                               StoragePolicy.PREFER_MEMORY );
+            assertNotNull( rtable.getParameterByName( "CHECKSUM" ) );
+            assertNotNull( rtable.getParameterByName( "DATASUM" ) );
+            rtable.close();
+
+            /* Corrupt the data part of the last HDU. */
+            long pos = fileBuf.length - 2880 * 3;
+            raf.seek( pos );
+            raf.write( fileBuf[ (int) pos ] ^ 0x01 );
+            List<String> errs = FitsUtil.verifyChecksums( chan, 2 );
+            assertEquals( 2, errs.size() );
+            assertTrue( errs.get( 0 ).startsWith( "HDU 2: DATASUM" ) );
+            assertTrue( errs.get( 1 ).startsWith( "HDU 2: CHECKSUM" ) );
+        }
+
+        /* Serializers that can only write their data once. */
+        writer.setTileLength( 1000 );
+        bout = new ByteArrayOutputStream();
+        writer.writeStarTable( table, bout );
+        Files.write( file.toPath(), bout.toByteArray() );
+        try ( RandomAccessFile raf = new RandomAccessFile( file, "r" ) ) {
+            assertEquals( 0, FitsUtil.verifyChecksums( raf.getChannel(), 1 )
+                                     .size() );
+        }
+        writer.setTileLength( 0 );
+        ColFitsTableWriter colWriter = new ColFitsTableWriter();
+        colWriter.setChecksum( true );
+        bout = new ByteArrayOutputStream();
+        colWriter.writeStarTable( table, bout );
+        Files.write( file.toPath(), bout.toByteArray() );
+        try ( RandomAccessFile raf = new RandomAccessFile( file, "r" ) ) {
+            assertEquals( 0, FitsUtil.verifyChecksums( raf.getChannel(), 1 )
+                                     .size() );
+        }
+        file.delete();
+
+        /* Without checksums, no checksum headers. */
+        writer.setChecksum( false );
+        bout = new ByteArrayOutputStream();
+        writer.writeStarTable( table, bout );
+        assertFalse( new String( bout.toByteArray(), "US-ASCII" )
+                    .contains( "CHECKSUM" ) );
+    }
+
+    private static long streamSum( byte[] buf, Random rnd )
+            throws IOException {
+        ChecksumOutputStream out = new ChecksumOutputStream( null );
+        for ( int off = 0; off < buf.length; ) {
+            int n = Math.min( buf.length - off, rnd.nextInt( 11 ) );
+            if ( n == 1 ) {
+                out.write( buf[ off ] );
+            }
+            else {
+                out.write( buf, off, n );
+            }
+            off += n;
+        }
+        assertEquals( buf.length, out.getCount() );
+        return out.getChecksum();
+    }
+
+    private static StarTable createTestTable( int nrow ) {
+        Random rnd = new Random( 88 );
+        int[] ivals = new int[ nrow ];
+        double[] dvals = new double[ nrow ];
+        String[] svals = new String[ nrow ];
+        for ( int i = 0; i < nrow; i++ ) {
+            ivals[ i ] = rnd.nextInt();
+            dvals[ i ] = rnd.nextGaussian();
+            svals[ i ] = "s" + rnd.nextInt( 10000 );
+        }
+        ColumnStarTable table = ColumnStarTable.makeTableWithRows( nrow );
+        table.addColumn( ArrayColumn.makeColumn( "i", ivals ) );
+        table.addColumn( ArrayColumn.makeColumn( "d", dvals ) );
+        table.addColumn( ArrayColumn.makeColumn( "s", svals ) );
+        return table;
+    }
+}
@@ -1,22 +1,28 @@
 package uk.ac.starlink.fits;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.lang.reflect.Array;
 import java.math.BigInteger;
 import java.net.URL;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Random;
 import java.util.logging.Level;
 import uk.ac.starlink.table.ArrayColumn;
 import uk.ac.starlink.table.ColumnData;
 import uk.ac.starlink.table.ColumnInfo;
 import uk.ac.starlink.table.ColumnStarTable;
 import uk.ac.starlink.table.DescribedValue;
+import uk.ac.starlink.table.RowAccess;
 import uk.ac.starlink.table.RowSequence;
 import uk.ac.starlink.table.StarTable;
 import uk.ac.starlink.table.StarTableOutput;
@@ -128,6 +134,179 @@ public class ColumnReaderTest extends TestCase {
         rseq.close();
     }
 
+    /**
+     * Checks that bulk-decoded column values are identical to those
+     * read cell by cell, for a range of scalings and blank values.
+     */
+    public void testVectorDecoder() throws IOException {
+        Random rnd = new Random( 661 );
+        Number[] zeros = new Number[] {
+            Long.valueOf( 0 ), Long.valueOf( -128 ), Long.valueOf( 23 ),
+            Long.valueOf( 32768 ), Long.valueOf( 2147483648L ),
+            Long.valueOf( 1L << 40 ), Double.valueOf( 1.5 ),
+            BintableStarTable.TWO63,
+        };
+        int nrow = 300;
+        int stride = 19;
+        int cellOff = 3;
+        ByteBuffer bbuf = ByteBuffer.allocate( cellOff + nrow * stride );
+        double[] dvals = new double[ nrow ];
+        long[] lvals = new long[ nrow ];
+        for ( String tform : new String[] { "B", "1I", "J", "K", "E", "D",
+                                            "2J", "A", "L" } ) {
+            for ( double scale : new double[] { 1.0, 0.25 } ) {
+                for ( Number zero : zeros ) {
+                    for ( boolean hasBlank : new boolean[] { false, true } ) {
+                        rnd.nextBytes( bbuf.array() );
+                        ColumnReader reader = ColumnReader.createColumnReader(
+                            tform, scale, zero, hasBlank, 0L, null, "x", -1 );
+                        VectorDecoder decoder = VectorDecoder.createDecoder(
+                            tform, scale, zero, hasBlank, 0L );
+                        if ( decoder == null ) {
+                            assertTrue( tform.length() > 1 ||
+                                        "AL".indexOf( tform ) >= 0 ||
+                                        ( "K".equals( tform ) &&
+                                          scale == 1.0 &&
+                                          ! zero.equals( 0L ) &&
+                                          ! ( zero instanceof Double ) ) );
+                            continue;
+                        }
+                        assertEquals( reader.getLength(),
+                                      decoder.getCellSize() );
+
+                        /* Zero some cells to exercise blank handling. */
+                        for ( int ir = 0; ir < nrow; ir += 7 ) {
+                            for ( int ib = 0; ib < reader.getLength(); ib++ ) {
+                                bbuf.put( cellOff + ir * stride + ib,
+                                          (byte) 0 );
+                            }
+                        }
+                        decoder.decodeDoubles( bbuf, cellOff, stride,
+                                               dvals, 0, nrow );
+                        if ( decoder.isInteger() ) {
+                            decoder.decodeLongs( bbuf, cellOff, stride,
+                                                 lvals, 0, nrow );
+                        }
+                        BasicInput in = new ByteBufferInput( bbuf );
+                        for ( int ir = 0; ir < nrow; ir++ ) {
+                            long pos = cellOff + ir * stride;
+                            in.seek( pos );
+                            assertEquals( Double.valueOf( reader
+                                                         .readDouble( in ) ),
+                                          Double.valueOf( dvals[ ir ] ) );
+                            if ( decoder.isInteger() ) {
+                                in.seek( pos );
+                                assertEquals( reader.readLong( in ),
+                                              lvals[ ir ] );
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks typed reads from a row sequence, which decodes columns
+     * in bulk, against random-access reads,
+     * for mapped data and for data split into awkwardly-sized blocks.
+     */
+    public void testReadColumn() throws IOException {
+        int nrow = 2500;
+        ByteArrayOutputStream bout = new ByteArrayOutputStream();
+        writeIntegersBintable( nrow, bout );
+        byte[] fbuf = bout.toByteArray();
+        InputStream in = new ByteArrayInputStream( fbuf );
+        long offset = FitsUtil.skipHDUs( in, 1 );
+        FitsHeader hdr = FitsUtil.readHeader( in );
+        final long dataOffset = offset + hdr.getHeaderByteCount();
+        final long dataLeng = hdr.getDataByteCount();
+
+        File f = File.createTempFile( "table", ".fits" );
+        f.deleteOnExit();
+        try ( OutputStream out = new FileOutputStream( f ) ) {
+            out.write( fbuf );
+        }
+        checkColumnReads( BintableStarTable.createTable(
+            hdr, InputFactory.createFileFactory( f, dataOffset, dataLeng ),
+            null ) );
+
+        for ( final int blockSize : new int[] { 37, 500, 8 * 1024 } ) {
+            final ByteBuffer dataBuf =
+                ByteBuffer.wrap( fbuf, (int) dataOffset, (int) dataLeng )
+                          .slice();
+            InputFactory blockFact = new InputFactory() {
+                public boolean isRandom() {
+                    return true;
+                }
+                public BasicInput createInput( boolean isSeq ) {
+                    List<ByteBuffer> bufs = new ArrayList<>();
+                    for ( int ioff = 0; ioff < dataLeng; ioff += blockSize ) {
+                        ByteBuffer b = dataBuf.duplicate();
+                        b.position( ioff );
+                        b.limit( (int) Math.min( ioff + blockSize,
+                                                 dataLeng ) );
+                        bufs.add( b.slice() );
+                    }
+                    return new MultiByteBufferInput(
+                                   bufs.toArray( new ByteBuffer[ 0 ] ) );
+                }
+                public void close() {
+                }
+            };
+            checkColumnReads( BintableStarTable
+                             .createTable( hdr, blockFact, null ) );
+        }
+        f.delete();
+    }
+
+    private void checkColumnReads( BintableStarTable table )
+            throws IOException {
+        assertTrue( table.isRandom() );
+        int ncol = table.getColumnCount();
+        boolean[] isInts = new boolean[ ncol ];
+        for ( int icol = 0; icol < ncol; icol++ ) {
+            Class<?> clazz = table.getColumnInfo( icol ).getContentClass();
+            isInts[ icol ] = clazz == Byte.class || clazz == Short.class ||
+                             clazz == Integer.class || clazz == Long.class;
+        }
+        RowAccess racc = table.getRowAccess();
+        RowSequence rseq = table.getRowSequence();
+        long irow = 0;
+        while ( rseq.next() ) {
+            racc.setRowIndex( irow );
+            for ( int icol = 0; icol < ncol; icol++ ) {
+                assertEquals( Double.valueOf( racc.getDouble( icol ) ),
+                              Double.valueOf( rseq.getDouble( icol ) ) );
+                if ( isInts[ icol ] ) {
+                    assertEquals( racc.getLong( icol ), rseq.getLong( icol ) );
+                }
+                double[] darray =
+                    Tables.toDoubleArray( racc.getCell( icol ), null );
+                double[] rarray = racc.getDoubleArray( icol, null );
+                double[] sarray = rseq.getDoubleArray( icol, new double[ 1 ] );
+                if ( darray == null ) {
+                    assertNull( rarray );
+                    assertNull( sarray );
+                }
+                else {
+                    assertArrayEquals( darray, rarray );
+                    assertArrayEquals( darray, sarray );
+                }
+                if ( irow % 3 == 0 ) {
+                    assertTrue( Arrays.deepEquals(
+                                    new Object[] { racc.getCell( icol ) },
+                                    new Object[] { rseq.getCell( icol ) } ) );
+                }
+            }
+            irow++;
+        }
+        assertEquals( table.getRowCount(), irow );
+        rseq.close();
+        racc.close();
+        table.close();
+    }
+
     /**
      * Tests the contents of a table.
      * It succeeds only if every element in row I is either a Number with
@@ -1,12 +1,24 @@
 package uk.ac.starlink.fits;
 
 import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
 import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import junit.framework.TestCase;
+import uk.ac.starlink.table.ArrayColumn;
+import uk.ac.starlink.table.ColumnPermutedStarTable;
+import uk.ac.starlink.table.ColumnStarTable;
 import uk.ac.starlink.table.LoopStarTable;
+import uk.ac.starlink.table.RowAccess;
+import uk.ac.starlink.table.RowSequence;
 import uk.ac.starlink.table.StarTable;
+import uk.ac.starlink.table.StarTableOutput;
 import uk.ac.starlink.table.StarTableWriter;
 import uk.ac.starlink.table.StoragePolicy;
 import uk.ac.starlink.table.TableBuilder;
@@ -61,6 +73,221 @@ public class SerializerTest extends TestCase {
         assertEquals( nrow0, t2r.getRowCount() );
     }
 
+    public void testParallelEncoding() throws IOException {
+        StarTable table = createVarTable( 200_000 );
+        StarTable seqTable = new WrapperStarTable( table ) {
+            @Override
+            public boolean isRandom() {
+                return false;
+            }
+        };
+        for ( AbstractFitsTableWriter writer :
+              new AbstractFitsTableWriter[] { new FitsTableWriter(),
+                                              new VariableFitsTableWriter() } ) {
+            writer.setWriteDate( false );
+            byte[] buf1 = write( table, writer, 1 );
+            assertTrue( buf1.length > 200_000 * 16 );
+            assertTrue( Arrays.equals( buf1, write( table, writer, 4 ) ) );
+            assertTrue( Arrays.equals( buf1, write( seqTable, writer, 3 ) ) );
+        }
+
+        /* Exercise 64-bit heap descriptors. */
+        AbstractFitsTableWriter writer = new VariableFitsTableWriter();
+        byte[][] bufs = new byte[ 2 ][];
+        for ( int i = 0; i < 2; i++ ) {
+            writer.setWriteThreadCount( i == 0 ? 1 : 4 );
+            VariableFitsTableSerializer fitser =
+                new VariableFitsTableSerializer( writer.getConfig(), table,
+                                                 StoragePolicy.PREFER_MEMORY );
+            fitser.set64BitMode( true );
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            fitser.writeData( new DataOutputStream( out ) );
+            bufs[ i ] = out.toByteArray();
+        }
+        assertTrue( Arrays.equals( bufs[ 0 ], bufs[ 1 ] ) );
+    }
+
+    public void testHeapCache() throws IOException {
+        int nrow = 3000;
+        AbstractFitsTableWriter writer = new VariableFitsTableWriter();
+        StarTable varTable = createVarTable( nrow );
+
+        /* Try with the heap column at the end and at the start of
+         * the row, since cached heap cells are skipped in row reads. */
+        int[][] colMaps = { { 0, 1, 2 }, { 2, 0, 1 } };
+        for ( int[] colMap : colMaps ) {
+            int ja = colMap[ 0 ] == 2 ? 0 : 2;
+            DataSource datsrc =
+                new ByteArrayDataSource( "t",
+                    write( new ColumnPermutedStarTable( varTable, colMap ),
+                           writer, 1 ) );
+            StarTable t =
+                new FitsTableBuilder()
+               .makeStarTable( datsrc, true, StoragePolicy.PREFER_MEMORY );
+            assertTrue( t instanceof BintableStarTable );
+            assertTrue( t.isRandom() );
+
+            /* Get reference values by sequential access, which is
+             * uncached. */
+            Object[][] rows = new Object[ nrow ][];
+            RowSequence rseq = t.getRowSequence();
+            for ( int ir = 0; rseq.next(); ir++ ) {
+                rows[ ir ] = rseq.getRow();
+            }
+            rseq.close();
+            assertEquals( 4, ((double[]) rows[ 4 ][ ja ]).length );
+
+            /* Repeated and out-of-sequence random reads. */
+            Random rnd = new Random( 23 );
+            ((BintableStarTable) t).prefetchRows( 100, 500 );
+            for ( int i = 0; i < 4 * nrow; i++ ) {
+                int ir = rnd.nextInt( nrow );
+                assertTrue( Arrays.deepEquals( rows[ ir ], t.getRow( ir ) ) );
+                assertTrue( Arrays
+                           .deepEquals( new Object[] { rows[ ir ][ ja ] },
+                                        new Object[] { t.getCell( ir, ja ) }));
+            }
+            RowAccess racc = t.getRowAccess();
+            for ( int ir = nrow - 1; ir >= 0; ir-- ) {
+                racc.setRowIndex( ir );
+                assertTrue( Arrays.deepEquals( rows[ ir ], racc.getRow() ) );
+            }
+            racc.close();
+
+            /* Cached values are returned without copying. */
+            Object a4 = t.getCell( 4, ja );
+            assertSame( a4, t.getCell( 4, ja ) );
+            assertSame( a4, t.getRow( 4 )[ ja ] );
+            t.close();
+        }
+    }
+
+    public void testDirectColfits() throws IOException {
+        int nrow = 150000;
+        StarTable fixedTable = createFixedTable( nrow );
+        StarTable varTable = createVarTable( 1000 );
+        ColFitsTableWriter writer = new ColFitsTableWriter();
+        writer.setWriteDate( false );
+        assertNotNull( ColFitsDirectWriter
+                      .createWriter( fixedTable, writer.getConfig() ) );
+        assertNull( ColFitsDirectWriter
+                   .createWriter( varTable, writer.getConfig() ) );
+        File file = File.createTempFile( "direct", ".colfits" );
+        file.deleteOnExit();
+        StarTableOutput sto = new StarTableOutput();
+        for ( boolean checksum : new boolean[] { false, true } ) {
+            writer.setChecksum( checksum );
+            for ( StarTable table : new StarTable[] { fixedTable, varTable } ) {
+
+                /* Output to a stream uses temporary column storage. */
+                byte[] streamBuf = write( table, writer, 1 );
+                for ( int nThread : new int[] { 1, 3 } ) {
+                    writer.setWriteThreadCount( nThread );
+                    writer.writeStarTables( Tables.singleTableSequence( table ),
+                                            file.toString(), sto );
+                    assertTrue( Arrays.equals( streamBuf,
+                                               Files.readAllBytes( file
+                                                                  .toPath())));
+                }
+                if ( checksum ) {
+                    try ( RandomAccessFile raf =
+                              new RandomAccessFile( file, "r" ) ) {
+                        assertEquals( 0, FitsUtil
+                                        .verifyChecksums( raf.getChannel(), 1 )
+                                        .size() );
+                    }
+                }
+            }
+        }
+
+        /* Multiple HDUs. */
+        writer.setChecksum( false );
+        writer.writeStarTables( Tables.arrayTableSequence(
+                                    new StarTable[] { varTable, fixedTable,
+                                                      fixedTable } ),
+                                file.toString(), sto );
+        ByteArrayOutputStream bout = new ByteArrayOutputStream();
+        writer.writeStarTables( Tables.arrayTableSequence(
+                                    new StarTable[] { varTable, fixedTable,
+                                                      fixedTable } ),
+                                bout );
+        assertTrue( Arrays.equals( bout.toByteArray(),
+                                   Files.readAllBytes( file.toPath() ) ) );
+        file.delete();
+    }
+
+    private static byte[] write( StarTable table,
+                                 AbstractFitsTableWriter writer, int nThread )
+            throws IOException {
+        writer.setWriteThreadCount( nThread );
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writer.writeStarTable( table, out );
+        return out.toByteArray();
+    }
+
+    private static StarTable createVarTable( int nrow ) {
+        int[] ivals = new int[ nrow ];
+        String[] svals = new String[ nrow ];
+        double[][] avals = new double[ nrow ][];
+        for ( int i = 0; i < nrow; i++ ) {
+            ivals[ i ] = i;
+            svals[ i ] = i % 7 == 0 ? null : "s" + ( i % 1000 );
+            avals[ i ] = i % 11 == 0 ? null : new double[ i % 5 ];
+            for ( int j = 0; j < i % 5 && avals[ i ] != null; j++ ) {
+                avals[ i ][ j ] = i + 0.25 * j;
+            }
+        }
+        ColumnStarTable table = ColumnStarTable.makeTableWithRows( nrow );
+        table.addColumn( ArrayColumn.makeColumn( "i", ivals ) );
+        table.addColumn( ArrayColumn.makeColumn( "s", svals ) );
+        ArrayColumn acol = ArrayColumn.makeColumn( "a", avals );
+        acol.getColumnInfo().setShape( new int[] { -1 } );
+        table.addColumn( acol );
+        return table;
+    }
+
+    private static StarTable createFixedTable( int nrow ) {
+        Random rnd = new Random( 5 );
+        Integer[] ivals = new Integer[ nrow ];
+        Integer[] nullvals = new Integer[ nrow ];
+        short[] svals = new short[ nrow ];
+        Byte[] bvals = new Byte[ nrow ];
+        Long[] lvals = new Long[ nrow ];
+        float[] fvals = new float[ nrow ];
+        double[] dvals = new double[ nrow ];
+        boolean[] flags = new boolean[ nrow ];
+        double[][] avals = new double[ nrow ][];
+        for ( int i = 0; i < nrow; i++ ) {
+
+            /* Using the default blank value forces replacement
+             * of the provisional blanks. */
+            ivals[ i ] = i % 13 == 0 ? null
+                       : i == 99 ? Integer.valueOf( Integer.MIN_VALUE )
+                       : Integer.valueOf( rnd.nextInt() );
+            svals[ i ] = (short) i;
+            bvals[ i ] = i % 100 == 1 ? null : Byte.valueOf( (byte) i );
+            lvals[ i ] = i % 7 == 0 ? null : Long.valueOf( rnd.nextLong() );
+            fvals[ i ] = rnd.nextFloat();
+            dvals[ i ] = rnd.nextGaussian();
+            flags[ i ] = rnd.nextBoolean();
+            avals[ i ] = i % 17 == 0 ? null
+                       : new double[] { i, -i, 0.5 * i };
+        }
+        ColumnStarTable table = ColumnStarTable.makeTableWithRows( nrow );
+        table.addColumn( ArrayColumn.makeColumn( "i", ivals ) );
+        table.addColumn( ArrayColumn.makeColumn( "null", nullvals ) );
+        table.addColumn( ArrayColumn.makeColumn( "s", svals ) );
+        table.addColumn( ArrayColumn.makeColumn( "b", bvals ) );
+        table.addColumn( ArrayColumn.makeColumn( "l", lvals ) );
+        table.addColumn( ArrayColumn.makeColumn( "f", fvals ) );
+        table.addColumn( ArrayColumn.makeColumn( "d", dvals ) );
+        table.addColumn( ArrayColumn.makeColumn( "flag", flags ) );
+        ArrayColumn acol = ArrayColumn.makeColumn( "a", avals );
+        acol.getColumnInfo().setShape( new int[] { 3 } );
+        table.addColumn( acol );
+        return table;
+    }
+
     public static StarTable roundTrip( StarTable table,
                                        StarTableWriter outHandler,
                                        TableBuilder inHandler )
@@ -0,0 +1,197 @@
+package uk.ac.starlink.fits;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.logging.Level;
+import junit.framework.TestCase;
+import uk.ac.starlink.table.ArrayColumn;
+import uk.ac.starlink.table.ColumnStarTable;
+import uk.ac.starlink.table.StarTable;
+import uk.ac.starlink.table.StoragePolicy;
+import uk.ac.starlink.table.Tables;
+import uk.ac.starlink.table.storage.ListRowStore;
+import uk.ac.starlink.util.ByteArrayDataSource;
+import uk.ac.starlink.util.LogUtils;
+
+public class TiledTableTest extends TestCase {
+
+    public TiledTableTest() {
+        LogUtils.getLogger( "uk.ac.starlink.fits" ).setLevel( Level.WARNING );
+    }
+
+    public void testRice() throws IOException {
+        Random rnd = new Random( 2300 );
+        for ( int bytepix : new int[] { 1, 2, 4 } ) {
+            RiceCodec codec = new RiceCodec( bytepix );
+            for ( int nval : new int[] { 0, 1, 31, 32, 33, 1000 } ) {
+                byte[] noisy = new byte[ nval * bytepix ];
+                rnd.nextBytes( noisy );
+                checkRice( codec, noisy );
+                checkRice( codec, new byte[ nval * bytepix ] );
+                byte[] smooth = new byte[ nval * bytepix ];
+                for ( int i = 0; i < nval; i++ ) {
+                    int v = 100 + (int) ( 20 * Math.sin( i * 0.1 ) )
+                          + rnd.nextInt( 3 );
+                    for ( int k = bytepix - 1; k >= 0; k-- ) {
+                        smooth[ i * bytepix + k ] = (byte) v;
+                        v >>= 8;
+                    }
+                }
+                byte[] comp = checkRice( codec, smooth );
+                if ( nval > 100 && bytepix > 1 ) {
+                    assertTrue( comp.length < smooth.length / 2 );
+                }
+            }
+        }
+    }
+
+    public void testCompressions() throws IOException {
+        Random rnd = new Random( 9 );
+        byte[] data = new byte[ 8 * 1001 ];
+        for ( int i = 0; i < data.length; i++ ) {
+            data[ i ] = (byte) ( i % 8 < 4 ? 0 : rnd.nextInt( 4 ) );
+        }
+        for ( TileCompression comp :
+              new TileCompression[] { TileCompression.GZIP_1,
+                                      TileCompression.GZIP_2,
+                                      TileCompression.NOCOMPRESS } ) {
+            for ( int elSize : new int[] { 1, 4, 8 } ) {
+                byte[] zdata = comp.compress( data, elSize );
+                byte[] data1 = new byte[ data.length ];
+                comp.decompress( zdata, elSize, data1 );
+                assertTrue( Arrays.equals( data, data1 ) );
+            }
+            assertSame( comp, TileCompression
+                             .getCompression( comp.getName().toLowerCase() ) );
+        }
+        assertNull( TileCompression.getCompression( "HCOMPRESS_1" ) );
+    }
+
+    public void testTiledTable() throws IOException {
+        int nrow = 2345;
+        StarTable table = createTestTable( nrow );
+        FitsTableWriter writer = new FitsTableWriter();
+        writer.setWriteDate( false );
+        byte[] plainBuf = write( table, writer );
+        writer.setTileLength( 1000 );
+        assertEquals( 1000, writer.getTileLength() );
+        byte[] tileBuf = write( table, writer );
+        assertTrue( tileBuf.length < plainBuf.length / 2 );
+
+        FitsTableBuilder builder = new FitsTableBuilder();
+        StarTable plainTable = read( builder, plainBuf );
+        StarTable tileTable = read( builder, tileBuf );
+        Tables.checkTable( tileTable );
+        assertTrue( tileTable.isRandom() );
+        assertEquals( nrow, tileTable.getRowCount() );
+        int ncol = plainTable.getColumnCount();
+        assertEquals( ncol, tileTable.getColumnCount() );
+        for ( int ic = 0; ic < ncol; ic++ ) {
+            assertEquals( plainTable.getColumnInfo( ic ).toString(),
+                          tileTable.getColumnInfo( ic ).toString() );
+        }
+        assertNull( tileTable.getParameterByName( "ZTABLE" ) );
+        assertNull( tileTable.getParameterByName( "ZCTYP1" ) );
+        assertRowsEqual( plainTable, tileTable );
+
+        /* Random access out of sequence. */
+        Random rnd = new Random( 44 );
+        for ( int i = 0; i < 200; i++ ) {
+            long irow = rnd.nextInt( nrow );
+            assertTrue( Arrays.deepEquals( plainTable.getRow( irow ),
+                                           tileTable.getRow( irow ) ) );
+        }
+        tileTable.close();
+
+        /* Streamed read. */
+        ListRowStore store = new ListRowStore();
+        try ( InputStream in =
+                  new ByteArrayDataSource( "t", tileBuf ).getInputStream() ) {
+            builder.streamStarTable( in, store, null );
+        }
+        assertRowsEqual( plainTable,
+                         Tables.randomTable( store.getStarTable() ) );
+
+        /* Tile length longer than the table. */
+        writer.setTileLength( 10 * nrow );
+        assertRowsEqual( plainTable, read( builder, write( table, writer ) ) );
+
+        /* Empty table. */
+        writer.setTileLength( 10 );
+        StarTable empty = read( builder, write( createTestTable( 0 ), writer ) );
+        assertEquals( 0, empty.getRowCount() );
+        assertEquals( ncol, empty.getColumnCount() );
+    }
+
+    private static byte[] checkRice( RiceCodec codec, byte[] data )
+            throws IOException {
+        byte[] comp = codec.compress( data );
+        byte[] data1 = new byte[ data.length ];
+        codec.decompress( comp, data1 );
+        assertTrue( Arrays.equals( data, data1 ) );
+        return comp;
+    }
+
+    private static void assertRowsEqual( StarTable t1, StarTable t2 )
+            throws IOException {
+        assertEquals( t1.getRowCount(), t2.getRowCount() );
+        for ( long ir = 0; ir < t1.getRowCount(); ir++ ) {
+            assertTrue( Arrays.deepEquals( t1.getRow( ir ), t2.getRow( ir ) ) );
+        }
+    }
+
+    private static byte[] write( StarTable table, FitsTableWriter writer )
+            throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writer.writeStarTable( table, out );
+        return out.toByteArray();
+    }
+
+    private static StarTable read( FitsTableBuilder builder, byte[] buf )
+            throws IOException {
+        return Tables.randomTable(
+                   builder.makeStarTable( new ByteArrayDataSource( "t", buf ),
+                                          true, StoragePolicy.PREFER_MEMORY ) );
+    }
+
+    private static StarTable createTestTable( int nrow ) {
+        Random rnd = new Random( 1234567 );
+        byte[] bvals = new byte[ nrow ];
+        short[] svals = new short[ nrow ];
+        int[] ivals = new int[ nrow ];
+        long[] lvals = new long[ nrow ];
+        float[] fvals = new float[ nrow ];
+        double[] dvals = new double[ nrow ];
+        boolean[] flags = new boolean[ nrow ];
+        String[] strs = new String[ nrow ];
+        int[][] iarrs = new int[ nrow ][];
+        Integer[] nullInts = new Integer[ nrow ];
+        for ( int i = 0; i < nrow; i++ ) {
+            bvals[ i ] = (byte) ( i % 7 );
+            svals[ i ] = (short) ( 1000 + i % 50 );
+            ivals[ i ] = i * 3 - 200;
+            lvals[ i ] = Long.MAX_VALUE - i;
+            fvals[ i ] = (float) ( 0.5 * ( i % 100 ) );
+            dvals[ i ] = rnd.nextGaussian();
+            flags[ i ] = i % 3 == 0;
+            strs[ i ] = i % 17 == 0 ? null : "row " + ( i % 123 );
+            iarrs[ i ] = new int[] { i, -i, i % 4 };
+            nullInts[ i ] = i % 5 == 0 ? null : Integer.valueOf( i );
+        }
+        ColumnStarTable table = ColumnStarTable.makeTableWithRows( nrow );
+        table.addColumn( ArrayColumn.makeColumn( "b", bvals ) );
+        table.addColumn( ArrayColumn.makeColumn( "s", svals ) );
+        table.addColumn( ArrayColumn.makeColumn( "i", ivals ) );
+        table.addColumn( ArrayColumn.makeColumn( "l", lvals ) );
+        table.addColumn( ArrayColumn.makeColumn( "f", fvals ) );
+        table.addColumn( ArrayColumn.makeColumn( "d", dvals ) );
+        table.addColumn( ArrayColumn.makeColumn( "flag", flags ) );
+        table.addColumn( ArrayColumn.makeColumn( "str", strs ) );
+        table.addColumn( ArrayColumn.makeColumn( "iarr", iarrs ) );
+        table.addColumn( ArrayColumn.makeColumn( "nulli", nullInts ) );
+        return table;
+    }
+}
@@ -7,7 +7,6 @@ import java.nio.file.Path;
 import java.nio.file.attribute.FileAttribute;
 import java.nio.file.attribute.PosixFilePermissions;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
@@ -17,14 +16,7 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.logging.Logger;
-import org.apache.parquet.column.ColumnDescriptor;
-import org.apache.parquet.column.ColumnReadStore;
-import org.apache.parquet.column.ColumnReader;
-import org.apache.parquet.column.page.PageReadStore;
 import org.apache.parquet.hadoop.ParquetFileReader;
-import org.apache.parquet.io.api.GroupConverter;
-import org.apache.parquet.schema.MessageType;
-import org.apache.parquet.schema.Type;
 import uk.ac.starlink.table.ColumnInfo;
 import uk.ac.starlink.table.RowAccess;
 import uk.ac.starlink.table.RowSequence;
@@ -151,7 +143,6 @@ public class CachedParquetStarTable extends ParquetStarTable {
      * @return   cached column data
      */
     private ColumnStore readColumn( int icol ) throws IOException {
-        InputColumn<?> incol = getInputColumn( icol );
         ColumnInfo cinfo = getColumnInfo( icol );
         List<File> tmpFiles = new ArrayList<>();
 
@@ -174,51 +165,8 @@ public class CachedParquetStarTable extends ParquetStarTable {
         logger_.config( "Caching data for column " + cinfo.getName()
                       + " " + tmpFiles );
 
-        /* Prepare the ParquetFileReader so that it only reads the
-         * metadata for the column under consideration.  If you don't do
-         * this it still works, but the metadata read can be very slow
-         * and have a very large memory footprint.  It took me a long
-         * time exploring the essentially undocumented parquet-mr API
-         * to work out this is what you have to do. */
-        String[] cpath = incol.getColumnDescriptor().getPath();
-        List<Type> types = new ArrayList<>();
-        MessageType schema = getSchema();
-        for ( int ip = 1; ip <= cpath.length; ip++ ) {
-            String[] subpath = new String[ ip ];
-            System.arraycopy( cpath, 0, subpath, 0, ip );
-            types.add( schema.getType( subpath ) );
-        }
-        MessageType projSchema =
-            new MessageType( "col_" + cinfo.getName(), types );
-        ParquetFileReader pfr = getParquetFileReader();
-        pfr.setRequestedSchema( projSchema );
-
         /* Read the column data into the storage, and return it. */
-        ColumnDescriptor cdesc = incol.getColumnDescriptor();
-        final int cdefmax = cdesc.getMaxDefinitionLevel();
-        for ( PageReadStore pageStore;
-              ( pageStore = pfr.readNextRowGroup() ) != null; ) {
-            ColumnReadStore crstore =
-                getColumnReadStore( pageStore, projSchema );
-            Decoder<?> decoder = incol.createDecoder();
-            ColumnReader crdr = crstore.getColumnReader( cdesc );
-            long nr = pageStore.getRowCount();
-            for ( long ir = 0; ir < nr; ir++ ) {
-                decoder.clearValue();
-                do {
-                    if ( crdr.getCurrentDefinitionLevel() == cdefmax ) {
-                        decoder.readItem( crdr );
-                    }
-                    // I thought you should do this, but it seems not.
-                    // else {
-                    //     decoder.readNull();
-                    // }
-                    crdr.consume();
-                }
-                while ( crdr.getCurrentRepetitionLevel() > 0 );
-                colStore.acceptCell( decoder.getValue() );
-            }
-        }
+        readColumnCells( icol, colStore::acceptCell );
         colStore.endCells();
         return colStore;
     }
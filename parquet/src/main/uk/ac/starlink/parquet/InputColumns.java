@@ -5,8 +5,12 @@ import java.util.BitSet;
 import java.util.List;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
+import java.util.function.DoubleFunction;
 import java.util.function.Function;
+import java.util.function.LongFunction;
 import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToLongFunction;
 import org.apache.parquet.column.ColumnDescriptor;
 import org.apache.parquet.column.ColumnReader;
 import org.apache.parquet.schema.LogicalTypeAnnotation;
@@ -217,43 +221,49 @@ public class InputColumns {
                     isSigned = true;
                 }
                 if ( nbit == 8 && isSigned ) {
-                    return new ScalarCol<Byte>(
+                    return new IntegerScalarCol<Byte>(
                                Byte.class,
-                               rdr -> Byte.valueOf( (byte) rdr.getInteger() ) );
+                               rdr -> (byte) rdr.getInteger(),
+                               lval -> Byte.valueOf( (byte) lval ) );
                 }
                 else if ( nbit == 16 && isSigned ||
                           nbit == 8 && ! isSigned ) {
-                    return new ScalarCol<Short>(
+                    return new IntegerScalarCol<Short>(
                                Short.class,
-                               rdr -> Short.valueOf( (short) rdr.getInteger()));
+                               rdr -> (short) rdr.getInteger(),
+                               lval -> Short.valueOf( (short) lval ) );
                 }
                 else if ( nbit == 32 && isSigned ||
                           nbit == 16 && ! isSigned ) {
-                    return new ScalarCol<Integer>(
+                    return new IntegerScalarCol<Integer>(
                                Integer.class,
-                               rdr -> Integer.valueOf( rdr.getInteger() ) );
+                               rdr -> rdr.getInteger(),
+                               lval -> Integer.valueOf( (int) lval ) );
                 }
                 else if ( nbit == 32 || ! isSigned ) {
-                    return new ScalarCol<Long>(
+                    return new IntegerScalarCol<Long>(
                         Long.class,
-                        rdr -> Long.valueOf(
-                               Integer.toUnsignedLong( rdr.getInteger() ) ) );
+                        rdr -> Integer.toUnsignedLong( rdr.getInteger() ),
+                        lval -> Long.valueOf( lval ) );
                 }
                 else {
                     return null;
                 }
             case INT64:
-                return new ScalarCol<Long>(
+                return new IntegerScalarCol<Long>(
                            Long.class,
-                           rdr -> Long.valueOf( rdr.getLong() ) );
+                           rdr -> rdr.getLong(),
+                           lval -> Long.valueOf( lval ) );
             case FLOAT:
-                return new ScalarCol<Float>(
+                return new FloatingScalarCol<Float>(
                            Float.class,
-                           rdr -> Float.valueOf( rdr.getFloat() ) );
+                           rdr -> rdr.getFloat(),
+                           dval -> Float.valueOf( (float) dval ) );
             case DOUBLE:
-                return new ScalarCol<Double>(
+                return new FloatingScalarCol<Double>(
                            Double.class,
-                           rdr -> Double.valueOf( rdr.getDouble() ) );
+                           rdr -> rdr.getDouble(),
+                           dval -> Double.valueOf( dval ) );
             case BINARY:
                 if ( logType instanceof LogicalTypeAnnotation
                                        .StringLogicalTypeAnnotation ) {
@@ -516,6 +526,127 @@ public class InputColumns {
         }
     }
 
+    /**
+     * Col implementation for integer scalar valued columns.
+     * The decoders it produces are {@link NumericDecoder}s.
+     */
+    private static class IntegerScalarCol<T> implements Col<T> {
+        final Class<T> clazz_;
+        final ToLongFunction<ColumnReader> readFunc_;
+        final LongFunction<T> boxFunc_;
+
+        /**
+         * Constructor.
+         *
+         * @param   clazz  content class
+         * @param   readFunc   takes a primitive value from a ColumnReader
+         * @param   boxFunc   turns a primitive value into a content object
+         */
+        IntegerScalarCol( Class<T> clazz, ToLongFunction<ColumnReader> readFunc,
+                          LongFunction<T> boxFunc ) {
+            clazz_ = clazz;
+            readFunc_ = readFunc;
+            boxFunc_ = boxFunc;
+        }
+
+        public Class<T> getContentClass() {
+            return clazz_;
+        }
+
+        public Decoder<T> createDecoder() {
+            return new NumericDecoder<T>() {
+                boolean hasValue_;
+                long value_;
+                public Class<T> getContentClass() {
+                    return clazz_;
+                }
+                public void clearValue() {
+                    hasValue_ = false;
+                }
+                public void readItem( ColumnReader crdr ) {
+                    value_ = readFunc_.applyAsLong( crdr );
+                    hasValue_ = true;
+                }
+                public void readNull() {
+                    hasValue_ = false;
+                }
+                public T getValue() {
+                    return hasValue_ ? boxFunc_.apply( value_ ) : null;
+                }
+                public double getDoubleValue() {
+                    return hasValue_ ? (double) value_ : Double.NaN;
+                }
+                public long getLongValue() {
+                    return value_;
+                }
+                public boolean isNullValue() {
+                    return ! hasValue_;
+                }
+            };
+        }
+    }
+
+    /**
+     * Col implementation for floating point scalar valued columns.
+     * The decoders it produces are {@link NumericDecoder}s.
+     */
+    private static class FloatingScalarCol<T> implements Col<T> {
+        final Class<T> clazz_;
+        final ToDoubleFunction<ColumnReader> readFunc_;
+        final DoubleFunction<T> boxFunc_;
+
+        /**
+         * Constructor.
+         *
+         * @param   clazz  content class
+         * @param   readFunc   takes a primitive value from a ColumnReader
+         * @param   boxFunc   turns a primitive value into a content object
+         */
+        FloatingScalarCol( Class<T> clazz,
+                           ToDoubleFunction<ColumnReader> readFunc,
+                           DoubleFunction<T> boxFunc ) {
+            clazz_ = clazz;
+            readFunc_ = readFunc;
+            boxFunc_ = boxFunc;
+        }
+
+        public Class<T> getContentClass() {
+            return clazz_;
+        }
+
+        public Decoder<T> createDecoder() {
+            return new NumericDecoder<T>() {
+                boolean hasValue_;
+                double value_;
+                public Class<T> getContentClass() {
+                    return clazz_;
+                }
+                public void clearValue() {
+                    hasValue_ = false;
+                }
+                public void readItem( ColumnReader crdr ) {
+                    value_ = readFunc_.applyAsDouble( crdr );
+                    hasValue_ = true;
+                }
+                public void readNull() {
+                    hasValue_ = false;
+                }
+                public T getValue() {
+                    return hasValue_ ? boxFunc_.apply( value_ ) : null;
+                }
+                public double getDoubleValue() {
+                    return hasValue_ ? value_ : Double.NaN;
+                }
+                public long getLongValue() {
+                    return (long) value_;
+                }
+                public boolean isNullValue() {
+                    return ! hasValue_ || Double.isNaN( value_ );
+                }
+            };
+        }
+    }
+
     /**
      * Col implementation for array valued columns.
      */
@@ -0,0 +1,277 @@
+package uk.ac.starlink.parquet;
+
+import java.io.IOException;
+import java.lang.ref.SoftReference;
+import java.util.logging.Logger;
+import org.apache.parquet.hadoop.ParquetFileReader;
+import uk.ac.starlink.table.ColumnPermutedStarTable;
+import uk.ac.starlink.table.RowAccess;
+import uk.ac.starlink.table.RowSequence;
+import uk.ac.starlink.table.RowStore;
+import uk.ac.starlink.table.StarTable;
+import uk.ac.starlink.table.StoragePolicy;
+import uk.ac.starlink.util.IOSupplier;
+
+/**
+ * ParquetStarTable implementation that reads column data only when
+ * it is first required.
+ * The first time any cell of a given column is accessed, all the data
+ * for that column is read from the file and cached using a supplied
+ * storage policy.  Columns that are never accessed are never read.
+ *
+ * <p>Cached column data is only softly reachable from this table,
+ * so that under memory pressure the garbage collector may discard
+ * columns that are not currently in use.  If that happens,
+ * the column is read again next time it is needed.
+ *
+ * @author   Mark Taylor
+ * @since    17 Oct 2026
+ */
+public class LazyParquetStarTable extends ParquetStarTable {
+
+    private final StoragePolicy storage_;
+    private final ColumnCache[] colCaches_;
+    private static final Logger logger_ =
+        Logger.getLogger( "uk.ac.starlink.parquet" );
+
+    /**
+     * Constructor.
+     *
+     * @param  pfrSupplier  access to parquet data file
+     * @param  storage   storage policy used for caching column data
+     */
+    public LazyParquetStarTable( IOSupplier<ParquetFileReader> pfrSupplier,
+                                 StoragePolicy storage )
+            throws IOException {
+        super( pfrSupplier );
+        storage_ = storage;
+        int ncol = getColumnCount();
+        colCaches_ = new ColumnCache[ ncol ];
+        for ( int icol = 0; icol < ncol; icol++ ) {
+            colCaches_[ icol ] = new ColumnCache( icol );
+        }
+    }
+
+    public boolean isRandom() {
+        return true;
+    }
+
+    public Object getCell( long irow, int icol ) throws IOException {
+        return colCaches_[ icol ].getTable().getCell( irow, 0 );
+    }
+
+    public RowAccess getRowAccess() {
+        return new LazyRowAccess();
+    }
+
+    public RowSequence getRowSequence() {
+        final long nrow = getRowCount();
+        final LazyRowAccess racc = new LazyRowAccess();
+        return new RowSequence() {
+            long irow_ = -1;
+            public boolean next() {
+                if ( irow_ < nrow - 1 ) {
+                    racc.setRowIndex( ++irow_ );
+                    return true;
+                }
+                else {
+                    return false;
+                }
+            }
+            public Object getCell( int icol ) throws IOException {
+                return racc.getCell( icol );
+            }
+            public Object[] getRow() throws IOException {
+                return racc.getRow();
+            }
+            public double getDouble( int icol ) throws IOException {
+                return racc.getDouble( icol );
+            }
+            public long getLong( int icol ) throws IOException {
+                return racc.getLong( icol );
+            }
+            public boolean isNull( int icol ) throws IOException {
+                return racc.isNull( icol );
+            }
+            public void close() throws IOException {
+                racc.close();
+            }
+        };
+    }
+
+    /**
+     * Indicates whether the data for a given column is currently cached.
+     *
+     * @param  icol  column index
+     * @return  true iff the column data is available without reading
+     *          from the parquet file
+     */
+    public boolean isColumnCached( int icol ) {
+        return colCaches_[ icol ].getCachedTable() != null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            super.close();
+        }
+        finally {
+            for ( ColumnCache cache : colCaches_ ) {
+                cache.clear();
+            }
+        }
+    }
+
+    /**
+     * Manages the cached data for a single column.
+     */
+    private class ColumnCache {
+
+        private final int icol_;
+        private SoftReference<StarTable> tableRef_;
+        private int nread_;
+
+        /**
+         * Constructor.
+         *
+         * @param  icol  column index
+         */
+        ColumnCache( int icol ) {
+            icol_ = icol;
+        }
+
+        /**
+         * Returns a single-column random-access table containing the
+         * data for this column, reading it if necessary.
+         *
+         * @return  column data table
+         */
+        synchronized StarTable getTable() throws IOException {
+            StarTable table = getCachedTable();
+            if ( table == null ) {
+                table = readTable();
+                tableRef_ = new SoftReference<StarTable>( table );
+            }
+            return table;
+        }
+
+        /**
+         * Returns the cached data for this column, if available.
+         *
+         * @return  column data table, or null
+         */
+        synchronized StarTable getCachedTable() {
+            return tableRef_ == null ? null : tableRef_.get();
+        }
+
+        /**
+         * Discards any cached data for this column.
+         */
+        synchronized void clear() throws IOException {
+            StarTable table = getCachedTable();
+            tableRef_ = null;
+            if ( table != null ) {
+                table.close();
+            }
+        }
+
+        /**
+         * Reads the data for this column from the parquet file
+         * into a table obtained from the storage policy.
+         *
+         * @return  column data table
+         */
+        private StarTable readTable() throws IOException {
+            String cname = getColumnInfo( icol_ ).getName();
+            if ( nread_++ > 0 ) {
+                logger_.info( "Re-reading discarded parquet column " + cname );
+            }
+            else {
+                logger_.config( "Reading parquet column " + cname );
+            }
+            StarTable meta =
+                new ColumnPermutedStarTable( LazyParquetStarTable.this,
+                                             new int[] { icol_ } );
+            RowStore store = storage_.makeConfiguredRowStore( meta );
+            Object[] row = new Object[ 1 ];
+            readColumnCells( icol_, value -> {
+                row[ 0 ] = value;
+                store.acceptRow( row );
+            } );
+            store.endRows();
+            return store.getStarTable();
+        }
+    }
+
+    /**
+     * RowAccess implementation for this table.
+     * It keeps a RowAccess for each column that has been accessed,
+     * so cached column data stays in use while this object is open.
+     */
+    private class LazyRowAccess implements RowAccess {
+
+        private final RowAccess[] colAccs_;
+        private final Object[] row_;
+        private long irow_;
+
+        LazyRowAccess() {
+            int ncol = getColumnCount();
+            colAccs_ = new RowAccess[ ncol ];
+            row_ = new Object[ ncol ];
+            irow_ = -1;
+        }
+
+        public void setRowIndex( long irow ) {
+            irow_ = irow;
+        }
+
+        public Object getCell( int icol ) throws IOException {
+            return getColumnAccess( icol ).getCell( 0 );
+        }
+
+        public Object[] getRow() throws IOException {
+            for ( int icol = 0; icol < row_.length; icol++ ) {
+                row_[ icol ] = getCell( icol );
+            }
+            return row_;
+        }
+
+        public double getDouble( int icol ) throws IOException {
+            return getColumnAccess( icol ).getDouble( 0 );
+        }
+
+        public long getLong( int icol ) throws IOException {
+            return getColumnAccess( icol ).getLong( 0 );
+        }
+
+        public boolean isNull( int icol ) throws IOException {
+            return getColumnAccess( icol ).isNull( 0 );
+        }
+
+        public void close() throws IOException {
+            for ( int icol = 0; icol < colAccs_.length; icol++ ) {
+                if ( colAccs_[ icol ] != null ) {
+                    colAccs_[ icol ].close();
+                    colAccs_[ icol ] = null;
+                }
+            }
+        }
+
+        /**
+         * Returns a RowAccess for the data of a given column,
+         * positioned at the current row.
+         *
+         * @param  icol  column index
+         * @return  single-column row access
+         */
+        private RowAccess getColumnAccess( int icol ) throws IOException {
+            RowAccess racc = colAccs_[ icol ];
+            if ( racc == null ) {
+                racc = colCaches_[ icol ].getTable().getRowAccess();
+                colAccs_[ icol ] = racc;
+            }
+            racc.setRowIndex( irow_ );
+            return racc;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package uk.ac.starlink.parquet;
+
+/**
+ * Decoder for scalar numeric values which can supply
+ * its current value as a primitive as well as an object.
+ * The primitive accessors do not require object creation.
+ *
+ * @author   Mark Taylor
+ * @since    17 Oct 2026
+ */
+public interface NumericDecoder<T> extends Decoder<T> {
+
+    /**
+     * Returns the current value as a floating point number.
+     *
+     * @return  current value, or NaN if it is null
+     */
+    double getDoubleValue();
+
+    /**
+     * Returns the current value as a long integer.
+     * The result is undefined if the current value is null.
+     *
+     * @return  current value
+     */
+    long getLongValue();
+
+    /**
+     * Indicates whether the current value is blank.
+     * This is the case if it is null or NaN.
+     *
+     * @return   true iff the current value is blank
+     */
+    boolean isNullValue();
+}
@@ -0,0 +1,605 @@
+package uk.ac.starlink.parquet;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.parquet.bytes.BytesInput;
+import org.apache.parquet.column.ColumnDescriptor;
+import org.apache.parquet.column.ColumnWriteStore;
+import org.apache.parquet.column.Encoding;
+import org.apache.parquet.column.ParquetProperties;
+import org.apache.parquet.column.ValuesType;
+import org.apache.parquet.column.page.DictionaryPage;
+import org.apache.parquet.column.page.PageWriteStore;
+import org.apache.parquet.column.page.PageWriter;
+import org.apache.parquet.column.statistics.Statistics;
+import org.apache.parquet.column.values.ValuesReader;
+import org.apache.parquet.compression.CompressionCodecFactory;
+import org.apache.parquet.hadoop.CodecFactory;
+import org.apache.parquet.hadoop.ParquetFileWriter;
+import org.apache.parquet.hadoop.ParquetWriter;
+import org.apache.parquet.hadoop.api.WriteSupport;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+import org.apache.parquet.io.ColumnIOFactory;
+import org.apache.parquet.io.OutputFile;
+import org.apache.parquet.io.ParquetEncodingException;
+import org.apache.parquet.io.ValidatingRecordConsumer;
+import org.apache.parquet.io.api.RecordConsumer;
+import org.apache.parquet.schema.MessageType;
+import uk.ac.starlink.table.RowSequence;
+
+/**
+ * Writes a parquet file, encoding and compressing row groups concurrently.
+ *
+ * <p>The parquet-mr ParquetWriter encodes and compresses each row group
+ * in the writing thread.  This class instead reads rows sequentially
+ * in the calling thread and passes blocks of them to tasks running in
+ * a thread pool, each of which encodes and compresses a whole row group
+ * into memory.  The completed row groups are appended to the output
+ * file in sequence by the calling thread, followed by a standard footer.
+ * The number of row groups in memory at any one time is limited.
+ *
+ * <p>The number of rows in each row group is determined by encoding
+ * the first row group in the calling thread until its encoded size
+ * reaches the requested row group size.
+ * Subsequent row groups have the same number of rows.
+ * Since the rows for each in-flight group are held in memory as
+ * objects, which take considerably more space than the encoded data,
+ * the row group size is limited to {@link #MAX_GROUP_SIZE}.
+ *
+ * @author   Mark Taylor
+ * @since    17 Oct 2026
+ */
+class ParallelParquetWriter {
+
+    private final Supplier<WriteSupport<Object[]>> supportFactory_;
+    private final CompressionCodecName codec_;
+    private final ForkJoinPool pool_;
+    private final int maxGroups_;
+    private final long rowGroupSize_;
+    private final Configuration conf_;
+    private final ParquetProperties props_;
+
+    /** Number of rows between encoded size checks for the first group. */
+    private static final int CHECK_ROWS = 100;
+
+    /** Maximum row group size in bytes used for parallel encoding. */
+    public static final long MAX_GROUP_SIZE = 32 * 1024 * 1024;
+
+    private static final Logger logger_ =
+        Logger.getLogger( "uk.ac.starlink.parquet" );
+
+    /**
+     * Constructor.
+     *
+     * @param  supportFactory  supplier of objects that convert rows to
+     *                         parquet records; a new instance is acquired
+     *                         for each row group
+     * @param  codec   compression codec
+     * @param  pool    thread pool for encoding tasks
+     * @param  maxGroups  maximum number of row groups being encoded or
+     *                    awaiting output at any one time
+     * @param  rowGroupSize  target row group size in bytes;
+     *                       values larger than {@link #MAX_GROUP_SIZE}
+     *                       are reduced to that value
+     */
+    public ParallelParquetWriter( Supplier<WriteSupport<Object[]>>
+                                  supportFactory,
+                                  CompressionCodecName codec, ForkJoinPool pool,
+                                  int maxGroups, long rowGroupSize ) {
+        supportFactory_ = supportFactory;
+        codec_ = codec;
+        pool_ = pool;
+        maxGroups_ = Math.max( 1, maxGroups );
+        rowGroupSize_ = Math.min( rowGroupSize, MAX_GROUP_SIZE );
+        conf_ = new Configuration();
+
+        /* The writer version is fixed at 1.0, since the page store
+         * only handles V1 data pages, which are the only kind
+         * written by the V1 column writers. */
+        props_ = ParquetProperties.builder()
+                                  .withWriterVersion( ParquetProperties
+                                                     .WriterVersion
+                                                     .PARQUET_1_0 )
+                                  .withDictionaryEncoding( true )
+                                  .withPageWriteChecksumEnabled( false )
+                                  .build();
+    }
+
+    /**
+     * Writes all the rows of a row sequence as a parquet file.
+     *
+     * @param  rseq  row sequence
+     * @param  ofile  destination file
+     */
+    public void writeRows( RowSequence rseq, OutputFile ofile )
+            throws IOException {
+        WriteSupport<Object[]> support0 = supportFactory_.get();
+        WriteSupport.WriteContext context = support0.init( conf_ );
+        MessageType schema = context.getSchema();
+        ParquetFileWriter fwriter =
+            new ParquetFileWriter( ofile, schema,
+                                   ParquetFileWriter.Mode.OVERWRITE,
+                                   rowGroupSize_, 0,
+                                   ParquetProperties
+                                  .DEFAULT_COLUMN_INDEX_TRUNCATE_LENGTH,
+                                   ParquetProperties
+                                  .DEFAULT_STATISTICS_TRUNCATE_LENGTH,
+                                   false );
+        fwriter.start();
+
+        /* Encode the first row group in this thread, to find out how
+         * many rows fit in a row group. */
+        GroupEncoder encoder0 = new GroupEncoder( support0, schema );
+        boolean more;
+        while ( ( more = rseq.next() ) ) {
+            encoder0.write( rseq.getRow() );
+            if ( encoder0.nrow_ % CHECK_ROWS == 0 &&
+                 encoder0.getBufferedSize() >= rowGroupSize_ ) {
+                break;
+            }
+        }
+        long nrow0 = encoder0.nrow_;
+        if ( nrow0 > 0 ) {
+            encoder0.finish().writeTo( fwriter );
+        }
+        int groupRows = (int) Math.min( nrow0, Integer.MAX_VALUE - 8 );
+
+        /* Encode the remaining row groups in parallel. */
+        if ( more ) {
+            logger_.info( "Encoding parquet row groups of " + groupRows
+                        + " rows with " + pool_.getParallelism()
+                        + " threads" );
+        }
+        Deque<Future<EncodedGroup>> queue = new ArrayDeque<>();
+        try {
+            while ( more ) {
+                Object[][] rows = new Object[ groupRows ][];
+                int nr = 0;
+                while ( nr < groupRows && ( more = rseq.next() ) ) {
+                    rows[ nr++ ] = rseq.getRow().clone();
+                }
+                if ( nr > 0 ) {
+                    int nrow = nr;
+                    queue.add( pool_.submit( () ->
+                        encodeRows( rows, nrow, schema )
+                    ) );
+                }
+                while ( queue.size() >= maxGroups_ ||
+                        ( ! more && ! queue.isEmpty() ) ) {
+                    getGroup( queue.removeFirst() ).writeTo( fwriter );
+                }
+            }
+        }
+        finally {
+            for ( Future<EncodedGroup> future : queue ) {
+                future.cancel( false );
+            }
+        }
+
+        /* Write the footer, with the same key-value metadata that
+         * ParquetWriter would write. */
+        Map<String,String> extraMeta =
+            new HashMap<>( context.getExtraMetaData() );
+        extraMeta.putAll( support0.finalizeWrite().getExtraMetaData() );
+        String modelName = support0.getName();
+        if ( modelName != null ) {
+            extraMeta.put( ParquetWriter.OBJECT_MODEL_NAME_PROP, modelName );
+        }
+        fwriter.end( extraMeta );
+    }
+
+    /**
+     * Encodes a block of rows as a row group.
+     *
+     * @param  rows  row data
+     * @param  nrow  number of rows to encode
+     * @param  schema  output schema
+     * @return  encoded row group
+     */
+    private EncodedGroup encodeRows( Object[][] rows, int nrow,
+                                     MessageType schema )
+            throws IOException {
+        WriteSupport<Object[]> support = supportFactory_.get();
+        support.init( conf_ );
+        GroupEncoder encoder = new GroupEncoder( support, schema );
+        for ( int ir = 0; ir < nrow; ir++ ) {
+            encoder.write( rows[ ir ] );
+            rows[ ir ] = null;
+        }
+        return encoder.finish();
+    }
+
+    /**
+     * Waits for the result of an encoding task.
+     *
+     * @param  future  future result
+     * @return  encoded row group
+     */
+    private static EncodedGroup getGroup( Future<EncodedGroup> future )
+            throws IOException {
+        try {
+            return future.get();
+        }
+        catch ( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            throw (IOException)
+                  new InterruptedIOException( "Interrupted" ).initCause( e );
+        }
+        catch ( ExecutionException e ) {
+            Throwable err = e.getCause();
+            if ( err instanceof IOException ) {
+                throw (IOException) err;
+            }
+            else if ( err instanceof RuntimeException ) {
+                throw (RuntimeException) err;
+            }
+            else if ( err instanceof Error ) {
+                throw (Error) err;
+            }
+            else {
+                throw new IOException( err );
+            }
+        }
+    }
+
+    /**
+     * Encodes rows into an in-memory row group.
+     * Instances are not thread-safe.
+     */
+    private class GroupEncoder {
+
+        final WriteSupport<Object[]> support_;
+        final CompressionCodecFactory codecFactory_;
+        final BufferedPageStore pageStore_;
+        final ColumnWriteStore colStore_;
+        final RecordConsumer consumer_;
+        long nrow_;
+
+        /**
+         * Constructor.
+         *
+         * @param  support  initialised write support, for exclusive use
+         *                  of this encoder
+         * @param  schema   output schema
+         */
+        GroupEncoder( WriteSupport<Object[]> support, MessageType schema ) {
+            support_ = support;
+            codecFactory_ =
+                new CodecFactory( conf_, props_.getPageSizeThreshold() );
+            pageStore_ =
+                new BufferedPageStore( schema,
+                                       codecFactory_.getCompressor( codec_ ) );
+            colStore_ = props_.newColumnWriteStore( schema, pageStore_ );
+            consumer_ = new ColumnIOFactory( true )
+                       .getColumnIO( schema )
+                       .getRecordWriter( colStore_ );
+            support.prepareForWrite( new ValidatingRecordConsumer( consumer_,
+                                                                   schema ) );
+        }
+
+        /**
+         * Encodes a row.
+         *
+         * @param  row  row data
+         */
+        void write( Object[] row ) {
+            support_.write( row );
+            nrow_++;
+        }
+
+        /**
+         * Returns the approximate size of the data encoded so far.
+         *
+         * @return  size in bytes
+         */
+        long getBufferedSize() {
+            return colStore_.getBufferedSize();
+        }
+
+        /**
+         * Completes encoding, and returns the encoded row group.
+         * This object may not be used after this call.
+         *
+         * @return  encoded row group
+         */
+        EncodedGroup finish() {
+            try {
+                consumer_.flush();
+                colStore_.flush();
+                colStore_.close();
+                return new EncodedGroup( nrow_, pageStore_.getColumns() );
+            }
+            finally {
+                codecFactory_.release();
+            }
+        }
+    }
+
+    /**
+     * Contains the encoded and compressed data for a row group.
+     */
+    private static class EncodedGroup {
+
+        final long nrow_;
+        final List<ColumnPages> columns_;
+
+        /**
+         * Constructor.
+         *
+         * @param  nrow  number of rows
+         * @param  columns  encoded column chunks in schema order
+         */
+        EncodedGroup( long nrow, List<ColumnPages> columns ) {
+            nrow_ = nrow;
+            columns_ = columns;
+        }
+
+        /**
+         * Writes this row group to a parquet file.
+         *
+         * @param  fwriter  file writer
+         */
+        void writeTo( ParquetFileWriter fwriter ) throws IOException {
+            fwriter.startBlock( nrow_ );
+            for ( ColumnPages colPages : columns_ ) {
+                colPages.writeTo( fwriter );
+            }
+            fwriter.endBlock();
+        }
+    }
+
+    /**
+     * PageWriteStore implementation that keeps compressed pages in memory.
+     */
+    private static class BufferedPageStore implements PageWriteStore {
+
+        private final Map<ColumnDescriptor,ColumnPages> colMap_;
+
+        /**
+         * Constructor.
+         *
+         * @param  schema  schema
+         * @param  compressor  page compressor
+         */
+        BufferedPageStore( MessageType schema,
+                           CompressionCodecFactory.BytesInputCompressor compressor ) {
+            colMap_ = new LinkedHashMap<>();
+            for ( ColumnDescriptor cdesc : schema.getColumns() ) {
+                colMap_.put( cdesc, new ColumnPages( cdesc, compressor ) );
+            }
+        }
+
+        public PageWriter getPageWriter( ColumnDescriptor cdesc ) {
+            return colMap_.get( cdesc );
+        }
+
+        /**
+         * Returns the page data for all the columns.
+         *
+         * @return  column chunk data in schema order
+         */
+        List<ColumnPages> getColumns() {
+            return new ArrayList<ColumnPages>( colMap_.values() );
+        }
+    }
+
+    /**
+     * PageWriter implementation that keeps compressed pages for a
+     * single column chunk in memory.
+     */
+    private static class ColumnPages implements PageWriter {
+
+        private final ColumnDescriptor cdesc_;
+        private final CompressionCodecFactory.BytesInputCompressor compressor_;
+        private final CompressionCodecName codecName_;
+        private final List<DataPage> pages_;
+        private DictionaryPage dictPage_;
+        private long nvalue_;
+        private long memSize_;
+
+        /**
+         * Constructor.
+         *
+         * @param  cdesc  column descriptor
+         * @param  compressor  page compressor
+         */
+        ColumnPages( ColumnDescriptor cdesc,
+                     CompressionCodecFactory.BytesInputCompressor compressor ) {
+            cdesc_ = cdesc;
+            compressor_ = compressor;
+            codecName_ = compressor.getCodecName();
+            pages_ = new ArrayList<>();
+        }
+
+        /**
+         * Writes a page without a supplied row count.
+         * The row count is the value count for non-repeated columns,
+         * and is otherwise obtained by counting the zero repetition levels.
+         */
+        @Deprecated
+        public void writePage( BytesInput bytes, int valueCount,
+                               Statistics<?> stats, Encoding rlEncoding,
+                               Encoding dlEncoding, Encoding valuesEncoding )
+                throws IOException {
+            final int rowCount;
+            if ( cdesc_.getMaxRepetitionLevel() == 0 ) {
+                rowCount = valueCount;
+            }
+            else {
+
+                /* Take a copy, since the input is read twice. */
+                bytes = BytesInput.copy( bytes );
+                ValuesReader rlReader =
+                    rlEncoding.getValuesReader( cdesc_,
+                                                ValuesType.REPETITION_LEVEL );
+                rlReader.initFromPage( valueCount, bytes.toInputStream() );
+                int nrow = 0;
+                for ( int iv = 0; iv < valueCount; iv++ ) {
+                    if ( rlReader.readInteger() == 0 ) {
+                        nrow++;
+                    }
+                }
+                rowCount = nrow;
+            }
+            writePage( bytes, valueCount, rowCount, stats, rlEncoding,
+                       dlEncoding, valuesEncoding );
+        }
+
+        public void writePage( BytesInput bytes, int valueCount, int rowCount,
+                               Statistics<?> stats, Encoding rlEncoding,
+                               Encoding dlEncoding, Encoding valuesEncoding )
+                throws IOException {
+            long usize = bytes.size();
+            if ( usize > Integer.MAX_VALUE ) {
+                throw new ParquetEncodingException( "Page too large: "
+                                                  + usize + " bytes" );
+            }
+
+            /* The input buffers and the compressor output may be
+             * re-used after this call, so take a copy. */
+            BytesInput cbytes = BytesInput.copy( compressor_.compress( bytes ) );
+            pages_.add( new DataPage( cbytes, (int) usize, valueCount,
+                                      rowCount, stats, rlEncoding,
+                                      dlEncoding, valuesEncoding ) );
+            nvalue_ += valueCount;
+            memSize_ += cbytes.size();
+        }
+
+        /**
+         * Writes a V2 page by converting it to the equivalent V1 page.
+         * The writer version is fixed at 1.0, so the column writers
+         * do not call this method, and ParquetFileWriter has no way
+         * to write V2 pages in any case.
+         * V2 levels are RLE-encoded without a length prefix,
+         * so each is prefixed with its length as V1 RLE levels require.
+         */
+        public void writePageV2( int rowCount, int nullCount, int valueCount,
+                                 BytesInput repetitionLevels,
+                                 BytesInput definitionLevels,
+                                 Encoding dataEncoding, BytesInput data,
+                                 Statistics<?> stats )
+                throws IOException {
+            List<BytesInput> parts = new ArrayList<>();
+            if ( cdesc_.getMaxRepetitionLevel() > 0 ) {
+                parts.add( BytesInput.fromInt( (int) repetitionLevels
+                                                    .size() ) );
+                parts.add( repetitionLevels );
+            }
+            if ( cdesc_.getMaxDefinitionLevel() > 0 ) {
+                parts.add( BytesInput.fromInt( (int) definitionLevels
+                                                    .size() ) );
+                parts.add( definitionLevels );
+            }
+            parts.add( data );
+            writePage( BytesInput.concat( parts ), valueCount, rowCount, stats,
+                       Encoding.RLE, Encoding.RLE, dataEncoding );
+        }
+
+        public long getMemSize() {
+            return memSize_;
+        }
+
+        public long allocatedSize() {
+            return memSize_;
+        }
+
+        public void writeDictionaryPage( DictionaryPage dictPage )
+                throws IOException {
+            if ( dictPage_ != null ) {
+                throw new ParquetEncodingException( "Multiple dictionary"
+                                                  + " pages for column" );
+            }
+            BytesInput dbytes = dictPage.getBytes();
+            int usize = (int) dbytes.size();
+            BytesInput cbytes = compressor_.compress( dbytes );
+            dictPage_ = new DictionaryPage( BytesInput.copy( cbytes ), usize,
+                                            dictPage.getDictionarySize(),
+                                            dictPage.getEncoding() );
+            memSize_ += dictPage_.getBytes().size();
+        }
+
+        public String memUsageString( String prefix ) {
+            return prefix + " " + cdesc_ + " " + memSize_ + " bytes";
+        }
+
+        /**
+         * Writes this column chunk to a parquet file.
+         *
+         * @param  fwriter  file writer
+         */
+        void writeTo( ParquetFileWriter fwriter ) throws IOException {
+            fwriter.startColumn( cdesc_, nvalue_, codecName_ );
+            if ( dictPage_ != null ) {
+                fwriter.writeDictionaryPage( dictPage_ );
+            }
+            for ( DataPage page : pages_ ) {
+                page.writeTo( fwriter );
+            }
+            fwriter.endColumn();
+        }
+    }
+
+    /**
+     * Contains a compressed data page and its metadata.
+     */
+    private static class DataPage {
+
+        final BytesInput bytes_;
+        final int usize_;
+        final int valueCount_;
+        final int rowCount_;
+        final Statistics<?> stats_;
+        final Encoding rlEncoding_;
+        final Encoding dlEncoding_;
+        final Encoding valuesEncoding_;
+
+        /**
+         * Constructor.
+         *
+         * @param  bytes  compressed page data
+         * @param  usize  uncompressed page size
+         * @param  valueCount  number of values in page
+         * @param  rowCount  number of rows in page
+         * @param  stats   page statistics
+         * @param  rlEncoding  repetition level encoding
+         * @param  dlEncoding  definition level encoding
+         * @param  valuesEncoding  value encoding
+         */
+        DataPage( BytesInput bytes, int usize, int valueCount, int rowCount,
+                  Statistics<?> stats, Encoding rlEncoding,
+                  Encoding dlEncoding, Encoding valuesEncoding ) {
+            bytes_ = bytes;
+            usize_ = usize;
+            valueCount_ = valueCount;
+            rowCount_ = rowCount;
+            stats_ = stats;
+            rlEncoding_ = rlEncoding;
+            dlEncoding_ = dlEncoding;
+            valuesEncoding_ = valuesEncoding;
+        }
+
+        /**
+         * Writes this page to a parquet file.
+         *
+         * @param  fwriter  file writer
+         */
+        void writeTo( ParquetFileWriter fwriter ) throws IOException {
+            fwriter.writeDataPage( valueCount_, usize_, bytes_, stats_,
+                                   rowCount_, rlEncoding_, dlEncoding_,
+                                   valuesEncoding_ );
+        }
+    }
+}
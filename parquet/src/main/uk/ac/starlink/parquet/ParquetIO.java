@@ -4,6 +4,7 @@ import java.io.File;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.net.URL;
+import java.util.concurrent.ForkJoinPool;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.apache.hadoop.conf.Configuration;
@@ -11,16 +12,20 @@ import org.apache.hadoop.fs.Path;
 import org.apache.parquet.hadoop.ParquetFileReader;
 import org.apache.parquet.hadoop.ParquetFileWriter;
 import org.apache.parquet.hadoop.ParquetWriter;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
 import org.apache.parquet.hadoop.util.HadoopInputFile;
+import org.apache.parquet.hadoop.util.HadoopOutputFile;
 import org.apache.parquet.io.InputFile;
 import org.apache.parquet.io.OutputFile;
 import org.apache.parquet.io.PositionOutputStream;
 import uk.ac.starlink.table.RowSequence;
 import uk.ac.starlink.table.StarTable;
+import uk.ac.starlink.table.StoragePolicy;
 import uk.ac.starlink.table.TableFormatException;
 import uk.ac.starlink.util.DataSource;
 import uk.ac.starlink.util.FileDataSource;
 import uk.ac.starlink.util.IOSupplier;
+import uk.ac.starlink.util.SplitPolicy;
 import uk.ac.starlink.util.URLUtils;
 
 /**
@@ -42,16 +47,18 @@ class ParquetIO {
      *
      * @param  datsrc  data source
      * @param  builder   handler providing configuration
-     * @param  useCache  true for column caching, false for sequential
+     * @param  mode   column data read mode
+     * @param  storage  storage policy, used for lazy column caching
      * @return  loaded table
      */
     public StarTable readParquet( DataSource datsrc,
                                   ParquetTableBuilder builder,
-                                  boolean useCache )
+                                  ParquetTableBuilder.ReadMode mode,
+                                  StoragePolicy storage )
             throws IOException {
         IOSupplier<ParquetFileReader> pfrSupplier =
             readerSupplier( createInputFile( datsrc ), datsrc.getName() );
-        if ( useCache ) {
+        if ( mode == ParquetTableBuilder.ReadMode.CACHED ) {
             int nThread = builder.getReadThreadCount();
             if ( nThread <= 0 ) {
                 nThread = CachedParquetStarTable.getDefaultThreadCount();
@@ -66,6 +73,10 @@ class ParquetIO {
                              "Cached read failed for " + datsrc, e );
             }
         }
+        else if ( mode == ParquetTableBuilder.ReadMode.LAZY ) {
+            logger_.info( "Lazy parquet column caching for " + datsrc );
+            return new LazyParquetStarTable( pfrSupplier, storage );
+        }
         logger_.info( "No parquet column caching for " + datsrc );
         return new SequentialParquetStarTable( pfrSupplier );
     }
@@ -85,7 +96,9 @@ class ParquetIO {
         StarParquetWriter.StarBuilder builder =
             new StarParquetWriter.StarBuilder( table, path );
         configureBuilder( builder, writer );
-        writeParquetTable( builder );
+        writeParquetTable( builder, writer,
+                           () -> HadoopOutputFile
+                                .fromPath( path, new Configuration() ) );
     }
 
     /**
@@ -99,10 +112,11 @@ class ParquetIO {
     public void writeParquet( StarTable table, ParquetTableWriter writer,
                               OutputStream out )
             throws IOException {
+        OutputFile ofile = createOutputFile( out );
         StarParquetWriter.StarBuilder builder =
-            new StarParquetWriter.StarBuilder( table, createOutputFile( out ) );
+            new StarParquetWriter.StarBuilder( table, ofile );
         configureBuilder( builder, writer );
-        writeParquetTable( builder );
+        writeParquetTable( builder, writer, () -> ofile );
     }
 
     /**
@@ -181,21 +195,84 @@ class ParquetIO {
      * @param  writer   handler to specify configuration details
      */
     private static void configureBuilder( StarParquetWriter.StarBuilder builder,
-                                          ParquetTableWriter writer ) {
+                                          ParquetTableWriter writer )
+            throws IOException {
         builder.withWriteMode( ParquetFileWriter.Mode.OVERWRITE )
                .withGroupArray( writer.isGroupArray() )
+               .withCompressionCodec( getCodec( writer ) )
                .withValidation( true )
                .withPageWriteChecksumEnabled( false ) // doesn't seem to help
                .withDictionaryEncoding( true );
     }
 
+    /**
+     * Returns the compression codec requested by a ParquetTableWriter.
+     *
+     * @param  writer   handler to specify configuration details
+     * @return  compression codec
+     */
+    private static CompressionCodecName getCodec( ParquetTableWriter writer )
+            throws IOException {
+        String compression = writer.getCompression();
+        try {
+            return CompressionCodecName.fromConf( compression );
+        }
+        catch ( IllegalArgumentException e ) {
+            throw (IOException)
+                  new IOException( "Unknown parquet compression codec \""
+                                 + compression + "\"" ).initCause( e );
+        }
+    }
+
     /**
      * Performs the actual writing.
+     * Row groups are encoded in parallel if the writer's configuration
+     * requests it and more than one thread is available,
+     * otherwise the parquet-mr ParquetWriter is used.
      *
-     * @param  builder  configuration object
+     * @param  bldr  configuration object
+     * @param  writer   handler to specify configuration details
+     * @param  ofileSupplier  supplier for the destination file,
+     *                        used only for parallel writing
      */
-    private static void writeParquetTable( StarParquetWriter.StarBuilder bldr )
+    private static void writeParquetTable( StarParquetWriter.StarBuilder bldr,
+                                           ParquetTableWriter writer,
+                                           IOSupplier<OutputFile>
+                                                 ofileSupplier )
             throws IOException {
+        int nthread = writer.getWriteThreadCount();
+        if ( nthread != 1 ) {
+            ForkJoinPool pool = nthread > 1
+                              ? new ForkJoinPool( nthread )
+                              : SplitPolicy.DFLT_POLICY.getForkJoinPool();
+            try {
+                int parallelism = pool.getParallelism();
+                if ( parallelism > 1 ) {
+                    int maxGroups = writer.getMaxGroups();
+                    if ( maxGroups <= 0 ) {
+                        maxGroups = parallelism + 1;
+                    }
+                    Configuration conf = new Configuration();
+                    ParallelParquetWriter pwriter =
+                        new ParallelParquetWriter( () -> bldr
+                                                  .getWriteSupport( conf ),
+                                                   getCodec( writer ), pool,
+                                                   maxGroups,
+                                                   ParquetWriter
+                                                  .DEFAULT_BLOCK_SIZE );
+                    try ( RowSequence rseq = bldr.getTable()
+                                                 .getRowSequence() ) {
+                        pwriter.writeRows( rseq, ofileSupplier.get() );
+                    }
+                    return;
+                }
+            }
+            finally {
+                if ( nthread > 1 ) {
+                    pool.shutdown();
+                }
+            }
+        }
         try ( ParquetWriter<Object[]> pwriter = bldr.build() ) {
             try ( RowSequence rseq = bldr.getTable().getRowSequence() ) {
                 while ( rseq.next() ) {
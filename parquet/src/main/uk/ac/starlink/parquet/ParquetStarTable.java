@@ -5,7 +5,9 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.logging.Logger;
+import org.apache.parquet.column.ColumnDescriptor;
 import org.apache.parquet.column.ColumnReadStore;
+import org.apache.parquet.column.ColumnReader;
 import org.apache.parquet.column.impl.ColumnReadStoreImpl;
 import org.apache.parquet.column.page.PageReadStore;
 import org.apache.parquet.io.api.Converter;
@@ -14,11 +16,13 @@ import org.apache.parquet.io.api.PrimitiveConverter;
 import org.apache.parquet.hadoop.ParquetFileReader;
 import org.apache.parquet.hadoop.metadata.FileMetaData;
 import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.Type;
 import uk.ac.starlink.table.AbstractStarTable;
 import uk.ac.starlink.table.ColumnInfo;
 import uk.ac.starlink.table.DefaultValueInfo;
 import uk.ac.starlink.table.DescribedValue;
 import uk.ac.starlink.table.ValueInfo;
+import uk.ac.starlink.util.IOConsumer;
 import uk.ac.starlink.util.IOSupplier;
 
 /**
@@ -97,6 +101,31 @@ public abstract class ParquetStarTable extends AbstractStarTable {
         ncol_ = cinfos_.length;
     }
 
+    /**
+     * Constructs a table with the same data source as an existing one,
+     * but containing only a subset of its columns.
+     *
+     * @param  base  table supplying file access and metadata
+     * @param  colMap  indices of the columns of <code>base</code>
+     *                 to include in this table
+     */
+    protected ParquetStarTable( ParquetStarTable base, int[] colMap ) {
+        pfrSupplier_ = base.pfrSupplier_;
+        schema_ = base.schema_;
+        createdBy_ = base.createdBy_;
+        nrow_ = base.nrow_;
+        ncol_ = colMap.length;
+        cinfos_ = new ColumnInfo[ ncol_ ];
+        incols_ = new InputColumn<?>[ ncol_ ];
+        for ( int ic = 0; ic < ncol_; ic++ ) {
+            cinfos_[ ic ] = new ColumnInfo( base.cinfos_[ colMap[ ic ] ] );
+            incols_[ ic ] = base.incols_[ colMap[ ic ] ];
+        }
+        setName( base.getName() );
+        setURL( base.getURL() );
+        getParameters().addAll( base.getParameters() );
+    }
+
     public int getColumnCount() {
         return ncol_;
     }
@@ -157,6 +186,67 @@ public abstract class ParquetStarTable extends AbstractStarTable {
         return incols_[ icol ];
     }
 
+    /**
+     * Reads the contents of a column from this table's parquet file
+     * in sequence, passing each cell value to a given consumer.
+     * A new file reader is used, so this may be called from any thread.
+     *
+     * @param   icol  index of the column in this table to read
+     * @param   consumer   receives each cell value in row order
+     */
+    void readColumnCells( int icol, IOConsumer<Object> consumer )
+            throws IOException {
+        InputColumn<?> incol = getInputColumn( icol );
+        ColumnInfo cinfo = getColumnInfo( icol );
+
+        /* Prepare the ParquetFileReader so that it only reads the
+         * metadata for the column under consideration.  If you don't do
+         * this it still works, but the metadata read can be very slow
+         * and have a very large memory footprint.  It took me a long
+         * time exploring the essentially undocumented parquet-mr API
+         * to work out this is what you have to do. */
+        String[] cpath = incol.getColumnDescriptor().getPath();
+        List<Type> types = new ArrayList<>();
+        MessageType schema = getSchema();
+        for ( int ip = 1; ip <= cpath.length; ip++ ) {
+            String[] subpath = new String[ ip ];
+            System.arraycopy( cpath, 0, subpath, 0, ip );
+            types.add( schema.getType( subpath ) );
+        }
+        MessageType projSchema =
+            new MessageType( "col_" + cinfo.getName(), types );
+        try ( ParquetFileReader pfr = getParquetFileReader() ) {
+            pfr.setRequestedSchema( projSchema );
+
+            /* Read the column data and pass it on. */
+            ColumnDescriptor cdesc = incol.getColumnDescriptor();
+            final int cdefmax = cdesc.getMaxDefinitionLevel();
+            for ( PageReadStore pageStore;
+                  ( pageStore = pfr.readNextRowGroup() ) != null; ) {
+                ColumnReadStore crstore =
+                    getColumnReadStore( pageStore, projSchema );
+                Decoder<?> decoder = incol.createDecoder();
+                ColumnReader crdr = crstore.getColumnReader( cdesc );
+                long nr = pageStore.getRowCount();
+                for ( long ir = 0; ir < nr; ir++ ) {
+                    decoder.clearValue();
+                    do {
+                        if ( crdr.getCurrentDefinitionLevel() == cdefmax ) {
+                            decoder.readItem( crdr );
+                        }
+                        // I thought you should do this, but it seems not.
+                        // else {
+                        //     decoder.readNull();
+                        // }
+                        crdr.consume();
+                    }
+                    while ( crdr.getCurrentRepetitionLevel() > 0 );
+                    consumer.accept( decoder.getValue() );
+                }
+            }
+        }
+    }
+
     /**
      * GroupConverter implementation that doesn't do anything.
      */
@@ -8,11 +8,8 @@ import uk.ac.starlink.table.StoragePolicy;
 import uk.ac.starlink.table.TableFormatException;
 import uk.ac.starlink.table.TableSink;
 import uk.ac.starlink.table.formats.DocumentedTableBuilder;
-import uk.ac.starlink.table.storage.AdaptiveByteStore;
-import uk.ac.starlink.table.storage.MonitorStoragePolicy;
 import uk.ac.starlink.util.ConfigMethod;
 import uk.ac.starlink.util.DataSource;
-import uk.ac.starlink.util.FileDataSource;
 
 /**
  * TableBuilder for parquet files.
@@ -87,8 +84,8 @@ public class ParquetTableBuilder extends DocumentedTableBuilder {
         }
         else {
             ParquetIO io = ParquetUtil.getIO();
-            boolean useCache = useCache( datsrc, wantRandom, storage );
-            return io.readParquet( datsrc, this, useCache );
+            ReadMode mode = getReadMode( wantRandom );
+            return io.readParquet( datsrc, this, mode, storage );
         }
     }
 
@@ -107,7 +104,8 @@ public class ParquetTableBuilder extends DocumentedTableBuilder {
      * {@link CachedParquetStarTable} and if false a
      * {@link SequentialParquetStarTable}.
      * If null, the decision is made automatically on the basis of
-     * whether it looks like random access is required and file size etc.
+     * whether it looks like random access is required;
+     * if so a {@link LazyParquetStarTable} is returned.
      * 
      * @param   cacheCols  column data read policy
      */
@@ -121,8 +119,12 @@ public class ParquetTableBuilder extends DocumentedTableBuilder {
             + "which is generally the fastest way to ingest all the data.\n"
             + "If <code>false</code>, the table rows are read as required,\n"
             + "and possibly cached using the normal STIL mechanisms.\n"
-            + "If <code>null</code> (the default), the decision is taken\n"
-            + "automatically based on available information.\n"
+            + "If <code>null</code> (the default), then if random access\n"
+            + "is required each column is read only when it is first used,\n"
+            + "and cached according to the current storage policy;\n"
+            + "cached columns may be discarded and re-read later\n"
+            + "if memory runs short.\n"
+            + "Otherwise the rows are read sequentially.\n"
             + "</p>"
     )
     public void setCacheCols( Boolean cacheCols ) {
@@ -162,43 +164,35 @@ public class ParquetTableBuilder extends DocumentedTableBuilder {
     }
 
     /**
-     * Determines whether to cache column data on table read.
+     * Determines how to read column data.
      * If the {@link #setCacheCols} has been called that determines the result,
-     * otherwise some heuristics based on available information are used.
+     * otherwise it depends on whether random access is required.
      *
-     * @param  datsrc  table data source
      * @param  wantRandom   whether a random-access table is requested
-     * @param  storage  storage policy
-     * @return   true for cached table, false for sequential table
+     * @return   read mode
      */
-    private boolean useCache( DataSource datsrc, boolean wantRandom,
-                              StoragePolicy storage ) {
+    private ReadMode getReadMode( boolean wantRandom ) {
         if ( cacheCols_ != null ) {
-            return cacheCols_.booleanValue();
-        }
-        else if ( wantRandom ) {
-
-            /* Testing identity of storage policy like this is hacky
-             * and not robust. */
-            while ( storage instanceof MonitorStoragePolicy ) {
-                storage = ((MonitorStoragePolicy) storage).getBasePolicy();
-            }
-            if ( StoragePolicy.PREFER_MEMORY.equals( storage ) ) {
-                return false;
-            }
-            if ( StoragePolicy.PREFER_DISK.equals( storage ) ) {
-                return true;
-            }
-            if ( StoragePolicy.ADAPTIVE.equals( storage ) ) {
-                if ( datsrc instanceof FileDataSource ) {
-                    long len = ((FileDataSource) datsrc).getFile().length();
-                    return len > 0.5 * AdaptiveByteStore.getDefaultLimit();
-                }
-            }
-            return false;
+            return cacheCols_.booleanValue() ? ReadMode.CACHED
+                                             : ReadMode.SEQUENTIAL;
         }
         else {
-            return false;
+            return wantRandom ? ReadMode.LAZY : ReadMode.SEQUENTIAL;
         }
     }
+
+    /**
+     * Enumerates the ways that parquet column data can be read.
+     */
+    enum ReadMode {
+
+        /** All columns read at load time, see CachedParquetStarTable. */
+        CACHED,
+
+        /** Columns read as first used, see LazyParquetStarTable. */
+        LAZY,
+
+        /** Rows read sequentially, see SequentialParquetStarTable. */
+        SEQUENTIAL;
+    }
 }
@@ -18,8 +18,12 @@ public class ParquetTableWriter
         implements StarTableWriter, DocumentedIOHandler {
 
     private boolean groupArray_;
+    private String compression_;
+    private int writeThreadCount_;
+    private int maxGroups_;
 
     public ParquetTableWriter() {
+        writeThreadCount_ = 1;
     }
 
     public String getFormatName() {
@@ -116,4 +120,112 @@ public class ParquetTableWriter
     public boolean isGroupArray() {
         return groupArray_;
     }
+
+    /**
+     * Sets the compression codec used for column data.
+     *
+     * @param  compression  codec name, or null for no compression
+     */
+    @ConfigMethod(
+        property = "compression",
+        usage = "uncompressed|snappy|gzip|lz4|zstd",
+        example = "snappy",
+        doc = "<p>Sets the compression codec used for column data.\n"
+            + "The value is the name of one of the codecs known to the\n"
+            + "parquet-mr library, such as\n"
+            + "<code>uncompressed</code> (the default),\n"
+            + "<code>snappy</code> or <code>gzip</code>;\n"
+            + "some codecs may require additional libraries at runtime.\n"
+            + "Compression makes the output smaller,\n"
+            + "but is costly in CPU time;\n"
+            + "see also the <code>nThread</code> option.\n"
+            + "</p>"
+    )
+    public void setCompression( String compression ) {
+        compression_ = compression;
+    }
+
+    /**
+     * Returns the compression codec used for column data.
+     *
+     * @return  codec name, or null for no compression
+     */
+    public String getCompression() {
+        return compression_;
+    }
+
+    /**
+     * Sets the number of threads used for encoding row groups.
+     *
+     * @param  nThread  encoding thread count; 1 for sequential encoding,
+     *                  &lt;=0 to use the number of available processors
+     */
+    @ConfigMethod(
+        property = "nThread",
+        usage = "<int>",
+        example = "4",
+        doc = "<p>Sets the number of threads used for concurrently\n"
+            + "encoding and compressing row groups.\n"
+            + "If the value is 1 (the default), row groups are encoded\n"
+            + "sequentially by the writing thread.\n"
+            + "If it is &lt;=0, a value is chosen\n"
+            + "based on the number of apparently available processors.\n"
+            + "The data written is the same in any case,\n"
+            + "but for large tables encoding in parallel may be faster,\n"
+            + "especially if compression is in use.\n"
+            + "Parallel encoding holds several row groups in memory\n"
+            + "at once; see the <code>maxGroups</code> option.\n"
+            + "</p>"
+    )
+    public void setWriteThreadCount( int nThread ) {
+        writeThreadCount_ = nThread;
+    }
+
+    /**
+     * Returns the number of threads used for encoding row groups.
+     *
+     * @return  encoding thread count; 1 for sequential encoding,
+     *          &lt;=0 for the number of available processors
+     */
+    public int getWriteThreadCount() {
+        return writeThreadCount_;
+    }
+
+    /**
+     * Sets the maximum number of row groups held in memory at once
+     * during parallel encoding.
+     *
+     * @param  maxGroups  maximum in-flight row group count,
+     *                    or &lt;=0 for a default based on the thread count
+     */
+    @ConfigMethod(
+        property = "maxGroups",
+        usage = "<int>",
+        example = "8",
+        doc = "<p>Sets the maximum number of row groups that may be\n"
+            + "being encoded or awaiting output at any one time\n"
+            + "when writing with <code>nThread</code> not equal to 1.\n"
+            + "Since each row group is buffered in memory,\n"
+            + "this bounds the memory used for parallel encoding.\n"
+            + "Row groups written in parallel are also limited\n"
+            + "to 32 Mbyte of encoded data.\n"
+            + "If the value is &lt;=0 (the default),\n"
+            + "one more than the number of encoding threads is used.\n"
+            + "This option has no effect for sequential output.\n"
+            + "</p>"
+    )
+    public void setMaxGroups( int maxGroups ) {
+        maxGroups_ = maxGroups;
+    }
+
+    /**
+     * Returns the maximum number of row groups held in memory at once
+     * during parallel encoding.
+     *
+     * @return  maximum in-flight row group count,
+     *          or &lt;=0 for a default based on the thread count
+     */
+    public int getMaxGroups() {
+        return maxGroups_;
+    }
 }
@@ -1,28 +1,66 @@
 package uk.ac.starlink.parquet;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Set;
 import java.util.function.LongSupplier;
+import java.util.logging.Logger;
 import org.apache.parquet.column.ColumnDescriptor;
 import org.apache.parquet.column.ColumnReader;
 import org.apache.parquet.column.ColumnReadStore;
 import org.apache.parquet.column.impl.ColumnReaderImpl;
 import org.apache.parquet.column.page.PageReadStore;
+import org.apache.parquet.filter2.compat.FilterCompat;
+import org.apache.parquet.filter2.compat.RowGroupFilter;
+import org.apache.parquet.filter2.predicate.FilterApi;
+import org.apache.parquet.filter2.predicate.FilterPredicate;
+import org.apache.parquet.filter2.predicate.Operators;
 import org.apache.parquet.hadoop.ParquetFileReader;
 import org.apache.parquet.hadoop.metadata.BlockMetaData;
+import org.apache.parquet.schema.LogicalTypeAnnotation;
 import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.PrimitiveType;
+import org.apache.parquet.schema.Type;
+import uk.ac.starlink.table.ColumnPermutedStarTable;
+import uk.ac.starlink.table.ColumnRange;
+import uk.ac.starlink.table.RestrictableStarTable;
 import uk.ac.starlink.table.RowSequence;
 import uk.ac.starlink.table.RowSplittable;
+import uk.ac.starlink.table.StarTable;
+import uk.ac.starlink.table.Tables;
 import uk.ac.starlink.util.IOSupplier;
 
 /**
  * ParquetStarTable concrete subclass that provides sequential access only.
  *
+ * <p>This class implements {@link RestrictableStarTable}.
+ * Restricted views read only the column chunks for their own columns,
+ * and use row group statistics and dictionary pages
+ * to skip row groups that cannot contain values in requested ranges.
+ *
  * @author   Mark Taylor
  * @since    25 Feb 2021
  */
-public class SequentialParquetStarTable extends ParquetStarTable {
+public class SequentialParquetStarTable extends ParquetStarTable
+                                        implements RestrictableStarTable {
+
+    private final MessageType projSchema_;
+    private final FilterPredicate filter_;
+
+    /** Filter levels used for skipping row groups. */
+    private static final List<RowGroupFilter.FilterLevel> FILTER_LEVELS =
+        Collections.unmodifiableList( Arrays.asList(
+            RowGroupFilter.FilterLevel.STATISTICS,
+            RowGroupFilter.FilterLevel.DICTIONARY
+        ) );
+
+    private static final Logger logger_ =
+        Logger.getLogger( "uk.ac.starlink.parquet" );
 
     /**
      * Constructor.
@@ -33,12 +71,76 @@ public class SequentialParquetStarTable extends ParquetStarTable {
                                        pfrSupplier )
             throws IOException {
         super( pfrSupplier );
+        projSchema_ = getSchema();
+        filter_ = null;
+    }
+
+    /**
+     * Constructs a restricted view of an existing table.
+     *
+     * @param  base   base table
+     * @param  colMap  indices of the columns of <code>base</code>
+     *                 to include in this table
+     * @param  filter  row group filter predicate, or null
+     */
+    private SequentialParquetStarTable( SequentialParquetStarTable base,
+                                        int[] colMap, FilterPredicate filter ) {
+        super( base, colMap );
+        projSchema_ = createProjectionSchema();
+        filter_ = filter;
     }
 
     public boolean isRandom() {
         return false;
     }
 
+    @Override
+    public long getRowCount() {
+        return filter_ == null ? super.getRowCount() : -1;
+    }
+
+    /**
+     * Returns a restricted view of this table.
+     * If <code>colMap</code> contains repeated indices, the result
+     * is a column permutation of a restricted view with distinct columns,
+     * since each file column chunk can only be consumed by one reader;
+     * otherwise it is a SequentialParquetStarTable.
+     */
+    public StarTable restrict( int[] colMap, ColumnRange[] ranges ) {
+        FilterPredicate filter = filter_;
+        for ( ColumnRange range : ranges ) {
+            FilterPredicate pred =
+                createPredicate( getInputColumn( range.getColumnIndex() ),
+                                 range.getLow(), range.getHigh() );
+            if ( pred != null ) {
+                filter = filter == null ? pred : FilterApi.and( filter, pred );
+            }
+        }
+        List<Integer> distinctCols = new ArrayList<>();
+        int[] outMap = new int[ colMap.length ];
+        for ( int i = 0; i < colMap.length; i++ ) {
+            Integer ic = Integer.valueOf( colMap[ i ] );
+            int jc = distinctCols.indexOf( ic );
+            if ( jc < 0 ) {
+                jc = distinctCols.size();
+                distinctCols.add( ic );
+            }
+            outMap[ i ] = jc;
+        }
+        if ( distinctCols.size() == colMap.length ) {
+            return new SequentialParquetStarTable( this, colMap, filter );
+        }
+        else {
+            int[] baseMap = new int[ distinctCols.size() ];
+            for ( int i = 0; i < baseMap.length; i++ ) {
+                baseMap[ i ] = distinctCols.get( i ).intValue();
+            }
+            return new ColumnPermutedStarTable(
+                       new SequentialParquetStarTable( this, baseMap, filter ),
+                       outMap );
+        }
+    }
+
     public RowSequence getRowSequence() throws IOException {
         return new ParquetRowSplittable();
     }
@@ -47,6 +149,165 @@ public class SequentialParquetStarTable extends ParquetStarTable {
         return new ParquetRowSplittable();
     }
 
+    /**
+     * Returns a schema containing only those top-level fields of the
+     * file schema that are required to read this table's columns.
+     *
+     * @return  projection schema
+     */
+    private MessageType createProjectionSchema() {
+        MessageType schema = getSchema();
+        int ncol = getColumnCount();
+        if ( ncol == 0 ) {
+            return schema;
+        }
+        Set<String> names = new HashSet<>();
+        for ( int ic = 0; ic < ncol; ic++ ) {
+            names.add( getInputColumn( ic ).getColumnDescriptor()
+                                           .getPath()[ 0 ] );
+        }
+        List<Type> fields = new ArrayList<>();
+        for ( Type field : schema.getFields() ) {
+            if ( names.contains( field.getName() ) ) {
+                fields.add( field );
+            }
+        }
+        return fields.size() == schema.getFieldCount()
+             ? schema
+             : new MessageType( schema.getName(), fields );
+    }
+
+    /**
+     * Returns a flag array indicating which row groups in a file
+     * may contain rows satisfying this table's filter.
+     *
+     * @param  pfr  file reader
+     * @return  per-row group array of use flags, or null if all are used
+     */
+    private boolean[] getUsedBlocks( ParquetFileReader pfr ) {
+        if ( filter_ == null ) {
+            return null;
+        }
+        List<BlockMetaData> blocks = pfr.getRowGroups();
+        Set<BlockMetaData> keepBlocks =
+            Collections.newSetFromMap( new IdentityHashMap<>() );
+        keepBlocks.addAll( RowGroupFilter
+                          .filterRowGroups( FILTER_LEVELS,
+                                            FilterCompat.get( filter_ ),
+                                            blocks, pfr ) );
+        int nb = blocks.size();
+        boolean[] useBlocks = new boolean[ nb ];
+        for ( int ib = 0; ib < nb; ib++ ) {
+            useBlocks[ ib ] = keepBlocks.contains( blocks.get( ib ) );
+        }
+        logger_.info( "Parquet filter " + filter_ + " retains "
+                    + keepBlocks.size() + "/" + nb + " row groups" );
+        return useBlocks;
+    }
+
+    /**
+     * Returns a filter predicate that tests whether column values
+     * fall within a given inclusive range.
+     * Only scalar signed integer and floating point columns are handled;
+     * for other columns null is returned.
+     *
+     * @param  incol  input column
+     * @param  lo   lower bound, or negative infinity
+     * @param  hi   upper bound, or positive infinity
+     * @return  predicate, or null
+     */
+    private static FilterPredicate createPredicate( InputColumn<?> incol,
+                                                    double lo, double hi ) {
+        ColumnDescriptor cdesc = incol.getColumnDescriptor();
+        String[] path = cdesc.getPath();
+        if ( path.length != 1 || path[ 0 ].indexOf( '.' ) >= 0 ||
+             cdesc.getMaxRepetitionLevel() > 0 ) {
+            return null;
+        }
+        String cname = path[ 0 ];
+        PrimitiveType ptype = cdesc.getPrimitiveType();
+        LogicalTypeAnnotation logType = ptype.getLogicalTypeAnnotation();
+        boolean isSignedInt =
+            logType == null ||
+            logType instanceof LogicalTypeAnnotation.IntLogicalTypeAnnotation &&
+            ((LogicalTypeAnnotation.IntLogicalTypeAnnotation) logType)
+           .isSigned();
+        boolean hasLo = lo > Double.NEGATIVE_INFINITY;
+        boolean hasHi = hi < Double.POSITIVE_INFINITY;
+        switch ( ptype.getPrimitiveTypeName() ) {
+            case INT32:
+                if ( isSignedInt ) {
+                    Operators.IntColumn col = FilterApi.intColumn( cname );
+                    return and(
+                        hasLo ? FilterApi.gtEq( col, (int) Math.ceil( lo ) )
+                              : null,
+                        hasHi ? FilterApi.ltEq( col, (int) Math.floor( hi ) )
+                              : null );
+                }
+                else {
+                    return null;
+                }
+            case INT64:
+                if ( isSignedInt ) {
+                    Operators.LongColumn col = FilterApi.longColumn( cname );
+                    return and(
+                        hasLo ? FilterApi.gtEq( col, (long) Math.ceil( lo ) )
+                              : null,
+                        hasHi ? FilterApi.ltEq( col, (long) Math.floor( hi ) )
+                              : null );
+                }
+                else {
+                    return null;
+                }
+            case FLOAT:
+                if ( logType == null ) {
+                    Operators.FloatColumn col = FilterApi.floatColumn( cname );
+                    return and(
+                        hasLo ? FilterApi.gtEq( col,
+                                                Math.nextDown( (float) lo ) )
+                              : null,
+                        hasHi ? FilterApi.ltEq( col,
+                                                Math.nextUp( (float) hi ) )
+                              : null );
+                }
+                else {
+                    return null;
+                }
+            case DOUBLE:
+                if ( logType == null ) {
+                    Operators.DoubleColumn col =
+                        FilterApi.doubleColumn( cname );
+                    return and( hasLo ? FilterApi.gtEq( col, lo ) : null,
+                                hasHi ? FilterApi.ltEq( col, hi ) : null );
+                }
+                else {
+                    return null;
+                }
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Combines two predicates, either of which may be null.
+     *
+     * @param  p1  first predicate, or null
+     * @param  p2  second predicate, or null
+     * @return  conjunction of non-null inputs, or null
+     */
+    private static FilterPredicate and( FilterPredicate p1,
+                                        FilterPredicate p2 ) {
+        if ( p1 == null ) {
+            return p2;
+        }
+        else if ( p2 == null ) {
+            return p1;
+        }
+        else {
+            return FilterApi.and( p1, p2 );
+        }
+    }
+
     /**
      * Returns an array giving the number of rows in each row block
      * for a parquet file.
@@ -70,6 +331,7 @@ public class SequentialParquetStarTable extends ParquetStarTable {
         final MessageType schema_;
         final long[] irows_;
         final long[] blockSizes_;
+        final boolean[] useBlocks_;
         int iblock_;
         int iblockEnd_;
         ColAccess<?>[] colAccesses_;
@@ -80,7 +342,7 @@ public class SequentialParquetStarTable extends ParquetStarTable {
          * Constructs a splittable over the whole table.
          */
         public ParquetRowSplittable() throws IOException {
-            this( -1, -1 );
+            this( -1, -1, null );
         }
 
         /**
@@ -89,13 +351,22 @@ public class SequentialParquetStarTable extends ParquetStarTable {
          * @param  iblock  index before first block to be processed
          * @param  iblockEnd  index after last block to be processed,
          *                    or -1 for last block in table
+         * @param  useBlocks  per-block flags indicating which blocks
+         *                    need to be read, or null to determine them
+         *                    from this table's filter
          */
-        private ParquetRowSplittable( int iblock, int iblockEnd )
+        private ParquetRowSplittable( int iblock, int iblockEnd,
+                                      boolean[] useBlocks )
                 throws IOException {
             pfr_ = getParquetFileReader();
             ncol_ = getColumnCount();
-            schema_ = getSchema();
+            schema_ = projSchema_;
+            if ( schema_ != getSchema() ) {
+                pfr_.setRequestedSchema( schema_ );
+            }
             blockSizes_ = getBlockSizes( pfr_ );
+            useBlocks_ = useBlocks == null ? getUsedBlocks( pfr_ )
+                                           : useBlocks;
             irows_ = new long[ ncol_ ];
             iblock_ = -1;
             irow_ = -1;
@@ -104,7 +375,7 @@ public class SequentialParquetStarTable extends ParquetStarTable {
         }
 
         public LongSupplier rowIndex() {
-            return () -> irow_;
+            return useBlocks_ == null ? () -> irow_ : null;
         }
 
         public ParquetRowSplittable split() {
@@ -112,7 +383,8 @@ public class SequentialParquetStarTable extends ParquetStarTable {
                 int mid = ( 1 + iblock_ + iblockEnd_ ) / 2;
                 ParquetRowSplittable split;
                 try {
-                    split = new ParquetRowSplittable( iblock_, mid );
+                    split = new ParquetRowSplittable( iblock_, mid,
+                                                      useBlocks_ );
                     skipBlocks( mid - 1 - iblock_ );
                 }
                 catch ( IOException e ) {
@@ -128,7 +400,9 @@ public class SequentialParquetStarTable extends ParquetStarTable {
         public long splittableSize() {
             int nr = 0;
             for ( int ib = iblock_ + 1; ib < iblockEnd_; ib++ ) {
-                nr += blockSizes_[ ib ];
+                if ( isBlockUsed( ib ) ) {
+                    nr += blockSizes_[ ib ];
+                }
             }
             return nr;
         }
@@ -136,11 +410,21 @@ public class SequentialParquetStarTable extends ParquetStarTable {
         public boolean next() throws IOException {
             assert irow_ < irGroupEnd_;
             if ( irow_ + 1 == irGroupEnd_ ) {
-                assert iblock_ < iblockEnd_;
-                if ( iblock_ + 1 == iblockEnd_ ) {
-                    return false;
-                }
-                nextReadStore();
+
+                /* Advance to the next row group that has any rows
+                 * and is not excluded by the filter. */
+                do {
+                    assert iblock_ < iblockEnd_;
+                    if ( iblock_ + 1 == iblockEnd_ ) {
+                        return false;
+                    }
+                    if ( isBlockUsed( iblock_ + 1 ) ) {
+                        nextReadStore();
+                    }
+                    else {
+                        skipBlocks( 1 );
+                    }
+                } while ( irow_ + 1 == irGroupEnd_ );
                 Arrays.fill( irows_, irow_ );
             }
             irow_++;
@@ -148,6 +432,29 @@ public class SequentialParquetStarTable extends ParquetStarTable {
         }
 
         public Object getCell( int icol ) {
+            return getColAccess( icol ).read();
+        }
+
+        public double getDouble( int icol ) {
+            return getColAccess( icol ).readDouble();
+        }
+
+        public long getLong( int icol ) {
+            return getColAccess( icol ).readLong();
+        }
+
+        public boolean isNull( int icol ) {
+            return getColAccess( icol ).readNull();
+        }
+
+        /**
+         * Returns the column access object for a given column,
+         * advanced to the current row.
+         *
+         * @param  icol  column index
+         * @return  column access, ready to read the current value
+         */
+        private ColAccess<?> getColAccess( int icol ) {
             ColAccess<?> colAccess;
             try {
                 colAccess = colAccesses_[ icol ];
@@ -169,7 +476,7 @@ public class SequentialParquetStarTable extends ParquetStarTable {
                 colAccess.clear();
             }
             irows_[ icol ] = irow_;
-            return colAccess.read();
+            return colAccess;
         }
 
         public Object[] getRow() {
@@ -184,6 +491,17 @@ public class SequentialParquetStarTable extends ParquetStarTable {
             pfr_.close();
         }
 
+        /**
+         * Indicates whether a given row group needs to be read.
+         *
+         * @param  ib  row group index
+         * @return  false if the row group is known to contain no
+         *          required rows
+         */
+        private boolean isBlockUsed( int ib ) {
+            return useBlocks_ == null || useBlocks_[ ib ];
+        }
+
         /**
          * Reads the next row group and prepares column handlers
          * ready to supply its content.
@@ -251,11 +569,16 @@ public class SequentialParquetStarTable extends ParquetStarTable {
                                        decoder.clearValue();
                                        decoder.readItem( crdr );
                                    };
+        final NumericDecoder<T> numDecoder =
+            decoder instanceof NumericDecoder ? (NumericDecoder<T>) decoder
+                                              : null;
         return new ColAccess<T>() {
             private boolean hasValue_;
+            private boolean hasObject_;
             private T value_;
             public void clear() {
                 hasValue_ = false;
+                hasObject_ = false;
             }
             public void skip( long n ) {
                 for ( long i = 0; i < n; i++ ) {
@@ -273,6 +596,52 @@ public class SequentialParquetStarTable extends ParquetStarTable {
                 }
             }
             public T read() {
+                decode();
+                if ( ! hasObject_ ) {
+                    value_ = decoder.getValue();
+                    hasObject_ = true;
+                }
+                return value_;
+            }
+            public double readDouble() {
+                if ( numDecoder != null ) {
+                    decode();
+                    return numDecoder.getDoubleValue();
+                }
+                else {
+                    Object value = read();
+                    return value instanceof Number
+                         ? ((Number) value).doubleValue()
+                         : Double.NaN;
+                }
+            }
+            public long readLong() {
+                if ( numDecoder != null ) {
+                    decode();
+                    return numDecoder.getLongValue();
+                }
+                else {
+                    Object value = read();
+                    return value instanceof Number
+                         ? ((Number) value).longValue()
+                         : 0L;
+                }
+            }
+            public boolean readNull() {
+                if ( numDecoder != null ) {
+                    decode();
+                    return numDecoder.isNullValue();
+                }
+                else {
+                    return Tables.isBlank( read() );
+                }
+            }
+
+            /**
+             * Reads the current value into the decoder
+             * if it has not already been read.
+             */
+            private void decode() {
                 if ( ! hasValue_ ) {
                     decoder.clearValue();
                     do {
@@ -287,10 +656,8 @@ public class SequentialParquetStarTable extends ParquetStarTable {
                         // }
                         crdr.consume();
                     } while ( crdr.getCurrentRepetitionLevel() > 0 );
-                    value_ = decoder.getValue();
                     hasValue_ = true;
                 }
-                return value_;
             }
         };
     }
@@ -320,5 +687,32 @@ public class SequentialParquetStarTable extends ParquetStarTable {
          * @return  entry value
          */
         T read();
+
+        /**
+         * Returns the current value as a floating point number,
+         * reading it from the column data if it has not already been read.
+         * Object creation is avoided for numeric columns.
+         *
+         * @return  numeric entry value, or NaN
+         */
+        double readDouble();
+
+        /**
+         * Returns the current value as a long integer,
+         * reading it from the column data if it has not already been read.
+         * Object creation is avoided for numeric columns.
+         *
+         * @return  integer entry value, undefined if blank
+         */
+        long readLong();
+
+        /**
+         * Indicates whether the current value is blank,
+         * reading it from the column data if it has not already been read.
+         * Object creation is avoided for numeric columns.
+         *
+         * @return  true iff the entry value is blank
+         */
+        boolean readNull();
     }
 }
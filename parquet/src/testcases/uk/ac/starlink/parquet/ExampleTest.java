@@ -9,7 +9,9 @@ import org.apache.parquet.hadoop.ParquetFileReader;
 import org.apache.parquet.hadoop.util.HadoopInputFile;
 import org.apache.parquet.io.InputFile;
 import uk.ac.starlink.table.ColumnInfo;
+import uk.ac.starlink.table.RowAccess;
 import uk.ac.starlink.table.StarTable;
+import uk.ac.starlink.table.StoragePolicy;
 import uk.ac.starlink.table.Tables;
 import uk.ac.starlink.util.DataSource;
 import uk.ac.starlink.util.FileDataSource;
@@ -33,6 +35,24 @@ public class ExampleTest extends TestCase {
         IOSupplier<ParquetFileReader> pfrSupplier = getPfrSupplier( file );
         checkExample( new SequentialParquetStarTable( pfrSupplier ) );
         checkExample( new CachedParquetStarTable( pfrSupplier, 2 ) );
+        checkExample( new LazyParquetStarTable( pfrSupplier,
+                                                StoragePolicy.ADAPTIVE ) );
+
+        LazyParquetStarTable lazy =
+            new LazyParquetStarTable( pfrSupplier,
+                                      StoragePolicy.PREFER_MEMORY );
+        assertTrue( lazy.isRandom() );
+        assertFalse( lazy.isColumnCached( 1 ) );
+        assertFalse( lazy.isColumnCached( 3 ) );
+        assertEquals( "baz", lazy.getCell( 2, 3 ) );
+        assertFalse( lazy.isColumnCached( 1 ) );
+        assertTrue( lazy.isColumnCached( 3 ) );
+        RowAccess racc = lazy.getRowAccess();
+        racc.setRowIndex( 0 );
+        assertEquals( 2.5, racc.getDouble( 1 ), 0 );
+        assertTrue( lazy.isColumnCached( 1 ) );
+        racc.close();
+        lazy.close();
     }
  
     private void checkExample( ParquetStarTable pex ) throws IOException {
@@ -0,0 +1,171 @@
+package uk.ac.starlink.parquet;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.logging.Level;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.parquet.hadoop.ParquetFileReader;
+import org.apache.parquet.hadoop.ParquetFileWriter;
+import org.apache.parquet.hadoop.ParquetWriter;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+import org.apache.parquet.hadoop.util.HadoopInputFile;
+import org.apache.parquet.hadoop.util.HadoopOutputFile;
+import uk.ac.starlink.table.ArrayColumn;
+import uk.ac.starlink.table.ColumnStarTable;
+import uk.ac.starlink.table.RowSequence;
+import uk.ac.starlink.table.StarTable;
+import uk.ac.starlink.util.IOSupplier;
+import uk.ac.starlink.util.LogUtils;
+import uk.ac.starlink.util.TestCase;
+
+public class ParallelWriteTest extends TestCase {
+
+    private static final int NROW = 20000;
+    private static final int GROUP_SIZE = 32 * 1024;
+
+    static {
+        LogUtils.getLogger( "uk.ac.starlink" ).setLevel( Level.WARNING );
+        ParquetUtil.silenceLog4j();
+    }
+
+    public void testParallelWrite() throws IOException {
+        StarTable table = createTable();
+        for ( CompressionCodecName codec :
+              new CompressionCodecName[] { CompressionCodecName.UNCOMPRESSED,
+                                           CompressionCodecName.GZIP } ) {
+            File seqFile = writeSequential( table, codec );
+            for ( int maxGroups : new int[] { 1, 2, 5 } ) {
+                File parFile = writeParallel( table, codec, maxGroups );
+                IOSupplier<ParquetFileReader> parSupplier =
+                    readerSupplier( parFile );
+                try ( ParquetFileReader pfr = parSupplier.get() ) {
+                    assertTrue( pfr.getRowGroups().size() > 4 );
+                    assertEquals( NROW, pfr.getRecordCount() );
+                    assertEquals( "STIL",
+                                  pfr.getFooter().getFileMetaData()
+                                     .getKeyValueMetaData()
+                                     .get( ParquetWriter
+                                          .OBJECT_MODEL_NAME_PROP ) );
+                }
+                assertSameData( table,
+                                new SequentialParquetStarTable( parSupplier ) );
+                assertSameData( new SequentialParquetStarTable(
+                                    readerSupplier( seqFile ) ),
+                                new SequentialParquetStarTable( parSupplier ) );
+            }
+        }
+    }
+
+    public void testEmpty() throws IOException {
+        StarTable table = ColumnStarTable.makeTableWithRows( 0 );
+        ( (ColumnStarTable) table )
+           .addColumn( ArrayColumn.makeColumn( "x", new double[ 0 ] ) );
+        File file = writeParallel( table, CompressionCodecName.UNCOMPRESSED,
+                                   2 );
+        StarTable t1 = new SequentialParquetStarTable( readerSupplier( file ) );
+        assertEquals( 0, t1.getRowCount() );
+        assertEquals( 1, t1.getColumnCount() );
+    }
+
+    private static StarTable createTable() {
+        long[] ivals = new long[ NROW ];
+        double[] xvals = new double[ NROW ];
+        String[] svals = new String[ NROW ];
+        int[][] avals = new int[ NROW ][];
+        for ( int i = 0; i < NROW; i++ ) {
+            ivals[ i ] = i;
+            xvals[ i ] = i % 7 == 0 ? Double.NaN : Math.sin( i );
+            svals[ i ] = i % 11 == 0 ? null : "r" + ( i % 50 );
+            avals[ i ] = new int[] { i, -i, i % 3 };
+        }
+        ColumnStarTable table = ColumnStarTable.makeTableWithRows( NROW );
+        table.addColumn( ArrayColumn.makeColumn( "i", ivals ) );
+        table.addColumn( ArrayColumn.makeColumn( "x", xvals ) );
+        table.addColumn( ArrayColumn.makeColumn( "s", svals ) );
+        table.addColumn( ArrayColumn.makeColumn( "a", avals ) );
+        return table;
+    }
+
+    private static File writeSequential( StarTable table,
+                                         CompressionCodecName codec )
+            throws IOException {
+        File file = File.createTempFile( "seq", ".parquet" );
+        file.deleteOnExit();
+        StarParquetWriter.StarBuilder builder =
+            new StarParquetWriter.StarBuilder( table,
+                                               new Path( file.getPath() ) );
+        builder.withWriteMode( ParquetFileWriter.Mode.OVERWRITE )
+               .withCompressionCodec( codec )
+               .withRowGroupSize( GROUP_SIZE );
+        try ( ParquetWriter<Object[]> pwriter = builder.build();
+              RowSequence rseq = table.getRowSequence() ) {
+            while ( rseq.next() ) {
+                pwriter.write( rseq.getRow() );
+            }
+        }
+        return file;
+    }
+
+    private static File writeParallel( StarTable table,
+                                       CompressionCodecName codec,
+                                       int maxGroups )
+            throws IOException {
+        File file = File.createTempFile( "par", ".parquet" );
+        file.deleteOnExit();
+        StarParquetWriter.StarBuilder builder =
+            new StarParquetWriter.StarBuilder( table,
+                                               new Path( file.getPath() ) );
+        Configuration conf = new Configuration();
+        ForkJoinPool pool = new ForkJoinPool( 3 );
+        try ( RowSequence rseq = table.getRowSequence() ) {
+            new ParallelParquetWriter( () -> builder.getWriteSupport( conf ),
+                                       codec, pool, maxGroups, GROUP_SIZE )
+               .writeRows( rseq,
+                           HadoopOutputFile
+                          .fromPath( new Path( file.getPath() ), conf ) );
+        }
+        finally {
+            pool.shutdown();
+        }
+        return file;
+    }
+
+    private static IOSupplier<ParquetFileReader> readerSupplier( File file )
+            throws IOException {
+        HadoopInputFile ifile =
+            HadoopInputFile.fromPath( new Path( file.getPath() ),
+                                      new Configuration() );
+        return () -> ParquetFileReader.open( ifile );
+    }
+
+    private void assertSameData( StarTable t0, StarTable t1 )
+            throws IOException {
+        int ncol = t0.getColumnCount();
+        assertEquals( ncol, t1.getColumnCount() );
+        long nr = 0;
+        try ( RowSequence rs0 = t0.getRowSequence();
+              RowSequence rs1 = t1.getRowSequence() ) {
+            while ( rs0.next() ) {
+                assertTrue( rs1.next() );
+                Object[] row0 = rs0.getRow();
+                Object[] row1 = rs1.getRow();
+                for ( int ic = 0; ic < ncol; ic++ ) {
+                    Object v0 = row0[ ic ];
+                    Object v1 = row1[ ic ];
+                    if ( v0 instanceof int[] ) {
+                        assertArrayEquals( v0, v1 );
+                    }
+                    else if ( ! ( v0 instanceof Double &&
+                                  ((Double) v0).isNaN() ) ) {
+                        assertEquals( v0, v1 );
+                    }
+                }
+                nr++;
+            }
+            assertFalse( rs1.next() );
+        }
+        assertEquals( NROW, nr );
+    }
+}
@@ -0,0 +1,156 @@
+package uk.ac.starlink.parquet;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.logging.Level;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.parquet.hadoop.ParquetFileReader;
+import org.apache.parquet.hadoop.ParquetFileWriter;
+import org.apache.parquet.hadoop.ParquetWriter;
+import org.apache.parquet.hadoop.util.HadoopInputFile;
+import org.apache.parquet.io.InputFile;
+import uk.ac.starlink.table.ArrayColumn;
+import uk.ac.starlink.table.ColumnRange;
+import uk.ac.starlink.table.ColumnStarTable;
+import uk.ac.starlink.table.RestrictableStarTable;
+import uk.ac.starlink.table.RowSequence;
+import uk.ac.starlink.table.StarTable;
+import uk.ac.starlink.util.IOSupplier;
+import uk.ac.starlink.util.LogUtils;
+import uk.ac.starlink.util.TestCase;
+
+public class RestrictTest extends TestCase {
+
+    private static final int NROW = 2000;
+
+    static {
+        LogUtils.getLogger( "uk.ac.starlink" ).setLevel( Level.WARNING );
+        ParquetUtil.silenceLog4j();
+    }
+
+    public void testRestrict() throws IOException {
+        File file = File.createTempFile( "restrict", ".parquet" );
+        file.deleteOnExit();
+        writeTable( createTable(), file );
+        InputFile ifile = HadoopInputFile.fromPath( new Path( file.getPath() ),
+                                                    new Configuration() );
+        IOSupplier<ParquetFileReader> pfrSupplier =
+            () -> ParquetFileReader.open( ifile );
+        int ngroup;
+        try ( ParquetFileReader pfr = pfrSupplier.get() ) {
+            ngroup = pfr.getRowGroups().size();
+        }
+        assertTrue( ngroup > 4 );
+
+        SequentialParquetStarTable table =
+            new SequentialParquetStarTable( pfrSupplier );
+        assertEquals( NROW, table.getRowCount() );
+        assertEquals( 3, table.getColumnCount() );
+
+        /* Column projection only. */
+        StarTable proj =
+            table.restrict( new int[] { 2, 0 }, new ColumnRange[ 0 ] );
+        assertEquals( NROW, proj.getRowCount() );
+        assertEquals( 2, proj.getColumnCount() );
+        assertEquals( "s", proj.getColumnInfo( 0 ).getName() );
+        assertEquals( "i", proj.getColumnInfo( 1 ).getName() );
+        long nr = 0;
+        try ( RowSequence rseq = proj.getRowSequence() ) {
+            while ( rseq.next() ) {
+                Object[] row = rseq.getRow();
+                assertEquals( Long.valueOf( nr ), row[ 1 ] );
+                assertEquals( "r" + nr, row[ 0 ] );
+                nr++;
+            }
+        }
+        assertEquals( NROW, nr );
+
+        /* Row group filtering on a column not in the projection. */
+        double xlo = 0.5 * ( NROW - 150 );
+        RestrictableStarTable filt = (RestrictableStarTable)
+            table.restrict( new int[] { 1 },
+                            new ColumnRange[] {
+                                new ColumnRange( 0, NROW - 150,
+                                                 Double.POSITIVE_INFINITY ),
+                            } );
+        assertEquals( -1, filt.getRowCount() );
+        assertEquals( 1, filt.getColumnCount() );
+        int nIn = 0;
+        int nOut = 0;
+        try ( RowSequence rseq = filt.getRowSequence() ) {
+            while ( rseq.next() ) {
+                if ( rseq.getDouble( 0 ) >= xlo ) {
+                    nIn++;
+                }
+                else {
+                    nOut++;
+                }
+            }
+        }
+        assertEquals( 150, nIn );
+        assertTrue( nOut < NROW / 2 );
+
+        /* Restrictions compose, and ranges outside the data exclude
+         * everything. */
+        StarTable empty =
+            filt.restrict( new int[] { 0 },
+                           new ColumnRange[] {
+                               new ColumnRange( 0, Double.NEGATIVE_INFINITY,
+                                                -1 ),
+                           } );
+        try ( RowSequence rseq = empty.getRowSequence() ) {
+            assertFalse( rseq.next() );
+        }
+
+        /* Repeated columns. */
+        StarTable rep =
+            table.restrict( new int[] { 0, 0, 2, 0 }, new ColumnRange[ 0 ] );
+        assertEquals( 4, rep.getColumnCount() );
+        nr = 0;
+        try ( RowSequence rseq = rep.getRowSequence() ) {
+            while ( rseq.next() ) {
+                Object[] row = rseq.getRow();
+                Long lval = Long.valueOf( nr );
+                assertEquals( lval, row[ 0 ] );
+                assertEquals( lval, row[ 1 ] );
+                assertEquals( "r" + nr, row[ 2 ] );
+                assertEquals( lval, row[ 3 ] );
+                nr++;
+            }
+        }
+        assertEquals( NROW, nr );
+        table.close();
+    }
+
+    private static StarTable createTable() {
+        long[] ivals = new long[ NROW ];
+        double[] xvals = new double[ NROW ];
+        String[] svals = new String[ NROW ];
+        for ( int i = 0; i < NROW; i++ ) {
+            ivals[ i ] = i;
+            xvals[ i ] = 0.5 * i;
+            svals[ i ] = "r" + i;
+        }
+        ColumnStarTable table = ColumnStarTable.makeTableWithRows( NROW );
+        table.addColumn( ArrayColumn.makeColumn( "i", ivals ) );
+        table.addColumn( ArrayColumn.makeColumn( "x", xvals ) );
+        table.addColumn( ArrayColumn.makeColumn( "s", svals ) );
+        return table;
+    }
+
+    private static void writeTable( StarTable table, File file )
+            throws IOException {
+        StarParquetWriter.StarBuilder builder =
+            new StarParquetWriter.StarBuilder( table,
+                                               new Path( file.getPath() ) );
+        builder.withWriteMode( ParquetFileWriter.Mode.OVERWRITE )
+               .withRowGroupSize( 2048 );
+        try ( ParquetWriter<Object[]> pwriter = builder.build();
+              RowSequence rseq = table.getRowSequence() ) {
+            while ( rseq.next() ) {
+                pwriter.write( rseq.getRow() );
+            }
+        }
+    }
+}
@@ -37,27 +37,49 @@ public class AccessRowSequence implements RowSequence {
     }
 
     public Object getCell( int icol ) throws IOException {
-        if ( irow_ >= 0 ) {
-            return racc_.getCell( icol );
-        }
-        else {
-            throw new IllegalStateException();
-        }
+        return getAccess().getCell( icol );
     }
 
     public Object[] getRow() throws IOException {
+        return getAccess().getRow();
+    }
+
+    public double getDouble( int icol ) throws IOException {
+        return getAccess().getDouble( icol );
+    }
+
+    public long getLong( int icol ) throws IOException {
+        return getAccess().getLong( icol );
+    }
+
+    public boolean isNull( int icol ) throws IOException {
+        return getAccess().isNull( icol );
+    }
+
+    public double[] getDoubleArray( int icol, double[] buf )
+            throws IOException {
+        return getAccess().getDoubleArray( icol, buf );
+    }
+
+    public void close() throws IOException {
+        racc_.close();
+    }
+
+    /**
+     * Returns the row access positioned at the current row.
+     *
+     * @return  row access
+     * @throws  IllegalStateException  if there is no current row
+     */
+    private RowAccess getAccess() {
         if ( irow_ >= 0 ) {
-            return racc_.getRow();
+            return racc_;
         }
         else {
             throw new IllegalStateException();
         }
     }
 
-    public void close() throws IOException {
-        racc_.close();
-    }
-
     /**
      * Constructs an AccessRowSequence based on a given table.
      *
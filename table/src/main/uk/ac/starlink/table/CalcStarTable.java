@@ -110,13 +110,11 @@ public abstract class CalcStarTable<C> extends AbstractStarTable {
     /**
      * RowSplittable for use with CalcStarTable.
      */
-    private class CalcRowSplittable extends WrapperRowSequence
-                                    implements RowSplittable {
+    private class CalcRowSplittable implements RowSplittable {
      
         private C calc_;
         private final RowSplittable baseSplit_;
         CalcRowSplittable( RowSplittable base ) {
-            super( base );
             baseSplit_ = base;
         }
         public long splittableSize() {
@@ -143,6 +141,9 @@ public abstract class CalcStarTable<C> extends AbstractStarTable {
             return spl == null ? null
                                : new CalcRowSplittable( spl );
         }
+        public void close() throws IOException {
+            baseSplit_.close();
+        }
         private C getCalculation() throws IOException {
             if ( calc_ == null ) {
                 calc_ = createCalculation( baseSplit_ );
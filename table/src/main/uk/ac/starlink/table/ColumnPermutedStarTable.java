@@ -214,19 +214,13 @@ public class ColumnPermutedStarTable extends WrapperStarTable {
      */
     private RowData permuteMapper( final RowData data ) {
         return readRow_
-             ? new RowData() {
-                   public Object getCell( int icol ) throws IOException {
-                       return data.getCell( columnMap_[ icol ] );
-                   }
+             ? new PermutedRowData( data ) {
                    public Object[] getRow() throws IOException {
                        return permuteRow( data.getRow() );
                    }
                }
-             : new RowData() {
+             : new PermutedRowData( data ) {
                    final int ncol = getColumnCount();
-                   public Object getCell( int icol ) throws IOException {
-                       return data.getCell( columnMap_[ icol ] );
-                   }
                    public Object[] getRow() throws IOException {
                        Object[] row = new Object[ ncol ];
                        for ( int icol = 0; icol < ncol; icol++ ) {
@@ -236,4 +230,42 @@ public class ColumnPermutedStarTable extends WrapperStarTable {
                    }
                };
     }
+
+    /**
+     * Partial RowData implementation that forwards single-cell access
+     * to the corresponding columns of a base RowData.
+     */
+    private abstract class PermutedRowData implements RowData {
+        private final RowData data_;
+
+        /**
+         * Constructor.
+         *
+         * @param  data  base RowData
+         */
+        PermutedRowData( RowData data ) {
+            data_ = data;
+        }
+
+        public Object getCell( int icol ) throws IOException {
+            return data_.getCell( columnMap_[ icol ] );
+        }
+
+        public double getDouble( int icol ) throws IOException {
+            return data_.getDouble( columnMap_[ icol ] );
+        }
+
+        public long getLong( int icol ) throws IOException {
+            return data_.getLong( columnMap_[ icol ] );
+        }
+
+        public boolean isNull( int icol ) throws IOException {
+            return data_.isNull( columnMap_[ icol ] );
+        }
+
+        public double[] getDoubleArray( int icol, double[] buf )
+                throws IOException {
+            return data_.getDoubleArray( columnMap_[ icol ], buf );
+        }
+    }
 }
@@ -0,0 +1,72 @@
+package uk.ac.starlink.table;
+
+/**
+ * Describes an inclusive range of numeric values for a table column.
+ * Instances of this class are used as hints passed to a
+ * {@link RestrictableStarTable} about which rows are of interest.
+ *
+ * @author   Mark Taylor
+ * @since    17 Oct 2026
+ */
+public class ColumnRange {
+
+    private final int icol_;
+    private final double lo_;
+    private final double hi_;
+
+    /**
+     * Constructor.
+     * Infinite values may be used for bounds that are not restricted.
+     *
+     * @param  icol  index of the column to which the range applies
+     * @param  lo   lower bound, inclusive
+     * @param  hi   upper bound, inclusive
+     */
+    public ColumnRange( int icol, double lo, double hi ) {
+        icol_ = icol;
+        lo_ = lo;
+        hi_ = hi;
+    }
+
+    /**
+     * Returns the index of the column to which this range applies.
+     *
+     * @return  column index
+     */
+    public int getColumnIndex() {
+        return icol_;
+    }
+
+    /**
+     * Returns the lower bound of this range.
+     *
+     * @return  inclusive lower bound, may be negative infinity
+     */
+    public double getLow() {
+        return lo_;
+    }
+
+    /**
+     * Returns the upper bound of this range.
+     *
+     * @return  inclusive upper bound, may be positive infinity
+     */
+    public double getHigh() {
+        return hi_;
+    }
+
+    /**
+     * Returns a range like this one but applying to a different column.
+     *
+     * @param  icol  new column index
+     * @return  new range
+     */
+    public ColumnRange forColumn( int icol ) {
+        return new ColumnRange( icol, lo_, hi_ );
+    }
+
+    @Override
+    public String toString() {
+        return "$" + ( icol_ + 1 ) + ":[" + lo_ + "," + hi_ + "]";
+    }
+}
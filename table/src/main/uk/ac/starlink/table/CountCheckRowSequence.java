@@ -99,6 +99,23 @@ public class CountCheckRowSequence implements RowSequence {
         return rowData_.getRow();
     }
 
+    public double getDouble( int icol ) throws IOException {
+        return rowData_.getDouble( icol );
+    }
+
+    public long getLong( int icol ) throws IOException {
+        return rowData_.getLong( icol );
+    }
+
+    public boolean isNull( int icol ) throws IOException {
+        return rowData_.isNull( icol );
+    }
+
+    public double[] getDoubleArray( int icol, double[] buf )
+            throws IOException {
+        return rowData_.getDoubleArray( icol, buf );
+    }
+
     public void close() throws IOException {
         base_.close();
     }
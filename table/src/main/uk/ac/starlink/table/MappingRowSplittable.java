@@ -51,6 +51,27 @@ public class MappingRowSplittable extends WrapperRowSequence
         return data_.getRow();
     }
 
+    @Override
+    public double getDouble( int icol ) throws IOException {
+        return data_.getDouble( icol );
+    }
+
+    @Override
+    public long getLong( int icol ) throws IOException {
+        return data_.getLong( icol );
+    }
+
+    @Override
+    public boolean isNull( int icol ) throws IOException {
+        return data_.isNull( icol );
+    }
+
+    @Override
+    public double[] getDoubleArray( int icol, double[] buf )
+            throws IOException {
+        return data_.getDoubleArray( icol, buf );
+    }
+
     public long splittableSize() {
         return baseSplit_.splittableSize();
     }
@@ -70,6 +70,23 @@ public class ProgressRowSplittable implements RowSplittable {
         return base_.getRow();
     }
 
+    public double getDouble( int icol ) throws IOException {
+        return base_.getDouble( icol );
+    }
+
+    public long getLong( int icol ) throws IOException {
+        return base_.getLong( icol );
+    }
+
+    public boolean isNull( int icol ) throws IOException {
+        return base_.isNull( icol );
+    }
+
+    public double[] getDoubleArray( int icol, double[] buf )
+            throws IOException {
+        return base_.getDoubleArray( icol, buf );
+    }
+
     public LongSupplier rowIndex() {
         return base_.rowIndex();
     }
@@ -0,0 +1,42 @@
+package uk.ac.starlink.table;
+
+import java.io.IOException;
+
+/**
+ * StarTable that can provide views of itself restricted to a subset of
+ * its columns and rows more efficiently than by generic wrapping.
+ * Formats that store data by column, and maintain per-block value
+ * statistics, may be able to avoid reading data entirely for columns
+ * or row blocks that are not required.
+ *
+ * <p>Row restriction is only a hint: the returned table may omit rows
+ * which are known not to fall within the requested ranges,
+ * but it is not obliged to omit any.
+ * Callers that require exact selection must apply their own test
+ * to each row.
+ *
+ * @author   Mark Taylor
+ * @since    17 Oct 2026
+ */
+public interface RestrictableStarTable extends StarTable {
+
+    /**
+     * Returns a view of this table containing selected columns,
+     * and possibly omitting rows for which values lie outside given ranges.
+     *
+     * <p>Column <code>i</code> of the result contains the data of
+     * column <code>colMap[i]</code> of this table, as for a
+     * {@link ColumnPermutedStarTable};
+     * it may contain repeated indices.
+     * The column indices of the <code>ranges</code> refer to this table,
+     * not to the result, so they do not need to appear in
+     * <code>colMap</code>.
+     * Rows in which a ranged column has a null value may also be omitted.
+     *
+     * @param  colMap  indices of the columns of this table to include
+     * @param  ranges  value ranges that must be satisfied by rows of interest
+     * @return  restricted table
+     */
+    StarTable restrict( int[] colMap, ColumnRange[] ranges )
+            throws IOException;
+}
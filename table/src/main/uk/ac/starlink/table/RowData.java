@@ -5,6 +5,14 @@ import java.io.IOException;
 /**
  * Allows access to the values in a single row of a table.
  *
+ * <p>As well as the generic object accessors, some typed accessors
+ * are provided ({@link #getDouble}, {@link #getLong}, {@link #isNull},
+ * {@link #getDoubleArray}).
+ * The default implementations of these just interrogate the result
+ * of {@link #getCell}, but implementations which have access to
+ * the underlying primitive data are encouraged to override them
+ * so that numeric values can be retrieved without object creation.
+ *
  * @author   Mark Taylor
  * @since    24 Jul 2020
  */
@@ -32,4 +40,79 @@ public interface RowData {
      *           containing cell data; may be reused by subsequent invocations
      */
     Object[] getRow() throws IOException;
+
+    /**
+     * Returns the contents of one cell in this row as a double precision
+     * floating point value.
+     * Blank values, and values which are not scalar numbers,
+     * are returned as NaN.
+     *
+     * <p>The default implementation calls {@link #getCell};
+     * implementations may override it to avoid object creation.
+     *
+     * @param   icol  column index
+     * @return   numeric cell value, or NaN
+     * @throws   IOException  if there's a problem reading the value
+     */
+    default double getDouble( int icol ) throws IOException {
+        Object value = getCell( icol );
+        return value instanceof Number ? ((Number) value).doubleValue()
+                                       : Double.NaN;
+    }
+
+    /**
+     * Returns the contents of one cell in this row as a long integer.
+     * This is intended for use with integer-valued columns;
+     * the result for blank cells, or for values which are not scalar
+     * numbers, is undefined (the default implementation returns zero),
+     * so {@link #isNull} should be checked as well where blank values
+     * may be present.
+     *
+     * <p>The default implementation calls {@link #getCell};
+     * implementations may override it to avoid object creation.
+     *
+     * @param   icol  column index
+     * @return   integer cell value
+     * @throws   IOException  if there's a problem reading the value
+     */
+    default long getLong( int icol ) throws IOException {
+        Object value = getCell( icol );
+        return value instanceof Number ? ((Number) value).longValue()
+                                       : 0L;
+    }
+
+    /**
+     * Indicates whether the contents of one cell in this row is blank,
+     * in the sense of {@link Tables#isBlank}.
+     *
+     * <p>The default implementation calls {@link #getCell};
+     * implementations may override it to avoid object creation.
+     *
+     * @param   icol  column index
+     * @return   true iff the cell value is blank
+     * @throws   IOException  if there's a problem reading the value
+     */
+    default boolean isNull( int icol ) throws IOException {
+        return Tables.isBlank( getCell( icol ) );
+    }
+
+    /**
+     * Returns the contents of one array-valued cell in this row as an
+     * array of double precision values.
+     * If the supplied buffer is non-null and has exactly the
+     * right number of elements, it is filled and returned,
+     * otherwise a new array is returned.
+     * If the cell is blank or is not a numeric array, null is returned.
+     *
+     * <p>The default implementation calls {@link #getCell}.
+     *
+     * @param   icol  column index
+     * @param   buf   buffer for result, or null
+     * @return   array of numeric values, or null
+     * @throws   IOException  if there's a problem reading the value
+     */
+    default double[] getDoubleArray( int icol, double[] buf )
+            throws IOException {
+        return Tables.toDoubleArray( getCell( icol ), buf );
+    }
 }
@@ -60,7 +60,21 @@ public class RowRunner {
      */
     public <A> A collect( RowCollector<A> collector, StarTable table )
             throws IOException {
-        RowSplittable splittable = createRowSplittable( table );
+        return collect( collector, createRowSplittable( table ) );
+    }
+
+    /**
+     * Performs a collection operation on the rows of a given splittable.
+     * This may be used when the rows to process are not available
+     * as a table.
+     *
+     * @param   collector   collector defining operation
+     * @param   splittable   splittable row sequence supplying data
+     * @return   result of collection
+     */
+    public <A> A collect( RowCollector<A> collector,
+                          RowSplittable splittable )
+            throws IOException {
         return invokeWithSmuggledIOException(
             () -> processor_.collect( collector, splittable )
         );
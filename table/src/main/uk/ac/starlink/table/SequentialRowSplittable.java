@@ -74,6 +74,23 @@ public class SequentialRowSplittable implements RowSplittable {
         return rseq_.getRow();
     }
 
+    public double getDouble( int icol ) throws IOException {
+        return rseq_.getDouble( icol );
+    }
+
+    public long getLong( int icol ) throws IOException {
+        return rseq_.getLong( icol );
+    }
+
+    public boolean isNull( int icol ) throws IOException {
+        return rseq_.isNull( icol );
+    }
+
+    public double[] getDoubleArray( int icol, double[] buf )
+            throws IOException {
+        return rseq_.getDoubleArray( icol, buf );
+    }
+
     public void close() throws IOException {
         rseq_.close();
     }
@@ -33,6 +33,8 @@ import uk.ac.starlink.util.Compression;
 import uk.ac.starlink.util.DataSource;
 import uk.ac.starlink.util.LoadException;
 import uk.ac.starlink.util.Loader;
+import uk.ac.starlink.util.ReadAheadDataSource;
+import uk.ac.starlink.util.ReadAheadInputStream;
 import uk.ac.starlink.util.URLDataSource;
 
 /**
@@ -166,6 +168,7 @@ public class StarTableFactory {
     private StoragePolicy storagePolicy_;
     private TablePreparation tablePrep_;
     private Predicate<DataSource> inputRestriction_;
+    private int readAheadDepth_;
 
     /**
      * System property which can contain a list of {@link TableBuilder}
@@ -181,6 +184,16 @@ public class StarTableFactory {
      */
     public static final String SCHEMES_PROPERTY = "startable.schemes";
 
+    /**
+     * System property which can give the default read-ahead depth
+     * for data sources.  If it is set to a value of 2 or more,
+     * factories will by default read input data asynchronously
+     * using that number of buffers.
+     *
+     * @see  #setReadAheadDepth
+     */
+    public static final String READAHEAD_PROPERTY = "startable.readahead";
+
     /**
      * Special handler identifier which signifies automatic format detection.
      */
@@ -233,6 +246,7 @@ public class StarTableFactory {
      */
     public StarTableFactory( boolean requireRandom ) {
         requireRandom_ = requireRandom;
+        readAheadDepth_ = getDefaultReadAheadDepth();
         defaultBuilders_ = new ArrayList<TableBuilder>();
 
         /* Attempt to add default handlers if they are available. */
@@ -307,6 +321,7 @@ public class StarTableFactory {
         schemes_ = new LinkedHashMap<String,TableScheme>( fact.schemes_ );
         storagePolicy_ = fact.storagePolicy_;
         tablePrep_ = fact.tablePrep_;
+        readAheadDepth_ = fact.readAheadDepth_;
     }
 
     /**
@@ -504,6 +519,38 @@ public class StarTableFactory {
         return inputRestriction_;
     }
 
+    /**
+     * Sets the number of buffers used for asynchronous read-ahead
+     * of input data.
+     * If set to a value of 2 or more, DataSources presented to this
+     * factory are wrapped in a {@link ReadAheadDataSource}, so that
+     * a background thread reads the data ahead of the table reader.
+     * This can improve performance for high-latency storage,
+     * but it prevents table readers from using direct file access
+     * (for instance memory mapping), so should only be used where
+     * stream reading is appropriate.
+     * A value less than 2 disables read-ahead.
+     *
+     * <p>The default value is taken from the
+     * {@link #READAHEAD_PROPERTY} system property if set, otherwise zero.
+     *
+     * @param  depth  read-ahead buffer count, or 0 for no read-ahead
+     */
+    public void setReadAheadDepth( int depth ) {
+        readAheadDepth_ = depth;
+    }
+
+    /**
+     * Returns the number of buffers used for asynchronous read-ahead
+     * of input data.  A value less than 2 indicates no read-ahead.
+     *
+     * @return  read-ahead buffer count
+     * @see   #setReadAheadDepth
+     */
+    public int getReadAheadDepth() {
+        return readAheadDepth_;
+    }
+
     /**
      * Returns a table based on a given table and guaranteed to have
      * random access.  If the original table <tt>table</tt> has random
@@ -533,7 +580,7 @@ public class StarTableFactory {
      */
     public StarTable makeStarTable( DataSource datsrc )
             throws TableFormatException, IOException {
-        checkDataSource( datsrc );
+        datsrc = prepareDataSource( datsrc );
         List<TableBuilder> builders = getTableBuilders( datsrc );
         for ( TableBuilder builder : builders ) {
             try {
@@ -590,7 +637,7 @@ public class StarTableFactory {
      */
     public TableSequence makeStarTables( DataSource datsrc )
             throws TableFormatException, IOException {
-        checkDataSource( datsrc );
+        datsrc = prepareDataSource( datsrc );
         List<TableBuilder> builders = getTableBuilders( datsrc );
         for ( TableBuilder builder : builders ) {
             try {
@@ -714,7 +761,7 @@ public class StarTableFactory {
      */
     public StarTable makeStarTable( DataSource datsrc, String handler )
             throws TableFormatException, IOException {
-        checkDataSource( datsrc );
+        datsrc = prepareDataSource( datsrc );
         if ( handler == null || handler.trim().length() == 0 ||
              handler.equals( AUTO_HANDLER ) ) {
             return makeStarTable( datsrc );
@@ -777,7 +824,7 @@ public class StarTableFactory {
      */
     public TableSequence makeStarTables( DataSource datsrc, String handler )
             throws TableFormatException, IOException {
-        checkDataSource( datsrc );
+        datsrc = prepareDataSource( datsrc );
         if ( handler == null || handler.trim().length() == 0 ||
              handler.equals( AUTO_HANDLER ) ) {
             return makeStarTables( datsrc );
@@ -964,6 +1011,11 @@ public class StarTableFactory {
      */
     public StarTable makeStarTable( InputStream in, TableBuilder builder )
             throws TableFormatException, IOException {
+        if ( readAheadDepth_ >= 2 ) {
+            in = new ReadAheadInputStream( in, readAheadDepth_,
+                                           ReadAheadInputStream
+                                          .DEFAULT_BUFSIZE );
+        }
         in = Compression.decompressStatic( in );
         in = new BufferedInputStream( in );
         RowStore store = getStoragePolicy().makeRowStore();
@@ -1308,6 +1360,55 @@ public class StarTableFactory {
         };
     }
 
+    /**
+     * Checks that access is permitted to a data source presented to
+     * this factory, and applies read-ahead if configured.
+     *
+     * @param   datsrc  data source supplied by the caller
+     * @return  data source to use for reading
+     * @throws  IOException  if access is blocked to <code>datsrc</code>
+     */
+    private DataSource prepareDataSource( DataSource datsrc )
+            throws IOException {
+        checkDataSource( datsrc );
+        if ( readAheadDepth_ >= 2 &&
+             ! ( datsrc instanceof ReadAheadDataSource ) ) {
+            return new ReadAheadDataSource( datsrc, readAheadDepth_,
+                                            ReadAheadInputStream
+                                           .DEFAULT_BUFSIZE );
+        }
+        else {
+            return datsrc;
+        }
+    }
+
+    /**
+     * Returns the default read-ahead depth,
+     * as determined by the {@link #READAHEAD_PROPERTY} system property.
+     *
+     * @return  default read-ahead buffer count
+     */
+    private static int getDefaultReadAheadDepth() {
+        String txt;
+        try {
+            txt = System.getProperty( READAHEAD_PROPERTY );
+        }
+        catch ( SecurityException e ) {
+            return 0;
+        }
+        if ( txt == null || txt.trim().length() == 0 ) {
+            return 0;
+        }
+        try {
+            return Integer.parseInt( txt.trim() );
+        }
+        catch ( NumberFormatException e ) {
+            logger.warning( "Bad value for " + READAHEAD_PROPERTY
+                          + ": \"" + txt + "\"" );
+            return 0;
+        }
+    }
+
     /**
      * Ensures that access is permitted to the given data source.
      * If access has been blocked, an exception will be thrown.
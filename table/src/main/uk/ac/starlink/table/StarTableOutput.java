@@ -190,7 +190,10 @@ public class StarTableOutput {
      *         or <tt>null</tt> or {@link #AUTO_HANDLER} 
      *         to indicate that a handler should be 
      *         selected based on the value of <tt>location</tt>.
-     *         Ignored for <tt>jdbc:</tt>-protocol locations
+     *         For <tt>jdbc:</tt>-protocol locations this is ignored,
+     *         except that any configuration options, as in
+     *         <code>jdbc(batch=1000)</code>, are applied to
+     *         the {@link uk.ac.starlink.table.jdbc.JDBCHandler}
      * @throws TableFormatException  if no suitable handler is known
      */
     public void writeStarTable( StarTable startab, String location,
@@ -199,9 +202,25 @@ public class StarTableOutput {
 
         /* Handle the JDBC case. */
         if ( location.startsWith( "jdbc:" ) ) {
+            JDBCHandler jh = getJDBCHandler();
+
+            /* A format string like "jdbc(batch=1000)" configures
+             * bulk load options. */
+            BeanConfig config = format == null
+                              ? null
+                              : BeanConfig.parseSpec( format );
+            if ( config != null && config.getConfigText() != null ) {
+                jh = new JDBCHandler( jh );
+                try {
+                    config.configBean( jh );
+                }
+                catch ( LoadException e ) {
+                    throw new TableFormatException( "JDBC configuration "
+                                                  + "failed: " + e, e );
+                }
+            }
             try {
-                getJDBCHandler().createJDBCTable( startab, location,
-                                                  WriteMode.DROP_CREATE );
+                jh.createJDBCTable( startab, location, WriteMode.DROP_CREATE );
                 return;
             }
             catch ( SQLException e ) {
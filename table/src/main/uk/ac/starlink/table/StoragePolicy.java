@@ -6,6 +6,9 @@ import java.util.logging.Logger;
 import uk.ac.starlink.table.jdbc.JDBCStarTable;
 import uk.ac.starlink.table.storage.AdaptiveByteStore;
 import uk.ac.starlink.table.storage.ByteStoreStoragePolicy;
+import uk.ac.starlink.table.storage.ColumnarRowStore;
+import uk.ac.starlink.table.storage.CompressedByteStore;
+import uk.ac.starlink.table.storage.CompressedDiskRowStore;
 import uk.ac.starlink.table.storage.ListRowStore;
 import uk.ac.starlink.table.storage.DiscardByteStore;
 import uk.ac.starlink.table.storage.DiscardRowStore;
@@ -34,7 +37,8 @@ import uk.ac.starlink.util.Loader;
  *
  * <p>Code which wants to store data in a particular way may use one of
  * the predefined policies {@link #ADAPTIVE}, {@link #PREFER_MEMORY},
- * {@link #PREFER_DISK} {@link #SIDEWAYS} or {@link #DISCARD},
+ * {@link #COLUMNAR}, {@link #PREFER_DISK}, {@link #COMPRESSED_DISK},
+ * {@link #SIDEWAYS} or {@link #DISCARD},
  * or may implement their own policy by extending this class.
  * If you want more control, you can always create instances of the 
  * public {@link RowStore} implementations directly.
@@ -58,8 +62,8 @@ public abstract class StoragePolicy {
     /**
      * Name of the system property which can be set to indicate the
      * initial setting of the default storage policy ({@value}).
-     * Currently recognised values are "adaptive", "memory", "disk",
-     * "sideways", and "discard".
+     * Currently recognised values are "adaptive", "memory", "columnar",
+     * "disk", "compressed", "sideways", and "discard".
      * Alternatively, the classname of a StoragePolicy implementation
      * with a no-arg constructor may be supplied.
      */
@@ -80,9 +84,15 @@ public abstract class StoragePolicy {
                 else if ( "memory".equals( pref ) ) {
                     defaultInstance_ = PREFER_MEMORY;
                 }
+                else if ( "columnar".equals( pref ) ) {
+                    defaultInstance_ = COLUMNAR;
+                }
                 else if ( "disk".equals( pref ) ) {
                     defaultInstance_ = PREFER_DISK;
                 }
+                else if ( "compressed".equals( pref ) ) {
+                    defaultInstance_ = COMPRESSED_DISK;
+                }
                 else if ( "sideways".equals( pref ) ) {
                     defaultInstance_ = SIDEWAYS;
                 }
@@ -217,6 +227,33 @@ public abstract class StoragePolicy {
         }
     };
 
+    /**
+     * Storage policy which will always store table data in memory,
+     * in a column-oriented form.
+     * Scalar numeric columns are stored in primitive arrays,
+     * strings in a shared byte heap, and null flags in bit sets,
+     * so memory usage is much lower than for {@link #PREFER_MEMORY}
+     * for typical tables, and cells are only turned into objects
+     * when they are requested.
+     * Values of other types are stored as objects.
+     */
+    public static final StoragePolicy COLUMNAR = new StoragePolicy() {
+        public ByteStore makeByteStore() {
+            return new MemoryByteStore();
+        }
+        public RowStore makeRowStore() {
+            return new ColumnarRowStore();
+        }
+        public RowStore makeConfiguredRowStore( StarTable meta ) {
+            ColumnarRowStore store = new ColumnarRowStore();
+            store.acceptMetadata( meta );
+            return store;
+        }
+        public String toString() {
+            return "StoragePolicy.COLUMNAR";
+        }
+    };
+
     /**
      * Storage policy which will normally store table data in a scratch
      * disk file.  If it's impossible for some reason (I/O error,
@@ -238,6 +275,23 @@ public abstract class StoragePolicy {
             }
         };
 
+    /**
+     * Storage policy which works like {@link #PREFER_DISK}, but compresses
+     * the data written to scratch disk files.
+     * Data is compressed in independently readable blocks, so random
+     * access is still possible.  This uses less disk space and I/O
+     * than <code>PREFER_DISK</code>, but more CPU.
+     */
+    public static final StoragePolicy COMPRESSED_DISK =
+        new DiskStoragePolicy( "COMPRESSED_DISK", MIN_DISK_CELLS ) {
+            protected RowStore makeDiskRowStore() throws IOException {
+                return new CompressedDiskRowStore();
+            }
+            public ByteStore makeByteStore() {
+                return new CompressedByteStore( super.makeByteStore() );
+            }
+        };
+
     /**
      * Storage policy which will normally store table data in scratch disk
      * files in such a way that cells from the same column are contiguous
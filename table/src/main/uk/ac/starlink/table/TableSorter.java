@@ -1,189 +1,1008 @@
 package uk.ac.starlink.table;
 
 import java.io.IOException;
-import java.util.Arrays;
-import java.util.Comparator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.LongSupplier;
+import uk.ac.starlink.util.SplitPolicy;
 
 /**
  * Provides table sorting functionality.
  *
+ * <p>Sorting is done in two phases.  First the values of the key columns
+ * are read from the table into arrays, primitive ones where the column
+ * content class permits, using a {@link RowRunner} so that the
+ * read can be done in parallel.  Then an array of row indices is
+ * sorted by a stable merge sort that consults only those arrays,
+ * with subranges sorted concurrently on the runner's ForkJoin pool
+ * if the table is large enough.
+ * No per-row or per-comparison objects are created for numeric keys.
+ * Row indices are handled as longs throughout, and both key values
+ * and row indices are stored in fixed-size chunks, so the row count
+ * is not limited by the maximum size of a Java array.
+ *
  * @author   Mark Taylor (Starlink)
  * @since    8 Mar 2005
  * @see      Tables#sortTable
  */
 class TableSorter {
 
+    /** Subranges below this size are sorted by insertion sort. */
+    private static final int INSERTION_THRESHOLD = 32;
+
+    /** Log2 of the default number of elements in each storage chunk. */
+    static final int DFLT_CHUNK_SHIFT = 24;
+
+    /** Largest array length that can safely be allocated. */
+    private static final long MAX_ARRAY_LENGTH = Integer.MAX_VALUE - 8;
+
     /**
      * Returns an array representing the sorted row sequence for a table.
+     * Key extraction and sorting will be done in parallel where appropriate.
      *
      * @param   table  table to sort
      * @param   colIndices  indices of the columns which are to act as sort
      *          keys; first element is primary key etc
-     * @param   up  true for sorting into ascending order, false for 
+     * @param   up  true for sorting into ascending order, false for
      *          descending order
-     * @param   nullsLast  true if blank values should be considered 
+     * @param   nullsLast  true if blank values should be considered
      *          last in the collation order, false if they should
      *          be considered first
      * @return  an array mapping the rows in a table to their sorted order
-     * @throws  IOException  if <tt>table.isRandom()</tt> returns false
-     */ 
+     * @throws  IOException  if <tt>table.isRandom()</tt> returns false,
+     *          or if the table has too many rows for a single array
+     */
     public static long[] getSortedOrder( StarTable table, int[] colIndices,
                                          boolean up, boolean nullsLast )
             throws IOException {
+        return getSortedOrder( table, colIndices, up, nullsLast,
+                               RowRunner.DEFAULT );
+    }
+
+    /**
+     * Returns an array representing the sorted row sequence for a table,
+     * with control over parallelism.
+     * The sort itself is performed in parallel only if the supplied
+     * runner would split the table's rows for processing.
+     *
+     * @param   table  table to sort
+     * @param   colIndices  indices of the columns which are to act as sort
+     *          keys; first element is primary key etc
+     * @param   up  true for sorting into ascending order, false for
+     *          descending order
+     * @param   nullsLast  true if blank values should be considered
+     *          last in the collation order, false if they should
+     *          be considered first
+     * @param   runner   controls parallel processing
+     * @return  an array mapping the rows in a table to their sorted order
+     * @throws  IOException  if <tt>table.isRandom()</tt> returns false,
+     *          or if the table has too many rows for a single array
+     */
+    public static long[] getSortedOrder( StarTable table, int[] colIndices,
+                                         boolean up, boolean nullsLast,
+                                         RowRunner runner )
+            throws IOException {
+        return getSortedOrder( table, colIndices, up, nullsLast, runner,
+                               DFLT_CHUNK_SHIFT );
+    }
+
+    /**
+     * Returns an array representing the sorted row sequence for a table,
+     * with control over internal storage.
+     *
+     * @param   table  table to sort
+     * @param   colIndices  indices of the columns which are to act as sort
+     *          keys; first element is primary key etc
+     * @param   up  true for ascending order
+     * @param   nullsLast  true to rank blanks at the end
+     * @param   runner   controls parallel processing
+     * @param   chunkShift  log2 of the number of elements in each
+     *                      internal storage chunk
+     * @return  an array mapping the rows in a table to their sorted order
+     * @throws  IOException  if <tt>table.isRandom()</tt> returns false,
+     *          or if the table has too many rows for a single array
+     */
+    static long[] getSortedOrder( StarTable table, int[] colIndices,
+                                  boolean up, boolean nullsLast,
+                                  RowRunner runner, int chunkShift )
+            throws IOException {
+        long nrow = table.getRowCount();
+        if ( nrow > MAX_ARRAY_LENGTH ) {
+            throw new IOException( "Too many rows (" + nrow + ") "
+                                 + "for sorted order array" );
+        }
+        return sortRows( table, colIndices, up, nullsLast, runner,
+                         chunkShift ).toArray();
+    }
+
+    /**
+     * Returns a table containing the rows of a given table in sorted order.
+     * Unlike {@link #getSortedOrder getSortedOrder},
+     * this places no restriction on the number of rows.
+     *
+     * @param   table  table to sort
+     * @param   colIndices  indices of the columns which are to act as sort
+     *          keys; first element is primary key etc
+     * @param   up  true for ascending order
+     * @param   nullsLast  true to rank blanks at the end
+     * @return  sorted table
+     * @throws  IOException  if <tt>table.isRandom()</tt> returns false
+     */
+    public static StarTable getSortedTable( StarTable table, int[] colIndices,
+                                            boolean up, boolean nullsLast )
+            throws IOException {
+        return getSortedTable( table, colIndices, up, nullsLast,
+                               RowRunner.DEFAULT, DFLT_CHUNK_SHIFT );
+    }
+
+    /**
+     * Returns a table containing the rows of a given table in sorted order,
+     * with control over parallelism and internal storage.
+     * If the sorted row order occupies a single storage chunk,
+     * the result is a {@link RowPermutedStarTable};
+     * otherwise it is a table that uses the chunked storage directly.
+     *
+     * @param   table  table to sort
+     * @param   colIndices  indices of the columns which are to act as sort
+     *          keys; first element is primary key etc
+     * @param   up  true for ascending order
+     * @param   nullsLast  true to rank blanks at the end
+     * @param   runner   controls parallel processing
+     * @param   chunkShift  log2 of the number of elements in each
+     *                      internal storage chunk
+     * @return  sorted table
+     * @throws  IOException  if <tt>table.isRandom()</tt> returns false
+     */
+    static StarTable getSortedTable( StarTable table, int[] colIndices,
+                                     boolean up, boolean nullsLast,
+                                     RowRunner runner, int chunkShift )
+            throws IOException {
+        IndexArray order = sortRows( table, colIndices, up, nullsLast,
+                                     runner, chunkShift );
+        return order.chunking_.nchunk_ > 1
+             ? new ChunkedPermutedStarTable( table, order )
+             : new RowPermutedStarTable( table, order.toArray() );
+    }
+
+    /**
+     * Performs the sort, returning the sorted row indices.
+     *
+     * @param   table  table to sort
+     * @param   colIndices  indices of the columns which are to act as sort
+     *          keys; first element is primary key etc
+     * @param   up  true for ascending order
+     * @param   nullsLast  true to rank blanks at the end
+     * @param   runner   controls parallel processing
+     * @param   chunkShift  log2 of the number of elements in each
+     *                      internal storage chunk
+     * @return  sorted row indices
+     * @throws  IOException  if <tt>table.isRandom()</tt> returns false
+     */
+    private static IndexArray sortRows( StarTable table, int[] colIndices,
+                                        boolean up, boolean nullsLast,
+                                        RowRunner runner, int chunkShift )
+            throws IOException {
         if ( ! table.isRandom() ) {
             throw new IOException( "Table does not have random access" );
         }
-        int nrow = Tables.checkedLongToInt( table.getRowCount() );
-        Number[] rowMap = new Number[ nrow ];
-        for ( int i = 0; i < nrow; i++ ) {
-            rowMap[ i ] = new Integer( i );
+        long nrow = Math.max( table.getRowCount(), 0 );
+        int nkey = colIndices.length;
+        ColumnInfo[] infos = new ColumnInfo[ nkey ];
+        for ( int ik = 0; ik < nkey; ik++ ) {
+            infos[ ik ] = table.getColumnInfo( colIndices[ ik ] );
+            if ( ! Comparable.class
+                  .isAssignableFrom( infos[ ik ].getContentClass() ) ) {
+                throw new IOException( "Column " + infos[ ik ] +
+                                       " has no defined sort order" );
+            }
+        }
+        Chunking chunking = new Chunking( nrow, chunkShift );
+        SortKey[] keys = new SortKey[ nkey ];
+        for ( int ik = 0; ik < nkey; ik++ ) {
+            keys[ ik ] = createSortKey( infos[ ik ], chunking, up, nullsLast );
         }
-        Comparator<Number> comp =
-            new RowComparator( table, colIndices, up, nullsLast );
+
+        /* Read the key values into arrays. */
+        boolean isParallel;
+        boolean hasRowIndex;
+        try ( RowSplittable rsplit = runner.createRowSplittable( table ) ) {
+            isParallel =
+                runner.getSplitProcessor().willAttemptSplit( rsplit );
+            hasRowIndex = rsplit.rowIndex() != null;
+        }
+        if ( hasRowIndex ) {
+            runner.collect( new KeyCollector( colIndices, keys ), table );
+        }
+        else {
+            try ( RowSequence rseq = table.getRowSequence() ) {
+                for ( long irow = 0; rseq.next(); irow++ ) {
+                    for ( int ik = 0; ik < nkey; ik++ ) {
+                        Object value = rseq.getCell( colIndices[ ik ] );
+                        keys[ ik ].setValue( irow, value );
+                    }
+                }
+            }
+        }
+
+        /* Sort an array of row indices by reference to the key arrays. */
+        RowComparator comp = new RowComparator( keys );
+        IndexArray rowMap = IndexArray.createIdentity( chunking );
+        IndexArray work = rowMap.copy();
         try {
-            Arrays.sort( rowMap, comp );
+            if ( isParallel ) {
+                SplitPolicy policy =
+                    runner.getSplitProcessor().getSplitPolicy();
+                int minTaskSize = Math.max( policy.getMinTaskSize(),
+                                            INSERTION_THRESHOLD );
+                ForkJoinPool pool = policy.getForkJoinPool();
+                pool.invoke( new SortTask( comp, rowMap, work, 0, nrow,
+                                           minTaskSize ) );
+            }
+            else {
+                mergeSort( comp, rowMap, work, 0, nrow );
+            }
+        }
+        catch ( ClassCastException e ) {
+            throw new IOException( "Expression comparison error "
+                                 + "during sorting", e );
+        }
+        return rowMap;
+    }
+
+    /**
+     * Returns a sort key suitable for holding the values of a given column.
+     *
+     * @param  info  metadata for a column with a comparable content class
+     * @param  chunking  storage layout for the row count
+     * @param  up   true for ascending order
+     * @param  nullsLast  true to rank blanks at the end
+     * @return  new key, ready to be populated
+     */
+    private static SortKey createSortKey( ColumnInfo info, Chunking chunking,
+                                          boolean up, boolean nullsLast ) {
+        Class<?> clazz = info.getContentClass();
+        if ( clazz == Double.class || clazz == Float.class ) {
+            return new DoubleKey( chunking, up, nullsLast );
+        }
+        else if ( clazz == Long.class || clazz == Integer.class ||
+                  clazz == Short.class || clazz == Byte.class ) {
+            return new LongKey( chunking, up, nullsLast );
+        }
+        else {
+            return new ObjectKey( chunking, up, nullsLast );
+        }
+    }
+
+    /**
+     * Stable sequential merge sort of a range of an index array.
+     * On entry, the range of <code>work</code> must contain the same
+     * values as that of <code>a</code>; on exit the range of
+     * <code>a</code> is sorted, and that of <code>work</code> is undefined.
+     *
+     * @param  comp  index comparator
+     * @param  a   array to sort
+     * @param  work  workspace array
+     * @param  lo  lower bound of range (inclusive)
+     * @param  hi  upper bound of range (exclusive)
+     */
+    private static void mergeSort( RowComparator comp, IndexArray a,
+                                   IndexArray work, long lo, long hi ) {
+        if ( hi - lo <= INSERTION_THRESHOLD ) {
+            insertionSort( comp, a, lo, hi );
+        }
+        else {
+            long mid = ( lo + hi ) >>> 1;
+            mergeSort( comp, work, a, lo, mid );
+            mergeSort( comp, work, a, mid, hi );
+            merge( comp, work, lo, mid, hi, a );
+        }
+    }
+
+    /**
+     * Stable insertion sort of a range of an index array.
+     *
+     * @param  comp  index comparator
+     * @param  a   array to sort
+     * @param  lo  lower bound of range (inclusive)
+     * @param  hi  upper bound of range (exclusive)
+     */
+    private static void insertionSort( RowComparator comp, IndexArray a,
+                                       long lo, long hi ) {
+        for ( long i = lo + 1; i < hi; i++ ) {
+            long v = a.get( i );
+            long j = i - 1;
+            while ( j >= lo && comp.compare( a.get( j ), v ) > 0 ) {
+                a.set( j + 1, a.get( j ) );
+                j--;
+            }
+            a.set( j + 1, v );
+        }
+    }
+
+    /**
+     * Merges two adjacent sorted ranges of one array into another array.
+     * Where elements compare equal, those from the lower range come first.
+     *
+     * @param  comp  index comparator
+     * @param  src   array containing sorted ranges lo..mid and mid..hi
+     * @param  lo   start of first range
+     * @param  mid  end of first range and start of second range
+     * @param  hi   end of second range
+     * @param  dst  array into whose range lo..hi the merged result is written
+     */
+    private static void merge( RowComparator comp, IndexArray src,
+                               long lo, long mid, long hi, IndexArray dst ) {
+        if ( comp.compare( src.get( mid - 1 ), src.get( mid ) ) <= 0 ) {
+            for ( long k = lo; k < hi; k++ ) {
+                dst.set( k, src.get( k ) );
+            }
+            return;
+        }
+        long i = lo;
+        long j = mid;
+        for ( long k = lo; k < hi; k++ ) {
+            if ( j >= hi ||
+                 ( i < mid &&
+                   comp.compare( src.get( i ), src.get( j ) ) <= 0 ) ) {
+                dst.set( k, src.get( i++ ) );
+            }
+            else {
+                dst.set( k, src.get( j++ ) );
+            }
+        }
+    }
+
+    /**
+     * ForkJoin task that performs a merge sort in parallel.
+     * Its contract is the same as that of the sequential
+     * {@link TableSorter#mergeSort mergeSort} method.
+     */
+    private static class SortTask extends RecursiveAction {
+
+        private final RowComparator comp_;
+        private final IndexArray a_;
+        private final IndexArray work_;
+        private final long lo_;
+        private final long hi_;
+        private final int minTaskSize_;
+
+        /**
+         * Constructor.
+         *
+         * @param  comp  index comparator
+         * @param  a   array to sort
+         * @param  work  workspace array
+         * @param  lo  lower bound of range (inclusive)
+         * @param  hi  upper bound of range (exclusive)
+         * @param  minTaskSize  range size below which sorting is sequential
+         */
+        SortTask( RowComparator comp, IndexArray a, IndexArray work,
+                  long lo, long hi, int minTaskSize ) {
+            comp_ = comp;
+            a_ = a;
+            work_ = work;
+            lo_ = lo;
+            hi_ = hi;
+            minTaskSize_ = minTaskSize;
+        }
+
+        @Override
+        protected void compute() {
+            if ( hi_ - lo_ <= minTaskSize_ ) {
+                mergeSort( comp_, a_, work_, lo_, hi_ );
+            }
+            else {
+                long mid = ( lo_ + hi_ ) >>> 1;
+                invokeAll( new SortTask( comp_, work_, a_, lo_, mid,
+                                         minTaskSize_ ),
+                           new SortTask( comp_, work_, a_, mid, hi_,
+                                         minTaskSize_ ) );
+                merge( comp_, work_, lo_, mid, hi_, a_ );
+            }
+        }
+    }
+
+    /**
+     * Compares row indices by reference to a sequence of sort keys.
+     */
+    private static class RowComparator {
+
+        private final SortKey[] keys_;
+
+        /**
+         * Constructor.
+         *
+         * @param  keys  populated sort keys, primary key first
+         */
+        RowComparator( SortKey[] keys ) {
+            keys_ = keys;
+        }
+
+        /**
+         * Compares two rows.
+         *
+         * @param  irow1  first row index
+         * @param  irow2  second row index
+         * @return  negative, zero or positive according to whether the
+         *          first row should be sorted before, level with or
+         *          after the second row
+         */
+        int compare( long irow1, long irow2 ) {
+            for ( SortKey key : keys_ ) {
+                int c = key.compare( irow1, irow2 );
+                if ( c != 0 ) {
+                    return c;
+                }
+            }
+            return 0;
         }
-        catch ( SortException e ) {
-            throw e.asIOException();
+    }
+
+    /**
+     * Collector that reads cell values from a table into sort keys.
+     * The accumulator is not used; values are written directly into the
+     * key arrays at their row index positions, which are distinct
+     * for each split.
+     */
+    private static class KeyCollector extends RowCollector<Object> {
+
+        private final int[] colIndices_;
+        private final SortKey[] keys_;
+
+        /**
+         * Constructor.
+         *
+         * @param   colIndices  column index for each key
+         * @param   keys   sort keys to populate
+         */
+        KeyCollector( int[] colIndices, SortKey[] keys ) {
+            colIndices_ = colIndices;
+            keys_ = keys;
         }
-        long[] order = new long[ nrow ];
-        for ( int i = 0; i < nrow; i++ ) {
-            order[ i ] = rowMap[ i ].longValue();
+
+        public Object createAccumulator() {
+            return null;
+        }
+
+        public Object combine( Object acc1, Object acc2 ) {
+            return acc1;
+        }
+
+        public void accumulateRows( RowSplittable rseq, Object acc )
+                throws IOException {
+            LongSupplier rowIndex = rseq.rowIndex();
+            int nkey = keys_.length;
+            while ( rseq.next() ) {
+                long irow = rowIndex.getAsLong();
+                for ( int ik = 0; ik < nkey; ik++ ) {
+                    keys_[ ik ].setValue( irow,
+                                          rseq.getCell( colIndices_[ ik ] ) );
+                }
+            }
+        }
+    }
+
+    /**
+     * Describes how a sequence of a given length is divided into
+     * fixed-size chunks, so that it can be stored in arrays
+     * whatever its length.
+     */
+    private static class Chunking {
+
+        final long n_;
+        final int shift_;
+        final int mask_;
+        final int nchunk_;
+
+        /**
+         * Constructor.
+         *
+         * @param  n  number of elements
+         * @param  shift  log2 of chunk size
+         */
+        Chunking( long n, int shift ) {
+            n_ = n;
+            shift_ = shift;
+            mask_ = ( 1 << shift ) - 1;
+            long nchunk = ( n + mask_ ) >>> shift;
+            if ( nchunk > Integer.MAX_VALUE ) {
+                throw new IllegalArgumentException( "Too many elements: "
+                                                  + n );
+            }
+            nchunk_ = (int) nchunk;
+        }
+
+        /**
+         * Returns the number of elements in a given chunk.
+         *
+         * @param  ic  chunk index
+         * @return  chunk length
+         */
+        int chunkLength( int ic ) {
+            return (int) Math.min( 1L << shift_, n_ - ( (long) ic << shift_ ) );
         }
-        return order;
     }
 
     /**
-     * Helper class which can compare objects representing the rows of
-     * a table.  The objects compared using this comparator must be
-     * <tt>Number</tt>s containing the row index of a table.
+     * Chunked array of row indices.
      */
-    private static class RowComparator implements Comparator<Number> {
+    private static abstract class IndexArray {
+
+        final Chunking chunking_;
+        final int shift_;
+        final int mask_;
+
+        /**
+         * Constructor.
+         *
+         * @param  chunking  storage layout
+         */
+        IndexArray( Chunking chunking ) {
+            chunking_ = chunking;
+            shift_ = chunking.shift_;
+            mask_ = chunking.mask_;
+        }
+
+        /**
+         * Returns an element.
+         *
+         * @param  i  element index
+         * @return  row index stored at <code>i</code>
+         */
+        abstract long get( long i );
+
+        /**
+         * Sets an element.
+         *
+         * @param  i  element index
+         * @param  irow  row index to store at <code>i</code>
+         */
+        abstract void set( long i, long irow );
+
+        /**
+         * Returns a copy of this array.
+         *
+         * @return  copy
+         */
+        abstract IndexArray copy();
+
+        /**
+         * Returns the contents of this array as a single long array.
+         * The element count must not exceed the maximum array length.
+         *
+         * @return  long array copy of contents
+         */
+        long[] toArray() {
+            int n = (int) chunking_.n_;
+            long[] array = new long[ n ];
+            for ( int i = 0; i < n; i++ ) {
+                array[ i ] = get( i );
+            }
+            return array;
+        }
+
+        /**
+         * Returns an index array in which each element is equal to its
+         * index.  Element storage is as compact as the length permits.
+         *
+         * @param  chunking  storage layout
+         * @return  new identity array
+         */
+        static IndexArray createIdentity( Chunking chunking ) {
+            long n = chunking.n_;
+            IndexArray array = n <= Integer.MAX_VALUE
+                             ? new IntIndexArray( chunking )
+                             : new LongIndexArray( chunking );
+            for ( long i = 0; i < n; i++ ) {
+                array.set( i, i );
+            }
+            return array;
+        }
+    }
+
+    /**
+     * IndexArray implementation for row indices that fit in an int.
+     */
+    private static class IntIndexArray extends IndexArray {
+
+        private final int[][] chunks_;
+
+        /**
+         * Constructor.
+         *
+         * @param  chunking  storage layout
+         */
+        IntIndexArray( Chunking chunking ) {
+            super( chunking );
+            chunks_ = new int[ chunking.nchunk_ ][];
+            for ( int ic = 0; ic < chunks_.length; ic++ ) {
+                chunks_[ ic ] = new int[ chunking.chunkLength( ic ) ];
+            }
+        }
+
+        long get( long i ) {
+            return chunks_[ (int) ( i >>> shift_ ) ][ (int) i & mask_ ];
+        }
+
+        void set( long i, long irow ) {
+            chunks_[ (int) ( i >>> shift_ ) ][ (int) i & mask_ ] = (int) irow;
+        }
+
+        IndexArray copy() {
+            IntIndexArray copy = new IntIndexArray( chunking_ );
+            for ( int ic = 0; ic < chunks_.length; ic++ ) {
+                System.arraycopy( chunks_[ ic ], 0, copy.chunks_[ ic ], 0,
+                                  chunks_[ ic ].length );
+            }
+            return copy;
+        }
+    }
+
+    /**
+     * IndexArray implementation for arbitrary row indices.
+     */
+    private static class LongIndexArray extends IndexArray {
+
+        private final long[][] chunks_;
+
+        /**
+         * Constructor.
+         *
+         * @param  chunking  storage layout
+         */
+        LongIndexArray( Chunking chunking ) {
+            super( chunking );
+            chunks_ = new long[ chunking.nchunk_ ][];
+            for ( int ic = 0; ic < chunks_.length; ic++ ) {
+                chunks_[ ic ] = new long[ chunking.chunkLength( ic ) ];
+            }
+        }
+
+        long get( long i ) {
+            return chunks_[ (int) ( i >>> shift_ ) ][ (int) i & mask_ ];
+        }
+
+        void set( long i, long irow ) {
+            chunks_[ (int) ( i >>> shift_ ) ][ (int) i & mask_ ] = irow;
+        }
+
+        IndexArray copy() {
+            LongIndexArray copy = new LongIndexArray( chunking_ );
+            for ( int ic = 0; ic < chunks_.length; ic++ ) {
+                System.arraycopy( chunks_[ ic ], 0, copy.chunks_[ ic ], 0,
+                                  chunks_[ ic ].length );
+            }
+            return copy;
+        }
+    }
+
+    /**
+     * Holds the values of a single column in a form suitable for
+     * comparison by row index.
+     * Values are stored in chunks as described by a {@link Chunking}.
+     */
+    private static abstract class SortKey {
 
-        final StarTable table_;
-        final int[] colIndices_;
         final boolean up_;
-        final boolean nullsLast_;
-        final int ncol_;
+        final int nullCmp_;
+        final int shift_;
+        final int mask_;
 
         /**
          * Constructor.
          *
-         * @param   table  table whose rows will be compared
-         * @param   colIndices  indices of the columns which are to act as sort
-         *          keys; first element is primary key etc
+         * @param   chunking  storage layout
          * @param   up  true for sorting into ascending order, false for
          *          descending order
          * @param   nullsLast  true if blank values should be considered
          *          last in the collation order, false if they should
          *          be considered first
          */
-        RowComparator( StarTable table, int[] colIndices, boolean up,
-                       boolean nullsLast ) throws IOException {
-            table_ = table;
-            colIndices_ = colIndices;
+        SortKey( Chunking chunking, boolean up, boolean nullsLast ) {
             up_ = up;
-            nullsLast_ = nullsLast;
-            ncol_ = colIndices_.length;
-
-            for ( int icol = 0; icol < ncol_; icol++ ) {
-                ColumnInfo info = table.getColumnInfo( icol );
-                if ( ! Comparable.class
-                      .isAssignableFrom( info.getContentClass() ) ) {
-                    throw new IOException( "Column " + info + 
-                                           " has no defined sort order" );
-                }
-            }
+            nullCmp_ = ( up ^ nullsLast ) ? -1 : +1;
+            shift_ = chunking.shift_;
+            mask_ = chunking.mask_;
         }
 
         /**
-         * Compares two Numbers.
+         * Stores the value for a given row.
+         * May be called concurrently for different rows.
+         *
+         * @param  irow  row index
+         * @param  value  cell value
+         * @throws  IOException  if the value is of an unsuitable type
          */
-        public int compare( Number num1, Number num2 ) {
-            long irow1 = num1.longValue();
-            long irow2 = num2.longValue();
-            int c = 0;
-            for ( int i = 0; i < ncol_ && c == 0; i++ ) {
-                int icol = colIndices_[ i ];
-                Object val1;
-                Object val2;
-                try {
-                    val1 = table_.getCell( irow1, icol );
-                    val2 = table_.getCell( irow2, icol );
-                }
-                catch ( IOException e ) {
-                    throw new SortException( "Sort Error", e );
-                }
-                try {
-                    c = compareValues( (Comparable<?>) val1,
-                                       (Comparable<?>) val2 );
-                }
-                catch ( ClassCastException e ) {
-                    throw new SortException(
-                        "Expression comparison error during sorting", e );
-                }
-            }
-            return c;
-        }
+        abstract void setValue( long irow, Object value ) throws IOException;
 
         /**
-         * Compares two values.  Each value is the content of a cell in 
-         * a table - <tt>o1</tt> and <tt>o2</tt> should be from the same
-         * column.  Either or both may be null.
+         * Indicates whether the value stored for a given row is blank.
          *
-         * @param  o1  first value
-         * @param  o2  second value
-         * @return  +1, 0, or -1 according to o1 greater than, equal to, or
-         *          less than o2
+         * @param  irow  row index
+         * @return  true iff blank
          */
-        @SuppressWarnings({"rawtypes","unchecked"})
-        private int compareValues( Comparable o1, Comparable o2 ) {
-            boolean null1 = Tables.isBlank( o1 );
-            boolean null2 = Tables.isBlank( o2 );
+        abstract boolean isBlank( long irow );
+
+        /**
+         * Compares the non-blank values stored for two rows in their
+         * natural order.
+         *
+         * @param  irow1  first row index
+         * @param  irow2  second row index
+         * @return  natural comparison result
+         */
+        abstract int compareValues( long irow1, long irow2 );
+
+        /**
+         * Compares the values of two rows, taking account of blank values
+         * and sense of the sort.
+         *
+         * @param  irow1  first row index
+         * @param  irow2  second row index
+         * @return  comparison result for sorting
+         */
+        int compare( long irow1, long irow2 ) {
+            boolean null1 = isBlank( irow1 );
+            boolean null2 = isBlank( irow2 );
             if ( null1 && null2 ) {
                 return 0;
             }
             else if ( null1 ) {
-                return ( up_ ^ nullsLast_ ) ? -1 : +1;
+                return nullCmp_;
             }
             else if ( null2 ) {
-                return ( up_ ^ nullsLast_ ) ? +1 : -1;
+                return -nullCmp_;
             }
             else {
-                return up_ ? o1.compareTo( o2 )
-                           : o2.compareTo( o1 );
+                int c = compareValues( irow1, irow2 );
+                return up_ ? c : -c;
             }
         }
+
+        /**
+         * Returns the chunk index for a row.
+         *
+         * @param  irow  row index
+         * @return  chunk index
+         */
+        int chunk( long irow ) {
+            return (int) ( irow >>> shift_ );
+        }
+
+        /**
+         * Returns the offset within its chunk for a row.
+         *
+         * @param  irow  row index
+         * @return  offset into chunk
+         */
+        int offset( long irow ) {
+            return (int) irow & mask_;
+        }
     }
 
     /**
-     * Runtime exception which can be thrown from methods invoked by 
-     * Arrays.sort.
+     * SortKey for floating point values, stored in double arrays.
+     * Blank values are represented as NaN.
      */
-    private static class SortException extends RuntimeException {
+    private static class DoubleKey extends SortKey {
+
+        private final double[][] values_;
 
         /**
          * Constructor.
          *
-         * @param  msg  message
-         * @param  e    cause
+         * @param  chunking  storage layout
+         * @param  up   true for ascending sort
+         * @param  nullsLast  true to rank blanks at the end
          */
-        SortException( String msg, Throwable e ) {
-            super( msg, e );
+        DoubleKey( Chunking chunking, boolean up, boolean nullsLast ) {
+            super( chunking, up, nullsLast );
+            values_ = new double[ chunking.nchunk_ ][];
+            for ( int ic = 0; ic < values_.length; ic++ ) {
+                values_[ ic ] = new double[ chunking.chunkLength( ic ) ];
+            }
+        }
+
+        void setValue( long irow, Object value ) throws IOException {
+            values_[ chunk( irow ) ][ offset( irow ) ] =
+                value == null ? Double.NaN
+                              : toNumber( value ).doubleValue();
         }
 
+        boolean isBlank( long irow ) {
+            return Double.isNaN( values_[ chunk( irow ) ][ offset( irow ) ] );
+        }
+
+        int compareValues( long irow1, long irow2 ) {
+            return Double.compare( values_[ chunk( irow1 ) ]
+                                          [ offset( irow1 ) ],
+                                   values_[ chunk( irow2 ) ]
+                                          [ offset( irow2 ) ] );
+        }
+    }
+
+    /**
+     * SortKey for integer values, stored in long arrays with
+     * separate arrays of blank flags.
+     */
+    private static class LongKey extends SortKey {
+
+        private final long[][] values_;
+        private final boolean[][] blanks_;
+
         /**
-         * Returns an IOException corresponding to this exception.
+         * Constructor.
          *
-         * @return  IOException
+         * @param  chunking  storage layout
+         * @param  up   true for ascending sort
+         * @param  nullsLast  true to rank blanks at the end
          */
-        IOException asIOException() {
-            Throwable error = getCause();
-            return error instanceof IOException
-                 ? (IOException) error
-                 : (IOException) new IOException( getMessage() )
-                                .initCause( error );
+        LongKey( Chunking chunking, boolean up, boolean nullsLast ) {
+            super( chunking, up, nullsLast );
+            values_ = new long[ chunking.nchunk_ ][];
+            blanks_ = new boolean[ chunking.nchunk_ ][];
+            for ( int ic = 0; ic < values_.length; ic++ ) {
+                int leng = chunking.chunkLength( ic );
+                values_[ ic ] = new long[ leng ];
+                blanks_[ ic ] = new boolean[ leng ];
+            }
+        }
+
+        void setValue( long irow, Object value ) throws IOException {
+            if ( value == null ) {
+                blanks_[ chunk( irow ) ][ offset( irow ) ] = true;
+            }
+            else {
+                values_[ chunk( irow ) ][ offset( irow ) ] =
+                    toNumber( value ).longValue();
+            }
+        }
+
+        boolean isBlank( long irow ) {
+            return blanks_[ chunk( irow ) ][ offset( irow ) ];
+        }
+
+        int compareValues( long irow1, long irow2 ) {
+            return Long.compare( values_[ chunk( irow1 ) ][ offset( irow1 ) ],
+                                 values_[ chunk( irow2 ) ]
+                                        [ offset( irow2 ) ] );
         }
     }
 
+    /**
+     * SortKey for general Comparable values, stored in object arrays.
+     * Blank values are represented as nulls.
+     */
+    private static class ObjectKey extends SortKey {
+
+        private final Comparable<?>[][] values_;
+
+        /**
+         * Constructor.
+         *
+         * @param  chunking  storage layout
+         * @param  up   true for ascending sort
+         * @param  nullsLast  true to rank blanks at the end
+         */
+        ObjectKey( Chunking chunking, boolean up, boolean nullsLast ) {
+            super( chunking, up, nullsLast );
+            values_ = new Comparable<?>[ chunking.nchunk_ ][];
+            for ( int ic = 0; ic < values_.length; ic++ ) {
+                values_[ ic ] = new Comparable<?>[ chunking.chunkLength( ic ) ];
+            }
+        }
+
+        void setValue( long irow, Object value ) throws IOException {
+            if ( ! Tables.isBlank( value ) ) {
+                if ( value instanceof Comparable ) {
+                    values_[ chunk( irow ) ][ offset( irow ) ] =
+                        (Comparable<?>) value;
+                }
+                else {
+                    throw new IOException( "Value " + value + " of "
+                                         + value.getClass().getName()
+                                         + " has no defined sort order" );
+                }
+            }
+        }
+
+        boolean isBlank( long irow ) {
+            return values_[ chunk( irow ) ][ offset( irow ) ] == null;
+        }
+
+        @SuppressWarnings({"rawtypes","unchecked"})
+        int compareValues( long irow1, long irow2 ) {
+            return ((Comparable) values_[ chunk( irow1 ) ][ offset( irow1 ) ])
+                  .compareTo( (Comparable)
+                              values_[ chunk( irow2 ) ][ offset( irow2 ) ] );
+        }
+    }
+
+    /**
+     * Wrapper table presenting the rows of a base table in the order
+     * given by a chunked index array.
+     * This is used in place of {@link RowPermutedStarTable}, which requires
+     * a single array, for large sorted tables.
+     */
+    private static class ChunkedPermutedStarTable extends WrapperStarTable {
+
+        private final IndexArray rowMap_;
+
+        /**
+         * Constructor.
+         *
+         * @param  baseTable  random-access base table
+         * @param  rowMap   maps rows in this table to rows in the base table
+         */
+        ChunkedPermutedStarTable( StarTable baseTable, IndexArray rowMap ) {
+            super( baseTable );
+            rowMap_ = rowMap;
+        }
+
+        @Override
+        public long getRowCount() {
+            return rowMap_.chunking_.n_;
+        }
+
+        @Override
+        public boolean isRandom() {
+            return true;
+        }
+
+        @Override
+        public Object getCell( long irow, int icol ) throws IOException {
+            return baseTable.getCell( rowMap_.get( irow ), icol );
+        }
+
+        @Override
+        public Object[] getRow( long irow ) throws IOException {
+            return baseTable.getRow( rowMap_.get( irow ) );
+        }
+
+        @Override
+        public RowAccess getRowAccess() throws IOException {
+            final RowAccess baseAcc = baseTable.getRowAccess();
+            return new RowAccess() {
+                public void setRowIndex( long irow ) throws IOException {
+                    baseAcc.setRowIndex( rowMap_.get( irow ) );
+                }
+                public Object getCell( int icol ) throws IOException {
+                    return baseAcc.getCell( icol );
+                }
+                public Object[] getRow() throws IOException {
+                    return baseAcc.getRow();
+                }
+                public void close() throws IOException {
+                    baseAcc.close();
+                }
+            };
+        }
+
+        @Override
+        public RowSequence getRowSequence() throws IOException {
+            return AccessRowSequence.createInstance( this );
+        }
+
+        @Override
+        public RowSplittable getRowSplittable() throws IOException {
+            return Tables.getDefaultRowSplittable( this );
+        }
+    }
+
+    /**
+     * Casts a cell value to a Number, with a checked exception on failure.
+     *
+     * @param  value  non-null cell value
+     * @return  value as a Number
+     * @throws  IOException  if value is not numeric
+     */
+    private static Number toNumber( Object value ) throws IOException {
+        if ( value instanceof Number ) {
+            return (Number) value;
+        }
+        else {
+            throw new IOException( "Non-numeric value " + value
+                                 + " in numeric sort column" );
+        }
+    }
 }
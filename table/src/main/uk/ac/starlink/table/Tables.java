@@ -437,6 +437,64 @@ public class Tables {
             || false;
     }
 
+    /**
+     * Converts a primitive numeric array to an array of doubles.
+     * If the supplied buffer has exactly the right number of elements
+     * it is filled and returned, otherwise a new array is returned.
+     * If the supplied value is not a numeric primitive array
+     * (including if it is null), null is returned.
+     *
+     * @param  array  array value
+     * @param  buf   buffer for result, or null
+     * @return   array of double values with the same length as
+     *           <code>array</code>, or null
+     */
+    public static double[] toDoubleArray( Object array, double[] buf ) {
+        if ( array == null ) {
+            return null;
+        }
+        Class<?> elClazz = array.getClass().getComponentType();
+        if ( elClazz == null || ! elClazz.isPrimitive() ||
+             elClazz == boolean.class || elClazz == char.class ) {
+            return null;
+        }
+        int n = Array.getLength( array );
+        double[] out = buf != null && buf.length == n ? buf : new double[ n ];
+        if ( array instanceof double[] ) {
+            System.arraycopy( array, 0, out, 0, n );
+        }
+        else if ( array instanceof float[] ) {
+            float[] fa = (float[]) array;
+            for ( int i = 0; i < n; i++ ) {
+                out[ i ] = fa[ i ];
+            }
+        }
+        else if ( array instanceof int[] ) {
+            int[] ia = (int[]) array;
+            for ( int i = 0; i < n; i++ ) {
+                out[ i ] = ia[ i ];
+            }
+        }
+        else if ( array instanceof long[] ) {
+            long[] la = (long[]) array;
+            for ( int i = 0; i < n; i++ ) {
+                out[ i ] = la[ i ];
+            }
+        }
+        else if ( array instanceof short[] ) {
+            short[] sa = (short[]) array;
+            for ( int i = 0; i < n; i++ ) {
+                out[ i ] = sa[ i ];
+            }
+        }
+        else {
+            for ( int i = 0; i < n; i++ ) {
+                out[ i ] = Array.getDouble( array, i );
+            }
+        }
+        return out;
+    }
+
     /**
      * Collapses whitespace in a string.
      * This normalises the text in the sense of the XML Schema facet
@@ -520,9 +578,7 @@ public class Tables {
     public static StarTable sortTable( StarTable table, int[] colIndices,
                                        boolean up, boolean nullsLast )
             throws IOException {
-        long[] rowMap =
-            TableSorter.getSortedOrder( table, colIndices, up, nullsLast );
-        return new RowPermutedStarTable( table, rowMap );
+        return TableSorter.getSortedTable( table, colIndices, up, nullsLast );
     }
 
     /**
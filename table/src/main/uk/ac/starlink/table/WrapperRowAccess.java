@@ -54,6 +54,23 @@ public class WrapperRowAccess implements RowAccess {
         return data_.getRow();
     }
 
+    public double getDouble( int icol ) throws IOException {
+        return data_.getDouble( icol );
+    }
+
+    public long getLong( int icol ) throws IOException {
+        return data_.getLong( icol );
+    }
+
+    public boolean isNull( int icol ) throws IOException {
+        return data_.isNull( icol );
+    }
+
+    public double[] getDoubleArray( int icol, double[] buf )
+            throws IOException {
+        return data_.getDoubleArray( icol, buf );
+    }
+
     public void close() throws IOException {
         baseAcc_.close();
     }
@@ -11,6 +11,7 @@ import java.util.ListIterator;
 import uk.ac.starlink.table.ColumnInfo;
 import uk.ac.starlink.table.DefaultValueInfo;
 import uk.ac.starlink.table.DescribedValue;
+import uk.ac.starlink.table.RowRunner;
 import uk.ac.starlink.table.TableFormatException;
 import uk.ac.starlink.table.ValueInfo;
 import uk.ac.starlink.util.DataSource;
@@ -107,9 +108,35 @@ public class AsciiStarTable extends StreamStarTable {
      */
     public AsciiStarTable( DataSource datsrc, int maxSample )
             throws TableFormatException, IOException {
+        this( datsrc, maxSample, null );
+    }
+
+    /**
+     * Constructor with configuration options and index cache.
+     *
+     * @param  datsrc  the data source containing the table text
+     * @param  maxSample  maximum number of rows sampled to determine
+     *                    column data types; if &lt;=0, all rows are sampled
+     * @param  indexCache  cache for saving and restoring the results
+     *                     of the metadata pass, or null
+     * @throws TableFormatException  if the input stream doesn't appear to
+     *         form a ASCII-format table
+     * @throws IOException if some I/O error occurs
+     */
+    public AsciiStarTable( DataSource datsrc, int maxSample,
+                           TextIndexCache indexCache )
+            throws TableFormatException, IOException {
         super();
         maxSample_ = maxSample;
-        init( datsrc );
+        init( datsrc, indexCache );
+    }
+
+    /**
+     * Returns true; each row occupies a single line.
+     */
+    @Override
+    protected boolean isLineSplittable() {
+        return true;
     }
 
     protected RowEvaluator.Metadata obtainMetadata()
@@ -124,11 +151,28 @@ public class AsciiStarTable extends StreamStarTable {
         comments_ = new ArrayList<String>();
         long lrow = 0;
         try {
-            for ( List<String> row;
-                  ( ( row = readRow( in ) ) != null &&
-                    ( maxSample_ <= 0 || lrow < maxSample_ ) ); ) {
+
+            /* The first row is read here so that any preceding comments
+             * are collected.  If all the rest are to be examined,
+             * do it in parallel if the input allows. */
+            List<String> row0 = readRow( in );
+            if ( row0 != null ) {
                 lrow++;
-                evaluator.submitRow( row );
+                evaluator.submitRow( row0 );
+                RowEvaluator restEvaluator =
+                    maxSample_ <= 0 ? evaluateRows( in, RowRunner.DEFAULT )
+                                    : null;
+                if ( restEvaluator != null ) {
+                    evaluator.combine( restEvaluator );
+                }
+                else {
+                    for ( List<String> row;
+                          ( ( row = readRow( in ) ) != null &&
+                            ( maxSample_ <= 0 || lrow < maxSample_ ) ); ) {
+                        lrow++;
+                        evaluator.submitRow( row );
+                    }
+                }
             }
         }
         catch ( TableFormatException e ) {
@@ -1,6 +1,7 @@
 package uk.ac.starlink.table.formats;
 
 import java.awt.datatransfer.DataFlavor;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import uk.ac.starlink.table.StarTable;
@@ -20,6 +21,7 @@ import uk.ac.starlink.util.DataSource;
 public class AsciiTableBuilder extends DocumentedTableBuilder {
 
     private int maxSample_;
+    private TextIndexCache indexCache_;
 
     public AsciiTableBuilder() {
         super( new String[] { "txt" } );
@@ -36,7 +38,7 @@ public class AsciiTableBuilder extends DocumentedTableBuilder {
     public StarTable makeStarTable( DataSource datsrc, boolean wantRandom,
                                     StoragePolicy policy )
             throws TableFormatException, IOException {
-        return new AsciiStarTable( datsrc, maxSample_ );
+        return new AsciiStarTable( datsrc, maxSample_, indexCache_ );
     }
 
     public void streamStarTable( InputStream in, TableSink sink, String pos )
@@ -86,4 +88,34 @@ public class AsciiTableBuilder extends DocumentedTableBuilder {
     public void setMaxSample( int maxSample ) {
         maxSample_ = maxSample;
     }
+
+    /**
+     * Sets a directory in which to save the results of the metadata pass
+     * through input files, so that they do not need to be re-read
+     * when the same file is opened again.
+     *
+     * @param   indexDir  index directory, or null for no index
+     */
+    @ConfigMethod(
+        property = "indexDir",
+        doc = "<p>Names a directory in which index files can be stored.\n"
+            + "If this is set, the results of the initial pass through\n"
+            + "the data that is made to determine column datatypes and\n"
+            + "the number of rows are saved to a small file in the given\n"
+            + "directory, along with a sparse index of row positions.\n"
+            + "When the same file is read again, and has not been modified\n"
+            + "in the meantime, the saved information is used instead\n"
+            + "of reading through the data again,\n"
+            + "and the table can also provide random access.\n"
+            + "This only applies to uncompressed files\n"
+            + "for which all rows are sampled.\n"
+            + "</p>",
+        usage = "<dir>",
+        example = "/tmp/stil-index"
+    )
+    public void setIndexDir( String indexDir ) {
+        indexCache_ = indexDir == null || indexDir.trim().length() == 0
+                    ? null
+                    : new TextIndexCache( new File( indexDir ) );
+    }
 }
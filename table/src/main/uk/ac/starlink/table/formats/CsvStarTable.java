@@ -7,6 +7,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import uk.ac.starlink.table.ColumnInfo;
+import uk.ac.starlink.table.RowRunner;
 import uk.ac.starlink.table.TableFormatException;
 import uk.ac.starlink.util.DataSource;
 
@@ -41,6 +42,7 @@ public class CsvStarTable extends StreamStarTable {
 
     private final Boolean fixHasHeaderLine_;
     private final int maxSample_;
+    private final RowRunner runner_;
     private boolean hasHeading_;
 
     /**
@@ -65,10 +67,67 @@ public class CsvStarTable extends StreamStarTable {
     public CsvStarTable( DataSource datsrc, Boolean fixHasHeaderLine,
                          int maxSample )
             throws TableFormatException, IOException {
+        this( datsrc, fixHasHeaderLine, maxSample, RowRunner.DEFAULT );
+    }
+
+    /**
+     * Constructor with configuration options and parallel processing
+     * control.
+     *
+     * @param  datsrc   data source
+     * @param  fixHasHeaderLine  indicates whether initial line is known
+     *                           to be column names: yes, no or auto-determine
+     * @param  maxSample  maximum number of rows sampled to determine
+     *                    column data types; if &lt;=0, all rows are sampled
+     * @param  runner  controls parallel processing of rows when
+     *                 determining column data types
+     */
+    public CsvStarTable( DataSource datsrc, Boolean fixHasHeaderLine,
+                         int maxSample, RowRunner runner )
+            throws TableFormatException, IOException {
+        this( datsrc, fixHasHeaderLine, maxSample, runner, null );
+    }
+
+    /**
+     * Constructor with configuration options, parallel processing control
+     * and index cache.
+     *
+     * @param  datsrc   data source
+     * @param  fixHasHeaderLine  indicates whether initial line is known
+     *                           to be column names: yes, no or auto-determine
+     * @param  maxSample  maximum number of rows sampled to determine
+     *                    column data types; if &lt;=0, all rows are sampled
+     * @param  runner  controls parallel processing of rows when
+     *                 determining column data types
+     * @param  indexCache  cache for saving and restoring the results
+     *                     of the metadata pass, or null
+     */
+    public CsvStarTable( DataSource datsrc, Boolean fixHasHeaderLine,
+                         int maxSample, RowRunner runner,
+                         TextIndexCache indexCache )
+            throws TableFormatException, IOException {
         super();
         fixHasHeaderLine_ = fixHasHeaderLine;
         maxSample_ = maxSample;
-        init( datsrc );
+        runner_ = runner;
+        init( datsrc, indexCache );
+    }
+
+    /**
+     * Returns true; rows may be read starting at any line end
+     * outside a quoted string.
+     */
+    @Override
+    protected boolean isLineSplittable() {
+        return true;
+    }
+
+    /**
+     * Returns the double quote character.
+     */
+    @Override
+    protected int getLineQuoteChar() {
+        return '"';
     }
 
     protected PushbackInputStream getInputStream() throws IOException {
@@ -94,14 +153,19 @@ public class CsvStarTable extends StreamStarTable {
         lrow++;
 
         /* Look at each subsequent row assessing what sort of data they
-         * look like. */
-        RowEvaluator evaluator = new RowEvaluator();
+         * look like.  If all rows are to be examined, do it in parallel
+         * if the input allows. */
+        RowEvaluator evaluator;
         try {
-            for ( List<String> row;
-                  ( ( row = readRow( in ) ) != null &&
-                    ( maxSample_ <= 0 || lrow < maxSample_ ) ); )  {
-                evaluator.submitRow( row );
-                lrow++;
+            evaluator = maxSample_ <= 0 ? evaluateRows( in, runner_ ) : null;
+            if ( evaluator == null ) {
+                evaluator = new RowEvaluator();
+                for ( List<String> row;
+                      ( ( row = readRow( in ) ) != null &&
+                        ( maxSample_ <= 0 || lrow < maxSample_ ) ); )  {
+                    evaluator.submitRow( row );
+                    lrow++;
+                }
             }
         }
         catch ( TableFormatException e ) {
@@ -0,0 +1,268 @@
+package uk.ac.starlink.table.formats;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import uk.ac.starlink.table.RowRunner;
+import uk.ac.starlink.util.SplitCollector;
+import uk.ac.starlink.util.SplitProcessor;
+import uk.ac.starlink.util.Splittable;
+
+/**
+ * Locates row boundaries in a line-based text file, so that the file
+ * can be divided into byte ranges which can be parsed independently.
+ *
+ * <p>A row boundary is taken to be the position following a run of
+ * line end characters ('\r' or '\n').
+ * If a quote character is in use, line ends which appear between
+ * matched pairs of quote characters do not count.
+ * Since the quoting state at an arbitrary position depends on
+ * everything that precedes it, in that case the file is scanned once
+ * (in parallel) when a boundary is first requested, to record the
+ * quote parity at the start of each fixed-size block.
+ *
+ * @author   Mark Taylor
+ * @since    17 Oct 2026
+ */
+class LineSplitter {
+
+    private final File file_;
+    private final long length_;
+    private final int quoteChar_;
+    private boolean[] blockInQuote_;
+
+    /** Size in bytes of blocks for which quote parity is recorded. */
+    static final int BLOCK_SIZE = 1024 * 1024;
+
+    /**
+     * Constructor.
+     *
+     * @param  file   uncompressed text file
+     * @param  quoteChar  character whose matched pairs protect line ends,
+     *                    or -1 if line ends always terminate rows
+     */
+    public LineSplitter( File file, int quoteChar ) {
+        file_ = file;
+        length_ = file.length();
+        quoteChar_ = quoteChar;
+    }
+
+    /**
+     * Returns the file on which this splitter operates.
+     *
+     * @return  file
+     */
+    public File getFile() {
+        return file_;
+    }
+
+    /**
+     * Returns the length of the file at construction time.
+     *
+     * @return  file length in bytes
+     */
+    public long getLength() {
+        return length_;
+    }
+
+    /**
+     * Returns an unbuffered input stream positioned at a given offset
+     * into the file.
+     *
+     * @param  pos  byte offset
+     * @return  new input stream
+     */
+    public InputStream openStream( long pos ) throws IOException {
+        FileInputStream in = new FileInputStream( file_ );
+        in.getChannel().position( pos );
+        return in;
+    }
+
+    /**
+     * Returns the first row boundary at or after a given position.
+     *
+     * @param  pos  byte offset at which to start looking
+     * @param  limit   byte offset beyond which boundaries are not of interest
+     * @return  offset of the first row boundary in the range
+     *          [<code>pos</code>, <code>limit</code>),
+     *          or -1 if there is none
+     */
+    public long findRowStart( long pos, long limit ) throws IOException {
+        if ( pos >= limit ) {
+            return -1;
+        }
+
+        /* If quotes are significant, work out the quoting state at the
+         * requested position by starting from the last recorded parity. */
+        long ipos = pos;
+        boolean inQuote = false;
+        if ( quoteChar_ >= 0 ) {
+            int iblock = (int) ( pos / BLOCK_SIZE );
+            inQuote = getBlockInQuote()[ iblock ];
+            ipos = iblock * (long) BLOCK_SIZE;
+        }
+        try ( InputStream in =
+                  new BufferedInputStream( openStream( ipos ), 64 * 1024 ) ) {
+            boolean inEol = false;
+            for ( int b; ( b = in.read() ) >= 0; ipos++ ) {
+                if ( inEol ) {
+                    if ( b != '\r' && b != '\n' ) {
+                        return ipos < limit ? ipos : -1;
+                    }
+                }
+                else if ( b == quoteChar_ ) {
+                    inQuote = ! inQuote;
+                }
+                else if ( ( b == '\r' || b == '\n' ) && ! inQuote &&
+                          ipos >= pos ) {
+                    inEol = true;
+                }
+                if ( ipos >= limit && ! inEol ) {
+                    return -1;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns flags indicating whether the start of each block of the
+     * file is within a quoted string, calculating them if required.
+     *
+     * @return  per-block quote flags
+     */
+    private synchronized boolean[] getBlockInQuote() throws IOException {
+        if ( blockInQuote_ == null ) {
+            blockInQuote_ = scanQuotes();
+        }
+        return blockInQuote_;
+    }
+
+    /**
+     * Works out whether the start of each block of the file is
+     * within a quoted string.
+     *
+     * @return  per-block flags indicating whether the first byte of
+     *          the block is quoted
+     */
+    private boolean[] scanQuotes() throws IOException {
+        int nblock = (int) ( ( length_ + BLOCK_SIZE - 1 ) / BLOCK_SIZE );
+        boolean[] oddCounts = new boolean[ nblock ];
+        try ( FileChannel chan =
+                  FileChannel.open( file_.toPath(), StandardOpenOption.READ ) ) {
+            SplitCollector<BlockRange,ByteBuffer> collector =
+                    new SplitCollector<BlockRange,ByteBuffer>() {
+                public ByteBuffer createAccumulator() {
+                    return ByteBuffer.allocate( BLOCK_SIZE );
+                }
+                public void accumulate( BlockRange range, ByteBuffer buf ) {
+                    try {
+                        for ( int ib = range.ib0_; ib < range.ib1_; ib++ ) {
+                            oddCounts[ ib ] = hasOddQuotes( chan, ib, buf );
+                        }
+                    }
+                    catch ( IOException e ) {
+                        throw new RuntimeException( "Quote scan failed", e );
+                    }
+                }
+                public ByteBuffer combine( ByteBuffer buf1, ByteBuffer buf2 ) {
+                    return buf1;
+                }
+            };
+            SplitProcessor<BlockRange> processor =
+                SplitProcessor
+               .createStandardProcessor( RowRunner.DFLT_POLICY, true );
+            try {
+                processor.collect( collector, new BlockRange( 0, nblock ) );
+            }
+            catch ( RuntimeException e ) {
+                for ( Throwable t = e; t != null; t = t.getCause() ) {
+                    if ( t instanceof IOException ) {
+                        throw (IOException) t;
+                    }
+                }
+                throw e;
+            }
+        }
+
+        /* Accumulate the per-block parities to give the quoting state
+         * at each block start. */
+        boolean[] inQuote = new boolean[ Math.max( nblock, 1 ) ];
+        for ( int ib = 1; ib < nblock; ib++ ) {
+            inQuote[ ib ] = inQuote[ ib - 1 ] ^ oddCounts[ ib - 1 ];
+        }
+        return inQuote;
+    }
+
+    /**
+     * Determines whether a given block of the file contains an odd
+     * number of quote characters.
+     *
+     * @param  chan  file channel
+     * @param  iblock  block index
+     * @param  buf   workspace buffer of size BLOCK_SIZE
+     * @return  true iff the quote count in the block is odd
+     */
+    private boolean hasOddQuotes( FileChannel chan, int iblock,
+                                  ByteBuffer buf )
+            throws IOException {
+        long pos0 = iblock * (long) BLOCK_SIZE;
+        int nb = (int) Math.min( BLOCK_SIZE, length_ - pos0 );
+        buf.clear();
+        buf.limit( nb );
+        while ( buf.hasRemaining() ) {
+            if ( chan.read( buf, pos0 + buf.position() ) < 0 ) {
+                throw new IOException( "File truncated during read" );
+            }
+        }
+        byte[] bytes = buf.array();
+        byte quote = (byte) quoteChar_;
+        boolean odd = false;
+        for ( int i = 0; i < nb; i++ ) {
+            if ( bytes[ i ] == quote ) {
+                odd = ! odd;
+            }
+        }
+        return odd;
+    }
+
+    /**
+     * Splittable representing a range of file blocks.
+     */
+    private static class BlockRange implements Splittable<BlockRange> {
+        int ib0_;
+        int ib1_;
+
+        /**
+         * Constructor.
+         *
+         * @param  ib0  index of first block (inclusive)
+         * @param  ib1  index of last block (exclusive)
+         */
+        BlockRange( int ib0, int ib1 ) {
+            ib0_ = ib0;
+            ib1_ = ib1;
+        }
+
+        public BlockRange split() {
+            if ( ib1_ - ib0_ >= 2 ) {
+                int mid = ( ib0_ + ib1_ ) / 2;
+                BlockRange other = new BlockRange( mid, ib1_ );
+                ib1_ = mid;
+                return other;
+            }
+            else {
+                return null;
+            }
+        }
+
+        public long splittableSize() {
+            return ( ib1_ - ib0_ ) * (long) BLOCK_SIZE;
+        }
+    }
+}
@@ -1,5 +1,8 @@
 package uk.ac.starlink.table.formats;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.Arrays;
 import java.util.List;
 import java.util.regex.Matcher;
@@ -303,6 +306,104 @@ public class RowEvaluator {
         }
     }
 
+    /**
+     * Merges the information gathered by another evaluator into this one.
+     * Following this call, the state of this object is as if all the
+     * rows submitted to <code>other</code> had been submitted to this one
+     * as well.  Since the result does not depend on the order in which
+     * rows are seen, this can be used to combine evaluators that have
+     * examined different parts of the same table in parallel.
+     *
+     * @param  other  evaluator whose results are to be added to this one;
+     *                it should not be used following this call
+     * @throws  TableFormatException  if the two evaluators have seen
+     *          rows with different numbers of elements
+     */
+    public void combine( RowEvaluator other ) throws TableFormatException {
+        if ( other.ncol_ < 0 ) {
+            return;
+        }
+        if ( ncol_ < 0 ) {
+            init( other.ncol_ );
+        }
+        if ( other.ncol_ != ncol_ ) {
+            throw new TableFormatException(
+                "Wrong number of columns (expecting " + ncol_ + ", found "
+                + other.ncol_ + ")" );
+        }
+        nrow_ += other.nrow_;
+        for ( int icol = 0; icol < ncol_; icol++ ) {
+            maybeBlank_[ icol ] &= other.maybeBlank_[ icol ];
+            maybeBoolean_[ icol ] &= other.maybeBoolean_[ icol ];
+            maybeShort_[ icol ] &= other.maybeShort_[ icol ];
+            maybeInteger_[ icol ] &= other.maybeInteger_[ icol ];
+            maybeLong_[ icol ] &= other.maybeLong_[ icol ];
+            maybeFloat_[ icol ] &= other.maybeFloat_[ icol ];
+            maybeDouble_[ icol ] &= other.maybeDouble_[ icol ];
+            maybeDate_[ icol ] &= other.maybeDate_[ icol ];
+            maybeHms_[ icol ] &= other.maybeHms_[ icol ];
+            maybeDms_[ icol ] &= other.maybeDms_[ icol ];
+            stringLength_[ icol ] = Math.max( stringLength_[ icol ],
+                                              other.stringLength_[ icol ] );
+        }
+    }
+
+    /**
+     * Writes the state of this evaluator to a stream,
+     * in a form that can be restored using {@link #readState}.
+     *
+     * @param  out  destination stream
+     */
+    void writeState( DataOutput out ) throws IOException {
+        out.writeLong( nrow_ );
+        out.writeInt( ncol_ );
+        for ( int icol = 0; icol < ncol_; icol++ ) {
+            int flags = ( maybeBlank_[ icol ] ? 0x001 : 0 )
+                      | ( maybeBoolean_[ icol ] ? 0x002 : 0 )
+                      | ( maybeShort_[ icol ] ? 0x004 : 0 )
+                      | ( maybeInteger_[ icol ] ? 0x008 : 0 )
+                      | ( maybeLong_[ icol ] ? 0x010 : 0 )
+                      | ( maybeFloat_[ icol ] ? 0x020 : 0 )
+                      | ( maybeDouble_[ icol ] ? 0x040 : 0 )
+                      | ( maybeDate_[ icol ] ? 0x080 : 0 )
+                      | ( maybeHms_[ icol ] ? 0x100 : 0 )
+                      | ( maybeDms_[ icol ] ? 0x200 : 0 );
+            out.writeInt( flags );
+            out.writeInt( stringLength_[ icol ] );
+        }
+    }
+
+    /**
+     * Reconstructs an evaluator from state written by {@link #writeState}.
+     *
+     * @param  in  source stream
+     * @return  new evaluator
+     */
+    static RowEvaluator readState( DataInput in ) throws IOException {
+        RowEvaluator evaluator = new RowEvaluator();
+        long nrow = in.readLong();
+        int ncol = in.readInt();
+        evaluator.nrow_ = nrow;
+        if ( ncol >= 0 ) {
+            evaluator.init( ncol );
+            for ( int icol = 0; icol < ncol; icol++ ) {
+                int flags = in.readInt();
+                evaluator.maybeBlank_[ icol ] = ( flags & 0x001 ) != 0;
+                evaluator.maybeBoolean_[ icol ] = ( flags & 0x002 ) != 0;
+                evaluator.maybeShort_[ icol ] = ( flags & 0x004 ) != 0;
+                evaluator.maybeInteger_[ icol ] = ( flags & 0x008 ) != 0;
+                evaluator.maybeLong_[ icol ] = ( flags & 0x010 ) != 0;
+                evaluator.maybeFloat_[ icol ] = ( flags & 0x020 ) != 0;
+                evaluator.maybeDouble_[ icol ] = ( flags & 0x040 ) != 0;
+                evaluator.maybeDate_[ icol ] = ( flags & 0x080 ) != 0;
+                evaluator.maybeHms_[ icol ] = ( flags & 0x100 ) != 0;
+                evaluator.maybeDms_[ icol ] = ( flags & 0x200 ) != 0;
+                evaluator.stringLength_[ icol ] = in.readInt();
+            }
+        }
+        return evaluator;
+    }
+
     /**
      * Updates an element of a flags array based on compatibility of
      * a cell value with a given decoder.
@@ -1,15 +1,28 @@
 package uk.ac.starlink.table.formats;
 
 import java.io.BufferedInputStream;
+import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.PushbackInputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
+import java.util.function.LongSupplier;
 import uk.ac.starlink.table.AbstractStarTable;
 import uk.ac.starlink.table.ColumnInfo;
 import uk.ac.starlink.table.ReaderRowSequence;
+import uk.ac.starlink.table.RowAccess;
+import uk.ac.starlink.table.RowCollector;
+import uk.ac.starlink.table.RowRunner;
 import uk.ac.starlink.table.RowSequence;
+import uk.ac.starlink.table.RowSplittable;
 import uk.ac.starlink.table.TableFormatException;
+import uk.ac.starlink.util.Compression;
 import uk.ac.starlink.util.DataSource;
+import uk.ac.starlink.util.FileDataSource;
+import uk.ac.starlink.util.LongList;
 
 /**
  * Abstract superclass for tables which reads a stream of characters to
@@ -20,6 +33,15 @@ import uk.ac.starlink.util.DataSource;
  * a further pass through for each required RowSequence, using the
  * metadata obtained earlier.
  *
+ * <p>Subclasses whose rows can be located by looking for line ends
+ * may declare that by overriding {@link #isLineSplittable};
+ * in that case, if the data comes from an uncompressed file,
+ * {@link #getRowSplittable} divides the file at row boundaries
+ * so that it can be read by several threads at once.
+ * Such tables may also be given a {@link TextIndexCache},
+ * which saves the results of the metadata pass between invocations
+ * and permits random access.
+ *
  * @author   Mark Taylor (Starlink)
  * @since    21 Sep 2004
  * @see   RowEvaluator
@@ -31,6 +53,26 @@ public abstract class StreamStarTable extends AbstractStarTable {
     private long nrow_;
     private RowEvaluator.Decoder[] decoders_;
     private ColumnInfo[] colInfos_;
+    private TextIndexCache indexCache_;
+    private LineSplitter splitter_;
+    private Long dataStart_;
+    private TextIndex scanIndex_;
+    private long scanStart_;
+    private long[] indexRows_;
+    private long[] indexOffsets_;
+    private RowAccess sharedAccess_;
+
+    /**
+     * Number of rows between entries in the row offset index
+     * recorded during a metadata pass.
+     */
+    private static final int INDEX_STEP = 1000;
+
+    /**
+     * Guess at the number of bytes per row, used for estimating
+     * splittable sizes when the row count is not known.
+     */
+    private static final int ROW_BYTES_GUESS = 64;
 
     /** Char representation of -1 (as returned end-of-stream read) */
     protected final static char END = (char) -1;
@@ -54,10 +96,28 @@ public abstract class StreamStarTable extends AbstractStarTable {
      */
     protected void init( DataSource datsrc )
             throws TableFormatException, IOException {
+        init( datsrc, null );
+    }
+
+    /**
+     * Initialises the table from the input stream, with optional use
+     * of a cache for the results of the metadata pass.
+     * This method calls {@link #obtainMetadata}, which probably reads
+     * through some or all of the stream.
+     * If the cache is non-null and obtainMetadata makes use of
+     * {@link #evaluateRows}, the index will be used or created as
+     * appropriate, and the resulting table will provide random access.
+     *
+     * @param  datsrc  data source from which the stream can be obtained
+     * @param  indexCache  cache for metadata pass results, or null
+     */
+    protected void init( DataSource datsrc, TextIndexCache indexCache )
+            throws TableFormatException, IOException {
         if ( datsrc_ != null ) {
             throw new IllegalStateException( "Already initialised" );
         }
         datsrc_ = datsrc;
+        indexCache_ = indexCache;
 
         /* Configure some table characteristics from the data source. */
         setName( datsrc.getName() );
@@ -70,6 +130,12 @@ public abstract class StreamStarTable extends AbstractStarTable {
         colInfos_ = meta.colInfos_;
         nrow_ = meta.nrow_;
         ncol_ = meta.ncol_;
+
+        /* If an index is in use, set it up for random access. */
+        if ( scanIndex_ != null && indexCache_ != null ) {
+            installIndex( scanIndex_, scanStart_ );
+        }
+        scanIndex_ = null;
     }
 
     public int getColumnCount() {
@@ -84,9 +150,61 @@ public abstract class StreamStarTable extends AbstractStarTable {
         return colInfos_[ icol ];
     }
 
+    /**
+     * Returns true if a row offset index is available.
+     * That is only the case if this table was initialised with
+     * a {@link TextIndexCache}.
+     */
+    @Override
+    public boolean isRandom() {
+        return indexOffsets_ != null;
+    }
+
+    @Override
+    public RowAccess getRowAccess() throws IOException {
+        return isRandom() ? new IndexedRowAccess() : super.getRowAccess();
+    }
+
+    @Override
+    public synchronized Object getCell( long irow, int icol )
+            throws IOException {
+        if ( isRandom() ) {
+            RowAccess access = getSharedAccess();
+            access.setRowIndex( irow );
+            return access.getCell( icol );
+        }
+        else {
+            return super.getCell( irow, icol );
+        }
+    }
+
+    @Override
+    public synchronized Object[] getRow( long irow ) throws IOException {
+        if ( isRandom() ) {
+            RowAccess access = getSharedAccess();
+            access.setRowIndex( irow );
+            return access.getRow();
+        }
+        else {
+            return super.getRow( irow );
+        }
+    }
+
+    /**
+     * Releases the stream held for the random access methods,
+     * if one is open.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if ( sharedAccess_ != null ) {
+            sharedAccess_.close();
+            sharedAccess_ = null;
+        }
+        super.close();
+    }
+
     public RowSequence getRowSequence() throws IOException {
         final PushbackInputStream in = getInputStream();
-        final int ncol = getColumnCount();
         return new ReaderRowSequence() {
             protected Object[] readRow() throws IOException {
                 List<String> cellList = StreamStarTable.this.readRow( in );
@@ -95,14 +213,7 @@ public abstract class StreamStarTable extends AbstractStarTable {
                     return null;
                 }
                 else {
-                    Object[] row = new Object[ ncol ];
-                    for ( int icol = 0; icol < ncol; icol++ ) {
-                        String sval = cellList.get( icol );
-                        if ( sval != null && sval.trim().length() > 0 ) {
-                            row[ icol ] = decoders_[ icol ].decode( sval );
-                        }
-                    }
-                    return row;
+                    return decodeRow( cellList );
                 }
             }
             public void close() throws IOException {
@@ -111,6 +222,115 @@ public abstract class StreamStarTable extends AbstractStarTable {
         };
     }
 
+    /**
+     * If this table is line-splittable and its data source is an
+     * uncompressed file, the returned object reads byte ranges of the file
+     * in separate threads, splitting it at row boundaries.
+     * Otherwise the superclass behaviour is used.
+     */
+    @Override
+    public RowSplittable getRowSplittable() throws IOException {
+        LineSplitter splitter = getSplitter();
+        long dataStart = getDataStart();
+        if ( splitter != null && dataStart >= 0 ) {
+            long nbyte = splitter.getLength() - dataStart;
+            double rowBytes = nrow_ > 0 ? nbyte / (double) nrow_
+                                        : ROW_BYTES_GUESS;
+            return new LineRowSplittable( splitter, dataStart,
+                                          splitter.getLength(), rowBytes );
+        }
+        else {
+            return super.getRowSplittable();
+        }
+    }
+
+    /**
+     * Indicates whether the rows of this table can be located by
+     * looking for line ends in the data stream.
+     * If true, then it must be possible to start reading rows using
+     * {@link #readRow} at the start of any line following the data start
+     * position (the position of the stream returned by
+     * {@link #getInputStream}), except for lines within quoted strings
+     * as defined by {@link #getLineQuoteChar}.
+     * Each call to <code>readRow</code> must consume no more than
+     * the row it returns, any ignorable lines preceding it,
+     * and the line end characters following it;
+     * <code>readRow</code> may also be called from multiple threads
+     * on different streams once the metadata has been obtained.
+     *
+     * <p>The default implementation returns false.
+     *
+     * @return  true iff rows may be read in parallel from
+     *          different parts of the data stream
+     */
+    protected boolean isLineSplittable() {
+        return false;
+    }
+
+    /**
+     * Returns a character which may be used in matched pairs to quote
+     * strings containing line ends.  Line ends within such quoted strings
+     * are not considered as potential row boundaries
+     * when splitting the data stream.
+     * Only used if {@link #isLineSplittable} returns true.
+     *
+     * <p>The default implementation returns -1,
+     * indicating that all line ends are potential row boundaries.
+     *
+     * @return  quote character, or -1
+     */
+    protected int getLineQuoteChar() {
+        return -1;
+    }
+
+    /**
+     * Submits all the rows following the current position of a stream
+     * to a RowEvaluator, in parallel where possible.
+     * This may be useful from {@link #obtainMetadata} implementations.
+     * If the table is not line-splittable or its data does not come
+     * from an uncompressed file, null is returned and the stream
+     * is left untouched; in that case the caller should read the
+     * rows itself.
+     *
+     * <p>If this table has an index cache, a saved evaluator will be
+     * returned without reading the rows if one is available,
+     * and otherwise the results of the pass will be saved for next time.
+     *
+     * @param  in   stream obtained from the superclass implementation
+     *              of {@link #getInputStream}, positioned at the start
+     *              of a row; it will be closed if non-null is returned
+     * @param  runner   controls parallel processing
+     * @return  evaluator that has been shown all the remaining rows,
+     *          or null
+     */
+    protected RowEvaluator evaluateRows( PushbackInputStream in,
+                                         RowRunner runner )
+            throws IOException {
+        if ( ! ( in instanceof PositionInputStream ) ) {
+            return null;
+        }
+        long pos = ( (PositionInputStream) in ).getPosition();
+        LineSplitter splitter = getSplitter();
+        if ( splitter == null ) {
+            return null;
+        }
+        in.close();
+        File file = splitter.getFile();
+        String key = getClass().getName() + ":" + pos;
+        TextIndex index = indexCache_ == null
+                        ? null
+                        : indexCache_.readIndex( file, key );
+        if ( index == null ) {
+            index = scanRows( splitter, pos, runner );
+            if ( indexCache_ != null ) {
+                indexCache_.writeIndex( file, key, index );
+            }
+        }
+        scanIndex_ = index;
+        scanStart_ = pos;
+        return index.getEvaluator();
+    }
+
     /**
      * Convenience method which returns a buffered pushback stream based
      * on this table's data source.
@@ -118,8 +338,8 @@ public abstract class StreamStarTable extends AbstractStarTable {
      * @return  input stream containing source data
      */
     protected PushbackInputStream getInputStream() throws IOException {
-        return new PushbackInputStream( 
-                   new BufferedInputStream( datsrc_.getInputStream() ) );
+        return new PositionInputStream(
+                   new BufferedInputStream( datsrc_.getInputStream() ), 0 );
     }
 
     /**
@@ -148,4 +368,498 @@ public abstract class StreamStarTable extends AbstractStarTable {
      */
     protected abstract List<String> readRow( PushbackInputStream in )
             throws TableFormatException, IOException;
+
+    /**
+     * Turns a list of cell strings into a row of typed values.
+     *
+     * @param  cellList  cell strings as returned by {@link #readRow}
+     * @return  row data
+     */
+    private Object[] decodeRow( List<String> cellList ) {
+        int ncol = ncol_;
+        Object[] row = new Object[ ncol ];
+        for ( int icol = 0; icol < ncol; icol++ ) {
+            String sval = cellList.get( icol );
+            if ( sval != null && sval.trim().length() > 0 ) {
+                row[ icol ] = decoders_[ icol ].decode( sval );
+            }
+        }
+        return row;
+    }
+
+    /**
+     * Returns the splitter for this table's data, or null if it is not
+     * splittable.
+     *
+     * @return  splitter, or null
+     */
+    private synchronized LineSplitter getSplitter() throws IOException {
+        if ( splitter_ == null &&
+             isLineSplittable() &&
+             datsrc_ instanceof FileDataSource &&
+             datsrc_.getCompression() == Compression.NONE ) {
+            splitter_ = new LineSplitter( ( (FileDataSource) datsrc_ )
+                                         .getFile(), getLineQuoteChar() );
+        }
+        return splitter_;
+    }
+
+    /**
+     * Returns the byte offset in the data stream at which the first
+     * data row starts, if known.
+     *
+     * @return  data start offset, or -1 if not known
+     */
+    private synchronized long getDataStart() throws IOException {
+        if ( dataStart_ == null ) {
+            try ( PushbackInputStream in = getInputStream() ) {
+                dataStart_ = Long.valueOf( in instanceof PositionInputStream
+                                         ? ( (PositionInputStream) in )
+                                          .getPosition()
+                                         : -1L );
+            }
+        }
+        return dataStart_.longValue();
+    }
+
+    /**
+     * Returns a row access object for use by the random access methods
+     * of this table.
+     *
+     * @return  lazily created row access
+     */
+    private RowAccess getSharedAccess() {
+        if ( sharedAccess_ == null ) {
+            sharedAccess_ = new IndexedRowAccess();
+        }
+        return sharedAccess_;
+    }
+
+    /**
+     * Reads all the rows in a file from a given position onwards,
+     * accumulating type information and a sparse row offset index.
+     *
+     * @param  splitter   splitter for data file
+     * @param  pos   offset of the start of the first row
+     * @param  runner  controls parallel processing
+     * @return   scan results
+     */
+    private TextIndex scanRows( LineSplitter splitter, long pos,
+                                RowRunner runner )
+            throws IOException {
+        RowSplittable split =
+            new LineRowSplittable( splitter, pos, splitter.getLength(),
+                                   ROW_BYTES_GUESS );
+        ScanAccumulator acc;
+        try {
+            acc = runner.collect( new ScanCollector(), split );
+        }
+
+        /* Parallel execution buries data errors in other exceptions;
+         * make sure they come out as the original type. */
+        catch ( IOException e ) {
+            for ( Throwable t = e; t != null; t = t.getCause() ) {
+                if ( t instanceof TableFormatException ) {
+                    throw (TableFormatException) t;
+                }
+            }
+            throw e;
+        }
+
+        /* Assemble the per-range offset lists into a single index. */
+        List<ScanRange> ranges = acc.ranges_;
+        ranges.sort( Comparator.comparingLong( r -> r.start_ ) );
+        LongList rowList = new LongList();
+        LongList offsetList = new LongList();
+        long irow0 = 0;
+        for ( ScanRange range : ranges ) {
+            int nent = range.offsets_.size();
+            for ( int ie = 0; ie < nent; ie++ ) {
+                rowList.add( irow0 + ie * (long) INDEX_STEP );
+                offsetList.add( range.offsets_.get( ie ) );
+            }
+            irow0 += range.nrow_;
+        }
+        return new TextIndex( acc.evaluator_, irow0, rowList.toLongArray(),
+                              offsetList.toLongArray() );
+    }
+
+    /**
+     * Sets up this table's random access index from the results of
+     * a metadata pass.
+     *
+     * @param  index  scan results
+     * @param  scanStart  offset at which the scan started
+     */
+    private void installIndex( TextIndex index, long scanStart )
+            throws IOException {
+
+        /* Work out how many data rows precede the start of the scan. */
+        long dataStart = getDataStart();
+        if ( dataStart < 0 || dataStart > scanStart ) {
+            return;
+        }
+        long nskip = 0;
+        try ( PushbackInputStream in = getInputStream() ) {
+            PositionInputStream pin = (PositionInputStream) in;
+            while ( pin.getPosition() < scanStart && readRow( in ) != null ) {
+                nskip++;
+            }
+            if ( pin.getPosition() != scanStart ) {
+                return;
+            }
+        }
+
+        /* Record the offsets, relative to the start of the data. */
+        long[] scanRows = index.getRowIndices();
+        long[] scanOffsets = index.getOffsets();
+        LongList rowList = new LongList();
+        LongList offsetList = new LongList();
+        rowList.add( 0 );
+        offsetList.add( dataStart );
+        for ( int ie = 0; ie < scanRows.length; ie++ ) {
+            long irow = scanRows[ ie ] + nskip;
+            if ( irow > 0 ) {
+                rowList.add( irow );
+                offsetList.add( scanOffsets[ ie ] );
+            }
+        }
+        indexRows_ = rowList.toLongArray();
+        indexOffsets_ = offsetList.toLongArray();
+        nrow_ = index.getRowCount() + nskip;
+    }
+
+    /**
+     * PushbackInputStream that keeps track of its position in the
+     * underlying stream.  Pushing back an end-of-stream indicator (-1)
+     * is a no-op, so that subsequent reads continue to report
+     * end of stream.
+     */
+    private static class PositionInputStream extends PushbackInputStream {
+
+        private long pos_;
+
+        /**
+         * Constructor.
+         *
+         * @param  in  base input stream
+         * @param  pos  position of base stream in the data
+         */
+        PositionInputStream( InputStream in, long pos ) {
+            super( in );
+            pos_ = pos;
+        }
+
+        /**
+         * Returns the offset into the data of the next byte to be read.
+         *
+         * @return  position
+         */
+        public long getPosition() {
+            return pos_;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if ( b >= 0 ) {
+                pos_++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read( byte[] buf, int off, int len ) throws IOException {
+            int n = super.read( buf, off, len );
+            if ( n > 0 ) {
+                pos_ += n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip( long n ) throws IOException {
+            long ns = super.skip( n );
+            pos_ += ns;
+            return ns;
+        }
+
+        @Override
+        public void unread( int b ) throws IOException {
+            if ( b >= 0 ) {
+                super.unread( b );
+                pos_--;
+            }
+        }
+
+        @Override
+        public void unread( byte[] buf, int off, int len )
+                throws IOException {
+            super.unread( buf, off, len );
+            pos_ -= len;
+        }
+    }
+
+    /**
+     * RowSplittable that reads rows from a byte range of a file.
+     * The range owns those rows which end within it,
+     * that is rows read from the range start up to and including
+     * the one whose terminating line end characters end at or before
+     * the range end.
+     */
+    private class LineRowSplittable implements RowSplittable {
+
+        private final LineSplitter splitter_;
+        private final double rowBytes_;
+        private final long start_;
+        private long end_;
+        private PositionInputStream in_;
+        private long rowPos_;
+        private List<String> cells_;
+        private Object[] row_;
+        private boolean done_;
+
+        /**
+         * Constructor.
+         *
+         * @param  splitter  splitter
+         * @param  start   offset of start of range, which is a row boundary
+         * @param  end    offset of end of range, which is a row boundary
+         *                or the end of the file
+         * @param  rowBytes  estimated number of bytes per row
+         */
+        LineRowSplittable( LineSplitter splitter, long start, long end,
+                           double rowBytes ) {
+            splitter_ = splitter;
+            start_ = start;
+            end_ = end;
+            rowBytes_ = rowBytes;
+        }
+
+        public LineRowSplittable split() {
+            if ( in_ == null && ! done_ ) {
+                long mid = start_ + ( end_ - start_ ) / 2;
+                final long boundary;
+                try {
+                    boundary = splitter_.findRowStart( mid, end_ );
+                }
+                catch ( IOException e ) {
+                    return null;
+                }
+                if ( boundary > start_ ) {
+                    LineRowSplittable other =
+                        new LineRowSplittable( splitter_, boundary, end_,
+                                               rowBytes_ );
+                    end_ = boundary;
+                    return other;
+                }
+            }
+            return null;
+        }
+
+        public long splittableSize() {
+            return (long) ( ( end_ - start_ ) / rowBytes_ );
+        }
+
+        public LongSupplier rowIndex() {
+            return null;
+        }
+
+        public boolean next() throws IOException {
+            row_ = null;
+            cells_ = null;
+            if ( done_ ) {
+                return false;
+            }
+            if ( in_ == null ) {
+                in_ = new PositionInputStream(
+                          new BufferedInputStream(
+                              splitter_.openStream( start_ ) ), start_ );
+            }
+            rowPos_ = in_.getPosition();
+            List<String> cells = readRow( in_ );
+            if ( cells != null && in_.getPosition() <= end_ ) {
+                cells_ = cells;
+                return true;
+            }
+            else {
+                done_ = true;
+                close();
+                return false;
+            }
+        }
+
+        /**
+         * Returns the offset from which reading will yield the current row.
+         *
+         * @return  current row position
+         */
+        long getRowPosition() {
+            return rowPos_;
+        }
+
+        /**
+         * Returns the undecoded cell strings for the current row.
+         *
+         * @return  cell list
+         */
+        List<String> getCells() {
+            if ( cells_ == null ) {
+                throw new IllegalStateException( "No current row" );
+            }
+            return cells_;
+        }
+
+        public Object[] getRow() {
+            if ( row_ == null ) {
+                row_ = decodeRow( getCells() );
+            }
+            return row_;
+        }
+
+        public Object getCell( int icol ) {
+            return getRow()[ icol ];
+        }
+
+        public void close() throws IOException {
+            if ( in_ != null ) {
+                in_.close();
+            }
+        }
+    }
+
+    /**
+     * RowAccess implementation based on the row offset index.
+     * Rows are located by reading forward from the nearest preceding
+     * indexed position, or from the current position if that is closer.
+     */
+    private class IndexedRowAccess implements RowAccess {
+
+        private PositionInputStream in_;
+        private long nextRow_;
+        private long irow_;
+        private Object[] row_;
+
+        IndexedRowAccess() {
+            irow_ = -1;
+        }
+
+        public void setRowIndex( long irow ) throws IOException {
+            if ( irow == irow_ ) {
+                return;
+            }
+            if ( irow < 0 || irow >= nrow_ ) {
+                throw new IllegalArgumentException( "Row index " + irow
+                                                  + " out of range" );
+            }
+            int ient = Arrays.binarySearch( indexRows_, irow );
+            if ( ient < 0 ) {
+                ient = -ient - 2;
+            }
+            long entRow = indexRows_[ ient ];
+            if ( in_ == null || irow < nextRow_ || entRow > nextRow_ ) {
+                if ( in_ != null ) {
+                    in_.close();
+                }
+                long offset = indexOffsets_[ ient ];
+                in_ = new PositionInputStream(
+                          new BufferedInputStream(
+                              getSplitter().openStream( offset ) ), offset );
+                nextRow_ = entRow;
+            }
+            row_ = null;
+            irow_ = -1;
+            List<String> cells = null;
+            while ( nextRow_ <= irow ) {
+                cells = readRow( in_ );
+                if ( cells == null ) {
+                    throw new IOException( "Unexpected end of data at row "
+                                         + nextRow_ );
+                }
+                nextRow_++;
+            }
+            row_ = decodeRow( cells );
+            irow_ = irow;
+        }
+
+        public Object getCell( int icol ) {
+            return getRow()[ icol ];
+        }
+
+        public Object[] getRow() {
+            if ( row_ == null ) {
+                throw new IllegalStateException( "No current row" );
+            }
+            return row_;
+        }
+
+        public void close() throws IOException {
+            if ( in_ != null ) {
+                in_.close();
+                in_ = null;
+            }
+        }
+    }
+
+    /**
+     * Accumulator for a metadata scan.
+     */
+    private static class ScanAccumulator {
+        final RowEvaluator evaluator_ = new RowEvaluator();
+        final List<ScanRange> ranges_ = new ArrayList<ScanRange>();
+    }
+
+    /**
+     * Records the rows read from one LineRowSplittable in a metadata scan.
+     */
+    private static class ScanRange {
+        final long start_;
+        final LongList offsets_;
+        long nrow_;
+
+        /**
+         * Constructor.
+         *
+         * @param  start  byte offset of range start
+         */
+        ScanRange( long start ) {
+            start_ = start;
+            offsets_ = new LongList();
+        }
+    }
+
+    /**
+     * Collector that feeds rows from a LineRowSplittable to a RowEvaluator,
+     * recording row offsets at intervals.
+     */
+    private static class ScanCollector extends RowCollector<ScanAccumulator> {
+        public ScanAccumulator createAccumulator() {
+            return new ScanAccumulator();
+        }
+        public ScanAccumulator combine( ScanAccumulator acc1,
+                                        ScanAccumulator acc2 ) {
+            try {
+                acc1.evaluator_.combine( acc2.evaluator_ );
+            }
+            catch ( TableFormatException e ) {
+                throw new RuntimeException( "Data error in parallel processing",
+                                            e );
+            }
+            acc1.ranges_.addAll( acc2.ranges_ );
+            return acc1;
+        }
+        public void accumulateRows( RowSplittable rseq, ScanAccumulator acc )
+                throws IOException {
+            LineRowSplittable lseq = (LineRowSplittable) rseq;
+            ScanRange range = new ScanRange( lseq.start_ );
+            while ( lseq.next() ) {
+                if ( range.nrow_ % INDEX_STEP == 0 ) {
+                    range.offsets_.add( lseq.getRowPosition() );
+                }
+                acc.evaluator_.submitRow( lseq.getCells() );
+                range.nrow_++;
+            }
+            acc.ranges_.add( range );
+        }
+    }
 }
@@ -0,0 +1,117 @@
+package uk.ac.starlink.table.formats;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Records the results of a full pass through the rows of a text table.
+ * This contains the column type information accumulated by a
+ * {@link RowEvaluator}, and a sparse index giving the byte offsets
+ * in the file at which reading may start in order to get to
+ * particular rows.
+ *
+ * <p>Row indices are counted from the start of the pass,
+ * which is not necessarily the start of the table data.
+ *
+ * @author   Mark Taylor
+ * @since    17 Oct 2026
+ */
+class TextIndex {
+
+    private final RowEvaluator evaluator_;
+    private final long nrow_;
+    private final long[] rowIndices_;
+    private final long[] offsets_;
+
+    /**
+     * Constructor.
+     *
+     * @param  evaluator  evaluator that has seen all the rows
+     * @param  nrow   number of rows in the pass
+     * @param  rowIndices  ascending array of indexed row indices
+     * @param  offsets   array of byte offsets, one for each element of
+     *                   <code>rowIndices</code>, from which reading
+     *                   will yield the corresponding row
+     */
+    public TextIndex( RowEvaluator evaluator, long nrow, long[] rowIndices,
+                      long[] offsets ) {
+        if ( rowIndices.length != offsets.length ) {
+            throw new IllegalArgumentException( "Array length mismatch" );
+        }
+        evaluator_ = evaluator;
+        nrow_ = nrow;
+        rowIndices_ = rowIndices;
+        offsets_ = offsets;
+    }
+
+    /**
+     * Returns the evaluator that has seen all the rows.
+     *
+     * @return  evaluator
+     */
+    public RowEvaluator getEvaluator() {
+        return evaluator_;
+    }
+
+    /**
+     * Returns the number of rows in the pass.
+     *
+     * @return  row count
+     */
+    public long getRowCount() {
+        return nrow_;
+    }
+
+    /**
+     * Returns the indices of the rows whose offsets are recorded.
+     *
+     * @return  ascending array of row indices
+     */
+    public long[] getRowIndices() {
+        return rowIndices_;
+    }
+
+    /**
+     * Returns the byte offsets of the indexed rows.
+     *
+     * @return  array of byte offsets corresponding to the row indices
+     */
+    public long[] getOffsets() {
+        return offsets_;
+    }
+
+    /**
+     * Writes this index to a stream.
+     *
+     * @param  out  destination stream
+     */
+    public void write( DataOutput out ) throws IOException {
+        evaluator_.writeState( out );
+        out.writeLong( nrow_ );
+        out.writeInt( rowIndices_.length );
+        for ( int i = 0; i < rowIndices_.length; i++ ) {
+            out.writeLong( rowIndices_[ i ] );
+            out.writeLong( offsets_[ i ] );
+        }
+    }
+
+    /**
+     * Reads an index that was written by {@link #write}.
+     *
+     * @param  in  source stream
+     * @return  new index
+     */
+    public static TextIndex read( DataInput in ) throws IOException {
+        RowEvaluator evaluator = RowEvaluator.readState( in );
+        long nrow = in.readLong();
+        int nent = in.readInt();
+        long[] rowIndices = new long[ nent ];
+        long[] offsets = new long[ nent ];
+        for ( int i = 0; i < nent; i++ ) {
+            rowIndices[ i ] = in.readLong();
+            offsets[ i ] = in.readLong();
+        }
+        return new TextIndex( evaluator, nrow, rowIndices, offsets );
+    }
+}
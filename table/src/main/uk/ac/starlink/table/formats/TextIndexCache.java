@@ -0,0 +1,164 @@
+package uk.ac.starlink.table.formats;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Manages a directory of index files which record the results of
+ * the metadata pass through text-format tables.
+ *
+ * <p>Reading a CSV or ASCII table normally requires a full pass through
+ * the file to work out column types and count rows before any data
+ * can be supplied.  If a cache is supplied to the table,
+ * the results of that pass are saved in a small file in the cache
+ * directory, and used instead of re-reading the file next time the
+ * same table is opened.  The saved information also includes a sparse
+ * index of row positions, which allows the table to provide
+ * random access.
+ *
+ * <p>Index files are keyed by the canonical path of the table file;
+ * an index is ignored if the file's length or modification time
+ * has changed since it was written.
+ * Failure to read or write an index file is not fatal;
+ * the table is just read without it.
+ *
+ * @author   Mark Taylor
+ * @since    17 Oct 2026
+ */
+public class TextIndexCache {
+
+    private final File dir_;
+
+    private static final String MAGIC = "STIL-TEXT-INDEX-1";
+    private static final Logger logger_ =
+        Logger.getLogger( "uk.ac.starlink.table.formats" );
+
+    /**
+     * Constructor.
+     *
+     * @param  dir  directory in which index files are stored;
+     *              it will be created if necessary
+     */
+    public TextIndexCache( File dir ) {
+        dir_ = dir;
+    }
+
+    /**
+     * Returns the directory in which index files are stored.
+     *
+     * @return  index directory
+     */
+    public File getDirectory() {
+        return dir_;
+    }
+
+    /**
+     * Returns a saved index for a given file, if one is available and
+     * up to date.
+     *
+     * @param  file  table file
+     * @param  key   string characterising the way the index was generated;
+     *               must match the one used for writing
+     * @return  index, or null
+     */
+    TextIndex readIndex( File file, String key ) {
+        try {
+            File ixFile = getIndexFile( file );
+            if ( ! ixFile.isFile() ) {
+                return null;
+            }
+            try ( DataInputStream in =
+                      new DataInputStream(
+                          new BufferedInputStream(
+                              new FileInputStream( ixFile ) ) ) ) {
+                if ( MAGIC.equals( in.readUTF() ) &&
+                     file.getCanonicalPath().equals( in.readUTF() ) &&
+                     file.length() == in.readLong() &&
+                     file.lastModified() == in.readLong() &&
+                     key.equals( in.readUTF() ) ) {
+                    TextIndex index = TextIndex.read( in );
+                    logger_.info( "Using text table index " + ixFile );
+                    return index;
+                }
+                else {
+                    logger_.info( "Ignoring stale text table index "
+                                + ixFile );
+                    return null;
+                }
+            }
+        }
+        catch ( IOException e ) {
+            logger_.log( Level.WARNING,
+                         "Failed to read text table index for " + file, e );
+            return null;
+        }
+    }
+
+    /**
+     * Saves an index for a given file.
+     *
+     * @param  file  table file
+     * @param  key   string characterising the way the index was generated
+     * @param  index  index to save
+     */
+    void writeIndex( File file, String key, TextIndex index ) {
+        try {
+            File ixFile = getIndexFile( file );
+            if ( ! dir_.isDirectory() && ! dir_.mkdirs() ) {
+                throw new IOException( "Can't create directory " + dir_ );
+            }
+
+            /* Write to a temporary file and rename it, so that readers
+             * never see a partially written index. */
+            File tmpFile =
+                File.createTempFile( ixFile.getName(), ".tmp", dir_ );
+            try {
+                try ( DataOutputStream out =
+                          new DataOutputStream(
+                              new BufferedOutputStream(
+                                  new FileOutputStream( tmpFile ) ) ) ) {
+                    out.writeUTF( MAGIC );
+                    out.writeUTF( file.getCanonicalPath() );
+                    out.writeLong( file.length() );
+                    out.writeLong( file.lastModified() );
+                    out.writeUTF( key );
+                    index.write( out );
+                }
+                Files.move( tmpFile.toPath(), ixFile.toPath(),
+                            StandardCopyOption.REPLACE_EXISTING );
+                logger_.info( "Wrote text table index " + ixFile );
+            }
+            finally {
+                tmpFile.delete();
+            }
+        }
+        catch ( IOException e ) {
+            logger_.log( Level.WARNING,
+                         "Failed to write text table index for " + file, e );
+        }
+    }
+
+    /**
+     * Returns the index file used for a given table file.
+     *
+     * @param  file  table file
+     * @return  index file in this cache's directory
+     */
+    private File getIndexFile( File file ) throws IOException {
+        String path = file.getCanonicalPath();
+        String name = file.getName().replaceAll( "[^A-Za-z0-9._-]", "_" );
+        return new File( dir_, name + "-"
+                             + Integer.toHexString( path.hashCode() )
+                             + ".idx" );
+    }
+}
@@ -523,27 +523,13 @@ public class TstTableWriter extends DocumentedStreamStarTableWriter {
         public RowSequence getRowSequence() throws IOException {
             RowSequence baseSeq = super.getRowSequence();
             FactorRow frow = new FactorRow( baseSeq, factors_ );
-            return new WrapperRowSequence( baseSeq ) {
-                public Object getCell( int icol ) throws IOException {
-                    return frow.getCell( icol );
-                }
-                public Object[] getRow() throws IOException {
-                    return frow.getRow();
-                }
-            };
+            return new WrapperRowSequence( baseSeq, frow );
         }
 
         public RowAccess getRowAccess() throws IOException {
             RowAccess baseAcc = super.getRowAccess();
             FactorRow frow = new FactorRow( baseAcc, factors_ );
-            return new WrapperRowAccess( baseAcc ) {
-                public Object getCell( int icol ) throws IOException {
-                    return frow.getCell( icol );
-                }
-                public Object[] getRow() throws IOException {
-                    return frow.getRow();
-                }
-            };
+            return new WrapperRowAccess( baseAcc, frow );
         }
     }
 
@@ -12,22 +12,39 @@ import java.sql.Types;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 import uk.ac.starlink.table.ColumnInfo;
+import uk.ac.starlink.table.RowCollector;
+import uk.ac.starlink.table.RowRunner;
 import uk.ac.starlink.table.RowSequence;
+import uk.ac.starlink.table.RowSplittable;
 import uk.ac.starlink.table.StarTable;
 import uk.ac.starlink.table.StarTableFactory;
 import uk.ac.starlink.table.Tables;
 import uk.ac.starlink.util.Loader;
+import uk.ac.starlink.util.SplitPolicy;
+import uk.ac.starlink.util.SplitProcessor;
 
 /**
  * Handles conversion of a StarTable into a new table in an RDBMS.
  *
+ * <p>By default rows are inserted one at a time using the connection's
+ * existing transaction mode.  For bulk loads, the
+ * {@link #setBatchSize batch size} and
+ * {@link #setCommitInterval commit interval} can be configured so that
+ * rows are sent using JDBC batch updates within explicit transactions,
+ * which is usually very much faster.
+ * Rows can additionally be written in parallel over several connections
+ * using {@link #setParallelConnections setParallelConnections}.
+ *
  * @author   Mark Taylor
  */
 public class JDBCFormatter {
@@ -41,6 +58,10 @@ public class JDBCFormatter {
     private final Map<Integer,String> typeNameMap_;
     private final SqlSyntax sqlSyntax_;
     private final boolean upperCasePreferred_;
+    private int batchSize_;
+    private int commitInterval_;
+    private Connector connector_;
+    private int nconn_;
 
     private static Logger logger = 
         Logger.getLogger( "uk.ac.starlink.table.jdbc" );
@@ -61,6 +82,8 @@ public class JDBCFormatter {
         maxTableLeng_ = meta.getMaxTableNameLength();
         upperCasePreferred_ = meta.storesUpperCaseIdentifiers();
         sqlSyntax_ = getSqlSyntax( meta );
+        batchSize_ = 1;
+        nconn_ = 1;
 
         /* Work out column types and see if we need to work out maximum string
          * lengths. */
@@ -197,6 +220,71 @@ public class JDBCFormatter {
         return sql.toString();
     }
 
+    /**
+     * Sets the number of rows sent to the database in each batch update.
+     * A value of 1 (the default) means that each row is inserted by
+     * its own statement execution.
+     *
+     * @param  batchSize  number of rows per batch
+     */
+    public void setBatchSize( int batchSize ) {
+        batchSize_ = Math.max( 1, batchSize );
+    }
+
+    /**
+     * Returns the number of rows sent to the database in each batch update.
+     *
+     * @return  number of rows per batch
+     */
+    public int getBatchSize() {
+        return batchSize_;
+    }
+
+    /**
+     * Sets the number of batches written between transaction commits.
+     * If positive, auto-commit is switched off for the duration of
+     * the write, and a commit is issued every <code>commitInterval</code>
+     * batches and at the end.
+     * If zero (the default), the connection's transaction mode is
+     * left alone.
+     *
+     * @param  commitInterval  number of batches per transaction,
+     *                         or 0 to leave transaction handling alone
+     */
+    public void setCommitInterval( int commitInterval ) {
+        commitInterval_ = Math.max( 0, commitInterval );
+    }
+
+    /**
+     * Returns the number of batches written between transaction commits.
+     *
+     * @return  number of batches per transaction, or 0 for no
+     *          explicit transaction handling
+     */
+    public int getCommitInterval() {
+        return commitInterval_;
+    }
+
+    /**
+     * Configures writing of row data in parallel using multiple
+     * database connections.
+     * If <code>nconn</code> is greater than 1 and the input table's
+     * rows can be split, disjoint row ranges are inserted concurrently,
+     * each over its own connection acquired from the given connector.
+     * Table creation is always done using this formatter's own connection.
+     * Note that rows will not in general end up in the database
+     * in their original order, and that if the write fails part way
+     * through, rows committed by other connections will remain.
+     *
+     * @param  connector   source of additional connections,
+     *                     or null for single-connection writing
+     * @param  nconn   maximum number of connections used concurrently
+     */
+    public void setParallelConnections( Connector connector, int nconn ) {
+        connector_ = connector;
+        nconn_ = Math.max( 1, nconn );
+    }
+
     /**
      * Writes data from this formatter's input table into the database.
      * This method is somewhat misnamed - depending on the write mode, 
@@ -231,37 +319,97 @@ public class JDBCFormatter {
             logger.info( create );
             stmt.executeUpdate( create );
         }
+        stmt.close();
 
         /* Prepare a statement for adding the data. */
         String insert = getInsertStatement( tableName );
         logger.info( insert );
-        PreparedStatement pstmt = conn_.prepareStatement( insert );
 
         /* Add the data. */
-        int ncol = sqlCols_.length;
-        RowSequence rseq = table_.getRowSequence();
+        long start = System.currentTimeMillis();
+        long nrow = connector_ != null && nconn_ > 1
+                  ? insertRowsParallel( insert )
+                  : insertRowsSequential( insert );
+        long millis = Math.max( 1, System.currentTimeMillis() - start );
+        logger.info( "Wrote " + nrow + " rows to " + tableName
+                   + " in " + ( millis / 1000.0 ) + "s"
+                   + " (" + (long) ( nrow * 1000.0 / millis ) + " rows/sec)" );
+    }
+
+    /**
+     * Inserts all the input table rows using this formatter's connection.
+     *
+     * @param   insert  text of parameterised insert statement
+     * @return  number of rows written
+     */
+    private long insertRowsSequential( String insert )
+            throws IOException, SQLException {
+        RowLoader loader = new RowLoader( conn_, false, insert );
         try {
-            while ( rseq.next() ) {
-                Object[] row = rseq.getRow();
-                int pix = 0;
-                for ( int icol = 0; icol < ncol; icol++ ) {
-                    if ( sqlCols_[ icol ] != null ) {
-                        pix++;
-                        Object val = row[ icol ];
-                        if ( Tables.isBlank( val ) ) {
-                            pstmt.setNull( pix, sqlTypes_[ icol ] );
-                        }
-                        else {
-                            pstmt.setObject( pix, row[ icol ],
-                                             sqlTypes_[ icol ] );
-                        }
-                    }
+            RowSequence rseq = table_.getRowSequence();
+            try {
+                while ( rseq.next() ) {
+                    loader.addRow( rseq.getRow() );
                 }
-                pstmt.executeUpdate();
             }
+            finally {
+                rseq.close();
+            }
+            loader.finish();
         }
         finally {
-            rseq.close();
+            loader.close();
+        }
+        return loader.nrow_;
+    }
+
+    /**
+     * Inserts all the input table rows concurrently using connections
+     * acquired from this formatter's connector.
+     *
+     * @param   insert  text of parameterised insert statement
+     * @return  number of rows written
+     */
+    private long insertRowsParallel( String insert )
+            throws IOException, SQLException {
+
+        /* Make sure any newly created table is visible to other
+         * connections. */
+        if ( ! conn_.getAutoCommit() ) {
+            conn_.commit();
+        }
+
+        /* Use a pooling processor so that only about one loader,
+         * hence one connection, is in use per thread. */
+        SplitPolicy policy =
+            new SplitPolicy( () -> new ForkJoinPool( nconn_ ),
+                             SplitPolicy.DFLT_MIN_TASK_SIZE,
+                             SplitPolicy.DFLT_MAX_TASKS_PER_CORE );
+        RowRunner runner =
+            new RowRunner( SplitProcessor.createPoolParallelProcessor( policy ) );
+        LoaderCollector collector = new LoaderCollector( insert );
+        try {
+            runner.collect( collector, table_ );
+            long nrow = 0;
+            for ( RowLoader loader : collector.loaders_ ) {
+                loader.finish();
+                nrow += loader.nrow_;
+            }
+            logger.info( "Used " + collector.loaders_.size()
+                       + " connections for parallel write" );
+            return nrow;
+        }
+        finally {
+            policy.getForkJoinPool().shutdown();
+            for ( RowLoader loader : collector.loaders_ ) {
+                try {
+                    loader.close();
+                }
+                catch ( SQLException e ) {
+                    logger.log( Level.WARNING,
+                                "Trouble closing connection: " + e, e );
+                }
+            }
         }
     }
 
@@ -567,6 +715,190 @@ public class JDBCFormatter {
         }
     }
 
+    /**
+     * Inserts rows into the database over a single connection,
+     * using batches and transactions as configured.
+     */
+    private class RowLoader {
+        private final Connection conn_;
+        private final boolean ownsConnection_;
+        private final PreparedStatement pstmt_;
+        private final boolean autoCommit0_;
+        private final boolean isTransactional_;
+        private int nInBatch_;
+        private int nUncommitted_;
+        private boolean finished_;
+        long nrow_;
+
+        /**
+         * Constructor.
+         *
+         * @param  conn  database connection
+         * @param  ownsConnection  true iff the connection should be closed
+         *                         when this loader is closed
+         * @param  insert  text of parameterised insert statement
+         */
+        RowLoader( Connection conn, boolean ownsConnection, String insert )
+                throws SQLException {
+            conn_ = conn;
+            ownsConnection_ = ownsConnection;
+            autoCommit0_ = conn.getAutoCommit();
+            isTransactional_ = commitInterval_ > 0;
+            if ( isTransactional_ && autoCommit0_ ) {
+                conn.setAutoCommit( false );
+            }
+            pstmt_ = conn.prepareStatement( insert );
+        }
+
+        /**
+         * Writes a row, or queues it for writing.
+         *
+         * @param  row  input table row
+         */
+        void addRow( Object[] row ) throws SQLException {
+            int ncol = sqlCols_.length;
+            int pix = 0;
+            for ( int icol = 0; icol < ncol; icol++ ) {
+                if ( sqlCols_[ icol ] != null ) {
+                    pix++;
+                    Object val = row[ icol ];
+                    if ( Tables.isBlank( val ) ) {
+                        pstmt_.setNull( pix, sqlTypes_[ icol ] );
+                    }
+                    else {
+                        pstmt_.setObject( pix, val, sqlTypes_[ icol ] );
+                    }
+                }
+            }
+            if ( batchSize_ > 1 ) {
+                pstmt_.addBatch();
+                if ( ++nInBatch_ >= batchSize_ ) {
+                    flushBatch();
+                }
+            }
+            else {
+                pstmt_.executeUpdate();
+                nrow_++;
+                batchDone();
+            }
+        }
+
+        /**
+         * Executes any queued rows.
+         */
+        private void flushBatch() throws SQLException {
+            if ( nInBatch_ > 0 ) {
+                pstmt_.executeBatch();
+                pstmt_.clearBatch();
+                nrow_ += nInBatch_;
+                nInBatch_ = 0;
+                batchDone();
+            }
+        }
+
+        /**
+         * Records that a batch has been executed, committing if required.
+         */
+        private void batchDone() throws SQLException {
+            if ( isTransactional_ && ++nUncommitted_ >= commitInterval_ ) {
+                conn_.commit();
+                nUncommitted_ = 0;
+            }
+        }
+
+        /**
+         * Writes any outstanding rows and commits them if required.
+         */
+        void finish() throws SQLException {
+            flushBatch();
+            if ( isTransactional_ && nUncommitted_ > 0 ) {
+                conn_.commit();
+                nUncommitted_ = 0;
+            }
+            finished_ = true;
+        }
+
+        /**
+         * Releases resources.  Uncommitted rows are rolled back
+         * if {@link #finish} has not been called.
+         */
+        void close() throws SQLException {
+            try {
+                pstmt_.close();
+                if ( isTransactional_ ) {
+                    if ( ! finished_ ) {
+                        conn_.rollback();
+                    }
+                    if ( autoCommit0_ && ! ownsConnection_ ) {
+                        conn_.setAutoCommit( true );
+                    }
+                }
+            }
+            finally {
+                if ( ownsConnection_ ) {
+                    conn_.close();
+                }
+            }
+        }
+    }
+
+    /**
+     * Collector for parallel insertion, in which each accumulator is
+     * a RowLoader with its own connection.
+     * All the accumulators created are recorded so that they can
+     * be finished and closed by the caller.
+     */
+    private class LoaderCollector extends RowCollector<RowLoader[]> {
+        private final String insert_;
+        final List<RowLoader> loaders_;
+
+        /**
+         * Constructor.
+         *
+         * @param  insert  text of parameterised insert statement
+         */
+        LoaderCollector( String insert ) {
+            insert_ = insert;
+            loaders_ = Collections.synchronizedList( new ArrayList<RowLoader>() );
+        }
+
+        public RowLoader[] createAccumulator() {
+            return new RowLoader[ 1 ];
+        }
+
+        public void accumulateRows( RowSplittable rseq, RowLoader[] acc )
+                throws IOException {
+            try {
+                while ( rseq.next() ) {
+
+                    /* Acquire the connection lazily, since this method
+                     * can report errors and createAccumulator can't. */
+                    if ( acc[ 0 ] == null ) {
+                        Connection conn = connector_.getConnection();
+                        try {
+                            acc[ 0 ] = new RowLoader( conn, true, insert_ );
+                        }
+                        catch ( SQLException e ) {
+                            conn.close();
+                            throw e;
+                        }
+                        loaders_.add( acc[ 0 ] );
+                    }
+                    acc[ 0 ].addRow( rseq.getRow() );
+                }
+            }
+            catch ( SQLException e ) {
+                throw (IOException)
+                      new IOException( "SQL error: " + e.getMessage() )
+                     .initCause( e );
+            }
+        }
+
+        public RowLoader[] combine( RowLoader[] acc1, RowLoader[] acc2 ) {
+            return acc1;
+        }
+    }
+
     /**
      * Describes a column as it will be written to a table in an RDBMS.
      */
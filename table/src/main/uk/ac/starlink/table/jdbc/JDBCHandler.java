@@ -11,12 +11,17 @@ import java.util.logging.Logger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import uk.ac.starlink.table.StarTable;
+import uk.ac.starlink.util.ConfigMethod;
 
 public class JDBCHandler {
 
     private JDBCAuthenticator auth;
     private String user;
     private String passwd;
+    private int batchSize = 1;
+    private int commitInterval;
+    private int nconn = 1;
+    private String partitionKey;
 
     private static final Logger logger_ =
         Logger.getLogger( "uk.ac.starlink.table.jdbc" );
@@ -37,6 +42,10 @@ public class JDBCHandler {
      */
     public JDBCHandler( JDBCHandler jh ) {
         this( jh.auth );
+        batchSize = jh.batchSize;
+        commitInterval = jh.commitInterval;
+        nconn = jh.nconn;
+        partitionKey = jh.partitionKey;
     }
 
     public JDBCAuthenticator getAuthenticator() {
@@ -48,6 +57,138 @@ public class JDBCHandler {
         this.auth = auth;
     }
 
+    /**
+     * Sets the number of rows sent in each batch update when
+     * writing tables to the database.
+     *
+     * @param  batchSize  rows per batch; 1 means no batching
+     * @see  JDBCFormatter#setBatchSize
+     */
+    @ConfigMethod(
+        property = "batch",
+        doc = "<p>Number of rows sent to the database in each "
+            + "JDBC batch update when writing a table. "
+            + "The default value of 1 inserts rows one at a time, "
+            + "which can be very slow for large tables; "
+            + "values of a few hundred or thousand are usually "
+            + "much faster.</p>",
+        example = "1000",
+        sequence = 1
+    )
+    public void setBatchSize( int batchSize ) {
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Returns the number of rows sent in each batch update when
+     * writing tables to the database.
+     *
+     * @return  rows per batch
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Sets the number of batches written between commits when
+     * writing tables to the database.
+     *
+     * @param  commitInterval  batches per transaction,
+     *                         or 0 for connection default behaviour
+     * @see  JDBCFormatter#setCommitInterval
+     */
+    @ConfigMethod(
+        property = "commit",
+        doc = "<p>Number of batches written between transaction commits "
+            + "when writing a table. "
+            + "If positive, auto-commit is switched off during the write "
+            + "and a commit is issued after every given number of batches. "
+            + "If zero, the connection's default transaction behaviour "
+            + "(usually auto-commit) is used.</p>",
+        example = "10",
+        sequence = 2
+    )
+    public void setCommitInterval( int commitInterval ) {
+        this.commitInterval = commitInterval;
+    }
+
+    /**
+     * Returns the number of batches written between commits when
+     * writing tables to the database.
+     *
+     * @return  batches per transaction, or 0
+     */
+    public int getCommitInterval() {
+        return commitInterval;
+    }
+
+    /**
+     * Sets the maximum number of database connections used concurrently
+     * when writing tables to the database.
+     *
+     * @param  nconn  maximum connection count
+     * @see  JDBCFormatter#setParallelConnections
+     */
+    @ConfigMethod(
+        property = "nconn",
+        doc = "<p>Maximum number of database connections used "
+            + "to write table rows in parallel. "
+            + "If greater than 1, and the input table supports it, "
+            + "disjoint ranges of rows are inserted concurrently "
+            + "over separate connections. "
+            + "In this case rows will not in general be inserted in their "
+            + "original order.</p>",
+        example = "4",
+        sequence = 3
+    )
+    public void setConnectionCount( int nconn ) {
+        this.nconn = nconn;
+    }
+
+    /**
+     * Returns the maximum number of database connections used concurrently
+     * when writing tables to the database.
+     *
+     * @return  maximum connection count
+     */
+    public int getConnectionCount() {
+        return nconn;
+    }
+
+    /**
+     * Sets a partitioning key expression to be applied to tables
+     * read by this handler, so that they can be read in parallel.
+     *
+     * @param  partitionKey  SQL key expression, or null for no partitioning
+     * @see  JDBCStarTable#setPartitionKey
+     */
+    @ConfigMethod(
+        property = "partitionKey",
+        doc = "<p>SQL expression used to partition the rows of tables "
+            + "read by this handler, so that they can be read in parallel "
+            + "over separate connections. "
+            + "This is typically the name of an indexed numeric column "
+            + "in the query result; "
+            + "performance is best if its values are fairly evenly "
+            + "distributed. "
+            + "If not set, tables are read sequentially.</p>",
+        example = "id",
+        sequence = 4
+    )
+    public void setPartitionKey( String partitionKey ) {
+        this.partitionKey = partitionKey;
+    }
+
+    /**
+     * Returns the partitioning key expression applied to tables
+     * read by this handler.
+     *
+     * @return  SQL key expression, or null
+     */
+    public String getPartitionKey() {
+        return partitionKey;
+    }
+
     public StarTable makeStarTable( String spec, boolean wantRandom )
             throws IOException {
 
@@ -90,7 +231,7 @@ public class JDBCHandler {
                 }
             };
             try {
-                return new JDBCStarTable( connector, frag, wantRandom );
+                return createTable( connector, frag, wantRandom );
             }
 
             /* The open may fail if we've asked for a random one due to 
@@ -98,7 +239,7 @@ public class JDBCHandler {
              * one instead. */
             catch ( SQLException e ) {
                 if ( wantRandom ) {
-                    return new JDBCStarTable( connector, frag, false );
+                    return createTable( connector, frag, false );
                 }
                 else {
                     throw e;
@@ -142,20 +283,53 @@ public class JDBCHandler {
                 "Bad JDBC specification, should be \"jdbc:...#table-name\"" );
         }
         String frag = spec.substring( hashPos + 1 );
-        String url = spec.substring( 0, hashPos );
+        final String url = spec.substring( 0, hashPos );
 
         /* Try to get a connection using the URL. */
         Connection conn = getConnection( url );
  
         /* And write the data to the table. */
         try {
-            new JDBCFormatter( conn, startab ).createJDBCTable( frag, mode );
+            JDBCFormatter formatter = new JDBCFormatter( conn, startab );
+            formatter.setBatchSize( batchSize );
+            formatter.setCommitInterval( commitInterval );
+            if ( nconn > 1 ) {
+
+                /* Additional connections use the same credentials as
+                 * the first one, without re-authenticating. */
+                Connector connector = new Connector() {
+                    public Connection getConnection() throws SQLException {
+                        return user == null
+                             ? DriverManager.getConnection( url )
+                             : DriverManager.getConnection( url, user,
+                                                            passwd );
+                    }
+                };
+                formatter.setParallelConnections( connector, nconn );
+            }
+            formatter.createJDBCTable( frag, mode );
         }
         finally {
             conn.close();
         }
     }
 
+    /**
+     * Constructs a JDBCStarTable with this handler's configuration.
+     *
+     * @param  connx  connection source
+     * @param  sql   query text
+     * @param  isRandom  whether random access is required
+     * @return  new table
+     */
+    private JDBCStarTable createTable( Connector connx, String sql,
+                                       boolean isRandom )
+            throws SQLException {
+        JDBCStarTable table = new JDBCStarTable( connx, sql, isRandom );
+        table.setPartitionKey( partitionKey );
+        return table;
+    }
+
     private Connection getConnection( String url )
             throws IOException, SQLException {
 
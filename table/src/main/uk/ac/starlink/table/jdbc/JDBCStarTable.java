@@ -6,6 +6,7 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.List;
+import java.util.function.LongSupplier;
 import java.util.logging.Logger;
 import uk.ac.starlink.table.AbstractStarTable;
 import uk.ac.starlink.table.ColumnInfo;
@@ -13,12 +14,19 @@ import uk.ac.starlink.table.DefaultValueInfo;
 import uk.ac.starlink.table.DescribedValue;
 import uk.ac.starlink.table.RowAccess;
 import uk.ac.starlink.table.RowSequence;
+import uk.ac.starlink.table.RowSplittable;
 import uk.ac.starlink.table.ValueInfo;
 import uk.ac.starlink.table.WrapperRowSequence;
 
 /**
  * A StarTable implementation based on the results of an SQL query 
  * on a JDBC table.
+ *
+ * <p>If a {@link #setPartitionKey partition key} is configured,
+ * the {@link #getRowSplittable} method returns an object which can be
+ * split for parallel processing.  Each split part reads the rows
+ * for a sub-range of the key values, using its own range-restricted
+ * query on its own connection.
  */
 public class JDBCStarTable extends AbstractStarTable {
 
@@ -33,6 +41,9 @@ public class JDBCStarTable extends AbstractStarTable {
      */
     private StarResultSet randomSet_;
 
+    private String partitionKey_;
+    private KeyRange keyRange_;
+
     /* Parameters. */
     private final static ValueInfo SQL_INFO =
         new DefaultValueInfo( "SQL", String.class, "SQL query text" );
@@ -40,6 +51,9 @@ public class JDBCStarTable extends AbstractStarTable {
     private static Logger logger_ =
         Logger.getLogger( "uk.ac.starlink.table.jdbc" );
 
+    /** Table alias used for the subquery in partition queries. */
+    private static final String PARTITION_ALIAS = "partitioned_query";
+
     /**
      * Constructs a StarTable representing the data returned by an
      * SQL query using a JDBC connections from a given source, 
@@ -225,12 +239,72 @@ public class JDBCStarTable extends AbstractStarTable {
     }
 
     public RowSequence getRowSequence() throws IOException {
+        return createQuerySequence( sql_ );
+    }
+
+    /**
+     * Sets an expression which can be used to partition the rows of this
+     * table for parallel processing.
+     * This is typically the name of an integer-valued indexed column
+     * in the query result, but it may be any numeric SQL expression
+     * in terms of the result columns.
+     * Partition boundaries are integers, but non-integer key values
+     * are permitted.
+     * Performance is best if the values are fairly evenly distributed.
+     * Rows with a null key value are included in the first partition.
+     *
+     * <p>If set, {@link #getRowSplittable} splits the key range into
+     * sub-ranges, each read using a query of the form
+     * <code>SELECT * FROM (<em>sql</em>) WHERE <em>key</em> &gt;= ...</code>
+     * over a separate connection.
+     * Row order in the split parts therefore follows key order rather
+     * than the order of the original query.
+     *
+     * @param  keyExpr  SQL expression for partitioning key,
+     *                  or null for no partitioning
+     */
+    public synchronized void setPartitionKey( String keyExpr ) {
+        partitionKey_ = keyExpr;
+        keyRange_ = null;
+    }
+
+    /**
+     * Returns the expression used to partition this table's rows
+     * for parallel processing.
+     *
+     * @return  SQL expression for partitioning key, or null
+     */
+    public String getPartitionKey() {
+        return partitionKey_;
+    }
+
+    @Override
+    public RowSplittable getRowSplittable() throws IOException {
+        String key = partitionKey_;
+        KeyRange range = key == null ? null : getKeyRange( key );
+        if ( range == null ) {
+            return super.getRowSplittable();
+        }
+        else {
+            return new PartitionRowSplittable( key, range, range.lo_,
+                                               range.hi_, true );
+        }
+    }
+
+    /**
+     * Returns a row sequence based on a given query.
+     * A new connection is used, which is closed when the sequence is closed.
+     *
+     * @param  sql  query text
+     * @return  row sequence
+     */
+    private RowSequence createQuerySequence( String sql ) throws IOException {
         final StarResultSet srset;
         Connection conn = null;
         try {
             conn = connx_.getConnection();
             Statement stmt = JDBCUtils.createStreamingStatement( conn, false );
-            srset = new StarResultSet( stmt.executeQuery( sql_ ) );
+            srset = new StarResultSet( stmt.executeQuery( sql ) );
             checkConsistent( srset );
         }
         catch ( SQLException e ) {
@@ -308,6 +382,79 @@ public class JDBCStarTable extends AbstractStarTable {
                    .executeQuery( sql );
     }
 
+    /**
+     * Returns the range of values taken by a partitioning key expression.
+     * The result is cached.
+     *
+     * @param  key  key expression
+     * @return  key range, or null if there are no non-null key values
+     */
+    private synchronized KeyRange getKeyRange( String key )
+            throws IOException {
+        if ( keyRange_ == null || ! key.equals( keyRange_.key_ ) ) {
+            String sql = new StringBuffer()
+               .append( "SELECT COUNT(*), MIN(" )
+               .append( key )
+               .append( "), MAX(" )
+               .append( key )
+               .append( ") FROM (" )
+               .append( sql_ )
+               .append( ") " )
+               .append( PARTITION_ALIAS )
+               .toString();
+            logger_.info( sql );
+            try ( Connection conn = connx_.getConnection();
+                  Statement stmt = conn.createStatement();
+                  ResultSet rset = stmt.executeQuery( sql ) ) {
+                if ( ! rset.next() ) {
+                    throw new IOException( "No result from " + sql );
+                }
+                long count = rset.getLong( 1 );
+                Object min = rset.getObject( 2 );
+                Object max = rset.getObject( 3 );
+                final long lo;
+                final long hi;
+                if ( min instanceof Number && max instanceof Number ) {
+                    lo = floorLong( (Number) min );
+                    long fmax = floorLong( (Number) max );
+                    hi = fmax < Long.MAX_VALUE ? fmax + 1 : fmax;
+                }
+                else {
+                    lo = 0;
+                    hi = 0;
+                }
+                keyRange_ = new KeyRange( key, count, lo, hi );
+                if ( ! ( min instanceof Number && max instanceof Number ) ) {
+                    logger_.warning( "No numeric values for partition key "
+                                   + key );
+                }
+            }
+            catch ( SQLException e ) {
+                throw new IOException( "Partition query failed: "
+                                     + e.getMessage(), e );
+            }
+        }
+        return keyRange_.hi_ > keyRange_.lo_ ? keyRange_ : null;
+    }
+
+    /**
+     * Returns the largest long value not greater than a given number.
+     * Integral values are used exactly; others are rounded down,
+     * saturating at the limits of the long range.
+     *
+     * @param  num  numeric value
+     * @return  floor of num as a long
+     */
+    private static long floorLong( Number num ) {
+        if ( num instanceof Long || num instanceof Integer ||
+             num instanceof Short || num instanceof Byte ) {
+            return num.longValue();
+        }
+        else {
+            return (long) Math.floor( num.doubleValue() );
+        }
+    }
+
     /**
      * Ensures that a given result set is consistent with the configuration
      * that this table thinks it has.  If not, an IllegalStateException
@@ -325,4 +472,156 @@ public class JDBCStarTable extends AbstractStarTable {
                 "ResultSet column count has changed" );
         }
     }
+
+    /**
+     * Records the extent of a partitioning key.
+     */
+    private static class KeyRange {
+        final String key_;
+        final long count_;
+        final long lo_;
+        final long hi_;
+
+        /**
+         * Constructor.
+         *
+         * @param  key  key expression
+         * @param  count  total number of rows in table
+         * @param  lo   lower bound of key values (inclusive)
+         * @param  hi   upper bound of key values (exclusive)
+         */
+        KeyRange( String key, long count, long lo, long hi ) {
+            key_ = key;
+            count_ = count;
+            lo_ = lo;
+            hi_ = hi;
+        }
+    }
+
+    /**
+     * RowSplittable that reads the rows for a range of partitioning
+     * key values, and which can be split by subdividing that range.
+     * No connection is made until the first row is requested.
+     */
+    private class PartitionRowSplittable implements RowSplittable {
+        private final String key_;
+        private final KeyRange range_;
+        private long lo_;
+        private long hi_;
+        private boolean includeNull_;
+        private RowSequence rseq_;
+
+        /**
+         * Constructor.
+         *
+         * @param  key  partitioning key expression
+         * @param  range  full key range for the table
+         * @param  lo   lower bound of key values for this object (inclusive)
+         * @param  hi   upper bound of key values for this object (exclusive)
+         * @param  includeNull  whether rows with null keys are included
+         */
+        PartitionRowSplittable( String key, KeyRange range, long lo, long hi,
+                                boolean includeNull ) {
+            key_ = key;
+            range_ = range;
+            lo_ = lo;
+            hi_ = hi;
+            includeNull_ = includeNull;
+        }
+
+        public PartitionRowSplittable split() {
+            long mid = ( lo_ >> 1 ) + ( hi_ >> 1 ) + ( lo_ & hi_ & 1 );
+            if ( rseq_ == null && mid > lo_ && mid < hi_ ) {
+                PartitionRowSplittable split =
+                    new PartitionRowSplittable( key_, range_, lo_, mid,
+                                                includeNull_ );
+                lo_ = mid;
+                includeNull_ = false;
+                return split;
+            }
+            else {
+                return null;
+            }
+        }
+
+        public long splittableSize() {
+            double frac = (double) ( hi_ - lo_ )
+                        / (double) ( range_.hi_ - range_.lo_ );
+            return (long) Math.ceil( frac * range_.count_ );
+        }
+
+        public LongSupplier rowIndex() {
+            return null;
+        }
+
+        public boolean next() throws IOException {
+            if ( rseq_ == null ) {
+                rseq_ = createQuerySequence( getRangeQuery() );
+            }
+            return rseq_.next();
+        }
+
+        public Object getCell( int icol ) throws IOException {
+            return rseq_.getCell( icol );
+        }
+
+        public Object[] getRow() throws IOException {
+            return rseq_.getRow();
+        }
+
+        public void close() throws IOException {
+            if ( rseq_ != null ) {
+                rseq_.close();
+            }
+        }
+
+        /**
+         * Returns the text of the query selecting the rows in this
+         * object's key range.
+         * The first and last partitions are left unbounded below and
+         * above respectively, so that no rows are lost to rounding
+         * of the key range limits.
+         *
+         * @return  SQL query text
+         */
+        private String getRangeQuery() {
+            boolean hasLo = lo_ > range_.lo_;
+            boolean hasHi = hi_ < range_.hi_;
+            StringBuffer sbuf = new StringBuffer()
+               .append( "SELECT * FROM (" )
+               .append( sql_ )
+               .append( ") " )
+               .append( PARTITION_ALIAS );
+            if ( hasLo || hasHi ) {
+                sbuf.append( " WHERE (" );
+                if ( hasLo ) {
+                    sbuf.append( key_ )
+                        .append( " >= " )
+                        .append( lo_ );
+                }
+                if ( hasLo && hasHi ) {
+                    sbuf.append( " AND " );
+                }
+                if ( hasHi ) {
+                    sbuf.append( key_ )
+                        .append( " < " )
+                        .append( hi_ );
+                }
+                sbuf.append( ")" );
+                if ( includeNull_ ) {
+                    sbuf.append( " OR " )
+                        .append( key_ )
+                        .append( " IS NULL" );
+                }
+            }
+            else if ( ! includeNull_ ) {
+                sbuf.append( " WHERE " )
+                    .append( key_ )
+                    .append( " IS NOT NULL" );
+            }
+            String sql = sbuf.toString();
+            logger_.config( sql );
+            return sql;
+        }
+    }
 }
@@ -66,6 +66,13 @@ abstract class ByteStoreColumnReader implements ColumnReader {
         return codec_.decodeBoolean( access_ );
     }
 
+    @Override
+    public double[] getDoubleArrayValue( long ix, double[] buf )
+            throws IOException {
+        seek( ix );
+        return codec_.decodeDoubleArray( access_, buf );
+    }
+
     /**
      * Positions the ByteStoreAccess ready to read an object from a given
      * offset.
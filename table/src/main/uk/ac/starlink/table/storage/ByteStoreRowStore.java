@@ -1,7 +1,11 @@
 package uk.ac.starlink.table.storage;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
 import java.util.logging.Logger;
 import uk.ac.starlink.table.ByteStore;
 import uk.ac.starlink.table.ColumnInfo;
@@ -23,6 +27,8 @@ import uk.ac.starlink.util.IntList;
  * Therefore it may not cope with tables containing exotic objects.
  * The actual storage destination is controlled by the 
  * {@link uk.ac.starlink.table.ByteStore} implementation used.
+ * If it is a {@link CompressedByteStore}, the stored data is read
+ * back block by block without being expanded in full.
  *
  * @author   Mark Taylor
  * @since    5 Nov 2009
@@ -132,16 +138,29 @@ public class ByteStoreRowStore implements RowStore {
                       + ( offsets_.isFixed() ? "fixed" : "variable" ) );
 
         /* Create a new StarTable instance based on the data we've cached. */
-        ByteBuffer[] bbufs = byteStore_.toByteBuffers();
-        long nbyte = 0;
-        for ( int ib = 0; ib < bbufs.length; ib++ ) {
-            nbyte += bbufs[ ib ].limit();
+        final Supplier<ByteStoreAccess> accessSupplier;
+        if ( byteStore_ instanceof CompressedByteStore ) {
+            CompressedByteStore cstore = (CompressedByteStore) byteStore_;
+            accessSupplier = cstore.getAccessSupplier();
+            logger_.config( nrow_ + " rows stored in " + cstore.getLength()
+                          + " bytes, compressed to "
+                          + cstore.getCompressedLength() );
+        }
+        else {
+            final ByteBuffer[] bbufs = byteStore_.toByteBuffers();
+            long nbyte = 0;
+            for ( int ib = 0; ib < bbufs.length; ib++ ) {
+                nbyte += bbufs[ ib ].limit();
+            }
+            logger_.config( nrow_ + " rows stored in " + nbyte + " bytes" );
+            accessSupplier = () -> NioByteStoreAccess
+                  .createAccess( NioByteStoreAccess.copyBuffers( bbufs ) );
         }
-        logger_.config( nrow_ + " rows stored in " + nbyte + " bytes" );
         storedTable_ = new ByteStoreStarTable( template_, nrow_, codecs_,
-                                               offsets_, bbufs ) {
+                                               offsets_, accessSupplier ) {
             @Override
             public void close() throws IOException {
+                closeLocalAccesses();
                 byteStore_.close();
             }
         };
@@ -175,8 +194,9 @@ public class ByteStoreRowStore implements RowStore {
      * StarTable implementation based on a ByteBuffer.
      */
     private static class ByteStoreStarTable extends WrapperStarTable {
-        private final ByteBuffer[] bbufs_;
-        private final ThreadLocal<ByteStoreAccess> accessLocal_;
+        private final Supplier<ByteStoreAccess> accessSupplier_;
+        private final List<ByteStoreAccess> localAccesses_;
+        private volatile ThreadLocal<ByteStoreAccess> accessLocal_;
         private final long nrow_;
         private final int ncol_;
         private final Codec[] codecs_;
@@ -189,22 +209,19 @@ public class ByteStoreRowStore implements RowStore {
          * @param  nrow    row count
          * @param  codecs  per-column de/serializer array
          * @param  offsets  information about row offsets into the byte store
-         * @param  access  byte store reader
-         * @param  bbufs   buffers holding byte data
+         * @param  accessSupplier  supplier of readers for the byte data
          */
         ByteStoreStarTable( StarTable template, long nrow, Codec[] codecs,
-                            Offsets offsets, ByteBuffer[] bbufs ) {
+                            Offsets offsets,
+                            Supplier<ByteStoreAccess> accessSupplier ) {
             super( template );
             nrow_ = nrow;
             ncol_ = template.getColumnCount();
             codecs_ = codecs;
             offsets_ = offsets;
-            bbufs_ = bbufs;
-            accessLocal_ = new ThreadLocal<ByteStoreAccess>() {
-                public ByteStoreAccess initialValue() {
-                    return createAccess();
-                }
-            };
+            accessSupplier_ = accessSupplier;
+            localAccesses_ = new ArrayList<ByteStoreAccess>();
+            accessLocal_ = createAccessLocal();
         }
 
         public boolean isRandom() {
@@ -261,7 +278,18 @@ public class ByteStoreRowStore implements RowStore {
                         throw new IllegalStateException();
                     }
                 }
-                public void close() {
+                public double[] getDoubleArray( int icol, double[] buf )
+                        throws IOException {
+                    if ( irow >= 0 ) {
+                        access.seek( offsets_.getCellOffset( irow, icol ) );
+                        return codecs_[ icol ].decodeDoubleArray( access, buf );
+                    }
+                    else {
+                        throw new IllegalStateException();
+                    }
+                }
+                public void close() throws IOException {
+                    closeAccess( access );
                 }
             };
         }
@@ -289,7 +317,13 @@ public class ByteStoreRowStore implements RowStore {
                     }
                     return row;
                 }
-                public void close() {
+                public double[] getDoubleArray( int icol, double[] buf )
+                        throws IOException {
+                    access.seek( offsets_.getCellOffset( irow_, icol ) );
+                    return codecs_[ icol ].decodeDoubleArray( access, buf );
+                }
+                public void close() throws IOException {
+                    closeAccess( access );
                 }
             };
         }
@@ -301,8 +335,56 @@ public class ByteStoreRowStore implements RowStore {
          * @return  new  ByteStoreAccess
          */
         private ByteStoreAccess createAccess() {
-            return NioByteStoreAccess
-                  .createAccess( NioByteStoreAccess.copyBuffers( bbufs_ ) );
+            return accessSupplier_.get();
+        }
+
+        /**
+         * Returns a thread-local supplying per-thread readers for
+         * random cell access.  Each reader created is recorded
+         * so that it can be released by {@link #closeLocalAccesses}.
+         *
+         * @return  new thread-local
+         */
+        private ThreadLocal<ByteStoreAccess> createAccessLocal() {
+            return new ThreadLocal<ByteStoreAccess>() {
+                public ByteStoreAccess initialValue() {
+                    ByteStoreAccess access = createAccess();
+                    synchronized ( localAccesses_ ) {
+                        localAccesses_.add( access );
+                    }
+                    return access;
+                }
+            };
+        }
+
+        /**
+         * Releases the resources held by the per-thread readers used for
+         * random cell access.  The table remains usable; new readers
+         * will be created as required.
+         */
+        void closeLocalAccesses() throws IOException {
+            accessLocal_ = createAccessLocal();
+            List<ByteStoreAccess> accesses;
+            synchronized ( localAccesses_ ) {
+                accesses = new ArrayList<ByteStoreAccess>( localAccesses_ );
+                localAccesses_.clear();
+            }
+            for ( ByteStoreAccess access : accesses ) {
+                closeAccess( access );
+            }
+        }
+
+        /**
+         * Releases any resources held by a ByteStoreAccess
+         * obtained from this table that will not be used again.
+         *
+         * @param  access  access object
+         */
+        private static void closeAccess( ByteStoreAccess access )
+                throws IOException {
+            if ( access instanceof Closeable ) {
+                ((Closeable) access).close();
+            }
         }
     }
 }
@@ -4,6 +4,7 @@ import java.io.DataOutput;
 import java.io.IOException;
 import java.lang.reflect.Array;
 import java.util.logging.Logger;
+import uk.ac.starlink.table.Tables;
 import uk.ac.starlink.table.ValueInfo;
 
 /**
@@ -144,6 +145,24 @@ public abstract class Codec {
     abstract public boolean decodeBoolean( ByteStoreAccess in )
             throws IOException;
 
+    /**
+     * Deserialises an item from a stream, and presents it as an array
+     * of double precision values if possible.
+     * If the supplied buffer is non-null and has the right number of
+     * elements it is filled and returned, otherwise a new array is returned.
+     * If the item is blank or is not a numeric array, null is returned.
+     * The default implementation calls {@link #decodeObject}.
+     *
+     * @param  in  source stream, positioned at start of item
+     * @param  buf  buffer for result, or null
+     * @return  array of numeric values, or null
+     * @see   uk.ac.starlink.table.RowData#getDoubleArray
+     */
+    public double[] decodeDoubleArray( ByteStoreAccess in, double[] buf )
+            throws IOException {
+        return Tables.toDoubleArray( decodeObject( in ), buf );
+    }
+
     /**
      * Returns the number of bytes a call to <tt>encode</tt> will write.
      * If this value may vary, -1 is returned.
@@ -566,6 +585,22 @@ public abstract class Codec {
             }
         }
 
+        @Override
+        public double[] decodeDoubleArray( ByteStoreAccess in, double[] buf )
+                throws IOException {
+            byte flag = in.readByte();
+            switch ( flag ) {
+                case OK:
+                    return baseCodec_.decodeDoubleArray( in, buf );
+                case BAD:
+                    in.skip( itemSize_ - 1 );
+                    return null;
+                default:
+                    this.warnCorrupt();
+                    return null;
+            }
+        }
+
         public boolean decodeBoolean( ByteStoreAccess in ) throws IOException {
             byte flag = in.readByte();
             switch ( flag ) {
@@ -637,6 +672,14 @@ public abstract class Codec {
             return value;
         }
 
+        @Override
+        public double[] decodeDoubleArray( ByteStoreAccess in, double[] buf )
+                throws IOException {
+            return codec1_ instanceof NumericCodec1
+                 ? ((NumericCodec1) codec1_).decodeDoubles( in, nel_, buf )
+                 : super.decodeDoubleArray( in, buf );
+        }
+
         public int getItemSize() {
             return itemSize_;
         }
@@ -681,6 +724,28 @@ public abstract class Codec {
             }
         }
 
+        @Override
+        public double[] decodeDoubleArray( ByteStoreAccess in, double[] buf )
+                throws IOException {
+            if ( codec1_ instanceof NumericCodec1 ) {
+                int nel = in.readInt();
+                if ( nel < 0 ) {
+                    this.warnCorrupt();
+                    return null;
+                }
+                else if ( nel == 0 ) {
+                    return null;
+                }
+                else {
+                    return ((NumericCodec1) codec1_)
+                          .decodeDoubles( in, nel, buf );
+                }
+            }
+            else {
+                return super.decodeDoubleArray( in, buf );
+            }
+        }
+
         public int getItemSize() {
             return -1;
         }
@@ -850,7 +915,42 @@ public abstract class Codec {
         }
     }
 
-    private static class ByteCodec1 extends Codec1 {
+    /**
+     * Codec1 for numeric primitive elements, which can decode
+     * element values directly as doubles.
+     */
+    private static abstract class NumericCodec1 extends Codec1 {
+
+        /**
+         * Deserializes a single element from a stream as a double.
+         *
+         * @param  in  source stream
+         * @return  element value
+         */
+        abstract double decodeDouble1( ByteStoreAccess in )
+                throws IOException;
+
+        /**
+         * Deserializes a number of elements from a stream into
+         * a double array.
+         *
+         * @param  in  source stream
+         * @param  nel  number of elements
+         * @param  buf  buffer for result, used if it has nel elements
+         * @return  array of element values
+         */
+        double[] decodeDoubles( ByteStoreAccess in, int nel, double[] buf )
+                throws IOException {
+            double[] out = buf != null && buf.length == nel ? buf
+                                                            : new double[ nel ];
+            for ( int i = 0; i < nel; i++ ) {
+                out[ i ] = decodeDouble1( in );
+            }
+            return out;
+        }
+    }
+
+    private static class ByteCodec1 extends NumericCodec1 {
         public void encode1( Object array, int index, DataOutput out )
                 throws IOException {
             out.writeByte( ((byte[]) array)[ index ] );
@@ -859,6 +959,10 @@ public abstract class Codec {
                 throws IOException {
             ((byte[]) array)[ index ] = in.readByte();
         }
+        public double decodeDouble1( ByteStoreAccess in )
+                throws IOException {
+            return in.readByte();
+        }
         public int getItemSize1() {
             return 1;
         }
@@ -867,7 +971,7 @@ public abstract class Codec {
         }
     }
 
-    private static class ShortCodec1 extends Codec1 {
+    private static class ShortCodec1 extends NumericCodec1 {
         public void encode1( Object array, int index, DataOutput out )
                 throws IOException {
             out.writeShort( ((short[]) array)[ index ] );
@@ -876,6 +980,10 @@ public abstract class Codec {
                 throws IOException {
             ((short[]) array)[ index ] = in.readShort();
         }
+        public double decodeDouble1( ByteStoreAccess in )
+                throws IOException {
+            return in.readShort();
+        }
         public int getItemSize1() {
             return 2;
         }
@@ -884,7 +992,7 @@ public abstract class Codec {
         }
     }
 
-    private static class IntCodec1 extends Codec1 {
+    private static class IntCodec1 extends NumericCodec1 {
         public void encode1( Object array, int index, DataOutput out )
                 throws IOException {
             out.writeInt( ((int[]) array)[ index ] );
@@ -893,6 +1001,10 @@ public abstract class Codec {
                 throws IOException {
             ((int[]) array)[ index ] = in.readInt();
         }
+        public double decodeDouble1( ByteStoreAccess in )
+                throws IOException {
+            return in.readInt();
+        }
         public int getItemSize1() {
             return 4;
         }
@@ -901,7 +1013,7 @@ public abstract class Codec {
         }
     }
 
-    private static class LongCodec1 extends Codec1 {
+    private static class LongCodec1 extends NumericCodec1 {
         public void encode1( Object array, int index, DataOutput out )
                 throws IOException {
             out.writeLong( ((long[]) array)[ index ] );
@@ -910,6 +1022,10 @@ public abstract class Codec {
                 throws IOException {
             ((long[]) array)[ index ] = in.readLong();
         }
+        public double decodeDouble1( ByteStoreAccess in )
+                throws IOException {
+            return in.readLong();
+        }
         public int getItemSize1() {
             return 8;
         }
@@ -918,7 +1034,7 @@ public abstract class Codec {
         }
     }
 
-    private static class FloatCodec1 extends Codec1 {
+    private static class FloatCodec1 extends NumericCodec1 {
         public void encode1( Object array, int index, DataOutput out )
                 throws IOException {
             out.writeFloat( ((float[]) array)[ index ] );
@@ -927,6 +1043,10 @@ public abstract class Codec {
                 throws IOException {
             ((float[]) array)[ index ] = in.readFloat();
         }
+        public double decodeDouble1( ByteStoreAccess in )
+                throws IOException {
+            return in.readFloat();
+        }
         public int getItemSize1() {
             return 4;
         }
@@ -935,7 +1055,7 @@ public abstract class Codec {
         }
     }
 
-    private static class DoubleCodec1 extends Codec1 {
+    private static class DoubleCodec1 extends NumericCodec1 {
         public void encode1( Object array, int index, DataOutput out )
                 throws IOException {
             out.writeDouble( ((double[]) array)[ index ] );
@@ -944,6 +1064,10 @@ public abstract class Codec {
                 throws IOException {
             ((double[]) array)[ index ] = in.readDouble();
         }
+        public double decodeDouble1( ByteStoreAccess in )
+                throws IOException {
+            return in.readDouble();
+        }
         public int getItemSize1() {
             return 8;
         }
@@ -1,6 +1,7 @@
 package uk.ac.starlink.table.storage;
 
 import java.io.IOException;
+import uk.ac.starlink.table.Tables;
 
 /**
  * Accessor for stored values.
@@ -78,4 +79,20 @@ public interface ColumnReader {
      * @return   best-efforts boolean value
      */
     boolean getBooleanValue( long ix ) throws IOException;
+
+    /**
+     * Retrieve the value at a given index as an array of double precision
+     * values, in the sense of
+     * {@link uk.ac.starlink.table.RowData#getDoubleArray}.
+     *
+     * <p>The default implementation calls {@link #getObjectValue}.
+     *
+     * @param   ix  value index
+     * @param   buf  buffer for result, or null
+     * @return   array of numeric values, or null
+     */
+    default double[] getDoubleArrayValue( long ix, double[] buf )
+            throws IOException {
+        return Tables.toDoubleArray( getObjectValue( ix ), buf );
+    }
 }
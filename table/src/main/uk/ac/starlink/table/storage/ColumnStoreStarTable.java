@@ -21,6 +21,7 @@ public class ColumnStoreStarTable extends WrapperStarTable {
     private final int ncol_;
     private final ColumnStore[] colStores_;
     private final ThreadLocal<ColumnReader>[] colReaders_;
+    private final boolean[] isNumeric_;
 
     /**
      * Constructor.
@@ -36,6 +37,12 @@ public class ColumnStoreStarTable extends WrapperStarTable {
         nrow_ = nrow;
         ncol_ = template.getColumnCount();
         colStores_ = colStores;
+        isNumeric_ = new boolean[ ncol_ ];
+        for ( int ic = 0; ic < ncol_; ic++ ) {
+            isNumeric_[ ic ] =
+                isPrimitiveNumber( template.getColumnInfo( ic )
+                                           .getContentClass() );
+        }
 
         /* Prepare ThreadLocals to service the thread-safe table
          * random access methods. */
@@ -104,6 +111,25 @@ public class ColumnStoreStarTable extends WrapperStarTable {
                     throw new IllegalStateException();
                 }
             }
+            public double getDouble( int icol ) throws IOException {
+                return isNumeric_[ icol ]
+                     ? readers[ icol ].getDoubleValue( irow )
+                     : RowSequence.super.getDouble( icol );
+            }
+            public long getLong( int icol ) throws IOException {
+                return isNumeric_[ icol ]
+                     ? readers[ icol ].getLongValue( irow )
+                     : RowSequence.super.getLong( icol );
+            }
+            public boolean isNull( int icol ) throws IOException {
+                return isNumeric_[ icol ]
+                     ? Double.isNaN( readers[ icol ].getDoubleValue( irow ) )
+                     : RowSequence.super.isNull( icol );
+            }
+            public double[] getDoubleArray( int icol, double[] buf )
+                    throws IOException {
+                return readers[ icol ].getDoubleArrayValue( irow, buf );
+            }
             public void close() {
             }
         };
@@ -133,8 +159,45 @@ public class ColumnStoreStarTable extends WrapperStarTable {
                 }
                 return row;
             }
+            public double getDouble( int icol ) throws IOException {
+                return isNumeric_[ icol ]
+                     ? readers[ icol ].getDoubleValue( irow_ )
+                     : RowAccess.super.getDouble( icol );
+            }
+            public long getLong( int icol ) throws IOException {
+                return isNumeric_[ icol ]
+                     ? readers[ icol ].getLongValue( irow_ )
+                     : RowAccess.super.getLong( icol );
+            }
+            public boolean isNull( int icol ) throws IOException {
+                return isNumeric_[ icol ]
+                     ? Double.isNaN( readers[ icol ].getDoubleValue( irow_ ) )
+                     : RowAccess.super.isNull( icol );
+            }
+            public double[] getDoubleArray( int icol, double[] buf )
+                    throws IOException {
+                return readers[ icol ].getDoubleArrayValue( irow_, buf );
+            }
             public void close() {
             }
         };
     }
+
+    /**
+     * Indicates whether a given class is one of the wrapper classes
+     * for primitive numeric values.  Column readers for these types
+     * can supply their values without object creation,
+     * and represent blank values as NaN in their floating point form.
+     *
+     * @param  clazz  content class
+     * @return   true iff clazz is a wrapper for a numeric primitive type
+     */
+    private static boolean isPrimitiveNumber( Class<?> clazz ) {
+        return clazz == Byte.class
+            || clazz == Short.class
+            || clazz == Integer.class
+            || clazz == Long.class
+            || clazz == Float.class
+            || clazz == Double.class;
+    }
 }
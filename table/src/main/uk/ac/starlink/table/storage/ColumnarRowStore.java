@@ -0,0 +1,81 @@
+package uk.ac.starlink.table.storage;
+
+import java.io.IOException;
+import uk.ac.starlink.table.ColumnInfo;
+import uk.ac.starlink.table.RowStore;
+import uk.ac.starlink.table.StarTable;
+
+/**
+ * RowStore implementation which stores data in memory in a
+ * column-oriented fashion, using {@link MemoryColumnStore}s.
+ * Scalar numeric columns are held in primitive arrays
+ * and strings in a shared byte heap, which typically uses
+ * several times less memory than {@link ListRowStore}
+ * and creates far fewer objects for the garbage collector to manage.
+ * Values of types without a compact representation are stored as objects,
+ * so any StarTable can be stored
+ * ({@link #acceptMetadata} will not throw a
+ * <code>TableFormatException</code>).
+ *
+ * @author   Mark Taylor
+ * @since    17 Oct 2026
+ */
+public class ColumnarRowStore implements RowStore {
+
+    private StarTable template_;
+    private int ncol_;
+    private long nrow_;
+    private MemoryColumnStore[] colStores_;
+    private StarTable storedTable_;
+
+    public void acceptMetadata( StarTable meta ) {
+        if ( template_ != null ) {
+            throw new IllegalStateException( "Metadata already submitted" );
+        }
+        template_ = meta;
+        ncol_ = meta.getColumnCount();
+        colStores_ = new MemoryColumnStore[ ncol_ ];
+        for ( int icol = 0; icol < ncol_; icol++ ) {
+            ColumnInfo info = meta.getColumnInfo( icol );
+            colStores_[ icol ] = MemoryColumnStore.createColumnStore( info );
+        }
+    }
+
+    /**
+     * Accepts a row.
+     *
+     * @throws   OutOfMemoryError  if it's run out of memory
+     */
+    public void acceptRow( Object[] row ) throws IOException {
+        if ( template_ == null ) {
+            throw new IllegalStateException( "acceptMetadata not called" );
+        }
+        if ( storedTable_ != null ) {
+            throw new IllegalStateException( "endRows already called" );
+        }
+        for ( int icol = 0; icol < ncol_; icol++ ) {
+            colStores_[ icol ].acceptCell( row[ icol ] );
+        }
+        nrow_++;
+    }
+
+    public void endRows() {
+        if ( template_ == null ) {
+            throw new IllegalStateException( "acceptMetadata not called" );
+        }
+        if ( storedTable_ != null ) {
+            throw new IllegalStateException( "endRows already called" );
+        }
+        for ( int icol = 0; icol < ncol_; icol++ ) {
+            colStores_[ icol ].endCells();
+        }
+        storedTable_ = new ColumnStoreStarTable( template_, nrow_, colStores_ );
+    }
+
+    public StarTable getStarTable() {
+        if ( storedTable_ == null ) {
+            throw new IllegalStateException( "endRows not called" );
+        }
+        return storedTable_;
+    }
+}
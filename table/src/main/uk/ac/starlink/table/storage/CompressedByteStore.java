@@ -0,0 +1,450 @@
+package uk.ac.starlink.table.storage;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import uk.ac.starlink.table.ByteStore;
+import uk.ac.starlink.util.LongList;
+
+/**
+ * ByteStore which compresses the data written to it before
+ * passing it on to another ByteStore.
+ * Bytes are compressed in fixed-size blocks, each of which can be
+ * decompressed independently, and an in-memory index of the block
+ * positions is kept.  This means that the stored data can be read
+ * randomly by a {@link ByteStoreAccess} obtained from
+ * {@link #getAccessSupplier} at the cost of decompressing one block
+ * for each non-local seek.
+ * Compression uses the Deflate algorithm at its fastest setting;
+ * blocks that do not compress are stored verbatim.
+ *
+ * <p>Data must all be written before any is read back;
+ * once any of the read methods has been called, or the output stream
+ * has been closed, no more data may be written.
+ * The {@link #getLength} method reports the uncompressed byte count.
+ *
+ * @author   Mark Taylor
+ * @since    17 Oct 2026
+ */
+public class CompressedByteStore implements ByteStore {
+
+    private final ByteStore baseStore_;
+    private final int blockSize_;
+    private final OutputStream baseOut_;
+    private final BlockOutputStream out_;
+    private final byte[] blockBuf_;
+    private final Deflater deflater_;
+    private final LongList blockOffsets_;
+    private byte[] compBuf_;
+    private int nbuf_;
+    private long length_;
+    private long compLength_;
+    private long[] offsetArray_;
+    private ByteBuffer[] baseBufs_;
+    private ByteStore expandedStore_;
+
+    /** Default uncompressed block size in bytes. */
+    public static final int DFLT_BLOCK_SIZE = 64 * 1024;
+
+    private static final Logger logger_ =
+        Logger.getLogger( "uk.ac.starlink.table.storage" );
+
+    /**
+     * Constructs a store with the default block size.
+     *
+     * @param  baseStore  store to hold the compressed bytes
+     */
+    public CompressedByteStore( ByteStore baseStore ) {
+        this( baseStore, DFLT_BLOCK_SIZE );
+    }
+
+    /**
+     * Constructs a store with a given block size.
+     *
+     * @param  baseStore  store to hold the compressed bytes
+     * @param  blockSize  number of uncompressed bytes in each block
+     */
+    public CompressedByteStore( ByteStore baseStore, int blockSize ) {
+        if ( blockSize <= 0 ) {
+            throw new IllegalArgumentException( "Bad block size "
+                                              + blockSize );
+        }
+        baseStore_ = baseStore;
+        blockSize_ = blockSize;
+        baseOut_ = baseStore.getOutputStream();
+        out_ = new BlockOutputStream();
+        blockBuf_ = new byte[ blockSize ];
+        compBuf_ = new byte[ blockSize ];
+        deflater_ = new Deflater( Deflater.BEST_SPEED );
+        blockOffsets_ = new LongList();
+        blockOffsets_.add( 0L );
+    }
+
+    /**
+     * Returns the store holding the compressed data.
+     *
+     * @return  base store
+     */
+    public ByteStore getBaseStore() {
+        return baseStore_;
+    }
+
+    public OutputStream getOutputStream() {
+        return out_;
+    }
+
+    public long getLength() {
+        return length_;
+    }
+
+    /**
+     * Returns the number of compressed bytes written so far to the
+     * base store.  Bytes written to the output stream but not yet
+     * compressed are not included.
+     *
+     * @return  compressed byte count
+     */
+    public long getCompressedLength() {
+        return compLength_;
+    }
+
+    public void copy( OutputStream out ) throws IOException {
+        finish();
+        byte[] buf = new byte[ blockSize_ ];
+        try ( BlockAccess access = createAccess( getBaseBuffers() ) ) {
+            for ( long pos = 0; pos < length_; pos += blockSize_ ) {
+                int n = (int) Math.min( blockSize_, length_ - pos );
+                access.readBytes( buf, 0, n );
+                out.write( buf, 0, n );
+            }
+        }
+    }
+
+    /**
+     * Returns the uncompressed content of this store.
+     * Since the ByteStore contract requires the whole content to be
+     * available as buffers, this involves expanding all the data
+     * into a new temporary store, which may be expensive;
+     * random access to the data is better obtained using
+     * {@link #getAccessSupplier}.
+     */
+    public ByteBuffer[] toByteBuffers() throws IOException {
+        finish();
+        if ( expandedStore_ == null ) {
+            logger_.info( "Expanding " + compLength_ + " compressed bytes"
+                        + " to " + length_ );
+            ByteStore store = new AdaptiveByteStore();
+            OutputStream out = store.getOutputStream();
+            copy( out );
+            out.flush();
+            expandedStore_ = store;
+        }
+        return expandedStore_.toByteBuffers();
+    }
+
+    /**
+     * Returns an object that can supply random access readers for the
+     * uncompressed data in this store.
+     * Each reader is independent, so that one may be used
+     * by each thread.  After this call no more data may be written.
+     *
+     * <p>The supplied readers implement {@link java.io.Closeable};
+     * closing a reader when it is no longer required releases
+     * the native resources it holds for decompression.
+     *
+     * @return  supplier of readers for the stored data
+     */
+    public Supplier<ByteStoreAccess> getAccessSupplier() throws IOException {
+        finish();
+        final ByteBuffer[] baseBufs = getBaseBuffers();
+        return () -> createAccess( baseBufs );
+    }
+
+    public void close() {
+        baseStore_.close();
+        if ( expandedStore_ != null ) {
+            expandedStore_.close();
+            expandedStore_ = null;
+        }
+        deflater_.end();
+    }
+
+    /**
+     * Writes any buffered data as a final block and prevents any
+     * further writes.  Calling this method more than once has no
+     * additional effect.
+     */
+    private void finish() throws IOException {
+        if ( offsetArray_ == null ) {
+            if ( nbuf_ > 0 ) {
+                writeBlock();
+            }
+            baseOut_.flush();
+            offsetArray_ = blockOffsets_.toLongArray();
+        }
+    }
+
+    /**
+     * Compresses and writes the current contents of the block buffer
+     * to the base stream, and records its position in the block index.
+     */
+    private void writeBlock() throws IOException {
+        deflater_.reset();
+        deflater_.setInput( blockBuf_, 0, nbuf_ );
+        deflater_.finish();
+        int ncomp = 0;
+        while ( ! deflater_.finished() && ncomp < nbuf_ ) {
+            ncomp += deflater_.deflate( compBuf_, ncomp,
+                                        compBuf_.length - ncomp );
+        }
+
+        /* Store the block uncompressed if compression didn't help.
+         * The reader can tell which it is from the block length. */
+        if ( deflater_.finished() && ncomp < nbuf_ ) {
+            baseOut_.write( compBuf_, 0, ncomp );
+        }
+        else {
+            ncomp = nbuf_;
+            baseOut_.write( blockBuf_, 0, nbuf_ );
+        }
+        compLength_ += ncomp;
+        blockOffsets_.add( compLength_ );
+        nbuf_ = 0;
+    }
+
+    /**
+     * Returns buffers containing the compressed data.
+     *
+     * @return  base store content
+     */
+    private ByteBuffer[] getBaseBuffers() throws IOException {
+        if ( baseBufs_ == null ) {
+            baseBufs_ = baseStore_.toByteBuffers();
+        }
+        return baseBufs_;
+    }
+
+    /**
+     * Returns a new reader for the uncompressed data.
+     *
+     * @param  baseBufs  buffers containing compressed data
+     * @return  new reader
+     */
+    private BlockAccess createAccess( ByteBuffer[] baseBufs ) {
+        return new BlockAccess( NioByteStoreAccess
+                               .createAccess( NioByteStoreAccess
+                                             .copyBuffers( baseBufs ) ),
+                                offsetArray_,
+                                blockSize_, length_ );
+    }
+
+    /**
+     * Output stream that accumulates bytes into blocks.
+     */
+    private class BlockOutputStream extends OutputStream {
+
+        public void write( int b ) throws IOException {
+            checkWritable();
+            blockBuf_[ nbuf_++ ] = (byte) b;
+            length_++;
+            if ( nbuf_ == blockSize_ ) {
+                writeBlock();
+            }
+        }
+
+        public void write( byte[] b, int off, int len ) throws IOException {
+            checkWritable();
+            while ( len > 0 ) {
+                int n = Math.min( len, blockSize_ - nbuf_ );
+                System.arraycopy( b, off, blockBuf_, nbuf_, n );
+                nbuf_ += n;
+                length_ += n;
+                off += n;
+                len -= n;
+                if ( nbuf_ == blockSize_ ) {
+                    writeBlock();
+                }
+            }
+        }
+
+        public void close() throws IOException {
+            finish();
+        }
+
+        /**
+         * Throws an exception if no more writes are permitted.
+         */
+        private void checkWritable() throws IOException {
+            if ( offsetArray_ != null ) {
+                throw new IOException( "Compressed store already finished" );
+            }
+        }
+    }
+
+    /**
+     * ByteStoreAccess implementation that reads from compressed blocks.
+     * The most recently used block is kept in uncompressed form.
+     * Closing it releases the decompressor; it may not be used thereafter.
+     */
+    private static class BlockAccess extends NioByteStoreAccess
+                                     implements Closeable {
+
+        private final ByteStoreAccess baseAccess_;
+        private final long[] blockOffsets_;
+        private final int blockSize_;
+        private final long length_;
+        private final int nblock_;
+        private final byte[] blockBuf_;
+        private final ByteBuffer blockBbuf_;
+        private final Inflater inflater_;
+        private byte[] compBuf_;
+        private ByteBuffer scratch_;
+        private int iblock_;
+        private long pos_;
+
+        /**
+         * Constructor.
+         *
+         * @param  baseAccess  reader for compressed data
+         * @param  blockOffsets  offsets of block starts in compressed data,
+         *                       with a final element giving the total
+         *                       compressed length
+         * @param  blockSize  uncompressed size of all blocks except the last
+         * @param  length   total uncompressed length
+         */
+        BlockAccess( ByteStoreAccess baseAccess, long[] blockOffsets,
+                     int blockSize, long length ) {
+            baseAccess_ = baseAccess;
+            blockOffsets_ = blockOffsets;
+            blockSize_ = blockSize;
+            length_ = length;
+            nblock_ = blockOffsets.length - 1;
+            blockBuf_ = new byte[ blockSize ];
+            blockBbuf_ = ByteBuffer.wrap( blockBuf_ );
+            compBuf_ = new byte[ 0 ];
+            scratch_ = ByteBuffer.allocate( 16 );
+            inflater_ = new Inflater();
+            iblock_ = -1;
+        }
+
+        protected ByteBuffer getBuffer( int nbyte ) throws IOException {
+            if ( pos_ + nbyte > length_ ) {
+                throw new IOException( "Requested " + nbyte + " bytes, "
+                                     + "only " + ( length_ - pos_ )
+                                     + " left" );
+            }
+            int iblock = (int) ( pos_ / blockSize_ );
+            int off = (int) ( pos_ - iblock * (long) blockSize_ );
+            pos_ += nbyte;
+
+            /* Usual case: all requested bytes are in a single block. */
+            if ( off + nbyte <= blockSize_ ) {
+                loadBlock( iblock );
+                blockBbuf_.limit( off + nbyte );
+                blockBbuf_.position( off );
+                return blockBbuf_;
+            }
+
+            /* Otherwise assemble the bytes from adjacent blocks. */
+            else {
+                if ( scratch_.capacity() < nbyte ) {
+                    scratch_ = ByteBuffer.allocate( nbyte );
+                }
+                scratch_.clear();
+                int nleft = nbyte;
+                while ( nleft > 0 ) {
+                    loadBlock( iblock++ );
+                    int n = Math.min( nleft, blockSize_ - off );
+                    scratch_.put( blockBuf_, off, n );
+                    nleft -= n;
+                    off = 0;
+                }
+                scratch_.flip();
+                return scratch_;
+            }
+        }
+
+        public void seek( long pos ) throws IOException {
+
+            /* As for the NIO implementations, the end of the data may be
+             * reached by reading or skipping, but is not a legal
+             * seek target. */
+            if ( pos >= 0 && pos < length_ ) {
+                pos_ = pos;
+            }
+            else {
+                throw new IOException( "Out of range " + pos );
+            }
+        }
+
+        public void skip( int n ) throws IOException {
+            if ( pos_ + n <= length_ ) {
+                pos_ += n;
+            }
+            else {
+                throw new IOException( "Out of range " + ( pos_ + n ) );
+            }
+        }
+
+        public void close() {
+            inflater_.end();
+        }
+
+        /**
+         * Ensures that the uncompressed content of a given block is
+         * present in the block buffer.
+         *
+         * @param  iblock  block index
+         */
+        private void loadBlock( int iblock ) throws IOException {
+            if ( iblock == iblock_ ) {
+                return;
+            }
+            if ( iblock >= nblock_ ) {
+                throw new IOException( "No block " + iblock );
+            }
+            iblock_ = -1;
+            long start = blockOffsets_[ iblock ];
+            int ncomp = (int) ( blockOffsets_[ iblock + 1 ] - start );
+            int nraw = (int) Math.min( blockSize_,
+                                       length_ - iblock * (long) blockSize_ );
+            baseAccess_.seek( start );
+            if ( ncomp == nraw ) {
+                baseAccess_.readBytes( blockBuf_, 0, nraw );
+            }
+            else {
+                if ( compBuf_.length < ncomp ) {
+                    compBuf_ = new byte[ ncomp ];
+                }
+                baseAccess_.readBytes( compBuf_, 0, ncomp );
+                inflater_.reset();
+                inflater_.setInput( compBuf_, 0, ncomp );
+                try {
+                    int n = 0;
+                    while ( n < nraw && ! inflater_.finished() ) {
+                        int n1 = inflater_.inflate( blockBuf_, n, nraw - n );
+                        if ( n1 == 0 && inflater_.needsInput() ) {
+                            break;
+                        }
+                        n += n1;
+                    }
+                    if ( n != nraw ) {
+                        throw new IOException( "Corrupted block " + iblock
+                                             + " (" + n + " != " + nraw
+                                             + " bytes)" );
+                    }
+                }
+                catch ( DataFormatException e ) {
+                    throw new IOException( "Corrupted block " + iblock, e );
+                }
+            }
+            iblock_ = iblock;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package uk.ac.starlink.table.storage;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Implementation of RowStore which stores data on disk in compressed form.
+ * This works like {@link DiskRowStore}, but the serialized row data
+ * is compressed in blocks by a {@link CompressedByteStore} before
+ * being written to the temporary file.  This reduces the amount of
+ * scratch disk space used, and the amount of I/O, at the expense of
+ * some CPU time for compression and decompression.
+ * Random access is still possible, but will be slower than for an
+ * uncompressed store if the access pattern is very non-local.
+ *
+ * @author   Mark Taylor
+ * @since    17 Oct 2026
+ */
+public class CompressedDiskRowStore extends ByteStoreRowStore {
+
+    /**
+     * Constructs a new CompressedDiskRowStore which uses the given file
+     * as a backing store.  Nothing is done to mark this file as temporary.
+     *
+     * @param  file   location of the backing file which will be used
+     * @throws IOException  if there is some I/O-related problem with
+     *         opening the file
+     * @throws SecurityException  if the current security context does not
+     *         allow writing to a temporary file
+     */
+    public CompressedDiskRowStore( File file ) throws IOException {
+        super( new CompressedByteStore( new FileByteStore( file ) ) );
+    }
+
+    /**
+     * Constructs a new CompressedDiskRowStore which uses a temporary file
+     * as backing store.
+     * The temporary file will be written to the default temporary
+     * directory, given by the value of the <tt>java.io.tmpdir</tt>
+     * system property.
+     *
+     * @throws IOException  if there is some I/O-related problem with
+     *         opening the file
+     * @throws SecurityException  if the current security context does not
+     *         allow writing to a temporary file
+     */
+    public CompressedDiskRowStore() throws IOException {
+        this( File.createTempFile( "CompressedDiskRowStore", ".bin" ) );
+        ((FileByteStore) ((CompressedByteStore) getByteStore()).getBaseStore())
+       .getFile().deleteOnExit();
+    }
+}
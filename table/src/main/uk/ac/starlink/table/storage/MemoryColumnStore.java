@@ -0,0 +1,618 @@
+package uk.ac.starlink.table.storage;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import uk.ac.starlink.table.ColumnInfo;
+
+/**
+ * ColumnStore implementation which keeps column data in memory
+ * in a compact, unboxed form.
+ * Scalar numeric, boolean and character values are held in
+ * primitive arrays, strings are held UTF-8-encoded in a shared byte heap,
+ * and null values are recorded in a bit set which is only allocated
+ * where nulls actually occur.  Values of other types are held as objects.
+ *
+ * <p>Data is held in fixed-size chunks, so there is no limit
+ * on the number of rows beyond the available memory,
+ * and no large reallocations are required as the store grows.
+ * The first chunk starts small and grows as required,
+ * so that small columns do not occupy a full chunk.
+ *
+ * <p>Since the stored data is immutable once {@link #endCells}
+ * has been called, the store serves as its own {@link ColumnReader},
+ * and is safe for concurrent reads from multiple threads.
+ * The typed accessor methods do not box primitive values.
+ *
+ * @author   Mark Taylor
+ * @since    17 Oct 2026
+ */
+public abstract class MemoryColumnStore implements ColumnStore, ColumnReader {
+
+    private long nrow_;
+    private int chunkLeng_;
+    private long[][] nullChunks_;
+
+    /** Log to base 2 of the number of elements in a chunk. */
+    static final int CHUNK_SHIFT = 16;
+
+    /** Number of elements in a chunk. */
+    static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+
+    /** Mask for element index within a chunk. */
+    static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    /** Initial length of the first chunk, which grows as required. */
+    private static final int INITIAL_CHUNK_SIZE = 64;
+
+    /** Default size of each chunk in the byte heap used for strings. */
+    private static final int HEAP_CHUNK_SIZE = 1 << 20;
+
+    /**
+     * Constructor.
+     */
+    protected MemoryColumnStore() {
+        nullChunks_ = new long[ 0 ][];
+    }
+
+    /**
+     * Returns a new MemoryColumnStore suitable for storing values
+     * described by the given metadata.
+     *
+     * @param  info  column metadata
+     * @return  new empty column store
+     */
+    public static MemoryColumnStore createColumnStore( ColumnInfo info ) {
+        Class<?> clazz = info.getContentClass();
+        if ( clazz == Double.class ) {
+            return new DoubleStore();
+        }
+        else if ( clazz == Float.class ) {
+            return new FloatStore();
+        }
+        else if ( clazz == Long.class ) {
+            return new LongStore();
+        }
+        else if ( clazz == Integer.class ) {
+            return new IntStore();
+        }
+        else if ( clazz == Short.class ) {
+            return new ShortStore();
+        }
+        else if ( clazz == Byte.class ) {
+            return new ByteValueStore();
+        }
+        else if ( clazz == Boolean.class ) {
+            return new BooleanStore();
+        }
+        else if ( clazz == Character.class ) {
+            return new CharStore();
+        }
+        else if ( clazz == String.class ) {
+            return new StringStore();
+        }
+        else {
+            return new ObjectStore();
+        }
+    }
+
+    /**
+     * Allocates or resizes storage for a chunk of values.
+     * Called before the first value in each chunk is stored,
+     * and possibly subsequently to enlarge the chunk.
+     * Existing values in the chunk must be retained.
+     *
+     * @param  ichunk  index of chunk to allocate
+     * @param  leng    required length of chunk
+     */
+    protected abstract void resizeChunk( int ichunk, int leng );
+
+    /**
+     * Stores a non-null value.
+     *
+     * @param  ichunk  chunk index
+     * @param  ioff   offset of value within chunk
+     * @param  value   non-null value to store
+     * @throws  IOException  if the value is of an unsuitable type
+     */
+    protected abstract void storeValue( int ichunk, int ioff, Object value )
+            throws IOException;
+
+    /**
+     * Stores a null value.  The null flag is recorded elsewhere,
+     * but this hook may be used to write a suitable placeholder
+     * to the primitive storage.  The default implementation does nothing.
+     *
+     * @param  ichunk  chunk index
+     * @param  ioff   offset of value within chunk
+     */
+    protected void storeNull( int ichunk, int ioff ) {
+    }
+
+    /**
+     * Returns the non-null value at a given position as an object.
+     *
+     * @param  ichunk  chunk index
+     * @param  ioff   offset of value within chunk
+     * @return  value
+     */
+    protected abstract Object getStoredObject( int ichunk, int ioff );
+
+    public void acceptCell( Object value ) throws IOException {
+        long irow = nrow_++;
+        int ichunk = (int) ( irow >>> CHUNK_SHIFT );
+        int ioff = (int) ( irow & CHUNK_MASK );
+        if ( ioff == 0 ) {
+            chunkLeng_ = ichunk == 0 ? INITIAL_CHUNK_SIZE : CHUNK_SIZE;
+            resizeChunk( ichunk, chunkLeng_ );
+        }
+        else if ( ioff == chunkLeng_ ) {
+            chunkLeng_ = Math.min( CHUNK_SIZE, chunkLeng_ * 2 );
+            resizeChunk( ichunk, chunkLeng_ );
+        }
+        if ( value == null ) {
+            setNull( ichunk, ioff );
+            storeNull( ichunk, ioff );
+        }
+        else {
+            storeValue( ichunk, ioff, value );
+        }
+    }
+
+    public void endCells() {
+    }
+
+    public ColumnReader createReader() {
+        return this;
+    }
+
+    public long getRowCount() {
+        return nrow_;
+    }
+
+    public Object getObjectValue( long ix ) {
+        int ichunk = (int) ( ix >>> CHUNK_SHIFT );
+        int ioff = (int) ( ix & CHUNK_MASK );
+        return isNull( ichunk, ioff ) ? null
+                                      : getStoredObject( ichunk, ioff );
+    }
+
+    /**
+     * Indicates whether the value at a given index is null.
+     *
+     * @param  ix  value index
+     * @return   true iff a null value was stored at <code>ix</code>
+     */
+    public boolean isNull( long ix ) {
+        return isNull( (int) ( ix >>> CHUNK_SHIFT ),
+                       (int) ( ix & CHUNK_MASK ) );
+    }
+
+    public double getDoubleValue( long ix ) {
+        Object value = getObjectValue( ix );
+        return value instanceof Number ? ((Number) value).doubleValue()
+                                       : Double.NaN;
+    }
+
+    public int getIntValue( long ix ) {
+        Object value = getObjectValue( ix );
+        return value instanceof Number ? ((Number) value).intValue() : 0;
+    }
+
+    public long getLongValue( long ix ) {
+        Object value = getObjectValue( ix );
+        return value instanceof Number ? ((Number) value).longValue() : 0L;
+    }
+
+    public boolean getBooleanValue( long ix ) {
+        return Boolean.TRUE.equals( getObjectValue( ix ) );
+    }
+
+    /**
+     * Indicates whether the value at a given position is null.
+     *
+     * @param  ichunk  chunk index
+     * @param  ioff   offset of value within chunk
+     * @return   true iff null
+     */
+    final boolean isNull( int ichunk, int ioff ) {
+        if ( ichunk < nullChunks_.length ) {
+            long[] bits = nullChunks_[ ichunk ];
+            return bits != null
+                && ( bits[ ioff >>> 6 ] & ( 1L << ( ioff & 63 ) ) ) != 0;
+        }
+        else {
+            return false;
+        }
+    }
+
+    /**
+     * Records a null value at a given position.
+     *
+     * @param  ichunk  chunk index
+     * @param  ioff   offset of value within chunk
+     */
+    private void setNull( int ichunk, int ioff ) {
+        if ( ichunk >= nullChunks_.length ) {
+            nullChunks_ = Arrays.copyOf( nullChunks_, ichunk + 1 );
+        }
+        if ( nullChunks_[ ichunk ] == null ) {
+            nullChunks_[ ichunk ] = new long[ CHUNK_SIZE / 64 ];
+        }
+        nullChunks_[ ichunk ][ ioff >>> 6 ] |= 1L << ( ioff & 63 );
+    }
+
+    /**
+     * Returns an array of chunks with room for at least a given number
+     * of elements, growing it if required.
+     *
+     * @param  chunks  existing array of chunks
+     * @param  nchunk  required number of elements
+     * @return  input array or an enlarged copy of it
+     */
+    static <T> T[] growChunks( T[] chunks, int nchunk ) {
+        return nchunk <= chunks.length
+             ? chunks
+             : Arrays.copyOf( chunks, Math.max( nchunk, chunks.length * 2 ) );
+    }
+
+    /**
+     * Casts a value to a Number, with a checked exception on failure.
+     *
+     * @param  value  non-null value
+     * @return  value as a Number
+     * @throws  IOException  if it is not a Number
+     */
+    static Number toNumber( Object value ) throws IOException {
+        if ( value instanceof Number ) {
+            return (Number) value;
+        }
+        else {
+            throw new IOException( "Non-numeric value " + value
+                                 + " (" + value.getClass().getName() + ")"
+                                 + " in numeric column" );
+        }
+    }
+
+    /**
+     * Store for Double values.
+     */
+    private static class DoubleStore extends MemoryColumnStore {
+        private double[][] chunks_ = new double[ 0 ][];
+        protected void resizeChunk( int ichunk, int leng ) {
+            chunks_ = growChunks( chunks_, ichunk + 1 );
+            chunks_[ ichunk ] = chunks_[ ichunk ] == null
+                              ? new double[ leng ]
+                              : Arrays.copyOf( chunks_[ ichunk ], leng );
+        }
+        protected void storeValue( int ichunk, int ioff, Object value )
+                throws IOException {
+            chunks_[ ichunk ][ ioff ] = toNumber( value ).doubleValue();
+        }
+        @Override
+        protected void storeNull( int ichunk, int ioff ) {
+            chunks_[ ichunk ][ ioff ] = Double.NaN;
+        }
+        protected Object getStoredObject( int ichunk, int ioff ) {
+            return Double.valueOf( chunks_[ ichunk ][ ioff ] );
+        }
+        @Override
+        public double getDoubleValue( long ix ) {
+            return chunks_[ (int) ( ix >>> CHUNK_SHIFT ) ]
+                          [ (int) ( ix & CHUNK_MASK ) ];
+        }
+        @Override
+        public int getIntValue( long ix ) {
+            return (int) getDoubleValue( ix );
+        }
+        @Override
+        public long getLongValue( long ix ) {
+            return (long) getDoubleValue( ix );
+        }
+    }
+
+    /**
+     * Store for Float values.
+     */
+    private static class FloatStore extends MemoryColumnStore {
+        private float[][] chunks_ = new float[ 0 ][];
+        protected void resizeChunk( int ichunk, int leng ) {
+            chunks_ = growChunks( chunks_, ichunk + 1 );
+            chunks_[ ichunk ] = chunks_[ ichunk ] == null
+                              ? new float[ leng ]
+                              : Arrays.copyOf( chunks_[ ichunk ], leng );
+        }
+        protected void storeValue( int ichunk, int ioff, Object value )
+                throws IOException {
+            chunks_[ ichunk ][ ioff ] = toNumber( value ).floatValue();
+        }
+        @Override
+        protected void storeNull( int ichunk, int ioff ) {
+            chunks_[ ichunk ][ ioff ] = Float.NaN;
+        }
+        protected Object getStoredObject( int ichunk, int ioff ) {
+            return Float.valueOf( chunks_[ ichunk ][ ioff ] );
+        }
+        @Override
+        public double getDoubleValue( long ix ) {
+            return chunks_[ (int) ( ix >>> CHUNK_SHIFT ) ]
+                          [ (int) ( ix & CHUNK_MASK ) ];
+        }
+        @Override
+        public int getIntValue( long ix ) {
+            return (int) getDoubleValue( ix );
+        }
+        @Override
+        public long getLongValue( long ix ) {
+            return (long) getDoubleValue( ix );
+        }
+    }
+
+    /**
+     * Abstract superclass for integer-valued stores.
+     * The primitive accessors return NaN or zero for null values.
+     */
+    private static abstract class IntegerStore extends MemoryColumnStore {
+
+        /**
+         * Returns the stored value at a given position as a long.
+         *
+         * @param  ichunk  chunk index
+         * @param  ioff   offset of value within chunk
+         * @return  value
+         */
+        abstract long getStoredLong( int ichunk, int ioff );
+
+        @Override
+        public double getDoubleValue( long ix ) {
+            int ichunk = (int) ( ix >>> CHUNK_SHIFT );
+            int ioff = (int) ( ix & CHUNK_MASK );
+            return isNull( ichunk, ioff ) ? Double.NaN
+                                          : getStoredLong( ichunk, ioff );
+        }
+        @Override
+        public long getLongValue( long ix ) {
+            return getStoredLong( (int) ( ix >>> CHUNK_SHIFT ),
+                                  (int) ( ix & CHUNK_MASK ) );
+        }
+        @Override
+        public int getIntValue( long ix ) {
+            return (int) getLongValue( ix );
+        }
+    }
+
+    /**
+     * Store for Long values.
+     */
+    private static class LongStore extends IntegerStore {
+        private long[][] chunks_ = new long[ 0 ][];
+        protected void resizeChunk( int ichunk, int leng ) {
+            chunks_ = growChunks( chunks_, ichunk + 1 );
+            chunks_[ ichunk ] = chunks_[ ichunk ] == null
+                              ? new long[ leng ]
+                              : Arrays.copyOf( chunks_[ ichunk ], leng );
+        }
+        protected void storeValue( int ichunk, int ioff, Object value )
+                throws IOException {
+            chunks_[ ichunk ][ ioff ] = toNumber( value ).longValue();
+        }
+        long getStoredLong( int ichunk, int ioff ) {
+            return chunks_[ ichunk ][ ioff ];
+        }
+        protected Object getStoredObject( int ichunk, int ioff ) {
+            return Long.valueOf( chunks_[ ichunk ][ ioff ] );
+        }
+    }
+
+    /**
+     * Store for Integer values.
+     */
+    private static class IntStore extends IntegerStore {
+        private int[][] chunks_ = new int[ 0 ][];
+        protected void resizeChunk( int ichunk, int leng ) {
+            chunks_ = growChunks( chunks_, ichunk + 1 );
+            chunks_[ ichunk ] = chunks_[ ichunk ] == null
+                              ? new int[ leng ]
+                              : Arrays.copyOf( chunks_[ ichunk ], leng );
+        }
+        protected void storeValue( int ichunk, int ioff, Object value )
+                throws IOException {
+            chunks_[ ichunk ][ ioff ] = toNumber( value ).intValue();
+        }
+        long getStoredLong( int ichunk, int ioff ) {
+            return chunks_[ ichunk ][ ioff ];
+        }
+        protected Object getStoredObject( int ichunk, int ioff ) {
+            return Integer.valueOf( chunks_[ ichunk ][ ioff ] );
+        }
+    }
+
+    /**
+     * Store for Short values.
+     */
+    private static class ShortStore extends IntegerStore {
+        private short[][] chunks_ = new short[ 0 ][];
+        protected void resizeChunk( int ichunk, int leng ) {
+            chunks_ = growChunks( chunks_, ichunk + 1 );
+            chunks_[ ichunk ] = chunks_[ ichunk ] == null
+                              ? new short[ leng ]
+                              : Arrays.copyOf( chunks_[ ichunk ], leng );
+        }
+        protected void storeValue( int ichunk, int ioff, Object value )
+                throws IOException {
+            chunks_[ ichunk ][ ioff ] = toNumber( value ).shortValue();
+        }
+        long getStoredLong( int ichunk, int ioff ) {
+            return chunks_[ ichunk ][ ioff ];
+        }
+        protected Object getStoredObject( int ichunk, int ioff ) {
+            return Short.valueOf( chunks_[ ichunk ][ ioff ] );
+        }
+    }
+
+    /**
+     * Store for Byte values.
+     */
+    private static class ByteValueStore extends IntegerStore {
+        private byte[][] chunks_ = new byte[ 0 ][];
+        protected void resizeChunk( int ichunk, int leng ) {
+            chunks_ = growChunks( chunks_, ichunk + 1 );
+            chunks_[ ichunk ] = chunks_[ ichunk ] == null
+                              ? new byte[ leng ]
+                              : Arrays.copyOf( chunks_[ ichunk ], leng );
+        }
+        protected void storeValue( int ichunk, int ioff, Object value )
+                throws IOException {
+            chunks_[ ichunk ][ ioff ] = toNumber( value ).byteValue();
+        }
+        long getStoredLong( int ichunk, int ioff ) {
+            return chunks_[ ichunk ][ ioff ];
+        }
+        protected Object getStoredObject( int ichunk, int ioff ) {
+            return Byte.valueOf( chunks_[ ichunk ][ ioff ] );
+        }
+    }
+
+    /**
+     * Store for Boolean values.
+     */
+    private static class BooleanStore extends MemoryColumnStore {
+        private boolean[][] chunks_ = new boolean[ 0 ][];
+        protected void resizeChunk( int ichunk, int leng ) {
+            chunks_ = growChunks( chunks_, ichunk + 1 );
+            chunks_[ ichunk ] = chunks_[ ichunk ] == null
+                              ? new boolean[ leng ]
+                              : Arrays.copyOf( chunks_[ ichunk ], leng );
+        }
+        protected void storeValue( int ichunk, int ioff, Object value )
+                throws IOException {
+            if ( value instanceof Boolean ) {
+                chunks_[ ichunk ][ ioff ] = ((Boolean) value).booleanValue();
+            }
+            else {
+                throw new IOException( "Non-boolean value " + value
+                                     + " in boolean column" );
+            }
+        }
+        protected Object getStoredObject( int ichunk, int ioff ) {
+            return Boolean.valueOf( chunks_[ ichunk ][ ioff ] );
+        }
+        @Override
+        public boolean getBooleanValue( long ix ) {
+            return chunks_[ (int) ( ix >>> CHUNK_SHIFT ) ]
+                          [ (int) ( ix & CHUNK_MASK ) ];
+        }
+    }
+
+    /**
+     * Store for Character values.
+     */
+    private static class CharStore extends MemoryColumnStore {
+        private char[][] chunks_ = new char[ 0 ][];
+        protected void resizeChunk( int ichunk, int leng ) {
+            chunks_ = growChunks( chunks_, ichunk + 1 );
+            chunks_[ ichunk ] = chunks_[ ichunk ] == null
+                              ? new char[ leng ]
+                              : Arrays.copyOf( chunks_[ ichunk ], leng );
+        }
+        protected void storeValue( int ichunk, int ioff, Object value )
+                throws IOException {
+            if ( value instanceof Character ) {
+                chunks_[ ichunk ][ ioff ] = ((Character) value).charValue();
+            }
+            else {
+                throw new IOException( "Non-character value " + value
+                                     + " in character column" );
+            }
+        }
+        protected Object getStoredObject( int ichunk, int ioff ) {
+            return Character.valueOf( chunks_[ ichunk ][ ioff ] );
+        }
+    }
+
+    /**
+     * Store for String values.
+     * The UTF-8 encoded bytes are stored in a byte heap, and the
+     * position and length of each string are stored per row.
+     * A string never spans more than one heap chunk;
+     * strings too large for a standard heap chunk get a chunk to themselves.
+     */
+    private static class StringStore extends MemoryColumnStore {
+        private long[][] posChunks_ = new long[ 0 ][];
+        private int[][] lengthChunks_ = new int[ 0 ][];
+        private byte[][] heap_ = new byte[ 0 ][];
+        private int iheap_ = -1;
+        private int heapPos_ = HEAP_CHUNK_SIZE;
+
+        protected void resizeChunk( int ichunk, int leng ) {
+            posChunks_ = growChunks( posChunks_, ichunk + 1 );
+            lengthChunks_ = growChunks( lengthChunks_, ichunk + 1 );
+            posChunks_[ ichunk ] = posChunks_[ ichunk ] == null
+                                 ? new long[ leng ]
+                                 : Arrays.copyOf( posChunks_[ ichunk ], leng );
+            lengthChunks_[ ichunk ] =
+                lengthChunks_[ ichunk ] == null
+                    ? new int[ leng ]
+                    : Arrays.copyOf( lengthChunks_[ ichunk ], leng );
+        }
+
+        protected void storeValue( int ichunk, int ioff, Object value ) {
+            byte[] bytes = value.toString().getBytes( StandardCharsets.UTF_8 );
+            int leng = bytes.length;
+            if ( heapPos_ + leng > getHeapChunkLength() ) {
+                iheap_++;
+                heap_ = growChunks( heap_, iheap_ + 1 );
+                heap_[ iheap_ ] =
+                    new byte[ Math.max( leng, HEAP_CHUNK_SIZE ) ];
+                heapPos_ = 0;
+            }
+            System.arraycopy( bytes, 0, heap_[ iheap_ ], heapPos_, leng );
+            posChunks_[ ichunk ][ ioff ] =
+                ( ( (long) iheap_ ) << 32 ) | heapPos_;
+            lengthChunks_[ ichunk ][ ioff ] = leng;
+            heapPos_ += leng;
+        }
+
+        protected Object getStoredObject( int ichunk, int ioff ) {
+            long pos = posChunks_[ ichunk ][ ioff ];
+            int leng = lengthChunks_[ ichunk ][ ioff ];
+            return new String( heap_[ (int) ( pos >>> 32 ) ],
+                               (int) pos, leng, StandardCharsets.UTF_8 );
+        }
+
+        @Override
+        public void endCells() {
+            if ( iheap_ >= 0 && heapPos_ < heap_[ iheap_ ].length ) {
+                heap_[ iheap_ ] = Arrays.copyOf( heap_[ iheap_ ], heapPos_ );
+            }
+        }
+
+        /**
+         * Returns the length of the current heap chunk.
+         *
+         * @return  current heap chunk length, or zero if there is none
+         */
+        private int getHeapChunkLength() {
+            return iheap_ >= 0 ? heap_[ iheap_ ].length : 0;
+        }
+    }
+
+    /**
+     * Store for general object values.
+     */
+    private static class ObjectStore extends MemoryColumnStore {
+        private Object[][] chunks_ = new Object[ 0 ][];
+        protected void resizeChunk( int ichunk, int leng ) {
+            chunks_ = growChunks( chunks_, ichunk + 1 );
+            chunks_[ ichunk ] = chunks_[ ichunk ] == null
+                              ? new Object[ leng ]
+                              : Arrays.copyOf( chunks_[ ichunk ], leng );
+        }
+        protected void storeValue( int ichunk, int ioff, Object value ) {
+            chunks_[ ichunk ][ ioff ] = value;
+        }
+        protected Object getStoredObject( int ichunk, int ioff ) {
+            return chunks_[ ichunk ][ ioff ];
+        }
+    }
+}
@@ -24,6 +24,8 @@ public class MonitorStoragePolicy extends StoragePolicy {
     private final StoragePolicy base_;
     private final TableSink sink_;
     private boolean interrupted_;
+    private long rawBytes_;
+    private long compressedBytes_;
     private static final Logger logger_ =
         Logger.getLogger( "uk.ac.starlink.table" );
 
@@ -58,6 +60,22 @@ public class MonitorStoragePolicy extends StoragePolicy {
         return interrupted_;
     }
 
+    /**
+     * Returns the ratio of uncompressed to compressed size for table
+     * data that has been stored in compressed form by row stores
+     * obtained from this policy.
+     * Only row stores that have completed (had <code>endRows</code>
+     * called) contribute to the result.
+     *
+     * @return  compression ratio, or NaN if no compressed data
+     *          has been stored
+     * @see   CompressedByteStore
+     */
+    public synchronized double getCompressionRatio() {
+        return compressedBytes_ > 0 ? rawBytes_ / (double) compressedBytes_
+                                    : Double.NaN;
+    }
+
     /**
      * Returns the base storage policy.
      *
@@ -87,6 +105,25 @@ public class MonitorStoragePolicy extends StoragePolicy {
         return base_.makeByteStore();
     }
 
+    /**
+     * Records the compression statistics of a completed compressed store.
+     *
+     * @param  cstore  compressed byte store
+     */
+    private void recordCompression( CompressedByteStore cstore ) {
+        long nraw = cstore.getLength();
+        long ncomp = cstore.getCompressedLength();
+        synchronized ( this ) {
+            rawBytes_ += nraw;
+            compressedBytes_ += ncomp;
+        }
+        logger_.info( "Stored " + nraw + " bytes compressed to " + ncomp
+                    + ( ncomp > 0
+                          ? String.format( " (ratio %.2f)",
+                                           nraw / (double) ncomp )
+                          : "" ) );
+    }
+
     /**
      * RowStore implementation which wraps an existing row store but
      * additionally messages a second sink with row storage events.
@@ -124,6 +161,13 @@ public class MonitorStoragePolicy extends StoragePolicy {
 
         public void endRows() throws IOException {
             baseStore_.endRows();
+            if ( baseStore_ instanceof ByteStoreRowStore ) {
+                ByteStore bstore =
+                    ((ByteStoreRowStore) baseStore_).getByteStore();
+                if ( bstore instanceof CompressedByteStore ) {
+                    recordCompression( (CompressedByteStore) bstore );
+                }
+            }
             sink_.endRows();
         }
 
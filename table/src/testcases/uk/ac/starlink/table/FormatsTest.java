@@ -989,9 +989,11 @@ public class FormatsTest extends TableCase {
         }
         long lrow = 0;
         Object[] rrow = null;
+        RowAccess racc = isRandom ? st.getRowAccess() : null;
         for ( RowSequence rseq = st.getRowSequence(); rseq.next(); ) {
             if ( isRandom ) {
                 rrow = st.getRow( lrow );
+                racc.setRowIndex( lrow );
             }
             Object[] row = rseq.getRow();
             for ( int icol = 0; icol < ncol; icol++ ) {
@@ -1003,6 +1005,10 @@ public class FormatsTest extends TableCase {
                     }
                 }
                 assertScalarOrArrayEquals( cell, rseq.getCell( icol ) );
+                checkTypedAccess( cell, rseq, icol );
+                if ( isRandom ) {
+                    checkTypedAccess( cell, racc, icol );
+                }
                 if ( cell != null && cell.getClass().isArray() ) {
                     int nel = Array.getLength( cell );
                     if ( nels[ icol ] < 0 ) {
@@ -1021,6 +1027,39 @@ public class FormatsTest extends TableCase {
             }
             lrow++;
         }
+        if ( racc != null ) {
+            racc.close();
+        }
+    }
+
+    /**
+     * Checks that the typed accessor methods of a RowData give results
+     * consistent with a given cell value.
+     *
+     * @param  cell  expected cell value
+     * @param  rdata  row data positioned at the cell's row
+     * @param  icol  column index
+     */
+    private void checkTypedAccess( Object cell, RowData rdata, int icol )
+            throws IOException {
+        assertEquals( Tables.isBlank( cell ), rdata.isNull( icol ) );
+        double dval = cell instanceof Number ? ((Number) cell).doubleValue()
+                                             : Double.NaN;
+        assertEquals( Double.valueOf( dval ),
+                      Double.valueOf( rdata.getDouble( icol ) ) );
+        if ( ( cell instanceof Byte || cell instanceof Short ||
+               cell instanceof Integer || cell instanceof Long ) ) {
+            assertEquals( ((Number) cell).longValue(), rdata.getLong( icol ) );
+        }
+        double[] darray = Tables.toDoubleArray( cell, null );
+        if ( darray == null ) {
+            assertNull( rdata.getDoubleArray( icol, null ) );
+        }
+        else {
+            assertArrayEquals( darray,
+                               rdata.getDoubleArray( icol,
+                                                     new double[ 1 ] ) );
+        }
     }
 
     private static VariableFitsTableWriter
@@ -0,0 +1,255 @@
+package uk.ac.starlink.table;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import uk.ac.starlink.util.SplitPolicy;
+import uk.ac.starlink.util.SplitProcessor;
+import uk.ac.starlink.util.TestCase;
+
+public class SortTest extends TestCase {
+
+    public SortTest( String name ) {
+        super( name );
+    }
+
+    public void testSort() throws IOException {
+        StarTable small = createTable( 1000, 5 );
+        StarTable big = createTable( 300_000, 1000 );
+        RowRunner[] runners = {
+            RowRunner.SEQUENTIAL, RowRunner.DEFAULT, RowRunner.PARTEST,
+        };
+        int[][] keySets = {
+            { 0 }, { 1 }, { 2 }, { 3 }, { 1, 0 }, { 2, 3, 0 }, { 3, 1 },
+        };
+        boolean[] flags = { false, true };
+        for ( int[] keys : keySets ) {
+            for ( boolean up : flags ) {
+                for ( boolean nullsLast : flags ) {
+                    long[] smallOrder =
+                        getReferenceOrder( small, keys, up, nullsLast );
+                    long[] bigOrder =
+                        getReferenceOrder( big, keys, up, nullsLast );
+                    for ( RowRunner runner : runners ) {
+                        assertArrayEquals( smallOrder,
+                            TableSorter.getSortedOrder( small, keys, up,
+                                                        nullsLast, runner ) );
+                        assertArrayEquals( bigOrder,
+                            TableSorter.getSortedOrder( big, keys, up,
+                                                        nullsLast, runner ) );
+                    }
+                }
+            }
+        }
+        assertArrayEquals( getReferenceOrder( small, new int[] { 2 },
+                                              true, false ),
+                           getPermutation( Tables.sortTable( small,
+                                                             new int[] { 2 },
+                                                             true, false ) ) );
+    }
+
+    public void testRunnerPool() throws IOException {
+        StarTable table = createTable( 50_000, 100 );
+        final AtomicInteger nSort = new AtomicInteger();
+        ForkJoinPool pool = new ForkJoinPool( 2 ) {
+            @Override
+            public <T> T invoke( ForkJoinTask<T> task ) {
+                if ( task instanceof RecursiveAction ) {
+                    nSort.incrementAndGet();
+                }
+                return super.invoke( task );
+            }
+        };
+        try {
+            SplitPolicy policy =
+                new SplitPolicy( () -> pool, 1000, (short) -1 );
+            RowRunner runner =
+                new RowRunner( SplitProcessor
+                              .createStandardProcessor( policy, false ) );
+            int[] keys = { 1, 0 };
+            assertArrayEquals( getReferenceOrder( table, keys, true, true ),
+                               TableSorter.getSortedOrder( table, keys, true,
+                                                           true, runner ) );
+            assertEquals( 1, nSort.get() );
+        }
+        finally {
+            pool.shutdown();
+        }
+    }
+
+    public void testChunked() throws IOException {
+        StarTable table = createTable( 5000, 40 );
+        int[] keys = { 1, 3, 0 };
+        RowRunner[] runners = { RowRunner.SEQUENTIAL, RowRunner.PARTEST };
+        for ( int shift : new int[] { 3, 7, 12 } ) {
+            for ( boolean up : new boolean[] { false, true } ) {
+                long[] order = getReferenceOrder( table, keys, up, true );
+                for ( RowRunner runner : runners ) {
+                    assertArrayEquals( order,
+                        TableSorter.getSortedOrder( table, keys, up, true,
+                                                    runner, shift ) );
+                    StarTable sorted =
+                        TableSorter.getSortedTable( table, keys, up, true,
+                                                    runner, shift );
+                    assertFalse( sorted instanceof RowPermutedStarTable );
+                    assertEquals( order.length, sorted.getRowCount() );
+                    RowAccess racc = sorted.getRowAccess();
+                    try ( RowSequence rseq = sorted.getRowSequence() ) {
+                        for ( int i = 0; rseq.next(); i++ ) {
+                            Object[] row = table.getRow( order[ i ] );
+                            assertArrayEquals( row, rseq.getRow() );
+                            assertArrayEquals( row, sorted.getRow( i ) );
+                            racc.setRowIndex( i );
+                            assertEquals( row[ 2 ], racc.getCell( 2 ) );
+                        }
+                    }
+                    racc.close();
+                }
+            }
+        }
+        assertTrue( TableSorter.getSortedTable( table, keys, true, true,
+                                                RowRunner.DEFAULT, 13 )
+                   instanceof RowPermutedStarTable );
+    }
+
+    public void testLongRowCount() throws IOException {
+
+        /* The row count is not truncated to an int, so the column type
+         * is checked before any attempt to allocate storage. */
+        final long nrow = 3L * Integer.MAX_VALUE;
+        StarTable table = new AbstractStarTable() {
+            public int getColumnCount() {
+                return 1;
+            }
+            public long getRowCount() {
+                return nrow;
+            }
+            public ColumnInfo getColumnInfo( int icol ) {
+                return new ColumnInfo( "x", Object.class, null );
+            }
+            public boolean isRandom() {
+                return true;
+            }
+            public Object getCell( long irow, int icol ) {
+                return null;
+            }
+            public RowSequence getRowSequence() {
+                throw new UnsupportedOperationException();
+            }
+        };
+        try {
+            Tables.sortTable( table, new int[] { 0 }, true, true );
+            fail();
+        }
+        catch ( IOException e ) {
+            assertTrue( e.getMessage().indexOf( "sort order" ) >= 0 );
+        }
+        try {
+            TableSorter.getSortedOrder( table, new int[] { 0 }, true, true );
+            fail();
+        }
+        catch ( IOException e ) {
+            assertTrue( e.getMessage().indexOf( "Too many rows" ) >= 0 );
+        }
+    }
+
+    public void testUnsortable() throws IOException {
+        ColumnStarTable table = ColumnStarTable.makeTableWithRows( 10 );
+        table.addColumn( ArrayColumn.makeColumn( "i", new int[ 10 ] ) );
+        table.addColumn( ArrayColumn.makeColumn( "a", new int[ 10 ][] ) );
+        TableSorter.getSortedOrder( table, new int[] { 0 }, true, true );
+        try {
+            TableSorter.getSortedOrder( table, new int[] { 1 }, true, true );
+            fail();
+        }
+        catch ( IOException e ) {
+            // ok
+        }
+    }
+
+    /**
+     * Creates a table with columns of various types, containing
+     * blank values and ties.
+     */
+    private static StarTable createTable( int nrow, int nDistinct ) {
+        Random rnd = new Random( 232323L + nrow );
+        ColumnStarTable table = ColumnStarTable.makeTableWithRows( nrow );
+        double[] dvals = new double[ nrow ];
+        Integer[] ivals = new Integer[ nrow ];
+        String[] svals = new String[ nrow ];
+        short[] hvals = new short[ nrow ];
+        for ( int i = 0; i < nrow; i++ ) {
+            dvals[ i ] = rnd.nextInt( 50 ) == 0
+                       ? Double.NaN
+                       : rnd.nextInt( nDistinct ) - 0.5 * nDistinct;
+            ivals[ i ] = rnd.nextInt( 50 ) == 0
+                       ? null
+                       : Integer.valueOf( rnd.nextInt( nDistinct ) );
+            svals[ i ] = rnd.nextInt( 50 ) == 0
+                       ? ( rnd.nextBoolean() ? null : "" )
+                       : "s" + rnd.nextInt( nDistinct );
+            hvals[ i ] = (short) rnd.nextInt( 3 );
+        }
+        table.addColumn( ArrayColumn.makeColumn( "d", dvals ) );
+        table.addColumn( ArrayColumn.makeColumn( "i", ivals ) );
+        table.addColumn( ArrayColumn.makeColumn( "s", svals ) );
+        table.addColumn( ArrayColumn.makeColumn( "h", hvals ) );
+        return table;
+    }
+
+    /**
+     * Sorts rows using the natural order of cell objects.
+     */
+    @SuppressWarnings({"rawtypes","unchecked"})
+    private static long[] getReferenceOrder( final StarTable table,
+                                             final int[] keys,
+                                             final boolean up,
+                                             final boolean nullsLast ) {
+        int nrow = (int) table.getRowCount();
+        Long[] irows = new Long[ nrow ];
+        for ( int i = 0; i < nrow; i++ ) {
+            irows[ i ] = Long.valueOf( i );
+        }
+        final int nullCmp = ( up ^ nullsLast ) ? -1 : +1;
+        Arrays.sort( irows, new Comparator<Long>() {
+            public int compare( Long ir1, Long ir2 ) {
+                for ( int icol : keys ) {
+                    Comparable v1;
+                    Comparable v2;
+                    try {
+                        v1 = (Comparable) table.getCell( ir1, icol );
+                        v2 = (Comparable) table.getCell( ir2, icol );
+                    }
+                    catch ( IOException e ) {
+                        throw new RuntimeException( e );
+                    }
+                    boolean b1 = Tables.isBlank( v1 );
+                    boolean b2 = Tables.isBlank( v2 );
+                    int c = b1 && b2 ? 0
+                          : b1 ? nullCmp
+                          : b2 ? -nullCmp
+                          : up ? v1.compareTo( v2 )
+                               : v2.compareTo( v1 );
+                    if ( c != 0 ) {
+                        return c;
+                    }
+                }
+                return 0;
+            }
+        } );
+        long[] order = new long[ nrow ];
+        for ( int i = 0; i < nrow; i++ ) {
+            order[ i ] = irows[ i ].longValue();
+        }
+        return order;
+    }
+
+    private static long[] getPermutation( StarTable sorted ) {
+        return ((RowPermutedStarTable) sorted).getRowMap();
+    }
+}
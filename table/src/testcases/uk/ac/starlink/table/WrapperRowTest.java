@@ -0,0 +1,127 @@
+package uk.ac.starlink.table;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongSupplier;
+import junit.framework.TestCase;
+
+public class WrapperRowTest extends TestCase {
+
+    public void testTypedForwarding() throws IOException {
+        StarTable base = new TypedTable();
+        StarTable perm =
+            new ColumnPermutedStarTable( base, new int[] { 1, 0 } );
+        List<RowData> datas = new ArrayList<>();
+        datas.add( new WrapperRowSequence( base.getRowSequence() ) );
+        datas.add( new WrapperRowAccess( base.getRowAccess() ) );
+        datas.add( new SequentialRowSplittable( base ) );
+        datas.add( new ProgressRowSplittable( base.getRowSplittable(),
+                                              new NullTarget() ) );
+        datas.add( new MappingRowSplittable( base.getRowSplittable(),
+                                             d -> d ) );
+        datas.add( CountCheckRowSequence
+                  .getSafeRowSequence( base.getRowSequence(), 2, 4 ) );
+        for ( RowData data : datas ) {
+            if ( data instanceof RowSequence ) {
+                assertTrue( ((RowSequence) data).next() );
+            }
+            else {
+                ((RowAccess) data).setRowIndex( 0 );
+            }
+            assertTyped( data, 0 );
+            assertTyped( data, 1 );
+        }
+        RowSequence pseq = perm.getRowSequence();
+        assertTrue( pseq.next() );
+        assertEquals( 1001.0, pseq.getDouble( 0 ) );
+        assertEquals( 1000L, pseq.getLong( 1 ) );
+        assertTrue( pseq.isNull( 0 ) );
+        assertEquals( 1001.0, pseq.getDoubleArray( 0, null )[ 0 ] );
+    }
+
+    private static void assertTyped( RowData data, int icol )
+            throws IOException {
+        assertEquals( 1000.0 + icol, data.getDouble( icol ) );
+        assertEquals( 1000L + icol, data.getLong( icol ) );
+        assertTrue( data.isNull( icol ) );
+        assertEquals( 1000.0 + icol, data.getDoubleArray( icol, null )[ 0 ] );
+    }
+
+    /**
+     * Table whose typed accessors give results distinguishable from
+     * those derived from getCell, to check that wrappers forward them.
+     */
+    private static class TypedTable extends AbstractStarTable {
+        public int getColumnCount() {
+            return 2;
+        }
+        public ColumnInfo getColumnInfo( int icol ) {
+            return new ColumnInfo( "c" + icol, Double.class, null );
+        }
+        public long getRowCount() {
+            return 4;
+        }
+        public boolean isRandom() {
+            return true;
+        }
+        public Object getCell( long irow, int icol ) {
+            return Double.valueOf( irow );
+        }
+        public RowSequence getRowSequence() {
+            return new TypedRow();
+        }
+        public RowAccess getRowAccess() {
+            return new TypedRow();
+        }
+        public RowSplittable getRowSplittable() {
+            return new TypedRow();
+        }
+    }
+
+    private static class TypedRow implements RowSplittable, RowAccess {
+        private long irow_ = -1;
+        public boolean next() {
+            return ++irow_ < 4;
+        }
+        public void setRowIndex( long irow ) {
+            irow_ = irow;
+        }
+        public Object getCell( int icol ) {
+            return Double.valueOf( irow_ );
+        }
+        public Object[] getRow() {
+            return new Object[] { getCell( 0 ), getCell( 1 ) };
+        }
+        public double getDouble( int icol ) {
+            return 1000.0 + icol;
+        }
+        public long getLong( int icol ) {
+            return 1000L + icol;
+        }
+        public boolean isNull( int icol ) {
+            return true;
+        }
+        public double[] getDoubleArray( int icol, double[] buf ) {
+            return new double[] { 1000.0 + icol };
+        }
+        public RowSplittable split() {
+            return null;
+        }
+        public long splittableSize() {
+            return 4 - irow_ - 1;
+        }
+        public LongSupplier rowIndex() {
+            return () -> irow_;
+        }
+        public void close() {
+        }
+    }
+
+    private static class NullTarget implements ProgressRowSplittable.Target {
+        public void updateCount( long count ) {
+        }
+        public void done( long count ) {
+        }
+    }
+}
@@ -0,0 +1,278 @@
+package uk.ac.starlink.table.formats;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import junit.framework.TestCase;
+import uk.ac.starlink.table.RowCollector;
+import uk.ac.starlink.table.RowRunner;
+import uk.ac.starlink.table.RowSplittable;
+import uk.ac.starlink.table.StarTable;
+import uk.ac.starlink.table.TableFormatException;
+import uk.ac.starlink.util.DataSource;
+import uk.ac.starlink.util.FileDataSource;
+
+public class LineSplitTest extends TestCase {
+
+    public LineSplitTest( String name ) {
+        super( name );
+    }
+
+    public void testCsv() throws IOException {
+        Random rnd = new Random( 230001L );
+        for ( int nrow : new int[] { 1, 3, 2000, 40000 } ) {
+            StringBuilder sbuf = new StringBuilder();
+            sbuf.append( "id,x,label\r\n" );
+            for ( int i = 0; i < nrow; i++ ) {
+                sbuf.append( i )
+                    .append( ',' )
+                    .append( rnd.nextInt( 10 ) == 0 ? ""
+                                                    : rnd.nextFloat() )
+                    .append( ',' );
+                switch ( rnd.nextInt( 4 ) ) {
+                    case 0:
+                        sbuf.append( "\"multi\nline,\r\n\"\"text\"\"\n\"" );
+                        break;
+                    case 1:
+                        sbuf.append( "\"" );
+                        for ( int j = 0; j < rnd.nextInt( 200 ); j++ ) {
+                            sbuf.append( "\n\"\"" );
+                        }
+                        sbuf.append( "\"" );
+                        break;
+                    default:
+                        sbuf.append( "plain" + i );
+                }
+                sbuf.append( rnd.nextBoolean() ? "\n" : "\r\n\n" );
+            }
+            File file = writeTempFile( "split", ".csv", sbuf.toString() );
+            try {
+                DataSource datsrc = new FileDataSource( file );
+                StarTable seqTable =
+                    new CsvStarTable( datsrc, null, 0, RowRunner.SEQUENTIAL );
+                StarTable parTable =
+                    new CsvStarTable( datsrc, null, 0, RowRunner.PARTEST );
+                assertEquals( nrow, seqTable.getRowCount() );
+                assertEquals( nrow, parTable.getRowCount() );
+                assertEquals( 3, parTable.getColumnCount() );
+                for ( int ic = 0; ic < 3; ic++ ) {
+                    assertEquals( seqTable.getColumnInfo( ic ).toString(),
+                                  parTable.getColumnInfo( ic ).toString() );
+                }
+                checkRows( parTable, nrow );
+            }
+            finally {
+                file.delete();
+            }
+        }
+    }
+
+    public void testFormatError() throws IOException {
+        int nrow = 40000;
+        StringBuilder sbuf = new StringBuilder();
+        sbuf.append( "a,b\n" );
+        for ( int i = 0; i < nrow; i++ ) {
+            sbuf.append( i )
+                .append( ',' )
+                .append( i * 2 )
+                .append( i == nrow - 10 ? ",99\n" : "\n" );
+        }
+        File file = writeTempFile( "bad", ".csv", sbuf.toString() );
+        try {
+            DataSource datsrc = new FileDataSource( file );
+            for ( RowRunner runner :
+                  new RowRunner[] { RowRunner.SEQUENTIAL,
+                                    RowRunner.PARTEST } ) {
+                try {
+                    new CsvStarTable( datsrc, null, 0, runner );
+                    fail();
+                }
+                catch ( TableFormatException e ) {
+                    // ok
+                }
+            }
+        }
+        finally {
+            file.delete();
+        }
+    }
+
+    public void testAscii() throws IOException {
+        Random rnd = new Random( 230002L );
+        int nrow = 5000;
+        StringBuilder sbuf = new StringBuilder();
+        sbuf.append( "# id x label\n" );
+        for ( int i = 0; i < nrow; i++ ) {
+            if ( rnd.nextInt( 20 ) == 0 ) {
+                sbuf.append( "# comment \"line\n\n" );
+            }
+            sbuf.append( i )
+                .append( ' ' )
+                .append( rnd.nextGaussian() )
+                .append( rnd.nextBoolean() ? " 'quoted string'" : " word" )
+                .append( rnd.nextBoolean() ? "\n" : "\r\n" );
+        }
+        File file = writeTempFile( "split", ".txt", sbuf.toString() );
+        try {
+            StarTable table = new AsciiStarTable( new FileDataSource( file ) );
+            assertEquals( nrow, table.getRowCount() );
+            assertEquals( "id", table.getColumnInfo( 0 ).getName() );
+            checkRows( table, nrow );
+        }
+        finally {
+            file.delete();
+        }
+    }
+
+    public void testIndex() throws IOException {
+        File dir = File.createTempFile( "idx", ".d" );
+        dir.delete();
+        TextIndexCache cache = new TextIndexCache( dir );
+        Random rnd = new Random( 230003L );
+        int nrow = 4321;
+        for ( boolean header : new boolean[] { true, false } ) {
+            StringBuilder sbuf = new StringBuilder();
+            if ( header ) {
+                sbuf.append( "id,text\n" );
+            }
+            for ( int i = 0; i < nrow; i++ ) {
+                sbuf.append( i )
+                    .append( ',' )
+                    .append( rnd.nextBoolean() ? "\"a\nb\"" : "c" )
+                    .append( '\n' );
+            }
+            File file = writeTempFile( "idx", ".csv", sbuf.toString() );
+            try {
+                for ( int ipass = 0; ipass < 2; ipass++ ) {
+                    StarTable table =
+                        new CsvStarTable( new FileDataSource( file ), null, 0,
+                                          RowRunner.PARTEST, cache );
+                    assertTrue( table.isRandom() );
+                    assertEquals( nrow, table.getRowCount() );
+                    assertEquals( header ? "id" : "col1",
+                                  table.getColumnInfo( 0 ).getName() );
+                    List<Object[]> rows =
+                        RowRunner.SEQUENTIAL
+                                 .collect( new RowListCollector(), table );
+                    for ( int k = 0; k < 200; k++ ) {
+                        int irow = rnd.nextInt( nrow );
+                        assertTrue( Arrays.equals( rows.get( irow ),
+                                                   table.getRow( irow ) ) );
+                        assertEquals( irow, ((Number) table.getCell( irow, 0 ))
+                                           .intValue() );
+                    }
+
+                    /* Closing releases the random access stream;
+                     * it is reopened if required. */
+                    table.close();
+                    assertEquals( 3, ((Number) table.getCell( 3, 0 ))
+                                    .intValue() );
+                    table.close();
+                    assertEquals( 1, dir.list().length );
+                }
+                assertFalse( new CsvStarTable( new FileDataSource( file ) )
+                            .isRandom() );
+
+                /* Modify the file and check the index is not reused. */
+                try ( OutputStream out =
+                          new FileOutputStream( file, true ) ) {
+                    out.write( ( nrow + ",x\n" ).getBytes( "UTF-8" ) );
+                }
+                file.setLastModified( file.lastModified() + 2000 );
+                StarTable table2 =
+                    new CsvStarTable( new FileDataSource( file ), null, 0,
+                                      RowRunner.PARTEST, cache );
+                assertEquals( nrow + 1, table2.getRowCount() );
+                assertEquals( nrow, ((Number) table2.getCell( nrow, 0 ))
+                                   .intValue() );
+            }
+            finally {
+                file.delete();
+                for ( File f : dir.listFiles() ) {
+                    f.delete();
+                }
+            }
+        }
+
+        String text = "# Heading\n# a b\n1 2.5\n\n2 3.5\n# c\n3 4.5\n";
+        File afile = writeTempFile( "idx", ".txt", text );
+        try {
+            for ( int ipass = 0; ipass < 2; ipass++ ) {
+                StarTable table =
+                    new AsciiStarTable( new FileDataSource( afile ), 0, cache );
+                assertTrue( table.isRandom() );
+                assertEquals( 3, table.getRowCount() );
+                assertEquals( "b", table.getColumnInfo( 1 ).getName() );
+                assertEquals( 4.5, ((Number) table.getCell( 2, 1 )).doubleValue() );
+                assertEquals( 2.5, ((Number) table.getCell( 0, 1 )).doubleValue() );
+            }
+        }
+        finally {
+            afile.delete();
+            for ( File f : dir.listFiles() ) {
+                f.delete();
+            }
+            dir.delete();
+        }
+    }
+
+    /**
+     * Checks that parallel and sequential reads of a table give the
+     * same rows.  The first column must contain the row index.
+     */
+    private void checkRows( StarTable table, int nrow ) throws IOException {
+        List<Object[]> seqRows =
+            RowRunner.SEQUENTIAL.collect( new RowListCollector(), table );
+        List<Object[]> parRows =
+            RowRunner.PARTEST.collect( new RowListCollector(), table );
+        assertEquals( nrow, seqRows.size() );
+        assertEquals( nrow, parRows.size() );
+        Comparator<Object[]> byId =
+            Comparator.comparingLong( r -> ((Number) r[ 0 ]).longValue() );
+        parRows.sort( byId );
+        for ( int ir = 0; ir < nrow; ir++ ) {
+            assertEquals( ir, ((Number) seqRows.get( ir )[ 0 ]).intValue() );
+            assertTrue( Arrays.equals( seqRows.get( ir ), parRows.get( ir ) ) );
+        }
+        if ( nrow > 1000 ) {
+            RowSplittable split = table.getRowSplittable();
+            assertNotNull( split.split() );
+            split.close();
+        }
+    }
+
+    private static File writeTempFile( String prefix, String suffix,
+                                       String content )
+            throws IOException {
+        File file = File.createTempFile( prefix, suffix );
+        file.deleteOnExit();
+        try ( OutputStream out = new FileOutputStream( file ) ) {
+            out.write( content.getBytes( "UTF-8" ) );
+        }
+        return file;
+    }
+
+    private static class RowListCollector
+            extends RowCollector<List<Object[]>> {
+        public List<Object[]> createAccumulator() {
+            return new ArrayList<Object[]>();
+        }
+        public List<Object[]> combine( List<Object[]> list1,
+                                       List<Object[]> list2 ) {
+            list1.addAll( list2 );
+            return list1;
+        }
+        public void accumulateRows( RowSplittable rseq, List<Object[]> list )
+                throws IOException {
+            while ( rseq.next() ) {
+                list.add( rseq.getRow().clone() );
+            }
+        }
+    }
+}
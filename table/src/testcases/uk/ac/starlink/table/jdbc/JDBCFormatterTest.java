@@ -0,0 +1,123 @@
+package uk.ac.starlink.table.jdbc;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.BitSet;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import junit.framework.TestCase;
+import uk.ac.starlink.table.ArrayColumn;
+import uk.ac.starlink.table.ColumnStarTable;
+import uk.ac.starlink.table.StarTable;
+
+public class JDBCFormatterTest extends TestCase {
+
+    public JDBCFormatterTest( String name ) {
+        super( name );
+        Logger.getLogger( "uk.ac.starlink.table.jdbc" )
+              .setLevel( Level.WARNING );
+        Logger.getLogger( "uk.ac.starlink.util" ).setLevel( Level.WARNING );
+    }
+
+    public void testSequential() throws Exception {
+        int nrow = 1000;
+        StarTable table = createTable( nrow );
+
+        MemoryDatabase db1 = new MemoryDatabase();
+        write( db1, table, 1, 0, 1 );
+        checkRows( db1, nrow );
+        assertEquals( nrow, db1.nupdate_.get() );
+        assertEquals( 0, db1.nbatch_.get() );
+        assertEquals( 0, db1.ncommit_.get() );
+
+        MemoryDatabase db2 = new MemoryDatabase();
+        write( db2, table, 30, 0, 1 );
+        checkRows( db2, nrow );
+        assertEquals( 0, db2.nupdate_.get() );
+        assertEquals( 34, db2.nbatch_.get() );
+        assertEquals( 0, db2.ncommit_.get() );
+
+        MemoryDatabase db3 = new MemoryDatabase();
+        write( db3, table, 30, 4, 1 );
+        checkRows( db3, nrow );
+        assertEquals( 34, db3.nbatch_.get() );
+        assertEquals( 9, db3.ncommit_.get() );
+        assertEquals( 0, db3.nopen_.get() );
+    }
+
+    public void testFailure() throws Exception {
+        StarTable table = createTable( 1000 );
+        MemoryDatabase db = new MemoryDatabase();
+        db.setFailRow( 500 );
+        try {
+            write( db, table, 100, 2, 1 );
+            fail();
+        }
+        catch ( SQLException e ) {
+        }
+
+        /* Only whole committed transactions are present. */
+        assertEquals( 400, db.rows_.size() );
+        assertEquals( 1, db.nrollback_.get() );
+        assertEquals( 0, db.nopen_.get() );
+    }
+
+    public void testParallel() throws Exception {
+        int nrow = 400_000;
+        StarTable table = createTable( nrow );
+        MemoryDatabase db = new MemoryDatabase();
+        write( db, table, 1000, 10, 4 );
+        checkRows( db, nrow );
+        assertTrue( db.nconn_.get() > 2 );
+        assertTrue( db.nconn_.get() <= 5 );
+        assertEquals( 0, db.nopen_.get() );
+
+        /* Unsplittable tables fall back to sequential writing. */
+        MemoryDatabase db2 = new MemoryDatabase();
+        write( db2, createTable( 100 ), 10, 1, 4 );
+        checkRows( db2, 100 );
+        assertEquals( 2, db2.nconn_.get() );
+    }
+
+    private static void write( MemoryDatabase db, StarTable table,
+                               int batchSize, int commitInterval, int nconn )
+            throws Exception {
+        Connection conn = db.getConnection();
+        try {
+            JDBCFormatter formatter = new JDBCFormatter( conn, table );
+            formatter.setBatchSize( batchSize );
+            formatter.setCommitInterval( commitInterval );
+            formatter.setParallelConnections( db, nconn );
+            formatter.createJDBCTable( "t1", WriteMode.CREATE );
+            assertTrue( conn.getAutoCommit() );
+        }
+        finally {
+            conn.close();
+        }
+    }
+
+    private static StarTable createTable( int nrow ) {
+        int[] ix = new int[ nrow ];
+        String[] txt = new String[ nrow ];
+        for ( int i = 0; i < nrow; i++ ) {
+            ix[ i ] = i;
+            txt[ i ] = i % 10 == 0 ? null : "r" + i;
+        }
+        ColumnStarTable table = ColumnStarTable.makeTableWithRows( nrow );
+        table.addColumn( ArrayColumn.makeColumn( "ix", ix ) );
+        table.addColumn( ArrayColumn.makeColumn( "txt", txt ) );
+        return table;
+    }
+
+    private static void checkRows( MemoryDatabase db, int nrow ) {
+        assertEquals( nrow, db.rows_.size() );
+        BitSet seen = new BitSet();
+        for ( Object[] row : db.rows_ ) {
+            int i = ((Integer) row[ 0 ]).intValue();
+            assertFalse( seen.get( i ) );
+            seen.set( i );
+            assertEquals( i % 10 == 0 ? null : "r" + i, row[ 1 ] );
+        }
+        assertEquals( nrow, seen.cardinality() );
+    }
+}
@@ -0,0 +1,144 @@
+package uk.ac.starlink.table.jdbc;
+
+import java.io.IOException;
+import java.util.BitSet;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import junit.framework.TestCase;
+import uk.ac.starlink.table.RowCollector;
+import uk.ac.starlink.table.RowRunner;
+import uk.ac.starlink.table.RowSequence;
+import uk.ac.starlink.table.RowSplittable;
+import uk.ac.starlink.table.StarTable;
+
+public class JDBCStarTableTest extends TestCase {
+
+    public JDBCStarTableTest( String name ) {
+        super( name );
+        Logger.getLogger( "uk.ac.starlink.table.jdbc" )
+              .setLevel( Level.WARNING );
+        Logger.getLogger( "uk.ac.starlink.util" ).setLevel( Level.WARNING );
+    }
+
+    public void testPartition() throws Exception {
+        int nrow = 5000;
+        MemoryDatabase db = createDatabase( nrow );
+        JDBCStarTable table = new JDBCStarTable( db, "SELECT * FROM t1" );
+        assertEquals( 2, table.getColumnCount() );
+        int nopen0 = db.nopen_.get();
+
+        /* Unpartitioned. */
+        assertNull( table.getPartitionKey() );
+        checkRows( table, RowRunner.SEQUENTIAL, nrow );
+        checkRows( table, RowRunner.PARTEST, nrow );
+        assertEquals( 0, countRangeQueries( db ) );
+
+        /* Partitioned. */
+        table.setPartitionKey( "ix" );
+        assertEquals( "ix", table.getPartitionKey() );
+        checkRows( table, RowRunner.SEQUENTIAL, nrow );
+        assertEquals( 0, countRangeQueries( db ) );
+        checkRows( table, RowRunner.PARTEST, nrow );
+        assertTrue( countRangeQueries( db ) > 4 );
+        assertEquals( nopen0, db.nopen_.get() );
+
+        /* The ordinary row sequence is unaffected. */
+        RowSequence rseq = table.getRowSequence();
+        for ( int i = 0; i < nrow; i++ ) {
+            assertTrue( rseq.next() );
+            assertEquals( "r" + i, rseq.getCell( 1 ) );
+        }
+        assertFalse( rseq.next() );
+        rseq.close();
+        assertEquals( nopen0, db.nopen_.get() );
+    }
+
+    public void testEmptyPartition() throws Exception {
+        MemoryDatabase db = createDatabase( 0 );
+        JDBCStarTable table = new JDBCStarTable( db, "SELECT * FROM t1" );
+        int nopen0 = db.nopen_.get();
+        table.setPartitionKey( "ix" );
+        checkRows( table, RowRunner.PARTEST, 0 );
+        assertEquals( nopen0, db.nopen_.get() );
+    }
+
+    public void testFractionalPartition() throws Exception {
+        int nrow = 2000;
+        MemoryDatabase db = new MemoryDatabase();
+        db.setColumns( new String[] { "x", "txt" },
+                       new Class<?>[] { Double.class, String.class } );
+        for ( int i = 0; i < nrow; i++ ) {
+            db.rows_.add( new Object[] { Double.valueOf( -0.75 + i * 0.001 ),
+                                         "r" + i } );
+        }
+        JDBCStarTable table = new JDBCStarTable( db, "SELECT * FROM t1" );
+        table.setPartitionKey( "x" );
+        checkRows( table, RowRunner.PARTEST, nrow );
+    }
+
+    public void testExtremePartition() throws Exception {
+        long[] keys = { Long.MIN_VALUE, -1, 0, 1, Long.MAX_VALUE };
+        MemoryDatabase db = new MemoryDatabase();
+        db.setColumns( new String[] { "ix", "txt" },
+                       new Class<?>[] { Long.class, String.class } );
+        int nrow = 1000;
+        for ( int i = 0; i < nrow; i++ ) {
+            db.rows_.add( new Object[] { Long.valueOf( keys[ i % 5 ] ),
+                                         "r" + i } );
+        }
+        JDBCStarTable table = new JDBCStarTable( db, "SELECT * FROM t1" );
+        table.setPartitionKey( "ix" );
+        checkRows( table, RowRunner.PARTEST, nrow );
+        assertTrue( countRangeQueries( db ) > 1 );
+    }
+
+    private static MemoryDatabase createDatabase( int nrow ) {
+        MemoryDatabase db = new MemoryDatabase();
+        db.setColumns( new String[] { "ix", "txt" },
+                       new Class<?>[] { Integer.class, String.class } );
+        for ( int i = 0; i < nrow; i++ ) {
+
+            /* Null keys and a non-uniform key distribution. */
+            Integer key = i % 100 == 3 ? null
+                                       : Integer.valueOf( i < nrow / 2 ? i
+                                                                       : i * 7 );
+            db.rows_.add( new Object[] { key, "r" + i } );
+        }
+        return db;
+    }
+
+    private static int countRangeQueries( MemoryDatabase db ) {
+        int n = 0;
+        for ( String q : db.queries_ ) {
+            if ( q.indexOf( " WHERE " ) > 0 ) {
+                n++;
+            }
+        }
+        return n;
+    }
+
+    private static void checkRows( StarTable table, RowRunner runner,
+                                   int nrow )
+            throws IOException {
+        BitSet seen = runner.collect( new RowCollector<BitSet>() {
+            public BitSet createAccumulator() {
+                return new BitSet();
+            }
+            public BitSet combine( BitSet acc1, BitSet acc2 ) {
+                assertFalse( acc1.intersects( acc2 ) );
+                acc1.or( acc2 );
+                return acc1;
+            }
+            public void accumulateRows( RowSplittable rseq, BitSet acc )
+                    throws IOException {
+                while ( rseq.next() ) {
+                    int i = Integer.parseInt( ((String) rseq.getCell( 1 ))
+                                             .substring( 1 ) );
+                    assertFalse( acc.get( i ) );
+                    acc.set( i );
+                }
+            }
+        }, table );
+        assertEquals( nrow, seen.cardinality() );
+    }
+}
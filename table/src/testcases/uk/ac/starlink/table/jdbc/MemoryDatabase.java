@@ -0,0 +1,419 @@
+package uk.ac.starlink.table.jdbc;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Minimal in-memory stand-in for a JDBC database, sufficient to
+ * exercise JDBCFormatter's insertion logic and JDBCStarTable's
+ * partitioned reads.
+ * Rows inserted by prepared statements are stored, with transaction
+ * semantics respected, in a single list.
+ * Queries return those rows, optionally restricted by a key range
+ * as written by JDBCStarTable; the query text is otherwise ignored.
+ * Connections are implemented as dynamic proxies.
+ */
+class MemoryDatabase implements Connector {
+
+    final List<Object[]> rows_;
+    final AtomicInteger nconn_;
+    final AtomicInteger nupdate_;
+    final AtomicInteger nbatch_;
+    final AtomicInteger ncommit_;
+    final AtomicInteger nrollback_;
+    final AtomicInteger nopen_;
+    final List<String> queries_;
+    private volatile int failRow_;
+    private String[] colNames_;
+    private Class<?>[] colClasses_;
+
+    private static final Pattern STATS_REGEX =
+        Pattern.compile( "SELECT COUNT\\(\\*\\), MIN\\((\\w+)\\), "
+                       + "MAX\\(\\1\\) FROM .*" );
+    private static final Pattern RANGE_REGEX =
+        Pattern.compile( ".* WHERE \\((\\w+) (?:>= (-?[0-9]+)"
+                       + "(?: AND \\1 < (-?[0-9]+))?|< (-?[0-9]+))\\)"
+                       + "( OR \\1 IS NULL)?" );
+    private static final Object[][] TYPES = {
+        { "INTEGER", Types.INTEGER },
+        { "DOUBLE", Types.DOUBLE },
+        { "VARCHAR", Types.VARCHAR },
+    };
+
+    MemoryDatabase() {
+        rows_ = new ArrayList<Object[]>();
+        nconn_ = new AtomicInteger();
+        nupdate_ = new AtomicInteger();
+        nbatch_ = new AtomicInteger();
+        ncommit_ = new AtomicInteger();
+        nrollback_ = new AtomicInteger();
+        nopen_ = new AtomicInteger();
+        queries_ = new ArrayList<String>();
+        failRow_ = -1;
+        colNames_ = new String[ 0 ];
+        colClasses_ = new Class<?>[ 0 ];
+    }
+
+    /**
+     * Sets the column metadata for query results.
+     *
+     * @param  names  column names
+     * @param  classes  column content classes
+     */
+    void setColumns( String[] names, Class<?>[] classes ) {
+        colNames_ = names;
+        colClasses_ = classes;
+    }
+
+    /**
+     * Arranges that an insertion will fail when the given number of
+     * rows has been inserted by any connection.
+     *
+     * @param  failRow  row count at which failure occurs, or -1
+     */
+    void setFailRow( int failRow ) {
+        failRow_ = failRow;
+    }
+
+    public Connection getConnection() {
+        nconn_.incrementAndGet();
+        nopen_.incrementAndGet();
+        return proxy( Connection.class, new ConnectionHandler() );
+    }
+
+    private static <T> T proxy( Class<T> clazz, InvocationHandler handler ) {
+        return clazz.cast( Proxy.newProxyInstance( clazz.getClassLoader(),
+                                                   new Class<?>[] { clazz },
+                                                   handler ) );
+    }
+
+    /**
+     * Returns the result of a query on the stored rows.
+     *
+     * @param  sql  query text
+     * @return  result set
+     */
+    private ResultSet executeQuery( String sql ) {
+        synchronized ( queries_ ) {
+            queries_.add( sql );
+        }
+        List<Object[]> rows;
+        synchronized ( rows_ ) {
+            rows = new ArrayList<Object[]>( rows_ );
+        }
+        Matcher statsMatcher = STATS_REGEX.matcher( sql );
+        Matcher rangeMatcher = RANGE_REGEX.matcher( sql );
+        if ( statsMatcher.matches() ) {
+            int ik = getColumnIndex( statsMatcher.group( 1 ) );
+            Number min = null;
+            Number max = null;
+            for ( Object[] row : rows ) {
+                Number k = (Number) row[ ik ];
+                if ( k != null ) {
+                    double dk = k.doubleValue();
+                    if ( min == null || dk < min.doubleValue() ) {
+                        min = k;
+                    }
+                    if ( max == null || dk > max.doubleValue() ) {
+                        max = k;
+                    }
+                }
+            }
+            Class<?> kclazz = colClasses_[ ik ];
+            List<Object[]> result = new ArrayList<Object[]>();
+            result.add( new Object[] { Long.valueOf( rows.size() ),
+                                       min, max } );
+            return proxy( ResultSet.class,
+                          new ResultSetHandler( new String[] { "C", "L", "H" },
+                                                new Class<?>[] { Long.class,
+                                                                 kclazz,
+                                                                 kclazz },
+                                                result ) );
+        }
+        else if ( rangeMatcher.matches() ) {
+            int ik = getColumnIndex( rangeMatcher.group( 1 ) );
+            String loTxt = rangeMatcher.group( 2 );
+            String hiTxt = rangeMatcher.group( loTxt == null ? 4 : 3 );
+            double lo = loTxt == null ? Double.NEGATIVE_INFINITY
+                                      : Long.parseLong( loTxt );
+            double hi = hiTxt == null ? Double.POSITIVE_INFINITY
+                                      : Long.parseLong( hiTxt );
+            boolean includeNull = rangeMatcher.group( 5 ) != null;
+            List<Object[]> result = new ArrayList<Object[]>();
+            for ( Object[] row : rows ) {
+                Number k = (Number) row[ ik ];
+                if ( k == null ? includeNull
+                               : k.doubleValue() >= lo &&
+                                 k.doubleValue() < hi ) {
+                    result.add( row );
+                }
+            }
+            return proxy( ResultSet.class,
+                          new ResultSetHandler( colNames_, colClasses_,
+                                                result ) );
+        }
+        else {
+            return proxy( ResultSet.class,
+                          new ResultSetHandler( colNames_, colClasses_,
+                                                rows ) );
+        }
+    }
+
+    private int getColumnIndex( String name ) {
+        for ( int i = 0; i < colNames_.length; i++ ) {
+            if ( colNames_[ i ].equals( name ) ) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException( "No column " + name );
+    }
+
+    private static Object defaultValue( Class<?> clazz ) {
+        if ( clazz == boolean.class ) {
+            return Boolean.FALSE;
+        }
+        else if ( clazz == int.class ) {
+            return Integer.valueOf( 0 );
+        }
+        else if ( clazz == long.class ) {
+            return Long.valueOf( 0 );
+        }
+        else if ( clazz == short.class ) {
+            return Short.valueOf( (short) 0 );
+        }
+        else {
+            return null;
+        }
+    }
+
+    private class ConnectionHandler implements InvocationHandler {
+        private final List<Object[]> pending_ = new ArrayList<Object[]>();
+        private boolean autoCommit_ = true;
+        private int typeIndex_ = -1;
+
+        public Object invoke( Object proxy, Method method, Object[] args )
+                throws SQLException {
+            String name = method.getName();
+            if ( "getMetaData".equals( name ) ) {
+                return proxy( DatabaseMetaData.class, this::invokeMeta );
+            }
+            else if ( "createStatement".equals( name ) ) {
+                return proxy( Statement.class, ( p, m, a ) ->
+                    "executeQuery".equals( m.getName() )
+                        ? executeQuery( (String) a[ 0 ] )
+                        : defaultValue( m.getReturnType() ) );
+            }
+            else if ( "prepareStatement".equals( name ) ) {
+                return proxy( PreparedStatement.class, new StatementHandler() );
+            }
+            else if ( "getAutoCommit".equals( name ) ) {
+                return Boolean.valueOf( autoCommit_ );
+            }
+            else if ( "setAutoCommit".equals( name ) ) {
+                autoCommit_ = ((Boolean) args[ 0 ]).booleanValue();
+                commit();
+                return null;
+            }
+            else if ( "commit".equals( name ) ) {
+                ncommit_.incrementAndGet();
+                commit();
+                return null;
+            }
+            else if ( "rollback".equals( name ) ) {
+                nrollback_.incrementAndGet();
+                pending_.clear();
+                return null;
+            }
+            else if ( "close".equals( name ) ) {
+                nopen_.decrementAndGet();
+                return null;
+            }
+            else {
+                return defaultValue( method.getReturnType() );
+            }
+        }
+
+        private Object invokeMeta( Object proxy, Method method,
+                                   Object[] args ) {
+            String name = method.getName();
+            if ( "getTypeInfo".equals( name ) ) {
+                typeIndex_ = -1;
+                return proxy( ResultSet.class, this::invokeTypes );
+            }
+            else if ( "getIdentifierQuoteString".equals( name ) ) {
+                return "\"";
+            }
+            else if ( "getSQLKeywords".equals( name ) ) {
+                return "";
+            }
+            else {
+                return defaultValue( method.getReturnType() );
+            }
+        }
+
+        private Object invokeTypes( Object proxy, Method method,
+                                    Object[] args ) {
+            String name = method.getName();
+            if ( "next".equals( name ) ) {
+                return Boolean.valueOf( ++typeIndex_ < TYPES.length );
+            }
+            else if ( "getString".equals( name ) ) {
+                return TYPES[ typeIndex_ ][ 0 ];
+            }
+            else if ( "getShort".equals( name ) ) {
+                return Short.valueOf( ((Integer) TYPES[ typeIndex_ ][ 1 ])
+                                     .shortValue() );
+            }
+            else {
+                return defaultValue( method.getReturnType() );
+            }
+        }
+
+        private void insert( List<Object[]> rows ) throws SQLException {
+            synchronized ( rows_ ) {
+                for ( Object[] row : rows ) {
+                    if ( rows_.size() + pending_.size() == failRow_ ) {
+                        throw new SQLException( "Insert failure" );
+                    }
+                    pending_.add( row );
+                }
+            }
+            if ( autoCommit_ ) {
+                commit();
+            }
+        }
+
+        private void commit() {
+            synchronized ( rows_ ) {
+                rows_.addAll( pending_ );
+            }
+            pending_.clear();
+        }
+
+        private class StatementHandler implements InvocationHandler {
+            private final List<Object> params_ = new ArrayList<Object>();
+            private final List<Object[]> batch_ = new ArrayList<Object[]>();
+
+            public Object invoke( Object proxy, Method method, Object[] args )
+                    throws SQLException {
+                String name = method.getName();
+                if ( "setObject".equals( name ) || "setNull".equals( name ) ) {
+                    int ip = ((Integer) args[ 0 ]).intValue() - 1;
+                    while ( params_.size() <= ip ) {
+                        params_.add( null );
+                    }
+                    params_.set( ip, "setObject".equals( name ) ? args[ 1 ]
+                                                                : null );
+                    return null;
+                }
+                else if ( "executeUpdate".equals( name ) ) {
+                    nupdate_.incrementAndGet();
+                    List<Object[]> rows = new ArrayList<Object[]>();
+                    rows.add( params_.toArray() );
+                    insert( rows );
+                    return Integer.valueOf( 1 );
+                }
+                else if ( "addBatch".equals( name ) ) {
+                    batch_.add( params_.toArray() );
+                    return null;
+                }
+                else if ( "executeBatch".equals( name ) ) {
+                    nbatch_.incrementAndGet();
+                    int n = batch_.size();
+                    try {
+                        insert( batch_ );
+                    }
+                    finally {
+                        batch_.clear();
+                    }
+                    return new int[ n ];
+                }
+                else if ( "clearBatch".equals( name ) ) {
+                    batch_.clear();
+                    return null;
+                }
+                else {
+                    return defaultValue( method.getReturnType() );
+                }
+            }
+        }
+    }
+
+    private static class ResultSetHandler implements InvocationHandler {
+        private final String[] names_;
+        private final Class<?>[] classes_;
+        private final List<Object[]> rows_;
+        private int irow_;
+
+        ResultSetHandler( String[] names, Class<?>[] classes,
+                          List<Object[]> rows ) {
+            names_ = names;
+            classes_ = classes;
+            rows_ = rows;
+            irow_ = -1;
+        }
+
+        public Object invoke( Object proxy, Method method, Object[] args ) {
+            String name = method.getName();
+            if ( "next".equals( name ) ) {
+                return Boolean.valueOf( ++irow_ < rows_.size() );
+            }
+            else if ( "getObject".equals( name ) ) {
+                return rows_.get( irow_ )[ ((Integer) args[ 0 ]) - 1 ];
+            }
+            else if ( "getLong".equals( name ) ) {
+                Number val = (Number)
+                             rows_.get( irow_ )[ ((Integer) args[ 0 ]) - 1 ];
+                return Long.valueOf( val == null ? 0 : val.longValue() );
+            }
+            else if ( "isBeforeFirst".equals( name ) ) {
+                return Boolean.valueOf( irow_ < 0 );
+            }
+            else if ( "getType".equals( name ) ) {
+                return Integer.valueOf( ResultSet.TYPE_FORWARD_ONLY );
+            }
+            else if ( "getMetaData".equals( name ) ) {
+                return proxy( ResultSetMetaData.class, this::invokeMeta );
+            }
+            else {
+                return defaultValue( method.getReturnType() );
+            }
+        }
+
+        private Object invokeMeta( Object proxy, Method method,
+                                   Object[] args ) {
+            String name = method.getName();
+            if ( "getColumnCount".equals( name ) ) {
+                return Integer.valueOf( names_.length );
+            }
+            else if ( "getColumnName".equals( name ) ||
+                      "getColumnLabel".equals( name ) ) {
+                return names_[ ((Integer) args[ 0 ]) - 1 ];
+            }
+            else if ( "getColumnClassName".equals( name ) ) {
+                return classes_[ ((Integer) args[ 0 ]) - 1 ].getName();
+            }
+            else if ( "isNullable".equals( name ) ) {
+                return Integer.valueOf( ResultSetMetaData
+                                       .columnNullableUnknown );
+            }
+            else {
+                return defaultValue( method.getReturnType() );
+            }
+        }
+    }
+}
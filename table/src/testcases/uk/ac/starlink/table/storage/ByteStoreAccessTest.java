@@ -1,6 +1,7 @@
 package uk.ac.starlink.table.storage;
 
 import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
 import java.io.DataOutput;
 import java.io.DataOutputStream;
 import java.io.IOException;
@@ -29,6 +30,10 @@ public class ByteStoreAccessTest extends TestCase {
             new MultiNioAccess( toEvenBufs( data, cblock * 333 ) ),
             new MultiNioAccess( toEvenBufs( data, 1024 ) ),
             new MultiNioAccess( toEvenBufs( data, 371 ) ),
+            createCompressedAccess( data, 64 * 1024 ),
+            createCompressedAccess( data, 1024 ),
+            createCompressedAccess( data, 371 ),
+            createCompressedAccess( data, 7 ),
         };
 
         for ( int ia = 0; ia < accs.length; ia++ ) {
@@ -63,9 +68,21 @@ public class ByteStoreAccessTest extends TestCase {
             }
             catch ( IOException e ) {
             }
+            if ( acc instanceof Closeable ) {
+                ((Closeable) acc).close();
+            }
         }
     }
 
+    private ByteStoreAccess createCompressedAccess( byte[] data,
+                                                    int blockSize )
+            throws IOException {
+        CompressedByteStore store =
+            new CompressedByteStore( new MemoryByteStore(), blockSize );
+        store.getOutputStream().write( data );
+        return store.getAccessSupplier().get();
+    }
+
     private void writeBlock( int i, DataOutput out ) throws IOException {
         out.writeByte( (byte) i );
         out.writeShort( (short) i );
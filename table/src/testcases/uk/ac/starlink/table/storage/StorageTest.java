@@ -40,6 +40,9 @@ public class StorageTest extends TestCase {
         assertEquals( StoragePolicy.SIDEWAYS, getPolicy( "sideways" ) );
         assertEquals( StoragePolicy.DISCARD, getPolicy( "discard" ) );
         assertEquals( StoragePolicy.ADAPTIVE, getPolicy( "adaptive" ) );
+        assertEquals( StoragePolicy.COLUMNAR, getPolicy( "columnar" ) );
+        assertEquals( StoragePolicy.COMPRESSED_DISK,
+                      getPolicy( "compressed" ) );
 
         assertEquals( "StoragePolicy.PREFER_MEMORY",
                        StoragePolicy.PREFER_MEMORY.toString() );
@@ -51,6 +54,10 @@ public class StorageTest extends TestCase {
                        StoragePolicy.DISCARD.toString() );
         assertEquals( "StoragePolicy.ADAPTIVE",
                        StoragePolicy.ADAPTIVE.toString() );
+        assertEquals( "StoragePolicy.COLUMNAR",
+                       StoragePolicy.COLUMNAR.toString() );
+        assertEquals( "StoragePolicy.COMPRESSED_DISK",
+                       StoragePolicy.COMPRESSED_DISK.toString() );
 
         assertTrue( StoragePolicy.PREFER_MEMORY.makeRowStore()
                     instanceof ListRowStore );
@@ -62,6 +69,10 @@ public class StorageTest extends TestCase {
                     instanceof DiscardRowStore );
         assertTrue( StoragePolicy.ADAPTIVE.makeRowStore()
                     instanceof ByteStoreRowStore );
+        assertTrue( StoragePolicy.COLUMNAR.makeRowStore()
+                    instanceof ColumnarRowStore );
+        assertTrue( StoragePolicy.COMPRESSED_DISK.makeRowStore()
+                    instanceof CompressedDiskRowStore );
 
         assertTrue( StoragePolicy.PREFER_MEMORY.makeByteStore()
                     instanceof MemoryByteStore );
@@ -73,6 +84,10 @@ public class StorageTest extends TestCase {
                     instanceof DiscardByteStore );
         assertTrue( StoragePolicy.ADAPTIVE.makeByteStore()
                     instanceof AdaptiveByteStore );
+        assertTrue( StoragePolicy.COLUMNAR.makeByteStore()
+                    instanceof MemoryByteStore );
+        assertTrue( StoragePolicy.COMPRESSED_DISK.makeByteStore()
+                    instanceof CompressedByteStore );
     }
 
     public StoragePolicy getPolicy( String policyName ) {
@@ -117,6 +132,25 @@ public class StorageTest extends TestCase {
         t2.addColumn( ArrayColumn.makeColumn( fixStrCol, strData ) );
         t3.addColumn( ArrayColumn.makeColumn( varStrCol, strData ) );
 
+        /* Numeric array columns, fixed and variable length with blanks. */
+        float[][] fixArrays = new float[ nrow ][];
+        int[][] varArrays = new int[ nrow ][];
+        for ( int i = 0; i < nrow; i++ ) {
+            fixArrays[ i ] = i % 9 == 0 ? null
+                           : new float[] { i, -0.5f * i, i + 0.25f };
+            varArrays[ i ] = i % 5 == 0 ? null : new int[ i % 4 + 1 ];
+            if ( varArrays[ i ] != null ) {
+                fillRandom( varArrays[ i ], -100, 100 );
+            }
+        }
+        ColumnInfo fixArrayCol =
+            new ColumnInfo( "fixArrays", float[].class, null );
+        fixArrayCol.setShape( new int[] { 3 } );
+        ColumnInfo varArrayCol =
+            new ColumnInfo( "varArrays", int[].class, null );
+        t1.addColumn( ArrayColumn.makeColumn( fixArrayCol, fixArrays ) );
+        t3.addColumn( ArrayColumn.makeColumn( varArrayCol, varArrays ) );
+
         DiskRowStore dst1 = (DiskRowStore) fillStore( new DiskRowStore(), t1 );
         DiskRowStore dst2 = (DiskRowStore) fillStore( new DiskRowStore(), t2 );
         DiskRowStore dst3 = (DiskRowStore) fillStore( new DiskRowStore(), t3 );
@@ -166,11 +200,121 @@ public class StorageTest extends TestCase {
         assertTrue( err.indexOf( "sky-blue" ) > 0 );
     }
 
+    public void testColumnarStorage() throws IOException {
+        int nrow = 150_000;
+        ColumnStarTable t1 = ColumnStarTable.makeTableWithRows( (long) nrow );
+        Object[] numData = {
+            new byte[ nrow ],
+            new short[ nrow ],
+            new int[ nrow ],
+            new long[ nrow ],
+            new float[ nrow ],
+            new double[ nrow ],
+            new boolean[ nrow ],
+        };
+        for ( int i = 0; i < numData.length; i++ ) {
+            Object array = numData[ i ];
+            if ( ! ( array instanceof boolean[] ) ) {
+                fillRandom( array, -100, 100 );
+            }
+            t1.addColumn( ArrayColumn.makeColumn( "col" + ( i + 1 ),
+                                                  array ) );
+        }
+        Integer[] intData = new Integer[ nrow ];
+        String[] strData = new String[ nrow ];
+        int[][] arrayData = new int[ nrow ][];
+        String[] words = { "red", "green", "\u00e9t\u00e9", "", null,
+                           "sky-blue-pink", };
+        for ( int i = 0; i < nrow; i++ ) {
+            intData[ i ] = i % 7 == 0 ? null : Integer.valueOf( i );
+            arrayData[ i ] = i % 11 == 0 ? null
+                                         : new int[] { i, -i, i % 3 };
+            String word = words[ i % words.length ];
+            strData[ i ] = word == null ? null : word + ( i % 13 );
+        }
+        t1.addColumn( ArrayColumn.makeColumn( "intObjs", intData ) );
+        t1.addColumn( ArrayColumn.makeColumn( "strings", strData ) );
+        t1.addColumn( ArrayColumn.makeColumn( "arrays", arrayData ) );
+
+        ColumnarRowStore cst1 =
+            (ColumnarRowStore) fillStore( new ColumnarRowStore(), t1 );
+        StarTable ct1 = cst1.getStarTable();
+        assertTrue( ct1.isRandom() );
+        fTest_.checkStarTable( ct1 );
+        fTest_.assertTableEquals( t1, ct1 );
+
+        MemoryColumnStore dStore =
+            MemoryColumnStore.createColumnStore( t1.getColumnInfo( 5 ) );
+        MemoryColumnStore iStore =
+            MemoryColumnStore.createColumnStore( t1.getColumnInfo( 7 ) );
+        for ( int i = 0; i < nrow; i++ ) {
+            dStore.acceptCell( t1.getCell( i, 5 ) );
+            iStore.acceptCell( t1.getCell( i, 7 ) );
+        }
+        dStore.endCells();
+        iStore.endCells();
+        assertEquals( nrow, iStore.getRowCount() );
+        double[] dData = (double[]) numData[ 5 ];
+        for ( int i = 0; i < nrow; i += 97 ) {
+            assertEquals( dData[ i ], dStore.getDoubleValue( i ) );
+            assertTrue( ! dStore.isNull( i ) );
+            assertEquals( intData[ i ] == null, iStore.isNull( i ) );
+            if ( intData[ i ] != null ) {
+                assertEquals( i, iStore.getIntValue( i ) );
+                assertEquals( (long) i, iStore.getLongValue( i ) );
+            }
+        }
+    }
+
+    public void testCompressedStorage() throws IOException {
+        int nrow = 20_000;
+        ColumnStarTable t1 = ColumnStarTable.makeTableWithRows( (long) nrow );
+        int[] ivals = new int[ nrow ];
+        double[] dvals = new double[ nrow ];
+        String[] svals = new String[ nrow ];
+        fillRandom( dvals, -100, 100 );
+        for ( int i = 0; i < nrow; i++ ) {
+            ivals[ i ] = i % 17;
+            svals[ i ] = i % 5 == 0 ? null : "item-" + ( i % 31 );
+        }
+        t1.addColumn( ArrayColumn.makeColumn( "i", ivals ) );
+        t1.addColumn( ArrayColumn.makeColumn( "d", dvals ) );
+        t1.addColumn( ArrayColumn.makeColumn( "s", svals ) );
+
+        CompressedDiskRowStore cst1 = (CompressedDiskRowStore)
+                                      fillStore( new CompressedDiskRowStore(),
+                                                 t1 );
+        CompressedByteStore cbs =
+            (CompressedByteStore) cst1.getByteStore();
+        assertTrue( cbs.getCompressedLength() < cbs.getLength() );
+        StarTable ct1 = cst1.getStarTable();
+        fTest_.checkStarTable( ct1 );
+        fTest_.assertTableEquals( t1, ct1 );
+        for ( int irow = nrow - 1; irow >= 0; irow -= 777 ) {
+            assertEquals( Integer.valueOf( ivals[ irow ] ),
+                          ct1.getCell( irow, 0 ) );
+            assertEquals( svals[ irow ], ct1.getCell( irow, 2 ) );
+        }
+
+        MonitorStoragePolicy monitor =
+            new MonitorStoragePolicy( StoragePolicy.COMPRESSED_DISK,
+                                      new DiscardRowStore() );
+        assertTrue( Double.isNaN( monitor.getCompressionRatio() ) );
+        StarTable ct2 = monitor.copyTable( t1 );
+        fTest_.assertTableEquals( t1, ct2 );
+        assertTrue( monitor.getCompressionRatio() > 1.0 );
+    }
+
     public void testByteStorage() throws IOException {
         testByteStore( StoragePolicy.PREFER_MEMORY.makeByteStore() );
         testByteStore( StoragePolicy.PREFER_DISK.makeByteStore() );
         testByteStore( StoragePolicy.SIDEWAYS.makeByteStore() );
         testByteStore( StoragePolicy.ADAPTIVE.makeByteStore() );
+        testByteStore( StoragePolicy.COMPRESSED_DISK.makeByteStore() );
+        for ( int blockSize : new int[] { 1, 100, 333, 1000 } ) {
+            testByteStore( new CompressedByteStore( new MemoryByteStore(),
+                                                    blockSize ) );
+        }
         int[] limits = new int[] { 331, 332, 333, 334,
                                    998, 999, 1000, 1001,
                                    Integer.MAX_VALUE };
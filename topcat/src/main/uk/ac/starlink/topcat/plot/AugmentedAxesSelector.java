@@ -10,6 +10,7 @@ import javax.swing.JComboBox;
 import javax.swing.JComponent;
 import uk.ac.starlink.table.JoinStarTable;
 import uk.ac.starlink.table.RowAccess;
+import uk.ac.starlink.table.RowData;
 import uk.ac.starlink.table.RowSequence;
 import uk.ac.starlink.table.RowSplittable;
 import uk.ac.starlink.table.StarTable;
@@ -357,71 +358,15 @@ public class AugmentedAxesSelector implements AxesSelector, Wrapper {
         }
 
         public RowSequence getRowSequence() throws IOException {
-            return new WrapperRowSequence( super.getRowSequence() ) {
-
-                public Object[] getRow() throws IOException {
-                    Object[] row = super.getRow();
-                    boolean ok = true;
-                    for ( int ireq = 0; ok && ireq < nreq_; ireq++ ) {
-                        int ic = icolReqs_[ ireq ];
-                        ok = ok && notBlank( row[ ic ] );
-                    }
-                    if ( ! ok ) {
-                        for ( int ic = 0; ic < nbase_; ic++ ) {
-                            row[ ic ] = null;
-                        }
-                    }
-                    return row;
-                }
-
-                public Object getCell( int icol ) throws IOException {
-                    if ( icol < nbase_ ) {
-                        boolean ok = true;
-                        for ( int ireq = 0; ok && ireq < nreq_; ireq++ ) {
-                            int ic = icolReqs_[ ireq ];
-                            ok = ok && notBlank( super.getCell( ic ) );
-                        }
-                        return ok ? super.getCell( icol ) : null;
-                    }
-                    else {
-                        return super.getCell( icol );
-                    }
-                }
-            };
+            RowSequence baseSeq = super.getRowSequence();
+            return new WrapperRowSequence( baseSeq,
+                                           new AugmentedRowData( baseSeq ) );
         }
 
         public RowAccess getRowAccess() throws IOException {
-            return new WrapperRowAccess( super.getRowAccess() ) {
-                @Override
-                public Object[] getRow() throws IOException {
-                    Object[] row = super.getRow();
-                    boolean ok = true;
-                    for ( int ireq = 0; ok && ireq < nreq_; ireq++ ) {
-                        int ic = icolReqs_[ ireq ];
-                        ok = ok && notBlank( row[ ic ] );
-                    }
-                    if ( ! ok ) {
-                        for ( int ic = 0; ic < nbase_; ic++ ) {
-                            row[ ic ] = null;
-                        }
-                    }
-                    return row;
-                }
-                @Override
-                public Object getCell( int icol ) throws IOException {
-                    if ( icol < nbase_ ) {
-                        boolean ok = true;
-                        for ( int ireq = 0; ok && ireq < nreq_; ireq++ ) {
-                            int ic = icolReqs_[ ireq ];
-                            ok = ok && notBlank( super.getCell( ic ) );
-                        }
-                        return ok ? super.getCell( icol ) : null;
-                    }
-                    else {
-                        return super.getCell( icol );
-                    }
-                }
-            };
+            RowAccess baseAcc = super.getRowAccess();
+            return new WrapperRowAccess( baseAcc,
+                                         new AugmentedRowData( baseAcc ) );
         }
 
         public RowSplittable getRowSplittable() throws IOException {
@@ -457,6 +402,52 @@ public class AugmentedAxesSelector implements AxesSelector, Wrapper {
             return value instanceof Number
                 && ! Double.isNaN( ((Number) value).doubleValue() );
         }
+
+        /**
+         * Row data for this table, which blanks the base columns
+         * of rows in which any of the required columns is blank.
+         */
+        private class AugmentedRowData implements RowData {
+            private final RowData base_;
+
+            /**
+             * Constructor.
+             *
+             * @param  base  row data for the unblanked table
+             */
+            AugmentedRowData( RowData base ) {
+                base_ = base;
+            }
+
+            public Object[] getRow() throws IOException {
+                Object[] row = base_.getRow();
+                boolean ok = true;
+                for ( int ireq = 0; ok && ireq < nreq_; ireq++ ) {
+                    int ic = icolReqs_[ ireq ];
+                    ok = ok && notBlank( row[ ic ] );
+                }
+                if ( ! ok ) {
+                    for ( int ic = 0; ic < nbase_; ic++ ) {
+                        row[ ic ] = null;
+                    }
+                }
+                return row;
+            }
+
+            public Object getCell( int icol ) throws IOException {
+                if ( icol < nbase_ ) {
+                    boolean ok = true;
+                    for ( int ireq = 0; ok && ireq < nreq_; ireq++ ) {
+                        int ic = icolReqs_[ ireq ];
+                        ok = ok && notBlank( base_.getCell( ic ) );
+                    }
+                    return ok ? base_.getCell( icol ) : null;
+                }
+                else {
+                    return base_.getCell( icol );
+                }
+            }
+        }
     }
 
     /**
@@ -62,6 +62,7 @@ public class VotCopyHandler
     private BufferedWriter out_;
     private Locator locator_;
     private int iTable_;
+    private int writeThreadCount_;
 
     private final static Logger logger_ =
         Logger.getLogger( "uk.ac.starlink.ttools.copy" );
@@ -117,6 +118,7 @@ public class VotCopyHandler
         discardHandler_ = new DefaultHandler();
         handlerStack_ = new HandlerStack();
         handler_ = saxWriter_;
+        writeThreadCount_ = 1;
         setOutput( new OutputStreamWriter( System.out ) );
 
         /* Set up a handler to which table events will be forwarded. */
@@ -142,6 +144,18 @@ public class VotCopyHandler
         saxWriter_.setOutput( out_ );
     }
 
+    /**
+     * Sets the number of threads used for encoding row data
+     * in BINARY and BINARY2 output.
+     * The output is the same regardless of this setting.
+     *
+     * @param  nThread  encoding thread count; 1 for sequential encoding,
+     *                  &lt;=0 to use the number of available processors
+     */
+    public void setWriteThreadCount( int nThread ) {
+        writeThreadCount_ = nThread;
+    }
+
     public void startTable( final StarTable meta ) throws SAXException {
         assert handler_ == discardHandler_;
         tableHandler_.startTable( meta );
@@ -350,6 +364,7 @@ public class VotCopyHandler
                                : VOTableVersion.V13;
         VOSerializer voser =
             VOSerializer.makeSerializer( format_, serVers, table );
+        voser.setWriteThreadCount( writeThreadCount_ );
 
         /* If it's out-of-line, open a new file for output and write data
          * to it. */
@@ -0,0 +1,618 @@
+package uk.ac.starlink.ttools.filter;
+
+import gnu.jel.CompilationException;
+import gnu.jel.CompiledExpression;
+import gnu.jel.Library;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.LongSupplier;
+import java.util.logging.Logger;
+import uk.ac.starlink.table.AbstractStarTable;
+import uk.ac.starlink.table.ByteStore;
+import uk.ac.starlink.table.ColumnInfo;
+import uk.ac.starlink.table.DescribedValue;
+import uk.ac.starlink.table.RowCollector;
+import uk.ac.starlink.table.RowListStarTable;
+import uk.ac.starlink.table.RowRunner;
+import uk.ac.starlink.table.RowSequence;
+import uk.ac.starlink.table.RowSplittable;
+import uk.ac.starlink.table.StarTable;
+import uk.ac.starlink.table.StoragePolicy;
+import uk.ac.starlink.table.Tables;
+import uk.ac.starlink.table.ValueInfo;
+import uk.ac.starlink.table.storage.ByteStoreRowStore;
+import uk.ac.starlink.ttools.jel.DummyJELRowReader;
+import uk.ac.starlink.ttools.jel.JELUtils;
+import uk.ac.starlink.ttools.jel.SequentialJELRowReader;
+
+/**
+ * Sorts tables out of core, using an external merge sort.
+ *
+ * <p>The input table is read once, sequentially or in parallel
+ * according to a supplied {@link RowRunner}.  Rows are accumulated
+ * into bounded in-memory buffers, which are sorted and written out
+ * as runs to {@link uk.ac.starlink.table.ByteStore}s obtained
+ * from a {@link StoragePolicy}.  The output table's row sequence
+ * performs a k-way merge of those runs on the fly,
+ * so rows are available as soon as iteration starts.
+ * The input table need not have random access,
+ * and there is no limit on the number of rows except
+ * the available storage.
+ *
+ * <p>Each stored run contains the original columns,
+ * followed by the evaluated sort keys,
+ * followed, if the row index is known, by the input row index.
+ * The last of these is used to break ties,
+ * so that the sort is stable where row indices are available.
+ *
+ * @author   Mark Taylor
+ * @since    17 Oct 2026
+ */
+public class ExternalSorter {
+
+    private final String[] keys_;
+    private final boolean up_;
+    private final boolean nullsLast_;
+    private final RowRunner runner_;
+    private final StoragePolicy policy_;
+    private final long runCells_;
+
+    /** Default maximum number of cells held in memory for each run. */
+    public static final long DFLT_RUN_CELLS = 4_000_000;
+
+    /** Maximum number of runs that are merged at once. */
+    private static final int MAX_FANIN = 256;
+
+    /** Minimum number of rows in a run. */
+    private static final int MIN_RUN_ROWS = 1000;
+
+    private static final Logger logger_ =
+        Logger.getLogger( "uk.ac.starlink.ttools.filter" );
+
+    /**
+     * Constructor.
+     *
+     * @param  keys   JEL expressions for sort keys; first is most
+     *                significant for ordering, second next, etc
+     * @param  up  true for sorting into ascending order, false for
+     *             descending order
+     * @param  nullsLast  true if blank values should be considered
+     *                    last in the collation order, false if they should
+     *                    be considered first
+     * @param  runner   controls parallel processing during run generation
+     * @param  policy   storage policy supplying byte stores for sorted runs
+     * @param  runCells  maximum number of cells held in memory for
+     *                   each run
+     */
+    public ExternalSorter( String[] keys, boolean up, boolean nullsLast,
+                           RowRunner runner, StoragePolicy policy,
+                           long runCells ) {
+        keys_ = keys;
+        up_ = up;
+        nullsLast_ = nullsLast;
+        runner_ = runner;
+        policy_ = policy;
+        runCells_ = runCells;
+    }
+
+    /**
+     * Returns a sequential-only table containing the rows of a given
+     * table in sorted order.
+     * The input table is read by this method, but the merge is
+     * performed lazily by the returned table's row sequences.
+     *
+     * @param  base  input table
+     * @return  sorted table
+     */
+    public StarTable sort( StarTable base ) throws IOException {
+
+        /* Work out the types of the sort key expressions. */
+        int nkey = keys_.length;
+        int ncol = base.getColumnCount();
+        Library lib = JELUtils.getLibrary( new DummyJELRowReader( base ) );
+        ColumnInfo[] keyInfos = new ColumnInfo[ nkey ];
+        for ( int ik = 0; ik < nkey; ik++ ) {
+            Class<?> clazz;
+            try {
+                clazz = JELUtils.getExpressionType( lib, base, keys_[ ik ] );
+            }
+            catch ( CompilationException e ) {
+                throw JELUtils.toIOException( e, keys_[ ik ] );
+            }
+            clazz = JELUtils.getWrapperType( clazz );
+            if ( ! Comparable.class.isAssignableFrom( clazz ) ) {
+                throw new IOException( "Sort key " + keys_[ ik ]
+                                     + " has no defined sort order" );
+            }
+            keyInfos[ ik ] = new ColumnInfo( "sortkey_" + ( ik + 1 ), clazz,
+                                             keys_[ ik ] );
+        }
+
+        /* Determine whether row indices are available for tie-breaking. */
+        boolean hasIndex;
+        try ( RowSplittable rsplit = runner_.createRowSplittable( base ) ) {
+            hasIndex = rsplit.rowIndex() != null;
+        }
+
+        /* Prepare the metadata for stored runs. */
+        int nrun = ncol + nkey + ( hasIndex ? 1 : 0 );
+        ColumnInfo[] runInfos = new ColumnInfo[ nrun ];
+        for ( int icol = 0; icol < ncol; icol++ ) {
+            runInfos[ icol ] = base.getColumnInfo( icol );
+        }
+        System.arraycopy( keyInfos, 0, runInfos, ncol, nkey );
+        if ( hasIndex ) {
+            runInfos[ ncol + nkey ] =
+                new ColumnInfo( "sortindex", Long.class, null );
+        }
+        RunMeta runMeta =
+            new RunMeta( new RowListStarTable( runInfos ), ncol, nkey,
+                         hasIndex, createKeyComparator( nkey, hasIndex ) );
+
+        /* Generate sorted runs from the input table. */
+        int runRows =
+            (int) Math.min( Integer.MAX_VALUE,
+                            Math.max( MIN_RUN_ROWS, runCells_ / nrun ) );
+        List<StarTable> runs =
+            runner_.collect( new RunCollector( base, runMeta, runRows ),
+                             base );
+        logger_.info( "External sort: " + runs.size() + " initial runs" );
+
+        /* If there are too many runs to merge at once,
+         * perform intermediate merges until there are few enough. */
+        List<StarTable> mergeRuns = new ArrayList<StarTable>( runs );
+        while ( mergeRuns.size() > MAX_FANIN ) {
+            int nmerge = Math.min( MAX_FANIN,
+                                   mergeRuns.size() - MAX_FANIN + 1 );
+            List<StarTable> group =
+                new ArrayList<StarTable>( mergeRuns.subList( 0, nmerge ) );
+            mergeRuns.subList( 0, nmerge ).clear();
+            mergeRuns.add( mergeRuns( group, runMeta ) );
+        }
+        return new MergedTable( base, mergeRuns, runMeta );
+    }
+
+    /**
+     * Merges a number of runs into a single stored run.
+     *
+     * @param  runs  sorted input runs
+     * @param  runMeta  run characteristics
+     * @return  single sorted run containing all input rows
+     */
+    private StarTable mergeRuns( List<StarTable> runs, RunMeta runMeta )
+            throws IOException {
+        ByteStore byteStore = policy_.makeByteStore();
+        ByteStoreRowStore store = new ByteStoreRowStore( byteStore );
+        boolean done = false;
+        try {
+            store.acceptMetadata( runMeta.template_ );
+            try ( MergeRowSequence mseq =
+                      new MergeRowSequence( runs, runMeta ) ) {
+                while ( mseq.next() ) {
+                    store.acceptRow( mseq.getRunRow() );
+                }
+            }
+            store.endRows();
+            done = true;
+        }
+        finally {
+
+            /* The input runs are no longer required. */
+            for ( StarTable run : runs ) {
+                run.close();
+            }
+            if ( ! done ) {
+                byteStore.close();
+            }
+        }
+        return store.getStarTable();
+    }
+
+    /**
+     * Returns a comparator for the trailing key part of stored rows.
+     *
+     * @param  nkey  number of sort keys
+     * @param  hasIndex  true if key arrays have a trailing row index element
+     * @return   comparator for arrays of key values
+     */
+    private Comparator<Object[]> createKeyComparator( final int nkey,
+                                                      final boolean hasIndex ) {
+        return new Comparator<Object[]>() {
+            public int compare( Object[] keys1, Object[] keys2 ) {
+                for ( int ik = 0; ik < nkey; ik++ ) {
+                    int c = compareValues( keys1[ ik ], keys2[ ik ] );
+                    if ( c != 0 ) {
+                        return up_ ? c : -c;
+                    }
+                }
+                return hasIndex
+                     ? ((Long) keys1[ nkey ])
+                      .compareTo( (Long) keys2[ nkey ] )
+                     : 0;
+            }
+        };
+    }
+
+    /**
+     * Compares two key values, taking account of blanks.
+     * The treatment of blanks is the same as for the in-memory sort.
+     *
+     * @param  o1  first value
+     * @param  o2  second value
+     * @return  comparison result prior to direction adjustment
+     */
+    @SuppressWarnings("unchecked")
+    private int compareValues( Object o1, Object o2 ) {
+        boolean null1 = Tables.isBlank( o1 );
+        boolean null2 = Tables.isBlank( o2 );
+        if ( null1 && null2 ) {
+            return 0;
+        }
+        else if ( null1 ) {
+            return nullsLast_ ? +1 : -1;
+        }
+        else if ( null2 ) {
+            return nullsLast_ ? -1 : +1;
+        }
+        else {
+            return ((Comparable<Object>) o1).compareTo( o2 );
+        }
+    }
+
+    /**
+     * Characteristics of stored runs.
+     */
+    private static class RunMeta {
+        final StarTable template_;
+        final int ncol_;
+        final int nkey_;
+        final int nextra_;
+        final Comparator<Object[]> keyComparator_;
+
+        /**
+         * Constructor.
+         *
+         * @param  template  metadata template for stored runs
+         * @param  ncol   number of columns in output table
+         * @param  nkey   number of sort keys
+         * @param  hasIndex  whether runs contain a row index column
+         * @param  keyComparator  comparator for the key part of run rows
+         */
+        RunMeta( StarTable template, int ncol, int nkey, boolean hasIndex,
+                 Comparator<Object[]> keyComparator ) {
+            template_ = template;
+            ncol_ = ncol;
+            nkey_ = nkey;
+            nextra_ = nkey + ( hasIndex ? 1 : 0 );
+            keyComparator_ = keyComparator;
+        }
+    }
+
+    /**
+     * Collector that reads input rows and writes sorted runs.
+     * The result is a list of stored runs.
+     */
+    private class RunCollector extends RowCollector<List<StarTable>> {
+
+        private final StarTable base_;
+        private final RunMeta runMeta_;
+        private final int runRows_;
+
+        /**
+         * Constructor.
+         *
+         * @param  base  input table
+         * @param  runMeta  run characteristics
+         * @param  runRows  maximum number of rows in each run
+         */
+        RunCollector( StarTable base, RunMeta runMeta, int runRows ) {
+            base_ = base;
+            runMeta_ = runMeta;
+            runRows_ = runRows;
+        }
+
+        public List<StarTable> createAccumulator() {
+            return new ArrayList<StarTable>();
+        }
+
+        public List<StarTable> combine( List<StarTable> runs1,
+                                        List<StarTable> runs2 ) {
+            runs1.addAll( runs2 );
+            return runs1;
+        }
+
+        public void accumulateRows( RowSplittable rseq, List<StarTable> runs )
+                throws IOException {
+            SequentialJELRowReader rdr =
+                new SequentialJELRowReader( base_, rseq );
+            Library lib = JELUtils.getLibrary( rdr );
+            int nkey = runMeta_.nkey_;
+            CompiledExpression[] compExs = new CompiledExpression[ nkey ];
+            for ( int ik = 0; ik < nkey; ik++ ) {
+                try {
+                    compExs[ ik ] = JELUtils.compile( lib, base_, keys_[ ik ] );
+                }
+                catch ( CompilationException e ) {
+                    throw JELUtils.toIOException( e, keys_[ ik ] );
+                }
+            }
+            LongSupplier rowIndex = rseq.rowIndex();
+            boolean hasIndex = runMeta_.nextra_ > nkey;
+            int ncol = runMeta_.ncol_;
+            List<Object[]> rows = new ArrayList<Object[]>();
+            while ( rdr.next() ) {
+                Object[] row = new Object[ ncol + runMeta_.nextra_ ];
+                System.arraycopy( rdr.getRow(), 0, row, 0, ncol );
+                for ( int ik = 0; ik < nkey; ik++ ) {
+                    try {
+                        row[ ncol + ik ] = rdr.evaluate( compExs[ ik ] );
+                    }
+                    catch ( IOException e ) {
+                        throw e;
+                    }
+                    catch ( Throwable e ) {
+                        throw new IOException( "Evaluation error: " + e, e );
+                    }
+                }
+                if ( hasIndex ) {
+                    row[ ncol + nkey ] =
+                        Long.valueOf( rowIndex.getAsLong() );
+                }
+                rows.add( row );
+                if ( rows.size() >= runRows_ ) {
+                    runs.add( writeRun( rows ) );
+                    rows.clear();
+                }
+            }
+            if ( rows.size() > 0 ) {
+                runs.add( writeRun( rows ) );
+            }
+        }
+
+        /**
+         * Sorts a list of rows and writes it to storage.
+         *
+         * @param  rows  run rows including keys
+         * @return  stored run table
+         */
+        private StarTable writeRun( List<Object[]> rows ) throws IOException {
+            final int ncol = runMeta_.ncol_;
+            final int nextra = runMeta_.nextra_;
+            final Comparator<Object[]> keyComp = runMeta_.keyComparator_;
+            Object[][] rowArray = rows.toArray( new Object[ 0 ][] );
+            try {
+                Arrays.sort( rowArray, new Comparator<Object[]>() {
+                    final Object[] keys1 = new Object[ nextra ];
+                    final Object[] keys2 = new Object[ nextra ];
+                    public int compare( Object[] row1, Object[] row2 ) {
+                        System.arraycopy( row1, ncol, keys1, 0, nextra );
+                        System.arraycopy( row2, ncol, keys2, 0, nextra );
+                        return keyComp.compare( keys1, keys2 );
+                    }
+                } );
+            }
+            catch ( ClassCastException e ) {
+                throw new IOException( "Expression comparison error "
+                                     + "during sorting", e );
+            }
+            ByteStore byteStore = policy_.makeByteStore();
+            ByteStoreRowStore store = new ByteStoreRowStore( byteStore );
+            boolean done = false;
+            try {
+                store.acceptMetadata( runMeta_.template_ );
+                for ( Object[] row : rowArray ) {
+                    store.acceptRow( row );
+                }
+                store.endRows();
+                done = true;
+            }
+            finally {
+                if ( ! done ) {
+                    byteStore.close();
+                }
+            }
+
+            /* Closing the stored table closes its byte store. */
+            return store.getStarTable();
+        }
+    }
+
+    /**
+     * Row sequence that merges a number of sorted runs.
+     * The cells it presents are those of the original table.
+     */
+    private static class MergeRowSequence implements RowSequence {
+
+        private final RunMeta runMeta_;
+        private final List<RunCursor> cursors_;
+        private final PriorityQueue<RunCursor> queue_;
+        private RunCursor current_;
+
+        /**
+         * Constructor.
+         *
+         * @param  runs   sorted runs
+         * @param  runMeta  run characteristics
+         */
+        MergeRowSequence( List<StarTable> runs, RunMeta runMeta )
+                throws IOException {
+            runMeta_ = runMeta;
+            final Comparator<Object[]> keyComp = runMeta.keyComparator_;
+            queue_ = new PriorityQueue<RunCursor>(
+                         Math.max( 1, runs.size() ),
+                         new Comparator<RunCursor>() {
+                public int compare( RunCursor c1, RunCursor c2 ) {
+                    int c = keyComp.compare( c1.keys_, c2.keys_ );
+                    return c == 0 ? Integer.compare( c1.irun_, c2.irun_ )
+                                  : c;
+                }
+            } );
+            cursors_ = new ArrayList<RunCursor>();
+            int irun = 0;
+            for ( StarTable run : runs ) {
+                RunCursor cursor =
+                    new RunCursor( run.getRowSequence(), irun++, runMeta );
+                cursors_.add( cursor );
+                if ( cursor.advance() ) {
+                    queue_.add( cursor );
+                }
+            }
+        }
+
+        public boolean next() throws IOException {
+            if ( current_ != null && current_.advance() ) {
+                queue_.add( current_ );
+            }
+            current_ = queue_.poll();
+            return current_ != null;
+        }
+
+        public Object getCell( int icol ) throws IOException {
+            return getCurrent().rseq_.getCell( icol );
+        }
+
+        public Object[] getRow() throws IOException {
+            Object[] row = new Object[ runMeta_.ncol_ ];
+            System.arraycopy( getCurrent().rseq_.getRow(), 0,
+                              row, 0, runMeta_.ncol_ );
+            return row;
+        }
+
+        /**
+         * Returns the current row as stored in the run,
+         * including trailing key values.
+         *
+         * @return  run row
+         */
+        Object[] getRunRow() throws IOException {
+            return getCurrent().rseq_.getRow();
+        }
+
+        public void close() throws IOException {
+            for ( RunCursor cursor : cursors_ ) {
+                cursor.rseq_.close();
+            }
+        }
+
+        /**
+         * Returns the cursor positioned at the current row.
+         *
+         * @return  current cursor
+         * @throws  IllegalStateException  if there is no current row
+         */
+        private RunCursor getCurrent() {
+            if ( current_ == null ) {
+                throw new IllegalStateException( "No current row" );
+            }
+            return current_;
+        }
+    }
+
+    /**
+     * Iterates over a single sorted run, caching the key values of
+     * the current row.
+     */
+    private static class RunCursor {
+        final RowSequence rseq_;
+        final int irun_;
+        final int ncol_;
+        final Object[] keys_;
+
+        /**
+         * Constructor.
+         *
+         * @param  rseq  row sequence over run
+         * @param  irun  index of run, used for tie-breaking
+         * @param  runMeta  run characteristics
+         */
+        RunCursor( RowSequence rseq, int irun, RunMeta runMeta ) {
+            rseq_ = rseq;
+            irun_ = irun;
+            ncol_ = runMeta.ncol_;
+            keys_ = new Object[ runMeta.nextra_ ];
+        }
+
+        /**
+         * Moves to the next row of this run.
+         *
+         * @return  true iff there is a next row
+         */
+        boolean advance() throws IOException {
+            if ( rseq_.next() ) {
+                for ( int i = 0; i < keys_.length; i++ ) {
+                    keys_[ i ] = rseq_.getCell( ncol_ + i );
+                }
+                return true;
+            }
+            else {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Sequential-only table whose rows are those of a set of merged runs.
+     * Closing it closes the runs.
+     */
+    private static class MergedTable extends AbstractStarTable {
+
+        private final StarTable base_;
+        private final List<StarTable> runs_;
+        private final RunMeta runMeta_;
+        private final long nrow_;
+
+        /**
+         * Constructor.
+         *
+         * @param  base  input table, supplying metadata
+         * @param  runs  sorted runs
+         * @param  runMeta  run characteristics
+         */
+        MergedTable( StarTable base, List<StarTable> runs, RunMeta runMeta ) {
+            base_ = base;
+            runs_ = runs;
+            runMeta_ = runMeta;
+            setName( base.getName() );
+            setURL( base.getURL() );
+            setParameters( new ArrayList<DescribedValue>( base
+                                                         .getParameters() ) );
+            long nrow = 0;
+            for ( StarTable run : runs ) {
+                nrow += run.getRowCount();
+            }
+            nrow_ = nrow;
+        }
+
+        public int getColumnCount() {
+            return runMeta_.ncol_;
+        }
+
+        public ColumnInfo getColumnInfo( int icol ) {
+            return base_.getColumnInfo( icol );
+        }
+
+        @Override
+        public List<ValueInfo> getColumnAuxDataInfos() {
+            return base_.getColumnAuxDataInfos();
+        }
+
+        public long getRowCount() {
+            return nrow_;
+        }
+
+        public RowSequence getRowSequence() throws IOException {
+            return new MergeRowSequence( runs_, runMeta_ );
+        }
+
+        @Override
+        public void close() throws IOException {
+            for ( StarTable run : runs_ ) {
+                run.close();
+            }
+        }
+    }
+}
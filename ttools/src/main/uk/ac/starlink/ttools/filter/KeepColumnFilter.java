@@ -3,6 +3,8 @@ package uk.ac.starlink.ttools.filter;
 import java.io.IOException;
 import java.util.Iterator;
 import uk.ac.starlink.table.ColumnPermutedStarTable;
+import uk.ac.starlink.table.ColumnRange;
+import uk.ac.starlink.table.RestrictableStarTable;
 import uk.ac.starlink.table.StarTable;
 import uk.ac.starlink.ttools.jel.ColumnIdentifier;
 
@@ -50,6 +52,9 @@ public class KeepColumnFilter extends BasicFilter {
     /**
      * Returns a table which selects a number of columns from its base 
      * table by column ID.
+     * If the base table is a {@link RestrictableStarTable},
+     * it is asked to provide the restricted table itself,
+     * so it may be able to avoid reading data for the unused columns.
      *
      * @param  table  base table
      * @param  colIdList  list of column IDs, one for each column 
@@ -60,7 +65,10 @@ public class KeepColumnFilter extends BasicFilter {
             throws IOException {
         int[] colMap = new ColumnIdentifier( table )
                       .getColumnIndices( colIdList );
-        return new ColumnPermutedStarTable( table, colMap );
+        return table instanceof RestrictableStarTable
+             ? ((RestrictableStarTable) table)
+              .restrict( colMap, new ColumnRange[ 0 ] )
+             : new ColumnPermutedStarTable( table, colMap );
     }
 
 }
@@ -1,9 +1,20 @@
 package uk.ac.starlink.ttools.filter;
 
 import gnu.jel.CompilationException;
+import gnu.jel.Library;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
+import java.util.List;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import uk.ac.starlink.table.ColumnPermutedStarTable;
+import uk.ac.starlink.table.ColumnRange;
+import uk.ac.starlink.table.RestrictableStarTable;
 import uk.ac.starlink.table.StarTable;
+import uk.ac.starlink.ttools.jel.DummyJELRowReader;
 import uk.ac.starlink.ttools.jel.JELUtils;
 
 /**
@@ -14,6 +25,19 @@ import uk.ac.starlink.ttools.jel.JELUtils;
  */
 public class SelectFilter extends BasicFilter {
 
+    private static final String IDENT_REGEX = "([A-Za-z_$][A-Za-z0-9_$]*)";
+    private static final String OP_REGEX = "(<=|>=|==|<|>)";
+    private static final String NUM_REGEX =
+        "([-+]?(?:[0-9]+\\.?[0-9]*|\\.[0-9]+)(?:[eE][-+]?[0-9]+)?)";
+    private static final Pattern COL_OP_NUM_REGEX =
+        Pattern.compile( IDENT_REGEX + "\\s*" + OP_REGEX + "\\s*"
+                       + NUM_REGEX );
+    private static final Pattern NUM_OP_COL_REGEX =
+        Pattern.compile( NUM_REGEX + "\\s*" + OP_REGEX + "\\s*"
+                       + IDENT_REGEX );
+    private static final Logger logger_ =
+        Logger.getLogger( "uk.ac.starlink.ttools.filter" );
+
     public SelectFilter() {
         super( "select", "<expr>" );
     }
@@ -48,11 +72,289 @@ public class SelectFilter extends BasicFilter {
         }
         public StarTable wrap( StarTable base ) throws IOException {
             try {
-                return new JELSelectorTable( base, expr_ );
+                return base instanceof RestrictableStarTable
+                     ? createRestrictedSelector( (RestrictableStarTable) base,
+                                                 expr_ )
+                     : new JELSelectorTable( base, expr_ );
             }
             catch ( CompilationException e ) {
                 throw JELUtils.toIOException( e, expr_ );
             }
         }
     }
+
+    /**
+     * Returns a selector table based on a restrictable table.
+     * Simple numeric range constraints in the expression are passed to
+     * the base table, so it can avoid reading rows that will be
+     * rejected anyway.
+     * The result is itself restrictable, so that column restrictions
+     * applied later in a pipeline can also be passed to the base table.
+     *
+     * @param  base  base table
+     * @param  expr  boolean selection expression
+     * @return  selector table
+     */
+    private static StarTable
+            createRestrictedSelector( RestrictableStarTable base, String expr )
+            throws CompilationException, IOException {
+        DummyJELRowReader rdr = new DummyJELRowReader( base );
+        Library lib = JELUtils.getLibrary( rdr );
+        JELUtils.checkExpressionType( lib, base, expr, boolean.class );
+
+        /* If the expression depends on row index, no restriction is
+         * possible, since omitting rows would change the result. */
+        if ( rdr.requiresRowIndex() ) {
+            return new JELSelectorTable( base, expr );
+        }
+        int ncol = base.getColumnCount();
+        int[] allCols = new int[ ncol ];
+        for ( int ic = 0; ic < ncol; ic++ ) {
+            allCols[ ic ] = ic;
+        }
+        ColumnRange[] ranges = getColumnRanges( base, expr );
+        StarTable rbase = ranges.length > 0 ? base.restrict( allCols, ranges )
+                                            : base;
+        if ( ranges.length > 0 ) {
+            logger_.info( "Passing ranges " + Arrays.toString( ranges )
+                        + " to " + base.getClass().getSimpleName() );
+        }
+        return rbase instanceof RestrictableStarTable
+             ? new RestrictableSelectorTable( (RestrictableStarTable) rbase,
+                                              expr, rdr.getTranslatedColumns() )
+             : new JELSelectorTable( rbase, expr );
+    }
+
+    /**
+     * Extracts simple numeric range constraints from a boolean expression.
+     * Only top-level conjuncts of the form
+     * <code>&lt;column&gt; &lt;op&gt; &lt;number&gt;</code> or
+     * <code>&lt;number&gt; &lt;op&gt; &lt;column&gt;</code>,
+     * where <code>&lt;op&gt;</code> is one of
+     * <code>&lt;</code>, <code>&lt;=</code>, <code>&gt;</code>,
+     * <code>&gt;=</code> or <code>==</code>,
+     * and the column is numeric, are recognised.
+     * Every row for which the expression is true satisfies all the
+     * returned ranges, though the converse is not generally the case.
+     *
+     * @param  table  table to which the expression applies
+     * @param  expr   boolean expression
+     * @return   ranges which must be satisfied for the expression to be true
+     */
+    static ColumnRange[] getColumnRanges( StarTable table, String expr ) {
+        List<ColumnRange> ranges = new ArrayList<>();
+        DummyJELRowReader rdr = new DummyJELRowReader( table );
+        for ( String conjunct : getConjuncts( expr ) ) {
+            conjunct = conjunct.trim();
+            if ( conjunct.startsWith( "(" ) && conjunct.endsWith( ")" ) &&
+                 conjunct.lastIndexOf( '(' ) == 0 &&
+                 conjunct.indexOf( ')' ) == conjunct.length() - 1 ) {
+                conjunct = conjunct.substring( 1, conjunct.length() - 1 )
+                                   .trim();
+            }
+            String name;
+            String op;
+            double value;
+            Matcher cnMatcher = COL_OP_NUM_REGEX.matcher( conjunct );
+            Matcher ncMatcher = NUM_OP_COL_REGEX.matcher( conjunct );
+            if ( cnMatcher.matches() ) {
+                name = cnMatcher.group( 1 );
+                op = cnMatcher.group( 2 );
+                value = Double.parseDouble( cnMatcher.group( 3 ) );
+            }
+            else if ( ncMatcher.matches() ) {
+                name = ncMatcher.group( 3 );
+                op = reverseComparison( ncMatcher.group( 2 ) );
+                value = Double.parseDouble( ncMatcher.group( 1 ) );
+            }
+            else {
+                continue;
+            }
+            int icol = getNumericColumnIndex( rdr, table, name );
+            if ( icol >= 0 ) {
+                double lo = Double.NEGATIVE_INFINITY;
+                double hi = Double.POSITIVE_INFINITY;
+                if ( op.charAt( 0 ) == '<' ) {
+                    hi = value;
+                }
+                else if ( op.charAt( 0 ) == '>' ) {
+                    lo = value;
+                }
+                else {
+                    assert "==".equals( op );
+                    lo = value;
+                    hi = value;
+                }
+                ranges.add( new ColumnRange( icol, lo, hi ) );
+            }
+        }
+        return ranges.toArray( new ColumnRange[ 0 ] );
+    }
+
+    /**
+     * Splits a JEL expression into top-level conjuncts.
+     * If the expression cannot be treated as a conjunction,
+     * an empty list is returned.
+     *
+     * @param  expr  boolean expression
+     * @return  list of sub-expressions which must all be true for
+     *          the expression to be true
+     */
+    private static List<String> getConjuncts( String expr ) {
+        List<String> conjuncts = new ArrayList<>();
+        int depth = 0;
+        int start = 0;
+        char quote = 0;
+        int leng = expr.length();
+        for ( int i = 0; i < leng; i++ ) {
+            char c = expr.charAt( i );
+            if ( quote != 0 ) {
+                if ( c == quote ) {
+                    quote = 0;
+                }
+            }
+            else if ( c == '"' || c == '\'' ) {
+                quote = c;
+            }
+            else if ( c == '(' ) {
+                depth++;
+            }
+            else if ( c == ')' ) {
+                depth--;
+            }
+            else if ( depth == 0 ) {
+                if ( c == '|' || c == '?' ) {
+                    return new ArrayList<String>();
+                }
+                else if ( c == '&' && i + 1 < leng &&
+                          expr.charAt( i + 1 ) == '&' ) {
+                    conjuncts.add( expr.substring( start, i ) );
+                    start = i + 2;
+                    i++;
+                }
+            }
+        }
+        conjuncts.add( expr.substring( start ) );
+        return conjuncts;
+    }
+
+    /**
+     * Returns the comparison operator that gives the same result
+     * when its operands are swapped.
+     *
+     * @param  op  comparison operator
+     * @return  reversed operator
+     */
+    private static String reverseComparison( String op ) {
+        switch ( op ) {
+            case "<":  return ">";
+            case "<=": return ">=";
+            case ">":  return "<";
+            case ">=": return "<=";
+            default:   return op;
+        }
+    }
+
+    /**
+     * Returns the index of the numeric column to which a JEL identifier
+     * refers.
+     *
+     * @param  rdr   row reader for table
+     * @param  table  table
+     * @param  name   JEL identifier
+     * @return  column index, or -1 if the identifier does not
+     *          refer to a numeric column
+     */
+    private static int getNumericColumnIndex( DummyJELRowReader rdr,
+                                              StarTable table, String name ) {
+        int icol = rdr.getColumnIndex( name );
+        Object tr = rdr.translate( name );
+        return icol >= 0 && icol < table.getColumnCount() &&
+               tr instanceof Integer && ((Integer) tr).intValue() == icol &&
+               Number.class.isAssignableFrom( table.getColumnInfo( icol )
+                                                   .getContentClass() )
+             ? icol
+             : -1;
+    }
+
+    /**
+     * Selector table whose base table is restrictable, and which is
+     * itself restrictable.
+     */
+    private static class RestrictableSelectorTable extends JELSelectorTable
+                                                   implements
+                                                   RestrictableStarTable {
+
+        private final RestrictableStarTable base_;
+        private final String expr_;
+        private final int[] exprCols_;
+
+        /**
+         * Constructor.
+         *
+         * @param  base   base table
+         * @param  expr   boolean selection expression
+         * @param  exprCols  indices of the base table columns referenced
+         *                   by the expression
+         */
+        RestrictableSelectorTable( RestrictableStarTable base, String expr,
+                                   int[] exprCols )
+                throws CompilationException {
+            super( base, expr );
+            base_ = base;
+            expr_ = expr;
+            exprCols_ = exprCols.clone();
+            Arrays.sort( exprCols_ );
+        }
+
+        public StarTable restrict( int[] colMap, ColumnRange[] ranges )
+                throws IOException {
+
+            /* Restrict the base table to those columns required by
+             * the expression and by the caller. */
+            List<Integer> baseCols = new ArrayList<>();
+            for ( int ic : exprCols_ ) {
+                baseCols.add( Integer.valueOf( ic ) );
+            }
+            int[] outMap = new int[ colMap.length ];
+            for ( int i = 0; i < colMap.length; i++ ) {
+                Integer ic = Integer.valueOf( colMap[ i ] );
+                int jc = baseCols.indexOf( ic );
+                if ( jc < 0 ) {
+                    jc = baseCols.size();
+                    baseCols.add( ic );
+                }
+                outMap[ i ] = jc;
+            }
+            int[] baseMap = new int[ baseCols.size() ];
+            for ( int i = 0; i < baseMap.length; i++ ) {
+                baseMap[ i ] = baseCols.get( i ).intValue();
+            }
+            StarTable rbase = base_.restrict( baseMap, ranges );
+
+            /* Check that the expression still refers to the same columns
+             * when evaluated against the restricted table; that might not
+             * be the case if columns are referenced by position. */
+            JELSelectorTable selector;
+            try {
+                DummyJELRowReader rdr = new DummyJELRowReader( rbase );
+                JELUtils.checkExpressionType( JELUtils.getLibrary( rdr ),
+                                              rbase, expr_, boolean.class );
+                int[] rcols = rdr.getTranslatedColumns();
+                for ( int i = 0; i < rcols.length; i++ ) {
+                    rcols[ i ] = baseMap[ rcols[ i ] ];
+                }
+                Arrays.sort( rcols );
+                selector = Arrays.equals( rcols, exprCols_ )
+                         ? new JELSelectorTable( rbase, expr_ )
+                         : null;
+            }
+            catch ( CompilationException e ) {
+                selector = null;
+            }
+            return selector == null
+                 ? new ColumnPermutedStarTable( this, colMap )
+                 : new ColumnPermutedStarTable( selector, outMap );
+        }
+    }
 }
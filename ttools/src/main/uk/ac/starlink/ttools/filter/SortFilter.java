@@ -9,7 +9,9 @@ import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import uk.ac.starlink.table.RowPermutedStarTable;
+import uk.ac.starlink.table.RowRunner;
 import uk.ac.starlink.table.StarTable;
+import uk.ac.starlink.table.StoragePolicy;
 import uk.ac.starlink.table.Tables;
 import uk.ac.starlink.task.TaskException;
 import uk.ac.starlink.ttools.Tokenizer;
@@ -28,7 +30,7 @@ public class SortFilter extends BasicFilter {
 
     public SortFilter() {
         super( "sort",
-               "[-down] [-nullsfirst] [-[no]parallel] " 
+               "[-down] [-nullsfirst] [-[no]parallel] [-external] "
              + "<key-list>" );
     }
 
@@ -56,6 +58,16 @@ public class SortFilter extends BasicFilter {
             "and in parallel for large tables, but this can be controlled",
             "with the <code>-parallel</code> or <code>-noparallel</code> flag.",
             "</p>",
+            "<p>If the <code>-external</code> flag is given,",
+            "an out-of-core merge sort is used:",
+            "sorted runs of rows are written to temporary storage",
+            "according to the default storage policy,",
+            "and merged as the output is read.",
+            "This uses a bounded amount of memory,",
+            "does not require random access to the input table,",
+            "and can sort tables with more than 2<sup>31</sup> rows.",
+            "It is used automatically for such large tables.",
+            "</p>",
             explainSyntax( new String[] { "key-list", } ),
         };
     }
@@ -65,6 +77,7 @@ public class SortFilter extends BasicFilter {
         boolean up = true;
         boolean nullsLast = true;
         Boolean isParallel = null;
+        boolean isExternal = false;
         String exprs = null;
         while ( argIt.hasNext() && exprs == null ) {
             String arg = argIt.next();
@@ -84,6 +97,10 @@ public class SortFilter extends BasicFilter {
                 argIt.remove();
                 isParallel = Boolean.FALSE;
             }
+            else if ( arg.equals( "-external" ) ) {
+                argIt.remove();
+                isExternal = true;
+            }
             else if ( exprs == null ) {
                 argIt.remove();
                 exprs = arg;
@@ -106,7 +123,58 @@ public class SortFilter extends BasicFilter {
         }
 
         /* Return the appropriate step implementation. */
-        return new SortStep( keys, up, nullsLast, isParallel );
+        return isExternal
+             ? new ExternalSortStep( keys, up, nullsLast, isParallel )
+             : new SortStep( keys, up, nullsLast, isParallel );
+    }
+
+    /**
+     * Returns a table sorted out of core.
+     *
+     * @param  baseTable  input table
+     * @param  keys   sort key expressions
+     * @param  up  true for ascending order
+     * @param  nullsLast  true to sort blanks last
+     * @param  isParallel  whether input should be read in parallel
+     * @return  sorted sequential table
+     */
+    private static StarTable externalSort( StarTable baseTable, String[] keys,
+                                           boolean up, boolean nullsLast,
+                                           boolean isParallel )
+            throws IOException {
+        RowRunner runner = isParallel ? RowRunner.DEFAULT
+                                      : RowRunner.SEQUENTIAL;
+        return new ExternalSorter( keys, up, nullsLast, runner,
+                                   StoragePolicy.getDefaultPolicy(),
+                                   ExternalSorter.DFLT_RUN_CELLS )
+              .sort( baseTable );
+    }
+
+    /**
+     * Step implementation which sorts using an external merge sort.
+     */
+    private static class ExternalSortStep implements ProcessingStep {
+        final String[] keys_;
+        final boolean up_;
+        final boolean nullsLast_;
+        final Boolean isParallel_;
+
+        ExternalSortStep( String[] keys, boolean up, boolean nullsLast,
+                          Boolean isParallel ) {
+            keys_ = keys;
+            up_ = up;
+            nullsLast_ = nullsLast;
+            isParallel_ = isParallel;
+        }
+
+        public StarTable wrap( StarTable baseTable ) throws IOException {
+            long nrow = baseTable.getRowCount();
+            boolean isParallel = isParallel_ == null
+                               ? ( nrow < 0 || nrow > PARALLEL_THRESHOLD )
+                               : isParallel_.booleanValue();
+            return externalSort( baseTable, keys_, up_, nullsLast_,
+                                 isParallel );
+        }
     }
 
     /**
@@ -127,11 +195,18 @@ public class SortFilter extends BasicFilter {
         }
 
         public StarTable wrap( StarTable baseTable ) throws IOException {
-            baseTable = Tables.randomTable( baseTable );
+
+            /* Avoid making a random copy if the table is known to be
+             * too large for an in-memory sort. */
             long lnrow = baseTable.getRowCount();
+            if ( lnrow <= Integer.MAX_VALUE ) {
+                baseTable = Tables.randomTable( baseTable );
+                lnrow = baseTable.getRowCount();
+            }
             if ( lnrow > Integer.MAX_VALUE ) {
-                throw new UnsupportedOperationException( 
-                    "Sorry, can't sort tables with >2^31 rows" );
+                return externalSort( baseTable, keys_, up_, nullsLast_,
+                                     isParallel_ == null
+                                  || isParallel_.booleanValue() );
             }
             int nrow = (int) lnrow;
             boolean isParallel = isParallel_ == null
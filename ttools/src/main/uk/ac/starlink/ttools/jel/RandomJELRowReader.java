@@ -84,6 +84,15 @@ public abstract class RandomJELRowReader extends StarTableJELRowReader {
             public Object getCell( int icol ) throws IOException {
                 return racc.getCell( icol );
             }
+            protected double getDoubleCell( int icol ) throws IOException {
+                return racc.getDouble( icol );
+            }
+            protected long getLongCell( int icol ) throws IOException {
+                return racc.getLong( icol );
+            }
+            protected boolean isNullCell( int icol ) throws IOException {
+                return racc.isNull( icol );
+            }
             public Object evaluateAtRow( CompiledExpression compEx, long lrow )
                     throws Throwable {
                 if ( lrow != lrow_ ) {
@@ -67,6 +67,35 @@ public class SequentialJELRowReader extends StarTableJELRowReader
         return rseq_.getRow();
     } 
 
+    public double getDouble( int icol ) throws IOException {
+        return rseq_.getDouble( icol );
+    }
+
+    public long getLong( int icol ) throws IOException {
+        return rseq_.getLong( icol );
+    }
+
+    public boolean isNull( int icol ) throws IOException {
+        return rseq_.isNull( icol );
+    }
+
+    public double[] getDoubleArray( int icol, double[] buf )
+            throws IOException {
+        return rseq_.getDoubleArray( icol, buf );
+    }
+
+    protected double getDoubleCell( int icol ) throws IOException {
+        return rseq_.getDouble( icol );
+    }
+
+    protected long getLongCell( int icol ) throws IOException {
+        return rseq_.getLong( icol );
+    }
+
+    protected boolean isNullCell( int icol ) throws IOException {
+        return rseq_.isNull( icol );
+    }
+
     public boolean next() throws IOException {
         lrow_++;
         return rseq_.next();
@@ -87,6 +87,9 @@ public abstract class StarTableJELRowReader extends JELRowReader {
     private static final Logger logger_ =
         Logger.getLogger( "uk.ac.starlink.ttools.jel" );
 
+    /** Magnitude below which all integers can be represented as doubles. */
+    private static final double EXACT_DOUBLE_LIMIT = 1L << 53;
+
     /**
      * The string which should be prefixed to a table parameter (constant)
      * name to result in substituting its value.
@@ -139,6 +142,56 @@ public abstract class StarTableJELRowReader extends JELRowReader {
      */
     protected abstract Object getCell( int icol ) throws IOException;
 
+    /**
+     * Returns the value for a given column in this reader's table at
+     * the current row as a floating point value.
+     * This is used for evaluating numeric column values in expressions.
+     * The default implementation uses {@link #getCell},
+     * but subclasses with access to a {@link uk.ac.starlink.table.RowData}
+     * should override it to use the corresponding typed accessor,
+     * so that evaluation can proceed without per-row object creation.
+     *
+     * @param  icol  column index
+     * @return  numeric value of column <code>icol</code> at the current row,
+     *          or NaN if blank
+     * @see  uk.ac.starlink.table.RowData#getDouble
+     */
+    protected double getDoubleCell( int icol ) throws IOException {
+        Object value = getCell( icol );
+        return value instanceof Number ? ((Number) value).doubleValue()
+                                       : Double.NaN;
+    }
+
+    /**
+     * Returns the value for a given column in this reader's table at
+     * the current row as an integer value.
+     * The default implementation uses {@link #getCell},
+     * but subclasses may override it to avoid object creation.
+     *
+     * @param  icol  column index
+     * @return  integer value of column <code>icol</code> at the current row,
+     *          undefined if blank
+     * @see  uk.ac.starlink.table.RowData#getLong
+     */
+    protected long getLongCell( int icol ) throws IOException {
+        Object value = getCell( icol );
+        return value instanceof Number ? ((Number) value).longValue() : 0L;
+    }
+
+    /**
+     * Indicates whether the value for a given column in this reader's
+     * table at the current row is blank.
+     * The default implementation uses {@link #getCell},
+     * but subclasses may override it to avoid object creation.
+     *
+     * @param  icol  column index
+     * @return  true iff column <code>icol</code> is blank at the current row
+     * @see  uk.ac.starlink.table.RowData#isNull
+     */
+    protected boolean isNullCell( int icol ) throws IOException {
+        return Tables.isBlank( getCell( icol ) );
+    }
+
     /**
      * Returns the index of the row on which evaluations are currently
      * taking place.
@@ -280,7 +333,7 @@ public abstract class StarTableJELRowReader extends JELRowReader {
 
     protected boolean isBlank( int icol ) {
         try {
-            return Tables.isBlank( getCell( icol ) );
+            return isNullCell( icol );
         }
         catch ( IOException e ) {
             e.printStackTrace();
@@ -547,25 +600,25 @@ public abstract class StarTableJELRowReader extends JELRowReader {
         return getBooleanValue( (Boolean) getCellValue( icol ) );
     }
     protected byte getByteColumnValue( int icol ) {
-        return getByteValue( (Byte) getCellValue( icol ) );
+        return (byte) getIntegerCellValue( icol );
     }
     protected char getCharColumnValue( int icol ) {
         return getCharValue( (Character) getCellValue( icol ) );
     }
     protected short getShortColumnValue( int icol ) {
-        return getShortValue( (Short) getCellValue( icol ) );
+        return (short) getIntegerCellValue( icol );
     }
     protected int getIntColumnValue( int icol ) {
-        return getIntValue( (Integer) getCellValue( icol ) );
+        return (int) getIntegerCellValue( icol );
     }
     protected long getLongColumnValue( int icol ) {
-        return getLongValue( (Long) getCellValue( icol ) );
+        return getIntegerCellValue( icol );
     }
     protected float getFloatColumnValue( int icol ) {
-        return getFloatValue( (Float) getCellValue( icol ) );
+        return (float) getDoubleCellValue( icol );
     }
     protected double getDoubleColumnValue( int icol ) {
-        return getDoubleValue( (Double) getCellValue( icol ) );
+        return getDoubleCellValue( icol );
     }
     protected Object getObjectColumnValue( int icol ) {
         return getCellValue( icol );
@@ -588,6 +641,57 @@ public abstract class StarTableJELRowReader extends JELRowReader {
         }
     }
 
+    /**
+     * Returns the value of an integer cell in the current row without
+     * throwing checked errors or creating objects.
+     * If the value is blank, {@link #foundNull} is called.
+     *
+     * <p>The value is acquired using the floating point accessor,
+     * which flags blank values as NaN, so that only a single read
+     * is required.  Only if the value is too large to be represented
+     * exactly as a double is it read again as a long.
+     *
+     * @param   icol  column index
+     * @return  cell value, or 0 for blank
+     */
+    private long getIntegerCellValue( int icol ) {
+        try {
+            double dval = getDoubleCell( icol );
+            if ( Double.isNaN( dval ) ) {
+                foundNull();
+                return 0L;
+            }
+            else if ( Math.abs( dval ) < EXACT_DOUBLE_LIMIT ) {
+                return (long) dval;
+            }
+            else {
+                return getLongCell( icol );
+            }
+        }
+        catch ( IOException e ) {
+            logger_.warning( "Expression evaluation error: " + e );
+            foundNull();
+            return 0L;
+        }
+    }
+
+    /**
+     * Returns the value of a floating point cell in the current row without
+     * throwing checked errors or creating objects.
+     *
+     * @param   icol  column index
+     * @return  cell value, or NaN for blank
+     */
+    private double getDoubleCellValue( int icol ) {
+        try {
+            return getDoubleCell( icol );
+        }
+        catch ( IOException e ) {
+            logger_.warning( "Expression evaluation error: " + e );
+            return Double.NaN;
+        }
+    }
+
     /**
      * Returns a ColMeta object corresponding to the supplied column name.
      * There are no lexical restrictions on the form of the name,
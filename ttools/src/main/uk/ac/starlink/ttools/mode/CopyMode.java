@@ -6,6 +6,7 @@ import uk.ac.starlink.table.StarTableOutput;
 import uk.ac.starlink.table.StarTableWriter;
 import uk.ac.starlink.table.TableFormatException;
 import uk.ac.starlink.table.formats.TextTableWriter;
+import uk.ac.starlink.table.jdbc.JDBCHandler;
 import uk.ac.starlink.table.jdbc.WriteMode;
 import uk.ac.starlink.task.Environment;
 import uk.ac.starlink.task.Parameter;
@@ -16,6 +17,8 @@ import uk.ac.starlink.ttools.TableConsumer;
 import uk.ac.starlink.ttools.task.LineTableEnvironment;
 import uk.ac.starlink.ttools.task.OutputFormatParameter;
 import uk.ac.starlink.ttools.task.OutputTableParameter;
+import uk.ac.starlink.util.BeanConfig;
+import uk.ac.starlink.util.LoadException;
 
 /**
  * Processing mode which writes out a table.
@@ -65,11 +68,27 @@ public class CopyMode implements ProcessingMode {
                                                 String loc, String fmt )
             throws UsageException {
         if ( loc.startsWith( "jdbc:" ) ) {
-            if ( ! isAuto( fmt ) && ! fmt.trim().equalsIgnoreCase( "jdbc" ) ) {
-                throw new UsageException( "jdbc: output location does not "
-                                        + "match output format " + fmt );
+            JDBCHandler handler =
+                new JDBCHandler( LineTableEnvironment
+                                .getJdbcAuthenticator( env ) );
+            if ( ! isAuto( fmt ) ) {
+
+                /* Format may be given as jdbc(opt=value,...) to configure
+                 * bulk loading options. */
+                BeanConfig config = BeanConfig.parseSpec( fmt.trim() );
+                if ( ! config.getBaseText().equalsIgnoreCase( "jdbc" ) ) {
+                    throw new UsageException( "jdbc: output location does not "
+                                            + "match output format " + fmt );
+                }
+                try {
+                    config.configBean( handler );
+                }
+                catch ( LoadException e ) {
+                    throw new UsageException( "Bad jdbc format options: "
+                                            + e.getMessage(), e );
+                }
             }
-            return new JdbcConsumer( loc, env, WriteMode.DROP_CREATE );
+            return new JdbcConsumer( loc, handler, WriteMode.DROP_CREATE );
         }
         else {
             return new CopyConsumer( loc, fmt,
@@ -34,7 +34,6 @@ import uk.ac.starlink.table.DomainMapper;
 import uk.ac.starlink.table.RowSequence;
 import uk.ac.starlink.table.StarTable;
 import uk.ac.starlink.table.Tables;
-import uk.ac.starlink.table.WrapperRowSequence;
 import uk.ac.starlink.table.WrapperStarTable;
 import uk.ac.starlink.task.BooleanParameter;
 import uk.ac.starlink.task.ChoiceParameter;
@@ -3066,20 +3065,20 @@ public abstract class AbstractPlot2Task implements Task, DynamicTask {
             else {
                 RowSequence baseSeq = rseq_;
                 rseq_ = null;
-                return new WrapperRowSequence( baseSeq ) {
+                return new RowSequence() {
                     long irow = -1;
-                    @Override
                     public boolean next() throws IOException {
-                        return ++irow == 0 || super.next();
+                        return ++irow == 0 || baseSeq.next();
                     }
-                    @Override
                     public Object getCell( int icol ) throws IOException {
                         return irow == 0 ? row0_[ icol ]
-                                         : super.getCell( icol );
+                                         : baseSeq.getCell( icol );
                     }
-                    @Override
                     public Object[] getRow() throws IOException {
-                        return irow == 0 ? row0_ : super.getRow();
+                        return irow == 0 ? row0_ : baseSeq.getRow();
+                    }
+                    public void close() throws IOException {
+                        baseSeq.close();
                     }
                 };
             }
@@ -0,0 +1,116 @@
+package uk.ac.starlink.ttools.filter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import junit.framework.TestCase;
+import uk.ac.starlink.table.ByteStore;
+import uk.ac.starlink.table.ColumnInfo;
+import uk.ac.starlink.table.ColumnStarTable;
+import uk.ac.starlink.table.ObjectArrayColumn;
+import uk.ac.starlink.table.PrimitiveArrayColumn;
+import uk.ac.starlink.table.RowRunner;
+import uk.ac.starlink.table.RowSequence;
+import uk.ac.starlink.table.RowStore;
+import uk.ac.starlink.table.StarTable;
+import uk.ac.starlink.table.StoragePolicy;
+
+public class ExternalSorterTest extends TestCase {
+
+    public void testManyRuns() throws IOException {
+
+        /* Enough rows to require an intermediate merge. */
+        int nrow = 300_000;
+        int[] data = new int[ nrow ];
+        Random rnd = new Random( 230555 );
+        for ( int i = 0; i < nrow; i++ ) {
+            data[ i ] = rnd.nextInt( 1000000 );
+        }
+        ColumnStarTable base = ColumnStarTable.makeTableWithRows( nrow );
+        base.addColumn( PrimitiveArrayColumn
+                       .makePrimitiveColumn( new ColumnInfo( "x", Integer.class,
+                                                             null ),
+                                             data ) );
+        CountingPolicy policy = new CountingPolicy();
+        ExternalSorter sorter =
+            new ExternalSorter( new String[] { "x" }, true, true,
+                                RowRunner.SEQUENTIAL, policy, 1 );
+        StarTable sorted = sorter.sort( base );
+        assertFalse( sorted.isRandom() );
+        assertEquals( nrow, sorted.getRowCount() );
+        assertTrue( policy.nopen_.get() > 256 );
+        int last = Integer.MIN_VALUE;
+        long n = 0;
+        try ( RowSequence rseq = sorted.getRowSequence() ) {
+            while ( rseq.next() ) {
+                int x = ((Integer) rseq.getCell( 0 )).intValue();
+                assertTrue( x >= last );
+                last = x;
+                n++;
+            }
+        }
+        assertEquals( nrow, n );
+        sorted.close();
+        assertEquals( policy.nopen_.get(), policy.nclose_.get() );
+    }
+
+    public void testEvaluationError() throws IOException {
+        ColumnStarTable base = ColumnStarTable.makeTableWithRows( 3 );
+        base.addColumn( new ObjectArrayColumn( new ColumnInfo( "s",
+                                                               String.class,
+                                                               null ),
+                                               new String[] { "1", "x",
+                                                              "3" } ) );
+        ExternalSorter sorter =
+            new ExternalSorter( new String[] { "parseInt(s)" }, true, true,
+                                RowRunner.SEQUENTIAL,
+                                StoragePolicy.PREFER_MEMORY,
+                                ExternalSorter.DFLT_RUN_CELLS );
+        try {
+            sorter.sort( base );
+            fail();
+        }
+        catch ( IOException e ) {
+            // ok
+        }
+    }
+
+    private static class CountingPolicy extends StoragePolicy {
+        final AtomicInteger nopen_ = new AtomicInteger();
+        final AtomicInteger nclose_ = new AtomicInteger();
+        public ByteStore makeByteStore() {
+            final ByteStore base = PREFER_MEMORY.makeByteStore();
+            nopen_.incrementAndGet();
+            return new ByteStore() {
+                boolean closed_;
+                public OutputStream getOutputStream() {
+                    return base.getOutputStream();
+                }
+                public long getLength() {
+                    return base.getLength();
+                }
+                public void copy( OutputStream out ) throws IOException {
+                    base.copy( out );
+                }
+                public ByteBuffer[] toByteBuffers() throws IOException {
+                    return base.toByteBuffers();
+                }
+                public synchronized void close() {
+                    if ( ! closed_ ) {
+                        closed_ = true;
+                        nclose_.incrementAndGet();
+                    }
+                    base.close();
+                }
+            };
+        }
+        public RowStore makeRowStore() {
+            return PREFER_MEMORY.makeRowStore();
+        }
+        public RowStore makeConfiguredRowStore( StarTable meta ) {
+            return PREFER_MEMORY.makeConfiguredRowStore( meta );
+        }
+    }
+}
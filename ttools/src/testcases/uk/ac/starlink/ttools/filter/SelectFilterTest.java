@@ -0,0 +1,136 @@
+package uk.ac.starlink.ttools.filter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import uk.ac.starlink.table.ArrayColumn;
+import uk.ac.starlink.table.ColumnPermutedStarTable;
+import uk.ac.starlink.table.ColumnRange;
+import uk.ac.starlink.table.ColumnStarTable;
+import uk.ac.starlink.table.RestrictableStarTable;
+import uk.ac.starlink.table.RowSequence;
+import uk.ac.starlink.table.StarTable;
+import uk.ac.starlink.table.WrapperStarTable;
+import uk.ac.starlink.util.TestCase;
+
+public class SelectFilterTest extends TestCase {
+
+    private final StarTable table_;
+
+    public SelectFilterTest() {
+        ColumnStarTable table = ColumnStarTable.makeTableWithRows( 6 );
+        table.addColumn( ArrayColumn.makeColumn( "a", new double[] {
+            0.5, 1.5, 2.5, 3.5, 4.5, 5.5,
+        } ) );
+        table.addColumn( ArrayColumn.makeColumn( "b", new int[] {
+            10, 20, 30, 40, 50, 60,
+        } ) );
+        table.addColumn( ArrayColumn.makeColumn( "s", new String[] {
+            "u", "v", "w", "x", "y", "z",
+        } ) );
+        table_ = table;
+    }
+
+    public void testRanges() {
+        assertEquals( "[$1:[-Infinity,3.0], $2:[20.0,Infinity]]",
+                      ranges( "a < 3 && 20 <= b && s == \"x\"" ) );
+        assertEquals( "[$1:[1.0,Infinity]]",
+                      ranges( "(a > 1) && !(b > 2 && a < 5)" ) );
+        assertEquals( "[$1:[4.0,4.0], $2:[-Infinity,-0.0025]]",
+                      ranges( "$1==4 && B<=-2.5e-3" ) );
+        assertEquals( "[]", ranges( "a < 3 || b > 20" ) );
+        assertEquals( "[]", ranges( "a < 3 ? true : b > 20" ) );
+        assertEquals( "[]", ranges( "a + 1 < 3 && b < a && s > 2" ) );
+        assertEquals( "[]", ranges( "NULL_a && a < 3f" ) );
+    }
+
+    public void testPushdown() throws IOException {
+        List<String> calls = new ArrayList<>();
+
+        StarTable t1 = keepcols( select( new RecordingTable( table_, calls ),
+                                         "a > 2 && b < 55" ),
+                                 "s" );
+        assertEquals( Arrays.asList( new String[] {
+                          "[0, 1, 2] [$1:[2.0,Infinity], $2:[-Infinity,55.0]]",
+                          "[0, 1, 2] []",
+                      } ), calls );
+        assertEquals( Arrays.asList( new Object[] { "w", "x", "y" } ),
+                      column( t1 ) );
+        assertEquals( 1, t1.getColumnCount() );
+
+        calls.clear();
+        StarTable t2 = select( keepcols( new RecordingTable( table_, calls ),
+                                         "b a" ),
+                               "a > 2" );
+        assertEquals( Arrays.asList( new String[] {
+                          "[1, 0] []",
+                          "[0, 1] [$2:[2.0,Infinity]]",
+                      } ), calls );
+        assertEquals( Arrays.asList( new Object[] { 30, 40, 50, 60 } ),
+                      column( t2 ) );
+
+        /* Positional column references are not remapped. */
+        calls.clear();
+        StarTable t3 = keepcols( select( new RecordingTable( table_, calls ),
+                                         "$2 > 35" ),
+                                 "s" );
+        assertEquals( Arrays.asList( new Object[] { "x", "y", "z" } ),
+                      column( t3 ) );
+    }
+
+    private String ranges( String expr ) {
+        return Arrays.toString( SelectFilter.getColumnRanges( table_, expr ) );
+    }
+
+    private static StarTable select( StarTable table, String expr )
+            throws IOException {
+        return applyFilter( new SelectFilter(), table, expr );
+    }
+
+    private static StarTable keepcols( StarTable table, String cols )
+            throws IOException {
+        return applyFilter( new KeepColumnFilter(), table, cols );
+    }
+
+    private static StarTable applyFilter( ProcessingFilter filter,
+                                          StarTable table, String arg )
+            throws IOException {
+        List<String> args = new ArrayList<>( Arrays.asList( arg ) );
+        try {
+            return filter.createStep( args.iterator() ).wrap( table );
+        }
+        catch ( ArgException e ) {
+            throw new AssertionError( e );
+        }
+    }
+
+    private static List<Object> column( StarTable table ) throws IOException {
+        List<Object> list = new ArrayList<>();
+        try ( RowSequence rseq = table.getRowSequence() ) {
+            while ( rseq.next() ) {
+                list.add( rseq.getCell( 0 ) );
+            }
+        }
+        return list;
+    }
+
+    /**
+     * Restrictable table that records restrict calls but ignores ranges.
+     */
+    private static class RecordingTable extends WrapperStarTable
+                                        implements RestrictableStarTable {
+        final List<String> calls_;
+        RecordingTable( StarTable base, List<String> calls ) {
+            super( base );
+            calls_ = calls;
+        }
+        public StarTable restrict( int[] colMap, ColumnRange[] ranges ) {
+            calls_.add( Arrays.toString( colMap ) + " "
+                      + Arrays.toString( ranges ) );
+            return new RecordingTable( new ColumnPermutedStarTable( this,
+                                                                    colMap ),
+                                       calls_ );
+        }
+    }
+}
@@ -886,6 +886,22 @@ public class TablePipeTest extends TableTestCase {
         assertSameData( inTable_, apply( "sort '$0 $1'" ) );
     }
 
+    public void testExternalSort() throws Exception {
+        String[] sorts = {
+            "a", "b", "-down b", "-nullsfirst b", "-nullsfirst -down b",
+            "($0+1)/2", "'($0+1)/2 d'", "d.charAt(2)", "'$0 $1'",
+        };
+        for ( String sort : sorts ) {
+            assertSameData( apply( "sort " + sort ),
+                            apply( "sort -external " + sort ) );
+            assertSameData( apply( "sort " + sort ),
+                            apply( "sort -external -parallel " + sort ) );
+        }
+        StarTable ext = apply( "sort -external -down b" );
+        assertTrue( ! ext.isRandom() );
+        assertEquals( 4L, ext.getRowCount() );
+    }
+
     public void testSortHead() throws Exception {
         workSortHead( inTable_, "", "d" );
         workSortHead( inTable_, "-down", "a b" );
@@ -0,0 +1,303 @@
+package uk.ac.starlink.util;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Utility methods for working with BGZF (Blocked GNU Zip Format) data.
+ *
+ * <p>BGZF is a variant of gzip in which the data is written as a
+ * sequence of gzip members, each no larger than 64kbyte, and each
+ * recording its own compressed size in an extra header field
+ * (subfield identifier "BC").
+ * The result is a legal gzip stream that can be read by any
+ * gzip decompressor, but which also permits the compressed blocks to
+ * be located without decompressing them.  That allows both
+ * parallel decompression and random access.
+ * BGZF is described in the SAM/BAM format specification.
+ *
+ * @author   Mark Taylor
+ * @since    17 Oct 2026
+ */
+public class Bgzf {
+
+    /** Maximum size of a BGZF block in bytes, compressed or uncompressed. */
+    public static final int MAX_BLOCK_SIZE = 64 * 1024;
+
+    /** Length of the fixed part of a gzip member header. */
+    private static final int FIXED_HEADER = 12;
+
+    /** Length of the gzip member trailer (CRC32 and ISIZE). */
+    private static final int TRAILER = 8;
+
+    private static final int FEXTRA = 0x04;
+    private static final int FNAME = 0x08;
+    private static final int FCOMMENT = 0x10;
+    private static final int FHCRC = 0x02;
+
+    /**
+     * Private constructor prevents instantiation.
+     */
+    private Bgzf() {
+    }
+
+    /**
+     * Indicates whether a buffer starts with a BGZF block header.
+     *
+     * @param  buf  buffer containing the start of a stream;
+     *              18 bytes is usually enough
+     * @return  true iff the buffer starts with a gzip member header
+     *          containing a BGZF block size field
+     */
+    public static boolean isBgzf( byte[] buf ) {
+        return getBlockSize( buf, buf.length ) > 0;
+    }
+
+    /**
+     * Indicates whether a given file is in BGZF format.
+     *
+     * @param  file  file
+     * @return  true iff the file starts with a BGZF block header
+     */
+    public static boolean isBgzf( File file ) throws IOException {
+        try ( InputStream in = new FileInputStream( file ) ) {
+            byte[] hdr = new byte[ FIXED_HEADER ];
+            if ( readFully( in, hdr, 0, FIXED_HEADER ) < FIXED_HEADER ||
+                 ! isGzipExtra( hdr ) ) {
+                return false;
+            }
+            int xlen = getXlen( hdr );
+            byte[] buf = new byte[ FIXED_HEADER + xlen ];
+            System.arraycopy( hdr, 0, buf, 0, FIXED_HEADER );
+            return readFully( in, buf, FIXED_HEADER, xlen ) == xlen
+                && isBgzf( buf );
+        }
+    }
+
+    /**
+     * Reads the next complete BGZF block from a stream.
+     *
+     * @param  in  input stream positioned at the start of a block
+     * @return  array containing exactly the bytes of the compressed block,
+     *          or null if the stream is at its end
+     * @throws  IOException  if the data is not a BGZF block
+     */
+    public static byte[] readBlock( InputStream in ) throws IOException {
+        byte[] hdr = new byte[ FIXED_HEADER ];
+        int nh = readFully( in, hdr, 0, FIXED_HEADER );
+        if ( nh == 0 ) {
+            return null;
+        }
+        else if ( nh < FIXED_HEADER ) {
+            throw new EOFException( "Truncated gzip header" );
+        }
+        if ( ! isGzipExtra( hdr ) ) {
+            throw new IOException( "Gzip member is not BGZF" );
+        }
+        int xlen = getXlen( hdr );
+        byte[] xhdr = new byte[ FIXED_HEADER + xlen ];
+        System.arraycopy( hdr, 0, xhdr, 0, FIXED_HEADER );
+        if ( readFully( in, xhdr, FIXED_HEADER, xlen ) < xlen ) {
+            throw new EOFException( "Truncated gzip header" );
+        }
+        int bsize = getBlockSize( xhdr, xhdr.length );
+        if ( bsize < xhdr.length + TRAILER ) {
+            throw new IOException( "Gzip member is not BGZF" );
+        }
+        byte[] block = new byte[ bsize ];
+        System.arraycopy( xhdr, 0, block, 0, xhdr.length );
+        int nrest = bsize - xhdr.length;
+        if ( readFully( in, block, xhdr.length, nrest ) < nrest ) {
+            throw new EOFException( "Truncated BGZF block" );
+        }
+        return block;
+    }
+
+    /**
+     * Returns the uncompressed size of a BGZF block,
+     * as recorded in its trailer.
+     *
+     * @param  block  compressed block
+     * @return   uncompressed size in bytes
+     */
+    public static int getUncompressedSize( byte[] block ) {
+        return readInt32( block, block.length - 4 );
+    }
+
+    /**
+     * Decompresses a single BGZF block, checking its CRC.
+     *
+     * @param  block  array containing exactly one compressed block
+     * @return  uncompressed content
+     */
+    public static byte[] inflateBlock( byte[] block ) throws IOException {
+        int nb = block.length;
+        if ( nb < FIXED_HEADER + TRAILER ||
+             ( block[ 0 ] & 0xff ) != 0x1f || ( block[ 1 ] & 0xff ) != 0x8b ||
+             block[ 2 ] != 8 ) {
+            throw new IOException( "Not a gzip member" );
+        }
+
+        /* Skip optional header fields. */
+        int flg = block[ 3 ] & 0xff;
+        int ipos = 10;
+        if ( ( flg & FEXTRA ) != 0 ) {
+            ipos += 2 + getXlen( block );
+        }
+        if ( ( flg & FNAME ) != 0 ) {
+            while ( ipos < nb && block[ ipos++ ] != 0 );
+        }
+        if ( ( flg & FCOMMENT ) != 0 ) {
+            while ( ipos < nb && block[ ipos++ ] != 0 );
+        }
+        if ( ( flg & FHCRC ) != 0 ) {
+            ipos += 2;
+        }
+        int ndata = nb - TRAILER - ipos;
+        if ( ndata < 0 ) {
+            throw new IOException( "Bad gzip member" );
+        }
+
+        /* Inflate. */
+        int usize = getUncompressedSize( block );
+        if ( usize < 0 || usize > MAX_BLOCK_SIZE ) {
+            throw new IOException( "Bad BGZF uncompressed size " + usize );
+        }
+        byte[] out = new byte[ usize ];
+        Inflater inflater = new Inflater( true );
+        try {
+            inflater.setInput( block, ipos, ndata );
+            int nout = 0;
+            while ( nout < usize ) {
+                int n = inflater.inflate( out, nout, usize - nout );
+                if ( n == 0 &&
+                     ( inflater.finished() || inflater.needsInput() ) ) {
+                    break;
+                }
+                nout += n;
+            }
+            if ( nout != usize ) {
+                throw new IOException( "BGZF block size mismatch" );
+            }
+        }
+        catch ( DataFormatException e ) {
+            throw (IOException) new IOException( "Bad deflate data" )
+                               .initCause( e );
+        }
+        finally {
+            inflater.end();
+        }
+
+        /* Check CRC. */
+        CRC32 crc = new CRC32();
+        crc.update( out, 0, usize );
+        if ( (int) crc.getValue() != readInt32( block, nb - 8 ) ) {
+            throw new IOException( "BGZF block CRC error" );
+        }
+        return out;
+    }
+
+    /**
+     * Returns the total compressed size of a BGZF block given
+     * its header.
+     *
+     * @param  hdr  buffer containing at least the fixed part and
+     *              extra field of a gzip header
+     * @param  n    number of valid bytes in <code>hdr</code>
+     * @return   block size in bytes, or -1 if the header is not BGZF
+     */
+    static int getBlockSize( byte[] hdr, int n ) {
+        if ( n < FIXED_HEADER || ! isGzipExtra( hdr ) ) {
+            return -1;
+        }
+        int xend = FIXED_HEADER + getXlen( hdr );
+        if ( n < xend ) {
+            return -1;
+        }
+        for ( int ip = FIXED_HEADER; ip + 4 <= xend; ) {
+            int slen = readUint16( hdr, ip + 2 );
+            if ( hdr[ ip ] == 'B' && hdr[ ip + 1 ] == 'C' && slen == 2 &&
+                 ip + 6 <= xend ) {
+                return readUint16( hdr, ip + 4 ) + 1;
+            }
+            ip += 4 + slen;
+        }
+        return -1;
+    }
+
+    /**
+     * Indicates whether a buffer starts with a deflate-compressed
+     * gzip header with the FEXTRA flag set.
+     *
+     * @param  hdr  buffer of at least FIXED_HEADER bytes
+     * @return  true iff it looks like a gzip header with extra field
+     */
+    private static boolean isGzipExtra( byte[] hdr ) {
+        return ( hdr[ 0 ] & 0xff ) == 0x1f
+            && ( hdr[ 1 ] & 0xff ) == 0x8b
+            && hdr[ 2 ] == 8
+            && ( hdr[ 3 ] & FEXTRA ) != 0;
+    }
+
+    /**
+     * Returns the length of the extra field from a gzip header.
+     *
+     * @param  hdr  header buffer
+     * @return  XLEN value
+     */
+    private static int getXlen( byte[] hdr ) {
+        return readUint16( hdr, 10 );
+    }
+
+    /**
+     * Reads an unsigned little-endian 2-byte integer.
+     *
+     * @param  buf  buffer
+     * @param  off  offset
+     * @return  value
+     */
+    private static int readUint16( byte[] buf, int off ) {
+        return ( buf[ off ] & 0xff ) | ( ( buf[ off + 1 ] & 0xff ) << 8 );
+    }
+
+    /**
+     * Reads a little-endian 4-byte integer.
+     *
+     * @param  buf  buffer
+     * @param  off  offset
+     * @return  value
+     */
+    private static int readInt32( byte[] buf, int off ) {
+        return readUint16( buf, off ) | ( readUint16( buf, off + 2 ) << 16 );
+    }
+
+    /**
+     * Reads bytes from a stream until a given count is reached or
+     * the stream ends.
+     *
+     * @param  in  input stream
+     * @param  buf  destination buffer
+     * @param  off  offset into buffer
+     * @param  len  number of bytes required
+     * @return  number of bytes actually read
+     */
+    private static int readFully( InputStream in, byte[] buf, int off,
+                                  int len )
+            throws IOException {
+        int n = 0;
+        while ( n < len ) {
+            int nr = in.read( buf, off + n, len - n );
+            if ( nr < 0 ) {
+                break;
+            }
+            n += nr;
+        }
+        return n;
+    }
+}
@@ -0,0 +1,181 @@
+package uk.ac.starlink.util;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * Records the positions of the blocks in a BGZF file,
+ * allowing random access to its uncompressed content.
+ * The index is constructed by reading only the block headers and
+ * trailers, which is much cheaper than decompressing the data.
+ * Empty blocks (such as the conventional end-of-file marker block)
+ * are omitted.
+ *
+ * @author   Mark Taylor
+ * @since    17 Oct 2026
+ * @see      Bgzf
+ */
+public class BgzfIndex {
+
+    private final long[] coffs_;
+    private final int[] csizes_;
+    private final long[] uoffs_;
+
+    /**
+     * Constructor.
+     *
+     * @param  coffs   compressed offsets of the blocks
+     * @param  csizes  compressed sizes of the blocks
+     * @param  uoffs   uncompressed offsets of the blocks, with one extra
+     *                 final element giving the total uncompressed length
+     */
+    private BgzfIndex( long[] coffs, int[] csizes, long[] uoffs ) {
+        coffs_ = coffs;
+        csizes_ = csizes;
+        uoffs_ = uoffs;
+    }
+
+    /**
+     * Returns the number of (non-empty) blocks.
+     *
+     * @return  block count
+     */
+    public int getBlockCount() {
+        return coffs_.length;
+    }
+
+    /**
+     * Returns the total uncompressed length of the data.
+     *
+     * @return  uncompressed length in bytes
+     */
+    public long getUncompressedLength() {
+        return uoffs_[ coffs_.length ];
+    }
+
+    /**
+     * Returns the offset in the uncompressed data of the start of
+     * a given block.
+     *
+     * @param  iblock  block index
+     * @return  uncompressed offset
+     */
+    public long getUncompressedOffset( int iblock ) {
+        return uoffs_[ iblock ];
+    }
+
+    /**
+     * Returns the uncompressed length of a given block.
+     *
+     * @param  iblock  block index
+     * @return  uncompressed block length in bytes
+     */
+    public int getUncompressedSize( int iblock ) {
+        return (int) ( uoffs_[ iblock + 1 ] - uoffs_[ iblock ] );
+    }
+
+    /**
+     * Returns the index of the block containing a given position
+     * in the uncompressed data.
+     * If the position is equal to or greater than the uncompressed length,
+     * the block count is returned.
+     *
+     * @param  uoff  uncompressed offset
+     * @return  block index
+     */
+    public int getBlockIndex( long uoff ) {
+        int nblock = coffs_.length;
+        if ( uoff >= uoffs_[ nblock ] ) {
+            return nblock;
+        }
+        int ix = Arrays.binarySearch( uoffs_, 0, nblock, uoff );
+        return ix >= 0 ? ix : -2 - ix;
+    }
+
+    /**
+     * Reads and decompresses a block.
+     *
+     * @param  chan  channel for the file that this index describes
+     * @param  iblock  block index
+     * @return   uncompressed block content
+     */
+    public byte[] readBlock( FileChannel chan, int iblock ) throws IOException {
+        byte[] block = new byte[ csizes_[ iblock ] ];
+        readFully( chan, ByteBuffer.wrap( block ), coffs_[ iblock ] );
+        byte[] data = Bgzf.inflateBlock( block );
+        if ( data.length != getUncompressedSize( iblock ) ) {
+            throw new IOException( "BGZF block size mismatch" );
+        }
+        return data;
+    }
+
+    /**
+     * Constructs an index for a BGZF file.
+     *
+     * @param  chan  channel for reading the file
+     * @return  new index
+     * @throws  IOException  if the file is not in BGZF format
+     */
+    public static BgzfIndex createIndex( FileChannel chan ) throws IOException {
+        long leng = chan.size();
+        LongList coffs = new LongList();
+        IntList csizes = new IntList();
+        LongList uoffs = new LongList();
+        byte[] hdr = new byte[ 256 ];
+        ByteBuffer hbuf = ByteBuffer.wrap( hdr );
+        byte[] isize = new byte[ 4 ];
+        ByteBuffer ibuf = ByteBuffer.wrap( isize );
+        long upos = 0;
+        for ( long cpos = 0; cpos < leng; ) {
+            hbuf.clear();
+            hbuf.limit( (int) Math.min( hdr.length, leng - cpos ) );
+            readFully( chan, hbuf, cpos );
+            int bsize = Bgzf.getBlockSize( hdr, hbuf.limit() );
+            if ( bsize <= 0 ) {
+                throw new IOException( "Not BGZF block at offset " + cpos );
+            }
+            if ( cpos + bsize > leng ) {
+                throw new EOFException( "Truncated BGZF block at offset "
+                                      + cpos );
+            }
+            ibuf.clear();
+            readFully( chan, ibuf, cpos + bsize - 4 );
+            int usize = ( isize[ 0 ] & 0xff )
+                      | ( isize[ 1 ] & 0xff ) << 8
+                      | ( isize[ 2 ] & 0xff ) << 16
+                      | ( isize[ 3 ] & 0xff ) << 24;
+            if ( usize < 0 || usize > Bgzf.MAX_BLOCK_SIZE ) {
+                throw new IOException( "Bad BGZF block at offset " + cpos );
+            }
+            if ( usize > 0 ) {
+                coffs.add( cpos );
+                csizes.add( bsize );
+                uoffs.add( upos );
+                upos += usize;
+            }
+            cpos += bsize;
+        }
+        uoffs.add( upos );
+        return new BgzfIndex( coffs.toLongArray(), csizes.toIntArray(),
+                              uoffs.toLongArray() );
+    }
+
+    /**
+     * Fills a buffer from a given position in a file channel.
+     *
+     * @param  chan  channel
+     * @param  buf   buffer to fill up to its limit
+     * @param  pos   file offset
+     */
+    private static void readFully( FileChannel chan, ByteBuffer buf, long pos )
+            throws IOException {
+        while ( buf.hasRemaining() ) {
+            if ( chan.read( buf, pos + buf.position() ) < 0 ) {
+                throw new EOFException();
+            }
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package uk.ac.starlink.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * InputStream which decompresses BGZF data,
+ * inflating multiple blocks concurrently.
+ *
+ * @author   Mark Taylor
+ * @since    17 Oct 2026
+ * @see      Bgzf
+ */
+public class BgzfInputStream extends ParallelBlockInputStream {
+
+    private final InputStream in_;
+
+    /**
+     * Constructs a stream using the default thread pool.
+     *
+     * @param  in  input stream containing BGZF-compressed data
+     */
+    public BgzfInputStream( InputStream in ) {
+        this( in, null );
+    }
+
+    /**
+     * Constructs a stream using a given concurrency policy.
+     *
+     * @param  in  input stream containing BGZF-compressed data
+     * @param  policy  concurrency policy, or null for default
+     */
+    public BgzfInputStream( InputStream in, SplitPolicy policy ) {
+        super( policy );
+        in_ = in;
+    }
+
+    protected Block readBlock() throws IOException {
+        byte[] block = Bgzf.readBlock( in_ );
+        return block == null ? null : () -> Bgzf.inflateBlock( block );
+    }
+
+    @Override
+    public void close() throws IOException {
+        super.close();
+        in_.close();
+    }
+}
@@ -19,6 +19,9 @@ import java.nio.charset.StandardCharsets;
  */
 public class BufferedBase64OutputStream extends FilterOutputStream {
 
+    /** Number of 4-byte groups per output line used by default. */
+    public static final int DEFAULT_QUADS_PER_LINE = 16;
+
     private static final byte[] B64MAP = getBase64Map();
     private static final byte[] DEFAULT_END_LINE = getDefaultEndLine();
 
@@ -38,7 +41,7 @@ public class BufferedBase64OutputStream extends FilterOutputStream {
      * @param  out  underlying output stream, doesn't need to be buffered
      */
     public BufferedBase64OutputStream( OutputStream out ) {
-        this( out, 16, DEFAULT_END_LINE, 128 );
+        this( out, DEFAULT_QUADS_PER_LINE, DEFAULT_END_LINE, 128 );
     }
 
     /**
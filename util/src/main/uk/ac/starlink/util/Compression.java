@@ -5,6 +5,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.util.zip.GZIPInputStream;
 import uk.ac.starlink.util.bzip2.CBZip2InputStream;
+import uk.ac.starlink.util.bzip2.ParallelBzip2InputStream;
 
 /**
  * Characterises the compression status of a stream, and provides methods
@@ -113,9 +114,29 @@ public abstract class Compression {
 
     /**
      * A Compression object representing GZip compression.
+     * If the data is in the BGZF variant of gzip,
+     * the blocks are decompressed in parallel.
      */
     public static final Compression GZIP = new Compression( "gzip" ) {
         public InputStream decompress( InputStream raw ) throws IOException {
+
+            /* Check for BGZF, which can be decompressed in parallel.
+             * Plain multi-member gzip can't, since the member boundaries
+             * can only be found by inflating the data. */
+            if ( ! raw.markSupported() ) {
+                raw = new BufferedInputStream( raw );
+            }
+            byte[] hdr = new byte[ 64 ];
+            raw.mark( hdr.length );
+            int nh = 0;
+            for ( int n; nh < hdr.length &&
+                         ( n = raw.read( hdr, nh, hdr.length - nh ) ) >= 0; ) {
+                nh += n;
+            }
+            raw.reset();
+            if ( Bgzf.getBlockSize( hdr, nh ) > 0 ) {
+                return new BgzfInputStream( raw );
+            }
             return new GZIPInputStream( raw ) {
 
                 /* This is a workaround for a bug in GZIPInputStream in
@@ -151,6 +172,8 @@ public abstract class Compression {
 
     /**
      * A Compression object representing BZip2 compression.
+     * If multiple cores are available,
+     * the compressed blocks are decoded in parallel.
      */
     public static final Compression BZIP2 = new Compression( "bzip2" ) {
         public InputStream decompress( InputStream raw ) throws IOException {
@@ -160,7 +183,13 @@ public abstract class Compression {
                 throw new IllegalArgumentException( 
                     "Wrong magic number for bzip2 encoding" );
             }
-            return new CBZip2InputStream( raw, true );
+
+            /* Locating the blocks for parallel decoding has some cost,
+             * so only do it if there is more than one core to use. */
+            return SplitPolicy.DFLT_POLICY.getForkJoinPool()
+                                          .getParallelism() > 1
+                 ? new ParallelBzip2InputStream( raw )
+                 : new CBZip2InputStream( raw, true );
         }
     };
 
@@ -106,6 +106,18 @@ public class DataBufferedInputStream extends FilterInputStream
         return count_ - pos_ + in.available();
     }
 
+    /**
+     * Returns the number of bytes that have been read from the
+     * underlying stream into this object's buffer but not yet consumed.
+     * The number of bytes consumed from this stream is therefore
+     * the number read from the underlying stream minus this value.
+     *
+     * @return  number of buffered bytes
+     */
+    public int getBufferedCount() {
+        return count_ - pos_;
+    }
+
     /**
      * Returns false;
      */
@@ -0,0 +1,276 @@
+package uk.ac.starlink.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Partial InputStream implementation for data which is encoded as a
+ * sequence of independently decodable blocks.
+ * The encoded blocks are read sequentially from the input by the
+ * consumer thread, but decoding is done in parallel by a thread pool,
+ * a few blocks ahead of the consumer.
+ * This is suitable for instance for decompressing formats in which
+ * the compressed blocks can be located without decompressing them.
+ *
+ * <p>Concrete subclasses must implement {@link #readBlock} to supply
+ * the encoded blocks in sequence.
+ * If block boundaries may be identified wrongly (for instance if they
+ * are located by searching for a marker that might also appear by
+ * chance within a block) the {@link #mergeBlocks mergeBlocks} method
+ * may be overridden to allow recovery from a decoding failure.
+ *
+ * @author   Mark Taylor
+ * @since    17 Oct 2026
+ */
+public abstract class ParallelBlockInputStream extends InputStream {
+
+    private final ForkJoinPool pool_;
+    private final int nahead_;
+    private final Deque<Entry> queue_;
+    private boolean endInput_;
+    private boolean closed_;
+    private byte[] buf_;
+    private int ipos_;
+
+    /** Maximum number of consecutive blocks that may be merged. */
+    private static final int MAX_MERGE = 4;
+
+    /**
+     * Constructs a stream using a given concurrency policy.
+     *
+     * @param  policy  policy supplying the thread pool for decoding,
+     *                 or null for default
+     */
+    protected ParallelBlockInputStream( SplitPolicy policy ) {
+        pool_ = ( policy == null ? SplitPolicy.DFLT_POLICY : policy )
+               .getForkJoinPool();
+        nahead_ = Math.max( 2, 2 * pool_.getParallelism() );
+        queue_ = new ArrayDeque<Entry>( nahead_ );
+        buf_ = new byte[ 0 ];
+    }
+
+    /**
+     * Reads the next encoded block from the input.
+     * This is called in the consumer thread.
+     *
+     * @return  next block, or null if the end of the input has been reached
+     */
+    protected abstract Block readBlock() throws IOException;
+
+    /**
+     * Returns a block representing the concatenation of two adjacent
+     * blocks.  This is called if decoding a block fails, in case the
+     * failure results from a block boundary having been misidentified;
+     * if the merged block decodes successfully, its content is used instead.
+     *
+     * <p>The default implementation returns null, meaning that blocks
+     * cannot be merged and decoding errors are always fatal.
+     *
+     * @param  block1  block that failed to decode
+     * @param  block2  block following <code>block1</code>
+     * @return  block representing both inputs, or null
+     */
+    protected Block mergeBlocks( Block block1, Block block2 ) {
+        return null;
+    }
+
+    @Override
+    public int read() throws IOException {
+        return ensureData() ? buf_[ ipos_++ ] & 0xff : -1;
+    }
+
+    @Override
+    public int read( byte[] b, int off, int len ) throws IOException {
+        if ( len == 0 ) {
+            return 0;
+        }
+        if ( ! ensureData() ) {
+            return -1;
+        }
+        int n = Math.min( len, buf_.length - ipos_ );
+        System.arraycopy( buf_, ipos_, b, off, n );
+        ipos_ += n;
+        return n;
+    }
+
+    @Override
+    public long skip( long n ) throws IOException {
+        if ( n <= 0 || ! ensureData() ) {
+            return 0;
+        }
+        int k = (int) Math.min( n, buf_.length - ipos_ );
+        ipos_ += k;
+        return k;
+    }
+
+    @Override
+    public int available() {
+        return buf_.length - ipos_;
+    }
+
+    /**
+     * Stops any outstanding decoding.  Subclasses should override this
+     * method to close their input as well, calling the superclass
+     * implementation.
+     */
+    @Override
+    public void close() throws IOException {
+        closed_ = true;
+        for ( Entry entry : queue_ ) {
+            entry.future_.cancel( false );
+        }
+        queue_.clear();
+        buf_ = new byte[ 0 ];
+        ipos_ = 0;
+    }
+
+    /**
+     * Ensures that the current buffer has unread data, if any remains.
+     *
+     * @return  true if data is available, false at end of stream
+     */
+    private boolean ensureData() throws IOException {
+        if ( closed_ ) {
+            throw new IOException( "Stream closed" );
+        }
+        while ( ipos_ >= buf_.length ) {
+            fillQueue();
+            Entry entry = queue_.poll();
+            if ( entry == null ) {
+                return false;
+            }
+            buf_ = getResult( entry );
+            ipos_ = 0;
+        }
+        return true;
+    }
+
+    /**
+     * Reads and submits blocks for decoding until the lookahead queue
+     * is full or the input is exhausted.
+     */
+    private void fillQueue() throws IOException {
+        while ( ! endInput_ && queue_.size() < nahead_ ) {
+            Block block = readBlock();
+            if ( block == null ) {
+                endInput_ = true;
+            }
+            else {
+                queue_.add( new Entry( block,
+                                       pool_.submit( () -> block.decode() ) ) );
+            }
+        }
+    }
+
+    /**
+     * Waits for and returns the decoded content of a queued block.
+     * If decoding failed, an attempt is made to merge it with following
+     * blocks.
+     *
+     * @param  entry  dequeued entry
+     * @return   decoded bytes
+     */
+    private byte[] getResult( Entry entry ) throws IOException {
+        IOException error;
+        try {
+            return entry.future_.get();
+        }
+        catch ( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            throw (IOException)
+                  new InterruptedIOException( "Interrupted" ).initCause( e );
+        }
+        catch ( ExecutionException e ) {
+            error = toIOException( e.getCause() );
+        }
+
+        /* Decoding failed.  If possible, try merging with following
+         * blocks and decoding the result synchronously. */
+        Block merged = entry.block_;
+        for ( int im = 0; im < MAX_MERGE; im++ ) {
+            fillQueue();
+            Entry next = queue_.peek();
+            merged = next == null ? null : mergeBlocks( merged, next.block_ );
+            if ( merged == null ) {
+                break;
+            }
+            queue_.poll();
+            next.future_.cancel( false );
+            try {
+                return merged.decode();
+            }
+            catch ( IOException | RuntimeException e ) {
+                // try again
+            }
+        }
+        throw error;
+    }
+
+    /**
+     * Converts a throwable arising from decoding to an IOException.
+     *
+     * @param  err  error
+     * @return  IOException with the same information
+     */
+    private static IOException toIOException( Throwable err ) {
+
+        /* The pool wraps checked exceptions thrown by tasks. */
+        if ( err instanceof RuntimeException &&
+             err.getCause() instanceof IOException ) {
+            err = err.getCause();
+        }
+        if ( err instanceof IOException ) {
+            IOException ioe = (IOException) err;
+            return (IOException) new IOException( ioe.getMessage() )
+                                .initCause( ioe );
+        }
+        else if ( err instanceof Error ) {
+            throw (Error) err;
+        }
+        else {
+            return (IOException) new IOException( "Block decoding failed: "
+                                                + err )
+                                .initCause( err );
+        }
+    }
+
+    /**
+     * Represents an encoded block of data.
+     */
+    @FunctionalInterface
+    public interface Block {
+
+        /**
+         * Decodes this block.  This method will be called from a thread
+         * other than the consumer thread.
+         *
+         * @return   decoded bytes
+         */
+        byte[] decode() throws IOException;
+    }
+
+    /**
+     * Aggregates a block and its decoding task.
+     */
+    private static class Entry {
+        final Block block_;
+        final Future<byte[]> future_;
+
+        /**
+         * Constructor.
+         *
+         * @param  block  encoded block
+         * @param  future  decoding task
+         */
+        Entry( Block block, Future<byte[]> future ) {
+            block_ = block;
+            future_ = future;
+        }
+    }
+}
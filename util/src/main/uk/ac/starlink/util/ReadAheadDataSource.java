@@ -0,0 +1,101 @@
+package uk.ac.starlink.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+
+/**
+ * DataSource which wraps another one so that its data is read
+ * asynchronously in a background thread, ahead of the consumer.
+ * This can improve performance when reading from high-latency storage
+ * such as network filesystems or remote URLs, since I/O waits
+ * overlap with processing the data.
+ * The raw (possibly compressed) byte stream is read ahead,
+ * so that decompression also runs concurrently with I/O.
+ *
+ * <p>Note that wrapping a {@link FileDataSource} hides the underlying
+ * file from consumers, so that table readers which would otherwise
+ * take advantage of random access to files (for instance by mapping
+ * them) will fall back to reading a stream.
+ *
+ * @author   Mark Taylor
+ * @since    17 Oct 2026
+ * @see      ReadAheadInputStream
+ */
+public class ReadAheadDataSource extends DataSource {
+
+    private final DataSource base_;
+    private final int depth_;
+    private final int bufSize_;
+
+    /**
+     * Constructs a read-ahead data source with default buffering.
+     *
+     * @param  base  data source supplying the data
+     */
+    public ReadAheadDataSource( DataSource base ) {
+        this( base, ReadAheadInputStream.DEFAULT_DEPTH,
+              ReadAheadInputStream.DEFAULT_BUFSIZE );
+    }
+
+    /**
+     * Constructs a read-ahead data source with given buffering.
+     *
+     * @param  base  data source supplying the data
+     * @param  depth   number of read-ahead buffers, at least 2
+     * @param  bufSize  size in bytes of each buffer
+     */
+    public ReadAheadDataSource( DataSource base, int depth, int bufSize ) {
+        super( base.getIntroLimit() );
+        if ( depth < 2 ) {
+            throw new IllegalArgumentException( "Depth " + depth + " < 2" );
+        }
+        base_ = base;
+        depth_ = depth;
+        bufSize_ = bufSize;
+        setName( base.getName() );
+        setPosition( base.getPosition() );
+    }
+
+    /**
+     * Returns the data source wrapped by this one.
+     *
+     * @return  base data source
+     */
+    public DataSource getBaseDataSource() {
+        return base_;
+    }
+
+    /**
+     * Returns the number of read-ahead buffers used by streams from
+     * this source.
+     *
+     * @return  buffer count
+     */
+    public int getDepth() {
+        return depth_;
+    }
+
+    /**
+     * Returns the size of each read-ahead buffer used by streams from
+     * this source.
+     *
+     * @return  buffer size in bytes
+     */
+    public int getBufferSize() {
+        return bufSize_;
+    }
+
+    protected InputStream getRawInputStream() throws IOException {
+        return new ReadAheadInputStream( base_.getRawInputStream(),
+                                         depth_, bufSize_ );
+    }
+
+    public long getRawLength() {
+        return base_.getRawLength();
+    }
+
+    public URL getURL() {
+        return base_.getURL();
+    }
+}
@@ -0,0 +1,384 @@
+package uk.ac.starlink.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * InputStream which reads its data from a base stream in a separate
+ * thread, ahead of the consumer.
+ * A fixed number of large buffers is cycled between a background
+ * reader thread, which fills them from the base stream, and the
+ * consumer, which drains them.  This means that when the base stream
+ * has high latency (for instance a network filesystem or remote URL)
+ * the cost of waiting for data can overlap with the work the consumer
+ * does decoding it.
+ *
+ * <p>The reader thread is started on the first read, so simply
+ * constructing an instance does no I/O.
+ * Any IOException thrown by the base stream is rethrown to the consumer
+ * when it reaches the corresponding point in the data.
+ * Closing this stream stops the reader thread and closes the base stream.
+ *
+ * <p>Some simple statistics about the transfer are available from
+ * this object, and are logged at the CONFIG level when it is closed.
+ *
+ * @author   Mark Taylor
+ * @since    17 Oct 2026
+ */
+public class ReadAheadInputStream extends InputStream {
+
+    private final InputStream base_;
+    private final int bufSize_;
+    private final int depth_;
+    private final BlockingQueue<Chunk> freeQueue_;
+    private final BlockingQueue<Chunk> fullQueue_;
+    private Thread reader_;
+    private Chunk chunk_;
+    private int ipos_;
+    private boolean eof_;
+    private volatile boolean closed_;
+    private volatile long nbyte_;
+    private volatile long readNanos_;
+    private long waitNanos_;
+    private long startNanos_;
+
+    /** Default number of buffers. */
+    public static final int DEFAULT_DEPTH = 4;
+
+    /** Default size in bytes of each buffer. */
+    public static final int DEFAULT_BUFSIZE = 1024 * 1024;
+
+    private static final Logger logger_ =
+        Logger.getLogger( "uk.ac.starlink.util" );
+
+    /**
+     * Constructs a read-ahead stream with default buffering.
+     *
+     * @param  base  base input stream
+     */
+    public ReadAheadInputStream( InputStream base ) {
+        this( base, DEFAULT_DEPTH, DEFAULT_BUFSIZE );
+    }
+
+    /**
+     * Constructs a read-ahead stream with given buffering.
+     * The maximum amount of data read ahead of the consumer is
+     * approximately <code>depth*bufSize</code> bytes.
+     *
+     * @param  base  base input stream
+     * @param  depth   number of buffers, at least 2
+     * @param  bufSize  size in bytes of each buffer
+     */
+    public ReadAheadInputStream( InputStream base, int depth, int bufSize ) {
+        if ( depth < 2 ) {
+            throw new IllegalArgumentException( "Depth " + depth + " < 2" );
+        }
+        if ( bufSize < 1 ) {
+            throw new IllegalArgumentException( "Bad buffer size " + bufSize );
+        }
+        base_ = base;
+        depth_ = depth;
+        bufSize_ = bufSize;
+        freeQueue_ = new ArrayBlockingQueue<Chunk>( depth );
+
+        /* Room for every buffer plus an end-of-stream marker. */
+        fullQueue_ = new ArrayBlockingQueue<Chunk>( depth + 1 );
+    }
+
+    /**
+     * Returns the number of buffers used by this stream.
+     *
+     * @return  buffer count
+     */
+    public int getDepth() {
+        return depth_;
+    }
+
+    /**
+     * Returns the size of each buffer used by this stream.
+     *
+     * @return  buffer size in bytes
+     */
+    public int getBufferSize() {
+        return bufSize_;
+    }
+
+    /**
+     * Returns the number of bytes so far read from the base stream.
+     *
+     * @return  byte count
+     */
+    public long getByteCount() {
+        return nbyte_;
+    }
+
+    /**
+     * Returns the time the reader thread has so far spent waiting for
+     * the base stream.
+     *
+     * @return  base stream read time in nanoseconds
+     */
+    public long getReadNanos() {
+        return readNanos_;
+    }
+
+    /**
+     * Returns the time the consumer has so far spent waiting for the
+     * reader thread to supply data.  If the read-ahead is effective,
+     * this will be much smaller than {@link #getReadNanos}.
+     *
+     * @return  consumer wait time in nanoseconds
+     */
+    public synchronized long getWaitNanos() {
+        return waitNanos_;
+    }
+
+    /**
+     * Returns the rate at which data has been read from the base stream,
+     * measured over the time that the reader thread has spent reading it.
+     *
+     * @return  base stream throughput in bytes per second,
+     *          or NaN if nothing has been read
+     */
+    public double getThroughput() {
+        long nanos = readNanos_;
+        return nanos > 0 ? nbyte_ / ( nanos * 1e-9 ) : Double.NaN;
+    }
+
+    @Override
+    public synchronized int read() throws IOException {
+        return nextChunk() ? chunk_.buf_[ ipos_++ ] & 0xff : -1;
+    }
+
+    @Override
+    public synchronized int read( byte[] b, int off, int len )
+            throws IOException {
+        if ( len == 0 ) {
+            return 0;
+        }
+        if ( ! nextChunk() ) {
+            return -1;
+        }
+        int n = Math.min( len, chunk_.count_ - ipos_ );
+        System.arraycopy( chunk_.buf_, ipos_, b, off, n );
+        ipos_ += n;
+        return n;
+    }
+
+    @Override
+    public synchronized long skip( long n ) throws IOException {
+        if ( n <= 0 || ! nextChunk() ) {
+            return 0;
+        }
+        int k = (int) Math.min( n, chunk_.count_ - ipos_ );
+        ipos_ += k;
+        return k;
+    }
+
+    @Override
+    public synchronized int available() throws IOException {
+        if ( closed_ ) {
+            throw new IOException( "Stream closed" );
+        }
+        return chunk_ == null ? 0 : chunk_.count_ - ipos_;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if ( ! closed_ ) {
+            closed_ = true;
+            if ( reader_ != null ) {
+                reader_.interrupt();
+                if ( logger_.isLoggable( Level.CONFIG ) ) {
+                    logger_.config( getStatistics() );
+                }
+            }
+            else {
+                base_.close();
+            }
+            chunk_ = null;
+            fullQueue_.clear();
+            freeQueue_.clear();
+        }
+    }
+
+    /**
+     * Returns a human-readable summary of the transfer statistics.
+     *
+     * @return  statistics summary
+     */
+    public String getStatistics() {
+        double elapsed = startNanos_ > 0
+                       ? ( System.nanoTime() - startNanos_ ) * 1e-9
+                       : 0;
+        return new StringBuffer()
+            .append( "Read-ahead: " )
+            .append( getByteCount() )
+            .append( " bytes in " )
+            .append( String.format( "%.3f", elapsed ) )
+            .append( "s; base read " )
+            .append( String.format( "%.3f", getReadNanos() * 1e-9 ) )
+            .append( "s (" )
+            .append( String.format( "%.1f", getThroughput() * 1e-6 ) )
+            .append( " MB/s); consumer waited " )
+            .append( String.format( "%.3f", getWaitNanos() * 1e-9 ) )
+            .append( "s" )
+            .toString();
+    }
+
+    /**
+     * Ensures that the current chunk has unread data, if any remains.
+     *
+     * @return  true iff there is data available in the current chunk,
+     *          false if the end of stream has been reached
+     */
+    private boolean nextChunk() throws IOException {
+        if ( closed_ ) {
+            throw new IOException( "Stream closed" );
+        }
+        if ( chunk_ != null && ipos_ < chunk_.count_ ) {
+            return true;
+        }
+        if ( eof_ ) {
+            return false;
+        }
+        if ( reader_ == null ) {
+            startReader();
+        }
+        if ( chunk_ != null ) {
+            freeQueue_.add( chunk_ );
+            chunk_ = null;
+        }
+        Chunk chunk;
+        long t0 = System.nanoTime();
+        try {
+            chunk = fullQueue_.take();
+        }
+        catch ( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            throw (IOException)
+                  new InterruptedIOException( "Interrupted" ).initCause( e );
+        }
+        waitNanos_ += System.nanoTime() - t0;
+        if ( chunk.error_ != null ) {
+            eof_ = true;
+            IOException err = chunk.error_;
+            throw (IOException) new IOException( err.getMessage() )
+                               .initCause( err );
+        }
+        if ( chunk.count_ < 0 ) {
+            eof_ = true;
+            return false;
+        }
+        chunk_ = chunk;
+        ipos_ = 0;
+        return true;
+    }
+
+    /**
+     * Creates the buffers and starts the reader thread.
+     */
+    private void startReader() {
+        for ( int i = 0; i < depth_; i++ ) {
+            freeQueue_.add( new Chunk( new byte[ bufSize_ ] ) );
+        }
+        startNanos_ = System.nanoTime();
+        reader_ = new Thread( "Read-ahead" ) {
+            public void run() {
+                try {
+                    fill();
+                }
+                finally {
+                    try {
+                        base_.close();
+                    }
+                    catch ( IOException e ) {
+                        // no action
+                    }
+                }
+            }
+        };
+        reader_.setDaemon( true );
+        reader_.start();
+    }
+
+    /**
+     * Reads data from the base stream into free buffers and queues them
+     * for the consumer, until the end of the stream, an error, or
+     * this stream is closed.  Executed in the reader thread.
+     */
+    private void fill() {
+        try {
+            while ( ! closed_ ) {
+                Chunk chunk = freeQueue_.take();
+                chunk.count_ = 0;
+                IOException error = null;
+                long t0 = System.nanoTime();
+                try {
+                    byte[] buf = chunk.buf_;
+                    while ( chunk.count_ < buf.length ) {
+                        int n = base_.read( buf, chunk.count_,
+                                            buf.length - chunk.count_ );
+                        if ( n < 0 ) {
+                            break;
+                        }
+                        chunk.count_ += n;
+                    }
+                }
+                catch ( IOException e ) {
+                    error = e;
+                }
+                readNanos_ += System.nanoTime() - t0;
+                nbyte_ += chunk.count_;
+
+                /* On error, deliver any data read before it happened,
+                 * then the error itself. */
+                if ( error != null ) {
+                    if ( chunk.count_ > 0 ) {
+                        fullQueue_.put( chunk );
+                    }
+                    Chunk fail = new Chunk( null );
+                    fail.error_ = error;
+                    fullQueue_.put( fail );
+                    return;
+                }
+                boolean isEnd = chunk.count_ < chunk.buf_.length;
+                if ( chunk.count_ > 0 ) {
+                    fullQueue_.put( chunk );
+                }
+                if ( isEnd ) {
+                    Chunk end = new Chunk( null );
+                    end.count_ = -1;
+                    fullQueue_.put( end );
+                    return;
+                }
+            }
+        }
+        catch ( InterruptedException e ) {
+            // closed - just exit
+        }
+    }
+
+    /**
+     * Buffer passed between the reader thread and the consumer.
+     */
+    private static class Chunk {
+        final byte[] buf_;
+        int count_;
+        IOException error_;
+
+        /**
+         * Constructor.
+         *
+         * @param  buf  data buffer
+         */
+        Chunk( byte[] buf ) {
+            buf_ = buf;
+        }
+    }
+}
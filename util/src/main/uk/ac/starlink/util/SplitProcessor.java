@@ -59,6 +59,20 @@ public abstract class SplitProcessor<S extends Splittable<S>> {
      */
     public abstract <A> A collect( SplitCollector<S,A> collector, S content );
 
+    /**
+     * Returns the policy governing parallel execution for this processor.
+     * Other parallel work associated with this processor's executions
+     * should use the fork/join pool it supplies.
+     *
+     * <p>The default implementation returns {@link SplitPolicy#DFLT_POLICY};
+     * subclasses configured with a specific policy should override it.
+     *
+     * @return  split policy, not null
+     */
+    public SplitPolicy getSplitPolicy() {
+        return SplitPolicy.DFLT_POLICY;
+    }
+
     @Override
     public String toString() {
         return name_;
@@ -223,6 +237,10 @@ public abstract class SplitProcessor<S extends Splittable<S>> {
             return policy_.willAttemptSplit( content );
         }
 
+        public SplitPolicy getSplitPolicy() {
+            return policy_;
+        }
+
         public <A> A collect( SplitCollector<S,A> collector, S content ) {
             AtomicInteger nfork = new AtomicInteger();
             int minSize = getMinSplitSize( content, policy_ );
@@ -347,6 +365,10 @@ public abstract class SplitProcessor<S extends Splittable<S>> {
             return policy_.willAttemptSplit( content );
         }
 
+        public SplitPolicy getSplitPolicy() {
+            return policy_;
+        }
+
         public <A> A collect( SplitCollector<S,A> collector, S content ) {
             Collection<A> accPool = new ArrayList<A>();
             AtomicInteger nfork = new AtomicInteger();
@@ -0,0 +1,376 @@
+package uk.ac.starlink.util.bzip2;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import uk.ac.starlink.util.ParallelBlockInputStream;
+import uk.ac.starlink.util.SplitPolicy;
+
+/**
+ * InputStream which decompresses BZip2 data,
+ * decoding multiple compressed blocks concurrently.
+ *
+ * <p>A bzip2 stream consists of a sequence of independently compressed
+ * blocks, each introduced by a 48-bit magic number, and terminated by
+ * a 48-bit end-of-stream marker.  The blocks are not byte-aligned,
+ * and their lengths are not recorded, so they are located by scanning
+ * the compressed bit stream for the magic numbers.
+ * Each block found is packaged as a standalone single-block bzip2 stream
+ * and decoded by a {@link CBZip2InputStream} in a pool thread.
+ * Since the magic number could in principle occur by chance within
+ * compressed data, a block which fails to decode, or whose CRC does
+ * not match, is retried merged with the following one.
+ * Concatenated bzip2 streams are decoded as a single stream.
+ *
+ * <p>As for <code>CBZip2InputStream</code>, the input stream
+ * is expected to start just <em>after</em> the leading "BZ" magic bytes.
+ *
+ * @author   Mark Taylor
+ * @since    17 Oct 2026
+ */
+public class ParallelBzip2InputStream extends ParallelBlockInputStream {
+
+    private final InputStream in_;
+    private boolean isFirstStream_;
+    private boolean inStream_;
+    private int level_;
+    private long sr_;
+    private long nbit_;
+    private byte[] seg_;
+    private int segLen_;
+    private long segByte0_;
+    private long segStart_;
+
+    private static final long MASK48 = 0xffffffffffffL;
+    private static final long BLOCK_MAGIC = 0x314159265359L;
+    private static final long EOS_MAGIC = 0x177245385090L;
+
+    /**
+     * Constructs a stream using the default thread pool.
+     *
+     * @param  in  input stream positioned after the initial "BZ"
+     */
+    public ParallelBzip2InputStream( InputStream in ) {
+        this( in, null );
+    }
+
+    /**
+     * Constructs a stream using a given concurrency policy.
+     *
+     * @param  in  input stream positioned after the initial "BZ"
+     * @param  policy  concurrency policy, or null for default
+     */
+    public ParallelBzip2InputStream( InputStream in, SplitPolicy policy ) {
+        super( policy );
+        in_ = in instanceof BufferedInputStream
+            ? in
+            : new BufferedInputStream( in, 64 * 1024 );
+        isFirstStream_ = true;
+        seg_ = new byte[ 1024 * 1024 ];
+        segStart_ = -1;
+    }
+
+    protected Block readBlock() throws IOException {
+        while ( true ) {
+            if ( ! inStream_ && ! startStream() ) {
+                return null;
+            }
+            int b = in_.read();
+            if ( b < 0 ) {
+                throw new EOFException( "Truncated bzip2 stream" );
+            }
+
+            /* Append the byte to the current segment buffer.
+             * If no segment is in progress, keep only enough recent
+             * bytes to contain a magic number. */
+            if ( segStart_ < 0 && segLen_ == 8 ) {
+                System.arraycopy( seg_, 1, seg_, 0, 7 );
+                segLen_ = 7;
+                segByte0_++;
+            }
+            if ( segLen_ == seg_.length ) {
+                byte[] seg = new byte[ seg_.length * 2 ];
+                System.arraycopy( seg_, 0, seg, 0, segLen_ );
+                seg_ = seg;
+            }
+            seg_[ segLen_++ ] = (byte) b;
+            sr_ = ( sr_ << 8 ) | b;
+            nbit_ += 8;
+
+            /* Look for a magic number ending within this byte. */
+            for ( int k = 7; k >= 0; k-- ) {
+                long start = nbit_ - k - 48;
+                if ( start >= 0 ) {
+                    long val = ( sr_ >>> k ) & MASK48;
+                    if ( val == BLOCK_MAGIC || val == EOS_MAGIC ) {
+                        Bz2Block block = segStart_ >= 0
+                                       ? createBlock( start, val == EOS_MAGIC )
+                                       : null;
+                        if ( val == BLOCK_MAGIC ) {
+                            startSegment( start );
+                        }
+                        else {
+                            endStream( k );
+                        }
+                        if ( block != null ) {
+                            return block;
+                        }
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    protected Block mergeBlocks( Block block1, Block block2 ) {
+        Bz2Block b1 = (Bz2Block) block1;
+        Bz2Block b2 = (Bz2Block) block2;
+        if ( b1.endsStream_ || b1.level_ != b2.level_ ) {
+            return null;
+        }
+        long nbit = b1.nbit_ + b2.nbit_;
+        byte[] buf = new byte[ (int) ( ( nbit + 7 ) / 8 ) ];
+        copyBits( b1.buf_, b1.bit0_, buf, 0, b1.nbit_ );
+        copyBits( b2.buf_, b2.bit0_, buf, b1.nbit_, b2.nbit_ );
+        return new Bz2Block( b1.level_, buf, 0, nbit, b2.endsStream_ );
+    }
+
+    @Override
+    public void close() throws IOException {
+        super.close();
+        in_.close();
+    }
+
+    /**
+     * Reads the header of the next bzip2 stream, if any.
+     *
+     * @return  true if a stream has started, false at end of input
+     */
+    private boolean startStream() throws IOException {
+        if ( ! isFirstStream_ ) {
+            int m0 = in_.read();
+            if ( m0 < 0 ) {
+                return false;
+            }
+            if ( m0 != 'B' || in_.read() != 'Z' ) {
+                throw new IOException( "Garbage after a valid BZip2 stream" );
+            }
+        }
+        int m2 = in_.read();
+        int level = in_.read();
+        if ( m2 != 'h' ) {
+            throw new IOException( isFirstStream_
+                                 ? "Stream is not in the BZip2 format"
+                                 : "Garbage after a valid BZip2 stream" );
+        }
+        if ( level < '1' || level > '9' ) {
+            throw new IOException( "Stream is not BZip2 formatted: "
+                                 + "illegal blocksize " + (char) level );
+        }
+        isFirstStream_ = false;
+        inStream_ = true;
+        level_ = level;
+        sr_ = 0;
+        nbit_ = 0;
+        segLen_ = 0;
+        segByte0_ = 0;
+        segStart_ = -1;
+        return true;
+    }
+
+    /**
+     * Packages the current segment, which ends at a given bit position,
+     * as a block.
+     *
+     * @param  end  bit position (exclusive) of segment end
+     * @param  endsStream  true iff the segment is followed by
+     *                     an end of stream marker
+     * @return  new block
+     */
+    private Bz2Block createBlock( long end, boolean endsStream ) {
+        int bit0 = (int) ( segStart_ - segByte0_ * 8 );
+        long nbit = end - segStart_;
+        int nbyte = (int) ( ( bit0 + nbit + 7 ) / 8 );
+        byte[] buf = new byte[ nbyte ];
+        System.arraycopy( seg_, 0, buf, 0, nbyte );
+        return new Bz2Block( level_, buf, bit0, nbit, endsStream );
+    }
+
+    /**
+     * Starts a new segment at a given bit position, discarding
+     * buffered bytes before it.
+     *
+     * @param  start  bit position of segment start
+     */
+    private void startSegment( long start ) {
+        long startByte = start >>> 3;
+        int ioff = (int) ( startByte - segByte0_ );
+        System.arraycopy( seg_, ioff, seg_, 0, segLen_ - ioff );
+        segLen_ -= ioff;
+        segByte0_ = startByte;
+        segStart_ = start;
+    }
+
+    /**
+     * Deals with the end of a bzip2 stream, skipping the stream CRC
+     * and padding that follow the end of stream marker.
+     *
+     * @param  nfollow  number of bits in the current byte following
+     *                  the end of stream marker
+     */
+    private void endStream( int nfollow ) throws IOException {
+        for ( int nskip = ( 32 - nfollow + 7 ) / 8; nskip > 0; nskip-- ) {
+            if ( in_.read() < 0 ) {
+                throw new EOFException( "Truncated bzip2 stream" );
+            }
+        }
+        segStart_ = -1;
+        inStream_ = false;
+    }
+
+    /**
+     * Copies a range of bits between arrays.
+     *
+     * @param  src  source array
+     * @param  srcBit  bit offset into source
+     * @param  dst  destination array
+     * @param  dstBit  bit offset into destination
+     * @param  nbit  number of bits to copy
+     */
+    private static void copyBits( byte[] src, long srcBit,
+                                  byte[] dst, long dstBit, long nbit ) {
+        for ( long i = 0; i < nbit; i++ ) {
+            putBit( dst, dstBit + i, getBit( src, srcBit + i ) );
+        }
+    }
+
+    /**
+     * Returns a single bit from an array.
+     *
+     * @param  buf  array
+     * @param  ibit  bit index, counting from the most significant bit
+     *               of the first byte
+     * @return  bit value, 0 or 1
+     */
+    private static int getBit( byte[] buf, long ibit ) {
+        return ( buf[ (int) ( ibit >>> 3 ) ] >>> ( 7 - (int) ( ibit & 7 ) ) )
+             & 1;
+    }
+
+    /**
+     * Sets a single bit in an array.
+     *
+     * @param  buf  array
+     * @param  ibit  bit index, counting from the most significant bit
+     *               of the first byte
+     * @param  value  bit value, 0 or 1
+     */
+    private static void putBit( byte[] buf, long ibit, int value ) {
+        int ib = (int) ( ibit >>> 3 );
+        int mask = 1 << ( 7 - (int) ( ibit & 7 ) );
+        buf[ ib ] = (byte) ( value != 0 ? ( buf[ ib ] | mask )
+                                        : ( buf[ ib ] & ~mask ) );
+    }
+
+    /**
+     * Writes the low bits of an integer value into a bit array.
+     *
+     * @param  buf  array
+     * @param  ibit  bit index of first bit
+     * @param  value  value
+     * @param  nbit  number of bits to write, most significant first
+     */
+    private static void putBits( byte[] buf, long ibit, long value,
+                                 int nbit ) {
+        for ( int i = 0; i < nbit; i++ ) {
+            putBit( buf, ibit + i, (int) ( value >>> ( nbit - 1 - i ) ) & 1 );
+        }
+    }
+
+    /**
+     * Block implementation representing a bit range containing
+     * one compressed bzip2 block, starting with its block magic number.
+     */
+    private static class Bz2Block implements Block {
+        final int level_;
+        final byte[] buf_;
+        final int bit0_;
+        final long nbit_;
+        final boolean endsStream_;
+
+        /**
+         * Constructor.
+         *
+         * @param  level  block size character from the stream header
+         * @param  buf   buffer containing block bits
+         * @param  bit0  offset of block start bit in buffer
+         * @param  nbit  number of bits in block
+         * @param  endsStream  true iff this is the last block in its stream
+         */
+        Bz2Block( int level, byte[] buf, int bit0, long nbit,
+                  boolean endsStream ) {
+            level_ = level;
+            buf_ = buf;
+            bit0_ = bit0;
+            nbit_ = nbit;
+            endsStream_ = endsStream;
+        }
+
+        public byte[] decode() throws IOException {
+            if ( nbit_ < 80 ) {
+                throw new IOException( "Bad bzip2 block" );
+            }
+
+            /* Get the stored block CRC, which follows the block magic. */
+            int storedCrc = 0;
+            for ( int i = 0; i < 32; i++ ) {
+                storedCrc = ( storedCrc << 1 )
+                          | getBit( buf_, bit0_ + 48 + i );
+            }
+
+            /* Package the block as a single-block stream (without the
+             * initial "BZ"): header, block bits, end of stream marker,
+             * and stream CRC, which for a single block is the block CRC. */
+            long nbit = 16 + nbit_ + 48 + 32;
+            byte[] sbuf = new byte[ (int) ( ( nbit + 7 ) / 8 ) ];
+            sbuf[ 0 ] = (byte) 'h';
+            sbuf[ 1 ] = (byte) level_;
+            int nbyte = (int) ( ( nbit_ + 7 ) / 8 );
+            int shift = bit0_;
+            for ( int i = 0; i < nbyte; i++ ) {
+                int hi = buf_[ i ] << shift;
+                int lo = i + 1 < buf_.length
+                       ? ( buf_[ i + 1 ] & 0xff ) >>> ( 8 - shift )
+                       : 0;
+                sbuf[ 2 + i ] = (byte) ( hi | lo );
+            }
+            long ibit = 16 + nbit_;
+            putBits( sbuf, ibit, EOS_MAGIC, 48 );
+            putBits( sbuf, ibit + 48, storedCrc & 0xffffffffL, 32 );
+
+            /* Decode it. */
+            ByteArrayOutputStream out =
+                new ByteArrayOutputStream( ( level_ - '0' ) * 100000 );
+            CRC crc = new CRC();
+            try ( InputStream in =
+                      new CBZip2InputStream( new ByteArrayInputStream( sbuf ),
+                                             false ) ) {
+                byte[] b = new byte[ 64 * 1024 ];
+                for ( int n; ( n = in.read( b ) ) >= 0; ) {
+                    out.write( b, 0, n );
+                    for ( int i = 0; i < n; i++ ) {
+                        crc.updateCRC( b[ i ] & 0xff );
+                    }
+                }
+            }
+            if ( crc.getFinalCRC() != storedCrc ) {
+                throw new IOException( "BZip2 CRC error" );
+            }
+            return out.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package uk.ac.starlink.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.util.Random;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import uk.ac.starlink.util.bzip2.CBZip2OutputStream;
+import uk.ac.starlink.util.bzip2.ParallelBzip2InputStream;
+
+public class ParallelDecompressTest extends TestCase {
+
+    public ParallelDecompressTest( String name ) {
+        super( name );
+    }
+
+    public void testBgzf() throws IOException {
+        for ( int nb : new int[] { 0, 10, 65536, 1000000 } ) {
+            byte[] data = createData( nb, nb );
+            byte[] bgzf = toBgzf( data, 60000 );
+            assertTrue( Bgzf.isBgzf( bgzf ) );
+            assertFalse( Bgzf.isBgzf( gzip( data ) ) );
+
+            /* BGZF is legal gzip. */
+            assertArrayEquals( data,
+                               readAll( new GZIPInputStream(
+                                        new ByteArrayInputStream( bgzf ) ) ) );
+
+            /* Parallel decompression. */
+            InputStream in = Compression.GZIP
+                            .decompress( new ByteArrayInputStream( bgzf ) );
+            assertTrue( in instanceof BgzfInputStream );
+            assertArrayEquals( data, readAll( in ) );
+            assertArrayEquals( data,
+                               readAll( Compression.decompressStatic(
+                                        new ByteArrayInputStream( bgzf ) ) ) );
+
+            /* Plain gzip still works. */
+            assertArrayEquals( data,
+                               readAll( Compression.GZIP
+                                       .decompress( new ByteArrayInputStream(
+                                                        gzip( data ) ) ) ) );
+        }
+
+        /* Corrupt data is reported. */
+        byte[] bgzf = toBgzf( createData( 200000, 1 ), 50000 );
+        bgzf[ bgzf.length / 2 ] ^= 0x55;
+        try {
+            readAll( new BgzfInputStream( new ByteArrayInputStream( bgzf ) ) );
+            fail();
+        }
+        catch ( IOException e ) {
+        }
+    }
+
+    public void testBgzfIndex() throws IOException {
+        byte[] data = createData( 1234567, 2 );
+        File file = File.createTempFile( "bgzf", ".gz" );
+        file.deleteOnExit();
+        try {
+            try ( OutputStream out = new FileOutputStream( file ) ) {
+                out.write( toBgzf( data, 65280 ) );
+            }
+            assertTrue( Bgzf.isBgzf( file ) );
+            try ( FileChannel chan =
+                      new RandomAccessFile( file, "r" ).getChannel() ) {
+                BgzfIndex index = BgzfIndex.createIndex( chan );
+                assertEquals( data.length, index.getUncompressedLength() );
+                int nblock = index.getBlockCount();
+                assertEquals( ( data.length + 65279 ) / 65280, nblock );
+                assertEquals( nblock, index.getBlockIndex( data.length ) );
+                Random rnd = new Random( 44 );
+                for ( int i = 0; i < 50; i++ ) {
+                    long off = rnd.nextInt( data.length );
+                    int ib = index.getBlockIndex( off );
+                    long ioff = off - index.getUncompressedOffset( ib );
+                    assertTrue( ioff >= 0 && ioff < index.getUncompressedSize( ib ) );
+                    byte[] block = index.readBlock( chan, ib );
+                    assertEquals( data[ (int) off ], block[ (int) ioff ] );
+                }
+            }
+        }
+        finally {
+            file.delete();
+        }
+        assertFalse( Bgzf.isBgzf( new byte[ 4 ] ) );
+    }
+
+    public void testBzip2() throws IOException {
+        for ( int nb : new int[] { 0, 1, 99999, 100000, 1000001 } ) {
+            byte[] data = createData( nb, 3 + nb );
+            byte[] bz = bzip2( data, 1 );
+            assertArrayEquals( data, readAll( Compression.BZIP2
+                                             .decompress(
+                                                  new ByteArrayInputStream( bz ) ) ) );
+            assertArrayEquals( data, readAll( parallelBzip2( bz ) ) );
+        }
+
+        /* Concatenated streams with different block sizes. */
+        byte[] d1 = createData( 350000, 5 );
+        byte[] d2 = createData( 120000, 6 );
+        ByteArrayOutputStream bout = new ByteArrayOutputStream();
+        bout.write( bzip2( d1, 1 ) );
+        bout.write( bzip2( d2, 9 ) );
+        ByteArrayOutputStream dout = new ByteArrayOutputStream();
+        dout.write( d1 );
+        dout.write( d2 );
+        assertArrayEquals( dout.toByteArray(),
+                           readAll( parallelBzip2( bout.toByteArray() ) ) );
+
+        /* Corrupt data is reported. */
+        byte[] bz = bzip2( createData( 300000, 7 ), 1 );
+        bz[ bz.length / 2 ] ^= 0x10;
+        try {
+            readAll( parallelBzip2( bz ) );
+            fail();
+        }
+        catch ( IOException e ) {
+        }
+    }
+
+    /**
+     * Returns moderately compressible test data.
+     */
+    private static byte[] createData( int nbyte, long seed ) {
+        Random rnd = new Random( seed );
+        byte[] data = new byte[ nbyte ];
+        for ( int i = 0; i < nbyte; i++ ) {
+            data[ i ] = (byte) ( rnd.nextInt( 10 ) == 0 ? rnd.nextInt()
+                                                        : 'a' + i % 17 );
+        }
+        return data;
+    }
+
+    private static InputStream parallelBzip2( byte[] bz )
+            throws IOException {
+        InputStream in = new ByteArrayInputStream( bz );
+        in.skip( 2 );
+        return new ParallelBzip2InputStream( in );
+    }
+
+    private static byte[] readAll( InputStream in ) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        IOUtils.copy( in, out );
+        in.close();
+        return out.toByteArray();
+    }
+
+    private static byte[] gzip( byte[] data ) throws IOException {
+        ByteArrayOutputStream bout = new ByteArrayOutputStream();
+        try ( OutputStream out = new GZIPOutputStream( bout ) ) {
+            out.write( data );
+        }
+        return bout.toByteArray();
+    }
+
+    private static byte[] bzip2( byte[] data, int level ) throws IOException {
+        ByteArrayOutputStream bout = new ByteArrayOutputStream();
+        bout.write( 'B' );
+        bout.write( 'Z' );
+        try ( OutputStream out = new CBZip2OutputStream( bout, level ) ) {
+            out.write( data );
+        }
+        return bout.toByteArray();
+    }
+
+    /**
+     * Writes BGZF, including the empty end-of-file marker block.
+     */
+    private static byte[] toBgzf( byte[] data, int blockSize )
+            throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for ( int off = 0; off < data.length; off += blockSize ) {
+            writeBgzfBlock( out, data, off,
+                            Math.min( blockSize, data.length - off ) );
+        }
+        writeBgzfBlock( out, data, 0, 0 );
+        return out.toByteArray();
+    }
+
+    private static void writeBgzfBlock( ByteArrayOutputStream out,
+                                        byte[] data, int off, int len ) {
+        Deflater deflater = new Deflater( Deflater.DEFAULT_COMPRESSION, true );
+        deflater.setInput( data, off, len );
+        deflater.finish();
+        byte[] cbuf = new byte[ len + 1024 ];
+        int nc = 0;
+        while ( ! deflater.finished() ) {
+            nc += deflater.deflate( cbuf, nc, cbuf.length - nc );
+        }
+        deflater.end();
+        CRC32 crc = new CRC32();
+        crc.update( data, off, len );
+        int bsize = 18 + nc + 8;
+        int[] hdr = { 0x1f, 0x8b, 8, 4, 0, 0, 0, 0, 0, 0xff, 6, 0,
+                      'B', 'C', 2, 0, ( bsize - 1 ) & 0xff,
+                      ( bsize - 1 ) >> 8 };
+        for ( int b : hdr ) {
+            out.write( b );
+        }
+        out.write( cbuf, 0, nc );
+        writeInt32( out, (int) crc.getValue() );
+        writeInt32( out, len );
+    }
+
+    private static void writeInt32( ByteArrayOutputStream out, int value ) {
+        for ( int i = 0; i < 4; i++ ) {
+            out.write( ( value >>> ( 8 * i ) ) & 0xff );
+        }
+    }
+}
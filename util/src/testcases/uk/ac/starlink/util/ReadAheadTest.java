@@ -0,0 +1,146 @@
+package uk.ac.starlink.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.zip.GZIPOutputStream;
+
+public class ReadAheadTest extends TestCase {
+
+    public ReadAheadTest( String name ) {
+        super( name );
+    }
+
+    public void testStream() throws IOException {
+        Random rnd = new Random( 90210L );
+        for ( int nb : new int[] { 0, 1, 99, 100, 101, 12345 } ) {
+            byte[] data = new byte[ nb ];
+            rnd.nextBytes( data );
+            for ( int depth : new int[] { 2, 3, 8 } ) {
+                ReadAheadInputStream in =
+                    new ReadAheadInputStream(
+                        new SlowInputStream( data, rnd ), depth, 100 );
+                assertArrayEquals( data, readMixed( in, rnd ) );
+                assertEquals( -1, in.read() );
+                assertEquals( nb, in.getByteCount() );
+                in.close();
+            }
+        }
+
+        byte[] data = new byte[ 5000 ];
+        ReadAheadInputStream in =
+            new ReadAheadInputStream( new ByteArrayInputStream( data ), 2, 10 );
+        assertEquals( 0, in.read() );
+        in.close();
+        try {
+            in.read();
+            fail();
+        }
+        catch ( IOException e ) {
+        }
+    }
+
+    public void testError() throws IOException {
+        InputStream errIn = new InputStream() {
+            int count;
+            public int read() throws IOException {
+                if ( count++ < 250 ) {
+                    return 23;
+                }
+                throw new IOException( "Broken" );
+            }
+        };
+        ReadAheadInputStream in = new ReadAheadInputStream( errIn, 2, 100 );
+        int nread = 0;
+        try {
+            while ( in.read() >= 0 ) {
+                nread++;
+            }
+            fail();
+        }
+        catch ( IOException e ) {
+            assertEquals( "Broken", e.getCause().getMessage() );
+        }
+        assertEquals( 250, nread );
+        in.close();
+    }
+
+    public void testDataSource() throws IOException {
+        byte[] data = new byte[ 300000 ];
+        new Random( 23L ).nextBytes( data );
+        ByteArrayOutputStream bout = new ByteArrayOutputStream();
+        try ( OutputStream out = new GZIPOutputStream( bout ) ) {
+            out.write( data );
+        }
+        File file = File.createTempFile( "readahead", ".gz" );
+        file.deleteOnExit();
+        try {
+            try ( OutputStream out = new FileOutputStream( file ) ) {
+                out.write( bout.toByteArray() );
+            }
+            DataSource base = new FileDataSource( file );
+            DataSource datsrc = new ReadAheadDataSource( base, 3, 4096 );
+            assertEquals( Compression.GZIP, datsrc.getCompression() );
+            assertEquals( base.getName(), datsrc.getName() );
+            assertEquals( base.getURL(), datsrc.getURL() );
+            assertEquals( file.length(), datsrc.getRawLength() );
+            for ( int i = 0; i < 2; i++ ) {
+                try ( InputStream in = datsrc.getInputStream() ) {
+                    assertArrayEquals( data, readMixed( in, new Random() ) );
+                }
+            }
+        }
+        finally {
+            file.delete();
+        }
+    }
+
+    private static byte[] readMixed( InputStream in, Random rnd )
+            throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buf = new byte[ 300 ];
+        while ( true ) {
+            if ( rnd.nextBoolean() ) {
+                int b = in.read();
+                if ( b < 0 ) {
+                    break;
+                }
+                out.write( b );
+            }
+            else {
+                int n = in.read( buf, 0, 1 + rnd.nextInt( buf.length ) );
+                if ( n < 0 ) {
+                    break;
+                }
+                out.write( buf, 0, n );
+            }
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Stream which returns data in small irregular pieces with delays.
+     */
+    private static class SlowInputStream extends ByteArrayInputStream {
+        private final Random rnd_;
+        SlowInputStream( byte[] data, Random rnd ) {
+            super( data );
+            rnd_ = new Random( rnd.nextLong() );
+        }
+        public synchronized int read( byte[] b, int off, int len ) {
+            if ( rnd_.nextInt( 20 ) == 0 ) {
+                try {
+                    Thread.sleep( 1 );
+                }
+                catch ( InterruptedException e ) {
+                }
+            }
+            return super.read( b, off, Math.min( len, 1 + rnd_.nextInt( 70 ) ) );
+        }
+    }
+}
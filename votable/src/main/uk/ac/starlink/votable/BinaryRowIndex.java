@@ -0,0 +1,369 @@
+package uk.ac.starlink.votable;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Base64;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import uk.ac.starlink.util.DataBufferedInputStream;
+import uk.ac.starlink.util.IntList;
+import uk.ac.starlink.util.LongList;
+
+/**
+ * Sparse index of row positions in a file containing a VOTable
+ * BINARY or BINARY2 stream.
+ * A single pass through the file records, for every N'th row,
+ * the position in the file from which decoding can start in order
+ * to read that row.  This allows random access to the data without
+ * copying it into scratch storage.
+ *
+ * <p>For unencoded streams the recorded position is just the byte offset
+ * of the row.  For base64-encoded streams the mapping between decoded
+ * and encoded positions is not linear, since the text may contain
+ * line breaks, so each checkpoint records the file offset of the start
+ * of a 4-character base64 group and the number of decoded bytes
+ * to discard after that point.
+ *
+ * <p>Only streams in external files are handled.  Indexing inline
+ * STREAM content would be possible in the same way given the byte
+ * offsets of the start and end of the base64 text within the XML
+ * document, but the SAX parser does not make those available.
+ *
+ * @author   Mark Taylor
+ * @since    17 Oct 2026
+ */
+class BinaryRowIndex {
+
+    private final int step_;
+    private final long nrow_;
+    private final long[] offsets_;
+    private final int[] skips_;
+
+    /** Number of base64 groups between recorded positions in base64 text. */
+    private static final int BASE64_GROUPS = 1024;
+
+    private static final String MAGIC = "STIL-VOTABLE-BINARY-INDEX-1";
+    private static final String INDEX_SUFFIX = ".rowidx";
+    private static final Logger logger_ =
+        Logger.getLogger( "uk.ac.starlink.votable" );
+
+    /**
+     * Constructor.
+     *
+     * @param  step  number of rows between checkpoints
+     * @param  nrow  number of rows in the stream
+     * @param  offsets  file offset for each checkpoint
+     * @param  skips   number of decoded bytes to discard following
+     *                 the file offset for each checkpoint
+     */
+    BinaryRowIndex( int step, long nrow, long[] offsets, int[] skips ) {
+        if ( offsets.length != skips.length ) {
+            throw new IllegalArgumentException( "Array length mismatch" );
+        }
+        step_ = step;
+        nrow_ = nrow;
+        offsets_ = offsets;
+        skips_ = skips;
+    }
+
+    /**
+     * Returns the number of rows between checkpoints.
+     *
+     * @return  row step
+     */
+    public int getStep() {
+        return step_;
+    }
+
+    /**
+     * Returns the number of rows in the stream.
+     *
+     * @return  row count
+     */
+    public long getRowCount() {
+        return nrow_;
+    }
+
+    /**
+     * Opens a stream positioned at the start of a checkpointed row.
+     * The row in question is the one with index
+     * <code>icheck*getStep()</code>.
+     *
+     * @param  file  data file
+     * @param  isBase64  true for base64 encoding, false for unencoded
+     * @param  icheck  checkpoint index
+     * @return   decoded stream positioned at the start of a row
+     */
+    public DataBufferedInputStream openStream( File file, boolean isBase64,
+                                               int icheck )
+            throws IOException {
+        FileInputStream fin = new FileInputStream( file );
+        try {
+            fin.getChannel().position( offsets_[ icheck ] );
+            InputStream in = new DataBufferedInputStream( fin );
+            if ( isBase64 ) {
+                in = Base64.getMimeDecoder().wrap( in );
+            }
+            DataBufferedInputStream dataIn = new DataBufferedInputStream( in );
+            int skip = skips_[ icheck ];
+            if ( skip > 0 ) {
+                dataIn.readFully( new byte[ skip ] );
+            }
+            return dataIn;
+        }
+        catch ( IOException e ) {
+            fin.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Makes a pass through a file containing a BINARY or BINARY2 stream
+     * to construct an index.
+     *
+     * @param  file  data file
+     * @param  decoders  decoders, one for each column
+     * @param  isBase64  true for base64 encoding, false for unencoded
+     * @param  isBinary2  true for BINARY2, false for BINARY
+     * @param  step   number of rows between checkpoints
+     * @return  new index
+     */
+    public static BinaryRowIndex createIndex( File file, Decoder[] decoders,
+                                              boolean isBase64,
+                                              boolean isBinary2, int step )
+            throws IOException {
+        if ( step <= 0 ) {
+            throw new IllegalArgumentException( "Bad step " + step );
+        }
+        LongList offsets = new LongList();
+        IntList skips = new IntList();
+        long irow = 0;
+        try ( InputStream fin = new FileInputStream( file ) ) {
+            PositionInputStream rawIn =
+                new PositionInputStream( new DataBufferedInputStream( fin ),
+                                         isBase64 );
+            PositionInputStream decIn =
+                isBase64
+                    ? new PositionInputStream( Base64.getMimeDecoder()
+                                                     .wrap( rawIn ), false )
+                    : rawIn;
+            DataBufferedInputStream dataIn =
+                new DataBufferedInputStream( decIn );
+            BinaryRowSequence rseq =
+                new BinaryRowSequence( decoders, dataIn, isBinary2 );
+            while ( true ) {
+                long pos = decIn.pos_ - dataIn.getBufferedCount();
+                if ( ! rseq.skipRow() ) {
+                    break;
+                }
+                if ( irow % step == 0 ) {
+                    if ( isBase64 ) {
+                        long gbytes = 3L * BASE64_GROUPS;
+                        int ig = (int) ( pos / gbytes );
+                        offsets.add( rawIn.groupOffsets_.get( ig ) );
+                        skips.add( (int) ( pos - ig * gbytes ) );
+                    }
+                    else {
+                        offsets.add( pos );
+                        skips.add( 0 );
+                    }
+                }
+                irow++;
+            }
+        }
+        return new BinaryRowIndex( step, irow, offsets.toLongArray(),
+                                   skips.toIntArray() );
+    }
+
+    /**
+     * Returns a saved index for a given data file, if one is available
+     * and up to date.  Failure to read the index is not fatal.
+     *
+     * @param  file  data file
+     * @param  key   string characterising the stream content;
+     *               must match the one used for writing
+     * @return  index, or null
+     */
+    public static BinaryRowIndex readSavedIndex( File file, String key ) {
+        File ixFile = getIndexFile( file );
+        if ( ! ixFile.isFile() ) {
+            return null;
+        }
+        try ( DataInputStream in =
+                  new DataInputStream(
+                      new BufferedInputStream(
+                          new FileInputStream( ixFile ) ) ) ) {
+            if ( MAGIC.equals( in.readUTF() ) &&
+                 file.length() == in.readLong() &&
+                 file.lastModified() == in.readLong() &&
+                 key.equals( in.readUTF() ) ) {
+                int step = in.readInt();
+                long nrow = in.readLong();
+                int nent = in.readInt();
+                long[] offsets = new long[ nent ];
+                int[] skips = new int[ nent ];
+                for ( int i = 0; i < nent; i++ ) {
+                    offsets[ i ] = in.readLong();
+                    skips[ i ] = in.readInt();
+                }
+                logger_.info( "Using VOTable row index " + ixFile );
+                return new BinaryRowIndex( step, nrow, offsets, skips );
+            }
+            else {
+                logger_.info( "Ignoring stale VOTable row index " + ixFile );
+                return null;
+            }
+        }
+        catch ( IOException e ) {
+            logger_.log( Level.WARNING,
+                         "Failed to read VOTable row index " + ixFile, e );
+            return null;
+        }
+    }
+
+    /**
+     * Saves this index alongside a given data file.
+     * Failure to write the index is not fatal.
+     *
+     * @param  file  data file
+     * @param  key   string characterising the stream content
+     */
+    public void saveIndex( File file, String key ) {
+        File ixFile = getIndexFile( file );
+        try {
+
+            /* Write to a temporary file and rename it, so that readers
+             * never see a partially written index. */
+            File tmpFile = File.createTempFile( ixFile.getName(), ".tmp",
+                                                ixFile.getAbsoluteFile()
+                                                      .getParentFile() );
+            try {
+                try ( DataOutputStream out =
+                          new DataOutputStream(
+                              new BufferedOutputStream(
+                                  new FileOutputStream( tmpFile ) ) ) ) {
+                    out.writeUTF( MAGIC );
+                    out.writeLong( file.length() );
+                    out.writeLong( file.lastModified() );
+                    out.writeUTF( key );
+                    out.writeInt( step_ );
+                    out.writeLong( nrow_ );
+                    out.writeInt( offsets_.length );
+                    for ( int i = 0; i < offsets_.length; i++ ) {
+                        out.writeLong( offsets_[ i ] );
+                        out.writeInt( skips_[ i ] );
+                    }
+                }
+                Files.move( tmpFile.toPath(), ixFile.toPath(),
+                            StandardCopyOption.REPLACE_EXISTING );
+                logger_.info( "Wrote VOTable row index " + ixFile );
+            }
+            finally {
+                tmpFile.delete();
+            }
+        }
+        catch ( IOException e ) {
+            logger_.log( Level.WARNING,
+                         "Failed to write VOTable row index " + ixFile, e );
+        }
+    }
+
+    /**
+     * Returns the file in which the index for a given data file is saved.
+     *
+     * @param  file  data file
+     * @return  index file in the same directory
+     */
+    static File getIndexFile( File file ) {
+        return new File( file.getPath() + INDEX_SUFFIX );
+    }
+
+    /**
+     * Input stream which keeps track of the number of bytes read,
+     * and optionally of the positions of base64 character groups.
+     */
+    private static class PositionInputStream extends FilterInputStream {
+
+        final LongList groupOffsets_;
+        long pos_;
+        long nchar_;
+
+        /**
+         * Constructor.
+         *
+         * @param  in  base stream
+         * @param  isBase64  if true, the positions of every
+         *                   BASE64_GROUPS'th group of base64 characters
+         *                   are recorded
+         */
+        PositionInputStream( InputStream in, boolean isBase64 ) {
+            super( in );
+            groupOffsets_ = isBase64 ? new LongList() : null;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = in.read();
+            if ( b >= 0 ) {
+                if ( groupOffsets_ != null ) {
+                    scan( (byte) b, pos_ );
+                }
+                pos_++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read( byte[] buf, int off, int len ) throws IOException {
+            int n = in.read( buf, off, len );
+            if ( n > 0 ) {
+                if ( groupOffsets_ != null ) {
+                    for ( int i = 0; i < n; i++ ) {
+                        scan( buf[ off + i ], pos_ + i );
+                    }
+                }
+                pos_ += n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip( long n ) throws IOException {
+            byte[] buf = new byte[ (int) Math.min( n, 8192 ) ];
+            int nr = read( buf, 0, buf.length );
+            return Math.max( nr, 0 );
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        /**
+         * Processes a byte from the base64 text.
+         *
+         * @param  b  byte value
+         * @param  pos  file offset of byte
+         */
+        private void scan( byte b, long pos ) {
+            if ( ( b >= 'A' && b <= 'Z' ) || ( b >= 'a' && b <= 'z' ) ||
+                 ( b >= '0' && b <= '9' ) || b == '+' || b == '/' ||
+                 b == '=' ) {
+                if ( nchar_ % ( 4 * BASE64_GROUPS ) == 0 ) {
+                    groupOffsets_.add( pos );
+                }
+                nchar_++;
+            }
+        }
+    }
+}
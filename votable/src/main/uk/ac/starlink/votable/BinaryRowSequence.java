@@ -33,21 +33,24 @@ class BinaryRowSequence implements RowSequence {
      *         of STREAM element ("gzip" or "base64", else assumed none)
      * @param  isBinary2 true for BINARY2 format, false for BINARY
      */
-    public BinaryRowSequence( final Decoder[] decoders, InputStream in,
+    public BinaryRowSequence( Decoder[] decoders, InputStream in,
                               String encoding, boolean isBinary2 )
             throws IOException {
-        ncol_ = decoders.length;
-        if ( "gzip".equals( encoding ) ) {
-            in = new GZIPInputStream( in );
-        }
-        else if ( "base64".equals( encoding ) ) {
+        this( decoders, createDataInput( in, encoding ), isBinary2 );
+    }
 
-            /* This is considerably faster than java.util.Base64InputStream,
-             * and especially if the underlying input stream is a
-             * uk.ac.starlink.util.DataBufferedInputStream. */
-            in = Base64.getMimeDecoder().wrap( in );
-        }
-        dataIn_ = new DataBufferedInputStream( in );
+    /**
+     * Constructs a new row sequence from a set of decoders and an
+     * unencoded buffered input stream.
+     *
+     * @param  n-element array of decoders for decoding n-column data
+     * @param  dataIn  stream positioned at the start of a row
+     * @param  isBinary2 true for BINARY2 format, false for BINARY
+     */
+    BinaryRowSequence( final Decoder[] decoders,
+                       DataBufferedInputStream dataIn, boolean isBinary2 ) {
+        ncol_ = decoders.length;
+        dataIn_ = dataIn;
 
         /* Treat the zero-column case specially, otherwise we can end up
          * reading zero bytes per row until the stream is exhausted (never). */
@@ -56,6 +59,9 @@ class BinaryRowSequence implements RowSequence {
                 public void readRow( Object[] row ) throws IOException {
                     throw new EOFException( "No columns" );
                 }
+                public void skipRow() throws IOException {
+                    throw new EOFException( "No columns" );
+                }
             };
         }
 
@@ -78,6 +84,12 @@ class BinaryRowSequence implements RowSequence {
                         row[ icol ] = cell;
                     }
                 }
+                public void skipRow() throws IOException {
+                    FlagIO.readFlags( dataIn_, nullFlags );
+                    for ( int icol = 0; icol < ncol_; icol++ ) {
+                        decoders[ icol ].skipStream( dataIn_ );
+                    }
+                }
             };
         }
         else {
@@ -88,6 +100,11 @@ class BinaryRowSequence implements RowSequence {
                                      .decodeStream( dataIn_ );
                     }
                 }
+                public void skipRow() throws IOException {
+                    for ( int icol = 0; icol < ncol_; icol++ ) {
+                        decoders[ icol ].skipStream( dataIn_ );
+                    }
+                }
             };
         }
     }
@@ -104,6 +121,24 @@ class BinaryRowSequence implements RowSequence {
         }
     }
 
+    /**
+     * Advances past the next row without decoding its cell values.
+     * Following a call to this method, the current row is undefined.
+     *
+     * @return  true if a row was skipped, false if the end of the
+     *          stream was reached
+     */
+    boolean skipRow() throws IOException {
+        row_ = null;
+        try {
+            rowReader_.skipRow();
+            return true;
+        }
+        catch ( EOFException e ) {
+            return false;
+        }
+    }
+
     public Object[] getRow() {
         if ( row_ != null ) {
             return row_;
@@ -138,5 +173,35 @@ class BinaryRowSequence implements RowSequence {
          * @param  row  array of objects to be filled
          */
         void readRow( Object[] row ) throws IOException;
+
+        /**
+         * Advances past the next data row without decoding it.
+         */
+        void skipRow() throws IOException;
+    }
+
+    /**
+     * Returns an unencoded buffered stream giving the binary content
+     * of a possibly encoded input stream.
+     *
+     * @param  in  input stream containing binary data
+     * @param  encoding  encoding string as per <tt>encoding</tt> attribute
+     *         of STREAM element ("gzip" or "base64", else assumed none)
+     * @return  decoded stream
+     */
+    private static DataBufferedInputStream createDataInput( InputStream in,
+                                                            String encoding )
+            throws IOException {
+        if ( "gzip".equals( encoding ) ) {
+            in = new GZIPInputStream( in );
+        }
+        else if ( "base64".equals( encoding ) ) {
+
+            /* This is considerably faster than java.util.Base64InputStream,
+             * and especially if the underlying input stream is a
+             * uk.ac.starlink.util.DataBufferedInputStream. */
+            in = Base64.getMimeDecoder().wrap( in );
+        }
+        return new DataBufferedInputStream( in );
     }
 }
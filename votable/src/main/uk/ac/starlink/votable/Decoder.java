@@ -51,6 +51,21 @@ abstract class Decoder {
      */
     abstract public Object decodeString( String txt );
 
+    /**
+     * Returns an object array based on the given range of characters.
+     * The result is the same as that of {@link #decodeString} applied
+     * to the corresponding string, but implementations may override
+     * this method to avoid constructing the string.
+     *
+     * @param   buf  character buffer
+     * @param   off  offset of first character
+     * @param   leng  number of characters
+     * @return  an object containing the decoded values
+     */
+    public Object decodeChars( char[] buf, int off, int leng ) {
+        return decodeString( new String( buf, off, leng ) );
+    }
+
     /**
      * Returns an object array read from the next bit of a given input
      * stream as raw bytes.  The VOTable BINARY/BINARY2 format is used.
@@ -230,11 +230,12 @@ class MultiTableStreamer extends SkeletonDOMBuilder implements TableHandler {
         } );
 
         /* Perform the parse in a new thread. */
+        final InputSource src = streamer.prepareInputSource( saxsrc );
         final boolean[] doneHolder = new boolean[ 1 ];
         Thread worker = new Thread( "VOTable streamer" ) {
             public void run() {
                 try {
-                    parser.parse( saxsrc );
+                    parser.parse( src );
                 }
                 catch ( Throwable e ) {
                     tqueue.addError( e );
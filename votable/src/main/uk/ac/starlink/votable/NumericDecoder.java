@@ -8,6 +8,9 @@ abstract class NumericDecoder extends Decoder {
 
     private final int size1_;
 
+    /** Value returned by parseDecimal if the text is not handled. */
+    static final long NOT_DECIMAL = Long.MIN_VALUE;
+
     /**
      * Does required setup for a NumericDecoder.
      *
@@ -143,6 +146,56 @@ abstract class NumericDecoder extends Decoder {
         }
     }
 
+    /**
+     * Interprets a range of characters as a plain decimal integer,
+     * if it is one.  Leading and trailing whitespace is permitted,
+     * as is a leading sign.  Other forms, including hexadecimal,
+     * and values with more than 18 digits, are not handled.
+     *
+     * @param   buf  character buffer
+     * @param   off  offset of first character
+     * @param   leng  number of characters
+     * @return   integer value, or {@link #NOT_DECIMAL} if the text
+     *           is not of the handled form
+     */
+    static long parseDecimal( char[] buf, int off, int leng ) {
+        int end = off + leng;
+        while ( off < end && isWhitespace( buf[ off ] ) ) {
+            off++;
+        }
+        while ( end > off && isWhitespace( buf[ end - 1 ] ) ) {
+            end--;
+        }
+        boolean isNeg = false;
+        if ( off < end && ( buf[ off ] == '-' || buf[ off ] == '+' ) ) {
+            isNeg = buf[ off ] == '-';
+            off++;
+        }
+        int ndigit = end - off;
+        if ( ndigit < 1 || ndigit > 18 ) {
+            return NOT_DECIMAL;
+        }
+        long value = 0;
+        for ( int i = off; i < end; i++ ) {
+            int digit = buf[ i ] - '0';
+            if ( digit < 0 || digit > 9 ) {
+                return NOT_DECIMAL;
+            }
+            value = value * 10 + digit;
+        }
+        return isNeg ? -value : value;
+    }
+
+    /**
+     * Indicates whether a character is XML whitespace.
+     *
+     * @param  c  character
+     * @return  true for space, tab, carriage return or newline
+     */
+    private static boolean isWhitespace( char c ) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r';
+    }
+
     /**
      * Interprets a string as a <tt>short</tt>.
      *
@@ -303,6 +356,13 @@ abstract class NumericDecoder extends Decoder {
         public Object decodeString( String txt ) {
             return scalarDecodeString( txt );
         }
+        @Override
+        public Object decodeChars( char[] buf, int off, int leng ) {
+            long value = parseDecimal( buf, off, leng );
+            return value >= Short.MIN_VALUE && value <= Short.MAX_VALUE
+                 ? packageArray( new short[] { (short) value } )
+                 : super.decodeChars( buf, off, leng );
+        }
     }
 
     static class UnsignedByteDecoder extends ShortDecoder {
@@ -374,6 +434,13 @@ abstract class NumericDecoder extends Decoder {
         public Object decodeString( String txt ) {
             return scalarDecodeString( txt );
         }
+        @Override
+        public Object decodeChars( char[] buf, int off, int leng ) {
+            long value = parseDecimal( buf, off, leng );
+            return value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE
+                 ? packageArray( new int[] { (int) value } )
+                 : super.decodeChars( buf, off, leng );
+        }
     }
 
     static class LongDecoder extends NumericDecoder {
@@ -418,6 +485,13 @@ abstract class NumericDecoder extends Decoder {
         public Object decodeString( String txt ) {
             return scalarDecodeString( txt );
         }
+        @Override
+        public Object decodeChars( char[] buf, int off, int leng ) {
+            long value = parseDecimal( buf, off, leng );
+            return value != NOT_DECIMAL
+                 ? packageArray( new long[] { value } )
+                 : super.decodeChars( buf, off, leng );
+        }
     }
 
     static class FloatDecoder extends NumericDecoder {
@@ -0,0 +1,239 @@
+package uk.ac.starlink.votable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+import uk.ac.starlink.table.RowSequence;
+import uk.ac.starlink.util.BufferedBase64OutputStream;
+import uk.ac.starlink.util.DataBufferedOutputStream;
+
+/**
+ * Writes the content of a VOTable BINARY or BINARY2 stream,
+ * encoding blocks of rows concurrently.
+ *
+ * <p>Rows are read sequentially by the calling thread and passed in
+ * blocks to tasks running in a thread pool, which encode them into
+ * byte buffers.  If base64 output is required, the binary buffers
+ * are then cut at line boundaries of the base64 output, and the
+ * pieces are base64-encoded by further tasks.  The results are
+ * written to the output stream in sequence by the calling thread,
+ * so the output is identical to that written by sequential encoding.
+ *
+ * @author   Mark Taylor
+ * @since    17 Oct 2026
+ */
+class ParallelStreamWriter {
+
+    private final Supplier<RowWriter> writerFactory_;
+    private final ForkJoinPool pool_;
+    private final int blockRows_;
+    private final int nahead_;
+
+    /**
+     * Number of bytes of binary data per line of base64 output written
+     * by a default BufferedBase64OutputStream.  Base64 is encoded in
+     * chunks which are multiples of this size, so that line breaks
+     * come in the same places as for encoding the whole stream at once.
+     */
+    private static final int BASE64_LINE_BYTES =
+        3 * BufferedBase64OutputStream.DEFAULT_QUADS_PER_LINE;
+
+    /**
+     * Constructor.
+     *
+     * @param  writerFactory  supplier of objects which can encode rows;
+     *                        a new instance is acquired for each block
+     * @param  pool   thread pool for encoding tasks
+     * @param  blockRows  number of rows encoded by each task
+     */
+    public ParallelStreamWriter( Supplier<RowWriter> writerFactory,
+                                 ForkJoinPool pool, int blockRows ) {
+        writerFactory_ = writerFactory;
+        pool_ = pool;
+        blockRows_ = blockRows;
+        nahead_ = 2 * pool.getParallelism();
+    }
+
+    /**
+     * Writes all the rows in a row sequence to an output stream.
+     *
+     * @param  rseq  row sequence
+     * @param  out   destination stream
+     * @param  isBase64  true for base64-encoded output terminated as by
+     *                   {@link BufferedBase64OutputStream#endBase64},
+     *                   false for raw binary output
+     */
+    public void writeRows( RowSequence rseq, OutputStream out,
+                           boolean isBase64 )
+            throws IOException {
+        Deque<Future<byte[]>> binQueue = new ArrayDeque<>();
+        Deque<Future<byte[]>> outQueue = new ArrayDeque<>();
+        byte[] carry = new byte[ 0 ];
+        try {
+            for ( boolean more = true; more; ) {
+
+                /* Read the next block of rows. */
+                Object[][] rows = new Object[ blockRows_ ][];
+                int nr = 0;
+                while ( nr < blockRows_ && ( more = rseq.next() ) ) {
+                    rows[ nr++ ] = rseq.getRow().clone();
+                }
+
+                /* Submit a task to encode them. */
+                if ( nr > 0 ) {
+                    int nrow = nr;
+                    binQueue.add( pool_.submit( () ->
+                        encodeRows( writerFactory_.get(), rows, nrow )
+                    ) );
+                }
+
+                /* Deal with encoded blocks, waiting if required. */
+                while ( binQueue.size() >= nahead_ ||
+                        ( ! more && ! binQueue.isEmpty() ) ) {
+                    byte[] buf = getBytes( binQueue.removeFirst() );
+                    if ( isBase64 ) {
+
+                        /* Submit the line-aligned part of the data for
+                         * base64 encoding, and keep the rest for next time. */
+                        int nb = carry.length + buf.length;
+                        int nline = ( nb / BASE64_LINE_BYTES )
+                                  * BASE64_LINE_BYTES;
+                        byte[] data = new byte[ nb ];
+                        System.arraycopy( carry, 0, data, 0, carry.length );
+                        System.arraycopy( buf, 0, data, carry.length,
+                                          buf.length );
+                        carry = new byte[ nb - nline ];
+                        System.arraycopy( data, nline, carry, 0,
+                                          carry.length );
+                        outQueue.add( pool_.submit( () ->
+                            encodeBase64( data, nline )
+                        ) );
+                        while ( outQueue.size() >= nahead_ ) {
+                            out.write( getBytes( outQueue.removeFirst() ) );
+                        }
+                    }
+                    else {
+                        out.write( buf );
+                    }
+                }
+            }
+
+            /* Finish base64 output with whatever is left over. */
+            if ( isBase64 ) {
+                while ( ! outQueue.isEmpty() ) {
+                    out.write( getBytes( outQueue.removeFirst() ) );
+                }
+                out.write( encodeBase64( carry, carry.length ) );
+            }
+        }
+        finally {
+
+            /* Make sure no tasks are left running. */
+            for ( Future<byte[]> future : binQueue ) {
+                future.cancel( false );
+            }
+            for ( Future<byte[]> future : outQueue ) {
+                future.cancel( false );
+            }
+        }
+    }
+
+    /**
+     * Encodes a block of rows as binary data.
+     *
+     * @param  writer  row writer for exclusive use of this call
+     * @param  rows   row data
+     * @param  nrow   number of rows to encode
+     * @return  encoded bytes
+     */
+    private static byte[] encodeRows( RowWriter writer, Object[][] rows,
+                                      int nrow )
+            throws IOException {
+        ByteArrayOutputStream bout = new ByteArrayOutputStream();
+        DataBufferedOutputStream dout = new DataBufferedOutputStream( bout );
+        for ( int ir = 0; ir < nrow; ir++ ) {
+            writer.writeRow( rows[ ir ], dout );
+        }
+        dout.flush();
+        return bout.toByteArray();
+    }
+
+    /**
+     * Encodes binary data as base64.  The encoded text is terminated
+     * as by <code>BufferedBase64OutputStream.endBase64</code>,
+     * which for input that is a multiple of
+     * {@link #BASE64_LINE_BYTES} in length just means ending
+     * the final line.
+     *
+     * @param  data  buffer containing binary data
+     * @param  leng  number of bytes of data to encode
+     * @return   base64 text bytes
+     */
+    private static byte[] encodeBase64( byte[] data, int leng )
+            throws IOException {
+        ByteArrayOutputStream bout =
+            new ByteArrayOutputStream( leng / 3 * 4 + leng / 16 + 16 );
+        BufferedBase64OutputStream b64out =
+            new BufferedBase64OutputStream( bout );
+        b64out.write( data, 0, leng );
+        b64out.endBase64();
+        return bout.toByteArray();
+    }
+
+    /**
+     * Waits for the result of an encoding task.
+     *
+     * @param  future  future result
+     * @return  encoded bytes
+     */
+    private static byte[] getBytes( Future<byte[]> future )
+            throws IOException {
+        try {
+            return future.get();
+        }
+        catch ( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            throw (IOException)
+                  new InterruptedIOException( "Interrupted" ).initCause( e );
+        }
+        catch ( ExecutionException e ) {
+            Throwable err = e.getCause();
+            if ( err instanceof IOException ) {
+                throw (IOException) err;
+            }
+            else if ( err instanceof RuntimeException ) {
+                throw (RuntimeException) err;
+            }
+            else if ( err instanceof Error ) {
+                throw (Error) err;
+            }
+            else {
+                throw new IOException( err );
+            }
+        }
+    }
+
+    /**
+     * Encodes table rows to a binary stream.
+     * Instances are not required to be thread-safe.
+     */
+    @FunctionalInterface
+    interface RowWriter {
+
+        /**
+         * Writes the serialized form of a row.
+         *
+         * @param  row  row data
+         * @param  out  destination
+         */
+        void writeRow( Object[] row, DataOutput out ) throws IOException;
+    }
+}
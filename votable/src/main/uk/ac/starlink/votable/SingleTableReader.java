@@ -1,7 +1,9 @@
 package uk.ac.starlink.votable;
 
 import java.io.CharConversionException;
+import java.io.File;
 import java.io.IOException;
+import java.net.URL;
 import java.util.logging.Logger;
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.parsers.SAXParserFactory;
@@ -16,6 +18,7 @@ import uk.ac.starlink.table.StarTable;
 import uk.ac.starlink.table.StoragePolicy;
 import uk.ac.starlink.table.TableFormatException;
 import uk.ac.starlink.util.StarEntityResolver;
+import uk.ac.starlink.util.URLUtils;
 
 /**
  * ContentHandler which builds a DOM from a SAX stream including
@@ -34,6 +37,8 @@ class SingleTableReader extends VOTableParser implements TableHandler {
 
     private final StoragePolicy storage_;
     private final Namespacing namespacing_;
+    private int indexStep_;
+    private boolean saveIndex_;
     private RowStore rowStore_;
     private boolean isVotable_;
     private TableElement tableEl_;
@@ -59,6 +64,30 @@ class SingleTableReader extends VOTableParser implements TableHandler {
         namespacing_ = Namespacing.getInstance();
     }
 
+    /**
+     * Configures the use of row indexes for BINARY and BINARY2 streams
+     * in external files.  If the step is positive, then rather than
+     * copying the data of such a stream into a row store, a single pass
+     * is made to record the position of every <code>step</code>'th row,
+     * and random access is provided by reading from the file
+     * via the resulting index.
+     * This only applies to unencoded or base64-encoded streams
+     * referenced by <code>file:</code> URLs.
+     * Inline STREAM content is not indexed, since SAX reports only
+     * line and column numbers, not the byte offsets within the document
+     * that the index would need; it is read into the row store as usual.
+     *
+     * @param  step  number of rows between index checkpoints,
+     *               or a non-positive value for no indexing
+     * @param  saveIndex  if true, the index is saved in a file next to
+     *                    the data file, and re-used if it is present and
+     *                    up to date
+     */
+    public void setRowIndexing( int step, boolean saveIndex ) {
+        indexStep_ = step;
+        saveIndex_ = saveIndex;
+    }
+
     /**
      * Returns the TABLE element requested, including its TabularData.
      *
@@ -99,6 +128,66 @@ class SingleTableReader extends VOTableParser implements TableHandler {
         }
     }
 
+    @Override
+    protected void processBinaryHref( URL url, Attributes atts,
+                                      boolean isBinary2 )
+            throws SAXException {
+        TableElement tableEl = getTableElement();
+        String encoding = getAttribute( atts, "encoding" );
+        boolean isBase64 = "base64".equals( encoding );
+        File file = indexStep_ > 0 && getTableHandler() == this &&
+                    tableEl != null &&
+                    ( isBase64 || encoding == null || encoding.length() == 0 )
+                  ? URLUtils.urlToFile( url.toString() )
+                  : null;
+        if ( file == null || ! file.isFile() ) {
+            super.processBinaryHref( url, atts, isBinary2 );
+            return;
+        }
+        FieldElement[] fields = tableEl.getFields();
+        Decoder[] decoders = getDecoders( fields );
+        StringBuffer kbuf = new StringBuffer()
+            .append( isBinary2 ? "BINARY2" : "BINARY" )
+            .append( isBase64 ? ";base64" : "" )
+            .append( ";step=" )
+            .append( indexStep_ );
+        for ( FieldElement field : fields ) {
+            kbuf.append( ';' )
+                .append( field.getDatatype() )
+                .append( '/' )
+                .append( field.getAttribute( "arraysize" ) );
+        }
+        String key = kbuf.toString();
+        try {
+            BinaryRowIndex index =
+                saveIndex_ ? BinaryRowIndex.readSavedIndex( file, key )
+                           : null;
+            if ( index == null ) {
+                index = BinaryRowIndex.createIndex( file, decoders, isBase64,
+                                                    isBinary2, indexStep_ );
+                if ( saveIndex_ ) {
+                    index.saveIndex( file, key );
+                }
+            }
+            logger_.info( "Indexed " + index.getRowCount() + " rows in "
+                        + file );
+
+            /* Ignore table data once we have processed one table. */
+            setTableHandler( null );
+            setReadHrefTables( false );
+            tableEl_ = tableEl;
+            tableEl_.setData( new TableBodies
+                             .IndexedBinaryTabularData( decoders, file,
+                                                        isBase64, isBinary2,
+                                                        index ) );
+        }
+        catch ( IOException e ) {
+            throw (SAXException)
+                  new SAXParseException( e.getMessage(), getLocator(), e )
+                 .initCause( e );
+        }
+    }
+
     public void startTable( StarTable meta ) throws SAXException {
         rowStore_ = storage_.makeConfiguredRowStore( meta );
     }
@@ -145,15 +234,22 @@ class SingleTableReader extends VOTableParser implements TableHandler {
      * @param  itable index of the table in the document to be read
      *                (0-based)
      * @param  strict whether to enforce strict reading of the VOTable standard
+     * @param  indexStep  number of rows between index checkpoints for
+     *                    external BINARY/BINARY2 streams,
+     *                    or non-positive for no indexing
+     * @param  saveIndex  whether to save and re-use row indexes
+     * @see   #setRowIndexing
      */
     public static VOStarTable readStarTable( final InputSource saxsrc,
                                              int itable, StoragePolicy storage,
-                                             boolean strict )
+                                             boolean strict, int indexStep,
+                                             boolean saveIndex )
             throws IOException, SAXException {
 
         /* Construct a reader instance for the requested table. */
         SingleTableReader reader =
             new SingleTableReader( storage, itable, strict );
+        reader.setRowIndexing( indexStep, saveIndex );
 
         /* Get a SAX parser. */
         final XMLReader parser;
@@ -189,7 +285,7 @@ class SingleTableReader extends VOTableParser implements TableHandler {
 
         /* Do the parse. */
         try {
-            parser.parse( saxsrc );
+            parser.parse( reader.prepareInputSource( saxsrc ) );
         }
         catch ( CharConversionException e ) {
             if ( reader.isVotable_ ) {
@@ -10,6 +10,7 @@ import java.net.URL;
 import java.util.Base64;
 import org.xml.sax.Attributes;
 import org.xml.sax.ContentHandler;
+import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
 import org.xml.sax.SAXParseException;
 import org.w3c.dom.Element;
@@ -44,6 +45,8 @@ abstract class SkeletonDOMBuilder extends CustomDOMBuilder {
     private TableHandler tableHandler_;
     private String systemId_;
     private TableElement tableEl_;
+    private TabledataInputStream tdataIn_;
+    private long ntabledata_;
 
     /**
      * Constructor.
@@ -77,6 +80,51 @@ abstract class SkeletonDOMBuilder extends CustomDOMBuilder {
         return tableHandler_;
     }
 
+    /**
+     * Prepares a SAX input source for parsing by this builder.
+     * If the source supplies a byte stream, it is wrapped so that
+     * TABLEDATA content can be tokenized directly rather than going
+     * through the SAX parser, which is much faster.
+     *
+     * @param  saxsrc  input source
+     * @return  input source to parse in its place
+     */
+    public InputSource prepareInputSource( InputSource saxsrc ) {
+        InputStream in = saxsrc.getByteStream();
+        if ( in != null && saxsrc.getCharacterStream() == null ) {
+            tdataIn_ = new TabledataInputStream( in, saxsrc.getEncoding() );
+            InputSource src = new InputSource( tdataIn_ );
+            src.setSystemId( saxsrc.getSystemId() );
+            src.setPublicId( saxsrc.getPublicId() );
+            src.setEncoding( saxsrc.getEncoding() );
+            return src;
+        }
+        else {
+            return saxsrc;
+        }
+    }
+
+    /**
+     * Counts TABLEDATA start tags before passing the event on as usual,
+     * so that a claim on the direct TABLEDATA scan can identify
+     * the element it refers to.  All elements are counted,
+     * not just those that will be handled as table data,
+     * since the input stream counts tags in the same way.
+     */
+    @Override
+    public void startElement( String namespaceURI, String localName,
+                              String qName, Attributes atts )
+            throws SAXException {
+        String name = qName != null && qName.length() > 0 ? qName
+                                                          : localName;
+        if ( name != null &&
+             name.substring( name.indexOf( ':' ) + 1 )
+                 .equals( "TABLEDATA" ) ) {
+            ntabledata_++;
+        }
+        super.startElement( namespaceURI, localName, qName, atts );
+    }
+
     /**
      * Invoked if a FITS/STREAM element with a non-empty href attribute
      * is encountered.  In this case the TableHandler is not notified.
@@ -277,6 +325,14 @@ abstract class SkeletonDOMBuilder extends CustomDOMBuilder {
                                                 .createComment( comment ) );
             if ( tableHandler_ != null ) {
                 tableHandler_.startTable( tableEl_.getMetadataTable() );
+
+                /* If possible, arrange for the rows to be read directly
+                 * from the input stream.  In that case none of the
+                 * content will be seen by this handler. */
+                if ( tdataIn_ != null ) {
+                    tdataIn_.claimTabledata( ntabledata_, decoders_,
+                                             tableHandler_ );
+                }
             }
         }
 
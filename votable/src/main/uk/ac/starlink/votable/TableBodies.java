@@ -1,6 +1,9 @@
 package uk.ac.starlink.votable;
 
 import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
@@ -166,6 +169,180 @@ class TableBodies {
         }
     }
 
+    /**
+     * Random-access TabularData implementation for an unencoded or
+     * base64-encoded BINARY or BINARY2 stream in an external file,
+     * using a sparse index of row positions.
+     * Rows are read by seeking to the nearest preceding checkpoint and
+     * reading forward, so no scratch copy of the data is required.
+     */
+    static class IndexedBinaryTabularData implements TabularData {
+        private final Decoder[] decoders_;
+        private final Class<?>[] classes_;
+        private final File file_;
+        private final boolean isBase64_;
+        private final boolean isBinary2_;
+        private final BinaryRowIndex index_;
+        private RowAccess sharedAccess_;
+
+        /**
+         * Constructor.
+         *
+         * @param  decoders  decoders, one for each column
+         * @param  file   file containing the stream
+         * @param  isBase64  true for base64 encoding, false for unencoded
+         * @param  isBinary2  true for BINARY2, false for BINARY
+         * @param  index   row index for the stream
+         */
+        public IndexedBinaryTabularData( Decoder[] decoders, File file,
+                                         boolean isBase64, boolean isBinary2,
+                                         BinaryRowIndex index ) {
+            decoders_ = decoders;
+            classes_ = getClasses( decoders );
+            file_ = file;
+            isBase64_ = isBase64;
+            isBinary2_ = isBinary2;
+            index_ = index;
+        }
+
+        public int getColumnCount() {
+            return decoders_.length;
+        }
+
+        public long getRowCount() {
+            return index_.getRowCount();
+        }
+
+        public Class<?> getContentClass( int icol ) {
+            return classes_[ icol ];
+        }
+
+        public RowSequence getRowSequence() throws IOException {
+            InputStream in =
+                new BufferedInputStream( new FileInputStream( file_ ) );
+            return new BinaryRowSequence( decoders_, in,
+                                          isBase64_ ? "base64" : null,
+                                          isBinary2_ );
+        }
+
+        public boolean isRandom() {
+            return true;
+        }
+
+        public RowAccess getRowAccess() {
+            return new IndexedRowAccess();
+        }
+
+        public synchronized Object getCell( long irow, int icol )
+                throws IOException {
+            RowAccess racc = getSharedAccess();
+            racc.setRowIndex( irow );
+            return racc.getCell( icol );
+        }
+
+        public synchronized Object[] getRow( long irow ) throws IOException {
+            RowAccess racc = getSharedAccess();
+            racc.setRowIndex( irow );
+            return racc.getRow();
+        }
+
+        public synchronized void close() throws IOException {
+            if ( sharedAccess_ != null ) {
+                sharedAccess_.close();
+                sharedAccess_ = null;
+            }
+        }
+
+        /**
+         * Returns a lazily constructed RowAccess for use by the
+         * random access methods of this object.
+         *
+         * @return  row access
+         */
+        private RowAccess getSharedAccess() {
+            if ( sharedAccess_ == null ) {
+                sharedAccess_ = new IndexedRowAccess();
+            }
+            return sharedAccess_;
+        }
+
+        /**
+         * RowAccess implementation that reads forward from its current
+         * stream position where possible, and otherwise repositions
+         * at the nearest checkpoint preceding the requested row.
+         */
+        private class IndexedRowAccess implements RowAccess {
+            private final int step_;
+            private BinaryRowSequence rseq_;
+            private long nextRow_;
+            private long irow_;
+            private Object[] row_;
+
+            IndexedRowAccess() {
+                step_ = index_.getStep();
+                irow_ = -1;
+            }
+
+            public void setRowIndex( long irow ) {
+                if ( irow != irow_ ) {
+                    irow_ = irow;
+                    row_ = null;
+                }
+            }
+
+            public Object getCell( int icol ) throws IOException {
+                return getRow()[ icol ];
+            }
+
+            public Object[] getRow() throws IOException {
+                if ( row_ == null ) {
+                    row_ = readRow( irow_ );
+                }
+                return row_;
+            }
+
+            public void close() throws IOException {
+                if ( rseq_ != null ) {
+                    rseq_.close();
+                    rseq_ = null;
+                }
+            }
+
+            /**
+             * Reads a given row from the stream.
+             *
+             * @param  irow  row index
+             * @return  row data
+             */
+            private Object[] readRow( long irow ) throws IOException {
+                if ( irow < 0 || irow >= index_.getRowCount() ) {
+                    throw new IllegalArgumentException( "No row " + irow );
+                }
+                int icheck = (int) ( irow / step_ );
+                long checkRow = icheck * (long) step_;
+                if ( rseq_ == null || irow < nextRow_ ||
+                     checkRow > nextRow_ ) {
+                    close();
+                    rseq_ = new BinaryRowSequence(
+                                decoders_,
+                                index_.openStream( file_, isBase64_, icheck ),
+                                isBinary2_ );
+                    nextRow_ = checkRow;
+                }
+                for ( ; nextRow_ < irow; nextRow_++ ) {
+                    if ( ! rseq_.skipRow() ) {
+                        throw new EOFException( "Unexpected end of stream" );
+                    }
+                }
+                if ( ! rseq_.next() ) {
+                    throw new EOFException( "Unexpected end of stream" );
+                }
+                nextRow_++;
+                return rseq_.getRow();
+            }
+        }
+    }
+
     /**
      * TabularData implementation for a TABLEDATA DOM element which 
      * contains the data as TR and TD descendants.
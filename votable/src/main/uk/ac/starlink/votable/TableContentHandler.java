@@ -2,6 +2,7 @@ package uk.ac.starlink.votable;
 
 import org.xml.sax.Attributes;
 import org.xml.sax.ContentHandler;
+import org.xml.sax.InputSource;
 import org.xml.sax.Locator;
 import org.xml.sax.SAXException;
 
@@ -46,6 +47,21 @@ public class TableContentHandler implements ContentHandler {
         votParser_.setTableHandler( handler );
     }
 
+    /**
+     * Prepares a SAX input source for parsing with this handler.
+     * If the returned source is parsed in place of the given one,
+     * the content of TABLEDATA elements may be tokenized directly from
+     * the input byte stream rather than going through the SAX parser,
+     * which is much faster.  The handler behaves in the same way
+     * whichever source is used.
+     *
+     * @param  saxsrc  input source
+     * @return  input source to parse in its place
+     */
+    public InputSource prepareInputSource( InputSource saxsrc ) {
+        return votParser_.prepareInputSource( saxsrc );
+    }
+
     /**
      * Returns the TableHandler object for this parser.
      *
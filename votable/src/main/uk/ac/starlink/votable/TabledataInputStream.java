@@ -0,0 +1,889 @@
+package uk.ac.starlink.votable;
+
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.xml.sax.SAXException;
+
+/**
+ * Input stream filter that allows the content of TABLEDATA elements
+ * to be tokenized directly from the bytes of a VOTable document,
+ * bypassing the SAX parser that is processing the rest of it.
+ *
+ * <p>Bytes are passed through to the parser unchanged, except that
+ * each read stops just after the start tag of a TABLEDATA element.
+ * If, before the next read, the parser has reported that start tag
+ * and the TABLEDATA handler has called {@link #claimTabledata},
+ * the content of the element is scanned here, and rows are passed
+ * directly to the table handler with cell text handed to the
+ * column Decoders as character ranges.  The parser then only sees
+ * the TABLEDATA end tag.  Otherwise the bytes are passed to the parser
+ * as usual, so that the result is the same either way.
+ *
+ * <p>The scanner understands TR and TD elements with or without
+ * namespace prefixes or attributes, comments, processing instructions,
+ * CDATA sections, character references and the predefined XML entities.
+ * It is only used for documents in UTF-8 (or ASCII) encoding;
+ * for other encodings the parser's character decoding reads ahead
+ * of the element events, so the content is always left to the parser.
+ *
+ * @author   Mark Taylor
+ * @since    17 Oct 2026
+ */
+class TabledataInputStream extends FilterInputStream {
+
+    private final byte[] buf_;
+    private int pos_;
+    private int count_;
+    private boolean enabled_;
+    private long nlex_;
+    private int state_;
+    private int mark_;
+    private int bangKind_;
+    private int quote_;
+    private int depth_;
+    private boolean slash_;
+    private boolean isTabledata_;
+    private final byte[] name_;
+    private int nameLeng_;
+    private StringBuilder decl_;
+    private boolean atTabledata_;
+    private TableHandler claimHandler_;
+    private Decoder[] claimDecoders_;
+    private byte[] pending_;
+    private int pendingPos_;
+    private char[] cell_;
+    private int cellLeng_;
+    private long nrowScanned_;
+    private long ntabledata_;
+
+    private static final int TEXT = 0;
+    private static final int LT = 1;
+    private static final int BANG = 2;
+    private static final int COMMENT = 3;
+    private static final int CDATA = 4;
+    private static final int PI = 5;
+    private static final int DECL = 6;
+    private static final int ETAG = 7;
+    private static final int STAG_NAME = 8;
+    private static final int TAG = 9;
+
+    private static final byte[] CDATA_OPEN = bytes( "[CDATA[" );
+    private static final Pattern ENCODING_REGEX =
+        Pattern.compile( "encoding\\s*=\\s*[\"']([^\"']*)[\"']" );
+    private static final Logger logger_ =
+        Logger.getLogger( "uk.ac.starlink.votable" );
+
+    /**
+     * Constructor.
+     *
+     * @param  in  input stream containing an XML document
+     * @param  encoding  declared encoding of the input stream, or null
+     *                   if not known
+     */
+    public TabledataInputStream( InputStream in, String encoding ) {
+        super( in );
+        buf_ = new byte[ 64 * 1024 ];
+        name_ = new byte[ 64 ];
+        cell_ = new char[ 256 ];
+        enabled_ = encoding == null || isSupportedEncoding( encoding );
+        state_ = TEXT;
+    }
+
+    /**
+     * Requests that the content of the TABLEDATA element whose start tag
+     * has just been reported by the parser is processed by this object
+     * rather than by the parser.
+     *
+     * <p>This will only succeed if the parser has not yet read any of the
+     * element content from this stream.  That is normally the case,
+     * since reads stop at the end of the start tag and the parser
+     * reports the start tag before reading further, but it is checked:
+     * the claim fails if there has been any read since the one that
+     * ended at a TABLEDATA start tag, or if that start tag is not the
+     * one the caller is reporting.  The latter is identified by
+     * its index among all the TABLEDATA start tags in the document
+     * (including empty ones), so that a parser which buffers
+     * beyond the reported element is detected.
+     * If the claim fails, the content is passed to the parser as usual.
+     *
+     * @param  itabledata  1-based index in the document of the
+     *                     TABLEDATA element being reported
+     * @param  decoders  decoders for the columns of the table
+     * @param  handler   handler to receive the rows
+     * @return  true if the element content will be processed by this
+     *          object; false if it will be passed to the parser as usual
+     */
+    public boolean claimTabledata( long itabledata, Decoder[] decoders,
+                                   TableHandler handler ) {
+        if ( atTabledata_ && itabledata == ntabledata_ ) {
+            claimDecoders_ = decoders;
+            claimHandler_ = handler;
+            return true;
+        }
+        else {
+            return false;
+        }
+    }
+
+    /**
+     * Returns the total number of rows that have been tokenized
+     * directly by this object.
+     *
+     * @return  directly scanned row count
+     */
+    public long getScannedRowCount() {
+        return nrowScanned_;
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] b1 = new byte[ 1 ];
+        int n;
+        do {
+            n = read( b1, 0, 1 );
+        } while ( n == 0 );
+        return n < 0 ? -1 : ( b1[ 0 ] & 0xff );
+    }
+
+    @Override
+    public int read( byte[] b, int off, int len ) throws IOException {
+        if ( len == 0 ) {
+            return 0;
+        }
+
+        /* Perform the direct scan if one has been claimed. */
+        if ( atTabledata_ ) {
+            atTabledata_ = false;
+            TableHandler handler = claimHandler_;
+            Decoder[] decoders = claimDecoders_;
+            claimHandler_ = null;
+            claimDecoders_ = null;
+            if ( handler != null ) {
+                scanTabledata( decoders, handler );
+            }
+        }
+
+        /* Serve any bytes that are pending following a direct scan. */
+        if ( pending_ != null ) {
+            int n = Math.min( len, pending_.length - pendingPos_ );
+            System.arraycopy( pending_, pendingPos_, b, off, n );
+            pendingPos_ += n;
+            if ( pendingPos_ == pending_.length ) {
+                pending_ = null;
+            }
+            return n;
+        }
+
+        /* Otherwise pass bytes through, stopping after a TABLEDATA
+         * start tag. */
+        if ( pos_ == count_ && ! fill() ) {
+            return -1;
+        }
+        int n = Math.min( len, count_ - pos_ );
+        if ( enabled_ ) {
+            for ( int i = 0; i < n; i++ ) {
+                nlex_++;
+                if ( lex( buf_[ pos_ + i ] ) ) {
+                    n = i + 1;
+                    atTabledata_ = true;
+                    break;
+                }
+            }
+        }
+        System.arraycopy( buf_, pos_, b, off, n );
+        pos_ += n;
+        return n;
+    }
+
+    @Override
+    public long skip( long n ) throws IOException {
+        byte[] b = new byte[ (int) Math.min( n, 8192 ) ];
+        return Math.max( 0, read( b, 0, b.length ) );
+    }
+
+    @Override
+    public int available() {
+        return pending_ != null ? pending_.length - pendingPos_
+                                : count_ - pos_;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public void mark( int limit ) {
+    }
+
+    @Override
+    public void reset() throws IOException {
+        throw new IOException( "Mark not supported" );
+    }
+
+    /**
+     * Refills the buffer from the underlying stream.
+     * Only invoked when the buffer is empty.
+     *
+     * @return  false if the underlying stream is exhausted
+     */
+    private boolean fill() throws IOException {
+        assert pos_ == count_;
+        int n;
+        do {
+            n = in.read( buf_, 0, buf_.length );
+        } while ( n == 0 );
+        if ( n < 0 ) {
+            pos_ = 0;
+            count_ = 0;
+            return false;
+        }
+        if ( nlex_ == 0 && count_ == 0 && n >= 2 ) {
+
+            /* Multi-byte encodings are not handled. */
+            int b0 = buf_[ 0 ] & 0xff;
+            int b1 = buf_[ 1 ] & 0xff;
+            if ( b0 == 0 || b1 == 0 || b0 == 0xfe || b0 == 0xff ) {
+                enabled_ = false;
+            }
+        }
+        pos_ = 0;
+        count_ = n;
+        return true;
+    }
+
+    /**
+     * Returns the next byte from the underlying stream,
+     * bypassing the pass-through lexer.
+     *
+     * @return  byte value
+     * @throws  EOFException  at end of stream
+     */
+    private int next() throws IOException {
+        if ( pos_ == count_ && ! fill() ) {
+            throw new EOFException( "Unexpected end of TABLEDATA" );
+        }
+        return buf_[ pos_++ ] & 0xff;
+    }
+
+    /**
+     * Returns the next byte from the underlying stream without
+     * consuming it.
+     *
+     * @return  byte value, or -1 at end of stream
+     */
+    private int peek() throws IOException {
+        if ( pos_ == count_ && ! fill() ) {
+            return -1;
+        }
+        return buf_[ pos_ ] & 0xff;
+    }
+
+    /**
+     * Processes a byte that is being passed to the parser,
+     * keeping track of the lexical state.
+     *
+     * @param  b  byte value
+     * @return  true iff the byte ends a (non-empty) TABLEDATA start tag
+     */
+    private boolean lex( byte b ) {
+        switch ( state_ ) {
+            case TEXT:
+                if ( b == '<' ) {
+                    state_ = LT;
+                }
+                return false;
+            case LT:
+                if ( b == '!' ) {
+                    state_ = BANG;
+                    mark_ = 0;
+                }
+                else if ( b == '?' ) {
+                    state_ = PI;
+                    mark_ = 0;
+                    decl_ = nlex_ <= 5 ? new StringBuilder() : null;
+                }
+                else if ( b == '/' ) {
+                    state_ = ETAG;
+                }
+                else {
+                    state_ = STAG_NAME;
+                    nameLeng_ = 0;
+                    addName( b );
+                }
+                return false;
+            case BANG:
+                if ( mark_ == 0 && ( b == '-' || b == '[' ) ) {
+                    bangKind_ = b;
+                    mark_ = 1;
+                }
+                else if ( mark_ > 0 && bangKind_ == '-' && b == '-' ) {
+                    state_ = COMMENT;
+                    mark_ = 0;
+                }
+                else if ( mark_ > 0 && bangKind_ == '[' &&
+                          b == CDATA_OPEN[ mark_ ] ) {
+                    if ( ++mark_ == CDATA_OPEN.length ) {
+                        state_ = CDATA;
+                        mark_ = 0;
+                    }
+                }
+                else {
+                    state_ = DECL;
+                    quote_ = 0;
+                    depth_ = 0;
+                    return lex( b );
+                }
+                return false;
+            case COMMENT:
+                if ( b == '-' ) {
+                    mark_++;
+                }
+                else {
+                    if ( b == '>' && mark_ >= 2 ) {
+                        state_ = TEXT;
+                    }
+                    mark_ = 0;
+                }
+                return false;
+            case CDATA:
+                if ( b == ']' ) {
+                    mark_++;
+                }
+                else {
+                    if ( b == '>' && mark_ >= 2 ) {
+                        state_ = TEXT;
+                    }
+                    mark_ = 0;
+                }
+                return false;
+            case PI:
+                if ( b == '>' && mark_ == '?' ) {
+                    state_ = TEXT;
+                    if ( decl_ != null ) {
+                        processDeclaration( decl_.toString() );
+                        decl_ = null;
+                    }
+                }
+                else if ( decl_ != null && decl_.length() < 1024 ) {
+                    decl_.append( (char) ( b & 0xff ) );
+                }
+                mark_ = b;
+                return false;
+            case DECL:
+                if ( quote_ != 0 ) {
+                    if ( b == quote_ ) {
+                        quote_ = 0;
+                    }
+                }
+                else if ( b == '"' || b == '\'' ) {
+                    quote_ = b;
+                }
+                else if ( b == '[' ) {
+                    depth_++;
+                }
+                else if ( b == ']' ) {
+                    depth_--;
+                }
+                else if ( b == '>' && depth_ <= 0 ) {
+                    state_ = TEXT;
+                }
+                return false;
+            case ETAG:
+                if ( b == '>' ) {
+                    state_ = TEXT;
+                }
+                return false;
+            case STAG_NAME:
+                if ( isNameEnd( b ) ) {
+                    isTabledata_ = localNameIs( "TABLEDATA" );
+                    state_ = TAG;
+                    quote_ = 0;
+                    slash_ = false;
+                    return lex( b );
+                }
+                else {
+                    addName( b );
+                    return false;
+                }
+            case TAG:
+                if ( quote_ != 0 ) {
+                    if ( b == quote_ ) {
+                        quote_ = 0;
+                    }
+                }
+                else if ( b == '"' || b == '\'' ) {
+                    quote_ = b;
+                    slash_ = false;
+                }
+                else if ( b == '>' ) {
+                    state_ = TEXT;
+                    if ( isTabledata_ ) {
+                        ntabledata_++;
+                    }
+                    return isTabledata_ && ! slash_;
+                }
+                else if ( b == '/' ) {
+                    slash_ = true;
+                }
+                else if ( ! isSpace( b ) ) {
+                    slash_ = false;
+                }
+                return false;
+            default:
+                throw new AssertionError();
+        }
+    }
+
+    /**
+     * Processes the content of the XML declaration.
+     * If the document encoding is not one that can be handled,
+     * direct scanning is disabled.
+     *
+     * @param  decl  content of processing instruction at document start
+     */
+    private void processDeclaration( String decl ) {
+        if ( decl.startsWith( "xml" ) ) {
+            Matcher matcher = ENCODING_REGEX.matcher( decl );
+            if ( matcher.find() &&
+                 ! isSupportedEncoding( matcher.group( 1 ) ) ) {
+                enabled_ = false;
+            }
+        }
+    }
+
+    /**
+     * Indicates whether a given character encoding can be handled.
+     *
+     * @param  encoding  encoding name
+     * @return  true iff the encoding is one that can be handled
+     */
+    private static boolean isSupportedEncoding( String encoding ) {
+        String enc = encoding.trim().toUpperCase();
+        return enc.equals( "UTF-8" ) || enc.equals( "UTF8" )
+            || enc.equals( "US-ASCII" ) || enc.equals( "ASCII" );
+    }
+
+    /**
+     * Tokenizes the content of a TABLEDATA element, passing rows to
+     * a table handler.  On exit, the bytes of the TABLEDATA end tag
+     * are pending for delivery to the parser.
+     *
+     * @param  decoders  column decoders
+     * @param  handler   table handler
+     */
+    private void scanTabledata( Decoder[] decoders, TableHandler handler )
+            throws IOException {
+        int ncol = decoders.length;
+        Object[] row = null;
+        int icol = 0;
+        boolean inCell = false;
+        long nrow = 0;
+        while ( true ) {
+            int b = next();
+            if ( b == '<' ) {
+                int c = next();
+                if ( c == '!' ) {
+                    scanBang( inCell );
+                }
+                else if ( c == '?' ) {
+                    skipPast( '?', '>' );
+                }
+                else if ( c == '/' ) {
+                    nameLeng_ = 0;
+                    scanName( next() );
+                    skipTag();
+                    if ( localNameIs( "TD" ) ) {
+                        if ( inCell ) {
+                            if ( row != null && icol < ncol ) {
+                                row[ icol ] =
+                                    cellLeng_ > 0
+                                  ? decoders[ icol ]
+                                   .decodeChars( cell_, 0, cellLeng_ )
+                                  : null;
+                            }
+                            icol++;
+                            inCell = false;
+                        }
+                    }
+                    else if ( localNameIs( "TR" ) ) {
+                        if ( row != null ) {
+                            rowData( handler, row );
+                            nrow++;
+                            row = null;
+                        }
+                    }
+                    else if ( localNameIs( "TABLEDATA" ) ) {
+                        byte[] etag = new byte[ nameLeng_ + 3 ];
+                        etag[ 0 ] = (byte) '<';
+                        etag[ 1 ] = (byte) '/';
+                        System.arraycopy( name_, 0, etag, 2, nameLeng_ );
+                        etag[ nameLeng_ + 2 ] = (byte) '>';
+                        pending_ = etag;
+                        pendingPos_ = 0;
+                        state_ = TEXT;
+                        nrowScanned_ += nrow;
+                        logger_.config( "Scanned " + nrow
+                                      + " TABLEDATA rows directly" );
+                        return;
+                    }
+                }
+                else {
+                    nameLeng_ = 0;
+                    scanName( c );
+                    boolean isEmpty = skipTag();
+                    if ( localNameIs( "TD" ) ) {
+                        if ( isEmpty ) {
+                            if ( row != null && icol < ncol ) {
+                                row[ icol ] = null;
+                            }
+                            icol++;
+                        }
+                        else {
+                            inCell = true;
+                            cellLeng_ = 0;
+                        }
+                    }
+                    else if ( localNameIs( "TR" ) ) {
+                        row = new Object[ ncol ];
+                        icol = 0;
+                        if ( isEmpty ) {
+                            rowData( handler, row );
+                            nrow++;
+                            row = null;
+                        }
+                    }
+                }
+            }
+            else if ( inCell ) {
+                if ( b == '&' ) {
+                    appendCodePoint( scanReference() );
+                }
+                else {
+                    appendByte( b );
+                }
+            }
+        }
+    }
+
+    /**
+     * Passes a row to the table handler.
+     *
+     * @param  handler  table handler
+     * @param  row   row data
+     */
+    private static void rowData( TableHandler handler, Object[] row )
+            throws IOException {
+        try {
+            handler.rowData( row );
+        }
+        catch ( SAXException e ) {
+            throw (IOException) new IOException( e.getMessage() )
+                               .initCause( e );
+        }
+    }
+
+    /**
+     * Processes markup following "&lt;!" within TABLEDATA content.
+     *
+     * @param  inCell  true if the markup is within a TD element
+     */
+    private void scanBang( boolean inCell ) throws IOException {
+        int c = next();
+        if ( c == '-' && next() == '-' ) {
+            int ndash = 0;
+            while ( true ) {
+                int b = next();
+                if ( b == '-' ) {
+                    ndash++;
+                }
+                else if ( b == '>' && ndash >= 2 ) {
+                    return;
+                }
+                else {
+                    ndash = 0;
+                }
+            }
+        }
+        else if ( c == '[' ) {
+            for ( int i = 1; i < CDATA_OPEN.length; i++ ) {
+                if ( next() != CDATA_OPEN[ i ] ) {
+                    throw new IOException( "Bad markup in TABLEDATA" );
+                }
+            }
+            int nbr = 0;
+            while ( true ) {
+                int b = next();
+                if ( b == ']' ) {
+                    nbr++;
+                }
+                else if ( b == '>' && nbr >= 2 ) {
+                    if ( inCell ) {
+                        cellLeng_ -= 2;
+                    }
+                    return;
+                }
+                else {
+                    nbr = 0;
+                }
+                if ( inCell ) {
+                    appendByte( b );
+                }
+            }
+        }
+        else {
+            throw new IOException( "Unexpected declaration in TABLEDATA" );
+        }
+    }
+
+    /**
+     * Reads bytes up to and including a given pair of bytes.
+     *
+     * @param  b1  penultimate byte
+     * @param  b2  final byte
+     */
+    private void skipPast( int b1, int b2 ) throws IOException {
+        int prev = 0;
+        for ( int b; ( b = next() ) != b2 || prev != b1; prev = b ) {
+        }
+    }
+
+    /**
+     * Reads an element name into the name buffer.
+     * The byte following the name is not consumed.
+     *
+     * @param  b  first byte of name
+     */
+    private void scanName( int b ) throws IOException {
+        addName( (byte) b );
+        while ( ! isNameEnd( (byte) peek() ) ) {
+            addName( (byte) next() );
+        }
+    }
+
+    /**
+     * Reads the rest of a tag following its name, up to and including
+     * the closing "&gt;".
+     *
+     * @return  true iff the tag was an empty-element tag
+     */
+    private boolean skipTag() throws IOException {
+        int quote = 0;
+        boolean slash = false;
+        while ( true ) {
+            int b = next();
+            if ( quote != 0 ) {
+                if ( b == quote ) {
+                    quote = 0;
+                }
+            }
+            else if ( b == '"' || b == '\'' ) {
+                quote = b;
+                slash = false;
+            }
+            else if ( b == '>' ) {
+                return slash;
+            }
+            else if ( b == '/' ) {
+                slash = true;
+            }
+            else if ( ! isSpace( (byte) b ) ) {
+                slash = false;
+            }
+        }
+    }
+
+    /**
+     * Reads a character or entity reference following an ampersand.
+     *
+     * @return  referenced code point
+     */
+    private int scanReference() throws IOException {
+        StringBuilder sbuf = new StringBuilder();
+        for ( int b; ( b = next() ) != ';'; ) {
+            if ( sbuf.length() > 12 ) {
+                throw new IOException( "Bad reference in TABLEDATA" );
+            }
+            sbuf.append( (char) b );
+        }
+        String ref = sbuf.toString();
+        switch ( ref ) {
+            case "lt":
+                return '<';
+            case "gt":
+                return '>';
+            case "amp":
+                return '&';
+            case "quot":
+                return '"';
+            case "apos":
+                return '\'';
+            default:
+                try {
+                    if ( ref.startsWith( "#x" ) ) {
+                        return Integer.parseInt( ref.substring( 2 ), 16 );
+                    }
+                    else if ( ref.startsWith( "#" ) ) {
+                        return Integer.parseInt( ref.substring( 1 ) );
+                    }
+                }
+                catch ( NumberFormatException e ) {
+                }
+                throw new IOException( "Unsupported reference &" + ref
+                                     + "; in TABLEDATA" );
+        }
+    }
+
+    /**
+     * Appends the character encoded by a byte, and if necessary
+     * its following bytes, to the cell buffer.
+     * Line ends are normalised as required by the XML specification.
+     *
+     * @param  b  byte value
+     */
+    private void appendByte( int b ) throws IOException {
+        if ( b < 0x80 ) {
+            if ( b == '\r' ) {
+                if ( peek() == '\n' ) {
+                    next();
+                }
+                b = '\n';
+            }
+            appendChar( (char) b );
+        }
+        else {
+            final int nextra;
+            int cp;
+            if ( ( b & 0xe0 ) == 0xc0 ) {
+                nextra = 1;
+                cp = b & 0x1f;
+            }
+            else if ( ( b & 0xf0 ) == 0xe0 ) {
+                nextra = 2;
+                cp = b & 0x0f;
+            }
+            else if ( ( b & 0xf8 ) == 0xf0 ) {
+                nextra = 3;
+                cp = b & 0x07;
+            }
+            else {
+                throw new IOException( "Bad UTF-8 in TABLEDATA" );
+            }
+            for ( int i = 0; i < nextra; i++ ) {
+                int c = next();
+                if ( ( c & 0xc0 ) != 0x80 ) {
+                    throw new IOException( "Bad UTF-8 in TABLEDATA" );
+                }
+                cp = ( cp << 6 ) | ( c & 0x3f );
+            }
+            appendCodePoint( cp );
+        }
+    }
+
+    /**
+     * Appends a code point to the cell buffer.
+     *
+     * @param  cp  code point
+     */
+    private void appendCodePoint( int cp ) throws IOException {
+        if ( Character.isBmpCodePoint( cp ) ) {
+            appendChar( (char) cp );
+        }
+        else if ( Character.isValidCodePoint( cp ) ) {
+            appendChar( Character.highSurrogate( cp ) );
+            appendChar( Character.lowSurrogate( cp ) );
+        }
+        else {
+            throw new IOException( "Bad character in TABLEDATA" );
+        }
+    }
+
+    /**
+     * Appends a character to the cell buffer.
+     *
+     * @param  c  character
+     */
+    private void appendChar( char c ) {
+        if ( cellLeng_ == cell_.length ) {
+            char[] cell = new char[ cell_.length * 2 ];
+            System.arraycopy( cell_, 0, cell, 0, cellLeng_ );
+            cell_ = cell;
+        }
+        cell_[ cellLeng_++ ] = c;
+    }
+
+    /**
+     * Adds a byte to the element name buffer.
+     * Excessively long names are truncated, which means they will
+     * not match any of the names of interest.
+     *
+     * @param  b  byte
+     */
+    private void addName( byte b ) {
+        if ( nameLeng_ < name_.length ) {
+            name_[ nameLeng_ ] = b;
+        }
+        nameLeng_++;
+    }
+
+    /**
+     * Indicates whether the local part of the name in the name buffer
+     * is equal to a given string.
+     *
+     * @param  localName  ASCII element local name
+     * @return  true iff the name in the buffer has the given local name
+     *          with or without a namespace prefix
+     */
+    private boolean localNameIs( String localName ) {
+        int nl = localName.length();
+        if ( nameLeng_ > name_.length || nameLeng_ < nl ) {
+            return false;
+        }
+        int off = nameLeng_ - nl;
+        if ( off > 0 && name_[ off - 1 ] != ':' ) {
+            return false;
+        }
+        for ( int i = 0; i < nl; i++ ) {
+            if ( name_[ off + i ] != localName.charAt( i ) ) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Indicates whether a byte terminates an element name.
+     *
+     * @param  b  byte
+     * @return  true for whitespace, "/", "&gt;" or end of stream
+     */
+    private static boolean isNameEnd( byte b ) {
+        return isSpace( b ) || b == '>' || b == '/' || b == -1;
+    }
+
+    /**
+     * Indicates whether a byte is XML whitespace.
+     *
+     * @param  b  byte
+     * @return  true for whitespace
+     */
+    private static boolean isSpace( byte b ) {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t';
+    }
+
+    /**
+     * Returns the ASCII bytes of a string.
+     *
+     * @param  txt  string
+     * @return  byte array
+     */
+    private static byte[] bytes( String txt ) {
+        return txt.getBytes( StandardCharsets.US_ASCII );
+    }
+}
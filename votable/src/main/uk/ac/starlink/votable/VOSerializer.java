@@ -14,6 +14,7 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Logger;
 import uk.ac.starlink.fits.FitsUtil;
@@ -34,6 +35,7 @@ import uk.ac.starlink.table.WrapperStarTable;
 import uk.ac.starlink.util.BufferedBase64OutputStream;
 import uk.ac.starlink.util.DataBufferedOutputStream;
 import uk.ac.starlink.util.IntList;
+import uk.ac.starlink.util.SplitPolicy;
 import uk.ac.starlink.votable.datalink.ExampleUrl;
 import uk.ac.starlink.votable.datalink.ServiceDescriptor;
 import uk.ac.starlink.votable.datalink.ServiceParam;
@@ -63,6 +65,7 @@ public abstract class VOSerializer {
     final Map<MetaEl,String> coosysMap_;
     final Map<MetaEl,String> timesysMap_;
     private boolean isCompact_;
+    private int writeThreadCount_ = 1;
 
     final static Logger logger = Logger.getLogger( "uk.ac.starlink.votable" );
     private static final AtomicLong idSeq_ = new AtomicLong();
@@ -72,6 +75,9 @@ public abstract class VOSerializer {
     private static final byte[] GT_BYTES = toAsciiBytes( "&gt;" );
     private static final byte[] AMP_BYTES = toAsciiBytes( "&amp;" );
 
+    /** Approximate number of bytes of row data encoded by each task. */
+    private static final int BLOCK_BYTES = 1024 * 1024;
+
     /**
      * Constructs a new serializer which can write a given StarTable.
      *
@@ -210,6 +216,28 @@ public abstract class VOSerializer {
         return isCompact_;
     }
 
+    /**
+     * Sets the number of threads used for encoding row data.
+     * This currently only has an effect for BINARY and BINARY2 formats.
+     * The output is the same regardless of this setting.
+     *
+     * @param  nThread  encoding thread count; 1 for sequential encoding,
+     *                  &lt;=0 to use the number of available processors
+     */
+    public void setWriteThreadCount( int nThread ) {
+        writeThreadCount_ = nThread;
+    }
+
+    /**
+     * Returns the number of threads used for encoding row data.
+     *
+     * @return  encoding thread count; 1 for sequential encoding,
+     *          &lt;=0 for the number of available processors
+     */
+    public int getWriteThreadCount() {
+        return writeThreadCount_;
+    }
+
     /**
      * Writes the FIELD headers corresponding to this table on a given writer.
      *
@@ -1387,6 +1415,90 @@ public abstract class VOSerializer {
         public abstract void streamData( OutputStream out )
                 throws IOException;
 
+        /**
+         * Returns an object which can write the serialized form of
+         * a single row, if rows are written independently of each other.
+         * The default implementation returns null.
+         *
+         * @return   new row writer, or null
+         */
+        ParallelStreamWriter.RowWriter createRowWriter() {
+            return null;
+        }
+
+        /**
+         * Writes each row of the table using a given row writer.
+         * This may be used to implement {@link #streamData}.
+         *
+         * @param  out  destination stream
+         * @param  rowWriter  row writer
+         */
+        void streamRows( OutputStream out,
+                         ParallelStreamWriter.RowWriter rowWriter )
+                throws IOException {
+            DataBufferedOutputStream dout = new DataBufferedOutputStream( out );
+            try ( RowSequence rseq = getRowSequence() ) {
+                while ( rseq.next() ) {
+                    rowWriter.writeRow( rseq.getRow(), dout );
+                }
+            }
+            dout.flush();
+        }
+
+        /**
+         * Writes the data which are contained in the STREAM element,
+         * either raw or base64-encoded, to an output stream.
+         * If the write thread count is not 1 and rows can be written
+         * independently, rows are encoded in parallel;
+         * the output is the same in any case.
+         *
+         * @param  out  destination stream
+         * @param  isBase64  true for base64-encoded output,
+         *                   false for raw bytes
+         */
+        private void writeStreamContent( OutputStream out, boolean isBase64 )
+                throws IOException {
+            int nthread = getWriteThreadCount();
+            if ( nthread != 1 && createRowWriter() != null ) {
+                ForkJoinPool pool = nthread > 1
+                                  ? new ForkJoinPool( nthread )
+                                  : SplitPolicy.DFLT_POLICY.getForkJoinPool();
+                try {
+                    if ( pool.getParallelism() > 1 ) {
+                        int ncol = getTable().getColumnCount();
+                        int blockRows =
+                            Math.max( 1, BLOCK_BYTES / ( 8 * ncol + 1 ) );
+                        try ( RowSequence rseq = getRowSequence() ) {
+                            new ParallelStreamWriter( this::createRowWriter,
+                                                      pool, blockRows )
+                               .writeRows( rseq, out, isBase64 );
+                        }
+                        return;
+                    }
+                }
+                finally {
+                    if ( nthread > 1 ) {
+                        pool.shutdown();
+                    }
+                }
+            }
+            if ( isBase64 ) {
+
+                /* Note this implementation is considerably faster than
+                 * the Java 8 java.util.Base64 implementation; it's also
+                 * more suitable because the Base64 output can be terminated
+                 * without closing the underlying output stream
+                 * (or jumping through hoops to avoid doing so). */
+                BufferedBase64OutputStream b64out =
+                    new BufferedBase64OutputStream( out );
+                streamData( b64out );
+                b64out.endBase64();
+            }
+            else {
+                streamData( out );
+            }
+        }
+
         public void writeInlineDataElement( BufferedWriter writer ) 
                 throws IOException {
 
@@ -1400,16 +1512,7 @@ public abstract class VOSerializer {
             writer.write( "<STREAM encoding='base64'>" );
             writer.newLine();
 
-            /* Note this implementation is considerably faster than the Java 8
-             * java.util.Base64 implementation; it's also more suitable because
-             * the Base64 output can be terminated without closing the
-             * underlying output stream (or jumping through hoops to avoid
-             * doing so). */
-            BufferedBase64OutputStream b64out = 
-                new BufferedBase64OutputStream(
-                    new WriterOutputStream( writer ) );
-            streamData( b64out );
-            b64out.endBase64();
+            writeStreamContent( new WriterOutputStream( writer ), true );
             writer.write( "</STREAM>" );
             writer.newLine();
 
@@ -1428,10 +1531,7 @@ public abstract class VOSerializer {
             out.write( NL_BYTES );
             out.write( toAsciiBytes( "<STREAM encoding='base64'>" ) );
             out.write( NL_BYTES );
-            BufferedBase64OutputStream b64out =
-                new BufferedBase64OutputStream( out );
-            streamData( b64out );
-            b64out.endBase64();
+            writeStreamContent( out, true );
             out.write( toAsciiBytes( "</STREAM>" ) );
             out.write( NL_BYTES );
             out.write( toAsciiBytes( "</" + tagname + ">" ) );
@@ -1462,7 +1562,7 @@ public abstract class VOSerializer {
             xmlwriter.newLine();
 
             /* Write the bulk data to the output stream. */
-            streamData( streamout );
+            writeStreamContent( streamout, false );
         }
     }
 
@@ -1484,20 +1584,20 @@ public abstract class VOSerializer {
         }
 
         public void streamData( OutputStream out ) throws IOException {
+            streamRows( out, createRowWriter() );
+        }
+
+        @Override
+        ParallelStreamWriter.RowWriter createRowWriter() {
             int ncol = encoders.length;
-            DataBufferedOutputStream dout = new DataBufferedOutputStream( out );
-            try ( RowSequence rseq = getRowSequence() ) {
-                while ( rseq.next() ) {
-                    Object[] row = rseq.getRow();
-                    for ( int icol = 0; icol < ncol; icol++ ) {
-                        Encoder encoder = encoders[ icol ];
-                        if ( encoder != null ) {
-                            encoder.encodeToStream( row[ icol ], dout );
-                        }
+            return ( row, dout ) -> {
+                for ( int icol = 0; icol < ncol; icol++ ) {
+                    Encoder encoder = encoders[ icol ];
+                    if ( encoder != null ) {
+                        encoder.encodeToStream( row[ icol ], dout );
                     }
                 }
-            }
-            dout.flush();
+            };
         }
     }
 
@@ -1519,6 +1619,11 @@ public abstract class VOSerializer {
         }
 
         public void streamData( OutputStream out ) throws IOException {
+            streamRows( out, createRowWriter() );
+        }
+
+        @Override
+        ParallelStreamWriter.RowWriter createRowWriter() {
 
             /* Restrict attention to columns with non-null encoders,
              * that is those which we will actually be writing out. */
@@ -1532,29 +1637,24 @@ public abstract class VOSerializer {
             int ncol = icols.length;
             boolean[] nullFlags = new boolean[ ncol ];
 
-            /* Read data from table. */
-            DataBufferedOutputStream dout = new DataBufferedOutputStream( out );
-            try ( RowSequence rseq = getRowSequence() ) {
-                while ( rseq.next() ) {
- 
-                    /* Prepare and write the null-flag array. */
-                    Object[] row = rseq.getRow();
-                    for ( int jcol = 0; jcol < ncol; jcol++ ) {
-                        int icol = icols[ jcol ];
-                        Object cell = row[ icol ];
-                        nullFlags[ jcol ] = cell == null;
-                    }
-                    FlagIO.writeFlags( dout, nullFlags );
+            /* Write each row. */
+            return ( row, dout ) -> {
 
-                    /* Write the data cells. */
-                    for ( int jcol = 0; jcol < ncol; jcol++ ) {
-                        int icol = icols[ jcol ];
-                        Object cell = row[ icol ];
-                        encoders[ icol ].encodeToStream( cell, dout );
-                    }
+                /* Prepare and write the null-flag array. */
+                for ( int jcol = 0; jcol < ncol; jcol++ ) {
+                    int icol = icols[ jcol ];
+                    Object cell = row[ icol ];
+                    nullFlags[ jcol ] = cell == null;
                 }
-            }
-            dout.flush();
+                FlagIO.writeFlags( dout, nullFlags );
+
+                /* Write the data cells. */
+                for ( int jcol = 0; jcol < ncol; jcol++ ) {
+                    int icol = icols[ jcol ];
+                    Object cell = row[ icol ];
+                    encoders[ icol ].encodeToStream( cell, dout );
+                }
+            };
         }
     }
 
@@ -14,6 +14,7 @@ import uk.ac.starlink.table.TableSequence;
 import uk.ac.starlink.table.TableSink;
 import uk.ac.starlink.table.Tables;
 import uk.ac.starlink.table.formats.DocumentedTableBuilder;
+import uk.ac.starlink.util.ConfigMethod;
 import uk.ac.starlink.util.DataSource;
 
 /**
@@ -26,6 +27,8 @@ public class VOTableBuilder extends DocumentedTableBuilder
                             implements MultiTableBuilder {
 
     private boolean strict_;
+    private int indexStep_;
+    private boolean saveIndex_;
     private static Pattern htmlPattern = 
         Pattern.compile( "<x?html", Pattern.CASE_INSENSITIVE );
 
@@ -50,6 +53,84 @@ public class VOTableBuilder extends DocumentedTableBuilder
         strict_ = strict;
     }
 
+    /**
+     * Sets the row interval for indexing BINARY and BINARY2 streams
+     * held in external files.
+     *
+     * @param  indexStep  number of rows between index checkpoints,
+     *                    or zero for no indexing
+     */
+    @ConfigMethod(
+        property = "indexStep",
+        example = "1000",
+        doc = "<p>If set to a positive value, BINARY and BINARY2 data\n"
+            + "in external files (STREAM elements with an\n"
+            + "<code>href</code> attribute referencing a local file,\n"
+            + "unencoded or base64-encoded) is not copied to\n"
+            + "scratch storage when the table is read.\n"
+            + "Instead a single pass is made through the data file\n"
+            + "recording the position of every N'th row,\n"
+            + "where N is the value of this option.\n"
+            + "Random access is then provided by reading forward from\n"
+            + "the nearest recorded position,\n"
+            + "which saves memory and disk space for large tables.\n"
+            + "Smaller values give faster random access at the cost\n"
+            + "of a larger index.\n"
+            + "If zero, the default, no index is made.\n"
+            + "Inline (base64) STREAM content and gzip-encoded streams\n"
+            + "are not indexed, but read into storage as usual,\n"
+            + "since the XML parser does not report the byte offsets\n"
+            + "of element content within the document.\n"
+            + "</p>"
+    )
+    public void setIndexStep( int indexStep ) {
+        indexStep_ = indexStep;
+    }
+
+    /**
+     * Returns the row interval for indexing BINARY and BINARY2 streams
+     * held in external files.
+     *
+     * @return  number of rows between index checkpoints,
+     *          or zero for no indexing
+     */
+    public int getIndexStep() {
+        return indexStep_;
+    }
+
+    /**
+     * Sets whether row indexes for external BINARY and BINARY2 streams
+     * are saved alongside the data files for re-use.
+     *
+     * @param  saveIndex  true to save and re-use indexes
+     */
+    @ConfigMethod(
+        property = "saveIndex",
+        doc = "<p>If true, and the <code>indexStep</code> option is in use,\n"
+            + "the row index made for an external binary data file\n"
+            + "is written to a small file next to it,\n"
+            + "with the same name plus the suffix \"<code>.rowidx</code>\".\n"
+            + "When the same data is read again,\n"
+            + "and has not been modified in the meantime,\n"
+            + "the saved index is used instead of reading through\n"
+            + "the data file.\n"
+            + "Failure to read or write the index file is not fatal.\n"
+            + "</p>"
+    )
+    public void setSaveIndex( boolean saveIndex ) {
+        saveIndex_ = saveIndex;
+    }
+
+    /**
+     * Indicates whether row indexes for external BINARY and BINARY2 streams
+     * are saved alongside the data files for re-use.
+     *
+     * @return  true to save and re-use indexes
+     */
+    public boolean getSaveIndex() {
+        return saveIndex_;
+    }
+
     /**
      * Returns the string "VOTable".
      * 
@@ -111,7 +192,8 @@ public class VOTableBuilder extends DocumentedTableBuilder
         saxSrc.setSystemId( datsrc.getSystemId() );
         try {
             return SingleTableReader
-                  .readStarTable( saxSrc, itab, storagePolicy, strict_ );
+                  .readStarTable( saxSrc, itab, storagePolicy, strict_,
+                                  indexStep_, saveIndex_ );
         }
         catch ( SAXException e ) {
             throw new TableFormatException( e.getMessage(), e );
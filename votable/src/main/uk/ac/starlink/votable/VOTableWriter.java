@@ -65,6 +65,7 @@ public class VOTableWriter
     private VOTableVersion version_;
     private Boolean compact_;
     private Charset encoding_;
+    private int writeThreadCount_;
     private boolean writeSchemaLocation_;
     private String xmlDeclaration_ = DEFAULT_XML_DECLARATION;
 
@@ -110,6 +111,7 @@ public class VOTableWriter
         inline_ = inline;
         version_ = version;
         encoding_ = StandardCharsets.UTF_8;
+        writeThreadCount_ = 1;
     }
 
     /**
@@ -232,6 +234,7 @@ public class VOTableWriter
             if ( compact_ != null ) {
                 serializer.setCompact( compact_.booleanValue() );
             }
+            serializer.setWriteThreadCount( writeThreadCount_ );
 
             /* Begin TABLE element including FIELDs etc. */
             serializer.writePreDataXML( writer );
@@ -315,8 +318,11 @@ public class VOTableWriter
             if ( i > 0 ) {
                 writeBetweenTableXML( writer );
             }
-            VOSerializer.makeSerializer( dataFormat_, version_, startabs[ i ] )
-                        .writeInlineTableElement( writer );
+            VOSerializer serializer =
+                VOSerializer.makeSerializer( dataFormat_, version_,
+                                             startabs[ i ] );
+            serializer.setWriteThreadCount( writeThreadCount_ );
+            serializer.writeInlineTableElement( writer );
         }
         writePostTableXML( writer );
         writer.flush();
@@ -668,6 +674,45 @@ public class VOTableWriter
         return encoding_;
     }
 
+    /**
+     * Sets the number of threads used for encoding row data
+     * in BINARY and BINARY2 output.
+     * The output is the same regardless of this setting.
+     *
+     * @param  nThread  encoding thread count; 1 for sequential encoding,
+     *                  &lt;=0 to use the number of available processors
+     */
+    @ConfigMethod(
+        property = "nThread",
+        usage = "<int>",
+        example = "4",
+        doc = "<p>Sets the number of threads used for concurrently\n"
+            + "encoding row data in BINARY and BINARY2 output,\n"
+            + "including the base64 encoding of inline data.\n"
+            + "If the value is 1 (the default), rows are encoded\n"
+            + "sequentially by the writing thread.\n"
+            + "If it is &lt;=0, a value is chosen\n"
+            + "based on the number of apparently available processors.\n"
+            + "The output is the same in any case,\n"
+            + "but for large tables encoding in parallel may be faster.\n"
+            + "This option has no effect for TABLEDATA or FITS output.\n"
+            + "</p>",
+        sequence = 6
+    )
+    public void setWriteThreadCount( int nThread ) {
+        writeThreadCount_ = nThread;
+    }
+
+    /**
+     * Returns the number of threads used for encoding row data.
+     *
+     * @return  encoding thread count; 1 for sequential encoding,
+     *          &lt;=0 for the number of available processors
+     */
+    public int getWriteThreadCount() {
+        return writeThreadCount_;
+    }
+
     /**
      * Determines whether the schema location attribute will be written
      * on opening VOTABLE tags.
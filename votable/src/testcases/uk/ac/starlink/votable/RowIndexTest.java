@@ -0,0 +1,218 @@
+package uk.ac.starlink.votable;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.Base64;
+import java.util.Random;
+import java.util.function.LongSupplier;
+import java.util.logging.Level;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import uk.ac.starlink.table.ArrayColumn;
+import uk.ac.starlink.table.ColumnStarTable;
+import uk.ac.starlink.table.RowAccess;
+import uk.ac.starlink.table.RowSequence;
+import uk.ac.starlink.table.RowSplittable;
+import uk.ac.starlink.table.StarTable;
+import uk.ac.starlink.table.StarTableOutput;
+import uk.ac.starlink.table.StoragePolicy;
+import uk.ac.starlink.table.Tables;
+import uk.ac.starlink.util.FileDataSource;
+import uk.ac.starlink.util.LogUtils;
+import uk.ac.starlink.util.TestCase;
+
+public class RowIndexTest extends TestCase {
+
+    private static final Pattern HREF_REGEX =
+        Pattern.compile( "href=['\"]([^'\"]*)['\"]" );
+
+    public RowIndexTest() {
+        LogUtils.getLogger( "uk.ac.starlink.votable" )
+                .setLevel( Level.WARNING );
+    }
+
+    public void testIndexedRead() throws IOException {
+        StarTable table = createTestTable( 2345 );
+        File dir = Files.createTempDirectory( "vix" ).toFile();
+        try {
+            for ( DataFormat fmt :
+                  new DataFormat[] { DataFormat.BINARY,
+                                     DataFormat.BINARY2 } ) {
+                File xmlFile = new File( dir, "t-" + fmt + ".vot" );
+                VOTableWriter writer = new VOTableWriter( fmt, false );
+                writer.writeStarTable( table, xmlFile.getPath(),
+                                       new StarTableOutput() );
+                exerciseIndex( table, xmlFile, 100 );
+                exerciseIndex( table, xmlFile, 1 );
+
+                /* Rewrite the external stream as base64 text. */
+                File b64File = new File( dir, "t-" + fmt + ".vot64" );
+                String xml = new String( Files.readAllBytes( xmlFile.toPath() ),
+                                         "UTF-8" );
+                Matcher matcher = HREF_REGEX.matcher( xml );
+                assertTrue( matcher.find() );
+                String href = matcher.group( 1 );
+                File dataFile = new File( dir, href );
+                byte[] data = Files.readAllBytes( dataFile.toPath() );
+                try ( OutputStream out =
+                          Base64.getMimeEncoder()
+                                .wrap( Files.newOutputStream(
+                                           new File( dir, href + ".b64" )
+                                          .toPath() ) ) ) {
+                    out.write( data );
+                }
+                xml = xml.replace( matcher.group(),
+                                   "href='" + href + ".b64' "
+                                 + "encoding='base64'" );
+                Files.write( b64File.toPath(), xml.getBytes( "UTF-8" ) );
+                exerciseIndex( table, b64File, 37 );
+                exerciseIndex( table, b64File, 5000 );
+
+                /* Saved index. */
+                File ixFile =
+                    BinaryRowIndex.getIndexFile( new File( dir, href ) );
+                assertFalse( ixFile.exists() );
+                VOTableBuilder builder = new VOTableBuilder();
+                builder.setIndexStep( 50 );
+                builder.setSaveIndex( true );
+                for ( int i = 0; i < 2; i++ ) {
+                    StarTable t1 = readTable( builder, xmlFile );
+                    assertTrue( t1.isRandom() );
+                    assertEquals( table.getRowCount(), t1.getRowCount() );
+                    assertRowsEqual( table, t1, 2000 );
+                    assertTrue( ixFile.exists() );
+                    t1.close();
+                }
+            }
+
+            /* Inline streams are not indexed, but are still read
+             * correctly when an index step is set. */
+            File inFile = new File( dir, "t-inline.vot" );
+            new VOTableWriter( DataFormat.BINARY2, true )
+               .writeStarTable( table, inFile.getPath(),
+                                new StarTableOutput() );
+            VOTableBuilder inBuilder = new VOTableBuilder();
+            inBuilder.setIndexStep( 10 );
+            StarTable tIn = readTable( inBuilder, inFile );
+            assertTrue( tIn.isRandom() );
+            assertRowsEqual( table, tIn, 100 );
+
+            /* Without an index step, data is copied as before. */
+            StarTable t0 = readTable( new VOTableBuilder(),
+                                      new File( dir, "t-BINARY.vot" ) );
+            assertTrue( t0.isRandom() );
+            assertRowsEqual( table, t0, 100 );
+        }
+        finally {
+            for ( File f : dir.listFiles() ) {
+                f.delete();
+            }
+            dir.delete();
+        }
+    }
+
+    private void exerciseIndex( StarTable table, File xmlFile, int step )
+            throws IOException {
+        VOTableBuilder builder = new VOTableBuilder();
+        builder.setIndexStep( step );
+        assertEquals( step, builder.getIndexStep() );
+        StarTable t1 = readTable( builder, xmlFile );
+        assertTrue( t1.isRandom() );
+        Tables.checkTable( t1 );
+        long nrow = table.getRowCount();
+        assertEquals( nrow, t1.getRowCount() );
+
+        /* Sequential access. */
+        RowSequence rseq0 = table.getRowSequence();
+        RowSequence rseq1 = t1.getRowSequence();
+        while ( rseq0.next() ) {
+            assertTrue( rseq1.next() );
+            assertRowEquals( rseq0.getRow(), rseq1.getRow() );
+        }
+        assertFalse( rseq1.next() );
+        rseq0.close();
+        rseq1.close();
+
+        /* Random access, in random order. */
+        assertRowsEqual( table, t1, 1000 );
+
+        /* Split access. */
+        RowSplittable split = t1.getRowSplittable();
+        RowSplittable split2 = split.split();
+        assertNotNull( split2 );
+        long count = 0;
+        for ( RowSplittable s : new RowSplittable[] { split, split2 } ) {
+            LongSupplier rowIndex = s.rowIndex();
+            while ( s.next() ) {
+                long irow = rowIndex.getAsLong();
+                assertRowEquals( table.getRow( irow ), s.getRow() );
+                count++;
+            }
+            s.close();
+        }
+        assertEquals( nrow, count );
+        t1.close();
+    }
+
+    private void assertRowsEqual( StarTable t0, StarTable t1, int ntest )
+            throws IOException {
+        Random rnd = new Random( 9001 );
+        long nrow = t0.getRowCount();
+        RowAccess racc = t1.getRowAccess();
+        for ( int i = 0; i < ntest; i++ ) {
+            long irow = i % 10 == 0 ? nrow - 1
+                                    : (long) rnd.nextInt( (int) nrow );
+            racc.setRowIndex( irow );
+            assertRowEquals( t0.getRow( irow ), racc.getRow() );
+            assertEquals( t0.getCell( irow, 2 ), racc.getCell( 2 ) );
+            assertRowEquals( t0.getRow( irow ), t1.getRow( irow ) );
+        }
+        racc.close();
+    }
+
+    private void assertRowEquals( Object[] row0, Object[] row1 ) {
+        assertEquals( row0.length, row1.length );
+        for ( int icol = 0; icol < row0.length; icol++ ) {
+            Object c0 = row0[ icol ];
+            Object c1 = row1[ icol ];
+            if ( c0 != null && c0.getClass().isArray() ) {
+                assertArrayEquals( c0, c1 );
+            }
+            else {
+                assertEquals( c0, c1 );
+            }
+        }
+    }
+
+    private static StarTable readTable( VOTableBuilder builder, File file )
+            throws IOException {
+        return builder.makeStarTable( new FileDataSource( file ), true,
+                                      StoragePolicy.PREFER_MEMORY );
+    }
+
+    private static StarTable createTestTable( int nrow ) {
+        Random rnd = new Random( 23 );
+        Integer[] ivals = new Integer[ nrow ];
+        double[] dvals = new double[ nrow ];
+        String[] svals = new String[ nrow ];
+        int[][] avals = new int[ nrow ][];
+        for ( int i = 0; i < nrow; i++ ) {
+            ivals[ i ] = i % 7 == 0 ? null : Integer.valueOf( rnd.nextInt() );
+            dvals[ i ] = rnd.nextGaussian();
+            svals[ i ] = "s" + rnd.nextInt( 1000 );
+            int[] a = new int[ rnd.nextInt( 5 ) ];
+            for ( int j = 0; j < a.length; j++ ) {
+                a[ j ] = rnd.nextInt( 100 );
+            }
+            avals[ i ] = a;
+        }
+        ColumnStarTable table = ColumnStarTable.makeTableWithRows( nrow );
+        table.addColumn( ArrayColumn.makeColumn( "i", ivals ) );
+        table.addColumn( ArrayColumn.makeColumn( "d", dvals ) );
+        table.addColumn( ArrayColumn.makeColumn( "s", svals ) );
+        table.addColumn( ArrayColumn.makeColumn( "a", avals ) );
+        return table;
+    }
+}
@@ -2,6 +2,9 @@ package uk.ac.starlink.votable;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -86,6 +89,71 @@ public class TableWriterTest extends TestCase {
             toDom( t23, "format=TABLEDATA,compact=true" ) );
     }
 
+    public void testParallelWrite() throws Exception {
+        for ( long nrow : new long[] { 0, 1, 16, 9999 } ) {
+            StarTable table = AutoStarTable.getDemoTable( nrow );
+            for ( DataFormat format :
+                  new DataFormat[] { DataFormat.BINARY, DataFormat.BINARY2,
+                                     DataFormat.TABLEDATA } ) {
+                VOTableWriter w1 = new VOTableWriter( format, true );
+                String seqUtf8 = writeData( w1, table );
+                w1.setEncoding( StandardCharsets.UTF_16 );
+                String seqUtf16 = writeData( w1, table );
+                for ( int nthread : new int[] { 3, 0 } ) {
+                    VOTableWriter wn = new VOTableWriter( format, true );
+                    wn.setWriteThreadCount( nthread );
+                    assertEquals( nthread, wn.getWriteThreadCount() );
+                    assertEquals( seqUtf8, writeData( wn, table ) );
+                    wn.setEncoding( StandardCharsets.UTF_16 );
+                    assertEquals( seqUtf16, writeData( wn, table ) );
+                }
+            }
+        }
+
+        /* Out-of-line data. */
+        StarTable table = AutoStarTable.getDemoTable( 5000 );
+        File dir = Files.createTempDirectory( "vpar" ).toFile();
+        try {
+            for ( DataFormat format :
+                  new DataFormat[] { DataFormat.BINARY,
+                                     DataFormat.BINARY2 } ) {
+                byte[][] data = new byte[ 2 ][];
+                for ( int i = 0; i < 2; i++ ) {
+                    File file = new File( dir, "t" + i + ".vot" );
+                    VOTableWriter writer = new VOTableWriter( format, false );
+                    writer.setWriteThreadCount( i == 0 ? 1 : 4 );
+                    writer.writeStarTable( table, file.getPath(),
+                                           new StarTableOutput() );
+                    data[ i ] = Files.readAllBytes(
+                                    new File( dir, "t" + i + "-data.bin" )
+                                   .toPath() );
+                }
+                assertTrue( data[ 0 ].length > 0 );
+                assertArrayEquals( data[ 0 ], data[ 1 ] );
+            }
+        }
+        finally {
+            for ( File f : dir.listFiles() ) {
+                f.delete();
+            }
+            dir.delete();
+        }
+    }
+
+    /**
+     * Returns the output document text following the start of the
+     * DATA element; the earlier part contains a timestamp.
+     */
+    private static String writeData( VOTableWriter writer, StarTable table )
+            throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writer.writeStarTable( table, out );
+        String txt = new String( out.toByteArray(), writer.getEncoding() );
+        int idata = txt.indexOf( "<DATA>" );
+        assertTrue( idata > 0 );
+        return txt.substring( idata );
+    }
+
     private VOElement toDom( StarTable table, String votOptions )
             throws Exception {
         ByteArrayOutputStream out = new ByteArrayOutputStream();
@@ -0,0 +1,260 @@
+package uk.ac.starlink.votable;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.logging.Level;
+import javax.xml.parsers.SAXParserFactory;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
+import uk.ac.starlink.table.ArrayColumn;
+import uk.ac.starlink.table.ColumnStarTable;
+import uk.ac.starlink.table.StarTable;
+import uk.ac.starlink.table.StoragePolicy;
+import uk.ac.starlink.table.Tables;
+import uk.ac.starlink.util.ByteArrayDataSource;
+import uk.ac.starlink.util.LogUtils;
+import uk.ac.starlink.util.TestCase;
+
+public class TabledataTest extends TestCase {
+
+    private static final String CHARS = "ab<>&'\" \u00e9\u4e2d";
+
+    public TabledataTest() {
+        LogUtils.getLogger( "uk.ac.starlink.votable" )
+                .setLevel( Level.WARNING );
+    }
+
+    public void testWritten() throws Exception {
+        StarTable table = createTestTable( 1234 );
+        ByteArrayOutputStream bout = new ByteArrayOutputStream();
+        new VOTableWriter( DataFormat.TABLEDATA, true )
+           .writeStarTable( table, bout );
+        byte[] buf = bout.toByteArray();
+        List<Object[]> directRows = parseRows( buf, true, 1234 );
+        List<Object[]> saxRows = parseRows( buf, false, 0 );
+        assertRowsEqual( saxRows, directRows );
+        assertEquals( 1234, directRows.size() );
+        for ( int irow = 0; irow < 1234; irow++ ) {
+            assertEquals( table.getCell( irow, 0 ),
+                          directRows.get( irow )[ 0 ] );
+            String sval = (String) table.getCell( irow, 2 );
+            assertEquals( sval.length() == 0 ? null : sval,
+                          directRows.get( irow )[ 2 ] );
+        }
+    }
+
+    public void testSyntax() throws Exception {
+        String fields = "<FIELD name='i' datatype='int'/>"
+                      + "<FIELD name='s' datatype='char' arraysize='*'/>"
+                      + "<FIELD name='l' datatype='long'/>"
+                      + "<FIELD name='a' datatype='short' arraysize='*'/>"
+                      + "<FIELD name='d' datatype='double'/>";
+        String tdata = "\r\n"
+            + "<!-- comment with <TR><TD>99</TD></TR> -->\r\n"
+            + "<TR><TD> 23 </TD><TD>a &lt;b&gt; &amp; &#x41;&#66;</TD>"
+            +     "<TD>-9000000000</TD><TD>1 2  3</TD><TD>1e3</TD></TR>\n"
+            + "<TR ID='r2'><TD/><TD><![CDATA[<x>]]]></TD><TD></TD>"
+            +     "<TD/><TD>NaN</TD></TR>\r"
+            + "<?pi stuff?>"
+            + "<TR><TD>0x1f</TD><TD>line1\r\nline2\rline3</TD>"
+            +     "<TD>+5</TD><TD>7</TD><TD>-Inf</TD><TD>extra</TD></TR>"
+            + "<TR><TD>2147483648</TD><TD>\u00e9\u20ac\ud83d\ude00</TD>"
+            +     "<TD>123456789012345678901</TD></TR>\n"
+            + "<TR/>";
+        for ( String prefix : new String[] { "", "v:" } ) {
+            String xml = "<?xml version='1.0' encoding='UTF-8'?>\n"
+                + "<" + prefix + "VOTABLE version='1.3' xmlns"
+                + ( prefix.length() > 0 ? ":v" : "" )
+                + "='http://www.ivoa.net/xml/VOTable/v1.3'>"
+                + "<" + prefix + "RESOURCE><" + prefix + "TABLE>"
+                + fields.replaceAll( "<FIELD", "<" + prefix + "FIELD" )
+                + "<" + prefix + "DATA><" + prefix + "TABLEDATA>"
+                + tdata.replaceAll( "<(/?)(TR|TD)", "<$1" + prefix + "$2" )
+                + "</" + prefix + "TABLEDATA></" + prefix + "DATA>"
+                + "</" + prefix + "TABLE></" + prefix + "RESOURCE>"
+                + "</" + prefix + "VOTABLE>";
+            byte[] buf = xml.getBytes( "UTF-8" );
+            List<Object[]> directRows = parseRows( buf, true, 5 );
+            List<Object[]> saxRows = parseRows( buf, false, 0 );
+            assertRowsEqual( saxRows, directRows );
+            assertEquals( 5, directRows.size() );
+            assertEquals( Integer.valueOf( 23 ), directRows.get( 0 )[ 0 ] );
+            assertEquals( "a <b> & AB", directRows.get( 0 )[ 1 ] );
+            assertEquals( Long.valueOf( -9000000000L ),
+                          directRows.get( 0 )[ 2 ] );
+            assertEquals( "<x>]", directRows.get( 1 )[ 1 ] );
+            assertEquals( Integer.valueOf( 31 ), directRows.get( 2 )[ 0 ] );
+            assertEquals( "line1\nline2\nline3", directRows.get( 2 )[ 1 ] );
+            assertEquals( "\u00e9\u20ac\ud83d\ude00",
+                          directRows.get( 3 )[ 1 ] );
+            assertNull( directRows.get( 3 )[ 0 ] );
+
+            /* The same document through the builder. */
+            StarTable t = new VOTableBuilder()
+                         .makeStarTable( new ByteArrayDataSource( "t", buf ),
+                                         true, StoragePolicy.PREFER_MEMORY );
+            Tables.checkTable( t );
+            assertEquals( 5, t.getRowCount() );
+            assertEquals( "a <b> & AB", t.getCell( 0, 1 ) );
+
+            /* ISO-8859-1 encoding is left to the parser. */
+            String latinXml =
+                xml.replace( "UTF-8", "ISO-8859-1" )
+                   .replace( "\ud83d\ude00", "" );
+            byte[] latinBuf = latinXml.getBytes( "ISO-8859-1" );
+            List<Object[]> latinRows = parseRows( latinBuf, true, 0 );
+            assertRowsEqual( parseRows( latinBuf, false, 0 ), latinRows );
+            assertEquals( "\u00e9?", latinRows.get( 3 )[ 1 ] );
+        }
+
+        /* Unsupported encodings are left to the parser. */
+        String utf16 = "<?xml version='1.0' encoding='UTF-16'?>"
+                     + "<VOTABLE><RESOURCE><TABLE>" + fields
+                     + "<DATA><TABLEDATA>" + tdata
+                     + "</TABLEDATA></DATA></TABLE></RESOURCE></VOTABLE>";
+        byte[] buf16 = utf16.getBytes( "UTF-16" );
+        assertRowsEqual( parseRows( buf16, false, 0 ),
+                         parseRows( buf16, true, 0 ) );
+    }
+
+    public void testMultiTable() throws Exception {
+        String table = "<TABLE><FIELD name='i' datatype='int'/>"
+                     + "<DATA><TABLEDATA>"
+                     + "<TR><TD>1</TD></TR><TR><TD>2</TD></TR>"
+                     + "</TABLEDATA></DATA></TABLE>";
+        String xml = "<VOTABLE><RESOURCE>"
+                   + table
+                   + "<TABLE><DATA><TABLEDATA/></DATA></TABLE>"
+                   + table
+                   + "</RESOURCE></VOTABLE>";
+        byte[] buf = xml.getBytes( "UTF-8" );
+        List<Object[]> directRows = parseRows( buf, true, 4 );
+        assertRowsEqual( parseRows( buf, false, 0 ), directRows );
+        assertEquals( 4, directRows.size() );
+    }
+
+    public void testReadAhead() throws Exception {
+        String xml = "<VOTABLE><TABLEDATA><TR><TD>1</TD></TR></TABLEDATA>"
+                   + "<TABLEDATA><TR><TD>2</TD></TR></TABLEDATA></VOTABLE>";
+        final List<Object[]> rows = new ArrayList<Object[]>();
+        TableHandler handler = new TableHandler() {
+            public void startTable( StarTable meta ) {
+            }
+            public void rowData( Object[] row ) {
+                rows.add( row );
+            }
+            public void endTable() {
+            }
+        };
+        Decoder[] decoders = new Decoder[] {
+            Decoder.makeDecoder( "int", new long[ 0 ], null ),
+        };
+        TabledataInputStream in =
+            new TabledataInputStream(
+                new ByteArrayInputStream( xml.getBytes( "UTF-8" ) ), null );
+        byte[] b = new byte[ 1024 ];
+
+        /* Reads stop at the end of a TABLEDATA start tag. */
+        String txt = new String( b, 0, in.read( b ), "UTF-8" );
+        assertTrue( txt.endsWith( "<TABLEDATA>" ) );
+
+        /* If the caller reads further before claiming, as a buffering
+         * parser might, the claim must fail. */
+        txt = new String( b, 0, in.read( b ), "UTF-8" );
+        assertTrue( txt.startsWith( "<TR>" ) );
+        assertTrue( txt.endsWith( "<TABLEDATA>" ) );
+        assertFalse( in.claimTabledata( 1, decoders, handler ) );
+
+        /* A claim on the element just reached succeeds. */
+        assertTrue( in.claimTabledata( 2, decoders, handler ) );
+        txt = new String( b, 0, in.read( b ), "UTF-8" );
+        assertTrue( txt.startsWith( "</TABLEDATA>" ) );
+        assertEquals( 1, rows.size() );
+        assertEquals( Integer.valueOf( 2 ), rows.get( 0 )[ 0 ] );
+        assertEquals( 1, in.getScannedRowCount() );
+        in.close();
+    }
+
+    private List<Object[]> parseRows( byte[] buf, boolean direct,
+                                      long nDirect )
+            throws Exception {
+        final List<Object[]> rows = new ArrayList<Object[]>();
+        TableContentHandler handler = new TableContentHandler( false );
+        handler.setTableHandler( new TableHandler() {
+            public void startTable( StarTable meta ) {
+            }
+            public void rowData( Object[] row ) {
+                rows.add( row );
+            }
+            public void endTable() {
+            }
+        } );
+        SAXParserFactory spfact = SAXParserFactory.newInstance();
+        spfact.setNamespaceAware( true );
+        XMLReader parser = spfact.newSAXParser().getXMLReader();
+        parser.setContentHandler( handler );
+        InputSource src = new InputSource( new ByteArrayInputStream( buf ) );
+        if ( direct ) {
+            src = handler.prepareInputSource( src );
+        }
+        parser.parse( src );
+        if ( direct ) {
+            assertEquals( nDirect,
+                          ((TabledataInputStream) src.getByteStream())
+                         .getScannedRowCount() );
+        }
+        return rows;
+    }
+
+    private void assertRowsEqual( List<Object[]> rows0,
+                                  List<Object[]> rows1 ) {
+        assertEquals( rows0.size(), rows1.size() );
+        for ( int irow = 0; irow < rows0.size(); irow++ ) {
+            Object[] row0 = rows0.get( irow );
+            Object[] row1 = rows1.get( irow );
+            assertEquals( row0.length, row1.length );
+            for ( int icol = 0; icol < row0.length; icol++ ) {
+                Object c0 = row0[ icol ];
+                Object c1 = row1[ icol ];
+                if ( c0 != null && c0.getClass().isArray() ) {
+                    assertArrayEquals( c0, c1 );
+                }
+                else {
+                    assertEquals( c0, c1 );
+                }
+            }
+        }
+    }
+
+    private static StarTable createTestTable( int nrow ) {
+        Random rnd = new Random( 555 );
+        Integer[] ivals = new Integer[ nrow ];
+        double[] dvals = new double[ nrow ];
+        String[] svals = new String[ nrow ];
+        long[][] avals = new long[ nrow ][];
+        for ( int i = 0; i < nrow; i++ ) {
+            ivals[ i ] = i % 9 == 0 ? null : Integer.valueOf( rnd.nextInt() );
+            dvals[ i ] = rnd.nextGaussian();
+            StringBuffer sbuf = new StringBuffer();
+            for ( int j = 0; j < rnd.nextInt( 12 ); j++ ) {
+                sbuf.append( CHARS.charAt( rnd.nextInt( CHARS.length() ) ) );
+            }
+            svals[ i ] = sbuf.toString();
+            long[] a = new long[ rnd.nextInt( 4 ) ];
+            for ( int j = 0; j < a.length; j++ ) {
+                a[ j ] = rnd.nextLong();
+            }
+            avals[ i ] = a;
+        }
+        ColumnStarTable table = ColumnStarTable.makeTableWithRows( nrow );
+        table.addColumn( ArrayColumn.makeColumn( "i", ivals ) );
+        table.addColumn( ArrayColumn.makeColumn( "d", dvals ) );
+        table.addColumn( ArrayColumn.makeColumn( "s", svals ) );
+        table.addColumn( ArrayColumn.makeColumn( "a", avals ) );
+        return table;
+    }
+}